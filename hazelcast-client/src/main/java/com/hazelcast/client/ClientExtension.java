@@ -22,6 +22,7 @@ import com.hazelcast.internal.nearcache.NearCacheManager;
 import com.hazelcast.internal.networking.ChannelFactory;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.map.impl.MapService;
+import com.hazelcast.multimap.impl.MultiMapService;
 import com.hazelcast.nio.SocketInterceptor;
 
 /**
@@ -73,7 +74,11 @@ public interface ClientExtension {
     NearCacheManager createNearCacheManager();
 
     /**
-     * Creates a {@code ClientProxyFactory} for the supplied service class. Currently only the {@link MapService} is supported.
+     * Creates a {@code ClientProxyFactory} for the supplied service class. Currently only the {@link MapService}
+     * and the {@link MultiMapService} are supported.
+     * <p>
+     * Since 3.9 this method is also called with the {@link MultiMapService}. An extension which does not create the
+     * MultiMap proxies itself should delegate this service to the default implementation.
      *
      * @param service service for the proxy to create.
      * @return {@code ClientProxyFactory} for the service.
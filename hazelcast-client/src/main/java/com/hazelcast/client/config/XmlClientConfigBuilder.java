@@ -311,6 +311,7 @@ public class XmlClientConfigBuilder extends AbstractConfigBuilder {
         String directory = getAttribute(node, "directory");
         String storeInitialDelaySeconds = getAttribute(node, "store-initial-delay-seconds");
         String storeIntervalSeconds = getAttribute(node, "store-interval-seconds");
+        String storeValues = getAttribute(node, "store-values");
         if (enabled != null) {
             preloaderConfig.setEnabled(getBooleanValue(enabled));
         }
@@ -324,6 +325,9 @@ public class XmlClientConfigBuilder extends AbstractConfigBuilder {
         if (storeIntervalSeconds != null) {
             preloaderConfig.setStoreIntervalSeconds(getIntegerValue("storage-interval-seconds", storeIntervalSeconds));
         }
+        if (storeValues != null) {
+            preloaderConfig.setStoreValues(getBooleanValue(storeValues));
+        }
         return preloaderConfig;
     }
 
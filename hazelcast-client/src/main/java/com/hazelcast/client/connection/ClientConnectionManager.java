@@ -71,6 +71,19 @@ public interface ClientConnectionManager extends ConnectionListenable {
      */
     Connection getOrTriggerConnect(Address address, boolean asOwner) throws IOException;
 
+    /**
+     * Returns one of the connections to the given member when more than one connection per member is configured with
+     * {@link com.hazelcast.client.spi.properties.ClientProperty#CONNECTIONS_PER_MEMBER}. The same stripe always maps
+     * to the same connection. Missing connections are opened in the background; until then the first connection to
+     * the member is returned.
+     *
+     * @param address to be connected
+     * @param stripe  the stripe selecting the connection, e.g. a partition id
+     * @return associated connection if available, returns null and triggers new connection creation otherwise
+     * @throws IOException if connection is not able to triggered
+     */
+    Connection getOrTriggerPooledConnect(Address address, int stripe) throws IOException;
+
     /**
      * Handles incoming network package
      *
@@ -25,6 +25,7 @@ import com.hazelcast.internal.networking.ChannelReader;
 import com.hazelcast.internal.networking.ChannelInitializer;
 import com.hazelcast.internal.networking.ChannelWriter;
 import com.hazelcast.internal.networking.InitResult;
+import com.hazelcast.internal.networking.OutboundFrame;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.nio.IOUtil;
 import com.hazelcast.nio.Protocols;
@@ -66,10 +67,13 @@ class ClientChannelInitializer implements ChannelInitializer<ClientConnection> {
 
         ByteBuffer outputBuffer = IOUtil.newByteBuffer(bufferSize, direct);
 
-        ChannelOutboundHandler handler = new ChannelOutboundHandler<ClientMessage>() {
+        ChannelOutboundHandler handler = new ChannelOutboundHandler<OutboundFrame>() {
             @Override
-            public boolean onWrite(ClientMessage msg, ByteBuffer dst) throws Exception {
-                return msg.writeTo(dst);
+            public boolean onWrite(OutboundFrame frame, ByteBuffer dst) throws Exception {
+                if (frame instanceof ClientMessageBatch) {
+                    return ((ClientMessageBatch) frame).writeTo(dst);
+                }
+                return ((ClientMessage) frame).writeTo(dst);
             }
         };
 
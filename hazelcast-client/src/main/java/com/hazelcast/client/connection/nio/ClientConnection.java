@@ -18,6 +18,7 @@ package com.hazelcast.client.connection.nio;
 
 import com.hazelcast.client.connection.ClientConnectionManager;
 import com.hazelcast.client.impl.HazelcastClientInstanceImpl;
+import com.hazelcast.client.impl.protocol.ClientMessage;
 import com.hazelcast.core.LifecycleService;
 import com.hazelcast.instance.BuildInfo;
 import com.hazelcast.internal.metrics.DiscardableMetricsProvider;
@@ -42,6 +43,11 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -80,6 +86,13 @@ public class ClientConnection implements ChannelConnection, DiscardableMetricsPr
     private int connectedServerVersion = BuildInfo.UNKNOWN_HAZELCAST_VERSION;
     private String connectedServerVersionString;
 
+    private final ClientWriteCoalescer writeCoalescer;
+    private final Queue<ClientMessage> pendingMessages = new ConcurrentLinkedQueue<ClientMessage>();
+    @Probe(level = ProbeLevel.DEBUG)
+    private final AtomicInteger pendingMessageCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
     public ClientConnection(HazelcastClientInstanceImpl client,
                             EventLoopGroup eventLoopGroup,
                             int connectionId,
@@ -92,6 +105,7 @@ public class ClientConnection implements ChannelConnection, DiscardableMetricsPr
         this.logger = client.getLoggingService().getLogger(ClientConnection.class);
         this.reader = eventLoopGroup.newSocketReader(this);
         this.writer = eventLoopGroup.newSocketWriter(this);
+        this.writeCoalescer = connectionManager.getWriteCoalescer();
     }
 
     public ClientConnection(HazelcastClientInstanceImpl client,
@@ -104,6 +118,7 @@ public class ClientConnection implements ChannelConnection, DiscardableMetricsPr
         this.reader = null;
         this.channel = null;
         this.logger = client.getLoggingService().getLogger(ClientConnection.class);
+        this.writeCoalescer = null;
     }
 
     @Override
@@ -157,10 +172,80 @@ public class ClientConnection implements ChannelConnection, DiscardableMetricsPr
             }
             return false;
         }
-        writer.write(frame);
+        if (writeCoalescer != null && frame instanceof ClientMessage && !frame.isUrgent()) {
+            coalesce((ClientMessage) frame);
+        } else {
+            writer.write(frame);
+        }
         return true;
     }
 
+    /**
+     * Adds the message to the pending messages, which are flushed by this thread once there are enough of them for a
+     * full batch, or by the flush thread of the {@link ClientWriteCoalescer} within the flush delay.
+     */
+    private void coalesce(ClientMessage message) {
+        pendingMessages.offer(message);
+        if (pendingMessageCount.incrementAndGet() >= writeCoalescer.getMaxBatchSize()) {
+            flushPendingMessages();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            writeCoalescer.scheduleFlush(this);
+        }
+    }
+
+    /**
+     * Called by the flush thread of the {@link ClientWriteCoalescer}.
+     */
+    void flushScheduledMessages() {
+        // the flag is reset before the messages are drained, so a message which is not drained schedules a new flush
+        flushScheduled.set(false);
+        flushPendingMessages();
+    }
+
+    /**
+     * Drains the pending messages and hands them over to the writer. Only one thread at a time drains and writes,
+     * otherwise a batch drained later could be written before a batch drained earlier and the messages of this
+     * connection would be reordered. A thread which fails to become the drainer leaves its messages to the current
+     * drainer, which checks for pending messages again after it has released the draining flag.
+     */
+    private void flushPendingMessages() {
+        while (!pendingMessages.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                drainAndWritePendingMessages();
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drainAndWritePendingMessages() {
+        List<ClientMessage> messages = null;
+        ClientMessage message;
+        while ((message = pendingMessages.poll()) != null) {
+            if (messages == null) {
+                messages = new ArrayList<ClientMessage>(Math.max(pendingMessageCount.get(), 1));
+            }
+            messages.add(message);
+        }
+        if (messages == null) {
+            return;
+        }
+        pendingMessageCount.addAndGet(-messages.size());
+
+        if (!isAlive()) {
+            if (logger.isFinestEnabled()) {
+                logger.finest("Connection is closed, dropping " + messages.size() + " coalesced messages");
+            }
+            return;
+        }
+        if (messages.size() == 1) {
+            writer.write(messages.get(0));
+        } else {
+            writer.write(new ClientMessageBatch(messages));
+        }
+        writeCoalescer.onBatchWritten(messages.size());
+    }
+
     public void start() throws IOException {
         ByteBuffer buffer = ByteBuffer.allocate(3);
         buffer.put(stringToBytes(Protocols.CLIENT_BINARY_NEW));
@@ -61,6 +61,7 @@ import com.hazelcast.security.UsernamePasswordCredentials;
 import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.Clock;
+import com.hazelcast.util.ConstructorFunction;
 import com.hazelcast.util.ExceptionUtil;
 
 import java.io.IOException;
@@ -80,9 +81,13 @@ import java.util.concurrent.atomic.AtomicLong;
 
 
 import static com.hazelcast.client.config.SocketOptions.KILO_BYTE;
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTIONS_PER_MEMBER;
 import static com.hazelcast.client.spi.properties.ClientProperty.HEARTBEAT_INTERVAL;
 import static com.hazelcast.client.spi.properties.ClientProperty.HEARTBEAT_TIMEOUT;
+import static com.hazelcast.client.spi.properties.ClientProperty.WRITE_COALESCING_DELAY_MICROS;
+import static com.hazelcast.client.spi.properties.ClientProperty.WRITE_COALESCING_MAX_BATCH_SIZE;
 import static com.hazelcast.spi.properties.GroupProperty.SOCKET_CLIENT_BUFFER_DIRECT;
+import static com.hazelcast.util.ConcurrencyUtil.getOrPutIfAbsent;
 
 /**
  * Implementation of {@link ClientConnectionManager}.
@@ -124,6 +129,11 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
             new CopyOnWriteArraySet<ConnectionHeartbeatListener>();
     private final Credentials credentials;
     private final AtomicLong correlationIddOfLastAuthentication = new AtomicLong(0);
+    private final ClientWriteCoalescer writeCoalescer;
+    private final int connectionsPerMember;
+    private final ConcurrentMap<Address, MemberConnectionPool> connectionPools
+            = new ConcurrentHashMap<Address, MemberConnectionPool>();
+    private final ConstructorFunction<Address, MemberConnectionPool> connectionPoolConstructor;
     private NioEventLoopGroup eventLoopGroup;
 
     public ClientConnectionManagerImpl(HazelcastClientInstanceImpl client, AddressTranslator addressTranslator) {
@@ -154,6 +164,35 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
         this.socketInterceptor = initSocketInterceptor(networkConfig.getSocketInterceptorConfig());
 
         this.credentials = client.getCredentials();
+        this.writeCoalescer = initWriteCoalescer(hazelcastProperties);
+        this.connectionsPerMember = Math.max(1, hazelcastProperties.getInteger(CONNECTIONS_PER_MEMBER));
+        this.connectionPoolConstructor = new ConstructorFunction<Address, MemberConnectionPool>() {
+            @Override
+            public MemberConnectionPool createNew(Address address) {
+                return new MemberConnectionPool(connectionsPerMember - 1);
+            }
+        };
+    }
+
+    private ClientWriteCoalescer initWriteCoalescer(HazelcastProperties properties) {
+        long flushDelayNanos = properties.getNanos(WRITE_COALESCING_DELAY_MICROS);
+        if (flushDelayNanos <= 0) {
+            return null;
+        }
+        int maxBatchSize = properties.getInteger(WRITE_COALESCING_MAX_BATCH_SIZE);
+        ClientWriteCoalescer coalescer = new ClientWriteCoalescer(client.getName() + ".write-coalescer",
+                flushDelayNanos, maxBatchSize, logger);
+        client.getMetricsRegistry().scanAndRegister(coalescer, "tcp.writeCoalescer");
+        return coalescer;
+    }
+
+    ClientWriteCoalescer getWriteCoalescer() {
+        return writeCoalescer;
+    }
+
+    //needed for testing purposes
+    MemberConnectionPool getConnectionPool(Address address) {
+        return connectionPools.get(addressTranslator.translate(address));
     }
 
     public NioEventLoopGroup getEventLoopGroup() {
@@ -220,6 +259,9 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
         }
         alive = true;
         startEventLoopGroup();
+        if (writeCoalescer != null) {
+            writeCoalescer.start();
+        }
         Heartbeat heartbeat = new Heartbeat();
         executionService.scheduleWithRepetition(heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
     }
@@ -237,7 +279,15 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
         for (ClientConnection connection : activeConnections.values()) {
             connection.close("Hazelcast client is shutting down", null);
         }
+        for (MemberConnectionPool pool : connectionPools.values()) {
+            for (ClientConnection connection : pool.getConnections()) {
+                connection.close("Hazelcast client is shutting down", null);
+            }
+        }
         stopEventLoopGroup();
+        if (writeCoalescer != null) {
+            writeCoalescer.shutdown();
+        }
         connectionListeners.clear();
         heartbeatListeners.clear();
     }
@@ -276,6 +326,46 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
         }
     }
 
+    @Override
+    public Connection getOrTriggerPooledConnect(Address address, int stripe) throws IOException {
+        Connection connection = getOrTriggerConnect(address, false);
+        int slot = (stripe & Integer.MAX_VALUE) % connectionsPerMember - 1;
+        if (connection == null || slot < 0) {
+            return connection;
+        }
+
+        Address target = addressTranslator.translate(address);
+        MemberConnectionPool pool = getOrPutIfAbsent(connectionPools, target, connectionPoolConstructor);
+        ClientConnection pooledConnection = pool.get(slot);
+        if (pooledConnection != null && pooledConnection.isAlive()) {
+            return pooledConnection;
+        }
+        triggerPooledConnect(target, pool, slot);
+        // the requests of a slot wait for its connection instead of using the first connection meanwhile,
+        // since the requests still in flight on the first connection could be overtaken after the switch
+        return pool.isConnecting(slot) ? null : connection;
+    }
+
+    /**
+     * Opens the pooled connections to a member as soon as the first connection to it is authenticated, so the requests
+     * waiting for them are retried on them without much delay.
+     */
+    private void openConnectionPool(Address target) {
+        if (connectionsPerMember == 1) {
+            return;
+        }
+        MemberConnectionPool pool = getOrPutIfAbsent(connectionPools, target, connectionPoolConstructor);
+        for (int slot = 0; slot < pool.size(); slot++) {
+            triggerPooledConnect(target, pool, slot);
+        }
+    }
+
+    private void triggerPooledConnect(Address target, MemberConnectionPool pool, int slot) {
+        if (alive && pool.tryStartConnect(slot)) {
+            executionService.execute(new InitPooledConnectionTask(target, pool, slot));
+        }
+    }
+
     private static class AuthenticationFuture {
 
         private final CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -424,6 +514,27 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
 
     void onClose(Connection connection) {
         removeFromActiveConnections(connection);
+        removeFromConnectionPools(connection);
+    }
+
+    private void removeFromConnectionPools(Connection connection) {
+        for (MemberConnectionPool pool : connectionPools.values()) {
+            if (pool.remove((ClientConnection) connection)) {
+                logger.info("Removed pooled connection to endpoint: " + connection.getEndPoint()
+                        + ", connection: " + connection);
+                return;
+            }
+        }
+    }
+
+    private void closeConnectionPool(Address endpoint) {
+        MemberConnectionPool pool = connectionPools.remove(addressTranslator.translate(endpoint));
+        if (pool == null) {
+            return;
+        }
+        for (ClientConnection connection : pool.getConnections()) {
+            connection.close("Connection to the member is closed", null);
+        }
     }
 
     private void removeFromActiveConnections(Connection connection) {
@@ -442,6 +553,7 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
             for (ConnectionListener listener : connectionListeners) {
                 listener.connectionRemoved(connection);
             }
+            closeConnectionPool(endpoint);
         } else {
             if (logger.isFinestEnabled()) {
                 logger.finest("Destroying a connection, but there is no mapping " + endpoint + " -> " + connection
@@ -484,25 +596,7 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
                     }
                 }
                 if (now - connection.lastReadTimeMillis() > heartbeatInterval) {
-                    ClientMessage request = ClientPingCodec.encodeRequest();
-                    final ClientInvocation clientInvocation = new ClientInvocation(client, request, connection);
-                    clientInvocation.setBypassHeartbeatCheck(true);
-                    connection.onHeartbeatRequested();
-                    clientInvocation.invokeUrgent().andThen(new ExecutionCallback<ClientMessage>() {
-                        @Override
-                        public void onResponse(ClientMessage response) {
-                            if (connection.isAlive()) {
-                                connection.onHeartbeatReceived();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Throwable t) {
-                            if (connection.isAlive()) {
-                                logger.warning("Error receiving heartbeat for connection: " + connection, t);
-                            }
-                        }
-                    });
+                    sendHeartbeat(connection);
                 } else {
                     if (!connection.isHeartBeating()) {
                         logger.warning("Heartbeat is back to healthy for connection: " + connection);
@@ -511,6 +605,45 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
                     }
                 }
             }
+            checkPooledConnections(now);
+        }
+
+        private void checkPooledConnections(long now) {
+            // pooled connections carry no listeners, so a failed heartbeat just closes them
+            for (MemberConnectionPool pool : connectionPools.values()) {
+                for (ClientConnection connection : pool.getConnections()) {
+                    if (!connection.isAlive()) {
+                        continue;
+                    }
+                    if (now - connection.lastReadTimeMillis() > heartbeatTimeout) {
+                        connection.close("Heartbeat timed out", null);
+                    } else if (now - connection.lastReadTimeMillis() > heartbeatInterval) {
+                        sendHeartbeat(connection);
+                    }
+                }
+            }
+        }
+
+        private void sendHeartbeat(final ClientConnection connection) {
+            ClientMessage request = ClientPingCodec.encodeRequest();
+            final ClientInvocation clientInvocation = new ClientInvocation(client, request, connection);
+            clientInvocation.setBypassHeartbeatCheck(true);
+            connection.onHeartbeatRequested();
+            clientInvocation.invokeUrgent().andThen(new ExecutionCallback<ClientMessage>() {
+                @Override
+                public void onResponse(ClientMessage response) {
+                    if (connection.isAlive()) {
+                        connection.onHeartbeatReceived();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (connection.isAlive()) {
+                        logger.warning("Error receiving heartbeat for connection: " + connection, t);
+                    }
+                }
+            });
         }
 
         private void fireHeartbeatResumed(ClientConnection connection) {
@@ -653,6 +786,68 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
         }
     }
 
+    private class InitPooledConnectionTask implements Runnable {
+
+        private final Address target;
+        private final MemberConnectionPool pool;
+        private final int slot;
+
+        InitPooledConnectionTask(Address target, MemberConnectionPool pool, int slot) {
+            this.target = target;
+            this.pool = pool;
+            this.slot = slot;
+        }
+
+        @Override
+        public void run() {
+            final ClientConnection connection;
+            try {
+                connection = createSocketConnection(target);
+            } catch (Exception e) {
+                logger.finest(e);
+                pool.onConnectFailed(slot);
+                return;
+            }
+
+            try {
+                ClientPrincipal principal = ((ClientClusterServiceImpl) client.getClientClusterService()).getPrincipal();
+                ClientMessage request = encodeAuthenticationRequest(false, client.getSerializationService(), principal);
+                ClientInvocation clientInvocation = new ClientInvocation(client, request, connection);
+                clientInvocation.invokeUrgent().andThen(new ExecutionCallback<ClientMessage>() {
+                    @Override
+                    public void onResponse(ClientMessage response) {
+                        ClientAuthenticationCodec.ResponseParameters result = ClientAuthenticationCodec.decodeResponse(response);
+                        if (AuthenticationStatus.getById(result.status) != AuthenticationStatus.AUTHENTICATED) {
+                            onFailure(new AuthenticationException("Authentication of pooled connection to " + target
+                                    + " failed with status " + result.status));
+                            return;
+                        }
+                        connection.setConnectedServerVersion(result.serverHazelcastVersion);
+                        connection.setRemoteEndpoint(result.address);
+                        pool.onConnected(slot, connection);
+                        // the pool may have been closed, or the connection lost, while authenticating
+                        if (connectionPools.get(target) != pool || !connection.isAlive()) {
+                            pool.remove(connection);
+                            connection.close("Connection pool to " + target + " is closed", null);
+                        } else if (logger.isFinestEnabled()) {
+                            logger.finest("Authenticated pooled connection " + connection);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        logger.finest("Authentication of pooled connection " + connection + " failed.", t);
+                        connection.close(null, t);
+                        pool.onConnectFailed(slot);
+                    }
+                });
+            } catch (Exception e) {
+                connection.close("Failed to authenticate connection", e);
+                pool.onConnectFailed(slot);
+            }
+        }
+    }
+
     private void onAuthenticated(Address target, ClientConnection connection) {
         ClientConnection oldConnection =
                 activeConnections.put(addressTranslator.translate(connection.getEndPoint()), connection);
@@ -662,6 +857,7 @@ public class ClientConnectionManagerImpl implements ClientConnectionManager {
                         + " and there was no old connection to this end-point");
             }
             fireConnectionAddedEvent(connection);
+            openConnectionPool(addressTranslator.translate(connection.getEndPoint()));
         } else {
             if (logger.isFinestEnabled()) {
                 logger.finest("Re-authentication succeeded for " + connection);
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.connection.nio;
+
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.internal.networking.OutboundFrame;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An {@link OutboundFrame} of {@link ClientMessage}s which were coalesced by the {@link ClientWriteCoalescer}.
+ * The messages are written back to back into the output buffer, so they leave in as few socket writes as possible.
+ */
+final class ClientMessageBatch implements OutboundFrame {
+
+    private final List<ClientMessage> messages;
+    private int index;
+
+    ClientMessageBatch(List<ClientMessage> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Writes the remaining messages to the buffer.
+     *
+     * @return {@code true} if all messages are written, {@code false} if the buffer has no more space
+     */
+    boolean writeTo(ByteBuffer dst) {
+        while (index < messages.size()) {
+            if (!messages.get(index).writeTo(dst)) {
+                return false;
+            }
+            index++;
+        }
+        return true;
+    }
+
+    int size() {
+        return messages.size();
+    }
+
+    @Override
+    public boolean isUrgent() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientMessageBatch{size=" + messages.size() + '}';
+    }
+}
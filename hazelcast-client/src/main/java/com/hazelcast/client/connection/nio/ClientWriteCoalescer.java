@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.connection.nio;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.logging.ILogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.instance.OutOfMemoryErrorDispatcher.onOutOfMemory;
+
+/**
+ * Coalesces the client messages written to the {@link ClientConnection}s, so many small messages are handed over to
+ * the IO thread as one {@link ClientMessageBatch} and written to the socket in large writes.
+ * <p>
+ * A connection is flushed by the writing thread as soon as it has {@code maxBatchSize} pending messages. Otherwise
+ * the flush thread flushes it after at most the flush delay, which bounds the latency added to a request.
+ */
+final class ClientWriteCoalescer {
+
+    private final Queue<ClientConnection> connectionsToFlush = new ConcurrentLinkedQueue<ClientConnection>();
+    private final long flushDelayNanos;
+    private final int maxBatchSize;
+    private final ILogger logger;
+    private final FlushThread flushThread;
+
+    @Probe(name = "batchesWritten")
+    private final AtomicLong batchesWritten = new AtomicLong();
+    @Probe(name = "messagesWritten")
+    private final AtomicLong messagesWritten = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    ClientWriteCoalescer(String threadName, long flushDelayNanos, int maxBatchSize, ILogger logger) {
+        this.flushDelayNanos = flushDelayNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.logger = logger;
+        this.flushThread = new FlushThread(threadName);
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    void start() {
+        flushThread.start();
+    }
+
+    void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(flushThread);
+    }
+
+    /**
+     * Schedules the connection to be flushed by the flush thread.
+     */
+    void scheduleFlush(ClientConnection connection) {
+        connectionsToFlush.offer(connection);
+    }
+
+    void onBatchWritten(int messageCount) {
+        batchesWritten.incrementAndGet();
+        messagesWritten.addAndGet(messageCount);
+    }
+
+    private final class FlushThread extends Thread {
+
+        FlushThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    // the connections are flushed before parking, so a scheduled flush waits for at most one delay
+                    ClientConnection connection;
+                    while ((connection = connectionsToFlush.poll()) != null) {
+                        flush(connection);
+                    }
+                    LockSupport.parkNanos(flushDelayNanos);
+                }
+            } catch (OutOfMemoryError e) {
+                onOutOfMemory(e);
+            } catch (Throwable t) {
+                logger.severe(t);
+            }
+        }
+
+        private void flush(ClientConnection connection) {
+            try {
+                connection.flushScheduledMessages();
+            } catch (Exception e) {
+                logger.warning("Failed to flush the pending messages of " + connection, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.connection.nio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The additional connections of a client to a single member, when more than one connection per member is configured.
+ * The first connection to a member is not part of the pool; it is kept by {@link ClientConnectionManagerImpl} as the
+ * active connection of the member.
+ * <p>
+ * Each slot is connected on its own. While a slot is being connected, the requests mapped to it wait for it, so they
+ * never move from the first connection to the pooled one while some of them are in flight. A slot whose connection is
+ * lost is connected again. A slot whose connect fails falls back to the first connection for the lifetime of the pool,
+ * which is replaced, with its slots connected again, when the first connection to the member is replaced.
+ */
+final class MemberConnectionPool {
+
+    private static final int NOT_CONNECTED = 0;
+    private static final int CONNECTING = 1;
+    private static final int CONNECTED = 2;
+    private static final int FALLEN_BACK = 3;
+
+    private final AtomicReferenceArray<ClientConnection> connections;
+    private final AtomicIntegerArray states;
+
+    MemberConnectionPool(int size) {
+        this.connections = new AtomicReferenceArray<ClientConnection>(size);
+        this.states = new AtomicIntegerArray(size);
+    }
+
+    int size() {
+        return connections.length();
+    }
+
+    ClientConnection get(int slot) {
+        return connections.get(slot);
+    }
+
+    /**
+     * Claims the slot for connecting.
+     *
+     * @return {@code true} if the caller has to connect the slot; {@code false} if the slot is connected, being
+     * connected, or fell back to the first connection
+     */
+    boolean tryStartConnect(int slot) {
+        return states.compareAndSet(slot, NOT_CONNECTED, CONNECTING);
+    }
+
+    boolean isConnecting(int slot) {
+        return states.get(slot) == CONNECTING;
+    }
+
+    void onConnected(int slot, ClientConnection connection) {
+        connections.set(slot, connection);
+        states.set(slot, CONNECTED);
+    }
+
+    void onConnectFailed(int slot) {
+        states.set(slot, FALLEN_BACK);
+    }
+
+    /**
+     * @return {@code true} if the connection was in the pool
+     */
+    boolean remove(ClientConnection connection) {
+        for (int slot = 0; slot < connections.length(); slot++) {
+            if (connections.compareAndSet(slot, connection, null)) {
+                states.set(slot, NOT_CONNECTED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<ClientConnection> getConnections() {
+        List<ClientConnection> result = new ArrayList<ClientConnection>(connections.length());
+        for (int slot = 0; slot < connections.length(); slot++) {
+            ClientConnection connection = connections.get(slot);
+            if (connection != null) {
+                result.add(connection);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.impl;
+
+import com.hazelcast.client.connection.ClientConnectionManager;
+import com.hazelcast.client.spi.ClientClusterService;
+import com.hazelcast.client.spi.impl.ClientPartitionServiceImpl;
+import com.hazelcast.core.Member;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTIONS_PER_MEMBER;
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTION_WARM_UP_TIMEOUT_MILLIS;
+
+/**
+ * Warms up a client at its start by requesting the partition table and opening the connections to all members at
+ * once, and waiting until they are available.
+ *
+ * @see com.hazelcast.client.spi.properties.ClientProperty#CONNECTION_WARM_UP_ENABLED
+ */
+final class ClientConnectionWarmUp {
+
+    private static final long CHECK_INTERVAL_MILLIS = 10;
+
+    private final HazelcastClientInstanceImpl client;
+    private final ClientConnectionManager connectionManager;
+    private final ClientClusterService clusterService;
+    private final ClientPartitionServiceImpl partitionService;
+    private final boolean smartRouting;
+    private final int connectionsPerMember;
+    private final long timeoutMillis;
+    private final ILogger logger;
+
+    ClientConnectionWarmUp(HazelcastClientInstanceImpl client) {
+        HazelcastProperties properties = client.getProperties();
+        this.client = client;
+        this.connectionManager = client.getConnectionManager();
+        this.clusterService = client.getClientClusterService();
+        this.partitionService = (ClientPartitionServiceImpl) client.getClientPartitionService();
+        this.smartRouting = client.getClientConfig().getNetworkConfig().isSmartRouting();
+        this.connectionsPerMember = smartRouting ? Math.max(1, properties.getInteger(CONNECTIONS_PER_MEMBER)) : 1;
+        this.timeoutMillis = properties.getMillis(CONNECTION_WARM_UP_TIMEOUT_MILLIS);
+        this.logger = client.getLoggingService().getLogger(ClientConnectionWarmUp.class);
+    }
+
+    /**
+     * Runs the warm-up until the partition table and the connections to all members are available, or the warm-up
+     * timeout has passed.
+     *
+     * @return the number of members the client is connected to
+     */
+    int warmUp() {
+        long start = Clock.currentTimeMillis();
+        long deadline = start + timeoutMillis;
+
+        int memberCount;
+        int connectedMemberCount;
+        boolean completed;
+        do {
+            if (!partitionService.isPartitionTableAvailable()) {
+                // the partitions of a new cluster may not be assigned yet, only one refresh runs at a time
+                partitionService.refreshPartitions();
+            }
+            Collection<Member> members = clusterService.getMemberList();
+            memberCount = members.size();
+            // a non-smart client only uses its owner connection, which is open at this point
+            connectedMemberCount = smartRouting ? connect(members) : Math.min(1, memberCount);
+            completed = (!smartRouting || connectedMemberCount == memberCount)
+                    && partitionService.isPartitionTableAvailable();
+        } while (!completed && Clock.currentTimeMillis() < deadline && client.getLifecycleService().isRunning()
+                && sleep());
+
+        long duration = Clock.currentTimeMillis() - start;
+        if (completed) {
+            logger.info("Warmed up the partition table and the connections to " + connectedMemberCount + " members in "
+                    + duration + " ms");
+        } else {
+            logger.warning("Warm-up did not complete in " + duration + " ms, connected to " + connectedMemberCount
+                    + " of " + memberCount + " members, partition table available: "
+                    + partitionService.isPartitionTableAvailable());
+        }
+        return connectedMemberCount;
+    }
+
+    /**
+     * Triggers the connections to the members which are not connected yet.
+     *
+     * @return the number of connected members
+     */
+    private int connect(Collection<Member> members) {
+        int connectedMemberCount = 0;
+        for (Member member : members) {
+            Address address = member.getAddress();
+            try {
+                Connection connection = connectionManager.getOrTriggerConnect(address, false);
+                if (connection == null) {
+                    continue;
+                }
+                connectedMemberCount++;
+                // the additional connections of a member are opened in the background and are not waited for
+                for (int stripe = 1; stripe < connectionsPerMember; stripe++) {
+                    connectionManager.getOrTriggerPooledConnect(address, stripe);
+                }
+            } catch (IOException e) {
+                logger.finest("Could not connect to " + address + " during warm-up", e);
+            }
+        }
+        return connectedMemberCount;
+    }
+
+    private static boolean sleep() {
+        try {
+            Thread.sleep(CHECK_INTERVAL_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.impl;
+
+import com.hazelcast.internal.metrics.MetricsProvider;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.Probe;
+
+import static com.hazelcast.internal.metrics.ProbeLevel.MANDATORY;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The durations of the phases of the start of a client, in milliseconds since the client was created. The duration
+ * of a phase which has not completed, or is not part of the start of the client, is {@code -1}.
+ */
+public final class ClientStartupMetrics implements MetricsProvider {
+
+    private static final long NOT_COMPLETED = -1;
+
+    private final long creationNanos = System.nanoTime();
+
+    @Probe(level = MANDATORY)
+    private volatile long clusterConnectedMillis = NOT_COMPLETED;
+    @Probe(level = MANDATORY)
+    private volatile long partitionTableAvailableMillis = NOT_COMPLETED;
+    @Probe(level = MANDATORY)
+    private volatile long connectionsWarmedUpMillis = NOT_COMPLETED;
+    @Probe(level = MANDATORY)
+    private volatile long startedMillis = NOT_COMPLETED;
+    @Probe(level = MANDATORY)
+    private volatile int warmedUpConnectionCount;
+
+    @Override
+    public void provideMetrics(MetricsRegistry registry) {
+        registry.scanAndRegister(this, "startup");
+    }
+
+    /**
+     * Called when the client is connected to the cluster and has received the member list.
+     */
+    public void onClusterConnected() {
+        clusterConnectedMillis = elapsedMillis();
+    }
+
+    /**
+     * Called whenever a partition table becomes available to the client, only the first call is recorded.
+     */
+    public void onPartitionTableAvailable() {
+        if (partitionTableAvailableMillis == NOT_COMPLETED) {
+            partitionTableAvailableMillis = elapsedMillis();
+        }
+    }
+
+    /**
+     * Called when the connection warm-up has ended.
+     *
+     * @param connectionCount the number of members the client is connected to
+     */
+    public void onConnectionsWarmedUp(int connectionCount) {
+        warmedUpConnectionCount = connectionCount;
+        connectionsWarmedUpMillis = elapsedMillis();
+    }
+
+    /**
+     * Called when the client has started.
+     */
+    public void onStarted() {
+        startedMillis = elapsedMillis();
+    }
+
+    public long getClusterConnectedMillis() {
+        return clusterConnectedMillis;
+    }
+
+    public long getPartitionTableAvailableMillis() {
+        return partitionTableAvailableMillis;
+    }
+
+    public long getConnectionsWarmedUpMillis() {
+        return connectionsWarmedUpMillis;
+    }
+
+    public long getStartedMillis() {
+        return startedMillis;
+    }
+
+    public int getWarmedUpConnectionCount() {
+        return warmedUpConnectionCount;
+    }
+
+    private long elapsedMillis() {
+        return NANOSECONDS.toMillis(System.nanoTime() - creationNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ClientStartupMetrics{"
+                + "clusterConnectedMillis=" + clusterConnectedMillis
+                + ", partitionTableAvailableMillis=" + partitionTableAvailableMillis
+                + ", connectionsWarmedUpMillis=" + connectionsWarmedUpMillis
+                + ", startedMillis=" + startedMillis
+                + ", warmedUpConnectionCount=" + warmedUpConnectionCount
+                + '}';
+    }
+}
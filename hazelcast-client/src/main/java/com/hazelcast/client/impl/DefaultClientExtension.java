@@ -19,12 +19,15 @@ package com.hazelcast.client.impl;
 import com.hazelcast.client.ClientExtension;
 import com.hazelcast.client.config.ClientConfig;
 import com.hazelcast.client.proxy.ClientMapProxy;
+import com.hazelcast.client.proxy.ClientMultiMapProxy;
 import com.hazelcast.client.proxy.NearCachedClientMapProxy;
+import com.hazelcast.client.proxy.NearCachedClientMultiMapProxy;
 import com.hazelcast.client.spi.ClientContext;
 import com.hazelcast.client.spi.ClientProxy;
 import com.hazelcast.client.spi.ClientProxyFactory;
 import com.hazelcast.client.spi.impl.ClientExecutionServiceImpl;
 import com.hazelcast.client.spi.impl.ClientProxyFactoryWithContext;
+import com.hazelcast.config.NativeMemoryConfig;
 import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.SerializationConfig;
 import com.hazelcast.core.HazelcastInstance;
@@ -38,6 +41,7 @@ import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuil
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.map.impl.MapService;
+import com.hazelcast.multimap.impl.MultiMapService;
 import com.hazelcast.nio.ClassLoaderUtil;
 import com.hazelcast.nio.SocketInterceptor;
 import com.hazelcast.nio.tcp.PlainChannelFactory;
@@ -45,6 +49,7 @@ import com.hazelcast.partition.strategy.DefaultPartitioningStrategy;
 import com.hazelcast.spi.properties.GroupProperty;
 import com.hazelcast.spi.serialization.SerializationService;
 
+import static com.hazelcast.client.spi.properties.ClientProperty.MULTIMAP_NEAR_CACHE_ENABLED;
 import static com.hazelcast.internal.config.ConfigValidator.checkNearCacheConfig;
 import static com.hazelcast.util.ExceptionUtil.rethrow;
 
@@ -52,6 +57,8 @@ public class DefaultClientExtension implements ClientExtension {
 
     protected static final ILogger LOGGER = Logger.getLogger(ClientExtension.class);
 
+    private static final String DEFAULT_NEAR_CACHE_NAME = "default";
+
     protected volatile HazelcastClientInstanceImpl client;
 
     @Override
@@ -116,6 +123,9 @@ public class DefaultClientExtension implements ClientExtension {
         if (MapService.class.isAssignableFrom(service)) {
             return createClientMapProxyFactory();
         }
+        if (MultiMapService.class.isAssignableFrom(service)) {
+            return createClientMultiMapProxyFactory();
+        }
 
         throw new IllegalArgumentException("Proxy factory cannot be created. Unknown service: " + service);
     }
@@ -126,7 +136,7 @@ public class DefaultClientExtension implements ClientExtension {
             public ClientProxy create(String id, ClientContext context) {
                 NearCacheConfig nearCacheConfig = client.getClientConfig().getNearCacheConfig(id);
                 if (nearCacheConfig != null) {
-                    checkNearCacheConfig(id, nearCacheConfig, true);
+                    checkNearCacheConfig(id, nearCacheConfig, client.getClientConfig().getNativeMemoryConfig(), true);
                     return new NearCachedClientMapProxy(MapService.SERVICE_NAME, id, context);
                 } else {
                     return new ClientMapProxy(MapService.SERVICE_NAME, id, context);
@@ -135,12 +145,45 @@ public class DefaultClientExtension implements ClientExtension {
         };
     }
 
+    private ClientProxyFactory createClientMultiMapProxyFactory() {
+        return new ClientProxyFactoryWithContext() {
+            @Override
+            public ClientProxy create(String id, ClientContext context) {
+                NearCacheConfig nearCacheConfig = getMultiMapNearCacheConfig(id);
+                if (nearCacheConfig != null) {
+                    checkNearCacheConfig(id, nearCacheConfig, client.getClientConfig().getNativeMemoryConfig(), true);
+                    return new NearCachedClientMultiMapProxy(MultiMapService.SERVICE_NAME, id, context);
+                } else {
+                    return new ClientMultiMapProxy(MultiMapService.SERVICE_NAME, id, context);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the Near Cache config of a MultiMap. The Near Cache configs are shared with the maps, so a MultiMap
+     * only gets a Near Cache when it is enabled explicitly and a config matches its name, the {@code default}
+     * config is not applied.
+     */
+    private NearCacheConfig getMultiMapNearCacheConfig(String name) {
+        if (!client.getProperties().getBoolean(MULTIMAP_NEAR_CACHE_ENABLED)) {
+            return null;
+        }
+        NearCacheConfig nearCacheConfig = client.getClientConfig().getNearCacheConfig(name);
+        if (nearCacheConfig == null || (DEFAULT_NEAR_CACHE_NAME.equals(nearCacheConfig.getName())
+                && !DEFAULT_NEAR_CACHE_NAME.equals(name))) {
+            return null;
+        }
+        return nearCacheConfig;
+    }
+
     @Override
     public NearCacheManager createNearCacheManager() {
         SerializationService ss = client.getSerializationService();
         ClientExecutionServiceImpl es = client.getExecutionService();
         ClassLoader classLoader = client.getClientConfig().getClassLoader();
+        NativeMemoryConfig nativeMemoryConfig = client.getClientConfig().getNativeMemoryConfig();
 
-        return new DefaultNearCacheManager(ss, es, classLoader);
+        return new DefaultNearCacheManager(ss, es, classLoader, nativeMemoryConfig);
     }
 }
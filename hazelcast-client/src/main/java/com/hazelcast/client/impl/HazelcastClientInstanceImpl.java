@@ -52,6 +52,7 @@ import com.hazelcast.client.spi.impl.ClientPartitionServiceImpl;
 import com.hazelcast.client.spi.impl.ClientSmartInvocationServiceImpl;
 import com.hazelcast.client.spi.impl.ClientTransactionManagerServiceImpl;
 import com.hazelcast.client.spi.impl.DefaultAddressProvider;
+import com.hazelcast.client.spi.impl.PartitionTableSnapshotAddressProvider;
 import com.hazelcast.client.spi.impl.discovery.DiscoveryAddressProvider;
 import com.hazelcast.client.spi.impl.listener.ClientListenerServiceImpl;
 import com.hazelcast.client.spi.impl.listener.ClientNonSmartListenerService;
@@ -145,7 +146,9 @@ import com.hazelcast.transaction.TransactionOptions;
 import com.hazelcast.transaction.TransactionalTask;
 import com.hazelcast.transaction.impl.xa.XAService;
 import com.hazelcast.util.ServiceLoader;
+import com.hazelcast.util.StringUtil;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -156,7 +159,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTION_WARM_UP_ENABLED;
 import static com.hazelcast.client.spi.properties.ClientProperty.MAX_CONCURRENT_INVOCATIONS;
+import static com.hazelcast.client.spi.properties.ClientProperty.PARTITION_TABLE_SNAPSHOT_FILE;
 import static com.hazelcast.util.ExceptionUtil.rethrow;
 import static java.lang.System.currentTimeMillis;
 
@@ -193,6 +198,7 @@ public class HazelcastClientInstanceImpl implements HazelcastInstance, Serializa
     private final ClientLockReferenceIdGenerator lockReferenceIdGenerator;
     private final ClientExceptionFactory clientExceptionFactory;
     private final CallIdSequence callIdSequence;
+    private final ClientStartupMetrics startupMetrics = new ClientStartupMetrics();
 
     public HazelcastClientInstanceImpl(ClientConfig config,
                                        ClientConnectionManagerFactory clientConnectionManagerFactory,
@@ -217,7 +223,7 @@ public class HazelcastClientInstanceImpl implements HazelcastInstance, Serializa
 
         metricsRegistry = initMetricsRegistry();
         serializationService = clientExtension.createSerializationService((byte) -1);
-        metricsRegistry.collectMetrics(clientExtension);
+        metricsRegistry.collectMetrics(clientExtension, startupMetrics);
 
         proxyManager = new ProxyManager(this);
         executionService = initExecutionService();
@@ -273,6 +279,12 @@ public class HazelcastClientInstanceImpl implements HazelcastInstance, Serializa
             addressProviders.add(externalAddressProvider);
         }
 
+        String snapshotPath = properties.getString(PARTITION_TABLE_SNAPSHOT_FILE);
+        if (!StringUtil.isNullOrEmptyAfterTrim(snapshotPath)) {
+            ILogger logger = loggingService.getLogger(PartitionTableSnapshotAddressProvider.class);
+            addressProviders.add(new PartitionTableSnapshotAddressProvider(new File(snapshotPath.trim()), logger));
+        }
+
         if (discoveryService != null) {
             addressProviders.add(new DiscoveryAddressProvider(discoveryService, loggingService));
         }
@@ -416,11 +428,20 @@ public class HazelcastClientInstanceImpl implements HazelcastInstance, Serializa
             lifecycleService.shutdown();
             throw rethrow(e);
         }
+        startupMetrics.onClusterConnected();
         proxyManager.init(config);
         listenerService.start();
         loadBalancer.init(getCluster(), config);
         partitionService.start();
+        if (properties.getBoolean(CONNECTION_WARM_UP_ENABLED)) {
+            startupMetrics.onConnectionsWarmedUp(new ClientConnectionWarmUp(this).warmUp());
+        }
         clientExtension.afterStart(this);
+        startupMetrics.onStarted();
+    }
+
+    public ClientStartupMetrics getStartupMetrics() {
+        return startupMetrics;
     }
 
     public MetricsRegistryImpl getMetricsRegistry() {
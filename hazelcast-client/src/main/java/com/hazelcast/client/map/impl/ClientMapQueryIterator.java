@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map.impl;
+
+import com.hazelcast.client.impl.HazelcastClientInstanceImpl;
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.MapEntriesWithPredicateCodec;
+import com.hazelcast.client.impl.protocol.codec.MapKeySetWithPredicateCodec;
+import com.hazelcast.client.impl.protocol.codec.MapValuesWithPredicateCodec;
+import com.hazelcast.client.spi.ClientPartitionService;
+import com.hazelcast.client.spi.impl.ClientInvocation;
+import com.hazelcast.client.spi.impl.ClientInvocationFuture;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.IterationType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * Iterates over the result of a map query by querying each partition with a separate request.
+ * <p>
+ * At most {@code maxInFlight} partitions are requested but not yet consumed at any time, so neither the client nor a
+ * member has to hold the complete result of the query. The partitions are requested alternating between their owners,
+ * so the requests are spread over the members, and the results are returned in the order in which they arrive.
+ * <p>
+ * Depending on the iteration type the rows are {@code Map.Entry<Data, Data>} for {@link IterationType#ENTRY}, or
+ * {@link Data} for {@link IterationType#KEY} and {@link IterationType#VALUE}. The iterator is not thread-safe.
+ *
+ * @param <R> the type of the rows
+ */
+public class ClientMapQueryIterator<R> implements Iterator<R> {
+
+    private final HazelcastClientInstanceImpl client;
+    private final String mapName;
+    private final Data predicate;
+    private final IterationType iterationType;
+    private final int maxInFlight;
+    private final int[] partitionIds;
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<Object>();
+
+    private int nextPartitionIndex;
+    private int inFlight;
+    private Iterator<R> batch = Collections.<R>emptyList().iterator();
+
+    public ClientMapQueryIterator(HazelcastClientInstanceImpl client, String mapName, Data predicate,
+                                  IterationType iterationType, int maxInFlight) {
+        this.client = client;
+        this.mapName = mapName;
+        this.predicate = predicate;
+        this.iterationType = iterationType;
+        this.maxInFlight = checkPositive(maxInFlight, "maxInFlight should be positive");
+        this.partitionIds = partitionIdsByOwner(client.getClientPartitionService());
+        requestPartitions();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            if (inFlight == 0) {
+                return false;
+            }
+            batch = takeBatch();
+        }
+        return true;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Removing from a query result is not supported");
+    }
+
+    private void requestPartitions() {
+        while (inFlight < maxInFlight && nextPartitionIndex < partitionIds.length) {
+            int partitionId = partitionIds[nextPartitionIndex++];
+            ClientInvocationFuture future = new ClientInvocation(client, encodeRequest(), partitionId).invoke();
+            future.andThen(new ExecutionCallback<ClientMessage>() {
+                @Override
+                public void onResponse(ClientMessage response) {
+                    responses.offer(response);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    responses.offer(t);
+                }
+            });
+            inFlight++;
+        }
+    }
+
+    private Iterator<R> takeBatch() {
+        Object response;
+        try {
+            response = responses.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rethrow(e);
+        }
+        inFlight--;
+        if (response instanceof Throwable) {
+            throw rethrow((Throwable) response);
+        }
+        requestPartitions();
+        return decodeResponse((ClientMessage) response).iterator();
+    }
+
+    private ClientMessage encodeRequest() {
+        switch (iterationType) {
+            case KEY:
+                return MapKeySetWithPredicateCodec.encodeRequest(mapName, predicate);
+            case VALUE:
+                return MapValuesWithPredicateCodec.encodeRequest(mapName, predicate);
+            default:
+                return MapEntriesWithPredicateCodec.encodeRequest(mapName, predicate);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<R> decodeResponse(ClientMessage response) {
+        switch (iterationType) {
+            case KEY:
+                return (List<R>) MapKeySetWithPredicateCodec.decodeResponse(response).response;
+            case VALUE:
+                return (List<R>) MapValuesWithPredicateCodec.decodeResponse(response).response;
+            default:
+                return (List<R>) MapEntriesWithPredicateCodec.decodeResponse(response).response;
+        }
+    }
+
+    private static int[] partitionIdsByOwner(ClientPartitionService partitionService) {
+        int partitionCount = partitionService.getPartitionCount();
+        Map<Address, List<Integer>> partitionsByOwner = new LinkedHashMap<Address, List<Integer>>();
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            Address owner = partitionService.getPartitionOwner(partitionId);
+            List<Integer> partitions = partitionsByOwner.get(owner);
+            if (partitions == null) {
+                partitions = new ArrayList<Integer>();
+                partitionsByOwner.put(owner, partitions);
+            }
+            partitions.add(partitionId);
+        }
+
+        int[] partitionIds = new int[partitionCount];
+        int index = 0;
+        for (int round = 0; index < partitionCount; round++) {
+            for (List<Integer> partitions : partitionsByOwner.values()) {
+                if (round < partitions.size()) {
+                    partitionIds[index++] = partitions.get(round);
+                }
+            }
+        }
+        return partitionIds;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.proxy;
+
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.MapGetAllCodec;
+import com.hazelcast.client.spi.ClientPartitionService;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.TaskScheduler;
+import com.hazelcast.spi.impl.AbstractCompletableFuture;
+import com.hazelcast.util.executor.CallerRunsExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Merges the concurrent gets of a {@link ClientMapProxy} into {@link MapGetAllCodec getAll} requests.
+ * <p>
+ * The first get of a batch schedules the batch to be sent after the batching delay, the gets arriving in the meantime
+ * join it. A batch reaching the maximum batch size is sent at once by the thread adding the last get. The gets of the
+ * same key in a batch share the key in the request.
+ */
+final class ClientMapGetBatcher {
+
+    private final ClientMapProxy<?, ?> mapProxy;
+    private final ClientPartitionService partitionService;
+    private final TaskScheduler scheduler;
+    private final long delayMicros;
+    private final int maxBatchSize;
+    private final ILogger logger;
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            send(takeBatch());
+        }
+    };
+
+    // guarded by this
+    private List<PendingGet> batch = new ArrayList<PendingGet>();
+
+    ClientMapGetBatcher(ClientMapProxy<?, ?> mapProxy, ClientPartitionService partitionService, TaskScheduler scheduler,
+                        long delayMicros, int maxBatchSize, ILogger logger) {
+        this.mapProxy = mapProxy;
+        this.partitionService = partitionService;
+        this.scheduler = scheduler;
+        this.delayMicros = delayMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.logger = logger;
+    }
+
+    /**
+     * Gets the value of the key in the next batch and waits for it.
+     *
+     * @return the value as {@link Data}, or {@code null} if the map does not contain the key
+     */
+    Object get(Data key) {
+        PendingGet pendingGet = new PendingGet(key, logger);
+        List<PendingGet> fullBatch = null;
+        boolean firstOfBatch;
+        synchronized (this) {
+            firstOfBatch = batch.isEmpty();
+            batch.add(pendingGet);
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = batch;
+                batch = new ArrayList<PendingGet>();
+            }
+        }
+
+        if (fullBatch != null) {
+            send(fullBatch);
+        } else if (firstOfBatch) {
+            scheduler.schedule(flushTask, delayMicros, MICROSECONDS);
+        }
+
+        try {
+            return pendingGet.get();
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
+    private synchronized List<PendingGet> takeBatch() {
+        List<PendingGet> takenBatch = batch;
+        batch = new ArrayList<PendingGet>();
+        return takenBatch;
+    }
+
+    private void send(final List<PendingGet> pendingGets) {
+        if (pendingGets.isEmpty()) {
+            return;
+        }
+
+        final Map<Data, List<PendingGet>> pendingGetsByKey = new HashMap<Data, List<PendingGet>>();
+        Map<Integer, List<Data>> partitionToKeyData = new HashMap<Integer, List<Data>>();
+        for (PendingGet pendingGet : pendingGets) {
+            List<PendingGet> keyGets = pendingGetsByKey.get(pendingGet.key);
+            if (keyGets == null) {
+                keyGets = new ArrayList<PendingGet>(1);
+                pendingGetsByKey.put(pendingGet.key, keyGets);
+
+                int partitionId = partitionService.getPartitionId(pendingGet.key);
+                List<Data> keys = partitionToKeyData.get(partitionId);
+                if (keys == null) {
+                    keys = new ArrayList<Data>();
+                    partitionToKeyData.put(partitionId, keys);
+                }
+                keys.add(pendingGet.key);
+            }
+            keyGets.add(pendingGet);
+        }
+
+        List<ICompletableFuture<List<ClientMessage>>> futures;
+        try {
+            futures = mapProxy.invokeGetAll(partitionToKeyData);
+        } catch (Throwable t) {
+            completeRemaining(pendingGets, t);
+            return;
+        }
+
+        final AtomicInteger remainingResponses = new AtomicInteger(futures.size());
+        ExecutionCallback<List<ClientMessage>> callback = new ExecutionCallback<List<ClientMessage>>() {
+            @Override
+            public void onResponse(List<ClientMessage> responses) {
+                for (ClientMessage response : responses) {
+                    for (Map.Entry<Data, Data> entry : MapGetAllCodec.decodeResponse(response).response) {
+                        List<PendingGet> keyGets = pendingGetsByKey.get(entry.getKey());
+                        if (keyGets != null) {
+                            for (PendingGet pendingGet : keyGets) {
+                                pendingGet.complete(entry.getValue());
+                            }
+                        }
+                    }
+                }
+                onCompleted(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                onCompleted(t);
+            }
+
+            private void onCompleted(Throwable failure) {
+                if (failure != null) {
+                    // the keys of the failed request are not known here, so all gets still without a value fail
+                    completeRemaining(pendingGets, failure);
+                }
+                if (remainingResponses.decrementAndGet() == 0) {
+                    // the keys missing from all responses are not contained in the map
+                    completeRemaining(pendingGets, null);
+                }
+            }
+        };
+        for (ICompletableFuture<List<ClientMessage>> future : futures) {
+            future.andThen(callback);
+        }
+    }
+
+    private static void completeRemaining(List<PendingGet> pendingGets, Object result) {
+        for (PendingGet pendingGet : pendingGets) {
+            if (!pendingGet.isDone()) {
+                pendingGet.complete(result);
+            }
+        }
+    }
+
+    private static final class PendingGet extends AbstractCompletableFuture<Object> {
+
+        private final Data key;
+
+        PendingGet(Data key, ILogger logger) {
+            super(CallerRunsExecutor.INSTANCE, logger);
+            this.key = key;
+        }
+
+        void complete(Object value) {
+            setResult(value);
+        }
+    }
+}
@@ -82,6 +82,7 @@ import com.hazelcast.client.impl.protocol.codec.MapValuesWithPredicateCodec;
 import com.hazelcast.client.impl.querycache.ClientQueryCacheContext;
 import com.hazelcast.client.impl.querycache.subscriber.ClientQueryCacheEndToEndConstructor;
 import com.hazelcast.client.map.impl.ClientMapPartitionIterator;
+import com.hazelcast.client.map.impl.ClientMapQueryIterator;
 import com.hazelcast.client.spi.ClientContext;
 import com.hazelcast.client.spi.ClientPartitionService;
 import com.hazelcast.client.spi.ClientProxy;
@@ -89,6 +90,7 @@ import com.hazelcast.client.spi.EventHandler;
 import com.hazelcast.client.spi.impl.ClientInvocation;
 import com.hazelcast.client.spi.impl.ClientInvocationFuture;
 import com.hazelcast.client.spi.impl.ListenerMessageCodec;
+import com.hazelcast.client.spi.properties.ClientProperty;
 import com.hazelcast.client.util.ClientDelegatingFuture;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.EntryEventType;
@@ -131,10 +133,13 @@ import com.hazelcast.mapreduce.aggregation.Aggregation;
 import com.hazelcast.mapreduce.aggregation.Supplier;
 import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.monitor.impl.LocalMapStatsImpl;
+import com.hazelcast.nio.Address;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.projection.Projection;
 import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+import com.hazelcast.spi.impl.AbstractCompletableFuture;
 import com.hazelcast.spi.impl.UnmodifiableLazyList;
 import com.hazelcast.util.CollectionUtil;
 import com.hazelcast.util.ConstructorFunction;
@@ -147,13 +152,16 @@ import com.hazelcast.util.collection.InflatableSet;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hazelcast.map.impl.ListenerAdapters.createListenerAdapter;
 import static com.hazelcast.map.impl.MapListenerFlagOperator.setAndGetListenerFlags;
@@ -223,6 +231,10 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
 
     private ClientLockReferenceIdGenerator lockReferenceIdGenerator;
     private ClientQueryCacheContext queryCacheContext;
+    private boolean queryFanOutEnabled;
+    private int queryFanOutMaxInFlight;
+    private boolean memberBatchingEnabled;
+    private ClientMapGetBatcher getBatcher;
 
     public ClientMapProxy(String serviceName, String name, ClientContext context) {
         super(serviceName, name, context);
@@ -234,6 +246,15 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
 
         lockReferenceIdGenerator = getClient().getLockReferenceIdGenerator();
         queryCacheContext = getContext().getQueryCacheContext();
+        queryFanOutEnabled = getClient().getProperties().getBoolean(ClientProperty.QUERY_FAN_OUT_ENABLED);
+        queryFanOutMaxInFlight = getClient().getProperties().getInteger(ClientProperty.QUERY_FAN_OUT_MAX_IN_FLIGHT);
+        memberBatchingEnabled = getClient().getProperties().getBoolean(ClientProperty.MAP_MEMBER_BATCHING_ENABLED);
+        long getBatchingDelayMicros = getClient().getProperties().getLong(ClientProperty.MAP_GET_BATCHING_DELAY_MICROS);
+        if (getBatchingDelayMicros > 0) {
+            int maxBatchSize = getClient().getProperties().getInteger(ClientProperty.MAP_GET_BATCHING_MAX_BATCH_SIZE);
+            getBatcher = new ClientMapGetBatcher(this, getContext().getPartitionService(), getContext().getExecutionService(),
+                    getBatchingDelayMicros, maxBatchSize, getClient().getLoggingService().getLogger(ClientMapGetBatcher.class));
+        }
     }
 
     @Override
@@ -271,6 +292,9 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
     }
 
     protected Object getInternal(Data keyData) {
+        if (getBatcher != null) {
+            return getBatcher.get(keyData);
+        }
         ClientMessage request = MapGetCodec.encodeRequest(name, keyData, getThreadId());
         ClientMessage response = invoke(request, keyData);
         MapGetCodec.ResponseParameters resultParameters = MapGetCodec.decodeResponse(response);
@@ -1050,31 +1074,22 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
 
     protected List<MapGetAllCodec.ResponseParameters> getAllInternal(Map<Integer, List<Data>> partitionToKeyData,
                                                                      Map<K, V> result) {
-        List<Future<ClientMessage>> futures = new ArrayList<Future<ClientMessage>>(partitionToKeyData.size());
-        List<MapGetAllCodec.ResponseParameters> responses = new ArrayList<MapGetAllCodec.ResponseParameters>(
-                partitionToKeyData.size());
-
-        for (Map.Entry<Integer, List<Data>> entry : partitionToKeyData.entrySet()) {
-            int partitionId = entry.getKey();
-            List<Data> keyList = entry.getValue();
-            if (!keyList.isEmpty()) {
-                ClientMessage request = MapGetAllCodec.encodeRequest(name, keyList);
-                futures.add(new ClientInvocation(getClient(), request, partitionId).invoke());
-            }
-        }
+        List<ICompletableFuture<List<ClientMessage>>> futures = invokeGetAll(partitionToKeyData);
+        List<MapGetAllCodec.ResponseParameters> responses = new ArrayList<MapGetAllCodec.ResponseParameters>(futures.size());
 
-        for (Future<ClientMessage> future : futures) {
+        for (Future<List<ClientMessage>> future : futures) {
             try {
-                ClientMessage response = future.get();
-                MapGetAllCodec.ResponseParameters resultParameters = MapGetAllCodec.decodeResponse(response);
+                for (ClientMessage response : future.get()) {
+                    MapGetAllCodec.ResponseParameters resultParameters = MapGetAllCodec.decodeResponse(response);
 
-                for (Entry<Data, Data> entry : resultParameters.response) {
-                    V value = toObject(entry.getValue());
-                    K key = toObject(entry.getKey());
-                    result.put(key, value);
-                }
+                    for (Entry<Data, Data> entry : resultParameters.response) {
+                        V value = toObject(entry.getValue());
+                        K key = toObject(entry.getKey());
+                        result.put(key, value);
+                    }
 
-                responses.add(resultParameters);
+                    responses.add(resultParameters);
+                }
             } catch (Exception e) {
                 throw rethrow(e);
             }
@@ -1082,6 +1097,105 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
         return responses;
     }
 
+    List<ICompletableFuture<List<ClientMessage>>> invokeGetAll(Map<Integer, List<Data>> partitionToKeyData) {
+        return invokeBatched(partitionToKeyData, new BatchEncoder<Data>() {
+            @Override
+            public ClientMessage encode(List<Data> keys) {
+                return MapGetAllCodec.encodeRequest(name, keys);
+            }
+        });
+    }
+
+    /**
+     * Sends a request per partition with the items of the partition. With
+     * {@link ClientProperty#MAP_MEMBER_BATCHING_ENABLED member batching} the items of the partitions owned by the same
+     * member are sent in a single request without a partition id, which the member splits over its partitions. If that
+     * member leaves the cluster before responding, the request is split into a request per partition again, which are
+     * retried on the new partition owners.
+     *
+     * @return futures of the responses, each completed with the responses of one or more requests
+     */
+    private <T> List<ICompletableFuture<List<ClientMessage>>> invokeBatched(Map<Integer, List<T>> partitionToItems,
+                                                                           BatchEncoder<T> encoder) {
+        List<ICompletableFuture<List<ClientMessage>>> futures
+                = new ArrayList<ICompletableFuture<List<ClientMessage>>>(partitionToItems.size());
+        Map<Address, List<Integer>> partitionsByOwner = new HashMap<Address, List<Integer>>();
+        ClientPartitionService partitionService = getContext().getPartitionService();
+        for (Map.Entry<Integer, List<T>> entry : partitionToItems.entrySet()) {
+            int partitionId = entry.getKey();
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            Address owner = memberBatchingEnabled ? partitionService.getPartitionOwner(partitionId) : null;
+            if (owner == null) {
+                BatchFuture future = new BatchFuture();
+                invokeOnPartitions(future, Collections.singletonList(partitionId), partitionToItems, encoder);
+                futures.add(future);
+                continue;
+            }
+            List<Integer> partitions = partitionsByOwner.get(owner);
+            if (partitions == null) {
+                partitions = new ArrayList<Integer>();
+                partitionsByOwner.put(owner, partitions);
+            }
+            partitions.add(partitionId);
+        }
+
+        for (Map.Entry<Address, List<Integer>> entry : partitionsByOwner.entrySet()) {
+            BatchFuture future = new BatchFuture();
+            List<Integer> partitions = entry.getValue();
+            if (partitions.size() == 1) {
+                invokeOnPartitions(future, partitions, partitionToItems, encoder);
+            } else {
+                invokeOnMember(future, entry.getKey(), partitions, partitionToItems, encoder);
+            }
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private <T> void invokeOnPartitions(BatchFuture future, List<Integer> partitionIds, Map<Integer, List<T>> partitionToItems,
+                                        BatchEncoder<T> encoder) {
+        future.addRequests(partitionIds.size());
+        for (int partitionId : partitionIds) {
+            ClientMessage request = encoder.encode(partitionToItems.get(partitionId));
+            new ClientInvocation(getClient(), request, partitionId).invoke().andThen(future);
+        }
+    }
+
+    private <T> void invokeOnMember(final BatchFuture future, Address owner, final List<Integer> partitionIds,
+                                    final Map<Integer, List<T>> partitionToItems, final BatchEncoder<T> encoder) {
+        List<T> items = new ArrayList<T>();
+        for (Integer partitionId : partitionIds) {
+            items.addAll(partitionToItems.get(partitionId));
+        }
+        future.addRequests(1);
+        ClientInvocationFuture memberFuture = new ClientInvocation(getClient(), encoder.encode(items), owner).invoke();
+        memberFuture.andThen(new ExecutionCallback<ClientMessage>() {
+            @Override
+            public void onResponse(ClientMessage response) {
+                future.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (causeOf(t) instanceof TargetNotMemberException) {
+                    // an invocation bound to a member is not retried after the member left the cluster,
+                    // while the requests of its partitions are retried on their new owners
+                    invokeOnPartitions(future, partitionIds, partitionToItems, encoder);
+                    future.removeRequest();
+                } else {
+                    future.onFailure(t);
+                }
+            }
+        });
+    }
+
+    /** Returns the failure of an invocation, which is passed to its callbacks wrapped in an {@link ExecutionException} */
+    private static Throwable causeOf(Throwable t) {
+        return t instanceof ExecutionException && t.getCause() != null ? t.getCause() : t;
+    }
+
     @Override
     public Collection<V> values() {
         ClientMessage request = MapValuesCodec.encodeRequest(name);
@@ -1112,6 +1226,15 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
         if (predicate instanceof PagingPredicate) {
             return keySetWithPagingPredicate((PagingPredicate) predicate);
         }
+        if (queryFanOutEnabled) {
+            Iterator<Data> iterator = queryIterator(predicate, IterationType.KEY);
+            InflatableSet.Builder<K> setBuilder = InflatableSet.newBuilder(queryFanOutMaxInFlight);
+            while (iterator.hasNext()) {
+                K key = toObject(iterator.next());
+                setBuilder.add(key);
+            }
+            return setBuilder.build();
+        }
 
         ClientMessage request = MapKeySetWithPredicateCodec.encodeRequest(name, toData(predicate));
         ClientMessage response = invoke(request);
@@ -1147,6 +1270,14 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
         if (predicate instanceof PagingPredicate) {
             return entrySetWithPagingPredicate((PagingPredicate) predicate);
         }
+        if (queryFanOutEnabled) {
+            Iterator<Entry<K, V>> iterator = iterator(predicate);
+            InflatableSet.Builder<Entry<K, V>> setBuilder = InflatableSet.newBuilder(queryFanOutMaxInFlight);
+            while (iterator.hasNext()) {
+                setBuilder.add(iterator.next());
+            }
+            return setBuilder.build();
+        }
         ClientMessage request = MapEntriesWithPredicateCodec.encodeRequest(name, toData(predicate));
 
         ClientMessage response = invoke(request);
@@ -1187,6 +1318,14 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
         if (predicate instanceof PagingPredicate) {
             return valuesForPagingPredicate((PagingPredicate) predicate);
         }
+        if (queryFanOutEnabled) {
+            Iterator<Data> iterator = queryIterator(predicate, IterationType.VALUE);
+            List<Data> values = new ArrayList<Data>();
+            while (iterator.hasNext()) {
+                values.add(iterator.next());
+            }
+            return new UnmodifiableLazyList<V>(values, getSerializationService());
+        }
 
         ClientMessage request = MapValuesWithPredicateCodec.encodeRequest(name, toData(predicate));
         ClientMessage response = invoke(request);
@@ -1505,14 +1644,14 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
     }
 
     protected void putAllInternal(Map<Integer, List<Map.Entry<Data, Data>>> entryMap) throws RuntimeException {
-        List<Future<?>> futures = new ArrayList<Future<?>>(entryMap.size());
-        for (Entry<Integer, List<Map.Entry<Data, Data>>> entry : entryMap.entrySet()) {
-            Integer partitionId = entry.getKey();
-            // if there is only one entry, consider how we can use MapPutRequest
-            // without having to get back the return value
-            ClientMessage request = MapPutAllCodec.encodeRequest(name, entry.getValue());
-            futures.add(new ClientInvocation(getClient(), request, partitionId).invoke());
-        }
+        // if there is only one entry, consider how we can use MapPutRequest
+        // without having to get back the return value
+        List<ICompletableFuture<List<ClientMessage>>> futures = invokeBatched(entryMap, new BatchEncoder<Entry<Data, Data>>() {
+            @Override
+            public ClientMessage encode(List<Entry<Data, Data>> entries) {
+                return MapPutAllCodec.encodeRequest(name, entries);
+            }
+        });
         try {
             for (Future<?> future : futures) {
                 future.get();
@@ -1533,6 +1672,48 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
         return "IMap{" + "name='" + name + '\'' + '}';
     }
 
+    /**
+     * Returns an iterator over the entries matching the given predicate. The query is fanned out to the partitions
+     * and the entries are returned in batches as the partitions respond, so the complete result is never held in memory.
+     * See {@link ClientProperty#QUERY_FAN_OUT_MAX_IN_FLIGHT} for the number of partitions requested ahead of the iteration.
+     * <p/>
+     * A {@link PagingPredicate} is not fanned out; its page is queried at once.
+     *
+     * @param predicate the predicate of the query
+     * @return an iterator over the matching entries
+     */
+    public Iterator<Entry<K, V>> iterator(Predicate<K, V> predicate) {
+        checkNotNull(predicate, NULL_PREDICATE_IS_NOT_ALLOWED);
+        if (predicate instanceof PagingPredicate) {
+            return entrySetWithPagingPredicate((PagingPredicate) predicate).iterator();
+        }
+
+        final Iterator<Entry<Data, Data>> iterator = queryIterator(predicate, IterationType.ENTRY);
+        final InternalSerializationService serializationService = ((InternalSerializationService) getContext()
+                .getSerializationService());
+        return new Iterator<Entry<K, V>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                Entry<Data, Data> row = iterator.next();
+                return new LazyMapEntry<K, V>(row.getKey(), row.getValue(), serializationService);
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    private <R> Iterator<R> queryIterator(Predicate predicate, IterationType iterationType) {
+        return new ClientMapQueryIterator<R>(getClient(), name, toData(predicate), iterationType, queryFanOutMaxInFlight);
+    }
+
     // used for testing
     public Iterator<Entry<K, V>> iterator(int fetchSize, int partitionId, boolean prefetchValues) {
         return new ClientMapPartitionIterator<K, V>(this, getContext(), fetchSize, partitionId, prefetchValues);
@@ -1642,4 +1823,48 @@ public class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V> {
             listener.partitionLost(new MapPartitionLostEvent(name, member, -1, partitionId));
         }
     }
+
+    /**
+     * Encodes the request of a batch of items.
+     */
+    private interface BatchEncoder<T> {
+
+        ClientMessage encode(List<T> items);
+    }
+
+    /**
+     * Collects the responses of the requests of a batch and completes with all of them, or with the first failure.
+     */
+    private final class BatchFuture extends AbstractCompletableFuture<List<ClientMessage>>
+            implements ExecutionCallback<ClientMessage> {
+
+        private final AtomicInteger remainingRequests = new AtomicInteger();
+        private final List<ClientMessage> responses = Collections.synchronizedList(new ArrayList<ClientMessage>());
+
+        BatchFuture() {
+            super(getContext().getExecutionService(), getClient().getLoggingService().getLogger(BatchFuture.class));
+        }
+
+        void addRequests(int requestCount) {
+            remainingRequests.addAndGet(requestCount);
+        }
+
+        /** Removes a request which is replaced by other requests, after they have been added */
+        void removeRequest() {
+            if (remainingRequests.decrementAndGet() == 0) {
+                setResult(new ArrayList<ClientMessage>(responses));
+            }
+        }
+
+        @Override
+        public void onResponse(ClientMessage response) {
+            responses.add(response);
+            removeRequest();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            setResult(causeOf(t));
+        }
+    }
 }
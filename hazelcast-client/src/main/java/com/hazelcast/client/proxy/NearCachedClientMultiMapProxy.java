@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.proxy;
+
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.MultiMapAddEntryListenerCodec;
+import com.hazelcast.client.impl.protocol.codec.MultiMapRemoveEntryListenerCodec;
+import com.hazelcast.client.spi.ClientContext;
+import com.hazelcast.client.spi.EventHandler;
+import com.hazelcast.client.spi.impl.ListenerMessageCodec;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.nearcache.NearCache;
+import com.hazelcast.internal.nearcache.impl.DefaultNearCache;
+import com.hazelcast.internal.nearcache.impl.invalidation.MinimalPartitionService;
+import com.hazelcast.internal.nearcache.impl.invalidation.RepairingHandler;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetectorImpl;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.monitor.NearCacheStats;
+import com.hazelcast.multimap.impl.MultiMapService;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static com.hazelcast.internal.nearcache.NearCache.NOT_CACHED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.NOT_RESERVED;
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static com.hazelcast.util.StringUtil.stringToBytes;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A Client-side {@code MultiMap} implementation which is fronted by a Near Cache.
+ * <p>
+ * The Near Cache holds the complete value collection of a key. It is invalidated by the entry events of the
+ * {@code MultiMapEventsPublisher}, since the {@code MultiMap} has no dedicated invalidation events.
+ * <p>
+ * The Near Cache is named after the {@link MultiMapService}, so it doesn't collide with the Near Cache of an
+ * {@code IMap} with the same name in the shared Near Cache manager.
+ * <p>
+ * The entry events carry no invalidation sequence, so lost events can't be counted like for the {@code IMap}.
+ * Instead the owner of the partition is used as partition UUID of a {@link RepairingHandler}: the values which were
+ * cached before the owner of their partition changed are detected as stale reads, since the events of a failed or
+ * migrated owner may have been lost. The Near Cache is cleared when the invalidation listener is (re-)registered.
+ *
+ * @param <K> the key type for this {@code MultiMap} proxy.
+ * @param <V> the value type for this {@code MultiMap} proxy.
+ */
+public class NearCachedClientMultiMapProxy<K, V> extends ClientMultiMapProxy<K, V> {
+
+    private String nearCacheName;
+    private NearCache<Object, Object> nearCache;
+    private RepairingHandler repairingHandler;
+
+    private volatile String invalidationListenerId;
+
+    public NearCachedClientMultiMapProxy(String serviceName, String name, ClientContext context) {
+        super(serviceName, name, context);
+    }
+
+    @Override
+    protected void onInitialize() {
+        super.onInitialize();
+
+        NearCacheConfig nearCacheConfig = getContext().getClientConfig().getNearCacheConfig(name);
+        nearCacheName = MultiMapService.SERVICE_NAME + ":" + name;
+        nearCache = getContext().getNearCacheManager().getOrCreateNearCache(nearCacheName, nearCacheConfig);
+
+        ILogger logger = getContext().getLoggingService().getLogger(getClass());
+        String localUuid = getContext().getClusterService().getLocalClient().getUuid();
+        MinimalPartitionService partitionService = new MultiMapMinimalPartitionService();
+        repairingHandler = new RepairingHandler(logger, localUuid, nearCacheName, nearCache, partitionService);
+        nearCache.unwrap(DefaultNearCache.class).getNearCacheRecordStore()
+                .setStaleReadDetector(new StaleReadDetectorImpl(repairingHandler, partitionService));
+
+        if (nearCacheConfig.isInvalidateOnChange()) {
+            registerInvalidationListener();
+        }
+    }
+
+    @Override
+    protected boolean putInternal(Data keyData, Data valueData) {
+        try {
+            return super.putInternal(keyData, valueData);
+        } finally {
+            invalidateNearCache(keyData);
+        }
+    }
+
+    @Override
+    protected Collection<V> getInternal(Data keyData) {
+        Collection<V> cached = getCachedValues(keyData);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            // the record is reserved with the current owner of its partition
+            repairOwnerUuid(keyData);
+            long reservationId = nearCache.tryReserveForUpdate(keyData);
+            Collection<V> values = super.getInternal(keyData);
+            if (reservationId != NOT_RESERVED) {
+                List<V> valueList = new ArrayList<V>(values);
+                nearCache.tryPublishReserved(keyData, valueList, reservationId, false);
+                return unmodifiableList(valueList);
+            }
+            return values;
+        } catch (Throwable throwable) {
+            invalidateNearCache(keyData);
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    protected boolean removeInternal(Data keyData, Data valueData) {
+        try {
+            return super.removeInternal(keyData, valueData);
+        } finally {
+            invalidateNearCache(keyData);
+        }
+    }
+
+    @Override
+    protected Collection<V> removeInternal(Data keyData) {
+        try {
+            return super.removeInternal(keyData);
+        } finally {
+            invalidateNearCache(keyData);
+        }
+    }
+
+    @Override
+    protected boolean containsKeyInternal(Data keyData) {
+        Collection<V> cached = getCachedValues(keyData);
+        if (cached != null) {
+            return !cached.isEmpty();
+        }
+        return super.containsKeyInternal(keyData);
+    }
+
+    @Override
+    protected int valueCountInternal(Data keyData) {
+        Collection<V> cached = getCachedValues(keyData);
+        if (cached != null) {
+            return cached.size();
+        }
+        return super.valueCountInternal(keyData);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            super.clear();
+        } finally {
+            nearCache.clear();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        removeNearCacheInvalidationListener();
+        getContext().getNearCacheManager().destroyNearCache(nearCacheName);
+
+        super.onDestroy();
+    }
+
+    @Override
+    protected void onShutdown() {
+        removeNearCacheInvalidationListener();
+        getContext().getNearCacheManager().destroyNearCache(nearCacheName);
+
+        super.onShutdown();
+    }
+
+    public NearCache<Object, Object> getNearCache() {
+        return nearCache;
+    }
+
+    public NearCacheStats getNearCacheStats() {
+        return nearCache.getNearCacheStats();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<V> getCachedValues(Data keyData) {
+        // values cached before an owner change of their partition are detected as stale reads
+        repairOwnerUuid(keyData);
+        Object cached = nearCache.get(keyData);
+        if (cached == null || cached == NOT_CACHED) {
+            return null;
+        }
+        List<V> values = (List<V>) toObject(cached);
+        return unmodifiableList(values);
+    }
+
+    private void invalidateNearCache(Data keyData) {
+        nearCache.remove(keyData);
+    }
+
+    private void repairOwnerUuid(Data keyData) {
+        int partitionId = getContext().getPartitionService().getPartitionId(keyData);
+        Address owner = getContext().getPartitionService().getPartitionOwner(partitionId);
+        Member member = owner == null ? null : getContext().getClusterService().getMember(owner);
+        if (member != null) {
+            repairingHandler.checkOrRepairUuid(partitionId, UUID.nameUUIDFromBytes(stringToBytes(member.getUuid())));
+        }
+    }
+
+    private void registerInvalidationListener() {
+        try {
+            invalidationListenerId = registerListener(createNearCacheInvalidationListenerCodec(),
+                    new MultiMapNearCacheEventHandler());
+        } catch (Exception e) {
+            ILogger logger = getContext().getLoggingService().getLogger(getClass());
+            logger.severe("-----------------\nNear Cache is not initialized!\n-----------------", e);
+        }
+    }
+
+    private ListenerMessageCodec createNearCacheInvalidationListenerCodec() {
+        return new ListenerMessageCodec() {
+            @Override
+            public ClientMessage encodeAddRequest(boolean localOnly) {
+                return MultiMapAddEntryListenerCodec.encodeRequest(name, false, localOnly);
+            }
+
+            @Override
+            public String decodeAddResponse(ClientMessage clientMessage) {
+                return MultiMapAddEntryListenerCodec.decodeResponse(clientMessage).response;
+            }
+
+            @Override
+            public ClientMessage encodeRemoveRequest(String realRegistrationId) {
+                return MultiMapRemoveEntryListenerCodec.encodeRequest(name, realRegistrationId);
+            }
+
+            @Override
+            public boolean decodeRemoveResponse(ClientMessage clientMessage) {
+                return MultiMapRemoveEntryListenerCodec.decodeResponse(clientMessage).response;
+            }
+        };
+    }
+
+    private void removeNearCacheInvalidationListener() {
+        String invalidationListenerId = this.invalidationListenerId;
+        if (invalidationListenerId == null) {
+            return;
+        }
+        deregisterListener(invalidationListenerId);
+    }
+
+    /**
+     * {@link MinimalPartitionService} backed by the client partition service.
+     */
+    private final class MultiMapMinimalPartitionService implements MinimalPartitionService {
+
+        @Override
+        public int getPartitionId(Data key) {
+            return getContext().getPartitionService().getPartitionId(key);
+        }
+
+        @Override
+        public int getPartitionId(Object key) {
+            return getContext().getPartitionService().getPartitionId(key);
+        }
+
+        @Override
+        public int getPartitionCount() {
+            return getContext().getPartitionService().getPartitionCount();
+        }
+    }
+
+    /**
+     * Removes the value collection of a key from the Near Cache on every {@code MultiMap} entry event of that key,
+     * and clears the Near Cache on map-wide events.
+     */
+    private final class MultiMapNearCacheEventHandler
+            extends MultiMapAddEntryListenerCodec.AbstractEventHandler
+            implements EventHandler<ClientMessage> {
+
+        @Override
+        public void beforeListenerRegister() {
+            nearCache.clear();
+        }
+
+        @Override
+        public void onListenerRegister() {
+            nearCache.clear();
+        }
+
+        @Override
+        public void handle(Data key, Data value, Data oldValue, Data mergingValue,
+                           int eventType, String uuid, int numberOfAffectedEntries) {
+            // null key means that the Near Cache has to remove all entries in it (e.g. on clear())
+            if (key == null) {
+                nearCache.clear();
+            } else {
+                nearCache.remove(key);
+            }
+        }
+    }
+}
@@ -39,7 +39,6 @@ import com.hazelcast.client.proxy.ClientIdGeneratorProxy;
 import com.hazelcast.client.proxy.ClientListProxy;
 import com.hazelcast.client.proxy.ClientLockProxy;
 import com.hazelcast.client.proxy.ClientMapReduceProxy;
-import com.hazelcast.client.proxy.ClientMultiMapProxy;
 import com.hazelcast.client.proxy.ClientQueueProxy;
 import com.hazelcast.client.proxy.ClientReliableTopicProxy;
 import com.hazelcast.client.proxy.ClientReplicatedMapProxy;
@@ -166,7 +165,7 @@ public final class ProxyManager {
             register(ICacheService.SERVICE_NAME, new ClientCacheProxyFactory(client));
         }
         register(QueueService.SERVICE_NAME, ClientQueueProxy.class);
-        register(MultiMapService.SERVICE_NAME, ClientMultiMapProxy.class);
+        register(MultiMapService.SERVICE_NAME, createServiceProxyFactory(MultiMapService.class));
         register(ListService.SERVICE_NAME, ClientListProxy.class);
         register(SetService.SERVICE_NAME, ClientSetProxy.class);
         register(SemaphoreService.SERVICE_NAME, ClientSemaphoreProxy.class);
@@ -236,11 +235,12 @@ public final class ProxyManager {
     }
 
     /**
-     * Creates a {@code ClientProxyFactory} for the supplied service class. Currently only the {@link MapService} is supported.
+     * Creates a {@code ClientProxyFactory} for the supplied service class. Currently only the {@link MapService}
+     * and the {@link MultiMapService} are supported.
      *
      * @param service service for the proxy to create.
      * @return {@code ClientProxyFactory} for the service.
-     * @throws java.lang.IllegalArgumentException if service is not known. Currently only the {@link MapService} is known
+     * @throws java.lang.IllegalArgumentException if service is not known
      */
     private <T> ClientProxyFactory createServiceProxyFactory(Class<T> service) {
         ClientExtension clientExtension = client.getClientExtension();
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.util.QuickMath.nextPowerOfTwo;
+
+/**
+ * Registry of the pending {@link ClientInvocation}s by their correlation IDs.
+ * <p>
+ * The invocations are kept in primitive keyed {@link Long2ObjectHashMap}s, striped by the correlation ID and guarded
+ * by a lock per stripe. So registering an invocation allocates neither a boxed key nor a map entry, and the response
+ * threads, which are striped by the correlation ID as well, rarely contend on the same stripe.
+ */
+public final class ClientInvocationRegistry {
+
+    private final Long2ObjectHashMap<ClientInvocation>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public ClientInvocationRegistry(int stripeCount) {
+        int count = nextPowerOfTwo(stripeCount);
+        this.stripes = new Long2ObjectHashMap[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Long2ObjectHashMap<ClientInvocation>();
+        }
+        this.mask = count - 1;
+    }
+
+    public void put(long correlationId, ClientInvocation invocation) {
+        Long2ObjectHashMap<ClientInvocation> stripe = stripeOf(correlationId);
+        synchronized (stripe) {
+            stripe.put(correlationId, invocation);
+        }
+    }
+
+    public ClientInvocation remove(long correlationId) {
+        Long2ObjectHashMap<ClientInvocation> stripe = stripeOf(correlationId);
+        synchronized (stripe) {
+            return stripe.remove(correlationId);
+        }
+    }
+
+    /**
+     * Removes the invocation only if it is still registered with the given correlation ID.
+     *
+     * @return {@code true} if the invocation was removed
+     */
+    public boolean remove(long correlationId, ClientInvocation invocation) {
+        Long2ObjectHashMap<ClientInvocation> stripe = stripeOf(correlationId);
+        synchronized (stripe) {
+            if (stripe.get(correlationId) != invocation) {
+                return false;
+            }
+            stripe.remove(correlationId);
+            return true;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the registered invocations by their correlation IDs.
+     */
+    public Map<Long, ClientInvocation> snapshot() {
+        Long2ObjectHashMap<ClientInvocation> snapshot = new Long2ObjectHashMap<ClientInvocation>();
+        for (Long2ObjectHashMap<ClientInvocation> stripe : stripes) {
+            synchronized (stripe) {
+                snapshot.putAll(stripe);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Removes all registered invocations.
+     *
+     * @return the removed invocations
+     */
+    public List<ClientInvocation> removeAll() {
+        List<ClientInvocation> invocations = new ArrayList<ClientInvocation>();
+        for (Long2ObjectHashMap<ClientInvocation> stripe : stripes) {
+            synchronized (stripe) {
+                invocations.addAll(stripe.values());
+                stripe.clear();
+            }
+        }
+        return invocations;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Long2ObjectHashMap<ClientInvocation> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private Long2ObjectHashMap<ClientInvocation> stripeOf(long correlationId) {
+        return stripes[(int) correlationId & mask];
+    }
+}
@@ -37,17 +37,16 @@ import com.hazelcast.spi.properties.HazelcastProperty;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import static com.hazelcast.client.spi.properties.ClientProperty.INVOCATION_TIMEOUT_SECONDS;
+import static com.hazelcast.client.spi.properties.ClientProperty.RESPONSE_THREAD_COUNT;
 import static com.hazelcast.instance.OutOfMemoryErrorDispatcher.onOutOfMemory;
 import static com.hazelcast.spi.impl.operationservice.impl.AsyncInboundResponseHandler.getIdleStrategy;
+import static com.hazelcast.util.HashUtil.hashToIndex;
 
 abstract class ClientInvocationServiceSupport implements ClientInvocationService {
 
@@ -55,6 +54,7 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
             = new HazelcastProperty("hazelcast.client.responsequeue.idlestrategy", "block");
 
     private static final int WAIT_TIME_FOR_PACKETS_TO_BE_CONSUMED_THRESHOLD = 5000;
+    private static final int CALL_ID_MAP_STRIPES_PER_RESPONSE_THREAD = 8;
 
     protected final HazelcastClientInstanceImpl client;
     protected final ILogger invocationLogger;
@@ -63,10 +63,9 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
     protected ClientPartitionService partitionService;
     private ClientListenerServiceImpl clientListenerService;
 
-    @Probe(name = "pendingCalls", level = ProbeLevel.MANDATORY)
-    private ConcurrentMap<Long, ClientInvocation> callIdMap = new ConcurrentHashMap<Long, ClientInvocation>();
+    private final ClientInvocationRegistry callIdMap;
 
-    private ResponseThread responseThread;
+    private final ResponseThread[] responseThreads;
 
     private volatile boolean isShutdown;
     private final long invocationTimeoutMillis;
@@ -75,6 +74,10 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
         this.client = client;
         this.invocationLogger = client.getLoggingService().getLogger(ClientInvocationService.class);
         this.invocationTimeoutMillis = initInvocationTimeoutMillis();
+        int responseThreadCount = client.getProperties().getInteger(RESPONSE_THREAD_COUNT);
+        this.responseThreads = new ResponseThread[Math.max(responseThreadCount, 0)];
+        this.callIdMap = new ClientInvocationRegistry(
+                Math.max(responseThreadCount, 1) * CALL_ID_MAP_STRIPES_PER_RESPONSE_THREAD);
         client.getMetricsRegistry().scanAndRegister(this, "invocations");
     }
 
@@ -89,8 +92,10 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
         clientListenerService = (ClientListenerServiceImpl) client.getListenerService();
         partitionService = client.getClientPartitionService();
         ClassLoader classLoader = client.getClientConfig().getClassLoader();
-        responseThread = new ResponseThread(client.getName() + ".response-", classLoader);
-        responseThread.start();
+        for (int i = 0; i < responseThreads.length; i++) {
+            responseThreads[i] = new ResponseThread(client.getName() + ".response-" + i, classLoader);
+            responseThreads[i].start();
+        }
         ClientExecutionService executionService = client.getClientExecutionService();
         executionService.scheduleWithRepetition(new CleanResourcesTask(), 1, 1, TimeUnit.SECONDS);
     }
@@ -161,6 +166,22 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
         return callIdMap.remove(callId);
     }
 
+    @Probe(name = "pendingCalls", level = ProbeLevel.MANDATORY)
+    private int pendingCalls() {
+        return callIdMap.size();
+    }
+
+    @Probe(name = "responseQueueSize", level = ProbeLevel.MANDATORY)
+    private int responseQueueSize() {
+        int size = 0;
+        for (ResponseThread responseThread : responseThreads) {
+            if (responseThread != null) {
+                size += responseThread.responseQueue.size();
+            }
+        }
+        return size;
+    }
+
     public boolean isShutdown() {
         return isShutdown;
     }
@@ -168,11 +189,12 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
     @Override
     public void shutdown() {
         isShutdown = true;
-        responseThread.interrupt();
-        Iterator<ClientInvocation> iterator = callIdMap.values().iterator();
-        while (iterator.hasNext()) {
-            ClientInvocation invocation = iterator.next();
-            iterator.remove();
+        for (ResponseThread responseThread : responseThreads) {
+            if (responseThread != null) {
+                responseThread.interrupt();
+            }
+        }
+        for (ClientInvocation invocation : callIdMap.removeAll()) {
             invocation.notifyException(new HazelcastClientNotActiveException("Client is shutting down"));
         }
         assert callIdMap.isEmpty();
@@ -182,10 +204,8 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
 
         @Override
         public void run() {
-            Iterator<Map.Entry<Long, ClientInvocation>> iter = callIdMap.entrySet().iterator();
             Collection<ClientConnection> expiredConnections = null;
-            while (iter.hasNext()) {
-                Map.Entry<Long, ClientInvocation> entry = iter.next();
+            for (Map.Entry<Long, ClientInvocation> entry : callIdMap.snapshot().entrySet()) {
                 ClientInvocation invocation = entry.getValue();
                 ClientConnection connection = invocation.getSendConnection();
                 if (connection == null) {
@@ -209,9 +229,9 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
                     }
                 }
 
-                iter.remove();
-
-                notifyException(invocation, connection);
+                if (callIdMap.remove(entry.getKey(), invocation)) {
+                    notifyException(invocation, connection);
+                }
             }
             if (expiredConnections != null) {
                 logExpiredConnections(expiredConnections);
@@ -246,9 +266,46 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
         }
     }
 
+    /**
+     * Hands the response over to the response thread of its correlation ID, or processes it on the calling IO thread
+     * if there are no response threads.
+     */
     @Override
     public void handleClientMessage(ClientMessage message, Connection connection) {
-        responseThread.responseQueue.add(new ClientPacket((ClientConnection) connection, message));
+        ClientConnection clientConnection = (ClientConnection) connection;
+        if (responseThreads.length == 0) {
+            process(clientConnection, message);
+            return;
+        }
+        int threadIndex = hashToIndex((int) message.getCorrelationId(), responseThreads.length);
+        responseThreads[threadIndex].responseQueue.add(new ClientPacket(clientConnection, message));
+    }
+
+    private void process(ClientConnection connection, ClientMessage clientMessage) {
+        try {
+            handleResponse(clientMessage);
+        } catch (Exception e) {
+            invocationLogger.severe("Failed to process response: " + clientMessage + " on thread: "
+                    + Thread.currentThread().getName(), e);
+        } finally {
+            connection.decrementPendingPacketCount();
+        }
+    }
+
+    private void handleResponse(ClientMessage clientMessage) {
+        long correlationId = clientMessage.getCorrelationId();
+
+        final ClientInvocation future = deRegisterCallId(correlationId);
+        if (future == null) {
+            invocationLogger.warning("No call for callId: " + correlationId + ", response: " + clientMessage);
+            return;
+        }
+        if (ErrorCodec.TYPE == clientMessage.getMessageType()) {
+            Throwable exception = client.getClientExceptionFactory().createException(clientMessage);
+            future.notifyException(exception);
+        } else {
+            future.notify(clientMessage);
+        }
     }
 
     public long getInvocationTimeoutMillis() {
@@ -304,34 +361,7 @@ abstract class ClientInvocationServiceSupport implements ClientInvocationService
                 } catch (InterruptedException e) {
                     continue;
                 }
-                process(task);
-            }
-        }
-
-        private void process(ClientPacket packet) {
-            final ClientConnection conn = packet.getClientConnection();
-            try {
-                handleClientMessage(packet.getClientMessage());
-            } catch (Exception e) {
-                invocationLogger.severe("Failed to process task: " + packet + " on responseThread: " + getName(), e);
-            } finally {
-                conn.decrementPendingPacketCount();
-            }
-        }
-
-        private void handleClientMessage(ClientMessage clientMessage) {
-            long correlationId = clientMessage.getCorrelationId();
-
-            final ClientInvocation future = deRegisterCallId(correlationId);
-            if (future == null) {
-                invocationLogger.warning("No call for callId: " + correlationId + ", response: " + clientMessage);
-                return;
-            }
-            if (ErrorCodec.TYPE == clientMessage.getMessageType()) {
-                Throwable exception = client.getClientExceptionFactory().createException(clientMessage);
-                future.notifyException(exception);
-            } else {
-                future.notify(clientMessage);
+                process(task.getClientConnection(), task.getClientMessage());
             }
         }
     }
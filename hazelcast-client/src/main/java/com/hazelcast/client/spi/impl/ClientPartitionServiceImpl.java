@@ -32,7 +32,11 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.partition.NoDataMemberInClusterException;
 import com.hazelcast.util.EmptyStatement;
 import com.hazelcast.util.HashUtil;
+import com.hazelcast.util.StringUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,6 +45,8 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.hazelcast.client.spi.properties.ClientProperty.PARTITION_TABLE_SNAPSHOT_FILE;
+
 /**
  * The {@link ClientPartitionService} implementation.
  */
@@ -56,16 +62,25 @@ public final class ClientPartitionServiceImpl implements ClientPartitionService
     private final ClientExecutionServiceImpl clientExecutionService ;
     private final HazelcastClientInstanceImpl client;
     private final ILogger logger;
+    private final File snapshotFile;
 
     private volatile int partitionCount;
 
+    // guarded by this
+    private Address[] savedPartitionOwners;
+
     public ClientPartitionServiceImpl(HazelcastClientInstanceImpl client) {
         this.client = client;
         this.logger = client.getLoggingService().getLogger(ClientPartitionService.class);
         clientExecutionService = (ClientExecutionServiceImpl) client.getClientExecutionService();
+        String snapshotPath = client.getProperties().getString(PARTITION_TABLE_SNAPSHOT_FILE);
+        snapshotFile = StringUtil.isNullOrEmptyAfterTrim(snapshotPath) ? null : new File(snapshotPath.trim());
     }
 
     public void start() {
+        if (snapshotFile != null) {
+            loadSnapshot();
+        }
         // use internal execution service for all partition refresh process (do not use the user executor thread)
         clientExecutionService.scheduleWithRepetition(new RefreshTask(), INITIAL_DELAY, PERIOD, TimeUnit.SECONDS);
     }
@@ -148,7 +163,77 @@ public final class ClientPartitionServiceImpl implements ClientPartitionService
             }
         }
         partitionCount = this.partitions.size();
-        return partitions.size() > 0;
+        if (partitions.isEmpty()) {
+            return false;
+        }
+        client.getStartupMetrics().onPartitionTableAvailable();
+        if (snapshotFile != null) {
+            saveSnapshot();
+        }
+        return true;
+    }
+
+    /**
+     * Uses the partition table of the snapshot file until the partition table is fetched from the cluster, if all
+     * partition owners of the snapshot are still members of the cluster.
+     */
+    private void loadSnapshot() {
+        Address[] owners;
+        try {
+            PartitionTableSnapshot snapshot = PartitionTableSnapshot.read(snapshotFile);
+            if (snapshot == null) {
+                return;
+            }
+            owners = snapshot.getPartitionOwners(client.getClientClusterService().getMemberList());
+        } catch (IOException e) {
+            logger.warning("Could not read the partition table snapshot " + snapshotFile, e);
+            return;
+        }
+        if (owners == null) {
+            logger.info("Ignoring the partition table snapshot " + snapshotFile + " since the cluster has changed");
+            return;
+        }
+
+        for (int partitionId = 0; partitionId < owners.length; partitionId++) {
+            partitions.putIfAbsent(partitionId, owners[partitionId]);
+        }
+        if (partitionCount == 0) {
+            partitionCount = partitions.size();
+        }
+        client.getStartupMetrics().onPartitionTableAvailable();
+        logger.info("Loaded the partition table of " + owners.length + " partitions from the snapshot " + snapshotFile);
+        // the snapshot is only a hint, the actual partition table is fetched at once
+        refreshPartitions();
+    }
+
+    private synchronized void saveSnapshot() {
+        Address[] owners = new Address[partitionCount];
+        for (int partitionId = 0; partitionId < owners.length; partitionId++) {
+            owners[partitionId] = partitions.get(partitionId);
+        }
+        if (Arrays.equals(owners, savedPartitionOwners)) {
+            return;
+        }
+        PartitionTableSnapshot snapshot = PartitionTableSnapshot.create(client.getClientClusterService().getMemberList(), owners);
+        if (snapshot == null) {
+            // the member list does not contain all owners yet, the snapshot is saved with the next partition table
+            return;
+        }
+        try {
+            snapshot.write(snapshotFile);
+            savedPartitionOwners = owners;
+        } catch (IOException e) {
+            logger.warning("Could not write the partition table snapshot " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Checks if the partition table is available without fetching it.
+     *
+     * @return {@code true} if the owners of the partitions are known, {@code false} otherwise
+     */
+    public boolean isPartitionTableAvailable() {
+        return partitionCount > 0;
     }
 
     public void stop() {
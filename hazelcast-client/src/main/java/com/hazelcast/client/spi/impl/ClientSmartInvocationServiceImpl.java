@@ -25,10 +25,12 @@ import com.hazelcast.nio.Connection;
 import com.hazelcast.spi.exception.TargetNotMemberException;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ClientSmartInvocationServiceImpl extends ClientInvocationServiceSupport {
 
     private final LoadBalancer loadBalancer;
+    private final AtomicInteger nextStripe = new AtomicInteger();
 
     public ClientSmartInvocationServiceImpl(HazelcastClientInstanceImpl client, LoadBalancer loadBalancer) {
         super(client);
@@ -42,7 +44,7 @@ public final class ClientSmartInvocationServiceImpl extends ClientInvocationServ
             throw new IOException("Partition does not have an owner. partitionId: " + partitionId);
         }
         invocation.getClientMessage().setPartitionId(partitionId);
-        Connection connection = getOrTriggerConnect(owner);
+        Connection connection = getOrTriggerConnect(owner, partitionId);
         send(invocation, (ClientConnection) connection);
     }
 
@@ -52,7 +54,7 @@ public final class ClientSmartInvocationServiceImpl extends ClientInvocationServ
         if (randomAddress == null) {
             throw new IOException("No address found to invoke");
         }
-        Connection connection = getOrTriggerConnect(randomAddress);
+        Connection connection = getOrTriggerConnect(randomAddress, nextStripe.getAndIncrement());
         send(invocation, (ClientConnection) connection);
     }
 
@@ -62,12 +64,12 @@ public final class ClientSmartInvocationServiceImpl extends ClientInvocationServ
         if (!isMember(target)) {
             throw new TargetNotMemberException("Target '" + target + "' is not a member.");
         }
-        Connection connection = getOrTriggerConnect(target);
+        Connection connection = getOrTriggerConnect(target, nextStripe.getAndIncrement());
         invokeOnConnection(invocation, (ClientConnection) connection);
     }
 
-    private Connection getOrTriggerConnect(Address target) throws IOException {
-        Connection connection = connectionManager.getOrTriggerConnect(target, false);
+    private Connection getOrTriggerConnect(Address target, int stripe) throws IOException {
+        Connection connection = connectionManager.getOrTriggerPooledConnect(target, stripe);
         if (connection == null) {
             throw new IOException("No available connection to address " + target);
         }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.nio.Address;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static com.hazelcast.nio.IOUtil.rename;
+
+/**
+ * Snapshot of the member list and the partition table of a cluster, which a client keeps in a file to route its
+ * requests right after its start.
+ *
+ * @see com.hazelcast.client.spi.properties.ClientProperty#PARTITION_TABLE_SNAPSHOT_FILE
+ */
+final class PartitionTableSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<String> memberUuids;
+    private final List<Address> memberAddresses;
+    private final int[] partitionOwners;
+
+    private PartitionTableSnapshot(List<String> memberUuids, List<Address> memberAddresses, int[] partitionOwners) {
+        this.memberUuids = memberUuids;
+        this.memberAddresses = memberAddresses;
+        this.partitionOwners = partitionOwners;
+    }
+
+    /**
+     * Creates a snapshot of the given members and partition owners.
+     *
+     * @param owners the owners of the partitions, indexed by partition id
+     * @return the snapshot, or {@code null} if a partition has no owner or its owner is not one of the members
+     */
+    static PartitionTableSnapshot create(Collection<Member> members, Address[] owners) {
+        List<String> memberUuids = new ArrayList<String>(members.size());
+        List<Address> memberAddresses = new ArrayList<Address>(members.size());
+        Map<Address, Integer> memberIndexes = new HashMap<Address, Integer>();
+        for (Member member : members) {
+            memberIndexes.put(member.getAddress(), memberUuids.size());
+            memberUuids.add(member.getUuid());
+            memberAddresses.add(member.getAddress());
+        }
+
+        int[] partitionOwners = new int[owners.length];
+        for (int partitionId = 0; partitionId < owners.length; partitionId++) {
+            Integer memberIndex = memberIndexes.get(owners[partitionId]);
+            if (memberIndex == null) {
+                return null;
+            }
+            partitionOwners[partitionId] = memberIndex;
+        }
+        return new PartitionTableSnapshot(memberUuids, memberAddresses, partitionOwners);
+    }
+
+    List<Address> getMemberAddresses() {
+        return Collections.unmodifiableList(memberAddresses);
+    }
+
+    /**
+     * Returns the owners of the partitions, if all of them are still members of the cluster. A member which
+     * restarted has another UUID, so a restarted cluster never matches the snapshot.
+     *
+     * @param members the current members of the cluster
+     * @return the owners of the partitions, indexed by partition id, or {@code null} if an owner is not a member
+     */
+    Address[] getPartitionOwners(Collection<Member> members) {
+        Map<String, Address> currentAddresses = new HashMap<String, Address>();
+        for (Member member : members) {
+            currentAddresses.put(member.getUuid(), member.getAddress());
+        }
+
+        Address[] owners = new Address[partitionOwners.length];
+        for (int partitionId = 0; partitionId < owners.length; partitionId++) {
+            int memberIndex = partitionOwners[partitionId];
+            Address address = memberAddresses.get(memberIndex);
+            if (!address.equals(currentAddresses.get(memberUuids.get(memberIndex)))) {
+                return null;
+            }
+            owners[partitionId] = address;
+        }
+        return owners;
+    }
+
+    /**
+     * Reads a snapshot from the given file.
+     *
+     * @return the snapshot, or {@code null} if the file does not exist
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static PartitionTableSnapshot read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unknown partition table snapshot version " + version + " in " + file);
+            }
+            int memberCount = in.readInt();
+            List<String> memberUuids = new ArrayList<String>(memberCount);
+            List<Address> memberAddresses = new ArrayList<Address>(memberCount);
+            for (int i = 0; i < memberCount; i++) {
+                memberUuids.add(in.readUTF());
+                String host = in.readUTF();
+                memberAddresses.add(new Address(host, in.readInt()));
+            }
+            int[] partitionOwners = new int[in.readInt()];
+            for (int partitionId = 0; partitionId < partitionOwners.length; partitionId++) {
+                int memberIndex = in.readInt();
+                if (memberIndex < 0 || memberIndex >= memberCount) {
+                    throw new IOException("Invalid owner " + memberIndex + " of partition " + partitionId + " in " + file);
+                }
+                partitionOwners[partitionId] = memberIndex;
+            }
+            return new PartitionTableSnapshot(memberUuids, memberAddresses, partitionOwners);
+        } finally {
+            closeResource(in);
+        }
+    }
+
+    /**
+     * Writes this snapshot to the given file. The snapshot is written to a temporary file first, which then replaces
+     * the given file, so a client never reads a partially written snapshot.
+     */
+    void write(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(memberUuids.size());
+            for (int i = 0; i < memberUuids.size(); i++) {
+                Address address = memberAddresses.get(i);
+                out.writeUTF(memberUuids.get(i));
+                out.writeUTF(address.getHost());
+                out.writeInt(address.getPort());
+            }
+            out.writeInt(partitionOwners.length);
+            for (int memberIndex : partitionOwners) {
+                out.writeInt(memberIndex);
+            }
+            out.flush();
+        } finally {
+            closeResource(out);
+        }
+        try {
+            rename(tmpFile, file);
+        } catch (RuntimeException e) {
+            deleteQuietly(tmpFile);
+            throw new IOException("Could not replace " + file, e);
+        }
+    }
+}
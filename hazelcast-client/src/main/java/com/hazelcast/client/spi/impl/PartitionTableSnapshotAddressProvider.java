@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.client.connection.AddressProvider;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Loads the addresses of the members of the last known partition table snapshot of the client.
+ *
+ * @see com.hazelcast.client.spi.properties.ClientProperty#PARTITION_TABLE_SNAPSHOT_FILE
+ */
+public class PartitionTableSnapshotAddressProvider implements AddressProvider {
+
+    private final File snapshotFile;
+    private final ILogger logger;
+
+    public PartitionTableSnapshotAddressProvider(File snapshotFile, ILogger logger) {
+        this.snapshotFile = snapshotFile;
+        this.logger = logger;
+    }
+
+    @Override
+    public Collection<InetSocketAddress> loadAddresses() {
+        PartitionTableSnapshot snapshot;
+        try {
+            snapshot = PartitionTableSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            logger.warning("Could not read the partition table snapshot " + snapshotFile, e);
+            return Collections.emptyList();
+        }
+        if (snapshot == null) {
+            return Collections.emptyList();
+        }
+
+        List<InetSocketAddress> socketAddresses = new LinkedList<InetSocketAddress>();
+        for (Address address : snapshot.getMemberAddresses()) {
+            socketAddresses.add(new InetSocketAddress(address.getHost(), address.getPort()));
+        }
+        return socketAddresses;
+    }
+}
@@ -18,6 +18,7 @@ package com.hazelcast.client.spi.properties;
 
 import com.hazelcast.spi.properties.HazelcastProperty;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -60,6 +61,148 @@ public final class ClientProperty {
     public static final HazelcastProperty EVENT_QUEUE_CAPACITY
             = new HazelcastProperty("hazelcast.client.event.queue.capacity", 1000000);
 
+    /**
+     * Number of the threads to handle the incoming responses. The responses are striped over the threads by their
+     * correlation IDs.
+     * <p/>
+     * When it is set to 0, the responses are handled directly on the IO threads. This saves a thread handoff per
+     * response, but the IO threads are blocked while the responses are processed. So it should only be used when
+     * the callbacks of the invocations do not block.
+     */
+    public static final HazelcastProperty RESPONSE_THREAD_COUNT
+            = new HazelcastProperty("hazelcast.client.response.thread.count", 1);
+
+    /**
+     * The maximum time in microseconds a request may wait to be coalesced with other requests into a single write
+     * to the connection. Coalescing turns many small socket writes into a few large ones, which raises the throughput
+     * of clients sending many concurrent requests, at the cost of up to this delay per request.
+     * <p/>
+     * The default is 0, which disables the coalescing and writes each request as soon as it is sent.
+     */
+    public static final HazelcastProperty WRITE_COALESCING_DELAY_MICROS
+            = new HazelcastProperty("hazelcast.client.write.coalescing.delay.micros", 0, MICROSECONDS);
+
+    /**
+     * The number of pending requests of a connection at which the coalesced requests are written without waiting
+     * for the {@link #WRITE_COALESCING_DELAY_MICROS write coalescing delay}.
+     */
+    public static final HazelcastProperty WRITE_COALESCING_MAX_BATCH_SIZE
+            = new HazelcastProperty("hazelcast.client.write.coalescing.max.batch.size", 64);
+
+    /**
+     * The number of connections a smart client opens to each member. Partition requests are spread over the connections
+     * by partition id, so the requests of one partition keep using the same connection, and other requests are spread
+     * round-robin. The additional connections are opened in the background as soon as the first connection to the member
+     * is established, and the requests mapped to them are retried until they are ready, so the requests of a partition
+     * never switch connections while some of them are in flight. A lost additional connection is reopened the same way;
+     * one which fails to open is replaced by the first connection until the first connection itself is reopened.
+     * <p/>
+     * The default is 1, a single connection per member.
+     */
+    public static final HazelcastProperty CONNECTIONS_PER_MEMBER
+            = new HazelcastProperty("hazelcast.client.connections.per.member", 1);
+
+    /**
+     * Enables the client side fan-out of the {@link com.hazelcast.core.IMap#keySet(com.hazelcast.query.Predicate)},
+     * {@link com.hazelcast.core.IMap#values(com.hazelcast.query.Predicate)} and
+     * {@link com.hazelcast.core.IMap#entrySet(com.hazelcast.query.Predicate)} queries. The client then queries each
+     * partition with a separate request and merges the results itself, instead of sending a single request to a member
+     * which gathers the results of the whole cluster. No member has to hold the complete result of a query, but the
+     * {@code hazelcast.query.result.size.limit} of the members is applied to the result of each partition.
+     * <p/>
+     * Queries with a {@link com.hazelcast.query.PagingPredicate} are never fanned out. The fan-out requires members
+     * which support partition targeted queries, so it is disabled by default.
+     * <p/>
+     * The indexes of a member cover all its partitions. So a member evaluates an indexed predicate for each partition
+     * request, and keeps only the entries of the requested partition. This is cheap for selective predicates. For
+     * predicates matching a large part of an indexed map, it multiplies the index work by the number of partitions
+     * per member. Keep the fan-out disabled for such queries.
+     */
+    public static final HazelcastProperty QUERY_FAN_OUT_ENABLED
+            = new HazelcastProperty("hazelcast.client.query.fanout.enabled", false);
+
+    /**
+     * The maximum number of partitions a fanned-out query has requested but not yet consumed. It bounds the memory a
+     * query takes on the client and the number of concurrent query requests it puts on the members.
+     */
+    public static final HazelcastProperty QUERY_FAN_OUT_MAX_IN_FLIGHT
+            = new HazelcastProperty("hazelcast.client.query.fanout.max.in.flight", 16);
+
+    /**
+     * Enables the batching of the {@link com.hazelcast.core.IMap#getAll(java.util.Set)} and
+     * {@link com.hazelcast.core.IMap#putAll(java.util.Map)} requests per member. The keys of all partitions owned by
+     * a member are then sent to it in a single request, instead of a request per partition. The member reads or
+     * writes the partitions locally, and forwards the keys of the partitions which it no longer owns.
+     * <p/>
+     * The batched requests require members which accept multi-partition requests, so it is disabled by default.
+     */
+    public static final HazelcastProperty MAP_MEMBER_BATCHING_ENABLED
+            = new HazelcastProperty("hazelcast.client.map.member.batching.enabled", false);
+
+    /**
+     * The time window in microseconds in which concurrent {@link com.hazelcast.core.IMap#get(Object)} calls of a map
+     * are merged into a single {@link com.hazelcast.core.IMap#getAll(java.util.Set) getAll} request. A get waits up to
+     * this delay for other gets to join its batch, which adds up to this delay to its latency, but saves a request per
+     * merged get when many threads read from the same map.
+     * <p/>
+     * A merged get does not carry the thread id of its caller and does not wait for transactional locks: while a
+     * transaction holds the lock of a key, a plain get waits for the transaction to finish, but a merged get returns the
+     * last committed value at once, like {@link com.hazelcast.core.IMap#getAll(java.util.Set) getAll} does. Do not enable
+     * the merging for maps which are also updated in transactions and whose readers rely on this wait.
+     * <p/>
+     * The default is 0, which disables the merging of the gets.
+     */
+    public static final HazelcastProperty MAP_GET_BATCHING_DELAY_MICROS
+            = new HazelcastProperty("hazelcast.client.map.get.batching.delay.micros", 0, MICROSECONDS);
+
+    /**
+     * The number of merged gets at which a batch is sent without waiting for the
+     * {@link #MAP_GET_BATCHING_DELAY_MICROS get batching delay}.
+     */
+    public static final HazelcastProperty MAP_GET_BATCHING_MAX_BATCH_SIZE
+            = new HazelcastProperty("hazelcast.client.map.get.batching.max.batch.size", 128);
+
+    /**
+     * Enables the Near Cache of {@link com.hazelcast.core.MultiMap MultiMaps}. When enabled, a MultiMap gets a Near
+     * Cache if a {@link com.hazelcast.config.NearCacheConfig NearCacheConfig} matches its name, either exactly or by
+     * a wildcard. The {@code default} Near Cache config is not applied to MultiMaps.
+     * <p/>
+     * The Near Cache configs are shared with the maps, so the MultiMap Near Cache is disabled by default. Otherwise
+     * the configs of the maps would create a Near Cache for every MultiMap with a matching name.
+     */
+    public static final HazelcastProperty MULTIMAP_NEAR_CACHE_ENABLED
+            = new HazelcastProperty("hazelcast.client.multimap.near.cache.enabled", false);
+
+    /**
+     * Enables the warm-up of a client at its start. After connecting to the cluster, the client requests the partition
+     * table and opens the connections to all members at once, and waits until they are available, up to the
+     * {@link #CONNECTION_WARM_UP_TIMEOUT_MILLIS warm-up timeout}. So the first requests after the start don't wait
+     * for the partition table or a connection to be opened. Otherwise the client starts without waiting, and the
+     * connections are opened in the background.
+     * <p/>
+     * The warm-up opens connections only for smart clients.
+     */
+    public static final HazelcastProperty CONNECTION_WARM_UP_ENABLED
+            = new HazelcastProperty("hazelcast.client.connection.warmup.enabled", false);
+
+    /**
+     * The maximum time in milliseconds the {@link #CONNECTION_WARM_UP_ENABLED warm-up} delays the start of a client.
+     * The start completes after this time, even if some connections are not open yet.
+     */
+    public static final HazelcastProperty CONNECTION_WARM_UP_TIMEOUT_MILLIS
+            = new HazelcastProperty("hazelcast.client.connection.warmup.timeout.millis", 5000, MILLISECONDS);
+
+    /**
+     * The file in which the client keeps a snapshot of the last known member list and partition table of the
+     * cluster. The snapshot is updated when the partition table changes. At its start the client tries the members of
+     * the snapshot in addition to the configured addresses, and routes requests with the partition table of the
+     * snapshot until the current partition table arrives, if the partitions are still owned by the same members.
+     * <p/>
+     * By default no snapshot is kept.
+     */
+    public static final HazelcastProperty PARTITION_TABLE_SNAPSHOT_FILE
+            = new HazelcastProperty("hazelcast.client.partition.table.snapshot.file");
+
     /**
      * When an invocation gets an exception because :
      * - Member throws an exception.
@@ -19,7 +19,7 @@ package com.hazelcast.client;
 import com.hazelcast.client.config.ClientConfig;
 import com.hazelcast.client.impl.ClientTestUtil;
 import com.hazelcast.client.impl.HazelcastClientInstanceImpl;
-import com.hazelcast.client.spi.impl.ClientInvocation;
+import com.hazelcast.client.spi.impl.ClientInvocationRegistry;
 import com.hazelcast.client.spi.impl.ClientSmartInvocationServiceImpl;
 import com.hazelcast.client.test.bounce.ClientDriverFactory;
 import com.hazelcast.config.Config;
@@ -39,7 +39,6 @@ import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
 import java.lang.reflect.Field;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.client.spi.properties.ClientProperty.MAX_CONCURRENT_INVOCATIONS;
@@ -104,7 +103,7 @@ public class ClientBackpressureBouncingTest extends HazelcastTestSupport {
     private static class InvocationCheckingThread extends Thread {
         private final long deadLine;
         private final long warmUpDeadline;
-        private final ConcurrentMap<Long, ClientInvocation> callIdMap;
+        private final ClientInvocationRegistry callIdMap;
         private int maxInvocationCountObserved;
         private int maxInvocationCountObservedDuringWarmup;
 
@@ -140,12 +139,12 @@ public class ClientBackpressureBouncingTest extends HazelcastTestSupport {
                     + maxInvocationCountObserved, maxInvocationCountObserved <= maximumTolerableInvocationCount);
         }
 
-        private ConcurrentMap<Long, ClientInvocation> extraCallIdMap(HazelcastInstance client) throws NoSuchFieldException, IllegalAccessException {
+        private ClientInvocationRegistry extraCallIdMap(HazelcastInstance client) throws NoSuchFieldException, IllegalAccessException {
             HazelcastClientInstanceImpl clientImpl = ClientTestUtil.getHazelcastClientInstanceImpl(client);
             ClientSmartInvocationServiceImpl invocationService = (ClientSmartInvocationServiceImpl) clientImpl.getInvocationService();
             Field callIdMapField = ClientSmartInvocationServiceImpl.class.getSuperclass().getDeclaredField("callIdMap");
             callIdMapField.setAccessible(true);
-            return (ConcurrentMap<Long, ClientInvocation>) callIdMapField.get(invocationService);
+            return (ClientInvocationRegistry) callIdMapField.get(invocationService);
         }
     }
 
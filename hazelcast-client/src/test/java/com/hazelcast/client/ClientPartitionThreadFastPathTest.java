@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.internal.diagnostics.Diagnostics;
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.spi.properties.GroupProperty.CLIENT_ENGINE_PARTITION_THREAD_FAST_PATH_ENABLED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientPartitionThreadFastPathTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 100;
+
+    private TestHazelcastFactory factory = new TestHazelcastFactory();
+
+    @After
+    public void cleanup() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void testReads_doNotCreateInvocations() {
+        HazelcastInstance member = factory.newHazelcastInstance(newConfig(true));
+        IMap<Integer, Integer> map = factory.newHazelcastClient().getMap(randomMapName());
+        fill(map);
+
+        LongGauge lastCallId = lastCallIdGauge(member);
+        long callIdBefore = lastCallId.read();
+        assertReads(map);
+
+        assertTrue("Invocations: " + (lastCallId.read() - callIdBefore), lastCallId.read() - callIdBefore < ENTRY_COUNT);
+    }
+
+    @Test
+    public void testReads_createInvocations_whenDisabled() {
+        HazelcastInstance member = factory.newHazelcastInstance(newConfig(false));
+        IMap<Integer, Integer> map = factory.newHazelcastClient().getMap(randomMapName());
+        fill(map);
+
+        LongGauge lastCallId = lastCallIdGauge(member);
+        long callIdBefore = lastCallId.read();
+        assertReads(map);
+
+        assertTrue("Invocations: " + (lastCallId.read() - callIdBefore), lastCallId.read() - callIdBefore >= 2 * ENTRY_COUNT);
+    }
+
+    @Test
+    public void testReads_onPartitionsOwnedByOtherMember() {
+        HazelcastInstance member1 = factory.newHazelcastInstance(newConfig(true));
+        HazelcastInstance member2 = factory.newHazelcastInstance(newConfig(true));
+        assertClusterSizeEventually(2, member1, member2);
+        warmUpPartitions(member1, member2);
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.getNetworkConfig().setSmartRouting(false);
+        IMap<Integer, Integer> map = factory.newHazelcastClient(clientConfig).getMap(randomMapName());
+        fill(map);
+
+        assertReads(map);
+    }
+
+    private static Config newConfig(boolean fastPathEnabled) {
+        return new Config()
+                .setProperty(Diagnostics.METRICS_LEVEL.getName(), ProbeLevel.INFO.name())
+                .setProperty(CLIENT_ENGINE_PARTITION_THREAD_FAST_PATH_ENABLED.getName(), String.valueOf(fastPathEnabled));
+    }
+
+    private static LongGauge lastCallIdGauge(HazelcastInstance member) {
+        return getNodeEngineImpl(member).getMetricsRegistry().newLongGauge("operation.invocations.lastCallId");
+    }
+
+    private static void fill(IMap<Integer, Integer> map) {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+    }
+
+    private static void assertReads(IMap<Integer, Integer> map) {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+            assertTrue(map.containsKey(i));
+        }
+        assertNull(map.get(ENTRY_COUNT));
+        assertFalse(map.containsKey(ENTRY_COUNT));
+    }
+}
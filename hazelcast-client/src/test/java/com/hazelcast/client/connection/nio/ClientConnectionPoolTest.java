@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.connection.nio;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.instance.TestUtil;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static com.hazelcast.client.impl.ClientTestUtil.getHazelcastClientInstanceImpl;
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTIONS_PER_MEMBER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientConnectionPoolTest extends HazelcastTestSupport {
+
+    private static final int CONNECTION_COUNT = 3;
+    private static final int ENTRY_COUNT = 1000;
+
+    private TestHazelcastFactory factory = new TestHazelcastFactory();
+
+    @After
+    public void cleanup() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void testPooledConnections_areOpenedAndSelectedByStripe() throws Exception {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        HazelcastInstance client = newClient(CONNECTION_COUNT);
+        final ClientConnectionManagerImpl connectionManager = connectionManager(client);
+        final Address address = member.getCluster().getLocalMember().getAddress();
+
+        putAndGet(client.<Integer, Integer>getMap(randomMapName()));
+        assertPoolFilledEventually(connectionManager, address);
+
+        Connection primary = connectionManager.getConnection(address);
+        assertSame(primary, connectionManager.getOrTriggerPooledConnect(address, 0));
+        assertSame(primary, connectionManager.getOrTriggerPooledConnect(address, CONNECTION_COUNT));
+        Connection first = connectionManager.getOrTriggerPooledConnect(address, 1);
+        Connection second = connectionManager.getOrTriggerPooledConnect(address, 2);
+        assertNotSame(primary, first);
+        assertNotSame(primary, second);
+        assertNotSame(first, second);
+        assertSame(first, connectionManager.getOrTriggerPooledConnect(address, CONNECTION_COUNT + 1));
+
+        assertEquals(CONNECTION_COUNT, TestUtil.getNode(member).clientEngine.getClientEndpointCount());
+    }
+
+    @Test
+    public void testPooledConnections_areOpened_whenMemberConnectionIsOpened() {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        HazelcastInstance client = newClient(CONNECTION_COUNT);
+        final ClientConnectionManagerImpl connectionManager = connectionManager(client);
+        final Address address = member.getCluster().getLocalMember().getAddress();
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                MemberConnectionPool pool = connectionManager.getConnectionPool(address);
+                assertNotNull(pool);
+                assertEquals(CONNECTION_COUNT - 1, pool.getConnections().size());
+            }
+        });
+    }
+
+    @Test
+    public void testRequestsOfStripe_doNotUseMemberConnection_whilePooledConnectionIsOpened() throws Exception {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        ClientConnectionManagerImpl connectionManager = connectionManager(newClient(CONNECTION_COUNT));
+        Address address = member.getCluster().getLocalMember().getAddress();
+        Connection primary = connectionManager.getConnection(address);
+
+        Connection connection;
+        do {
+            // the stripe waits for its pooled connection, so its requests never switch from the member connection
+            connection = connectionManager.getOrTriggerPooledConnect(address, 1);
+            assertNotSame(primary, connection);
+        } while (connection == null);
+        assertSame(connection, connectionManager.getConnectionPool(address).get(0));
+    }
+
+    @Test
+    public void testClosedPooledConnection_isReplaced() throws Exception {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        HazelcastInstance client = newClient(CONNECTION_COUNT);
+        final ClientConnectionManagerImpl connectionManager = connectionManager(client);
+        final Address address = member.getCluster().getLocalMember().getAddress();
+        IMap<Integer, Integer> map = client.getMap(randomMapName());
+
+        putAndGet(map);
+        assertPoolFilledEventually(connectionManager, address);
+        ClientConnection pooled = connectionManager.getConnectionPool(address).get(0);
+        pooled.close("Closed by test", null);
+
+        putAndGet(map);
+        assertPoolFilledEventually(connectionManager, address);
+        assertNotSame(pooled, connectionManager.getConnectionPool(address).get(0));
+    }
+
+    @Test
+    public void testPooledConnections_areClosed_whenMemberConnectionIsClosed() {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        HazelcastInstance client = newClient(CONNECTION_COUNT);
+        final ClientConnectionManagerImpl connectionManager = connectionManager(client);
+        final Address address = member.getCluster().getLocalMember().getAddress();
+
+        putAndGet(client.<Integer, Integer>getMap(randomMapName()));
+        assertPoolFilledEventually(connectionManager, address);
+        List<ClientConnection> pooledConnections = connectionManager.getConnectionPool(address).getConnections();
+
+        connectionManager.getConnection(address).close("Closed by test", null);
+
+        assertNull(connectionManager.getConnectionPool(address));
+        for (ClientConnection connection : pooledConnections) {
+            assertFalse(connection.isAlive());
+        }
+    }
+
+    @Test
+    public void testSingleConnection_byDefault() throws Exception {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        HazelcastInstance client = factory.newHazelcastClient();
+        ClientConnectionManagerImpl connectionManager = connectionManager(client);
+        Address address = member.getCluster().getLocalMember().getAddress();
+
+        putAndGet(client.<Integer, Integer>getMap(randomMapName()));
+
+        assertSame(connectionManager.getConnection(address), connectionManager.getOrTriggerPooledConnect(address, 1));
+        assertNull(connectionManager.getConnectionPool(address));
+        assertEquals(1, TestUtil.getNode(member).clientEngine.getClientEndpointCount());
+    }
+
+    private HazelcastInstance newClient(int connectionCount) {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setProperty(CONNECTIONS_PER_MEMBER.getName(), String.valueOf(connectionCount));
+        return factory.newHazelcastClient(clientConfig);
+    }
+
+    private static ClientConnectionManagerImpl connectionManager(HazelcastInstance client) {
+        return (ClientConnectionManagerImpl) getHazelcastClientInstanceImpl(client).getConnectionManager();
+    }
+
+    private static void putAndGet(IMap<Integer, Integer> map) {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+
+    private static void assertPoolFilledEventually(final ClientConnectionManagerImpl connectionManager,
+                                                   final Address address) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                for (int stripe = 0; stripe < CONNECTION_COUNT; stripe++) {
+                    connectionManager.getOrTriggerPooledConnect(address, stripe);
+                }
+                MemberConnectionPool pool = connectionManager.getConnectionPool(address);
+                assertEquals(CONNECTION_COUNT - 1, pool.getConnections().size());
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.connection.nio;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.impl.HazelcastClientInstanceImpl;
+import com.hazelcast.client.impl.HazelcastClientProxy;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Pipelining;
+import com.hazelcast.internal.diagnostics.Diagnostics;
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static com.hazelcast.client.spi.properties.ClientProperty.WRITE_COALESCING_DELAY_MICROS;
+import static com.hazelcast.client.spi.properties.ClientProperty.WRITE_COALESCING_MAX_BATCH_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class ClientWriteCoalescingTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 2000;
+
+    @After
+    public void after() {
+        HazelcastClient.shutdownAll();
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testPipelinedRequests_areCoalesced() throws Exception {
+        Config config = new Config();
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true);
+        Hazelcast.newHazelcastInstance(config);
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setProperty(WRITE_COALESCING_DELAY_MICROS.getName(), "200");
+        clientConfig.setProperty(WRITE_COALESCING_MAX_BATCH_SIZE.getName(), "16");
+        clientConfig.setProperty(Diagnostics.METRICS_LEVEL.getName(), ProbeLevel.INFO.name());
+        HazelcastInstance client = HazelcastClient.newHazelcastClient(clientConfig);
+        IMap<Integer, byte[]> map = client.getMap(randomMapName());
+
+        Pipelining<byte[]> putPipelining = new Pipelining<byte[]>(100);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            putPipelining.add(map.putAsync(i, value(i)));
+        }
+        putPipelining.results();
+
+        Pipelining<byte[]> getPipelining = new Pipelining<byte[]>(100);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            getPipelining.add(map.getAsync(i));
+        }
+        List<byte[]> results = getPipelining.results();
+
+        assertEquals(ENTRY_COUNT, results.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertArrayEquals(value(i), results.get(i));
+        }
+
+        HazelcastClientInstanceImpl clientImpl = ((HazelcastClientProxy) client).client;
+        LongGauge batches = clientImpl.getMetricsRegistry().newLongGauge("tcp.writeCoalescer.batchesWritten");
+        LongGauge messages = clientImpl.getMetricsRegistry().newLongGauge("tcp.writeCoalescer.messagesWritten");
+        assertTrue("Messages: " + messages.read() + ", batches: " + batches.read(),
+                messages.read() >= 2 * ENTRY_COUNT && messages.read() > batches.read());
+    }
+
+    @Test
+    public void testAsyncRequests_onSameKey_areNotReordered() throws Exception {
+        Config config = new Config();
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true);
+        Hazelcast.newHazelcastInstance(config);
+
+        // a small batch size makes the writing thread and the flush thread drain the same connection concurrently
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setProperty(WRITE_COALESCING_DELAY_MICROS.getName(), "10");
+        clientConfig.setProperty(WRITE_COALESCING_MAX_BATCH_SIZE.getName(), "2");
+        HazelcastInstance client = HazelcastClient.newHazelcastClient(clientConfig);
+        IMap<Integer, Integer> map = client.getMap(randomMapName());
+
+        int keyCount = 200;
+        int updateCount = 10;
+        Pipelining<Integer> pipelining = new Pipelining<Integer>(1000);
+        for (int key = 0; key < keyCount; key++) {
+            for (int value = 0; value < updateCount; value++) {
+                pipelining.add(map.putAsync(key, value));
+            }
+        }
+        pipelining.results();
+
+        for (int key = 0; key < keyCount; key++) {
+            assertEquals(updateCount - 1, (int) map.get(key));
+        }
+    }
+
+    private static byte[] value(int i) {
+        // some values span multiple output buffers
+        byte[] value = new byte[i % 100 == 0 ? 256 * 1024 : 16];
+        value[0] = (byte) i;
+        return value;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.impl;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.spi.impl.ClientPartitionServiceImpl;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.client.impl.ClientTestUtil.getHazelcastClientInstanceImpl;
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTION_WARM_UP_ENABLED;
+import static com.hazelcast.client.spi.properties.ClientProperty.CONNECTION_WARM_UP_TIMEOUT_MILLIS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientConnectionWarmUpTest extends HazelcastTestSupport {
+
+    private TestHazelcastFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new TestHazelcastFactory();
+        factory.newHazelcastInstance();
+        factory.newHazelcastInstance();
+        factory.newHazelcastInstance();
+    }
+
+    @After
+    public void tearDown() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void testStart_withWarmUp_connectsToAllMembers() {
+        ClientConfig config = new ClientConfig().setProperty(CONNECTION_WARM_UP_ENABLED.getName(), "true");
+        HazelcastClientInstanceImpl client = getHazelcastClientInstanceImpl(factory.newHazelcastClient(config));
+
+        assertEquals(3, client.getConnectionManager().getActiveConnections().size());
+        assertTrue(((ClientPartitionServiceImpl) client.getClientPartitionService()).isPartitionTableAvailable());
+
+        ClientStartupMetrics metrics = client.getStartupMetrics();
+        assertEquals(3, metrics.getWarmedUpConnectionCount());
+        assertTrue(metrics.getClusterConnectedMillis() >= 0);
+        assertTrue(metrics.getPartitionTableAvailableMillis() >= 0);
+        assertTrue(metrics.getConnectionsWarmedUpMillis() >= metrics.getClusterConnectedMillis());
+        assertTrue(metrics.getStartedMillis() >= metrics.getConnectionsWarmedUpMillis());
+    }
+
+    @Test
+    public void testStart_withWarmUp_nonSmartClient() {
+        ClientConfig config = new ClientConfig()
+                .setProperty(CONNECTION_WARM_UP_ENABLED.getName(), "true")
+                .setProperty(CONNECTION_WARM_UP_TIMEOUT_MILLIS.getName(), "60000");
+        config.getNetworkConfig().setSmartRouting(false);
+        HazelcastClientInstanceImpl client = getHazelcastClientInstanceImpl(factory.newHazelcastClient(config));
+
+        ClientStartupMetrics metrics = client.getStartupMetrics();
+        assertEquals(1, metrics.getWarmedUpConnectionCount());
+        // the warm-up does not wait for connections to the other members
+        assertTrue(metrics.getConnectionsWarmedUpMillis() - metrics.getClusterConnectedMillis() < 60000);
+        assertTrue(((ClientPartitionServiceImpl) client.getClientPartitionService()).isPartitionTableAvailable());
+    }
+
+    @Test
+    public void testStart_withoutWarmUp_recordsStartupMetrics() {
+        HazelcastInstance client = factory.newHazelcastClient();
+        ClientStartupMetrics metrics = getHazelcastClientInstanceImpl(client).getStartupMetrics();
+
+        assertTrue(metrics.getClusterConnectedMillis() >= 0);
+        assertTrue(metrics.getStartedMillis() >= metrics.getClusterConnectedMillis());
+        assertEquals(-1, metrics.getConnectionsWarmedUpMillis());
+        assertEquals(0, metrics.getWarmedUpConnectionCount());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.client.spi.properties.ClientProperty.MAP_GET_BATCHING_DELAY_MICROS;
+import static com.hazelcast.client.spi.properties.ClientProperty.MAP_GET_BATCHING_MAX_BATCH_SIZE;
+import static com.hazelcast.client.spi.properties.ClientProperty.MAP_MEMBER_BATCHING_ENABLED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientMapBatchingTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 1000;
+
+    private TestHazelcastFactory factory;
+    private String mapName;
+    private IMap<Integer, Integer> map;
+
+    @Before
+    public void setUp() {
+        factory = new TestHazelcastFactory();
+        factory.newHazelcastInstance();
+        factory.newHazelcastInstance();
+
+        mapName = randomMapName();
+        map = factory.newHazelcastClient().getMap(mapName);
+    }
+
+    @After
+    public void tearDown() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void testPutAllAndGetAll_withMemberBatching() {
+        IMap<Integer, Integer> batchingMap = newClient(memberBatchingConfig()).getMap(mapName);
+
+        batchingMap.putAll(entries(ENTRY_COUNT));
+
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+        assertEquals(entries(ENTRY_COUNT), batchingMap.getAll(keys(ENTRY_COUNT + 10)));
+    }
+
+    @Test
+    public void testGetAll_withMemberBatchingAndNearCache() {
+        ClientConfig config = memberBatchingConfig().addNearCacheConfig(new NearCacheConfig(mapName));
+        IMap<Integer, Integer> batchingMap = newClient(config).getMap(mapName);
+        map.putAll(entries(ENTRY_COUNT));
+
+        assertEquals(entries(ENTRY_COUNT), batchingMap.getAll(keys(ENTRY_COUNT)));
+        // the second call is partially served from the near cache
+        assertEquals(entries(ENTRY_COUNT), batchingMap.getAll(keys(ENTRY_COUNT)));
+    }
+
+    @Test
+    public void testGetAll_withMemberBatching_whenMemberLeaves() throws Exception {
+        HazelcastInstance leavingMember = factory.newHazelcastInstance();
+        ClientConfig config = memberBatchingConfig();
+        // requests in flight on the leaving member are retried like the requests sent per partition
+        config.getNetworkConfig().setRedoOperation(true);
+        final IMap<Integer, Integer> batchingMap = newClient(config).getMap(mapName);
+        map.putAll(entries(ENTRY_COUNT));
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        Future future = spawn(new Callable<Object>() {
+            @Override
+            public Object call() {
+                while (!stopped.get()) {
+                    // the requests sent to the leaving member are retried per partition on the new owners
+                    assertEquals(entries(ENTRY_COUNT), batchingMap.getAll(keys(ENTRY_COUNT)));
+                }
+                return null;
+            }
+        });
+        sleepMillis(100);
+
+        leavingMember.getLifecycleService().terminate();
+        sleepMillis(500);
+        stopped.set(true);
+
+        future.get();
+    }
+
+    @Test
+    public void testGet_withGetBatching() throws Exception {
+        ClientConfig config = new ClientConfig()
+                .setProperty(MAP_GET_BATCHING_DELAY_MICROS.getName(), "1000")
+                .setProperty(MAP_GET_BATCHING_MAX_BATCH_SIZE.getName(), "8");
+        final IMap<Integer, Integer> batchingMap = newClient(config).getMap(mapName);
+        map.putAll(entries(ENTRY_COUNT));
+
+        Future[] futures = new Future[10];
+        for (int t = 0; t < futures.length; t++) {
+            final int thread = t;
+            futures[t] = spawn(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    for (int i = thread; i < ENTRY_COUNT; i += 2) {
+                        assertEquals(i, (int) batchingMap.get(i));
+                    }
+                    return null;
+                }
+            });
+        }
+        for (Future future : futures) {
+            future.get();
+        }
+    }
+
+    @Test
+    public void testGet_withGetBatching_missingKey() {
+        ClientConfig config = new ClientConfig()
+                .setProperty(MAP_GET_BATCHING_DELAY_MICROS.getName(), "100")
+                .setProperty(MAP_MEMBER_BATCHING_ENABLED.getName(), "true");
+        IMap<Integer, Integer> batchingMap = newClient(config).getMap(mapName);
+        map.put(1, 1);
+
+        assertNull(batchingMap.get(2));
+        assertEquals(1, (int) batchingMap.get(1));
+    }
+
+    private HazelcastInstance newClient(ClientConfig config) {
+        return factory.newHazelcastClient(config);
+    }
+
+    private static ClientConfig memberBatchingConfig() {
+        return new ClientConfig().setProperty(MAP_MEMBER_BATCHING_ENABLED.getName(), "true");
+    }
+
+    private static Map<Integer, Integer> entries(int count) {
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        for (int i = 0; i < count; i++) {
+            entries.put(i, i);
+        }
+        return entries;
+    }
+
+    private static Set<Integer> keys(int count) {
+        Set<Integer> keys = new HashSet<Integer>();
+        for (int i = 0; i < count; i++) {
+            keys.add(i);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.proxy.ClientMapProxy;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.query.TruePredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.client.spi.properties.ClientProperty.QUERY_FAN_OUT_ENABLED;
+import static com.hazelcast.client.spi.properties.ClientProperty.QUERY_FAN_OUT_MAX_IN_FLIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientMapQueryFanOutTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 1000;
+
+    private TestHazelcastFactory factory;
+    private IMap<Integer, Integer> map;
+    private IMap<Integer, Integer> fanOutMap;
+
+    @Before
+    public void setUp() {
+        factory = new TestHazelcastFactory();
+        factory.newHazelcastInstance();
+        factory.newHazelcastInstance();
+
+        String mapName = randomMapName();
+        map = factory.newHazelcastClient().getMap(mapName);
+        ClientConfig clientConfig = new ClientConfig()
+                .setProperty(QUERY_FAN_OUT_ENABLED.getName(), "true")
+                .setProperty(QUERY_FAN_OUT_MAX_IN_FLIGHT.getName(), "3");
+        HazelcastInstance fanOutClient = factory.newHazelcastClient(clientConfig);
+        fanOutMap = fanOutClient.getMap(mapName);
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void testEntrySet() {
+        Predicate predicate = new SqlPredicate("this >= 100");
+
+        Set<Map.Entry<Integer, Integer>> entries = fanOutMap.entrySet(predicate);
+
+        assertEquals(ENTRY_COUNT - 100, entries.size());
+        assertEquals(map.entrySet(predicate), entries);
+    }
+
+    @Test
+    public void testEntrySet_withIndex() {
+        map.addIndex("this", true);
+        Predicate predicate = new SqlPredicate("this >= 990");
+
+        Set<Map.Entry<Integer, Integer>> entries = fanOutMap.entrySet(predicate);
+
+        assertEquals(10, entries.size());
+        assertEquals(map.entrySet(predicate), entries);
+    }
+
+    @Test
+    public void testKeySet() {
+        Predicate predicate = new SqlPredicate("this < 10");
+
+        assertEquals(map.keySet(predicate), fanOutMap.keySet(predicate));
+        assertEquals(10, fanOutMap.keySet(predicate).size());
+    }
+
+    @Test
+    public void testValues() {
+        Predicate predicate = TruePredicate.INSTANCE;
+
+        Set<Integer> values = new HashSet<Integer>(fanOutMap.values(predicate));
+
+        assertEquals(ENTRY_COUNT, values.size());
+        assertEquals(new HashSet<Integer>(map.values(predicate)), values);
+    }
+
+    @Test
+    public void testEmptyResult() {
+        Predicate predicate = new SqlPredicate("this < 0");
+
+        assertTrue(fanOutMap.entrySet(predicate).isEmpty());
+        assertFalse(((ClientMapProxy<Integer, Integer>) fanOutMap).iterator(predicate).hasNext());
+    }
+
+    @Test
+    public void testIterator_streamsAllMatchingEntries() {
+        Predicate<Integer, Integer> predicate = Predicates.greaterEqual("this", 500);
+        Set<Integer> keys = new HashSet<Integer>();
+
+        Iterator<Map.Entry<Integer, Integer>> iterator = ((ClientMapProxy<Integer, Integer>) map).iterator(predicate);
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Integer> entry = iterator.next();
+            assertEquals(entry.getKey(), entry.getValue());
+            assertTrue("Duplicate key " + entry.getKey(), keys.add(entry.getKey()));
+        }
+
+        assertEquals(ENTRY_COUNT - 500, keys.size());
+    }
+
+    @Test
+    public void testPagingPredicate_isNotFannedOut() {
+        PagingPredicate predicate = new PagingPredicate(TruePredicate.INSTANCE, 10);
+
+        Set<Integer> keys = fanOutMap.keySet(predicate);
+
+        assertEquals(10, keys.size());
+        assertEquals(map.keySet(new PagingPredicate(TruePredicate.INSTANCE, 10)), keys);
+    }
+}
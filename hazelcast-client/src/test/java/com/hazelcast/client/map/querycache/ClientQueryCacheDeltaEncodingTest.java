@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map.querycache;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.QueryCacheConfig;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.QueryCache;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static com.hazelcast.spi.properties.GroupProperty.QUERY_CACHE_DELTA_ENCODING_ENABLED;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientQueryCacheDeltaEncodingTest extends HazelcastTestSupport {
+
+    private static final int KEY_COUNT = 100;
+    private static final int VALUE_LENGTH = 1000;
+
+    private TestHazelcastFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new TestHazelcastFactory();
+        Config config = new Config().setProperty(QUERY_CACHE_DELTA_ENCODING_ENABLED.getName(), "true");
+        factory.newHazelcastInstance(config);
+        factory.newHazelcastInstance(config);
+    }
+
+    @After
+    public void tearDown() {
+        factory.shutdownAll();
+    }
+
+    @Test
+    public void testUpdatesAreApplied() {
+        testUpdatesAreApplied(false);
+    }
+
+    @Test
+    public void testUpdatesAreApplied_withCoalescing() {
+        testUpdatesAreApplied(true);
+    }
+
+    private void testUpdatesAreApplied(boolean coalesce) {
+        String mapName = randomMapName();
+        String cacheName = randomString();
+        QueryCacheConfig cacheConfig = new QueryCacheConfig(cacheName)
+                .setCoalesce(coalesce)
+                .setIncludeValue(true);
+        cacheConfig.getPredicateConfig().setSql("__key >= 0");
+        ClientConfig clientConfig = new ClientConfig().addQueryCacheConfig(mapName, cacheConfig);
+
+        final IMap<Integer, String> map = factory.newHazelcastClient(clientConfig).getMap(mapName);
+        final QueryCache<Integer, String> cache = map.getQueryCache(cacheName);
+
+        for (int key = 0; key < KEY_COUNT; key++) {
+            map.put(key, wideValue(key));
+        }
+        for (int update = 1; update <= 10; update++) {
+            for (int key = 0; key < KEY_COUNT; key++) {
+                map.put(key, wideValue(key + update));
+            }
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(KEY_COUNT, cache.size());
+                for (int key = 0; key < KEY_COUNT; key++) {
+                    assertEquals(wideValue(key + 10), cache.get(key));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a wide value which differs from the other values only in a few bytes.
+     */
+    private static String wideValue(int variant) {
+        char[] chars = new char[VALUE_LENGTH];
+        Arrays.fill(chars, 'x');
+        String variantString = String.valueOf(variant);
+        variantString.getChars(0, variantString.length(), chars, VALUE_LENGTH / 2);
+        return new String(chars);
+    }
+}
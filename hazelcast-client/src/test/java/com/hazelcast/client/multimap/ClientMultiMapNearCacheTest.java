@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.multimap;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.proxy.NearCachedClientMultiMapProxy;
+import com.hazelcast.client.spi.ClientPartitionService;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MultiMap;
+import com.hazelcast.monitor.NearCacheStats;
+import com.hazelcast.nio.Address;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static com.hazelcast.client.impl.ClientTestUtil.getHazelcastClientInstanceImpl;
+import static com.hazelcast.client.spi.properties.ClientProperty.MULTIMAP_NEAR_CACHE_ENABLED;
+import static com.hazelcast.test.HazelcastTestSupport.assertInstanceOf;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomMapName;
+import static com.hazelcast.test.HazelcastTestSupport.waitAllForSafeState;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientMultiMapNearCacheTest {
+
+    private static final int KEY_COUNT = 100;
+
+    private final TestHazelcastFactory hazelcastFactory = new TestHazelcastFactory();
+
+    private String mapName;
+    private HazelcastInstance member;
+    private HazelcastInstance client;
+
+    @Before
+    public void setup() {
+        mapName = randomMapName();
+        member = hazelcastFactory.newHazelcastInstance();
+
+        ClientConfig clientConfig = new ClientConfig()
+                .setProperty(MULTIMAP_NEAR_CACHE_ENABLED.getName(), "true")
+                .addNearCacheConfig(new NearCacheConfig(mapName).setInMemoryFormat(InMemoryFormat.BINARY));
+        client = hazelcastFactory.newHazelcastClient(clientConfig);
+    }
+
+    @After
+    public void tearDown() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void testProxy_isNearCached() {
+        assertInstanceOf(NearCachedClientMultiMapProxy.class, client.getMultiMap(mapName));
+        assertInstanceOf(NearCachedClientMultiMapProxy.class, client.getMultiMap(mapName));
+    }
+
+    @Test
+    public void testProxy_isNearCached_withWildcardConfig() {
+        ClientConfig clientConfig = new ClientConfig()
+                .setProperty(MULTIMAP_NEAR_CACHE_ENABLED.getName(), "true")
+                .addNearCacheConfig(new NearCacheConfig("cached*"));
+        HazelcastInstance client = hazelcastFactory.newHazelcastClient(clientConfig);
+
+        assertInstanceOf(NearCachedClientMultiMapProxy.class, client.getMultiMap("cachedMultiMap"));
+    }
+
+    @Test
+    public void testProxy_isNotNearCached_whenNotEnabled() {
+        ClientConfig clientConfig = new ClientConfig()
+                .addNearCacheConfig(new NearCacheConfig(mapName));
+        HazelcastInstance client = hazelcastFactory.newHazelcastClient(clientConfig);
+
+        assertFalse(client.getMultiMap(mapName) instanceof NearCachedClientMultiMapProxy);
+    }
+
+    @Test
+    public void testProxy_isNotNearCached_withDefaultConfig() {
+        ClientConfig clientConfig = new ClientConfig()
+                .setProperty(MULTIMAP_NEAR_CACHE_ENABLED.getName(), "true")
+                .addNearCacheConfig(new NearCacheConfig("default"));
+        HazelcastInstance client = hazelcastFactory.newHazelcastClient(clientConfig);
+
+        assertFalse(client.getMultiMap(randomMapName()) instanceof NearCachedClientMultiMapProxy);
+    }
+
+    @Test
+    public void testGet_isServedFromNearCache() {
+        MultiMap<String, Integer> multiMap = client.getMultiMap(mapName);
+        multiMap.put("key", 1);
+        multiMap.put("key", 2);
+
+        for (int i = 0; i < 10; i++) {
+            Collection<Integer> values = multiMap.get("key");
+            assertEquals(2, values.size());
+            assertTrue(values.contains(1));
+            assertTrue(values.contains(2));
+        }
+        assertEquals(2, multiMap.valueCount("key"));
+        assertTrue(multiMap.containsKey("key"));
+
+        // the invalidations of the puts are delivered asynchronously, so they may cause additional misses
+        NearCacheStats stats = getNearCacheStats(multiMap);
+        assertEquals(1, stats.getOwnedEntryCount());
+        assertTrue(stats.getHits() > 0);
+        assertEquals(12, stats.getHits() + stats.getMisses());
+    }
+
+    @Test
+    public void testLocalPut_invalidatesNearCache() {
+        MultiMap<String, Integer> multiMap = client.getMultiMap(mapName);
+        multiMap.put("key", 1);
+        multiMap.get("key");
+
+        multiMap.put("key", 2);
+
+        assertEquals(2, multiMap.get("key").size());
+    }
+
+    @Test
+    public void testLocalRemove_invalidatesNearCache() {
+        MultiMap<String, Integer> multiMap = client.getMultiMap(mapName);
+        multiMap.put("key", 1);
+        multiMap.put("key", 2);
+        multiMap.get("key");
+
+        multiMap.remove("key", 1);
+        assertEquals(1, multiMap.get("key").size());
+
+        multiMap.remove("key");
+        assertEquals(0, multiMap.get("key").size());
+    }
+
+    @Test
+    public void testRemotePut_invalidatesNearCache() {
+        final MultiMap<String, Integer> multiMap = client.getMultiMap(mapName);
+        multiMap.put("key", 1);
+        multiMap.get("key");
+
+        member.getMultiMap(mapName).put("key", 2);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(2, multiMap.get("key").size());
+            }
+        });
+    }
+
+    @Test
+    public void testRemoteClear_invalidatesNearCache() {
+        final MultiMap<String, Integer> multiMap = client.getMultiMap(mapName);
+        multiMap.put("key", 1);
+        multiMap.get("key");
+
+        member.getMultiMap(mapName).clear();
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(0, multiMap.get("key").size());
+            }
+        });
+    }
+
+    @Test
+    public void testNearCache_isSeparatedFromMapNearCache_withSameName() {
+        IMap<Integer, String> map = client.getMap(mapName);
+        MultiMap<Integer, String> multiMap = client.getMultiMap(mapName);
+        map.put(1, "map-value");
+        multiMap.put(1, "multimap-value");
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("map-value", map.get(1));
+            assertEquals(singletonList("multimap-value"), new ArrayList<String>(multiMap.get(1)));
+        }
+        long mapHits = map.getLocalMapStats().getNearCacheStats().getHits();
+
+        multiMap.destroy();
+
+        assertEquals("map-value", map.get(1));
+        assertEquals(mapHits + 1, map.getLocalMapStats().getNearCacheStats().getHits());
+    }
+
+    @Test
+    public void testValuesCachedBeforeOwnerChange_areNotServedFromNearCache() {
+        HazelcastInstance otherMember = hazelcastFactory.newHazelcastInstance();
+        waitAllForSafeState(member, otherMember);
+        final Address otherMemberAddress = otherMember.getCluster().getLocalMember().getAddress();
+        final ClientPartitionService partitionService = getHazelcastClientInstanceImpl(client).getClientPartitionService();
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertTrue(countKeysOwnedBy(partitionService, otherMemberAddress) > 0);
+            }
+        });
+        int movedKeys = countKeysOwnedBy(partitionService, otherMemberAddress);
+
+        final MultiMap<Integer, Integer> multiMap = client.getMultiMap(mapName);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            multiMap.put(i, i);
+        }
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                for (int i = 0; i < KEY_COUNT; i++) {
+                    multiMap.get(i);
+                }
+                assertEquals(KEY_COUNT, getNearCacheStats(multiMap).getOwnedEntryCount());
+            }
+        });
+
+        // the events of the other member's partitions can be lost when it leaves
+        otherMember.getLifecycleService().terminate();
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(0, countKeysOwnedBy(partitionService, otherMemberAddress));
+            }
+        });
+
+        long hitsBefore = getNearCacheStats(multiMap).getHits();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            assertEquals(singletonList(i), new ArrayList<Integer>(multiMap.get(i)));
+        }
+
+        assertEquals(KEY_COUNT - movedKeys, getNearCacheStats(multiMap).getHits() - hitsBefore);
+    }
+
+    private int countKeysOwnedBy(ClientPartitionService partitionService, Address address) {
+        int count = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            int partitionId = partitionService.getPartitionId(i);
+            if (address.equals(partitionService.getPartitionOwner(partitionId))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static NearCacheStats getNearCacheStats(MultiMap multiMap) {
+        return ((NearCachedClientMultiMapProxy) multiMap).getNearCacheStats();
+    }
+}
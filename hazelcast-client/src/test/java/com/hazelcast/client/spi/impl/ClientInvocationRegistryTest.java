@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientInvocationRegistryTest {
+
+    private final ClientInvocationRegistry registry = new ClientInvocationRegistry(4);
+
+    @Test
+    public void testPutAndRemove() {
+        ClientInvocation invocation = mock(ClientInvocation.class);
+        registry.put(1, invocation);
+
+        assertEquals(1, registry.size());
+        assertSame(invocation, registry.remove(1));
+        assertNull(registry.remove(1));
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void testRemove_whenInvocationIsNotRegisteredWithCorrelationId() {
+        ClientInvocation invocation = mock(ClientInvocation.class);
+        registry.put(1, invocation);
+
+        assertFalse(registry.remove(1, mock(ClientInvocation.class)));
+        assertFalse(registry.remove(2, invocation));
+        assertTrue(registry.remove(1, invocation));
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void testSnapshot_containsInvocationsOfAllStripes() {
+        ClientInvocation[] invocations = new ClientInvocation[100];
+        for (int i = 0; i < invocations.length; i++) {
+            invocations[i] = mock(ClientInvocation.class);
+            registry.put(i, invocations[i]);
+        }
+
+        Map<Long, ClientInvocation> snapshot = registry.snapshot();
+        registry.remove(0);
+
+        assertEquals(invocations.length, snapshot.size());
+        for (int i = 0; i < invocations.length; i++) {
+            assertSame(invocations[i], snapshot.get((long) i));
+        }
+        assertEquals(invocations.length - 1, registry.size());
+    }
+
+    @Test
+    public void testRemoveAll() {
+        for (int i = 0; i < 100; i++) {
+            registry.put(i, mock(ClientInvocation.class));
+        }
+
+        List<ClientInvocation> removed = registry.removeAll();
+
+        assertEquals(100, removed.size());
+        assertTrue(registry.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.client.spi.properties.ClientProperty.RESPONSE_THREAD_COUNT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientResponseThreadCountTest extends HazelcastTestSupport {
+
+    private static final int OPERATION_COUNT = 1000;
+
+    private final TestHazelcastFactory hazelcastFactory = new TestHazelcastFactory();
+
+    @After
+    public void cleanup() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void testResponses_withMultipleResponseThreads() throws Exception {
+        testResponses(4);
+    }
+
+    @Test
+    public void testResponses_onIOThreads() throws Exception {
+        testResponses(0);
+    }
+
+    private void testResponses(int responseThreadCount) throws Exception {
+        hazelcastFactory.newHazelcastInstance();
+        hazelcastFactory.newHazelcastInstance();
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setProperty(RESPONSE_THREAD_COUNT.getName(), String.valueOf(responseThreadCount));
+        HazelcastInstance client = hazelcastFactory.newHazelcastClient(clientConfig);
+        IMap<Integer, Integer> map = client.getMap(randomMapName());
+
+        List<Future<Integer>> putFutures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            putFutures.add(map.putAsync(i, i));
+        }
+        for (Future<Integer> future : putFutures) {
+            assertNull(future.get());
+        }
+
+        final CountDownLatch latch = new CountDownLatch(OPERATION_COUNT);
+        final int[] values = new int[OPERATION_COUNT];
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            final int key = i;
+            ICompletableFuture<Integer> future = map.getAsync(key);
+            future.andThen(new ExecutionCallback<Integer>() {
+                @Override
+                public void onResponse(Integer response) {
+                    values[key] = response;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                }
+            });
+        }
+        assertOpenEventually(latch);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            assertEquals(i, values[i]);
+        }
+        assertEquals(OPERATION_COUNT, map.size());
+    }
+}
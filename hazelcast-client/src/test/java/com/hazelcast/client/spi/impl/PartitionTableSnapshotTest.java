@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.spi.impl;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.Partition;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.nio.Address;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.version.MemberVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hazelcast.client.impl.ClientTestUtil.getHazelcastClientInstanceImpl;
+import static com.hazelcast.client.spi.properties.ClientProperty.PARTITION_TABLE_SNAPSHOT_FILE;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionTableSnapshotTest extends HazelcastTestSupport {
+
+    private File file;
+    private Member member1;
+    private Member member2;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("partition-table", ".snapshot");
+        deleteQuietly(file);
+        member1 = new MemberImpl(new Address("127.0.0.1", 5701), MemberVersion.UNKNOWN, false, "uuid-1");
+        member2 = new MemberImpl(new Address("127.0.0.1", 5702), MemberVersion.UNKNOWN, false, "uuid-2");
+    }
+
+    @After
+    public void tearDown() {
+        deleteQuietly(file);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<Member> members = Arrays.asList(member1, member2);
+        Address[] owners = {member1.getAddress(), member2.getAddress(), member2.getAddress()};
+
+        PartitionTableSnapshot.create(members, owners).write(file);
+        PartitionTableSnapshot snapshot = PartitionTableSnapshot.read(file);
+
+        assertEquals(Arrays.asList(member1.getAddress(), member2.getAddress()), snapshot.getMemberAddresses());
+        assertArrayEquals(owners, snapshot.getPartitionOwners(members));
+    }
+
+    @Test
+    public void testGetPartitionOwners_whenOwnerRestarted() throws IOException {
+        Address[] owners = {member1.getAddress(), member2.getAddress()};
+        PartitionTableSnapshot snapshot = PartitionTableSnapshot.create(Arrays.asList(member1, member2), owners);
+
+        Member restartedMember2 = new MemberImpl(member2.getAddress(), MemberVersion.UNKNOWN, false, "uuid-3");
+
+        assertNull(snapshot.getPartitionOwners(Arrays.asList(member1, restartedMember2)));
+        assertNull(snapshot.getPartitionOwners(Collections.singletonList(member1)));
+    }
+
+    @Test
+    public void testCreate_whenOwnerIsNotMember() {
+        Address[] owners = {member1.getAddress(), member2.getAddress()};
+
+        assertNull(PartitionTableSnapshot.create(Collections.singletonList(member1), owners));
+    }
+
+    @Test
+    public void testRead_whenFileDoesNotExist() throws IOException {
+        assertNull(PartitionTableSnapshot.read(file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_whenFileIsInvalid() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[]{0, 0, 0, 42});
+        } finally {
+            closeResource(out);
+        }
+
+        PartitionTableSnapshot.read(file);
+    }
+
+    @Test
+    public void testClient_savesAndLoadsSnapshot() {
+        TestHazelcastFactory factory = new TestHazelcastFactory();
+        try {
+            HazelcastInstance member = factory.newHazelcastInstance();
+            factory.newHazelcastInstance();
+            warmUpPartitions(member);
+
+            ClientConfig config = new ClientConfig().setProperty(PARTITION_TABLE_SNAPSHOT_FILE.getName(), file.getPath());
+            HazelcastInstance client = factory.newHazelcastClient(config);
+            client.getPartitionService().getPartition(0).getOwner();
+            assertTrueEventually(new AssertTask() {
+                @Override
+                public void run() {
+                    assertTrue(file.exists());
+                }
+            });
+
+            HazelcastInstance secondClient = factory.newHazelcastClient(config);
+            ClientPartitionServiceImpl partitionService = (ClientPartitionServiceImpl)
+                    getHazelcastClientInstanceImpl(secondClient).getClientPartitionService();
+
+            assertTrue(partitionService.isPartitionTableAvailable());
+            for (Partition partition : member.getPartitionService().getPartitions()) {
+                int partitionId = partition.getPartitionId();
+                assertEquals(partition.getOwner().getAddress(), partitionService.getPartitionOwner(partitionId));
+            }
+        } finally {
+            factory.terminateAll();
+        }
+    }
+}
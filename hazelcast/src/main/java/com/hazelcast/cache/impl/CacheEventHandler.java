@@ -49,10 +49,12 @@ public class CacheEventHandler {
         HazelcastProperties hazelcastProperties = nodeEngine.getProperties();
         int batchSize = hazelcastProperties.getInteger(CACHE_INVALIDATION_MESSAGE_BATCH_SIZE);
         int batchFrequencySeconds = hazelcastProperties.getInteger(CACHE_INVALIDATION_MESSAGE_BATCH_FREQUENCY_SECONDS);
+        int rangeInvalidationThreshold = hazelcastProperties.getInteger(CACHE_INVALIDATION_RANGE_THRESHOLD);
         boolean batchingEnabled = hazelcastProperties.getBoolean(CACHE_INVALIDATION_MESSAGE_BATCH_ENABLED) && batchSize > 1;
 
         if (batchingEnabled) {
-            return new BatchInvalidator(SERVICE_NAME, batchSize, batchFrequencySeconds, TRUE_FILTER, nodeEngine);
+            return new BatchInvalidator(SERVICE_NAME, batchSize, batchFrequencySeconds, rangeInvalidationThreshold,
+                    TRUE_FILTER, nodeEngine);
         } else {
             return new NonStopInvalidator(SERVICE_NAME, TRUE_FILTER, nodeEngine);
         }
@@ -17,13 +17,17 @@
 package com.hazelcast.cache.impl;
 
 import com.hazelcast.cache.impl.event.CacheWanEventPublisher;
+import com.hazelcast.cache.impl.operation.CacheReplicationChunkIterator;
 import com.hazelcast.cache.impl.operation.CacheReplicationOperation;
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataGenerator;
+import com.hazelcast.spi.ChunkedMigrationAwareService;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
 
+import java.util.Iterator;
+
 import static com.hazelcast.spi.partition.MigrationEndpoint.DESTINATION;
 import static com.hazelcast.spi.partition.MigrationEndpoint.SOURCE;
 
@@ -52,7 +56,7 @@ import static com.hazelcast.spi.partition.MigrationEndpoint.SOURCE;
  * using {@link AbstractHazelcastCacheManager#cacheNamePrefix()}.
  * </p>
  */
-public class CacheService extends AbstractCacheService {
+public class CacheService extends AbstractCacheService implements ChunkedMigrationAwareService {
 
     @Override
     protected CachePartitionSegment newPartitionSegment(int partitionId) {
@@ -78,6 +82,12 @@ public class CacheService extends AbstractCacheService {
         return op.isEmpty() ? null : op;
     }
 
+    @Override
+    public Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize) {
+        CachePartitionSegment segment = segments[event.getPartitionId()];
+        return new CacheReplicationChunkIterator(segment, event.getReplicaIndex(), maxChunkSize);
+    }
+
     @Override
     public void commitMigration(PartitionMigrationEvent event) {
         super.commitMigration(event);
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.cache.impl.operation;
+
+import com.hazelcast.cache.impl.CachePartitionSegment;
+import com.hazelcast.cache.impl.ICacheRecordStore;
+import com.hazelcast.cache.impl.record.CacheRecord;
+import com.hazelcast.config.CacheConfig;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.util.Clock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Replicates the cache record stores of a partition as a sequence of {@link CacheReplicationOperation} chunks.
+ * <p>
+ * The first chunk carries the cache configurations and the Near Cache state, and clears all replicated record
+ * stores on the destination. The records are distributed over the chunks by their estimated serialized size.
+ *
+ * @see com.hazelcast.spi.ChunkedMigrationAwareService
+ */
+public class CacheReplicationChunkIterator implements Iterator<Operation> {
+
+    /**
+     * Estimated serialized size of a replicated record without its value.
+     */
+    private static final int RECORD_SIZE = 64;
+
+    private final CachePartitionSegment segment;
+    private final int maxChunkSize;
+    private final List<ICacheRecordStore> recordStores = new ArrayList<ICacheRecordStore>();
+    private final Iterator<ICacheRecordStore> recordStoreIterator;
+
+    private boolean firstChunk;
+    private ICacheRecordStore recordStore;
+    private Iterator<Map.Entry<Data, CacheRecord>> recordIterator;
+    // prefetched next record of the current record store
+    private Map.Entry<Data, CacheRecord> nextEntry;
+
+    public CacheReplicationChunkIterator(CachePartitionSegment segment, int replicaIndex, int maxChunkSize) {
+        this.segment = segment;
+        this.maxChunkSize = maxChunkSize;
+        Iterator<ICacheRecordStore> iter = segment.recordStoreIterator();
+        while (iter.hasNext()) {
+            ICacheRecordStore store = iter.next();
+            CacheConfig cacheConfig = store.getConfig();
+            if (cacheConfig.getAsyncBackupCount() + cacheConfig.getBackupCount() >= replicaIndex) {
+                recordStores.add(store);
+            }
+        }
+        this.recordStoreIterator = recordStores.iterator();
+        this.firstChunk = !recordStores.isEmpty() || !segment.getCacheConfigs().isEmpty();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return firstChunk || hasNextRecord();
+    }
+
+    @Override
+    public Operation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        CacheReplicationOperation operation = new CacheReplicationOperation();
+        operation.setPartitionId(segment.getPartitionId());
+        Map<String, Map<Data, CacheRecord>> data = operation.data;
+        if (firstChunk) {
+            for (ICacheRecordStore store : recordStores) {
+                data.put(store.getName(), new HashMap<Data, CacheRecord>());
+            }
+            operation.configs.addAll(segment.getCacheConfigs());
+            operation.nearCacheStateHolder.prepare(segment);
+            firstChunk = false;
+        } else {
+            operation.continuation = true;
+        }
+
+        long now = Clock.currentTimeMillis();
+        int chunkSize = 0;
+        while (chunkSize < maxChunkSize && hasNextRecord()) {
+            Map.Entry<Data, CacheRecord> entry = nextEntry;
+            nextEntry = null;
+            Data key = entry.getKey();
+            CacheRecord record = entry.getValue();
+            if (record.isExpiredAt(now)) {
+                continue;
+            }
+
+            Map<Data, CacheRecord> records = data.get(recordStore.getName());
+            if (records == null) {
+                records = new HashMap<Data, CacheRecord>();
+                data.put(recordStore.getName(), records);
+            }
+            records.put(key, record);
+            chunkSize += estimateSize(key, record);
+        }
+        return operation;
+    }
+
+    private boolean hasNextRecord() {
+        while (nextEntry == null) {
+            if (recordIterator != null && recordIterator.hasNext()) {
+                nextEntry = recordIterator.next();
+            } else if (recordStoreIterator.hasNext()) {
+                recordStore = recordStoreIterator.next();
+                recordIterator = recordStore.getReadOnlyRecords().entrySet().iterator();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int estimateSize(Data key, CacheRecord record) {
+        Object value = record.getValue();
+        return key.totalSize() + (value instanceof Data ? ((Data) value).totalSize() : 0) + RECORD_SIZE;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -22,10 +22,12 @@ import com.hazelcast.cache.impl.ICacheRecordStore;
 import com.hazelcast.cache.impl.ICacheService;
 import com.hazelcast.cache.impl.record.CacheRecord;
 import com.hazelcast.config.CacheConfig;
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.nio.serialization.impl.Versioned;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.util.Clock;
 
@@ -46,13 +48,20 @@ import java.util.*;
  * </ul>
  * </p>
  * <p><b>Note:</b> This operation is a per partition operation.</p>
+ * <p>
+ * The records of a partition can also be replicated by a sequence of these operations, see
+ * {@link CacheReplicationChunkIterator}. Only the first one of them clears the record stores.
+ * </p>
  */
-public class CacheReplicationOperation extends Operation implements IdentifiedDataSerializable {
+public class CacheReplicationOperation extends Operation implements IdentifiedDataSerializable, Versioned {
 
     protected final Map<String, Map<Data, CacheRecord>> data = new HashMap<String, Map<Data, CacheRecord>>();
     protected final List<CacheConfig> configs = new ArrayList<CacheConfig>();
     protected final CacheNearCacheStateHolder nearCacheStateHolder = new CacheNearCacheStateHolder(this);
 
+    // true if this operation appends records to the ones replicated by a previous chunk
+    protected boolean continuation;
+
     public CacheReplicationOperation() {
     }
 
@@ -84,7 +93,9 @@ public class CacheReplicationOperation extends Operation implements IdentifiedDa
         ICacheService service = getService();
         for (Map.Entry<String, Map<Data, CacheRecord>> entry : data.entrySet()) {
             ICacheRecordStore cache = service.getOrCreateRecordStore(entry.getKey(), getPartitionId());
-            cache.clear();
+            if (!continuation) {
+                cache.clear();
+            }
             Map<Data, CacheRecord> map = entry.getValue();
 
             Iterator<Map.Entry<Data, CacheRecord>> iterator = map.entrySet().iterator();
@@ -142,6 +153,10 @@ public class CacheReplicationOperation extends Operation implements IdentifiedDa
         }
 
         nearCacheStateHolder.writeData(out);
+
+        if (out.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            out.writeBoolean(continuation);
+        }
     }
 
     @Override
@@ -175,6 +190,10 @@ public class CacheReplicationOperation extends Operation implements IdentifiedDa
         }
 
         nearCacheStateHolder.readData(in);
+
+        if (in.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            continuation = in.readBoolean();
+        }
     }
 
     public boolean isEmpty() {
@@ -99,6 +99,8 @@ public class ClientEngineImpl implements ClientEngine, CoreService, PostJoinAwar
     private final MessageTaskFactory messageTaskFactory;
     private final ClientExceptionFactory clientExceptionFactory;
     private final int endpointRemoveDelaySeconds;
+    private final boolean partitionThreadFastPathEnabled;
+    private final long operationCallTimeoutMillis;
 
 
     public ClientEngineImpl(Node node) {
@@ -112,6 +114,9 @@ public class ClientEngineImpl implements ClientEngine, CoreService, PostJoinAwar
         this.messageTaskFactory = new CompositeMessageTaskFactory(this.nodeEngine);
         this.clientExceptionFactory = initClientExceptionFactory();
         this.endpointRemoveDelaySeconds = node.getProperties().getInteger(GroupProperty.CLIENT_ENDPOINT_REMOVE_DELAY_SECONDS);
+        this.partitionThreadFastPathEnabled = node.getProperties()
+                .getBoolean(GroupProperty.CLIENT_ENGINE_PARTITION_THREAD_FAST_PATH_ENABLED);
+        this.operationCallTimeoutMillis = node.getProperties().getMillis(GroupProperty.OPERATION_CALL_TIMEOUT_MILLIS);
         ClientHeartbeatMonitor heartbeatMonitor = new ClientHeartbeatMonitor(
                 endpointManager, this, nodeEngine.getExecutionService(), node.getProperties());
         heartbeatMonitor.start();
@@ -152,6 +157,14 @@ public class ClientEngineImpl implements ClientEngine, CoreService, PostJoinAwar
                 ExecutorType.CONCRETE);
     }
 
+    public boolean isPartitionThreadFastPathEnabled() {
+        return partitionThreadFastPathEnabled;
+    }
+
+    public long getOperationCallTimeoutMillis() {
+        return operationCallTimeoutMillis;
+    }
+
     //needed for testing purposes
     public ConnectionListener getConnectionListener() {
         return connectionListener;
@@ -171,11 +184,12 @@ public class ClientEngineImpl implements ClientEngine, CoreService, PostJoinAwar
         int partitionId = clientMessage.getPartitionId();
         MessageTask messageTask = messageTaskFactory.create(clientMessage, connection);
         InternalOperationService operationService = nodeEngine.getOperationService();
-        if (partitionId < 0) {
+        if (isQuery(messageTask)) {
+            // a query targeting a single partition still waits for its invocations, so it is never run on a partition thread
+            queryExecutor.execute(messageTask);
+        } else if (partitionId < 0) {
             if (isUrgent(messageTask)) {
                 operationService.execute(new PriorityPartitionSpecificRunnable(messageTask));
-            } else if (isQuery(messageTask)) {
-                queryExecutor.execute(messageTask);
             } else {
                 executor.execute(messageTask);
             }
@@ -309,7 +309,7 @@ public class ClientMessage
             done = false;
         }
 
-        dst.put(byteArray, writeOffset, bytesWrite);
+        dst.put(byteArray, offset() + writeOffset, bytesWrite);
         writeOffset += bytesWrite;
 
         if (done) {
@@ -319,25 +319,28 @@ public class ClientMessage
         return done;
     }
 
+    /**
+     * Reads the bytes of this frame from the given buffer. A message created with {@link #create()} allocates its own
+     * buffer once the frame length is known; a message created with {@link #createForRead(ClientProtocolBuffer, int)}
+     * reads the frame into the given buffer, which must have room for the whole frame.
+     *
+     * @param src the buffer to read from
+     * @return {@code true} if the frame is complete
+     */
     public boolean readFrom(ByteBuffer src) {
         int frameLength = 0;
-        if (this.buffer == null) {
-            // init internal buffer
-            final int remaining = src.remaining();
-            if (remaining < Bits.INT_SIZE_IN_BYTES) {
+        if (index() == 0) {
+            frameLength = peekFrameLength(src);
+            if (frameLength < 0) {
                 // we don't have even the frame length ready
                 return false;
             }
-            frameLength = Bits.readIntL(src);
-            // we need to restore the position; as if we didn't read the frame-length
-            src.position(src.position() - Bits.INT_SIZE_IN_BYTES);
             if (frameLength < HEADER_SIZE) {
                 throw new IllegalArgumentException("Client message frame length cannot be smaller than header size.");
             }
-            if (USE_UNSAFE) {
-                wrap(new UnsafeBuffer(new byte[frameLength]), 0);
-            } else {
-                wrap(new SafeBuffer(new byte[frameLength]), 0);
+            if (this.buffer == null) {
+                // init internal buffer
+                wrap(allocateBuffer(frameLength), 0);
             }
         }
         frameLength = frameLength > 0 ? frameLength : getFrameLength();
@@ -349,7 +352,7 @@ public class ClientMessage
         int remaining = src.remaining();
         int readLength = remaining < length ? remaining : length;
         if (readLength > 0) {
-            buffer.putBytes(index(), src, readLength);
+            buffer.putBytes(index() + offset(), src, readLength);
             index(index() + readLength);
             return readLength;
         }
@@ -400,13 +403,54 @@ public class ClientMessage
         return new ClientMessage();
     }
 
+    /**
+     * Creates a copy of this message in a buffer of its own, with the same read index. A message read into a shared
+     * receive chunk keeps the whole chunk alive for as long as it is referenced, while the copy only keeps its frame.
+     */
+    public ClientMessage copy() {
+        byte[] bytes = new byte[getFrameLength()];
+        buffer().getBytes(offset(), bytes);
+        ClientMessage copy = createForDecode(USE_UNSAFE ? new UnsafeBuffer(bytes) : new SafeBuffer(bytes), 0);
+        copy.index(index());
+        return copy;
+    }
+
     public static ClientMessage createForEncode(int initialCapacity) {
         initialCapacity = findSuitableMessageSize(initialCapacity);
-        if (USE_UNSAFE) {
-            return createForEncode(new UnsafeBuffer(new byte[initialCapacity]), 0);
-        } else {
-            return createForEncode(new SafeBuffer(new byte[initialCapacity]), 0);
+        return createForEncode(allocateBuffer(initialCapacity), 0);
+    }
+
+    /**
+     * Creates a message which reads its frame into the given buffer, starting at the given offset, instead of
+     * allocating a buffer of its own. See {@link #readFrom(ByteBuffer)}.
+     */
+    public static ClientMessage createForRead(ClientProtocolBuffer buffer, int offset) {
+        ClientMessage clientMessage = new ClientMessage();
+        clientMessage.wrap(buffer, offset);
+        return clientMessage;
+    }
+
+    /**
+     * Allocates a heap buffer of the given capacity, backed by {@link UnsafeBuffer} or {@link SafeBuffer} depending on
+     * the {@code hazelcast.protocol.unsafe.enabled} system property.
+     */
+    public static ClientProtocolBuffer allocateBuffer(int capacity) {
+        byte[] bytes = new byte[capacity];
+        return USE_UNSAFE ? new UnsafeBuffer(bytes) : new SafeBuffer(bytes);
+    }
+
+    /**
+     * Returns the length of the frame starting at the position of the given buffer without consuming any bytes, or
+     * {@code -1} if the frame length is not available yet.
+     */
+    public static int peekFrameLength(ByteBuffer src) {
+        if (src.remaining() < Bits.INT_SIZE_IN_BYTES) {
+            return -1;
         }
+        int frameLength = Bits.readIntL(src);
+        // we need to restore the position; as if we didn't read the frame-length
+        src.position(src.position() - Bits.INT_SIZE_IN_BYTES);
+        return frameLength;
     }
 
     public static int findSuitableMessageSize(int desiredMessageSize) {
@@ -430,7 +474,7 @@ public class ClientMessage
 
     @Override
     public int hashCode() {
-        return ByteBuffer.wrap(buffer().byteArray(), 0, getFrameLength()).hashCode();
+        return ByteBuffer.wrap(buffer().byteArray(), offset(), getFrameLength()).hashCode();
     }
 
     @Override
@@ -449,8 +493,10 @@ public class ClientMessage
         if (this.getFrameLength() != that.getFrameLength()) {
             return false;
         }
+        int thisOffset = this.offset();
+        int thatOffset = that.offset();
         for (int i = 0; i < this.getFrameLength(); i++) {
-            if (thisBytes[i] != thatBytes[i]) {
+            if (thisBytes[thisOffset + i] != thatBytes[thatOffset + i]) {
                 return false;
             }
         }
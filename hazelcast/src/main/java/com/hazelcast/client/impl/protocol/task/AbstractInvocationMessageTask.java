@@ -39,7 +39,9 @@ public abstract class AbstractInvocationMessageTask<P> extends AbstractMessageTa
         InvocationBuilder builder = getInvocationBuilder(op)
                 .setExecutionCallback(this)
                 .setResultDeserialized(false);
-        builder.invoke();
+        if (!builder.invoke().isDone()) {
+            detachClientMessage();
+        }
     }
 
     protected abstract InvocationBuilder getInvocationBuilder(Operation op);
@@ -42,7 +42,11 @@ import java.security.Permission;
  */
 public abstract class AbstractMessageTask<P> implements MessageTask, SecureRequest {
 
-    protected final ClientMessage clientMessage;
+    /**
+     * The request of this task. It is replaced by a copy of its own when the task starts waiting, see
+     * {@link #detachClientMessage()}.
+     */
+    protected volatile ClientMessage clientMessage;
 
     protected final Connection connection;
     protected final ClientEndpoint endpoint;
@@ -194,6 +198,18 @@ public abstract class AbstractMessageTask<P> implements MessageTask, SecureReque
 
     protected abstract void processMessage() throws Throwable;
 
+    /**
+     * Replaces the request of this task by a copy in a buffer of its own. A request read into a shared receive chunk
+     * keeps the whole chunk alive, so a task which keeps waiting for the response of its operation, e.g. because the
+     * operation is parked until a lock is released or an item is offered, detaches its request first.
+     */
+    protected void detachClientMessage() {
+        ClientMessage message = clientMessage;
+        if (message.offset() != 0 || message.buffer().capacity() != message.getFrameLength()) {
+            clientMessage = message.copy();
+        }
+    }
+
     protected void sendResponse(Object response) {
         ClientMessage clientMessage = encodeResponse(response);
         sendClientMessage(clientMessage);
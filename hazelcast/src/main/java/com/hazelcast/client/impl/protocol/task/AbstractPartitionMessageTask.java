@@ -16,23 +16,47 @@
 
 package com.hazelcast.client.impl.protocol.task;
 
+import com.hazelcast.client.impl.operations.OperationFactoryWrapper;
 import com.hazelcast.client.impl.protocol.ClientMessage;
 import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.instance.Node;
 import com.hazelcast.nio.Connection;
+import com.hazelcast.spi.BackupAwareOperation;
 import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.OperationFactory;
+import com.hazelcast.spi.OperationResponseHandler;
+import com.hazelcast.spi.ReadonlyOperation;
+import com.hazelcast.spi.exception.RetryableException;
 import com.hazelcast.spi.impl.operationexecutor.impl.PartitionOperationThread;
+import com.hazelcast.spi.impl.operationservice.InternalOperationService;
+import com.hazelcast.spi.impl.operationservice.impl.responses.CallTimeoutResponse;
+import com.hazelcast.spi.partition.IPartition;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
+import static com.hazelcast.spi.OperationAccessor.setCallTimeout;
+import static com.hazelcast.spi.OperationAccessor.setCallerAddress;
+import static com.hazelcast.spi.OperationAccessor.setInvocationTime;
+
 /**
  * AbstractPartitionMessageTask
+ * <p>
+ * The task runs on the partition thread of its partition. Read-only operations on a partition owned by this member are
+ * run directly on that thread, without creating and registering an invocation; see
+ * {@link com.hazelcast.spi.properties.GroupProperty#CLIENT_ENGINE_PARTITION_THREAD_FAST_PATH_ENABLED}.
+ * <p>
+ * A request of a task supporting it may also be sent without a partition id, carrying the data of several partitions
+ * of the member, see {@link #processMultiPartitionMessage()}.
  */
 public abstract class AbstractPartitionMessageTask<P>
         extends AbstractMessageTask<P>
-        implements ExecutionCallback, Executor {
+        implements ExecutionCallback, Executor, OperationResponseHandler {
+
+    private boolean responseReceived;
 
     protected AbstractPartitionMessageTask(ClientMessage clientMessage, Node node, Connection connection) {
         super(clientMessage, node, connection);
@@ -59,7 +83,25 @@ public abstract class AbstractPartitionMessageTask<P>
     @Override
     public final void processMessage() {
         beforeProcess();
+        if (getPartitionId() < 0) {
+            Object response;
+            try {
+                response = processMultiPartitionMessage();
+            } catch (Throwable t) {
+                onFailure(t);
+                return;
+            }
+            onResponse(response);
+            return;
+        }
+
         Operation op = prepareOperation();
+        if (!runOnPartitionThread(op)) {
+            invoke(op);
+        }
+    }
+
+    private void invoke(Operation op) {
         op.setCallerUuid(endpoint.getUuid());
         ICompletableFuture f = nodeEngine.getOperationService()
                 .createInvocationBuilder(getServiceName(), op, getPartitionId())
@@ -67,10 +109,82 @@ public abstract class AbstractPartitionMessageTask<P>
                 .invoke();
 
         f.andThen(this, this);
+        if (!f.isDone()) {
+            detachClientMessage();
+        }
+    }
+
+    private boolean runOnPartitionThread(Operation op) {
+        if (!clientEngine.isPartitionThreadFastPathEnabled()
+                || !(op instanceof ReadonlyOperation) || op instanceof BackupAwareOperation) {
+            return false;
+        }
+
+        op.setServiceName(getServiceName());
+        op.setPartitionId(getPartitionId());
+        InternalOperationService operationService = nodeEngine.getOperationService();
+        if (!operationService.isRunAllowed(op)) {
+            return false;
+        }
+        IPartition partition = nodeEngine.getPartitionService().getPartition(getPartitionId());
+        if (!partition.isLocal() || partition.isMigrating()) {
+            return false;
+        }
+
+        op.setCallerUuid(endpoint.getUuid());
+        op.setNodeEngine(nodeEngine);
+        setCallerAddress(op, nodeEngine.getThisAddress());
+        setCallTimeout(op, clientEngine.getOperationCallTimeoutMillis());
+        setInvocationTime(op, nodeEngine.getClusterService().getClusterClock().getClusterTime());
+        op.setOperationResponseHandler(this);
+        operationService.run(op);
+        // the operation is parked if it did not respond while running, it responds on this thread when it is unparked
+        if (!responseReceived) {
+            detachClientMessage();
+        }
+        return true;
+    }
+
+    /**
+     * Receives the response of an operation run by {@link #runOnPartitionThread(Operation)}.
+     */
+    @Override
+    public void sendResponse(Operation op, Object response) {
+        responseReceived = true;
+        if (response instanceof RetryableException || response instanceof CallTimeoutResponse) {
+            // migrations, ownership changes and call timeouts are left to a regular invocation
+            invoke(prepareOperation());
+        } else if (response instanceof Throwable) {
+            onFailure((Throwable) response);
+        } else {
+            onResponse(response);
+        }
     }
 
     protected abstract Operation prepareOperation();
 
+    /**
+     * Processes a request which was sent without a partition id. Clients send such a request to batch the data of all
+     * partitions of a member into one message, instead of sending a message per partition. It runs on a client thread
+     * of the member and may block.
+     *
+     * @return the response to send to the client
+     * @throws Exception if the request could not be processed
+     */
+    protected Object processMultiPartitionMessage() throws Exception {
+        throw new UnsupportedOperationException(getMethodName() + " requests cannot be sent without a partition id");
+    }
+
+    /**
+     * Invokes the operations created by the given factory on the given partitions on behalf of the client, and waits
+     * for their results.
+     */
+    protected Map<Integer, Object> invokeOnPartitions(OperationFactory operationFactory, Collection<Integer> partitions)
+            throws Exception {
+        OperationFactory factory = new OperationFactoryWrapper(operationFactory, endpoint.getUuid());
+        return nodeEngine.getOperationService().invokeOnPartitions(getServiceName(), factory, partitions);
+    }
+
     @Override
     public void execute(Runnable command) {
         if (Thread.currentThread().getClass() == PartitionOperationThread.class) {
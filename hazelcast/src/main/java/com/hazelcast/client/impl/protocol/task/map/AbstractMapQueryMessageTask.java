@@ -82,8 +82,17 @@ public abstract class AbstractMapQueryMessageTask<P, QueryResult extends Result,
             Predicate predicate = getPredicate();
             int partitionCount = clientEngine.getPartitionService().getPartitionCount();
 
-            BitSet finishedPartitions = invokeOnMembers(result, predicate, partitionCount);
-            invokeOnMissingPartitions(result, predicate, finishedPartitions, partitionCount);
+            int partitionId = clientMessage.getPartitionId();
+            if (partitionId >= 0) {
+                // the client fans the query out itself, only the targeted partition is queried
+                BitSet finishedPartitions = new BitSet(partitionCount);
+                finishedPartitions.set(0, partitionCount);
+                finishedPartitions.clear(partitionId);
+                invokeOnMissingPartitions(result, predicate, finishedPartitions, partitionCount);
+            } else {
+                BitSet finishedPartitions = invokeOnMembers(result, predicate, partitionCount);
+                invokeOnMissingPartitions(result, predicate, finishedPartitions, partitionCount);
+            }
         } catch (Throwable t) {
             throw rethrow(t);
         }
@@ -23,12 +23,19 @@ import com.hazelcast.instance.Node;
 import com.hazelcast.map.impl.MapEntries;
 import com.hazelcast.map.impl.MapService;
 import com.hazelcast.map.impl.operation.GetAllOperation;
+import com.hazelcast.map.impl.operation.GetAllPartitionAwareOperationFactory;
 import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.security.permission.ActionConstants;
 import com.hazelcast.security.permission.MapPermission;
 import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.partition.IPartitionService;
 
 import java.security.Permission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class MapGetAllMessageTask
         extends AbstractPartitionMessageTask<MapGetAllCodec.RequestParameters> {
@@ -43,6 +50,41 @@ public class MapGetAllMessageTask
         return new GetAllOperation(parameters.name, parameters.keys);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object processMultiPartitionMessage() throws Exception {
+        IPartitionService partitionService = nodeEngine.getPartitionService();
+        Map<Integer, List<Data>> keysByPartition = new HashMap<Integer, List<Data>>();
+        for (Data key : parameters.keys) {
+            int partitionId = partitionService.getPartitionId(key);
+            List<Data> keys = keysByPartition.get(partitionId);
+            if (keys == null) {
+                keys = new ArrayList<Data>();
+                keysByPartition.put(partitionId, keys);
+            }
+            keys.add(key);
+        }
+
+        int[] partitions = new int[keysByPartition.size()];
+        List<Data>[] keys = new List[keysByPartition.size()];
+        int index = 0;
+        for (Map.Entry<Integer, List<Data>> entry : keysByPartition.entrySet()) {
+            partitions[index] = entry.getKey();
+            keys[index++] = entry.getValue();
+        }
+
+        GetAllPartitionAwareOperationFactory factory = new GetAllPartitionAwareOperationFactory(parameters.name,
+                partitions, keys);
+        MapEntries result = new MapEntries(parameters.keys.size());
+        for (Object response : invokeOnPartitions(factory, keysByPartition.keySet()).values()) {
+            MapEntries entries = serializationService.toObject(response);
+            for (int i = 0; i < entries.size(); i++) {
+                result.add(entries.getKey(i), entries.getValue(i));
+            }
+        }
+        return result;
+    }
+
     @Override
     public String getServiceName() {
         return MapService.SERVICE_NAME;
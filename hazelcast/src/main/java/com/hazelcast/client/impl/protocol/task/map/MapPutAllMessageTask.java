@@ -27,6 +27,7 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.security.permission.ActionConstants;
 import com.hazelcast.security.permission.MapPermission;
 import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.partition.IPartitionService;
 
 import java.security.Permission;
 import java.util.HashMap;
@@ -46,6 +47,34 @@ public class MapPutAllMessageTask
         return operationProvider.createPutAllOperation(parameters.name, mapEntries);
     }
 
+    @Override
+    protected Object processMultiPartitionMessage() throws Exception {
+        IPartitionService partitionService = nodeEngine.getPartitionService();
+        Map<Integer, MapEntries> entriesByPartition = new HashMap<Integer, MapEntries>();
+        for (Map.Entry<Data, Data> entry : parameters.entries) {
+            int partitionId = partitionService.getPartitionId(entry.getKey());
+            MapEntries entries = entriesByPartition.get(partitionId);
+            if (entries == null) {
+                entries = new MapEntries();
+                entriesByPartition.put(partitionId, entries);
+            }
+            entries.add(entry.getKey(), entry.getValue());
+        }
+
+        int[] partitions = new int[entriesByPartition.size()];
+        MapEntries[] entries = new MapEntries[entriesByPartition.size()];
+        int index = 0;
+        for (Map.Entry<Integer, MapEntries> entry : entriesByPartition.entrySet()) {
+            partitions[index] = entry.getKey();
+            entries[index++] = entry.getValue();
+        }
+
+        MapOperationProvider operationProvider = getMapOperationProvider(parameters.name);
+        invokeOnPartitions(operationProvider.createPutAllOperationFactory(parameters.name, partitions, entries),
+                entriesByPartition.keySet());
+        return null;
+    }
+
     @Override
     protected MapPutAllCodec.RequestParameters decodeClientMessage(ClientMessage clientMessage) {
         return MapPutAllCodec.decodeRequest(clientMessage);
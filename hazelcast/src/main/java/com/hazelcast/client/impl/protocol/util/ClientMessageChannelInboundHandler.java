@@ -27,14 +27,36 @@ import static com.hazelcast.client.impl.protocol.ClientMessage.*;
 
 /**
  * Builds {@link ClientMessage}s from byte chunks. Fragmented messages are merged into single messages before processed.
+ * <p>
+ * Instead of allocating a byte array per frame, small frames are read into consecutive regions of a shared receive
+ * chunk and the messages are flyweights over their region, so the parameters are decoded in place. A chunk is never
+ * reused: once it is full a new one is allocated, and the old one is garbage collected together with the last message
+ * referencing it. This keeps the handed-off messages safe to use from any thread for as long as they are referenced.
+ * Frames larger than {@link #MAX_SHARED_FRAME_LENGTH} get a buffer of their own.
+ * <p>
+ * A message keeps its whole chunk alive, up to {@code RECEIVE_CHUNK_SIZE / frame length} times its own size. A message
+ * which is kept for long, e.g. by a request task waiting for a parked lock, take or poll operation, should therefore
+ * be replaced by a {@link ClientMessage#copy() copy} of its own; the request tasks do so once they start waiting.
  */
 public class ClientMessageChannelInboundHandler implements ChannelInboundHandler {
 
+    /**
+     * Size of the shared chunks the frames are read into.
+     */
+    static final int RECEIVE_CHUNK_SIZE = 32 * 1024;
+
+    /**
+     * Largest frame which is read into a shared chunk.
+     */
+    static final int MAX_SHARED_FRAME_LENGTH = RECEIVE_CHUNK_SIZE / 8;
+
     private final Long2ObjectHashMap<BufferBuilder> builderBySessionIdMap = new Long2ObjectHashMap<BufferBuilder>();
 
     private final MessageHandler delegate;
     private final SwCounter messageCounter;
-    private ClientMessage message = ClientMessage.create();
+    private ClientMessage message;
+    private ClientProtocolBuffer chunk;
+    private int chunkPosition;
 
     public ClientMessageChannelInboundHandler(SwCounter messageCounter, MessageHandler messageHandler) {
         this.messageCounter = messageCounter;
@@ -45,17 +67,24 @@ public class ClientMessageChannelInboundHandler implements ChannelInboundHandler
     public void onRead(ByteBuffer src) throws Exception {
         int messagesCreated = 0;
         while (src.hasRemaining()) {
+            if (message == null) {
+                int frameLength = peekFrameLength(src);
+                if (frameLength < 0) {
+                    break;
+                }
+                message = newMessage(frameLength);
+            }
+
             final boolean complete = message.readFrom(src);
             if (!complete) {
-                messageCounter.inc(messagesCreated);
-                return;
+                break;
             }
 
             //MESSAGE IS COMPLETE HERE
             if (message.isFlagSet(BEGIN_AND_END_FLAGS)) {
                 //HANDLE-MESSAGE
                 handleMessage(message);
-                message = ClientMessage.create();
+                message = null;
                 messagesCreated++;
                 continue;
             }
@@ -64,14 +93,15 @@ public class ClientMessageChannelInboundHandler implements ChannelInboundHandler
             if (message.isFlagSet(BEGIN_FLAG)) {
                 final BufferBuilder builder = new BufferBuilder();
                 builderBySessionIdMap.put(message.getCorrelationId(), builder);
-                builder.append(message.buffer(), 0, message.getFrameLength());
+                builder.append(message.buffer(), message.offset(), message.getFrameLength());
             } else {
                 final BufferBuilder builder = builderBySessionIdMap.get(message.getCorrelationId());
                 if (builder.position() == 0) {
                     throw new IllegalStateException();
                 }
 
-                builder.append(message.buffer(), message.getDataOffset(), message.getFrameLength() - message.getDataOffset());
+                builder.append(message.buffer(), message.offset() + message.getDataOffset(),
+                        message.getFrameLength() - message.getDataOffset());
 
                 if (message.isFlagSet(END_FLAG)) {
                     final int msgLength = builder.position();
@@ -84,9 +114,24 @@ public class ClientMessageChannelInboundHandler implements ChannelInboundHandler
                 }
             }
 
-            message = ClientMessage.create();
+            message = null;
             messagesCreated++;
         }
+        messageCounter.inc(messagesCreated);
+    }
+
+    private ClientMessage newMessage(int frameLength) {
+        if (frameLength < HEADER_SIZE || frameLength > MAX_SHARED_FRAME_LENGTH) {
+            // the message allocates its own buffer, or rejects the frame length
+            return ClientMessage.create();
+        }
+        if (chunk == null || chunk.capacity() - chunkPosition < frameLength) {
+            chunk = ClientMessage.allocateBuffer(RECEIVE_CHUNK_SIZE);
+            chunkPosition = 0;
+        }
+        ClientMessage clientMessage = ClientMessage.createForRead(chunk, chunkPosition);
+        chunkPosition += frameLength;
+        return clientMessage;
     }
 
     private void handleMessage(ClientMessage message) {
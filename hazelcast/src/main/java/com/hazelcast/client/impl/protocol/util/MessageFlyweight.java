@@ -72,6 +72,13 @@ public class MessageFlyweight {
         return buffer;
     }
 
+    /**
+     * @return the position in {@link #buffer()} where this flyweight starts
+     */
+    public int offset() {
+        return offset;
+    }
+
     //region SET Overloads
     public MessageFlyweight set(boolean value) {
         buffer.putByte(index + offset, (byte) (value ? 1 : 0));
@@ -105,7 +112,7 @@ public class MessageFlyweight {
     public MessageFlyweight set(Data data) {
         int length = data.totalSize();
         set(length);
-        data.copyTo(buffer.byteArray(), index);
+        data.copyTo(buffer.byteArray(), index + offset);
         index += length;
         return this;
     }
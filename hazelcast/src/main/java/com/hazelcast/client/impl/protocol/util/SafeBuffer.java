@@ -61,21 +61,17 @@ public class SafeBuffer implements ClientProtocolBuffer {
 
     @Override
     public void putBytes(int index, byte[] src, int offset, int length) {
-        byteBuffer.position(index);
-        byteBuffer.put(src, offset, length);
+        // copy by index instead of moving the position, since a buffer may be shared between messages and threads
+        System.arraycopy(src, offset, byteBuffer.array(), index, length);
     }
 
     @Override
     public void putBytes(int index, ByteBuffer src, int length) {
-        byteBuffer.position(index);
         if (src.isDirect()) {
-            int oldLimit = src.limit();
-            src.limit(src.position() + length);
-            byteBuffer.put(src);
-            src.limit(oldLimit);
+            src.get(byteBuffer.array(), index, length);
         } else {
             // to prevent causing any regressions for heap buffer, we leave the original copy logic in place.
-            byteBuffer.put(src.array(), src.position(), length);
+            putBytes(index, src.array(), src.position(), length);
             src.position(src.position() + length);
         }
     }
@@ -141,8 +137,7 @@ public class SafeBuffer implements ClientProtocolBuffer {
 
     @Override
     public void getBytes(int index, byte[] dst, int offset, int length) {
-        byteBuffer.position(index);
-        byteBuffer.get(dst, offset, length);
+        System.arraycopy(byteBuffer.array(), index, dst, offset, length);
     }
 
     @Override
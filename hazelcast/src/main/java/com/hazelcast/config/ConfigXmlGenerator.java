@@ -516,7 +516,8 @@ public class ConfigXmlGenerator {
                     .node("eviction-percentage", m.getEvictionPercentage())
                     .node("min-eviction-check-millis", m.getMinEvictionCheckMillis())
                     .node("merge-policy", m.getMergePolicy())
-                    .node("read-backup-data", m.isReadBackupData());
+                    .node("read-backup-data", m.isReadBackupData())
+                    .node("hot-key-read-backup-data", m.isHotKeyReadBackupData());
 
             appendHotRestartConfig(gen, m.getHotRestartConfig());
             mapStoreConfigXmlGenerator(gen, m);
@@ -120,6 +120,8 @@ public class MapConfig {
 
     private boolean readBackupData;
 
+    private boolean hotKeyReadBackupData;
+
     private CacheDeserializedValues cacheDeserializedValues = DEFAULT_CACHED_DESERIALIZED_VALUES;
 
     private String mergePolicy = DEFAULT_MAP_MERGE_POLICY;
@@ -176,6 +178,7 @@ public class MapConfig {
         this.mapStoreConfig = config.mapStoreConfig != null ? new MapStoreConfig(config.mapStoreConfig) : null;
         this.nearCacheConfig = config.nearCacheConfig != null ? new NearCacheConfig(config.nearCacheConfig) : null;
         this.readBackupData = config.readBackupData;
+        this.hotKeyReadBackupData = config.hotKeyReadBackupData;
         this.cacheDeserializedValues = config.cacheDeserializedValues;
         this.statisticsEnabled = config.statisticsEnabled;
         this.mergePolicy = config.mergePolicy;
@@ -588,6 +591,33 @@ public class MapConfig {
         return this;
     }
 
+    /**
+     * Checks if hot keys of this map are read from local backup entries.
+     *
+     * @return True if hot keys are read from local backup entries, false otherwise.
+     * @see #setHotKeyReadBackupData(boolean)
+     */
+    public boolean isHotKeyReadBackupData() {
+        return hotKeyReadBackupData;
+    }
+
+    /**
+     * Sets whether the keys of this map detected as hot are read from local backup entries instead of the partition
+     * owner. This spreads the reads of a hot key over all of its replicas, like read-backup-data does for all keys,
+     * and has the same consistency: a backup may lag behind the owner, especially with asynchronous backups, so a
+     * read of a hot key may return a stale value.
+     * <p>
+     * Only has an effect when the hot key detection is enabled with
+     * {@link com.hazelcast.spi.properties.GroupProperty#MAP_HOT_KEY_TRACKER_CAPACITY}.
+     *
+     * @param hotKeyReadBackupData True to read hot keys from local backup entries, false to disable.
+     * @return The current map config instance.
+     */
+    public MapConfig setHotKeyReadBackupData(boolean hotKeyReadBackupData) {
+        this.hotKeyReadBackupData = hotKeyReadBackupData;
+        return this;
+    }
+
     /**
      * Gets the WAN target replication reference.
      *
@@ -887,6 +917,7 @@ public class MapConfig {
         result = prime * result + this.timeToLiveSeconds;
         result = prime * result + cacheDeserializedValues.hashCode();
         result = prime * result + (this.readBackupData ? 1231 : 1237);
+        result = prime * result + (this.hotKeyReadBackupData ? 1231 : 1237);
         return result;
     }
 
@@ -909,6 +940,7 @@ public class MapConfig {
                         && this.maxSizeConfig.getSize() == other.maxSizeConfig.getSize()
                         && this.timeToLiveSeconds == other.timeToLiveSeconds
                         && this.readBackupData == other.readBackupData
+                        && this.hotKeyReadBackupData == other.hotKeyReadBackupData
                         && (this.cacheDeserializedValues == other.cacheDeserializedValues)
                         && (this.mergePolicy != null ? this.mergePolicy.equals(other.mergePolicy) : other.mergePolicy == null)
                         && (this.inMemoryFormat != null ? this.inMemoryFormat.equals(other.inMemoryFormat)
@@ -938,6 +970,7 @@ public class MapConfig {
                 + ", minEvictionCheckMillis=" + minEvictionCheckMillis
                 + ", maxSizeConfig=" + maxSizeConfig
                 + ", readBackupData=" + readBackupData
+                + ", hotKeyReadBackupData=" + hotKeyReadBackupData
                 + ", hotRestart=" + hotRestartConfig
                 + ", nearCacheConfig=" + nearCacheConfig
                 + ", mapStoreConfig=" + mapStoreConfig
@@ -204,6 +204,11 @@ public class MapConfigReadOnly extends MapConfig {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
     }
 
+    @Override
+    public MapConfig setHotKeyReadBackupData(boolean hotKeyReadBackupData) {
+        throw new UnsupportedOperationException("This config is read-only map: " + getName());
+    }
+
     @Override
     public MapConfig setWanReplicationRef(WanReplicationRef wanReplicationRef) {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
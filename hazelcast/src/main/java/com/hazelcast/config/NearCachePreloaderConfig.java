@@ -49,6 +49,7 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
     private String directory = "";
     private int storeInitialDelaySeconds = DEFAULT_STORE_INITIAL_DELAY_SECONDS;
     private int storeIntervalSeconds = DEFAULT_STORE_INTERVAL_SECONDS;
+    private boolean storeValues;
 
     private NearCachePreloaderConfig readOnly;
 
@@ -57,6 +58,9 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
 
     public NearCachePreloaderConfig(NearCachePreloaderConfig nearCachePreloaderConfig) {
         this(nearCachePreloaderConfig.enabled, nearCachePreloaderConfig.directory);
+        this.storeInitialDelaySeconds = nearCachePreloaderConfig.storeInitialDelaySeconds;
+        this.storeIntervalSeconds = nearCachePreloaderConfig.storeIntervalSeconds;
+        this.storeValues = nearCachePreloaderConfig.storeValues;
     }
 
     public NearCachePreloaderConfig(String directory) {
@@ -106,6 +110,25 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
         return this;
     }
 
+    public boolean isStoreValues() {
+        return storeValues;
+    }
+
+    /**
+     * Defines if the values of the Near Cache are persisted together with the keys.
+     * <p>
+     * If enabled, the values are stored with their invalidation metadata, so a restarted Near Cache can serve them
+     * without fetching them from the cluster. Stale values are detected and repaired by the Near Cache invalidation
+     * mechanism. If disabled, just the keys are stored and the values are fetched on pre-loading.
+     *
+     * @param storeValues {@code true} if the values should be persisted, {@code false} otherwise
+     * @return this {@link NearCachePreloaderConfig} instance
+     */
+    public NearCachePreloaderConfig setStoreValues(boolean storeValues) {
+        this.storeValues = storeValues;
+        return this;
+    }
+
     @Override
     public int getFactoryId() {
         return ConfigDataSerializerHook.F_ID;
@@ -122,6 +145,7 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
         out.writeUTF(directory);
         out.writeInt(storeInitialDelaySeconds);
         out.writeInt(storeIntervalSeconds);
+        out.writeBoolean(storeValues);
     }
 
     @Override
@@ -130,6 +154,7 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
         directory = in.readUTF();
         storeInitialDelaySeconds = in.readInt();
         storeIntervalSeconds = in.readInt();
+        storeValues = in.readBoolean();
     }
 
     @Override
@@ -139,6 +164,7 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
                 + ", directory=" + directory
                 + ", storeInitialDelaySeconds=" + storeInitialDelaySeconds
                 + ", storeIntervalSeconds=" + storeIntervalSeconds
+                + ", storeValues=" + storeValues
                 + '}';
     }
 
@@ -183,6 +209,11 @@ public class NearCachePreloaderConfig implements IdentifiedDataSerializable, Ser
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public NearCachePreloaderConfig setStoreValues(boolean storeValues) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public int getId() {
             throw new UnsupportedOperationException("NearCachePreloaderConfigReadOnly is not serializable");
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.core;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.annotation.Beta;
+import com.hazelcast.spi.impl.AbstractCompletableFuture;
+import com.hazelcast.util.ExceptionUtil;
+import com.hazelcast.util.executor.CallerRunsExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.util.Preconditions.checkNotNull;
+
+/**
+ * A FutureStage composes asynchronous calls without blocking a thread per pending call. It adapts any
+ * {@link ICompletableFuture}, such as the result of {@link IMap#getAsync(Object)}, {@link IAtomicLong#addAndGetAsync(long)},
+ * {@link com.hazelcast.cache.ICache#getAsync(Object)} or {@link com.hazelcast.ringbuffer.Ringbuffer#addAsync}, and
+ * lets dependent steps be chained on it:
+ * <pre>
+ *     FutureStage&lt;Integer&gt; length = FutureStage.of(map.getAsync(key))
+ *             .thenApply(new IFunction&lt;String, Integer&gt;() {
+ *                 public Integer apply(String value) {
+ *                     return value == null ? 0 : value.length();
+ *                 }
+ *             });
+ * </pre>
+ * By default the dependent steps and the callbacks registered with {@link #andThen(ExecutionCallback)} run inline, on
+ * the thread which completes the previous step; on a member this can be a partition thread and on a client the thread
+ * processing the responses. Such steps must be short, must not block and, on a member, must not invoke operations on
+ * other partitions. Steps which do more work, or which compose further calls, should use a stage created with
+ * {@link #of(ICompletableFuture, Executor)}, which runs all its dependent steps on the given executor.
+ * Stages created by a stage inherit its executor.
+ * <p>
+ * Failures skip the dependent steps until they reach {@link #exceptionally(IFunction)}, or the caller of
+ * {@link #get()}, which throws them wrapped in an {@link ExecutionException}. Cancelling a stage completes it with a
+ * {@link CancellationException} and cancels the adapted future.
+ *
+ * @param <V> the result type of the stage
+ * @since 3.9
+ */
+@Beta
+public final class FutureStage<V> implements ICompletableFuture<V> {
+
+    private static final ILogger LOGGER = Logger.getLogger(FutureStage.class);
+
+    private final StageFuture<V> future;
+    private final Executor executor;
+    private final ICompletableFuture<?> source;
+
+    private FutureStage(Executor executor, ICompletableFuture<?> source) {
+        this.future = new StageFuture<V>(executor);
+        this.executor = executor;
+        this.source = source;
+    }
+
+    /**
+     * Adapts the given future. Dependent steps run inline on the thread which completes the previous step.
+     *
+     * @param future the future to adapt
+     * @param <V>    the result type
+     * @return the stage of the future
+     */
+    public static <V> FutureStage<V> of(ICompletableFuture<V> future) {
+        return of(future, CallerRunsExecutor.INSTANCE);
+    }
+
+    /**
+     * Adapts the given future. Dependent steps and callbacks run on the given executor.
+     *
+     * @param future   the future to adapt
+     * @param executor the executor of the dependent steps
+     * @param <V>      the result type
+     * @return the stage of the future
+     */
+    public static <V> FutureStage<V> of(ICompletableFuture<V> future, Executor executor) {
+        checkNotNull(future, "future can't be null");
+        checkNotNull(executor, "executor can't be null");
+        if (future instanceof FutureStage && ((FutureStage) future).executor == executor) {
+            return (FutureStage<V>) future;
+        }
+        FutureStage<V> stage = new FutureStage<V>(executor, future);
+        future.andThen(stage.completion(), CallerRunsExecutor.INSTANCE);
+        return stage;
+    }
+
+    /**
+     * @param value the result of the stage
+     * @param <V>   the result type
+     * @return a stage completed with the given value
+     */
+    public static <V> FutureStage<V> completed(V value) {
+        FutureStage<V> stage = new FutureStage<V>(CallerRunsExecutor.INSTANCE, null);
+        stage.future.complete(value);
+        return stage;
+    }
+
+    /**
+     * @param failure the failure of the stage
+     * @param <V>     the result type
+     * @return a stage completed with the given failure
+     */
+    public static <V> FutureStage<V> failed(Throwable failure) {
+        checkNotNull(failure, "failure can't be null");
+        FutureStage<V> stage = new FutureStage<V>(CallerRunsExecutor.INSTANCE, null);
+        stage.future.complete(failure);
+        return stage;
+    }
+
+    /**
+     * Returns a stage which completes with the results of all the given futures, in their iteration order, once all of
+     * them have completed; or with the first failure of any of them. Dependent steps run inline.
+     *
+     * @param futures the futures to wait for
+     * @param <V>     the result type of the futures
+     * @return the stage of the results
+     */
+    public static <V> FutureStage<List<V>> allOf(Collection<? extends ICompletableFuture<V>> futures) {
+        checkNotNull(futures, "futures can't be null");
+        final FutureStage<List<V>> stage = new FutureStage<List<V>>(CallerRunsExecutor.INSTANCE, null);
+        final Object[] results = new Object[futures.size()];
+        final AtomicInteger remaining = new AtomicInteger(results.length);
+        if (results.length == 0) {
+            stage.future.complete(new ArrayList<V>(0));
+            return stage;
+        }
+        int index = 0;
+        for (ICompletableFuture<V> future : futures) {
+            final int resultIndex = index++;
+            future.andThen(new ExecutionCallback<V>() {
+                @Override
+                public void onResponse(V response) {
+                    results[resultIndex] = response;
+                    if (remaining.decrementAndGet() == 0) {
+                        stage.future.complete(new ArrayList<Object>(Arrays.asList(results)));
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    stage.future.complete(t);
+                }
+            }, CallerRunsExecutor.INSTANCE);
+        }
+        return stage;
+    }
+
+    /**
+     * Returns a stage which completes with the result of the given function applied to the result of this stage.
+     *
+     * @param function the function to apply
+     * @param <R>      the result type of the function
+     * @return the new stage
+     */
+    public <R> FutureStage<R> thenApply(final IFunction<? super V, ? extends R> function) {
+        checkNotNull(function, "function can't be null");
+        final FutureStage<R> next = new FutureStage<R>(executor, this);
+        future.andThen(new ExecutionCallback<V>() {
+            @Override
+            public void onResponse(V response) {
+                Object result;
+                try {
+                    result = function.apply(response);
+                } catch (Throwable t) {
+                    result = t;
+                }
+                next.future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                next.future.complete(t);
+            }
+        }, executor);
+        return next;
+    }
+
+    /**
+     * Returns a stage which completes with the result of the future returned by the given function, which is applied
+     * to the result of this stage. This chains asynchronous calls without blocking:
+     * <pre>
+     *     FutureStage.of(map.getAsync(key)).thenCompose(new IFunction&lt;String, ICompletableFuture&lt;String&gt;&gt;() {
+     *         public ICompletableFuture&lt;String&gt; apply(String value) {
+     *             return otherMap.putAsync(key, value);
+     *         }
+     *     });
+     * </pre>
+     *
+     * @param function the function returning the next future
+     * @param <R>      the result type of the next future
+     * @return the new stage
+     */
+    public <R> FutureStage<R> thenCompose(final IFunction<? super V, ? extends ICompletableFuture<R>> function) {
+        checkNotNull(function, "function can't be null");
+        final FutureStage<R> next = new FutureStage<R>(executor, this);
+        future.andThen(new ExecutionCallback<V>() {
+            @Override
+            public void onResponse(V response) {
+                ICompletableFuture<R> nextFuture;
+                try {
+                    nextFuture = function.apply(response);
+                    checkNotNull(nextFuture, "function returned null");
+                } catch (Throwable t) {
+                    next.future.complete(t);
+                    return;
+                }
+                nextFuture.andThen(next.completion(), CallerRunsExecutor.INSTANCE);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                next.future.complete(t);
+            }
+        }, executor);
+        return next;
+    }
+
+    /**
+     * Returns a stage which completes with the result of this stage, or, if this stage fails, with the result of the
+     * given function applied to the failure.
+     *
+     * @param function the function mapping a failure to a result
+     * @return the new stage
+     */
+    public FutureStage<V> exceptionally(final IFunction<Throwable, ? extends V> function) {
+        checkNotNull(function, "function can't be null");
+        final FutureStage<V> next = new FutureStage<V>(executor, this);
+        future.andThen(new ExecutionCallback<V>() {
+            @Override
+            public void onResponse(V response) {
+                next.future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Object result;
+                try {
+                    result = function.apply(t);
+                } catch (Throwable failure) {
+                    result = failure;
+                }
+                next.future.complete(result);
+            }
+        }, executor);
+        return next;
+    }
+
+    /**
+     * Registers a callback which runs on the executor of this stage; inline by default.
+     */
+    @Override
+    public void andThen(ExecutionCallback<V> callback) {
+        future.andThen(callback, executor);
+    }
+
+    @Override
+    public void andThen(ExecutionCallback<V> callback, Executor executor) {
+        future.andThen(callback, executor);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (future.isDone()) {
+            return false;
+        }
+        future.complete(new CancellationException("FutureStage is cancelled"));
+        if (source != null) {
+            source.cancel(mayInterruptIfRunning);
+        }
+        return isCancelled();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (!future.isDone()) {
+            return false;
+        }
+        try {
+            future.get();
+            return false;
+        } catch (CancellationException e) {
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        } catch (Throwable t) {
+            throw wrapFailure(t);
+        }
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            return future.get(timeout, unit);
+        } catch (Throwable t) {
+            throw wrapFailure(t);
+        }
+    }
+
+    /**
+     * Wraps the failure of this stage in an {@link ExecutionException}. A cancellation and the exceptions of waiting for
+     * the stage are rethrown as they are.
+     */
+    private RuntimeException wrapFailure(Throwable t) throws ExecutionException {
+        if (!(t instanceof CancellationException) && future.isFailure(t)) {
+            throw new ExecutionException(t);
+        }
+        throw ExceptionUtil.<RuntimeException>sneakyThrow(t);
+    }
+
+    private <T> ExecutionCallback<T> completion() {
+        return new ExecutionCallback<T>() {
+            @Override
+            public void onResponse(T response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.complete(t);
+            }
+        };
+    }
+
+    private static final class StageFuture<V> extends AbstractCompletableFuture<V> {
+
+        StageFuture(Executor defaultExecutor) {
+            super(defaultExecutor, LOGGER);
+        }
+
+        void complete(Object result) {
+            setResult(result);
+        }
+
+        /** Checks if the given throwable is the result of this future, rather than thrown while waiting for it */
+        boolean isFailure(Throwable t) {
+            if (!isDone()) {
+                return false;
+            }
+            try {
+                getResult();
+                return false;
+            } catch (Throwable failure) {
+                return failure == t;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.core;
+
+import com.hazelcast.spi.annotation.Beta;
+import com.hazelcast.util.executor.CallerRunsExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static com.hazelcast.util.Preconditions.checkNotNull;
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * The Pipelining can be used to speed up requests. It is built on top of asynchronous requests like
+ * {@link IMap#getAsync(Object)} or any other asynchronous call.
+ * <p>
+ * The main purpose of the Pipelining is to control the number of concurrent requests when using asynchronous
+ * invocations. Without the Pipelining, a loop of asynchronous calls can send requests faster than they are
+ * processed and overload the system; with a synchronous call per entry, the throughput is bounded by the round
+ * trip time. The Pipelining keeps up to {@code depth} requests in flight and blocks the caller when this limit is
+ * reached, until one of the pending requests completes:
+ * <pre>
+ *     Pipelining&lt;String&gt; pipelining = new Pipelining&lt;String&gt;(10);
+ *     for (long k = 0; k &lt; 100; k++) {
+ *         pipelining.add(map.getAsync(k));
+ *     }
+ *     // wait for completion
+ *     List&lt;String&gt; results = pipelining.results();
+ * </pre>
+ * The Pipelining is not thread-safe; it should be used by a single thread only.
+ * <p>
+ * A Pipelining keeps all futures until {@link #results()} is called. For a large number of requests, use a new
+ * Pipelining per batch of requests.
+ *
+ * @param <E> the result type of the futures
+ * @since 3.9
+ */
+@Beta
+public class Pipelining<E> {
+
+    private final Semaphore permits;
+    private final List<ICompletableFuture<E>> futures = new ArrayList<ICompletableFuture<E>>();
+    private final ExecutionCallback<E> releasePermitCallback = new ExecutionCallback<E>() {
+        @Override
+        public void onResponse(E response) {
+            permits.release();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            permits.release();
+        }
+    };
+
+    /**
+     * Creates a Pipelining with the given depth.
+     *
+     * @param depth the maximum number of pending requests
+     * @throws IllegalArgumentException if depth is smaller than 1
+     */
+    public Pipelining(int depth) {
+        checkPositive(depth, "depth must be positive");
+        this.permits = new Semaphore(depth);
+    }
+
+    /**
+     * Adds a future to this Pipelining, blocking until the number of pending futures added before is below the
+     * depth of the Pipelining. So when this method returns, at most {@code depth} of the added futures are pending.
+     *
+     * @param future the future to add
+     * @return the added future
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws NullPointerException if future is null
+     */
+    public ICompletableFuture<E> add(ICompletableFuture<E> future) throws InterruptedException {
+        checkNotNull(future, "future can't be null");
+        permits.acquire();
+        futures.add(future);
+        future.andThen(releasePermitCallback, CallerRunsExecutor.INSTANCE);
+        return future;
+    }
+
+    /**
+     * Returns the results of the added futures in the order they were added, waiting for the pending ones.
+     *
+     * @return the results
+     * @throws Exception if any of the futures failed
+     */
+    public List<E> results() throws Exception {
+        List<E> result = new ArrayList<E>(futures.size());
+        for (ICompletableFuture<E> future : futures) {
+            result.add(future.get());
+        }
+        return result;
+    }
+}
@@ -17,6 +17,7 @@
 package com.hazelcast.hotrestart;
 
 import com.hazelcast.config.HotRestartPersistenceConfig;
+import com.hazelcast.internal.hotrestart.LocalReplicaStore;
 import com.hazelcast.internal.management.dto.ClusterHotRestartStatusDTO;
 import com.hazelcast.nio.Address;
 
@@ -86,4 +87,19 @@ public interface InternalHotRestartService {
      * it is excluded in cluster start.
      */
     void resetHotRestartData();
+
+    /**
+     * Returns the store which persists the local partition replicas, or {@code null} if local replica persistence is disabled.
+     */
+    LocalReplicaStore getLocalReplicaStore();
+
+    /**
+     * Called on a member before it applies the first partition table received from the master. Restores the local
+     * partition replicas which were persisted by the previous run of this member, if the partition table still assigns
+     * them to this member.
+     *
+     * @param partitionTable        the partition table received from the master
+     * @param partitionStateVersion the partition state version of the partition table
+     */
+    void beforeInitialPartitionTableApplied(Address[][] partitionTable, int partitionStateVersion);
 }
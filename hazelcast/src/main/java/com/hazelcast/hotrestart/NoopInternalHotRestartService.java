@@ -16,6 +16,7 @@
 
 package com.hazelcast.hotrestart;
 
+import com.hazelcast.internal.hotrestart.LocalReplicaStore;
 import com.hazelcast.internal.management.dto.ClusterHotRestartStatusDTO;
 import com.hazelcast.nio.Address;
 
@@ -64,4 +65,13 @@ public class NoopInternalHotRestartService implements InternalHotRestartService
     @Override
     public void resetHotRestartData() {
     }
+
+    @Override
+    public LocalReplicaStore getLocalReplicaStore() {
+        return null;
+    }
+
+    @Override
+    public void beforeInitialPartitionTableApplied(Address[][] partitionTable, int partitionStateVersion) {
+    }
 }
@@ -31,6 +31,7 @@ import com.hazelcast.internal.cluster.ClusterStateListener;
 import com.hazelcast.internal.cluster.ClusterVersionListener;
 import com.hazelcast.internal.cluster.impl.JoinMessage;
 import com.hazelcast.internal.cluster.impl.VersionMismatchException;
+import com.hazelcast.internal.hotrestart.LocalReplicaHotRestartService;
 import com.hazelcast.internal.networking.ChannelFactory;
 import com.hazelcast.internal.networking.ChannelInboundHandler;
 import com.hazelcast.internal.networking.ChannelOutboundHandler;
@@ -83,6 +84,8 @@ public class DefaultNodeExtension implements NodeExtension {
 
     private final MemoryStats memoryStats = new DefaultMemoryStats();
 
+    private volatile LocalReplicaHotRestartService localReplicaHotRestartService;
+
     public DefaultNodeExtension(Node node) {
         this.node = node;
         logger = node.getLogger(NodeExtension.class);
@@ -91,6 +94,9 @@ public class DefaultNodeExtension implements NodeExtension {
 
     @Override
     public void beforeStart() {
+        if (node.getProperties().getBoolean(GroupProperty.LOCAL_REPLICA_PERSISTENCE_ENABLED)) {
+            localReplicaHotRestartService = new LocalReplicaHotRestartService(node);
+        }
     }
 
     @Override
@@ -114,6 +120,9 @@ public class DefaultNodeExtension implements NodeExtension {
 
     @Override
     public void afterStart() {
+        if (localReplicaHotRestartService != null) {
+            localReplicaHotRestartService.afterStart();
+        }
     }
 
     @Override
@@ -224,6 +233,9 @@ public class DefaultNodeExtension implements NodeExtension {
 
     @Override
     public void beforeShutdown() {
+        if (localReplicaHotRestartService != null) {
+            localReplicaHotRestartService.beforeShutdown();
+        }
     }
 
     @Override
@@ -295,7 +307,8 @@ public class DefaultNodeExtension implements NodeExtension {
 
     @Override
     public InternalHotRestartService getInternalHotRestartService() {
-        return new NoopInternalHotRestartService();
+        LocalReplicaHotRestartService service = localReplicaHotRestartService;
+        return service != null ? service : new NoopInternalHotRestartService();
     }
 
     @Override
@@ -240,7 +240,8 @@ public final class HazelcastInstanceFactory {
         if (initialMinClusterSize > 1) {
             if (firstMember) {
                 node.partitionService.firstArrangement();
-            } else {
+            } else if (!node.partitionService.isPartitionTableInitialized()) {
+                // the partition table is already received with the member list in case of a bulk join
                 SECONDS.sleep(3);
             }
             hazelcastInstance.logger.info("HazelcastInstance starting after waiting for cluster size of "
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+import com.hazelcast.core.Member;
+
+/**
+ * Cluster failure detector tracks heartbeats of the members and decides the liveness/availability of them.
+ * All timestamps are cluster clock times.
+ */
+public interface ClusterFailureDetector {
+
+    /**
+     * Notifies this failure detector about the received heartbeat message from the tracked member.
+     *
+     * @param member    member which heartbeat message is received from
+     * @param timestamp timestamp of the heartbeat message in milliseconds
+     */
+    void heartbeat(Member member, long timestamp);
+
+    /**
+     * Notifies this failure detector about a heartbeat time of the tracked member which is gossiped by another member.
+     * It shows that the member was alive at that time, but unlike a received heartbeat message it does not tell
+     * anything about the arrival times of the heartbeats of the member.
+     *
+     * @param member    member whose heartbeat time is gossiped
+     * @param timestamp gossiped heartbeat time in milliseconds
+     */
+    void gossipedHeartbeat(Member member, long timestamp);
+
+    /**
+     * Returns true if the tracked member is considered as alive/available.
+     *
+     * @param member    tracked member
+     * @param timestamp timestamp in milliseconds to check the liveness of the member
+     * @return true if the member is alive
+     */
+    boolean isAlive(Member member, long timestamp);
+
+    /**
+     * Returns the last heartbeat timestamp for a member, or 0 if no heartbeat has been received from it yet.
+     *
+     * @param member member whose heartbeat timestamp is requested
+     * @return heartbeat timestamp in milliseconds
+     */
+    long lastHeartbeat(Member member);
+
+    /**
+     * Returns the suspicion level about a given member. The level is implementation specific:
+     * the elapsed time since the last heartbeat for the deadline detector and phi for the phi-accrual detector.
+     *
+     * @param member    tracked member
+     * @param timestamp timestamp in milliseconds to calculate the suspicion level
+     * @return suspicion level
+     */
+    double suspicionLevel(Member member, long timestamp);
+
+    /**
+     * Deregisters the member from the failure detector.
+     *
+     * @param member member to be removed
+     */
+    void remove(Member member);
+
+    /**
+     * Clears all the heartbeat history of this failure detector.
+     */
+    void reset();
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+/**
+ * Types of the cluster failure detectors, configured by
+ * {@link com.hazelcast.spi.properties.GroupProperty#HEARTBEAT_FAILURE_DETECTOR_TYPE}.
+ */
+public enum ClusterFailureDetectorType {
+
+    /**
+     * Suspects a member when no heartbeat has been received from it for a fixed timeout.
+     *
+     * @see DeadlineClusterFailureDetector
+     */
+    DEADLINE,
+
+    /**
+     * Suspects a member when the phi value, calculated from the history of heartbeat inter-arrival times,
+     * exceeds a threshold.
+     *
+     * @see PhiAccrualClusterFailureDetector
+     */
+    PHI_ACCRUAL
+}
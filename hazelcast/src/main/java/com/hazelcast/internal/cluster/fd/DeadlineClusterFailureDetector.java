@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+import com.hazelcast.core.Member;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deadline based failure detector. When there's no heartbeat for the configured timeout,
+ * the member is considered as dead.
+ */
+public class DeadlineClusterFailureDetector implements ClusterFailureDetector {
+
+    private final long maxNoHeartbeatMillis;
+    private final ConcurrentMap<Member, Long> heartbeatTimes = new ConcurrentHashMap<Member, Long>();
+
+    public DeadlineClusterFailureDetector(long maxNoHeartbeatMillis) {
+        this.maxNoHeartbeatMillis = maxNoHeartbeatMillis;
+    }
+
+    @Override
+    public void heartbeat(Member member, long timestamp) {
+        heartbeatTimes.put(member, timestamp);
+    }
+
+    @Override
+    public void gossipedHeartbeat(Member member, long timestamp) {
+        heartbeat(member, timestamp);
+    }
+
+    @Override
+    public boolean isAlive(Member member, long timestamp) {
+        long heartbeatTime = lastHeartbeat(member);
+        return (timestamp - heartbeatTime) <= maxNoHeartbeatMillis;
+    }
+
+    @Override
+    public long lastHeartbeat(Member member) {
+        Long heartbeatTime = heartbeatTimes.get(member);
+        return heartbeatTime != null ? heartbeatTime : 0L;
+    }
+
+    @Override
+    public double suspicionLevel(Member member, long timestamp) {
+        long heartbeatTime = lastHeartbeat(member);
+        return heartbeatTime != 0L ? timestamp - heartbeatTime : 0;
+    }
+
+    @Override
+    public void remove(Member member) {
+        heartbeatTimes.remove(member);
+    }
+
+    @Override
+    public void reset() {
+        heartbeatTimes.clear();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.spi.properties.HazelcastProperties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cluster failure detector based on the 'Phi Accrual Failure Detector', see {@link PhiAccrualFailureDetector}.
+ * <p>
+ * Unlike the {@link DeadlineClusterFailureDetector}, it adapts to the observed heartbeat inter-arrival times of
+ * each member. A member is suspected once it has been silent for longer than the learned inter-arrival time and its
+ * deviation plus {@link GroupProperty#HEARTBEAT_PHI_FAILURE_DETECTOR_ACCEPTABLE_PAUSE_MILLIS}. Only heartbeats
+ * received directly from a member are added to its inter-arrival history; gossiped heartbeat times only keep the
+ * member alive.
+ */
+public class PhiAccrualClusterFailureDetector implements ClusterFailureDetector {
+
+    private final double threshold;
+    private final int maxSampleSize;
+    private final double minStdDeviationMillis;
+    private final long acceptableHeartbeatPauseMillis;
+    private final long heartbeatIntervalMillis;
+
+    private final ConcurrentMap<Member, PhiAccrualFailureDetector> failureDetectors
+            = new ConcurrentHashMap<Member, PhiAccrualFailureDetector>();
+
+    public PhiAccrualClusterFailureDetector(long heartbeatIntervalMillis, HazelcastProperties properties) {
+        this(properties.getMillis(GroupProperty.HEARTBEAT_PHI_FAILURE_DETECTOR_ACCEPTABLE_PAUSE_MILLIS), heartbeatIntervalMillis,
+                properties.getFloat(GroupProperty.HEARTBEAT_PHI_FAILURE_DETECTOR_THRESHOLD),
+                properties.getInteger(GroupProperty.HEARTBEAT_PHI_FAILURE_DETECTOR_SAMPLE_SIZE),
+                properties.getInteger(GroupProperty.HEARTBEAT_PHI_FAILURE_DETECTOR_MIN_STD_DEV_MILLIS));
+    }
+
+    /**
+     * @param acceptableHeartbeatPauseMillis duration corresponding to number of potentially lost/delayed
+     *                                       heartbeats that will be accepted before considering it to be an anomaly
+     * @param heartbeatIntervalMillis        expected interval between the heartbeats of a member
+     * @param threshold                      the phi value above which a member is considered dead
+     * @param maxSampleSize                  number of inter-arrival times kept per member
+     * @param minStdDeviationMillis          minimum standard deviation used in the phi calculation
+     */
+    public PhiAccrualClusterFailureDetector(long acceptableHeartbeatPauseMillis, long heartbeatIntervalMillis,
+                                            double threshold, int maxSampleSize, double minStdDeviationMillis) {
+        this.acceptableHeartbeatPauseMillis = acceptableHeartbeatPauseMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.threshold = threshold;
+        this.maxSampleSize = maxSampleSize;
+        this.minStdDeviationMillis = minStdDeviationMillis;
+    }
+
+    @Override
+    public void heartbeat(Member member, long timestamp) {
+        PhiAccrualFailureDetector failureDetector = getOrCreateFailureDetector(member);
+        synchronized (failureDetector) {
+            failureDetector.heartbeat(timestamp);
+        }
+    }
+
+    @Override
+    public void gossipedHeartbeat(Member member, long timestamp) {
+        PhiAccrualFailureDetector failureDetector = getOrCreateFailureDetector(member);
+        synchronized (failureDetector) {
+            failureDetector.gossipedHeartbeat(timestamp);
+        }
+    }
+
+    @Override
+    public boolean isAlive(Member member, long timestamp) {
+        PhiAccrualFailureDetector failureDetector = failureDetectors.get(member);
+        if (failureDetector == null) {
+            return false;
+        }
+        synchronized (failureDetector) {
+            return failureDetector.isAvailable(timestamp);
+        }
+    }
+
+    @Override
+    public long lastHeartbeat(Member member) {
+        PhiAccrualFailureDetector failureDetector = failureDetectors.get(member);
+        if (failureDetector == null) {
+            return 0L;
+        }
+        synchronized (failureDetector) {
+            long lastHeartbeat = failureDetector.lastHeartbeat();
+            return lastHeartbeat != PhiAccrualFailureDetector.NO_HEARTBEAT_TIMESTAMP ? lastHeartbeat : 0L;
+        }
+    }
+
+    @Override
+    public double suspicionLevel(Member member, long timestamp) {
+        PhiAccrualFailureDetector failureDetector = failureDetectors.get(member);
+        if (failureDetector == null) {
+            return 0;
+        }
+        synchronized (failureDetector) {
+            return failureDetector.phi(timestamp);
+        }
+    }
+
+    @Override
+    public void remove(Member member) {
+        failureDetectors.remove(member);
+    }
+
+    @Override
+    public void reset() {
+        failureDetectors.clear();
+    }
+
+    private PhiAccrualFailureDetector getOrCreateFailureDetector(Member member) {
+        PhiAccrualFailureDetector failureDetector = failureDetectors.get(member);
+        if (failureDetector != null) {
+            return failureDetector;
+        }
+        failureDetector = new PhiAccrualFailureDetector(threshold, maxSampleSize, minStdDeviationMillis,
+                acceptableHeartbeatPauseMillis, heartbeatIntervalMillis);
+        PhiAccrualFailureDetector existing = failureDetectors.putIfAbsent(member, failureDetector);
+        return existing != null ? existing : failureDetector;
+    }
+}
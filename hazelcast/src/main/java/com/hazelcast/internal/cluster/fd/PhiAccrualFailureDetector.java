@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * Implementation of 'The Phi Accrual Failure Detector' by Hayashibara et al. as defined in their paper.
+ * <p>
+ * The suspicion level of failure is given by a value called φ (phi).
+ * The basic idea of the φ failure detector is to express the value of φ on a scale that
+ * is dynamically adjusted to reflect current network conditions. A configurable
+ * threshold is used to decide if φ is considered to be a failure.
+ * <p>
+ * The value of φ is calculated as:
+ * <pre>
+ * φ = -log10(1 - F(timeSinceLastHeartbeat)
+ * </pre>
+ * where F is the cumulative distribution function of a normal distribution with mean
+ * and standard deviation estimated from historical heartbeat inter-arrival times.
+ * <p>
+ * This class is not thread-safe, access to it is guarded by {@link PhiAccrualClusterFailureDetector}.
+ */
+final class PhiAccrualFailureDetector {
+
+    static final long NO_HEARTBEAT_TIMESTAMP = -1;
+
+    private static final double LOGISTIC_COEFFICIENT_1 = 1.5976;
+    private static final double LOGISTIC_COEFFICIENT_2 = 0.070566;
+    private static final int FIRST_HEARTBEAT_STD_DEV_DIVISOR = 4;
+
+    private final double threshold;
+    private final double minStdDeviationMillis;
+    private final long acceptableHeartbeatPauseMillis;
+
+    private final HeartbeatHistory heartbeatHistory;
+    private long lastHeartbeatMillis = NO_HEARTBEAT_TIMESTAMP;
+    private long lastReceivedHeartbeatMillis = NO_HEARTBEAT_TIMESTAMP;
+
+    /**
+     * @param threshold                      a low threshold is prone to generate many wrong suspicions but ensures
+     *                                       a quick detection in the event of a real crash. Conversely, a high threshold
+     *                                       generates fewer mistakes but needs more time to detect actual crashes
+     * @param maxSampleSize                  number of samples to use for calculation of mean and standard deviation of
+     *                                       inter-arrival times
+     * @param minStdDeviationMillis          minimum standard deviation to use for the normal distribution used when
+     *                                       calculating phi. Too low standard deviation might result in too much
+     *                                       sensitivity for sudden, but normal, deviations in heartbeat inter arrival times
+     * @param acceptableHeartbeatPauseMillis duration corresponding to number of potentially lost/delayed
+     *                                       heartbeats that will be accepted before considering it to be an anomaly.
+     *                                       This margin is important to be able to survive sudden, occasional, pauses
+     *                                       in heartbeat arrivals, due to for example garbage collect or network drop
+     * @param heartbeatIntervalMillis        bootstrap the stats with heartbeats that corresponds to this duration,
+     *                                       with a rather high standard deviation (since environment is unknown
+     *                                       in the beginning)
+     */
+    PhiAccrualFailureDetector(double threshold, int maxSampleSize, double minStdDeviationMillis,
+                              long acceptableHeartbeatPauseMillis, long heartbeatIntervalMillis) {
+        checkTrue(threshold > 0, "Threshold must be positive: " + threshold);
+        checkTrue(minStdDeviationMillis > 0, "Minimum standard deviation must be positive: " + minStdDeviationMillis);
+        checkPositive(heartbeatIntervalMillis, "Heartbeat interval must be positive: " + heartbeatIntervalMillis);
+
+        this.threshold = threshold;
+        this.minStdDeviationMillis = minStdDeviationMillis;
+        this.acceptableHeartbeatPauseMillis = Math.max(acceptableHeartbeatPauseMillis, 0);
+        this.heartbeatHistory = new HeartbeatHistory(maxSampleSize);
+
+        long stdDeviationMillis = heartbeatIntervalMillis / FIRST_HEARTBEAT_STD_DEV_DIVISOR;
+        heartbeatHistory.add(heartbeatIntervalMillis - stdDeviationMillis);
+        heartbeatHistory.add(heartbeatIntervalMillis + stdDeviationMillis);
+    }
+
+    /**
+     * Records a heartbeat received at the given timestamp. Heartbeats which are older than the last received one are
+     * ignored. The inter-arrival time is measured from the last received heartbeat, not from a gossiped one.
+     */
+    void heartbeat(long timestampMillis) {
+        if (lastReceivedHeartbeatMillis != NO_HEARTBEAT_TIMESTAMP) {
+            if (timestampMillis <= lastReceivedHeartbeatMillis) {
+                return;
+            }
+            long interArrivalTime = timestampMillis - lastReceivedHeartbeatMillis;
+            // don't use the first heartbeat after a failure for the history, since that is a pause
+            if (isAvailable(timestampMillis)) {
+                heartbeatHistory.add(interArrivalTime);
+            }
+        }
+        lastReceivedHeartbeatMillis = timestampMillis;
+        lastHeartbeatMillis = Math.max(lastHeartbeatMillis, timestampMillis);
+    }
+
+    /**
+     * Records a heartbeat time gossiped by another member. It moves the last heartbeat time forward, which phi is
+     * calculated from, but is not an arrival and is not added to the inter-arrival history.
+     */
+    void gossipedHeartbeat(long timestampMillis) {
+        lastHeartbeatMillis = Math.max(lastHeartbeatMillis, timestampMillis);
+    }
+
+    boolean isAvailable(long timestampMillis) {
+        return phi(timestampMillis) < threshold;
+    }
+
+    long lastHeartbeat() {
+        return lastHeartbeatMillis;
+    }
+
+    /**
+     * The suspicion level of the accrual failure detector at the given timestamp.
+     */
+    double phi(long timestampMillis) {
+        if (lastHeartbeatMillis == NO_HEARTBEAT_TIMESTAMP) {
+            return 0.0;
+        }
+        long timeDiffMillis = timestampMillis - lastHeartbeatMillis;
+        double meanMillis = heartbeatHistory.mean() + acceptableHeartbeatPauseMillis;
+        double stdDeviationMillis = Math.max(heartbeatHistory.stdDeviation(), minStdDeviationMillis);
+        return phi(timeDiffMillis, meanMillis, stdDeviationMillis);
+    }
+
+    /**
+     * Calculates the value of phi. Uses a logistic approximation to the cumulative normal distribution,
+     * which keeps the result finite and monotonic for large time differences.
+     */
+    static double phi(long timeDiffMillis, double meanMillis, double stdDeviationMillis) {
+        double y = (timeDiffMillis - meanMillis) / stdDeviationMillis;
+        double e = Math.exp(-y * (LOGISTIC_COEFFICIENT_1 + LOGISTIC_COEFFICIENT_2 * y * y));
+        if (timeDiffMillis > meanMillis) {
+            return -Math.log10(e / (1.0 + e));
+        } else {
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+    }
+
+    /**
+     * Holds the heartbeat statistics for a specific member.
+     * It is capped by the number of samples specified in {@code maxSampleSize}.
+     * <p>
+     * The stats (mean, variance, stdDeviation) are not defined for empty history,
+     * and the history is never empty since it is bootstrapped in the constructor.
+     */
+    private static class HeartbeatHistory {
+        private final int maxSampleSize;
+        private final long[] intervals;
+        private int size;
+        private int head;
+        private long intervalSum;
+        private long squaredIntervalSum;
+
+        HeartbeatHistory(int maxSampleSize) {
+            checkPositive(maxSampleSize, "Sample size must be positive: " + maxSampleSize);
+            this.maxSampleSize = maxSampleSize;
+            this.intervals = new long[maxSampleSize];
+        }
+
+        void add(long interval) {
+            if (size == maxSampleSize) {
+                long dropped = intervals[head];
+                intervalSum -= dropped;
+                squaredIntervalSum -= dropped * dropped;
+            } else {
+                size++;
+            }
+            intervals[head] = interval;
+            head = (head + 1) % maxSampleSize;
+            intervalSum += interval;
+            squaredIntervalSum += interval * interval;
+        }
+
+        double mean() {
+            return (double) intervalSum / size;
+        }
+
+        double variance() {
+            double mean = mean();
+            return Math.max((double) squaredIntervalSum / size - mean * mean, 0);
+        }
+
+        double stdDeviation() {
+            return Math.sqrt(variance());
+        }
+    }
+}
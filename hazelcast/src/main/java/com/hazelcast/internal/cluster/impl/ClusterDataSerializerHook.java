@@ -77,8 +77,9 @@ public final class ClusterDataSerializerHook implements DataSerializerHook {
     public static final int MEMBERS_VIEW_METADATA = 40;
     public static final int HEARTBEAT_COMPLAINT = 41;
     public static final int PROMOTE_LITE_MEMBER = 42;
+    public static final int GOSSIP_HEARTBEAT = 43;
 
-    static final int LEN = PROMOTE_LITE_MEMBER + 1;
+    static final int LEN = GOSSIP_HEARTBEAT + 1;
 
     @Override
     public int getFactoryId() {
@@ -311,6 +312,11 @@ public final class ClusterDataSerializerHook implements DataSerializerHook {
                 return new PromoteLiteMemberOp();
             }
         };
+        constructors[GOSSIP_HEARTBEAT] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new GossipHeartbeatOp();
+            }
+        };
         return new ArrayDataSerializableFactory(constructors);
     }
 }
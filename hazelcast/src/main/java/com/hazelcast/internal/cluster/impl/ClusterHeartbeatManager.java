@@ -20,6 +20,11 @@ import com.hazelcast.core.Member;
 import com.hazelcast.instance.MemberImpl;
 import com.hazelcast.instance.Node;
 import com.hazelcast.instance.NodeState;
+import com.hazelcast.internal.cluster.fd.ClusterFailureDetector;
+import com.hazelcast.internal.cluster.fd.ClusterFailureDetectorType;
+import com.hazelcast.internal.cluster.fd.DeadlineClusterFailureDetector;
+import com.hazelcast.internal.cluster.fd.PhiAccrualClusterFailureDetector;
+import com.hazelcast.internal.cluster.impl.operations.GossipHeartbeatOp;
 import com.hazelcast.internal.cluster.impl.operations.HeartbeatComplaintOp;
 import com.hazelcast.internal.cluster.impl.operations.HeartbeatOp;
 import com.hazelcast.internal.cluster.impl.operations.MasterConfirmationOp;
@@ -38,7 +43,15 @@ import com.hazelcast.util.EmptyStatement;
 
 import java.net.ConnectException;
 import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -58,7 +71,12 @@ import static java.util.concurrent.TimeUnit.MINUTES;
  * per node when a heartbeat is received from other nodes. If enabled and required, it can send
  * ping packets (an ICMP ping or an echo packet depending on the environment and settings).
  * <p/>
- * If it detects a member is not live anymore, that member is kicked out of cluster.
+ * If it detects a member is not live anymore, that member is kicked out of cluster. Liveness is decided by the
+ * {@link ClusterFailureDetector} configured with {@link GroupProperty#HEARTBEAT_FAILURE_DETECTOR_TYPE}.
+ * <p/>
+ * When {@link GroupProperty#HEARTBEAT_GOSSIP_FANOUT} is set, a member does not send heartbeats to every other member.
+ * It sends them only to the master (the master to every member, to keep the cluster clock in sync) and to a few
+ * randomly selected members, piggybacking the last heartbeat times it knows of the other members.
  * <p/>
  * Another job of ClusterHeartbeatManager is to send (if not master node) and track (if master)
  * master-confirmation requests. Each slave node sends a master-confirmation periodically and
@@ -78,7 +96,7 @@ public class ClusterHeartbeatManager {
     private final ClusterServiceImpl clusterService;
     private final ClusterClockImpl clusterClock;
 
-    private final ConcurrentMap<MemberImpl, Long> heartbeatTimes = new ConcurrentHashMap<MemberImpl, Long>();
+    private final ClusterFailureDetector heartbeatFailureDetector;
     private final ConcurrentMap<MemberImpl, Long> masterConfirmationTimes = new ConcurrentHashMap<MemberImpl, Long>();
 
     private final long maxNoHeartbeatMillis;
@@ -88,6 +106,7 @@ public class ClusterHeartbeatManager {
     private final boolean icmpEnabled;
     private final int icmpTtl;
     private final int icmpTimeoutMillis;
+    private final int gossipFanout;
 
     @Probe(name = "lastHeartbeat")
     private volatile long lastHeartbeat;
@@ -111,6 +130,28 @@ public class ClusterHeartbeatManager {
         icmpEnabled = hazelcastProperties.getBoolean(GroupProperty.ICMP_ENABLED);
         icmpTtl = hazelcastProperties.getInteger(GroupProperty.ICMP_TTL);
         icmpTimeoutMillis = (int) hazelcastProperties.getMillis(GroupProperty.ICMP_TIMEOUT);
+
+        heartbeatFailureDetector = createHeartbeatFailureDetector(hazelcastProperties);
+        gossipFanout = hazelcastProperties.getInteger(GroupProperty.HEARTBEAT_GOSSIP_FANOUT);
+    }
+
+    private ClusterFailureDetector createHeartbeatFailureDetector(HazelcastProperties properties) {
+        String type = properties.getString(GroupProperty.HEARTBEAT_FAILURE_DETECTOR_TYPE);
+        ClusterFailureDetectorType failureDetectorType;
+        try {
+            failureDetectorType = ClusterFailureDetectorType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown failure detector type: " + type + ", supported types: "
+                    + Arrays.toString(ClusterFailureDetectorType.values()), e);
+        }
+        switch (failureDetectorType) {
+            case DEADLINE:
+                return new DeadlineClusterFailureDetector(maxNoHeartbeatMillis);
+            case PHI_ACCRUAL:
+                return new PhiAccrualClusterFailureDetector(heartbeatIntervalMillis, properties);
+            default:
+                throw new IllegalArgumentException("Unknown failure detector type: " + type);
+        }
     }
 
     private static long getHeartbeatInterval(HazelcastProperties hazelcastProperties) {
@@ -318,13 +359,45 @@ public class ClusterHeartbeatManager {
             if (isMaster(member)) {
                 clusterClock.setMasterTime(timestamp);
             }
-            heartbeatTimes.put(member, clusterClock.getClusterTime());
+            heartbeatFailureDetector.heartbeat(member, clusterClock.getClusterTime());
 
             MembershipManager membershipManager = clusterService.getMembershipManager();
             membershipManager.clearMemberSuspicion(member.getAddress(), "Valid heartbeat");
         }
     }
 
+    /**
+     * Accepts the last heartbeat times of the other members gossiped by {@code senderMembersViewMetadata}.
+     * A gossiped heartbeat time is applied to the failure detector only if it is newer than the last known one.
+     * Unlike a direct heartbeat, it does not clear the suspicion of a member, since it does not prove that
+     * this member can communicate with it.
+     *
+     * @param senderMembersViewMetadata the member view metadata of the gossiping member
+     * @param heartbeatTimes            the last heartbeat times known by the gossiping member, mapped by member uuid
+     */
+    public void handleHeartbeatGossip(MembersViewMetadata senderMembersViewMetadata, Map<String, Long> heartbeatTimes) {
+        if (!clusterService.isJoined()) {
+            return;
+        }
+        MembershipManager membershipManager = clusterService.getMembershipManager();
+        if (membershipManager.getMember(senderMembersViewMetadata.getMemberAddress(),
+                senderMembersViewMetadata.getMemberUuid()) == null) {
+            return;
+        }
+
+        long clusterTime = clusterClock.getClusterTime();
+        for (Map.Entry<String, Long> entry : heartbeatTimes.entrySet()) {
+            MemberImpl member = membershipManager.getMember(entry.getKey());
+            long heartbeatTime = entry.getValue();
+            if (member == null || member.localMember() || clusterTime - heartbeatTime > maxNoHeartbeatMillis / 2) {
+                continue;
+            }
+            if (heartbeatTime > heartbeatFailureDetector.lastHeartbeat(member)) {
+                heartbeatFailureDetector.gossipedHeartbeat(member, Math.min(heartbeatTime, clusterTime));
+            }
+        }
+    }
+
     /**
      * Accepts the master confirmation message sent from cluster members to the master. The timestamp must be
      * related to the cluster clock, not the local clock. If the duration between {@code timestamp} and the current
@@ -439,6 +512,8 @@ public class ClusterHeartbeatManager {
      */
     private void heartbeatWhenMaster(long now) {
         Collection<MemberImpl> members = clusterService.getMemberImpls();
+        Set<MemberImpl> gossipTargets = selectGossipTargets(members);
+        Map<String, Long> gossipedHeartbeatTimes = gossipTargets.isEmpty() ? null : getKnownHeartbeatTimes(members);
         for (MemberImpl member : members) {
             if (!member.localMember()) {
                 try {
@@ -452,7 +527,7 @@ public class ClusterHeartbeatManager {
                     }
 
                     pingMemberIfRequired(now, member);
-                    sendHeartbeat(member);
+                    sendHeartbeat(member, gossipTargets.contains(member) ? gossipedHeartbeatTimes : null);
                 } catch (Throwable e) {
                     logger.severe(e);
                 }
@@ -461,7 +536,7 @@ public class ClusterHeartbeatManager {
     }
 
     /**
-     * Removes the {@code member} if it has not sent any heartbeats in {@link GroupProperty#MAX_NO_HEARTBEAT_SECONDS}.
+     * Removes the {@code member} if the failure detector considers it as not alive anymore.
      * If it has not sent any heartbeats in {@link #HEART_BEAT_INTERVAL_FACTOR} heartbeat intervals, it will log a warning.
      *
      * @param now    the current cluster clock time
@@ -474,10 +549,11 @@ public class ClusterHeartbeatManager {
         }
 
         long heartbeatTime = getHeartbeatTime(member);
-        if ((now - heartbeatTime) > maxNoHeartbeatMillis) {
-            String reason = format("Suspecting %s because it has not sent any heartbeats for %d ms."
-                            + " Now: %s, last heartbeat time was %s", member, maxNoHeartbeatMillis,
-                    timeToString(now), timeToString(heartbeatTime));
+        if (!heartbeatFailureDetector.isAlive(member, now)) {
+            double suspicionLevel = heartbeatFailureDetector.suspicionLevel(member, now);
+            String reason = format("Suspecting %s because it has not sent any heartbeats since %s."
+                            + " Now: %s, heartbeat timeout: %d ms, suspicion level: %.2f", member,
+                    timeToString(heartbeatTime), timeToString(now), maxNoHeartbeatMillis, suspicionLevel);
             logger.warning(reason);
             clusterService.suspectMember(member, reason, true);
             return true;
@@ -527,6 +603,8 @@ public class ClusterHeartbeatManager {
     private void heartbeatWhenSlave(long now) {
         MembershipManager membershipManager = clusterService.getMembershipManager();
         Collection<MemberImpl> members = clusterService.getMemberImpls();
+        Set<MemberImpl> gossipTargets = selectGossipTargets(members);
+        Map<String, Long> gossipedHeartbeatTimes = gossipTargets.isEmpty() ? null : getKnownHeartbeatTimes(members);
 
         for (MemberImpl member : members) {
             if (!member.localMember()) {
@@ -542,7 +620,11 @@ public class ClusterHeartbeatManager {
                     }
 
                     pingMemberIfRequired(now, member);
-                    sendHeartbeat(member);
+                    if (gossipTargets.contains(member)) {
+                        sendHeartbeat(member, gossipedHeartbeatTimes);
+                    } else if (gossipFanout <= 0 || isMaster(member)) {
+                        sendHeartbeat(member, null);
+                    }
                 } catch (Throwable e) {
                     logger.severe(e);
                 }
@@ -550,6 +632,38 @@ public class ClusterHeartbeatManager {
         }
     }
 
+    /**
+     * Selects the members which receive the heartbeat gossip of this round, at most
+     * {@link GroupProperty#HEARTBEAT_GOSSIP_FANOUT} random, non-suspected members other than this member.
+     * Returns an empty set if the heartbeat gossip is disabled.
+     */
+    private Set<MemberImpl> selectGossipTargets(Collection<MemberImpl> members) {
+        if (gossipFanout <= 0) {
+            return Collections.emptySet();
+        }
+        MembershipManager membershipManager = clusterService.getMembershipManager();
+        List<MemberImpl> candidates = new ArrayList<MemberImpl>(members.size());
+        for (MemberImpl member : members) {
+            if (!member.localMember() && !membershipManager.isMemberSuspected(member.getAddress())) {
+                candidates.add(member);
+            }
+        }
+        Collections.shuffle(candidates);
+        return new HashSet<MemberImpl>(candidates.subList(0, Math.min(gossipFanout, candidates.size())));
+    }
+
+    /** Returns the last heartbeat times known by this member, mapped by member uuid */
+    private Map<String, Long> getKnownHeartbeatTimes(Collection<MemberImpl> members) {
+        Map<String, Long> heartbeatTimes = new HashMap<String, Long>(members.size());
+        for (MemberImpl member : members) {
+            long heartbeatTime = getHeartbeatTime(member);
+            if (!member.localMember() && heartbeatTime > 0) {
+                heartbeatTimes.put(member.getUuid(), heartbeatTime);
+            }
+        }
+        return heartbeatTimes;
+    }
+
     private boolean isMaster(MemberImpl member) {
         return member.getAddress().equals(clusterService.getMasterAddress());
     }
@@ -600,16 +714,21 @@ public class ClusterHeartbeatManager {
         });
     }
 
-    /** Send a {@link HeartbeatOp} to the {@code target}
+    /** Send a {@link HeartbeatOp} to the {@code target}, or a {@link GossipHeartbeatOp} if there are heartbeat times
+     * to gossip
      * @param target target Member
+     * @param gossipedHeartbeatTimes the heartbeat times to gossip, or null
      */
-    private void sendHeartbeat(Member target) {
+    private void sendHeartbeat(Member target, Map<String, Long> gossipedHeartbeatTimes) {
         if (target == null) {
             return;
         }
         try {
             MembersViewMetadata membersViewMetadata = clusterService.getMembershipManager().createLocalMembersViewMetadata();
-            Operation op = new HeartbeatOp(membersViewMetadata, target.getUuid(), clusterClock.getClusterTime());
+            long clusterTime = clusterClock.getClusterTime();
+            Operation op = gossipedHeartbeatTimes != null
+                    ? new GossipHeartbeatOp(membersViewMetadata, target.getUuid(), clusterTime, gossipedHeartbeatTimes)
+                    : new HeartbeatOp(membersViewMetadata, target.getUuid(), clusterTime);
             op.setCallerUuid(clusterService.getThisUuid());
             node.nodeEngine.getOperationService().send(op, target.getAddress());
         } catch (Exception e) {
@@ -634,9 +753,8 @@ public class ClusterHeartbeatManager {
     }
 
     /** Return the last heartbeat time for the {@code member} */
-    private long getHeartbeatTime(MemberImpl member) {
-        Long heartbeatTime = heartbeatTimes.get(member);
-        return (heartbeatTime != null ? heartbeatTime : 0L);
+    long getHeartbeatTime(MemberImpl member) {
+        return heartbeatFailureDetector.lastHeartbeat(member);
     }
 
     /**
@@ -689,22 +807,26 @@ public class ClusterHeartbeatManager {
         }
     }
 
-    /** Reset all heartbeats to the current cluster time. Called when system clock jump is detected. */
+    /**
+     * Reset all heartbeats to the current cluster time. Called when system clock jump is detected.
+     * The heartbeat history is cleared, since the intervals spanning the jump are meaningless.
+     */
     private void resetHeartbeats() {
         long now = clusterClock.getClusterTime();
+        heartbeatFailureDetector.reset();
         for (MemberImpl member : clusterService.getMemberImpls()) {
-            heartbeatTimes.put(member, now);
+            heartbeatFailureDetector.heartbeat(member, now);
         }
     }
 
     /** Remove the {@code member}'s master confirmation and heartbeat timestamps */
     void removeMember(MemberImpl member) {
         masterConfirmationTimes.remove(member);
-        heartbeatTimes.remove(member);
+        heartbeatFailureDetector.remove(member);
     }
 
     void reset() {
         masterConfirmationTimes.clear();
-        heartbeatTimes.clear();
+        heartbeatFailureDetector.reset();
     }
 }
@@ -75,6 +75,8 @@ public class ClusterJoinManager {
     private final long maxWaitMillisBeforeJoin;
     private final long waitMillisBeforeJoin;
     private final long staleJoinPreventionDuration;
+    private final boolean bulkJoinEnabled;
+    private final int expectedClusterSize;
 
     private long firstJoinRequest;
     private long timeToStartJoin;
@@ -93,6 +95,8 @@ public class ClusterJoinManager {
         maxWaitMillisBeforeJoin = node.getProperties().getMillis(GroupProperty.MAX_WAIT_SECONDS_BEFORE_JOIN);
         waitMillisBeforeJoin = node.getProperties().getMillis(GroupProperty.WAIT_SECONDS_BEFORE_JOIN);
         staleJoinPreventionDuration = node.getProperties().getMillis(GroupProperty.MAX_JOIN_SECONDS);
+        bulkJoinEnabled = node.getProperties().getBoolean(GroupProperty.BULK_JOIN_ENABLED);
+        expectedClusterSize = node.getProperties().getInteger(GroupProperty.INITIAL_MIN_CLUSTER_SIZE);
     }
 
     boolean isJoinInProgress() {
@@ -403,6 +407,10 @@ public class ClusterJoinManager {
      * every new join request from a different address will prolong the wait time. After the initial period, join requests
      * will get processed as they arrive for the first time.
      *
+     * If the bulk join is enabled (see {@link GroupProperty#BULK_JOIN_ENABLED}) and the partition table is not initialized
+     * yet, the master waits until {@link GroupProperty#INITIAL_MIN_CLUSTER_SIZE} members are available instead, or until
+     * {@link GroupProperty#MAX_WAIT_SECONDS_BEFORE_JOIN} has passed since the first join request.
+     *
      * @param memberInfo the joining member info
      */
     private void startJoinRequest(MemberInfo memberInfo) {
@@ -428,11 +436,28 @@ public class ClusterJoinManager {
                     + " with a new uuid " + memberInfo.getUuid()
                     + ". Previous uuid was " + existing.getUuid());
         }
-        if (now >= timeToStartJoin) {
+        if (shouldStartJoin(now)) {
             startJoin();
         }
     }
 
+    private boolean shouldStartJoin(long now) {
+        if (!isBulkJoin() || expectedClusterSize <= 1) {
+            return now >= timeToStartJoin;
+        }
+        return isExpectedClusterSizeReached(clusterService.getSize() + joiningMembers.size())
+                || now - firstJoinRequest >= maxWaitMillisBeforeJoin;
+    }
+
+    /** Returns {@code true} if the bulk join is enabled and the cluster is still being formed */
+    private boolean isBulkJoin() {
+        return bulkJoinEnabled && !node.getPartitionService().isPartitionTableInitialized();
+    }
+
+    private boolean isExpectedClusterSizeReached(int clusterSize) {
+        return clusterSize >= expectedClusterSize;
+    }
+
     /**
      * Send join request to {@code toAddress}.
      *
@@ -698,6 +723,7 @@ public class ClusterJoinManager {
             InternalPartitionService partitionService = node.getPartitionService();
             try {
                 joinInProgress = true;
+                boolean bulkJoin = isBulkJoin();
 
                 // pause migrations until join, member-update and post-join operations are completed
                 partitionService.pauseMigration();
@@ -719,6 +745,14 @@ public class ClusterJoinManager {
 
                 persistJoinedMemberUuids(joiningMembers.values());
 
+                // assign the partitions to the final member set and send them together with the member list,
+                // instead of publishing the partition table and migrating partitions to the later joining members
+                if (bulkJoin && isExpectedClusterSizeReached(clusterService.getSize())
+                        && partitionService.initializePartitionTable()) {
+                    logger.info("Bulk join admitted " + joiningMembers.size() + " members, initialized the partition table for "
+                            + clusterService.getSize() + " members");
+                }
+
                 PartitionRuntimeState partitionRuntimeState = partitionService.createPartitionState();
                 for (MemberInfo member : joiningMembers.values()) {
                     long startTime = clusterClock.getClusterStartTime();
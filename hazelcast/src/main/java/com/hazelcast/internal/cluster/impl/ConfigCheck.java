@@ -22,6 +22,7 @@ import com.hazelcast.config.PartitionGroupConfig;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.util.EmptyStatement;
 
 import java.io.IOException;
@@ -30,6 +31,7 @@ import java.util.Map;
 
 import static com.hazelcast.spi.properties.GroupProperty.APPLICATION_VALIDATION_TOKEN;
 import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS;
 
 /**
  * Contains enough information about Hazelcast Config, to do a validation check so that clusters with different configurations
@@ -64,6 +66,9 @@ public final class ConfigCheck implements IdentifiedDataSerializable {
         // Copying all properties relevant for checking
         properties.put(PARTITION_COUNT.getName(), config.getProperty(PARTITION_COUNT.getName()));
         properties.put(APPLICATION_VALIDATION_TOKEN.getName(), config.getProperty(APPLICATION_VALIDATION_TOKEN.getName()));
+        // the effective value, since a member may be left at the default while another sets it explicitly
+        int maxParallelMigrations = Math.max(new HazelcastProperties(config).getInteger(PARTITION_MAX_PARALLEL_MIGRATIONS), 1);
+        properties.put(PARTITION_MAX_PARALLEL_MIGRATIONS.getName(), String.valueOf(maxParallelMigrations));
 
         // Copying group-config settings
         GroupConfig groupConfig = config.getGroupConfig();
@@ -103,6 +108,7 @@ public final class ConfigCheck implements IdentifiedDataSerializable {
         verifyPartitionGroup(found);
         verifyPartitionCount(found);
         verifyApplicationValidationToken(found);
+        verifyMaxParallelMigrations(found);
         return true;
     }
 
@@ -134,6 +140,19 @@ public final class ConfigCheck implements IdentifiedDataSerializable {
         }
     }
 
+    private void verifyMaxParallelMigrations(ConfigCheck found) {
+        String expectedMaxParallelMigrations = properties.get(PARTITION_MAX_PARALLEL_MIGRATIONS.getName());
+        String foundMaxParallelMigrations = found.properties.get(PARTITION_MAX_PARALLEL_MIGRATIONS.getName());
+        // members of older versions do not send the value, they do not run parallel migrations
+        if (expectedMaxParallelMigrations == null || foundMaxParallelMigrations == null) {
+            return;
+        }
+        if (!expectedMaxParallelMigrations.equals(foundMaxParallelMigrations)) {
+            throw new ConfigMismatchException("Incompatible '" + PARTITION_MAX_PARALLEL_MIGRATIONS + "'! expected: "
+                    + expectedMaxParallelMigrations + ", found: " + foundMaxParallelMigrations);
+        }
+    }
+
     private void verifyPartitionGroup(ConfigCheck found) {
         if (!partitionGroupEnabled && found.partitionGroupEnabled
                 || partitionGroupEnabled && !found.partitionGroupEnabled) {
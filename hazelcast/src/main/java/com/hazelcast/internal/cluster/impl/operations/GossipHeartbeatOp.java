@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.impl.operations;
+
+import com.hazelcast.internal.cluster.impl.ClusterDataSerializerHook;
+import com.hazelcast.internal.cluster.impl.ClusterHeartbeatManager;
+import com.hazelcast.internal.cluster.impl.ClusterServiceImpl;
+import com.hazelcast.internal.cluster.impl.MembersViewMetadata;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A heartbeat sent to a randomly selected member when heartbeat gossip is enabled. Besides the heartbeat of the
+ * sender, it carries the last heartbeat times (in cluster clock time) the sender knows of the other members.
+ *
+ * @see com.hazelcast.spi.properties.GroupProperty#HEARTBEAT_GOSSIP_FANOUT
+ */
+public final class GossipHeartbeatOp extends AbstractClusterOperation {
+
+    private MembersViewMetadata senderMembersViewMetadata;
+    private String targetUuid;
+    private long timestamp;
+    private Map<String, Long> heartbeatTimes;
+
+    public GossipHeartbeatOp() {
+    }
+
+    public GossipHeartbeatOp(MembersViewMetadata senderMembersViewMetadata, String targetUuid, long timestamp,
+                             Map<String, Long> heartbeatTimes) {
+        this.senderMembersViewMetadata = senderMembersViewMetadata;
+        this.targetUuid = targetUuid;
+        this.timestamp = timestamp;
+        this.heartbeatTimes = heartbeatTimes;
+    }
+
+    @Override
+    public void run() {
+        ClusterServiceImpl service = getService();
+        ClusterHeartbeatManager heartbeatManager = service.getClusterHeartbeatManager();
+        heartbeatManager.handleHeartbeat(senderMembersViewMetadata, targetUuid, timestamp);
+        heartbeatManager.handleHeartbeatGossip(senderMembersViewMetadata, heartbeatTimes);
+    }
+
+    @Override
+    public int getId() {
+        return ClusterDataSerializerHook.GOSSIP_HEARTBEAT;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeObject(senderMembersViewMetadata);
+        out.writeUTF(targetUuid);
+        out.writeLong(timestamp);
+        out.writeInt(heartbeatTimes.size());
+        for (Map.Entry<String, Long> entry : heartbeatTimes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        senderMembersViewMetadata = in.readObject();
+        targetUuid = in.readUTF();
+        timestamp = in.readLong();
+        int size = in.readInt();
+        heartbeatTimes = new HashMap<String, Long>(size);
+        for (int i = 0; i < size; i++) {
+            heartbeatTimes.put(in.readUTF(), in.readLong());
+        }
+    }
+}
@@ -60,8 +60,21 @@ public final class ConfigValidator {
      * @param isClient        {@code true} if the config is for a Hazelcast client, {@code false} otherwise
      */
     public static void checkNearCacheConfig(String mapName, NearCacheConfig nearCacheConfig, boolean isClient) {
+        checkNearCacheConfig(mapName, nearCacheConfig, null, isClient);
+    }
+
+    /**
+     * Checks preconditions to create a map proxy with Near Cache.
+     *
+     * @param mapName            name of the map that Near Cache will be created for
+     * @param nearCacheConfig    the {@link NearCacheConfig} to be checked
+     * @param nativeMemoryConfig the {@link NativeMemoryConfig} of the Hazelcast instance (can be {@code null})
+     * @param isClient           {@code true} if the config is for a Hazelcast client, {@code false} otherwise
+     */
+    public static void checkNearCacheConfig(String mapName, NearCacheConfig nearCacheConfig,
+                                            NativeMemoryConfig nativeMemoryConfig, boolean isClient) {
         checkLocalUpdatePolicy(mapName, nearCacheConfig);
-        checkNotNative(nearCacheConfig.getInMemoryFormat());
+        checkNearCacheNativeMemoryConfig(nearCacheConfig.getInMemoryFormat(), nativeMemoryConfig);
         checkEvictionConfig(nearCacheConfig.getEvictionConfig(), true);
 
         if (isClient && nearCacheConfig.isCacheLocalEntries()) {
@@ -151,6 +164,19 @@ public final class ConfigValidator {
         }
     }
 
+    /**
+     * Throws {@link IllegalArgumentException} if the supplied {@link InMemoryFormat} is {@link InMemoryFormat#NATIVE}
+     * and native memory is not enabled.
+     *
+     * @param inMemoryFormat     supplied inMemoryFormat
+     * @param nativeMemoryConfig supplied NativeMemoryConfig (can be {@code null})
+     */
+    private static void checkNearCacheNativeMemoryConfig(InMemoryFormat inMemoryFormat, NativeMemoryConfig nativeMemoryConfig) {
+        if (inMemoryFormat == NATIVE && (nativeMemoryConfig == null || !nativeMemoryConfig.isEnabled())) {
+            throw new IllegalArgumentException("Enable native memory config to use NATIVE in-memory-format for Near Cache");
+        }
+    }
+
     /**
      * Throws {@link IllegalArgumentException} if the supplied {@link NearCacheConfig}
      * has an invalid {@link NearCachePreloaderConfig}.
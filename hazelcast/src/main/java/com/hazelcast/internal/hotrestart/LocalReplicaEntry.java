@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.nio.serialization.Data;
+
+/**
+ * Value and record metadata of a map entry persisted in a local partition replica. The metadata is restored with the
+ * value, so the expiration and the version of the entry survive a restart.
+ */
+public final class LocalReplicaEntry {
+
+    private final Data value;
+    private final long ttl;
+    private final long creationTime;
+    private final long lastAccessTime;
+    private final long lastUpdateTime;
+    private final long expirationTime;
+    private final long version;
+
+    public LocalReplicaEntry(Data value, long ttl, long creationTime, long lastAccessTime, long lastUpdateTime,
+                             long expirationTime, long version) {
+        this.value = value;
+        this.ttl = ttl;
+        this.creationTime = creationTime;
+        this.lastAccessTime = lastAccessTime;
+        this.lastUpdateTime = lastUpdateTime;
+        this.expirationTime = expirationTime;
+        this.version = version;
+    }
+
+    public Data getValue() {
+        return value;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.hotrestart.NoopInternalHotRestartService;
+import com.hazelcast.instance.Node;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.impl.InternalPartitionServiceImpl;
+import com.hazelcast.internal.partition.impl.PartitionReplicaManager;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.map.impl.MapContainer;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.PartitionContainer;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.record.Records;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.Indexes;
+import com.hazelcast.spi.ObjectNamespace;
+import com.hazelcast.spi.ServiceNamespace;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.impl.PartitionSpecificRunnable;
+import com.hazelcast.spi.impl.operationservice.InternalOperationService;
+import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.util.Clock;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.nio.IOUtil.toFileName;
+import static com.hazelcast.spi.properties.GroupProperty.LOCAL_REPLICA_PERSISTENCE_DIR;
+import static com.hazelcast.spi.properties.GroupProperty.LOCAL_REPLICA_PERSISTENCE_SEGMENT_SIZE;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+
+/**
+ * {@link com.hazelcast.hotrestart.InternalHotRestartService} which persists the IMap entries of the local partition
+ * replicas in a {@link LocalReplicaStore} and restores them when the member restarts.
+ * <p>
+ * When the member shuts down, each partition thread closes the log of its partitions and records their replica index
+ * and replica versions, so the persisted entries and versions match. When the member rejoins, the replicas which the
+ * partition table received from the master still assigns to the same replica index of this member are restored on
+ * their partition threads, before the partition table is applied. So no operation of these partitions is executed
+ * before the restore. The restored replica versions let the anti-entropy mechanism skip the replica sync of the
+ * restored backups, or replicate just the differences, if the Merkle trees of the maps are enabled.
+ * <p>
+ * The replicas are restored only into the same cluster, identified by its cluster ID, and only if the partition state
+ * version has not been reset in the meantime. Otherwise the persisted replicas are discarded.
+ */
+public class LocalReplicaHotRestartService extends NoopInternalHotRestartService {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Node node;
+    private final ILogger logger;
+    private final LocalReplicaStore store;
+    private final AtomicBoolean restoreStarted = new AtomicBoolean();
+
+    public LocalReplicaHotRestartService(Node node) {
+        this.node = node;
+        this.logger = node.getLogger(getClass());
+        HazelcastProperties properties = node.getProperties();
+        Address address = node.getThisAddress();
+        File directory = new File(properties.getString(LOCAL_REPLICA_PERSISTENCE_DIR),
+                toFileName(address.getHost() + "-" + address.getPort()));
+        this.store = new LocalReplicaStore(directory, properties.getInteger(PARTITION_COUNT),
+                properties.getInteger(LOCAL_REPLICA_PERSISTENCE_SEGMENT_SIZE), logger);
+        logger.info("Local replica persistence is enabled in " + directory.getAbsolutePath());
+    }
+
+    @Override
+    public LocalReplicaStore getLocalReplicaStore() {
+        return store;
+    }
+
+    @Override
+    public void beforeInitialPartitionTableApplied(Address[][] partitionTable, int partitionStateVersion) {
+        if (!restoreStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        LocalReplicaStore.ReplicaState replicaState = store.readRestoredReplicaState(node.getSerializationService());
+        String clusterId = node.getClusterService().getClusterId();
+        if (replicaState == null || !replicaState.clusterId.equals(clusterId)
+                || partitionStateVersion < replicaState.partitionStateVersion) {
+            if (replicaState != null) {
+                logger.info("Discarding the persisted local replicas, they belong to another cluster or partition table");
+            }
+            store.discardRestoredReplicas();
+            return;
+        }
+
+        Address thisAddress = node.getThisAddress();
+        List<Integer> partitionIds = new ArrayList<Integer>();
+        for (int partitionId = 0; partitionId < partitionTable.length; partitionId++) {
+            int replicaIndex = replicaState.replicaIndexes[partitionId];
+            if (replicaIndex >= 0 && thisAddress.equals(partitionTable[partitionId][replicaIndex])) {
+                partitionIds.add(partitionId);
+            }
+        }
+        logger.info("Restoring " + partitionIds.size() + " persisted local partition replicas");
+        if (partitionIds.isEmpty()) {
+            store.discardRestoredReplicas();
+            return;
+        }
+
+        InternalOperationService operationService = node.getNodeEngine().getOperationService();
+        AtomicInteger remaining = new AtomicInteger(partitionIds.size());
+        for (int partitionId : partitionIds) {
+            operationService.execute(new RestoreReplicaTask(partitionId, replicaState.replicaIndexes[partitionId],
+                    replicaState.replicaVersions.get(partitionId), remaining));
+        }
+    }
+
+    /**
+     * Discards the persisted replicas if this member has become the master while starting, since the master creates
+     * the partition table itself.
+     */
+    public void afterStart() {
+        if (node.isMaster() && restoreStarted.compareAndSet(false, true)) {
+            store.discardRestoredReplicas();
+        }
+    }
+
+    /**
+     * Closes the logs of all partitions on their partition threads and persists the replica state of this member.
+     */
+    public void beforeShutdown() {
+        if (restoreStarted.compareAndSet(false, true)) {
+            store.discardRestoredReplicas();
+        }
+
+        NodeEngineImpl nodeEngine = node.getNodeEngine();
+        InternalPartitionServiceImpl partitionService = node.partitionService;
+        String clusterId = node.getClusterService().getClusterId();
+        if (clusterId == null || !partitionService.getPartitionStateManager().isInitialized()) {
+            return;
+        }
+
+        int partitionCount = partitionService.getPartitionCount();
+        int[] replicaIndexes = new int[partitionCount];
+        List<Map<ServiceNamespace, long[]>> replicaVersions = new ArrayList<Map<ServiceNamespace, long[]>>(
+                Collections.<Map<ServiceNamespace, long[]>>nCopies(partitionCount, null));
+        CountDownLatch latch = new CountDownLatch(partitionCount);
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            nodeEngine.getOperationService().execute(
+                    new CloseReplicaTask(partitionId, replicaIndexes, replicaVersions, latch));
+        }
+        try {
+            if (!latch.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Local replicas could not be closed in " + SHUTDOWN_TIMEOUT_SECONDS + " seconds,"
+                        + " they will not be restored");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        int partitionStateVersion = partitionService.getPartitionStateVersion();
+        store.persistReplicaState(
+                new LocalReplicaStore.ReplicaState(clusterId, partitionStateVersion, replicaIndexes, replicaVersions),
+                node.getSerializationService());
+    }
+
+    private static boolean isMapNamespace(ServiceNamespace namespace) {
+        return namespace instanceof ObjectNamespace && MapService.SERVICE_NAME.equals(namespace.getServiceName());
+    }
+
+    /**
+     * Records the replica index and the map replica versions of a partition and closes its log.
+     * Runs on the partition thread, so the recorded versions match the persisted entries.
+     */
+    private final class CloseReplicaTask implements PartitionSpecificRunnable {
+
+        private final int partitionId;
+        private final int[] replicaIndexes;
+        private final List<Map<ServiceNamespace, long[]>> replicaVersions;
+        private final CountDownLatch latch;
+
+        CloseReplicaTask(int partitionId, int[] replicaIndexes, List<Map<ServiceNamespace, long[]>> replicaVersions,
+                         CountDownLatch latch) {
+            this.partitionId = partitionId;
+            this.replicaIndexes = replicaIndexes;
+            this.replicaVersions = replicaVersions;
+            this.latch = latch;
+        }
+
+        @Override
+        public int getPartitionId() {
+            return partitionId;
+        }
+
+        @Override
+        public void run() {
+            try {
+                InternalPartitionServiceImpl partitionService = node.partitionService;
+                InternalPartition partition = partitionService.getPartition(partitionId, false);
+                PartitionReplicaManager replicaManager = partitionService.getReplicaManager();
+
+                Map<ServiceNamespace, long[]> versions = new HashMap<ServiceNamespace, long[]>();
+                for (ServiceNamespace namespace : replicaManager.getNamespaces(partitionId)) {
+                    if (isMapNamespace(namespace)) {
+                        long[] namespaceVersions = replicaManager.getPartitionReplicaVersions(partitionId, namespace);
+                        versions.put(namespace, Arrays.copyOf(namespaceVersions, namespaceVersions.length));
+                    }
+                }
+                replicaIndexes[partitionId] = partition.getReplicaIndex(node.getThisAddress());
+                replicaVersions.set(partitionId, versions);
+                store.closeLog(partitionId);
+            } finally {
+                latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Loads the persisted entries of a partition into its record stores and restores its map replica versions.
+     * Runs on the partition thread before any operation of the partition.
+     */
+    private final class RestoreReplicaTask implements PartitionSpecificRunnable {
+
+        private final int partitionId;
+        private final int replicaIndex;
+        private final Map<ServiceNamespace, long[]> versions;
+        private final AtomicInteger remaining;
+
+        RestoreReplicaTask(int partitionId, int replicaIndex, Map<ServiceNamespace, long[]> versions,
+                           AtomicInteger remaining) {
+            this.partitionId = partitionId;
+            this.replicaIndex = replicaIndex;
+            this.versions = versions;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int getPartitionId() {
+            return partitionId;
+        }
+
+        @Override
+        public void run() {
+            try {
+                restoreEntries();
+                restoreVersions();
+            } catch (Exception e) {
+                logger.warning("Could not restore the persisted local replica of partition " + partitionId, e);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    store.discardRestoredReplicas();
+                    logger.info("Restored the persisted local partition replicas");
+                }
+            }
+        }
+
+        private void restoreEntries() {
+            Map<String, Map<Data, LocalReplicaEntry>> entries = store.readRestoredEntries(partitionId);
+            MapService mapService = node.getNodeEngine().getService(MapService.SERVICE_NAME);
+            MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+            PartitionContainer partitionContainer = mapServiceContext.getPartitionContainer(partitionId);
+            InternalSerializationService serializationService = node.getSerializationService();
+            long now = Clock.currentTimeMillis();
+
+            for (Map.Entry<String, Map<Data, LocalReplicaEntry>> mapEntries : entries.entrySet()) {
+                MapContainer mapContainer = mapServiceContext.getMapContainer(mapEntries.getKey());
+                if (mapContainer.getMapConfig().getInMemoryFormat() == InMemoryFormat.NATIVE) {
+                    continue;
+                }
+                RecordStore recordStore = partitionContainer.getRecordStore(mapEntries.getKey(), true);
+                Indexes indexes = mapContainer.getIndexes();
+                for (Map.Entry<Data, LocalReplicaEntry> entry : mapEntries.getValue().entrySet()) {
+                    Data key = entry.getKey();
+                    if (recordStore.getRecord(key) != null) {
+                        continue;
+                    }
+                    Record record = createRecord(recordStore, entry.getValue(), now);
+                    recordStore.putRecord(key, record);
+                    if (replicaIndex == 0 && indexes.hasIndex()) {
+                        Object value = Records.getValueOrCachedValue(record, serializationService);
+                        indexes.saveEntryIndex(mapContainer.newQueryEntry(key, value), null);
+                    }
+                }
+            }
+        }
+
+        private Record createRecord(RecordStore recordStore, LocalReplicaEntry entry, long now) {
+            Record record = recordStore.createRecord(entry.getValue(), entry.getTtl(), now);
+            record.setCreationTime(entry.getCreationTime());
+            record.setLastAccessTime(entry.getLastAccessTime());
+            record.setLastUpdateTime(entry.getLastUpdateTime());
+            record.setExpirationTime(entry.getExpirationTime());
+            record.setVersion(entry.getVersion());
+            return record;
+        }
+
+        private void restoreVersions() {
+            PartitionReplicaManager replicaManager = node.partitionService.getReplicaManager();
+            for (Map.Entry<ServiceNamespace, long[]> entry : versions.entrySet()) {
+                long[] currentVersions = replicaManager.getPartitionReplicaVersions(partitionId, entry.getKey());
+                if (isZero(currentVersions)) {
+                    replicaManager.setPartitionReplicaVersions(partitionId, entry.getKey(), entry.getValue(), 1);
+                }
+            }
+        }
+
+        private boolean isZero(long[] versions) {
+            for (long version : versions) {
+                if (version != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.ServiceNamespace;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.delete;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static com.hazelcast.nio.IOUtil.rename;
+import static com.hazelcast.nio.IOUtil.toByteArray;
+
+/**
+ * Persists the map entries of the local partition replicas in a {@link PartitionReplicaLog} per partition.
+ * <p>
+ * The logs are valid only together with the replica state file, which is written when the member shuts down and
+ * holds the replica index and the replica versions of each partition. When the store is opened, the logs and the
+ * replica state file of the previous run are moved aside, so they can be restored until they are discarded. If the
+ * previous run has not written the replica state file, e.g. because the JVM crashed, its logs are discarded right away.
+ * <p>
+ * The logs of a partition are written by its partition thread, but they are also closed and written by other threads
+ * while the member shuts down, so the methods are synchronized per partition.
+ */
+public final class LocalReplicaStore {
+
+    private static final String PARTITIONS_DIR = "partitions";
+    private static final String RESTORE_DIR = "restore";
+    private static final String REPLICA_STATE_FILE = "replicas.state";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final int partitionCount;
+    private final int segmentSize;
+    private final ILogger logger;
+    private final Object[] mutexes;
+    private final PartitionReplicaLog[] logs;
+    private final boolean[] failed;
+    private final boolean[] closed;
+
+    /**
+     * Opens the store and moves the logs of the previous run aside.
+     *
+     * @param directory      the directory of this member
+     * @param partitionCount the partition count
+     * @param segmentSize    the size of a log segment in bytes
+     * @param logger         the logger
+     */
+    public LocalReplicaStore(File directory, int partitionCount, int segmentSize, ILogger logger) {
+        this.directory = directory;
+        this.partitionCount = partitionCount;
+        this.segmentSize = segmentSize;
+        this.logger = logger;
+        this.mutexes = new Object[partitionCount];
+        this.logs = new PartitionReplicaLog[partitionCount];
+        this.failed = new boolean[partitionCount];
+        this.closed = new boolean[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            mutexes[i] = new Object();
+        }
+
+        File partitionsDir = new File(directory, PARTITIONS_DIR);
+        File restoreDir = new File(directory, RESTORE_DIR);
+        File stateFile = new File(directory, REPLICA_STATE_FILE);
+        delete(restoreDir);
+        if (stateFile.exists() && partitionsDir.exists()) {
+            rename(partitionsDir, restoreDir);
+            rename(stateFile, new File(restoreDir, REPLICA_STATE_FILE));
+        } else {
+            delete(partitionsDir);
+            delete(stateFile);
+        }
+        if (!partitionsDir.mkdirs()) {
+            throw new HazelcastException("Could not create " + partitionsDir.getAbsolutePath());
+        }
+    }
+
+    public void put(int partitionId, String name, Data key, LocalReplicaEntry entry) {
+        synchronized (mutexes[partitionId]) {
+            PartitionReplicaLog log = getLog(partitionId);
+            if (log != null) {
+                try {
+                    log.appendPut(name, key, entry);
+                } catch (IOException e) {
+                    onFailure(partitionId, e);
+                }
+            }
+        }
+    }
+
+    public void remove(int partitionId, String name, Data key) {
+        synchronized (mutexes[partitionId]) {
+            PartitionReplicaLog log = getLog(partitionId);
+            if (log != null) {
+                try {
+                    log.appendRemove(name, key);
+                } catch (IOException e) {
+                    onFailure(partitionId, e);
+                }
+            }
+        }
+    }
+
+    public void clear(int partitionId, String name) {
+        synchronized (mutexes[partitionId]) {
+            PartitionReplicaLog log = getLog(partitionId);
+            if (log != null) {
+                try {
+                    log.appendClear(name);
+                } catch (IOException e) {
+                    onFailure(partitionId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the log of the partition to the storage device and closes it, the following changes are not persisted.
+     */
+    void closeLog(int partitionId) {
+        synchronized (mutexes[partitionId]) {
+            closed[partitionId] = true;
+            PartitionReplicaLog log = logs[partitionId];
+            logs[partitionId] = null;
+            if (log != null) {
+                log.force();
+            }
+        }
+    }
+
+    /**
+     * Reads the replica state of the previous run.
+     *
+     * @return the replica state or {@code null} if there is nothing to restore
+     */
+    ReplicaState readRestoredReplicaState(InternalSerializationService serializationService) {
+        File stateFile = new File(new File(directory, RESTORE_DIR), REPLICA_STATE_FILE);
+        if (!stateFile.exists()) {
+            return null;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(stateFile);
+            BufferObjectDataInput input = serializationService.createObjectDataInput(toByteArray(in));
+            String clusterId = input.readUTF();
+            int partitionStateVersion = input.readInt();
+            int count = input.readInt();
+            if (count != partitionCount) {
+                logger.warning("Local replicas were persisted with partition count " + count + " instead of " + partitionCount);
+                return null;
+            }
+            int[] replicaIndexes = new int[count];
+            List<Map<ServiceNamespace, long[]>> replicaVersions = new ArrayList<Map<ServiceNamespace, long[]>>(count);
+            for (int partitionId = 0; partitionId < count; partitionId++) {
+                replicaIndexes[partitionId] = input.readInt();
+                int namespaceCount = input.readInt();
+                Map<ServiceNamespace, long[]> versions = new HashMap<ServiceNamespace, long[]>(namespaceCount);
+                for (int i = 0; i < namespaceCount; i++) {
+                    ServiceNamespace namespace = input.readObject();
+                    versions.put(namespace, input.readLongArray());
+                }
+                replicaVersions.add(versions);
+            }
+            return new ReplicaState(clusterId, partitionStateVersion, replicaIndexes, replicaVersions);
+        } catch (Exception e) {
+            logger.warning("Could not read the persisted local replica state from " + stateFile, e);
+            return null;
+        } finally {
+            closeResource(in);
+        }
+    }
+
+    /**
+     * Reads the live entries which have been persisted for the partition by the previous run and deletes its log.
+     *
+     * @return the live entries by map name
+     */
+    Map<String, Map<Data, LocalReplicaEntry>> readRestoredEntries(int partitionId) {
+        File partitionDir = new File(new File(directory, RESTORE_DIR), String.valueOf(partitionId));
+        try {
+            return PartitionReplicaLog.read(partitionDir);
+        } catch (IOException e) {
+            logger.warning("Could not read the persisted local replica of partition " + partitionId, e);
+            return Collections.emptyMap();
+        } finally {
+            deleteQuietly(partitionDir);
+        }
+    }
+
+    /**
+     * Deletes the logs and the replica state of the previous run.
+     */
+    void discardRestoredReplicas() {
+        deleteQuietly(new File(directory, RESTORE_DIR));
+    }
+
+    /**
+     * Writes the replica state file, which makes the closed logs restorable. Partitions whose logs failed or have not been
+     * closed are written without replica index, so they are not restored.
+     *
+     * @param state the current replica state
+     */
+    void persistReplicaState(ReplicaState state, InternalSerializationService serializationService) {
+        BufferObjectDataOutput output = serializationService.createObjectDataOutput();
+        FileOutputStream out = null;
+        File tmpFile = new File(directory, REPLICA_STATE_FILE + TMP_FILE_SUFFIX);
+        try {
+            output.writeUTF(state.clusterId);
+            output.writeInt(state.partitionStateVersion);
+            output.writeInt(partitionCount);
+            for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+                synchronized (mutexes[partitionId]) {
+                    boolean valid = closed[partitionId] && !failed[partitionId];
+                    output.writeInt(valid ? state.replicaIndexes[partitionId] : -1);
+                    Map<ServiceNamespace, long[]> versions = valid
+                            ? state.replicaVersions.get(partitionId) : Collections.<ServiceNamespace, long[]>emptyMap();
+                    output.writeInt(versions.size());
+                    for (Map.Entry<ServiceNamespace, long[]> entry : versions.entrySet()) {
+                        output.writeObject(entry.getKey());
+                        output.writeLongArray(entry.getValue());
+                    }
+                }
+            }
+            out = new FileOutputStream(tmpFile);
+            out.write(output.toByteArray());
+            out.getFD().sync();
+            closeResource(out);
+            out = null;
+            rename(tmpFile, new File(directory, REPLICA_STATE_FILE));
+        } catch (Exception e) {
+            logger.warning("Could not persist the local replica state to " + directory, e);
+        } finally {
+            closeResource(out);
+            closeResource(output);
+        }
+    }
+
+    private PartitionReplicaLog getLog(int partitionId) {
+        if (failed[partitionId] || closed[partitionId]) {
+            return null;
+        }
+        PartitionReplicaLog log = logs[partitionId];
+        if (log == null) {
+            File partitionDir = new File(new File(directory, PARTITIONS_DIR), String.valueOf(partitionId));
+            try {
+                log = new PartitionReplicaLog(partitionDir, segmentSize);
+                logs[partitionId] = log;
+            } catch (Exception e) {
+                onFailure(partitionId, e);
+            }
+        }
+        return log;
+    }
+
+    private void onFailure(int partitionId, Exception e) {
+        logger.warning("Local replica persistence of partition " + partitionId + " failed,"
+                + " the replica will not be restored on restart", e);
+        failed[partitionId] = true;
+        PartitionReplicaLog log = logs[partitionId];
+        logs[partitionId] = null;
+        if (log != null) {
+            try {
+                log.destroy();
+            } catch (Exception ignored) {
+                logger.finest("Could not delete the log of partition " + partitionId, ignored);
+            }
+        }
+    }
+
+    /**
+     * Replica indexes and replica versions of the partitions of this member.
+     */
+    static final class ReplicaState {
+
+        final String clusterId;
+        final int partitionStateVersion;
+        final int[] replicaIndexes;
+        final List<Map<ServiceNamespace, long[]>> replicaVersions;
+
+        ReplicaState(String clusterId, int partitionStateVersion, int[] replicaIndexes,
+                     List<Map<ServiceNamespace, long[]>> replicaVersions) {
+            this.clusterId = clusterId;
+            this.partitionStateVersion = partitionStateVersion;
+            this.replicaIndexes = replicaIndexes;
+            this.replicaVersions = replicaVersions;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.hazelcast.nio.Bits.BYTE_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.SHORT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.delete;
+import static java.lang.Math.max;
+
+/**
+ * Append-only log of the map entries of a single partition replica, stored in memory-mapped segment files.
+ * <p>
+ * Segment layout:
+ * <pre>
+ * header:  magic bytes (int), file format (int)
+ * records: record size (int), record type (byte), map name size (short), map name (UTF-8),
+ *          for {@link #RECORD_TYPE_PUT} and {@link #RECORD_TYPE_REMOVE}: key size (int), key payload,
+ *          for {@link #RECORD_TYPE_PUT}: value size (int), value payload, ttl, creation time, last access time,
+ *          last update time, expiration time and version of the entry (longs)
+ * </pre>
+ * The size of a record is written after its content, so a record which was not written completely is never read.
+ * A record size of {@code 0} marks the end of a segment, since segments are zero-filled when they are created.
+ * <p>
+ * The log is compacted by rewriting the live entries into new segments, when it has grown to twice the size it had
+ * after the previous compaction. So the cost of the compactions is amortized over the appended records.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class PartitionReplicaLog {
+
+    static final byte RECORD_TYPE_PUT = 1;
+    static final byte RECORD_TYPE_REMOVE = 2;
+    static final byte RECORD_TYPE_CLEAR = 3;
+
+    private static final int MAGIC_BYTES = 0x4C524C47;
+    private static final int FILE_FORMAT = 2;
+    private static final int HEADER_SIZE = INT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES;
+    private static final int ENTRY_METADATA_SIZE = 6 * LONG_SIZE_IN_BYTES;
+    private static final String SEGMENT_FILE_SUFFIX = ".segment";
+
+    private final File directory;
+    private final int segmentSize;
+
+    private MappedByteBuffer segment;
+    private long nextSegmentSequence;
+    private long size;
+    private long compactionThreshold;
+
+    /**
+     * Opens the log in the given directory. Existing segments are discarded.
+     *
+     * @param directory   the directory of the segment files
+     * @param segmentSize the default size of a segment in bytes
+     */
+    PartitionReplicaLog(File directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        delete(directory);
+        if (!directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getAbsolutePath());
+        }
+        this.compactionThreshold = 2L * segmentSize;
+    }
+
+    void appendPut(String name, Data key, LocalReplicaEntry entry) throws IOException {
+        append(RECORD_TYPE_PUT, name, key.toByteArray(), entry);
+    }
+
+    void appendRemove(String name, Data key) throws IOException {
+        append(RECORD_TYPE_REMOVE, name, key.toByteArray(), null);
+    }
+
+    void appendClear(String name) throws IOException {
+        append(RECORD_TYPE_CLEAR, name, null, null);
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the log and deletes its segments.
+     */
+    void destroy() {
+        segment = null;
+        delete(directory);
+    }
+
+    /**
+     * Reads the live entries of the segments in the given directory, written by a previous log.
+     *
+     * @return the live entries by map name
+     */
+    static Map<String, Map<Data, LocalReplicaEntry>> read(File directory) throws IOException {
+        Map<String, Map<Data, LocalReplicaEntry>> entries = new LinkedHashMap<String, Map<Data, LocalReplicaEntry>>();
+        for (File file : listSegments(directory)) {
+            RandomAccessFile segmentFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = segmentFile.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC_BYTES || buffer.getInt() != FILE_FORMAT) {
+                    throw new IOException("Invalid segment " + file);
+                }
+                readRecords(buffer, entries);
+            } finally {
+                closeResource(segmentFile);
+            }
+        }
+        return entries;
+    }
+
+    private void append(byte recordType, String name, byte[] key, LocalReplicaEntry entry) throws IOException {
+        byte[] nameBytes = name.getBytes("UTF-8");
+        byte[] value = entry != null ? entry.getValue().toByteArray() : null;
+        int recordSize = BYTE_SIZE_IN_BYTES + SHORT_SIZE_IN_BYTES + nameBytes.length
+                + (key != null ? INT_SIZE_IN_BYTES + key.length : 0)
+                + (value != null ? INT_SIZE_IN_BYTES + value.length + ENTRY_METADATA_SIZE : 0);
+        ensureCapacity(INT_SIZE_IN_BYTES + recordSize);
+
+        int start = segment.position();
+        segment.position(start + INT_SIZE_IN_BYTES);
+        segment.put(recordType);
+        segment.putShort((short) nameBytes.length);
+        segment.put(nameBytes);
+        if (key != null) {
+            segment.putInt(key.length);
+            segment.put(key);
+        }
+        if (value != null) {
+            segment.putInt(value.length);
+            segment.put(value);
+            segment.putLong(entry.getTtl());
+            segment.putLong(entry.getCreationTime());
+            segment.putLong(entry.getLastAccessTime());
+            segment.putLong(entry.getLastUpdateTime());
+            segment.putLong(entry.getExpirationTime());
+            segment.putLong(entry.getVersion());
+        }
+        segment.putInt(start, recordSize);
+        size += INT_SIZE_IN_BYTES + recordSize;
+
+        if (size > compactionThreshold) {
+            compact();
+        }
+    }
+
+    private void ensureCapacity(int recordSize) throws IOException {
+        // one more int for the end marker of the segment
+        if (segment != null && segment.remaining() >= recordSize + INT_SIZE_IN_BYTES) {
+            return;
+        }
+        force();
+        File file = new File(directory, nextSegmentSequence++ + SEGMENT_FILE_SUFFIX);
+        RandomAccessFile segmentFile = new RandomAccessFile(file, "rw");
+        try {
+            int capacity = max(segmentSize, HEADER_SIZE + recordSize + INT_SIZE_IN_BYTES);
+            segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            segment.putInt(MAGIC_BYTES);
+            segment.putInt(FILE_FORMAT);
+            size += HEADER_SIZE;
+        } finally {
+            closeResource(segmentFile);
+        }
+    }
+
+    /**
+     * Rewrites the live entries into new segments and deletes the previous segments.
+     */
+    private void compact() throws IOException {
+        force();
+        File[] segments = listSegments(directory);
+        Map<String, Map<Data, LocalReplicaEntry>> entries = read(directory);
+
+        segment = null;
+        size = 0;
+        compactionThreshold = Long.MAX_VALUE;
+        for (Map.Entry<String, Map<Data, LocalReplicaEntry>> mapEntries : entries.entrySet()) {
+            String name = mapEntries.getKey();
+            for (Map.Entry<Data, LocalReplicaEntry> entry : mapEntries.getValue().entrySet()) {
+                append(RECORD_TYPE_PUT, name, entry.getKey().toByteArray(), entry.getValue());
+            }
+        }
+        for (File file : segments) {
+            delete(file);
+        }
+        compactionThreshold = max(2 * size, 2L * segmentSize);
+    }
+
+    private static void readRecords(ByteBuffer buffer, Map<String, Map<Data, LocalReplicaEntry>> entries)
+            throws IOException {
+        while (buffer.remaining() >= INT_SIZE_IN_BYTES) {
+            int recordSize = buffer.getInt();
+            if (recordSize == 0) {
+                return;
+            }
+            if (recordSize < 0 || recordSize > buffer.remaining()) {
+                throw new IOException("Invalid record size " + recordSize + " at position " + buffer.position());
+            }
+            byte recordType = buffer.get();
+            String name = new String(readBytes(buffer, buffer.getShort()), "UTF-8");
+            switch (recordType) {
+                case RECORD_TYPE_PUT:
+                    Data key = new HeapData(readBytes(buffer, buffer.getInt()));
+                    Data value = new HeapData(readBytes(buffer, buffer.getInt()));
+                    LocalReplicaEntry entry = new LocalReplicaEntry(value, buffer.getLong(), buffer.getLong(),
+                            buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+                    getOrCreate(entries, name).put(key, entry);
+                    break;
+                case RECORD_TYPE_REMOVE:
+                    Map<Data, LocalReplicaEntry> mapEntries = entries.get(name);
+                    Data removedKey = new HeapData(readBytes(buffer, buffer.getInt()));
+                    if (mapEntries != null) {
+                        mapEntries.remove(removedKey);
+                    }
+                    break;
+                case RECORD_TYPE_CLEAR:
+                    entries.remove(name);
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + recordType + " at position " + buffer.position());
+            }
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Map<Data, LocalReplicaEntry> getOrCreate(Map<String, Map<Data, LocalReplicaEntry>> entries, String name) {
+        Map<Data, LocalReplicaEntry> mapEntries = entries.get(name);
+        if (mapEntries == null) {
+            mapEntries = new HashMap<Data, LocalReplicaEntry>();
+            entries.put(name, mapEntries);
+        }
+        return mapEntries;
+    }
+
+    private static File[] listSegments(File directory) {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(SEGMENT_FILE_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long s1 = segmentSequence(f1);
+                long s2 = segmentSequence(f2);
+                return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+            }
+        });
+        return files;
+    }
+
+    private static long segmentSequence(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.memory.impl;
+
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.internal.memory.MemoryAllocator;
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.memory.NativeOutOfMemoryError;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.internal.memory.GlobalMemoryAccessorRegistry.MEM;
+import static com.hazelcast.internal.memory.GlobalMemoryAccessorRegistry.MEM_AVAILABLE;
+import static com.hazelcast.internal.memory.impl.UnsafeUtil.UNSAFE;
+import static com.hazelcast.internal.memory.impl.UnsafeUtil.UNSAFE_AVAILABLE;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static java.lang.String.format;
+
+/**
+ * {@link MemoryManager} which allocates blocks straight from the native heap via {@code Unsafe.allocateMemory()}
+ * and bounds the total amount of allocated memory by a fixed limit.
+ * <p>
+ * There is no pooling: every allocation is a call into the native allocator. This makes it suitable for
+ * data structures with a moderate allocation rate (e.g. Near Caches) rather than for primary storage.
+ * Allocated memory must be accessed through {@link #getAccessor()}, which is the global native memory accessor.
+ * <p>
+ * The manager keeps track of the allocated blocks, so {@link #dispose()} frees the blocks which were not freed
+ * by their owners. A block must not be accessed after the manager has been disposed.
+ */
+public final class UnsafeMallocMemoryManager implements MemoryManager {
+
+    private final long maxMemory;
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final ConcurrentMap<Long, Long> allocatedBlocks = new ConcurrentHashMap<Long, Long>();
+    private final Allocator malloc = new Allocator();
+
+    public UnsafeMallocMemoryManager(long maxMemory) {
+        checkPositive(maxMemory, "maxMemory should be positive!");
+        if (!UNSAFE_AVAILABLE || !MEM_AVAILABLE) {
+            throw new IllegalStateException("Native memory allocation requires sun.misc.Unsafe to be available!");
+        }
+        this.maxMemory = maxMemory;
+    }
+
+    @Override
+    public MemoryAllocator getAllocator() {
+        return malloc;
+    }
+
+    @Override
+    public MemoryAccessor getAccessor() {
+        return MEM;
+    }
+
+    @Override
+    public void dispose() {
+        malloc.dispose();
+    }
+
+    /**
+     * @return the configured upper bound of allocated native memory in bytes
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * @return the currently allocated native memory in bytes
+     */
+    public long getUsedMemory() {
+        return usedMemory.get();
+    }
+
+    /**
+     * @return the native memory in bytes which can still be allocated
+     */
+    public long getFreeMemory() {
+        return Math.max(0, maxMemory - usedMemory.get());
+    }
+
+    private void reserve(long size) {
+        for (; ; ) {
+            long used = usedMemory.get();
+            long newUsed = used + size;
+            if (newUsed > maxMemory) {
+                throw new NativeOutOfMemoryError(format("Cannot allocate %d bytes, used: %d bytes, max: %d bytes",
+                        size, used, maxMemory));
+            }
+            if (usedMemory.compareAndSet(used, newUsed)) {
+                return;
+            }
+        }
+    }
+
+    private final class Allocator implements MemoryAllocator {
+
+        @Override
+        public long allocate(long size) {
+            assert size > 0 : "UnsafeMallocMemoryManager.allocate(" + size + ")";
+            reserve(size);
+            long address;
+            try {
+                address = UNSAFE.allocateMemory(size);
+            } catch (OutOfMemoryError e) {
+                usedMemory.addAndGet(-size);
+                throw new NativeOutOfMemoryError("Native allocator could not allocate " + size + " bytes", e);
+            }
+            UNSAFE.setMemory(address, size, (byte) 0);
+            allocatedBlocks.put(address, size);
+            return address;
+        }
+
+        @Override
+        public long reallocate(long address, long currentSize, long newSize) {
+            long newAddress = allocate(newSize);
+            UNSAFE.copyMemory(address, newAddress, Math.min(currentSize, newSize));
+            free(address, currentSize);
+            return newAddress;
+        }
+
+        @Override
+        public void free(long address, long size) {
+            assert address != NULL_ADDRESS : "UnsafeMallocMemoryManager.free(NULL_ADDRESS)";
+            // a block which is unknown has already been freed by dispose()
+            if (allocatedBlocks.remove(address) != null) {
+                UNSAFE.freeMemory(address);
+                usedMemory.addAndGet(-size);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            for (Map.Entry<Long, Long> block : allocatedBlocks.entrySet()) {
+                if (allocatedBlocks.remove(block.getKey()) != null) {
+                    UNSAFE.freeMemory(block.getKey());
+                    usedMemory.addAndGet(-block.getValue());
+                }
+            }
+        }
+    }
+}
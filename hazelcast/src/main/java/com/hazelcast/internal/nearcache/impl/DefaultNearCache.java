@@ -20,8 +20,10 @@ import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.NearCachePreloaderConfig;
 import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.memory.impl.UnsafeMallocMemoryManager;
 import com.hazelcast.internal.nearcache.NearCache;
 import com.hazelcast.internal.nearcache.NearCacheRecordStore;
+import com.hazelcast.internal.nearcache.impl.nativememory.NativeNearCacheRecordStore;
 import com.hazelcast.internal.nearcache.impl.store.NearCacheDataRecordStore;
 import com.hazelcast.internal.nearcache.impl.store.NearCacheObjectRecordStore;
 import com.hazelcast.monitor.NearCacheStats;
@@ -43,6 +45,7 @@ public class DefaultNearCache<K, V> implements NearCache<K, V> {
     protected final SerializationService serializationService;
     protected final TaskScheduler scheduler;
     protected final ClassLoader classLoader;
+    protected final UnsafeMallocMemoryManager memoryManager;
 
     protected NearCacheRecordStore<K, V> nearCacheRecordStore;
     protected ScheduledFuture expirationTaskFuture;
@@ -58,12 +61,23 @@ public class DefaultNearCache<K, V> implements NearCache<K, V> {
     public DefaultNearCache(String name, NearCacheConfig nearCacheConfig, NearCacheRecordStore<K, V> nearCacheRecordStore,
                             SerializationService serializationService, TaskScheduler scheduler,
                             ClassLoader classLoader) {
+        this(name, nearCacheConfig, nearCacheRecordStore, serializationService, scheduler, classLoader, null);
+    }
+
+    /**
+     * @param memoryManager the {@link UnsafeMallocMemoryManager} to allocate a
+     *                      {@link InMemoryFormat#NATIVE} Near Cache from (can be {@code null} for other formats)
+     */
+    public DefaultNearCache(String name, NearCacheConfig nearCacheConfig, NearCacheRecordStore<K, V> nearCacheRecordStore,
+                            SerializationService serializationService, TaskScheduler scheduler,
+                            ClassLoader classLoader, UnsafeMallocMemoryManager memoryManager) {
         this.name = name;
         this.nearCacheConfig = nearCacheConfig;
         this.serializationService = serializationService;
         this.classLoader = classLoader;
         this.scheduler = scheduler;
         this.nearCacheRecordStore = nearCacheRecordStore;
+        this.memoryManager = memoryManager;
     }
 
     @Override
@@ -86,6 +100,13 @@ public class DefaultNearCache<K, V> implements NearCache<K, V> {
                 return new NearCacheDataRecordStore<K, V>(name, nearCacheConfig, serializationService, classLoader);
             case OBJECT:
                 return new NearCacheObjectRecordStore<K, V>(name, nearCacheConfig, serializationService, classLoader);
+            case NATIVE:
+                if (memoryManager == null) {
+                    throw new IllegalArgumentException("Native memory has to be enabled to use NATIVE in-memory-format"
+                            + " for Near Cache " + name);
+                }
+                return new NativeNearCacheRecordStore<K, V>(name, nearCacheConfig, memoryManager, serializationService,
+                        classLoader);
             default:
                 throw new IllegalArgumentException("Invalid in memory format: " + inMemoryFormat);
         }
@@ -16,9 +16,12 @@
 
 package com.hazelcast.internal.nearcache.impl;
 
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.NativeMemoryConfig;
 import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.NearCachePreloaderConfig;
 import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.memory.impl.UnsafeMallocMemoryManager;
 import com.hazelcast.internal.nearcache.NearCache;
 import com.hazelcast.internal.nearcache.NearCacheManager;
 import com.hazelcast.monitor.NearCacheStats;
@@ -41,20 +44,32 @@ public class DefaultNearCacheManager implements NearCacheManager {
     protected final SerializationService serializationService;
     protected final TaskScheduler scheduler;
     protected final ClassLoader classLoader;
+    protected final NativeMemoryConfig nativeMemoryConfig;
 
     private final Queue<ScheduledFuture> preloadTaskFutures = new ConcurrentLinkedQueue<ScheduledFuture>();
     private final ConcurrentMap<String, NearCache> nearCacheMap = new ConcurrentHashMap<String, NearCache>();
     private final Object mutex = new Object();
 
     private volatile ScheduledFuture storageTaskFuture;
+    private volatile UnsafeMallocMemoryManager memoryManager;
 
     public DefaultNearCacheManager(SerializationService ss, TaskScheduler es, ClassLoader classLoader) {
+        this(ss, es, classLoader, null);
+    }
+
+    /**
+     * @param nativeMemoryConfig the {@link NativeMemoryConfig} which bounds the native memory of all
+     *                           {@link InMemoryFormat#NATIVE} Near Caches of this manager (can be {@code null})
+     */
+    public DefaultNearCacheManager(SerializationService ss, TaskScheduler es, ClassLoader classLoader,
+                                   NativeMemoryConfig nativeMemoryConfig) {
         assert ss != null;
         assert es != null;
 
         this.serializationService = ss;
         this.scheduler = es;
         this.classLoader = classLoader;
+        this.nativeMemoryConfig = nativeMemoryConfig;
     }
 
     @Override
@@ -94,7 +109,24 @@ public class DefaultNearCacheManager implements NearCacheManager {
     }
 
     protected <K, V> NearCache<K, V> createNearCache(String name, NearCacheConfig nearCacheConfig) {
-        return new DefaultNearCache<K, V>(name, nearCacheConfig, serializationService, scheduler, classLoader);
+        UnsafeMallocMemoryManager memoryManager = nearCacheConfig.getInMemoryFormat() == InMemoryFormat.NATIVE
+                ? getOrCreateMemoryManager()
+                : null;
+        return new DefaultNearCache<K, V>(name, nearCacheConfig, null, serializationService, scheduler, classLoader,
+                memoryManager);
+    }
+
+    /**
+     * Returns the {@link UnsafeMallocMemoryManager} which is shared by all NATIVE Near Caches of this manager.
+     * Called while holding the mutex.
+     *
+     * @return the memory manager or {@code null} if native memory is not enabled
+     */
+    private UnsafeMallocMemoryManager getOrCreateMemoryManager() {
+        if (memoryManager == null && nativeMemoryConfig != null && nativeMemoryConfig.isEnabled()) {
+            memoryManager = new UnsafeMallocMemoryManager(nativeMemoryConfig.getSize().bytes());
+        }
+        return memoryManager;
     }
 
     @Override
@@ -140,6 +172,14 @@ public class DefaultNearCacheManager implements NearCacheManager {
         if (storageTaskFuture != null) {
             storageTaskFuture.cancel(true);
         }
+
+        synchronized (mutex) {
+            // frees the native memory blocks which were not freed by the destroyed Near Caches
+            if (memoryManager != null) {
+                memoryManager.dispose();
+                memoryManager = null;
+            }
+        }
     }
 
     private void createAndSchedulePreloadTask(NearCache nearCache, DataStructureAdapter adapter) {
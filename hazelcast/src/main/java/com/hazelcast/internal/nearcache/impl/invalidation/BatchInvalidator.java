@@ -17,6 +17,7 @@
 package com.hazelcast.internal.nearcache.impl.invalidation;
 
 import com.hazelcast.core.*;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.SerializableByConvention;
 import com.hazelcast.spi.EventRegistration;
 import com.hazelcast.spi.ExecutionService;
@@ -31,15 +32,38 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hazelcast.core.LifecycleEvent.LifecycleState.SHUTTING_DOWN;
+import static com.hazelcast.internal.nearcache.impl.invalidation.InvalidationUtils.RANGE_INVALIDATION_SOURCE_UUID;
+import static com.hazelcast.internal.nearcache.impl.invalidation.ToHeapDataConverter.toHeapData;
 import static com.hazelcast.util.ConcurrencyUtil.getOrPutIfAbsent;
 import static java.lang.Thread.currentThread;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Sends invalidations to Near Cache in batches.
+ * <p>
+ * The batches are sized adaptively: the configured batch size is used for low event rates. For higher event rates
+ * the batch size grows up to {@value #ADAPTIVE_BATCH_SIZE_MULTIPLIER} times the configured one, so a batch collects the
+ * events of about {@value #ADAPTIVE_BATCH_WINDOW_MILLIS} ms. This reduces the number of invalidation messages,
+ * which are sent to every Near Cache, without delaying the invalidations noticeably.
+ * <p>
+ * Repeated invalidations of the same key from the same source are coalesced, while the first invalidation is still
+ * pending. If a range invalidation threshold is configured, the invalidations of a partition are replaced by a single
+ * range invalidation, when a batch contains at least the threshold number of invalidations for the partition.
+ *
+ * @see InvalidationUtils#RANGE_INVALIDATION_SOURCE_UUID
  */
 public class BatchInvalidator extends Invalidator {
 
+    /**
+     * The upper bound of the adaptive batch size as a multiple of the configured batch size.
+     */
+    static final int ADAPTIVE_BATCH_SIZE_MULTIPLIER = 10;
+
+    /**
+     * The time window in milliseconds, whose events are collected into a batch.
+     */
+    static final int ADAPTIVE_BATCH_WINDOW_MILLIS = 100;
+
     private final String invalidationExecutorName;
 
     /**
@@ -49,7 +73,7 @@ public class BatchInvalidator extends Invalidator {
             = new ConstructorFunction<String, InvalidationQueue>() {
         @Override
         public InvalidationQueue createNew(String dataStructureName) {
-            return new InvalidationQueue();
+            return new InvalidationQueue(batchSize);
         }
     };
 
@@ -60,15 +84,28 @@ public class BatchInvalidator extends Invalidator {
             = new ConcurrentHashMap<String, InvalidationQueue>();
 
     private final int batchSize;
+    private final int maxBatchSize;
     private final int batchFrequencySeconds;
+    private final int rangeInvalidationThreshold;
     private final String nodeShutdownListenerId;
 
     public BatchInvalidator(String serviceName, int batchSize, int batchFrequencySeconds,
                             IFunction<EventRegistration, Boolean> eventFilter, NodeEngine nodeEngine) {
+        this(serviceName, batchSize, batchFrequencySeconds, 0, eventFilter, nodeEngine);
+    }
+
+    /**
+     * @param rangeInvalidationThreshold the number of invalidations of a partition in a batch, which are replaced by
+     *                                   a range invalidation or {@code 0} to disable range invalidations
+     */
+    public BatchInvalidator(String serviceName, int batchSize, int batchFrequencySeconds, int rangeInvalidationThreshold,
+                            IFunction<EventRegistration, Boolean> eventFilter, NodeEngine nodeEngine) {
         super(serviceName, eventFilter, nodeEngine);
 
         this.batchSize = batchSize;
+        this.maxBatchSize = batchSize * ADAPTIVE_BATCH_SIZE_MULTIPLIER;
         this.batchFrequencySeconds = batchFrequencySeconds;
+        this.rangeInvalidationThreshold = rangeInvalidationThreshold;
         this.nodeShutdownListenerId = registerNodeShutdownListener();
         this.invalidationExecutorName = serviceName + getClass();
         startBackgroundBatchProcessor();
@@ -80,11 +117,16 @@ public class BatchInvalidator extends Invalidator {
         InvalidationQueue invalidationQueue = invalidationQueueOf(dataStructureName);
         invalidationQueue.offer(invalidation);
 
-        if (invalidationQueue.size() >= batchSize) {
+        if (invalidationQueue.size() >= invalidationQueue.getBatchSize()) {
             pollAndSendInvalidations(dataStructureName, invalidationQueue);
         }
     }
 
+    @Override
+    protected boolean isInvalidationPending(Data key, String dataStructureName, String sourceUuid) {
+        return invalidationQueueOf(dataStructureName).isPending(key, sourceUuid);
+    }
+
     private InvalidationQueue invalidationQueueOf(String dataStructureName) {
         return getOrPutIfAbsent(invalidationQueues, dataStructureName, invalidationQueueConstructor);
     }
@@ -99,10 +141,14 @@ public class BatchInvalidator extends Invalidator {
         List<Invalidation> invalidations;
         try {
             invalidations = pollInvalidations(invalidationQueue);
+            invalidationQueue.updateBatchSize(invalidations.size(), batchSize, maxBatchSize);
         } finally {
             invalidationQueue.release();
         }
 
+        if (rangeInvalidationThreshold > 0 && invalidations.size() >= rangeInvalidationThreshold) {
+            invalidations = toRangeInvalidations(dataStructureName, invalidations);
+        }
         sendInvalidations(dataStructureName, invalidations);
     }
 
@@ -117,12 +163,56 @@ public class BatchInvalidator extends Invalidator {
                 break;
             }
 
+            // the invalidation is not pending anymore before it's sent, so following changes of the key are invalidated
+            invalidationQueue.removePending(invalidation);
             invalidations.add(invalidation);
         }
 
         return invalidations;
     }
 
+    /**
+     * Replaces the invalidations of partitions, which have at least {@link #rangeInvalidationThreshold} invalidations
+     * in the supplied batch, by a single range invalidation with the highest sequence of the replaced invalidations.
+     */
+    private List<Invalidation> toRangeInvalidations(String dataStructureName, List<Invalidation> invalidations) {
+        int[] invalidationCounts = new int[partitionCount];
+        Invalidation[] lastInvalidations = new Invalidation[partitionCount];
+        boolean[] mixedUuids = new boolean[partitionCount];
+        boolean compactable = false;
+        for (Invalidation invalidation : invalidations) {
+            Data key = invalidation.getKey();
+            if (key == null) {
+                continue;
+            }
+            int partitionId = partitionService.getPartitionId(key);
+            Invalidation lastInvalidation = lastInvalidations[partitionId];
+            if (lastInvalidation != null && !lastInvalidation.getPartitionUuid().equals(invalidation.getPartitionUuid())) {
+                mixedUuids[partitionId] = true;
+            }
+            if (lastInvalidation == null || lastInvalidation.getSequence() < invalidation.getSequence()) {
+                lastInvalidations[partitionId] = invalidation;
+            }
+            compactable |= ++invalidationCounts[partitionId] == rangeInvalidationThreshold;
+        }
+        if (!compactable) {
+            return invalidations;
+        }
+
+        List<Invalidation> compacted = new ArrayList<Invalidation>(invalidations.size());
+        for (Invalidation invalidation : invalidations) {
+            Data key = invalidation.getKey();
+            int partitionId = key == null ? -1 : partitionService.getPartitionId(key);
+            if (partitionId == -1 || invalidationCounts[partitionId] < rangeInvalidationThreshold || mixedUuids[partitionId]) {
+                compacted.add(invalidation);
+            } else if (invalidation == lastInvalidations[partitionId]) {
+                compacted.add(new SingleNearCacheInvalidation(key, dataStructureName, RANGE_INVALIDATION_SOURCE_UUID,
+                        invalidation.getPartitionUuid(), invalidation.getSequence()));
+            }
+        }
+        return compacted;
+    }
+
     private void sendInvalidations(String dataStructureName, List<Invalidation> invalidations) {
         // There will always be at least one listener which listens invalidations. This is the reason behind eager creation
         // of BatchNearCacheInvalidation instance here. There is a causality between listener and invalidation. Only if we have
@@ -220,8 +310,69 @@ public class BatchInvalidator extends Invalidator {
 
     @SerializableByConvention
     public static class InvalidationQueue extends ConcurrentLinkedQueue<Invalidation> {
+        private static final double EVENT_RATE_SMOOTHING_FACTOR = 0.5;
+
         private final AtomicInteger elementCount = new AtomicInteger(0);
         private final AtomicBoolean flushingInProgress = new AtomicBoolean(false);
+        /**
+         * Keys with a pending invalidation mapped to the source UUID of the invalidation.
+         */
+        private final ConcurrentMap<Data, String> pendingKeys = new ConcurrentHashMap<Data, String>();
+
+        private volatile int batchSize;
+        // just accessed by the thread which acquired the queue for flushing
+        private long lastFlushNanos = System.nanoTime();
+        private double eventsPerSecond;
+
+        public InvalidationQueue() {
+            this(Integer.MAX_VALUE);
+        }
+
+        public InvalidationQueue(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * @return the current adaptive batch size of this queue
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * Checks if the key has a pending invalidation from the same source, otherwise the key is registered as pending.
+         *
+         * @return {@code true} if the key has a pending invalidation, {@code false} if a new invalidation has to be offered
+         */
+        boolean isPending(Data key, String sourceUuid) {
+            String pendingSourceUuid = pendingKeys.putIfAbsent(toHeapData(key), sourceUuid);
+            return sourceUuid.equals(pendingSourceUuid);
+        }
+
+        void removePending(Invalidation invalidation) {
+            Data key = invalidation.getKey();
+            String sourceUuid = invalidation.getSourceUuid();
+            if (key != null && sourceUuid != null) {
+                pendingKeys.remove(key, sourceUuid);
+            }
+        }
+
+        /**
+         * Updates the batch size with the event rate observed by a flush.
+         * Must be called by the thread which acquired the queue for flushing.
+         */
+        void updateBatchSize(int flushedEventCount, int minBatchSize, int maxBatchSize) {
+            long nowNanos = System.nanoTime();
+            long elapsedNanos = Math.max(nowNanos - lastFlushNanos, 1);
+            lastFlushNanos = nowNanos;
+
+            double currentEventsPerSecond = flushedEventCount * (double) SECONDS.toNanos(1) / elapsedNanos;
+            eventsPerSecond = EVENT_RATE_SMOOTHING_FACTOR * currentEventsPerSecond
+                    + (1 - EVENT_RATE_SMOOTHING_FACTOR) * eventsPerSecond;
+
+            long windowEventCount = (long) (eventsPerSecond * ADAPTIVE_BATCH_WINDOW_MILLIS / SECONDS.toMillis(1));
+            batchSize = (int) Math.min(Math.max(windowEventCount, minBatchSize), maxBatchSize);
+        }
 
         @Override
         public int size() {
@@ -28,11 +28,23 @@ import static java.lang.Boolean.TRUE;
 public final class InvalidationUtils {
 
     public static final long NO_SEQUENCE = -1L;
+
+    /**
+     * Source UUID of a range invalidation.
+     * <p>
+     * A range invalidation replaces the key invalidations of a partition by a single invalidation with the highest
+     * sequence of these invalidations. It makes all Near Cache entries of the partition with a lower sequence stale.
+     */
+    public static final String RANGE_INVALIDATION_SOURCE_UUID = "range-invalidation";
     public static final IFunction<EventRegistration, Boolean> TRUE_FILTER = new TrueFilter();
 
     private InvalidationUtils() {
     }
 
+    public static boolean isRangeInvalidation(String sourceUuid) {
+        return RANGE_INVALIDATION_SOURCE_UUID.equals(sourceUuid);
+    }
+
     @SerializableByConvention
     private static class TrueFilter implements IFunction<EventRegistration, Boolean> {
         @Override
@@ -69,10 +69,26 @@ public abstract class Invalidator {
         assert dataStructureName != null;
         assert sourceUuid != null;
 
+        if (isInvalidationPending(key, dataStructureName, sourceUuid)) {
+            return;
+        }
         Invalidation invalidation = newKeyInvalidation(key, dataStructureName, sourceUuid);
         invalidateInternal(invalidation, getPartitionId(key));
     }
 
+    /**
+     * Checks if the key has a pending invalidation from the same source, which hasn't been sent yet.
+     * <p>
+     * Such an invalidation is sent after the current change of the key, so there is no need to create another
+     * invalidation for it. Since no sequence is created for the skipped invalidation, the receivers don't observe
+     * a missed sequence.
+     *
+     * @return {@code true} if the key has a pending invalidation, {@code false} otherwise
+     */
+    protected boolean isInvalidationPending(Data key, String dataStructureName, String sourceUuid) {
+        return false;
+    }
+
     /**
      * Invalidates all keys from Near Caches of supplied data structure name.
      *
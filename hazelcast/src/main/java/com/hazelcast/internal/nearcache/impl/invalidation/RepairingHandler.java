@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import static com.hazelcast.internal.nearcache.impl.invalidation.InvalidationUtils.isRangeInvalidation;
 import static java.lang.String.format;
 
 /**
@@ -82,6 +83,10 @@ public final class RepairingHandler {
      * Handles a single invalidation
      */
     public void handle(Data key, String sourceUuid, UUID partitionUuid, long sequence) {
+        if (isRangeInvalidation(sourceUuid)) {
+            handleRangeInvalidation(key, partitionUuid, sequence);
+            return;
+        }
         // apply invalidation if it's not originated by local member/client (because local
         // Near Caches are invalidated immediately there is no need to invalidate them twice)
         if (!localUuid.equals(sourceUuid)) {
@@ -98,6 +103,36 @@ public final class RepairingHandler {
         checkOrRepairSequence(partitionId, sequence, false);
     }
 
+    /**
+     * Handles a range invalidation, which makes all Near Cache entries of the partition of the supplied key stale,
+     * which have a lower sequence than the supplied one.
+     * <p>
+     * The range invalidation replaces the invalidations of the partition up to the supplied sequence, so the skipped
+     * sequences are not counted as missed.
+     */
+    private void handleRangeInvalidation(Data key, UUID partitionUuid, long sequence) {
+        nearCache.remove(key);
+
+        int partitionId = partitionService.getPartitionId(key);
+        checkOrRepairUuid(partitionId, partitionUuid);
+
+        MetaDataContainer metaData = getMetaDataContainer(partitionId);
+        long currentSequence;
+        do {
+            currentSequence = metaData.getSequence();
+        } while (currentSequence < sequence && !metaData.casSequence(currentSequence, sequence));
+
+        long staleSequence;
+        do {
+            staleSequence = metaData.getStaleSequence();
+        } while (staleSequence < sequence && !metaData.casStaleSequence(staleSequence, sequence));
+
+        if (logger.isFinestEnabled()) {
+            logger.finest(format("%s:[map=%s,partition=%d,lowerSequencesStaleThan=%d]",
+                    "Range invalidation", name, partitionId, sequence));
+        }
+    }
+
     private int getPartitionIdOrDefault(Data key) {
         if (key == null) {
             // `name` is used to determine partition-id of map-wide events like clear()
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.nativememory;
+
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.internal.memory.MemoryAllocator;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.UUID;
+
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+
+/**
+ * <i>Flyweight</i> {@link NearCacheRecord} over a Near Cache record which lives in native memory.
+ * <p>
+ * The record block holds the metadata and the serialized key, the serialized value is kept in a separate block,
+ * so it can be replaced without moving the record:
+ * <pre>
+ * +-----------------------+---------------------------------------------------------+
+ * | next record address   | 8 bytes, collision chain of {@link NativeNearCacheRecordMap} |
+ * | key hash              | 8 bytes, {@link Data#hash64()} of the key                |
+ * | creation time         | 8 bytes                                                 |
+ * | expiration time       | 8 bytes                                                 |
+ * | access time           | 8 bytes                                                 |
+ * | record state          | 8 bytes                                                 |
+ * | invalidation sequence | 8 bytes                                                 |
+ * | uuid (msb, lsb)       | 16 bytes                                                |
+ * | value address         | 8 bytes                                                 |
+ * | access hit            | 4 bytes                                                 |
+ * | key size              | 4 bytes                                                 |
+ * | value size            | 4 bytes                                                 |
+ * | uuid present flag     | 4 bytes                                                 |
+ * | key payload           | key size bytes                                          |
+ * +-----------------------+---------------------------------------------------------+
+ * </pre>
+ * This class is not thread-safe, it must only be used while holding the lock which guards the owning
+ * {@link NativeNearCacheRecordMap}. Since the state transitions of a record happen under this lock,
+ * {@link #casRecordState(long, long)} doesn't need to be atomic on the memory level.
+ */
+@SuppressWarnings("checkstyle:methodcount")
+public final class NativeNearCacheRecord implements NearCacheRecord<Data> {
+
+    static final int NEXT_OFFSET = 0;
+    static final int KEY_HASH_OFFSET = 8;
+    static final int CREATION_TIME_OFFSET = 16;
+    static final int EXPIRATION_TIME_OFFSET = 24;
+    static final int ACCESS_TIME_OFFSET = 32;
+    static final int RECORD_STATE_OFFSET = 40;
+    static final int SEQUENCE_OFFSET = 48;
+    static final int UUID_MSB_OFFSET = 56;
+    static final int UUID_LSB_OFFSET = 64;
+    static final int VALUE_ADDRESS_OFFSET = 72;
+    static final int ACCESS_HIT_OFFSET = 80;
+    static final int KEY_SIZE_OFFSET = 84;
+    static final int VALUE_SIZE_OFFSET = 88;
+    static final int UUID_PRESENT_OFFSET = 92;
+    static final int HEADER_SIZE = 96;
+
+    private final MemoryAccessor mem;
+    private final MemoryAllocator malloc;
+
+    private long address = NULL_ADDRESS;
+
+    NativeNearCacheRecord(MemoryAccessor mem, MemoryAllocator malloc) {
+        this.mem = mem;
+        this.malloc = malloc;
+    }
+
+    NativeNearCacheRecord reset(long address) {
+        this.address = address;
+        return this;
+    }
+
+    long address() {
+        return address;
+    }
+
+    static long recordSize(int keySize) {
+        return HEADER_SIZE + keySize;
+    }
+
+    long getNextAddress() {
+        return mem.getLong(address + NEXT_OFFSET);
+    }
+
+    void setNextAddress(long nextAddress) {
+        mem.putLong(address + NEXT_OFFSET, nextAddress);
+    }
+
+    long getKeyHash() {
+        return mem.getLong(address + KEY_HASH_OFFSET);
+    }
+
+    int getKeySize() {
+        return mem.getInt(address + KEY_SIZE_OFFSET);
+    }
+
+    int getValueSize() {
+        return mem.getInt(address + VALUE_SIZE_OFFSET);
+    }
+
+    /**
+     * @return the native memory in bytes which is occupied by this record, including its value block
+     */
+    long getMemoryCost() {
+        return recordSize(getKeySize()) + getValueSize();
+    }
+
+    /**
+     * Initializes a freshly allocated record block with the given key.
+     */
+    void initialize(Data key, long creationTime, long expirationTime) {
+        byte[] keyBytes = key.toByteArray();
+        mem.putLong(address + KEY_HASH_OFFSET, key.hash64());
+        mem.putLong(address + CREATION_TIME_OFFSET, creationTime);
+        mem.putLong(address + EXPIRATION_TIME_OFFSET, expirationTime);
+        mem.putLong(address + ACCESS_TIME_OFFSET, TIME_NOT_SET);
+        mem.putLong(address + RECORD_STATE_OFFSET, READ_PERMITTED);
+        mem.putInt(address + KEY_SIZE_OFFSET, keyBytes.length);
+        mem.copyFromByteArray(keyBytes, 0, address + HEADER_SIZE, keyBytes.length);
+    }
+
+    boolean keyEquals(long keyHash, byte[] keyBytes) {
+        if (getKeyHash() != keyHash || getKeySize() != keyBytes.length) {
+            return false;
+        }
+        long keyAddress = address + HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (mem.getByte(keyAddress + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Data getKey() {
+        byte[] keyBytes = new byte[getKeySize()];
+        mem.copyToByteArray(address + HEADER_SIZE, keyBytes, 0, keyBytes.length);
+        return new HeapData(keyBytes);
+    }
+
+    /**
+     * Frees the value block and the record block.
+     */
+    void free() {
+        freeValue();
+        malloc.free(address, recordSize(getKeySize()));
+        address = NULL_ADDRESS;
+    }
+
+    private void freeValue() {
+        long valueAddress = mem.getLong(address + VALUE_ADDRESS_OFFSET);
+        if (valueAddress != NULL_ADDRESS) {
+            malloc.free(valueAddress, getValueSize());
+            mem.putLong(address + VALUE_ADDRESS_OFFSET, NULL_ADDRESS);
+            mem.putInt(address + VALUE_SIZE_OFFSET, 0);
+        }
+    }
+
+    @Override
+    public Data getValue() {
+        long valueAddress = mem.getLong(address + VALUE_ADDRESS_OFFSET);
+        if (valueAddress == NULL_ADDRESS) {
+            return null;
+        }
+        byte[] valueBytes = new byte[getValueSize()];
+        mem.copyToByteArray(valueAddress, valueBytes, 0, valueBytes.length);
+        return new HeapData(valueBytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The value is copied into a newly allocated block, the previous value block is freed.
+     *
+     * @throws com.hazelcast.memory.NativeOutOfMemoryError if there is not enough native memory for the new value,
+     *                                                     in this case the previous value is kept
+     */
+    @Override
+    public void setValue(Data value) {
+        if (value == null) {
+            freeValue();
+            return;
+        }
+        byte[] valueBytes = value.toByteArray();
+        long valueAddress = malloc.allocate(valueBytes.length);
+        mem.copyFromByteArray(valueBytes, 0, valueAddress, valueBytes.length);
+        freeValue();
+        mem.putLong(address + VALUE_ADDRESS_OFFSET, valueAddress);
+        mem.putInt(address + VALUE_SIZE_OFFSET, valueBytes.length);
+    }
+
+    @Override
+    public long getCreationTime() {
+        return mem.getLong(address + CREATION_TIME_OFFSET);
+    }
+
+    @Override
+    public void setCreationTime(long time) {
+        mem.putLong(address + CREATION_TIME_OFFSET, time);
+    }
+
+    @Override
+    public long getExpirationTime() {
+        return mem.getLong(address + EXPIRATION_TIME_OFFSET);
+    }
+
+    @Override
+    public void setExpirationTime(long expirationTime) {
+        mem.putLong(address + EXPIRATION_TIME_OFFSET, expirationTime);
+    }
+
+    @Override
+    public boolean isExpiredAt(long now) {
+        long expirationTime = getExpirationTime();
+        return (expirationTime > TIME_NOT_SET) && (expirationTime <= now);
+    }
+
+    @Override
+    public long getLastAccessTime() {
+        return mem.getLong(address + ACCESS_TIME_OFFSET);
+    }
+
+    @Override
+    public void setAccessTime(long time) {
+        mem.putLong(address + ACCESS_TIME_OFFSET, time);
+    }
+
+    @Override
+    public int getAccessHit() {
+        return mem.getInt(address + ACCESS_HIT_OFFSET);
+    }
+
+    @Override
+    public void setAccessHit(int hit) {
+        mem.putInt(address + ACCESS_HIT_OFFSET, hit);
+    }
+
+    @Override
+    public void incrementAccessHit() {
+        setAccessHit(getAccessHit() + 1);
+    }
+
+    @Override
+    public void resetAccessHit() {
+        setAccessHit(0);
+    }
+
+    @Override
+    public boolean isIdleAt(long maxIdleMilliSeconds, long now) {
+        if (maxIdleMilliSeconds > 0) {
+            long accessTime = getLastAccessTime();
+            if (accessTime > TIME_NOT_SET) {
+                return accessTime + maxIdleMilliSeconds < now;
+            } else {
+                return getCreationTime() + maxIdleMilliSeconds < now;
+            }
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public long getInvalidationSequence() {
+        return mem.getLong(address + SEQUENCE_OFFSET);
+    }
+
+    @Override
+    public void setInvalidationSequence(long sequence) {
+        mem.putLong(address + SEQUENCE_OFFSET, sequence);
+    }
+
+    @Override
+    public void setUuid(UUID uuid) {
+        if (uuid == null) {
+            mem.putInt(address + UUID_PRESENT_OFFSET, 0);
+            return;
+        }
+        mem.putLong(address + UUID_MSB_OFFSET, uuid.getMostSignificantBits());
+        mem.putLong(address + UUID_LSB_OFFSET, uuid.getLeastSignificantBits());
+        mem.putInt(address + UUID_PRESENT_OFFSET, 1);
+    }
+
+    UUID getUuid() {
+        if (mem.getInt(address + UUID_PRESENT_OFFSET) == 0) {
+            return null;
+        }
+        return new UUID(mem.getLong(address + UUID_MSB_OFFSET), mem.getLong(address + UUID_LSB_OFFSET));
+    }
+
+    @Override
+    public boolean hasSameUuid(UUID thatUuid) {
+        if (thatUuid == null || mem.getInt(address + UUID_PRESENT_OFFSET) == 0) {
+            return false;
+        }
+        return mem.getLong(address + UUID_MSB_OFFSET) == thatUuid.getMostSignificantBits()
+                && mem.getLong(address + UUID_LSB_OFFSET) == thatUuid.getLeastSignificantBits();
+    }
+
+    @Override
+    public long getRecordState() {
+        return mem.getLong(address + RECORD_STATE_OFFSET);
+    }
+
+    @Override
+    public boolean casRecordState(long expect, long update) {
+        if (getRecordState() != expect) {
+            return false;
+        }
+        mem.putLong(address + RECORD_STATE_OFFSET, update);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (address == NULL_ADDRESS) {
+            return "NativeNearCacheRecord{address=NULL}";
+        }
+        return "NativeNearCacheRecord{address=" + address
+                + ", creationTime=" + getCreationTime()
+                + ", sequence=" + getInvalidationSequence()
+                + ", expirationTime=" + getExpirationTime()
+                + ", accessTime=" + getLastAccessTime()
+                + ", accessHit=" + getAccessHit()
+                + ", recordState=" + getRecordState()
+                + ", keySize=" + getKeySize()
+                + ", valueSize=" + getValueSize()
+                + '}';
+    }
+}
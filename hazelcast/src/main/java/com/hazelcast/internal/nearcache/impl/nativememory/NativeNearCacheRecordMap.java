@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.nativememory;
+
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.internal.memory.MemoryAllocator;
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.internal.util.hashslot.HashSlotArray8byteKey;
+import com.hazelcast.internal.util.hashslot.HashSlotCursor8byteKey;
+import com.hazelcast.internal.util.hashslot.impl.HashSlotArray8byteKeyImpl;
+import com.hazelcast.memory.NativeOutOfMemoryError;
+import com.hazelcast.nio.Disposable;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.Random;
+
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+
+/**
+ * Off-heap hash table from serialized keys to {@link NativeNearCacheRecord}s.
+ * <p>
+ * The backbone is a {@link HashSlotArray8byteKey} keyed by the 64-bit hash of the key, its value part holds the
+ * address of the first record in a chain of records sharing the same 64-bit hash. The chain is linked through
+ * the {@code next} field of the records, so a hash collision costs no additional memory.
+ * <p>
+ * This class is not thread-safe, the caller has to guard all access by a lock.
+ */
+final class NativeNearCacheRecordMap implements Disposable {
+
+    /**
+     * Length of the value part of a slot: the address of the chain head.
+     */
+    private static final int SLOT_VALUE_LENGTH = 8;
+
+    /**
+     * Length of a whole slot in the {@link HashSlotArray8byteKey}: 8 bytes key plus the value part.
+     */
+    private static final int SLOT_LENGTH = 8 + SLOT_VALUE_LENGTH;
+
+    private final MemoryAccessor mem;
+    private final MemoryAllocator malloc;
+    private final HashSlotArray8byteKey slots;
+    private final NativeNearCacheRecord record;
+    private final NativeNearCacheRecord chainRecord;
+
+    private int size;
+    private long memoryCost;
+
+    NativeNearCacheRecordMap(MemoryManager memoryManager) {
+        this.mem = memoryManager.getAccessor();
+        this.malloc = memoryManager.getAllocator();
+        this.slots = new HashSlotArray8byteKeyImpl(NULL_ADDRESS, memoryManager, SLOT_VALUE_LENGTH);
+        this.slots.gotoNew();
+        this.record = new NativeNearCacheRecord(mem, malloc);
+        this.chainRecord = new NativeNearCacheRecord(mem, malloc);
+    }
+
+    /**
+     * @return a new record flyweight, which can be positioned to the addresses returned by this map
+     */
+    NativeNearCacheRecord newRecordFlyweight() {
+        return new NativeNearCacheRecord(mem, malloc);
+    }
+
+    /**
+     * @return the number of records in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the native memory in bytes which is occupied by the records of this map
+     */
+    long memoryCost() {
+        return memoryCost;
+    }
+
+    /**
+     * Returns the address of the record of the given key.
+     *
+     * @param key the key to look up
+     * @return the address of the record or {@link MemoryAllocator#NULL_ADDRESS} if there is no such record
+     */
+    long get(Data key) {
+        long keyHash = key.hash64();
+        long slotValueAddress = slots.get(keyHash);
+        if (slotValueAddress == NULL_ADDRESS) {
+            return NULL_ADDRESS;
+        }
+        byte[] keyBytes = key.toByteArray();
+        long address = mem.getLong(slotValueAddress);
+        while (address != NULL_ADDRESS) {
+            if (chainRecord.reset(address).keyEquals(keyHash, keyBytes)) {
+                return address;
+            }
+            address = chainRecord.getNextAddress();
+        }
+        return NULL_ADDRESS;
+    }
+
+    /**
+     * Creates a new record without a value for the given key, replacing (and freeing) the existing record.
+     *
+     * @param key            the key of the record
+     * @param creationTime   the creation time of the record
+     * @param expirationTime the expiration time of the record
+     * @return the address of the new record
+     * @throws NativeOutOfMemoryError if there is not enough native memory, in this case the map is unchanged
+     */
+    long put(Data key, long creationTime, long expirationTime) {
+        long newAddress = malloc.allocate(NativeNearCacheRecord.recordSize(key.totalSize()));
+        record.reset(newAddress).initialize(key, creationTime, expirationTime);
+
+        long slotValueAddress;
+        try {
+            slotValueAddress = slots.ensure(key.hash64());
+        } catch (NativeOutOfMemoryError e) {
+            record.reset(newAddress).free();
+            throw e;
+        }
+
+        if (slotValueAddress > 0) {
+            // new slot, the new record is the only one in the chain
+            mem.putLong(slotValueAddress, newAddress);
+        } else {
+            link(-slotValueAddress, key, newAddress);
+        }
+        size++;
+        memoryCost += record.reset(newAddress).getMemoryCost();
+        return newAddress;
+    }
+
+    /**
+     * Updates the value of the record at the given address and keeps track of the occupied memory.
+     *
+     * @throws NativeOutOfMemoryError if there is not enough native memory, in this case the previous value is kept
+     */
+    void setValue(long address, Data value) {
+        record.reset(address);
+        long costBefore = record.getMemoryCost();
+        record.setValue(value);
+        memoryCost += record.getMemoryCost() - costBefore;
+    }
+
+    /**
+     * Removes and frees the record of the given key.
+     *
+     * @param key the key of the record to remove
+     * @return {@code true} if a record was removed, {@code false} otherwise
+     */
+    boolean remove(Data key) {
+        long keyHash = key.hash64();
+        long slotValueAddress = slots.get(keyHash);
+        if (slotValueAddress == NULL_ADDRESS) {
+            return false;
+        }
+        byte[] keyBytes = key.toByteArray();
+        long previousAddress = NULL_ADDRESS;
+        long address = mem.getLong(slotValueAddress);
+        while (address != NULL_ADDRESS) {
+            long nextAddress = chainRecord.reset(address).getNextAddress();
+            if (chainRecord.keyEquals(keyHash, keyBytes)) {
+                if (previousAddress != NULL_ADDRESS) {
+                    chainRecord.reset(previousAddress).setNextAddress(nextAddress);
+                } else if (nextAddress != NULL_ADDRESS) {
+                    mem.putLong(slotValueAddress, nextAddress);
+                } else {
+                    slots.remove(keyHash);
+                }
+                freeRecord(address);
+                return true;
+            }
+            previousAddress = address;
+            address = nextAddress;
+        }
+        return false;
+    }
+
+    /**
+     * Removes and frees all records.
+     */
+    void clear() {
+        HashSlotCursor8byteKey cursor = slots.cursor();
+        while (cursor.advance()) {
+            long address = mem.getLong(cursor.valueAddress());
+            while (address != NULL_ADDRESS) {
+                long nextAddress = record.reset(address).getNextAddress();
+                freeRecord(address);
+                address = nextAddress;
+            }
+        }
+        slots.clear();
+        size = 0;
+        memoryCost = 0;
+    }
+
+    /**
+     * Visits all records. The visitor must not modify this map.
+     */
+    void forEach(RecordVisitor visitor) {
+        HashSlotCursor8byteKey cursor = slots.cursor();
+        while (cursor.advance()) {
+            if (!visitChain(mem.getLong(cursor.valueAddress()), visitor)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits the records found by scanning the hash slots from a random position. The scan stops as soon as
+     * {@code sampleCount} records have been visited, so the cost is independent of the size of the map.
+     * The visitor must not modify this map.
+     */
+    void sample(int sampleCount, Random random, RecordVisitor visitor) {
+        long capacity = slots.capacity();
+        if (size == 0 || capacity == 0) {
+            return;
+        }
+        CountingVisitor countingVisitor = new CountingVisitor(sampleCount, visitor);
+        long baseAddress = slots.address();
+        long mask = capacity - 1;
+        long start = random.nextLong() & mask;
+        for (long i = 0; i < capacity; i++) {
+            long slot = (start + i) & mask;
+            // the key part is followed by the value part, which holds the head of the chain or the unassigned sentinel
+            long headAddress = mem.getLong(baseAddress + slot * SLOT_LENGTH + SLOT_LENGTH - SLOT_VALUE_LENGTH);
+            if (headAddress != NULL_ADDRESS && !visitChain(headAddress, countingVisitor)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+        slots.dispose();
+    }
+
+    private void link(long slotValueAddress, Data key, long newAddress) {
+        byte[] keyBytes = key.toByteArray();
+        long keyHash = key.hash64();
+        long previousAddress = NULL_ADDRESS;
+        long address = mem.getLong(slotValueAddress);
+        while (address != NULL_ADDRESS) {
+            long nextAddress = chainRecord.reset(address).getNextAddress();
+            if (chainRecord.keyEquals(keyHash, keyBytes)) {
+                // replace the existing record of the key
+                record.reset(newAddress).setNextAddress(nextAddress);
+                if (previousAddress == NULL_ADDRESS) {
+                    mem.putLong(slotValueAddress, newAddress);
+                } else {
+                    chainRecord.reset(previousAddress).setNextAddress(newAddress);
+                }
+                freeRecord(address);
+                return;
+            }
+            previousAddress = address;
+            address = nextAddress;
+        }
+        // hash collision with another key, so we prepend the new record to the chain
+        record.reset(newAddress).setNextAddress(mem.getLong(slotValueAddress));
+        mem.putLong(slotValueAddress, newAddress);
+    }
+
+    private boolean visitChain(long address, RecordVisitor visitor) {
+        while (address != NULL_ADDRESS) {
+            record.reset(address);
+            long nextAddress = record.getNextAddress();
+            if (!visitor.visit(record)) {
+                return false;
+            }
+            address = nextAddress;
+        }
+        return true;
+    }
+
+    private void freeRecord(long address) {
+        record.reset(address);
+        memoryCost -= record.getMemoryCost();
+        size--;
+        record.free();
+    }
+
+    /**
+     * Visitor of the records of a {@link NativeNearCacheRecordMap}.
+     */
+    interface RecordVisitor {
+
+        /**
+         * @param record the visited record, only valid during this call
+         * @return {@code true} to continue visiting, {@code false} to stop
+         */
+        boolean visit(NativeNearCacheRecord record);
+    }
+
+    private static final class CountingVisitor implements RecordVisitor {
+
+        private final RecordVisitor delegate;
+        private int remaining;
+
+        CountingVisitor(int count, RecordVisitor delegate) {
+            this.delegate = delegate;
+            this.remaining = count;
+        }
+
+        @Override
+        public boolean visit(NativeNearCacheRecord record) {
+            return delegate.visit(record) && --remaining > 0;
+        }
+    }
+}
@@ -0,0 +1,781 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.nativememory;
+
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionConfig.MaxSizePolicy;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.config.NearCachePreloaderConfig;
+import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.eviction.EvictionCandidate;
+import com.hazelcast.internal.eviction.EvictionChecker;
+import com.hazelcast.internal.eviction.EvictionListener;
+import com.hazelcast.internal.eviction.impl.evaluator.EvictionPolicyEvaluator;
+import com.hazelcast.internal.eviction.impl.strategy.sampling.SampleableEvictableStore;
+import com.hazelcast.internal.eviction.impl.strategy.sampling.SamplingEvictionStrategy;
+import com.hazelcast.internal.memory.impl.UnsafeMallocMemoryManager;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.nearcache.NearCacheRecordStore;
+import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataContainer;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector;
+import com.hazelcast.internal.nearcache.impl.nativememory.NativeNearCacheRecordMap.RecordVisitor;
+import com.hazelcast.internal.nearcache.impl.preloader.NearCachePreloader;
+import com.hazelcast.internal.nearcache.impl.record.NearCacheDataRecord;
+import com.hazelcast.internal.util.ThreadLocalRandomProvider;
+import com.hazelcast.memory.MemoryUnit;
+import com.hazelcast.memory.NativeOutOfMemoryError;
+import com.hazelcast.monitor.NearCacheStats;
+import com.hazelcast.monitor.impl.NearCacheStatsImpl;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.Clock;
+
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.internal.eviction.EvictionPolicyEvaluatorProvider.getEvictionPolicyEvaluator;
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+import static com.hazelcast.internal.nearcache.NearCache.CACHED_AS_NULL;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.NOT_RESERVED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.READ_PERMITTED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.RESERVED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.TIME_NOT_SET;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.UPDATE_STARTED;
+import static com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector.ALWAYS_FRESH;
+import static com.hazelcast.util.Preconditions.checkNotNull;
+
+/**
+ * {@link NearCacheRecordStore} implementation for Near Caches with {@link com.hazelcast.config.InMemoryFormat#NATIVE}
+ * in-memory-format.
+ * <p>
+ * Keys, values and record metadata are stored in native memory which is allocated from the supplied
+ * {@link UnsafeMallocMemoryManager}, so a Near Cache of this type doesn't put any pressure on the garbage collector.
+ * The records are spread over a fixed number of segments, each of them guarded by its own lock. A native record is
+ * just accessed while holding the lock of its segment, values are handed out as on-heap copies.
+ * The number of records is tracked in an atomic counter, so the size can be checked while holding a segment lock.
+ * <p>
+ * In addition to {@link MaxSizePolicy#ENTRY_COUNT} the native memory related max-size policies are supported.
+ * They are evaluated against the limit of the {@link UnsafeMallocMemoryManager}, which is shared by all native
+ * Near Caches of a Hazelcast instance.
+ *
+ * @param <K> the type of the key stored in Near Cache
+ * @param <V> the type of the value stored in Near Cache
+ */
+@SuppressWarnings("checkstyle:methodcount")
+public class NativeNearCacheRecordStore<K, V>
+        implements NearCacheRecordStore<K, V>, EvictionListener<Data, NearCacheDataRecord> {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int MILLI_SECONDS_IN_A_SECOND = 1000;
+    private static final int ONE_HUNDRED_PERCENT = 100;
+    private static final int FORCED_EVICTION_RETRY_COUNT = 16;
+
+    private final long timeToLiveMillis;
+    private final long maxIdleMillis;
+    private final NearCacheConfig nearCacheConfig;
+    private final SerializationService serializationService;
+    private final ClassLoader classLoader;
+    private final UnsafeMallocMemoryManager memoryManager;
+    private final NearCacheStatsImpl nearCacheStats = new NearCacheStatsImpl();
+    private final NearCachePreloader<Data> nearCachePreloader;
+    private final EvictableStore evictableStore = new EvictableStore();
+    private final AtomicLong reservationIdGenerator = new AtomicLong();
+    private final AtomicInteger entryCount = new AtomicInteger();
+    private final boolean evictionDisabled;
+
+    private EvictionChecker evictionChecker;
+    private EvictionPolicyEvaluator<Data, NearCacheDataRecord> evictionPolicyEvaluator;
+
+    private volatile Segment[] segments;
+    private volatile StaleReadDetector staleReadDetector = ALWAYS_FRESH;
+
+    public NativeNearCacheRecordStore(String name, NearCacheConfig nearCacheConfig, UnsafeMallocMemoryManager memoryManager,
+                                      SerializationService serializationService, ClassLoader classLoader) {
+        this.nearCacheConfig = nearCacheConfig;
+        this.memoryManager = checkNotNull(memoryManager, "memoryManager cannot be null for a NATIVE Near Cache!");
+        this.serializationService = serializationService;
+        this.classLoader = classLoader;
+        this.timeToLiveMillis = nearCacheConfig.getTimeToLiveSeconds() * MILLI_SECONDS_IN_A_SECOND;
+        this.maxIdleMillis = nearCacheConfig.getMaxIdleSeconds() * MILLI_SECONDS_IN_A_SECOND;
+        this.evictionDisabled = nearCacheConfig.getEvictionConfig().getEvictionPolicy() == EvictionPolicy.NONE;
+
+        NearCachePreloaderConfig preloaderConfig = nearCacheConfig.getPreloaderConfig();
+        this.nearCachePreloader = preloaderConfig.isEnabled()
+                ? new NearCachePreloader<Data>(name, preloaderConfig, nearCacheStats, serializationService)
+                : null;
+    }
+
+    @Override
+    public void initialize() {
+        EvictionConfig evictionConfig = nearCacheConfig.getEvictionConfig();
+        this.evictionChecker = createEvictionChecker(evictionConfig);
+        if (!evictionDisabled) {
+            this.evictionPolicyEvaluator = getEvictionPolicyEvaluator(evictionConfig, classLoader);
+        }
+        Segment[] segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(new NativeNearCacheRecordMap(memoryManager));
+        }
+        this.segments = segments;
+    }
+
+    private EvictionChecker createEvictionChecker(EvictionConfig evictionConfig) {
+        MaxSizePolicy maxSizePolicy = evictionConfig.getMaximumSizePolicy();
+        int size = evictionConfig.getSize();
+        switch (maxSizePolicy) {
+            case ENTRY_COUNT:
+                return new EntryCountEvictionChecker(size);
+            case USED_NATIVE_MEMORY_SIZE:
+                return new UsedNativeMemoryEvictionChecker(MemoryUnit.MEGABYTES.toBytes(size));
+            case USED_NATIVE_MEMORY_PERCENTAGE:
+                return new UsedNativeMemoryEvictionChecker(memoryManager.getMaxMemory() * size / ONE_HUNDRED_PERCENT);
+            case FREE_NATIVE_MEMORY_SIZE:
+                return new FreeNativeMemoryEvictionChecker(MemoryUnit.MEGABYTES.toBytes(size));
+            case FREE_NATIVE_MEMORY_PERCENTAGE:
+                return new FreeNativeMemoryEvictionChecker(memoryManager.getMaxMemory() * size / ONE_HUNDRED_PERCENT);
+            default:
+                throw new IllegalArgumentException("Invalid max-size policy (" + maxSizePolicy + ") for "
+                        + getClass().getName() + "!");
+        }
+    }
+
+    @Override
+    public void setStaleReadDetector(StaleReadDetector staleReadDetector) {
+        this.staleReadDetector = staleReadDetector;
+    }
+
+    @Override
+    public StaleReadDetector getStaleReadDetector() {
+        return staleReadDetector;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Data keyData = toData(key);
+        Segment segment = segmentOf(checkAvailable(), keyData);
+        Data valueData;
+        synchronized (segment) {
+            long address = segment.records.get(keyData);
+            if (address == NULL_ADDRESS) {
+                nearCacheStats.incrementMisses();
+                return null;
+            }
+            NativeNearCacheRecord record = segment.record.reset(address);
+            if (record.getRecordState() != READ_PERMITTED) {
+                return null;
+            }
+            if (staleReadDetector.isStaleRead(key, record)) {
+                removeRecord(segment, keyData);
+                return null;
+            }
+            if (isRecordExpired(record)) {
+                removeRecord(segment, keyData);
+                nearCacheStats.incrementExpirations();
+                return null;
+            }
+            record.setAccessTime(Clock.currentTimeMillis());
+            record.incrementAccessHit();
+            nearCacheStats.incrementHits();
+            valueData = record.getValue();
+        }
+        if (valueData == null) {
+            // a value cached as null is a hit, it was counted above
+            return (V) CACHED_AS_NULL;
+        }
+        return serializationService.toObject(valueData);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned record is a snapshot, changes to it are not reflected in the Near Cache.
+     */
+    @Override
+    public NearCacheRecord getRecord(K key) {
+        Data keyData = toData(key);
+        Segment segment = segmentOf(checkAvailable(), keyData);
+        synchronized (segment) {
+            long address = segment.records.get(keyData);
+            return address == NULL_ADDRESS ? null : toSnapshot(segment.record.reset(address), true);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Segment[] segments = checkAvailable();
+        Data keyData = toData(key);
+        Data valueData = toData(value);
+        Segment segment = segmentOf(segments, keyData);
+        for (int i = 0; i < FORCED_EVICTION_RETRY_COUNT; i++) {
+            try {
+                synchronized (segment) {
+                    // if there is no eviction configured we return if the Near Cache is full and it's a new key
+                    // (we have to check the key, otherwise we might lose updates on existing keys)
+                    if (evictionDisabled && evictionChecker.isEvictionRequired()
+                            && segment.records.get(keyData) == NULL_ADDRESS) {
+                        return;
+                    }
+                    putRecord(segment, key, keyData, valueData);
+                    return;
+                }
+            } catch (NativeOutOfMemoryError e) {
+                // eviction has to be done outside of the segment lock, since it locks other segments
+                if (evictionDisabled || evictableStore.evictSample() == 0) {
+                    // the Near Cache is just a cache, so we give up on caching this entry
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(K key) {
+        Data keyData = toData(key);
+        Segment segment = segmentOf(checkAvailable(), keyData);
+        synchronized (segment) {
+            return removeRecord(segment, keyData);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : checkAvailable()) {
+            synchronized (segment) {
+                entryCount.addAndGet(-segment.records.size());
+                segment.records.clear();
+            }
+        }
+        nearCacheStats.setOwnedEntryCount(0);
+        nearCacheStats.setOwnedEntryMemoryCost(0L);
+    }
+
+    @Override
+    public void destroy() {
+        Segment[] segments = checkAvailable();
+        clear();
+        this.segments = null;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.records.dispose();
+            }
+        }
+        if (nearCachePreloader != null) {
+            nearCachePreloader.destroy();
+        }
+    }
+
+    @Override
+    public NearCacheStats getNearCacheStats() {
+        checkAvailable();
+
+        return nearCacheStats;
+    }
+
+    @Override
+    public Object selectToSave(Object... candidates) {
+        if (candidates == null) {
+            return null;
+        }
+        // give priority to Data typed candidate, so there will be no extra conversion from Object to Data
+        for (Object candidate : candidates) {
+            if (candidate instanceof Data) {
+                return candidate;
+            }
+        }
+        for (Object candidate : candidates) {
+            if (candidate != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        checkAvailable();
+
+        return entryCount.get();
+    }
+
+    @Override
+    public void doExpiration() {
+        for (final Segment segment : checkAvailable()) {
+            synchronized (segment) {
+                final List<Data> expiredKeys = new ArrayList<Data>();
+                segment.records.forEach(new RecordVisitor() {
+                    @Override
+                    public boolean visit(NativeNearCacheRecord record) {
+                        if (isRecordExpired(record)) {
+                            expiredKeys.add(record.getKey());
+                        }
+                        return true;
+                    }
+                });
+                for (Data expiredKey : expiredKeys) {
+                    removeRecord(segment, expiredKey);
+                    nearCacheStats.incrementExpirations();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void doEvictionIfRequired() {
+        checkAvailable();
+
+        if (!evictionDisabled) {
+            SamplingEvictionStrategy.INSTANCE.evict(evictableStore, evictionPolicyEvaluator, evictionChecker, this);
+        }
+    }
+
+    @Override
+    public void doEviction() {
+        checkAvailable();
+
+        if (!evictionDisabled) {
+            evictableStore.evictSample();
+        }
+    }
+
+    @Override
+    public void onEvict(Data key, NearCacheDataRecord record, boolean wasExpired) {
+        if (wasExpired) {
+            nearCacheStats.incrementExpirations();
+        } else {
+            nearCacheStats.incrementEvictions();
+        }
+    }
+
+    @Override
+    public void loadKeys(DataStructureAdapter<Data, ?> adapter) {
+        if (nearCachePreloader != null) {
+            nearCachePreloader.loadKeys(adapter, new NativeEntryLoader(), staleReadDetector);
+        }
+    }
+
+    @Override
+    public void storeKeys() {
+        if (nearCachePreloader != null) {
+            // the snapshot is taken by the preloader, after it has captured the partition sequences
+            nearCachePreloader.storeEntries(new Iterable<Map.Entry<Data, NearCacheDataRecord>>() {
+                @Override
+                public Iterator<Map.Entry<Data, NearCacheDataRecord>> iterator() {
+                    return entrySnapshot().iterator();
+                }
+            }, staleReadDetector);
+        }
+    }
+
+    @Override
+    public long tryReserveForUpdate(K key) {
+        Data keyData = toData(key);
+        Segment segment = segmentOf(checkAvailable(), keyData);
+        synchronized (segment) {
+            long address = segment.records.get(keyData);
+            if (address == NULL_ADDRESS) {
+                // if there is no eviction configured we return if the Near Cache is full and it's a new key
+                // (we have to check the key, otherwise we might lose updates on existing keys)
+                if (evictionDisabled && evictionChecker.isEvictionRequired()) {
+                    return NOT_RESERVED;
+                }
+                try {
+                    address = createRecord(segment, key, keyData);
+                } catch (NativeOutOfMemoryError e) {
+                    return NOT_RESERVED;
+                }
+                segment.record.reset(address).casRecordState(READ_PERMITTED, RESERVED);
+            }
+            long reservationId = reservationIdGenerator.incrementAndGet();
+            return segment.record.reset(address).casRecordState(RESERVED, reservationId) ? reservationId : NOT_RESERVED;
+        }
+    }
+
+    @Override
+    public V tryPublishReserved(K key, V value, long reservationId, boolean deserialize) {
+        Data keyData = toData(key);
+        Segment segment = segmentOf(checkAvailable(), keyData);
+        Data valueData = toData(value);
+        Data cachedValue;
+        synchronized (segment) {
+            long address = segment.records.get(keyData);
+            if (address == NULL_ADDRESS) {
+                return null;
+            }
+            NativeNearCacheRecord record = segment.record.reset(address);
+            if (record.casRecordState(reservationId, UPDATE_STARTED)) {
+                long memoryCostBefore = segment.records.memoryCost();
+                try {
+                    segment.records.setValue(address, valueData);
+                } catch (NativeOutOfMemoryError e) {
+                    removeRecord(segment, keyData);
+                    return deserialize ? toValue(valueData) : null;
+                }
+                nearCacheStats.incrementOwnedEntryMemoryCost(segment.records.memoryCost() - memoryCostBefore);
+                segment.record.reset(address).casRecordState(UPDATE_STARTED, READ_PERMITTED);
+                nearCacheStats.incrementOwnedEntryCount();
+            }
+            if (!deserialize) {
+                return null;
+            }
+            cachedValue = segment.record.reset(address).getValue();
+        }
+        return toValue(cachedValue);
+    }
+
+    /**
+     * @return a snapshot of all entries, used to persist the Near Cache by the {@link NearCachePreloader}
+     */
+    List<Map.Entry<Data, NearCacheDataRecord>> entrySnapshot() {
+        final boolean withValue = nearCacheConfig.getPreloaderConfig().isStoreValues();
+        final List<Map.Entry<Data, NearCacheDataRecord>> entries = new ArrayList<Map.Entry<Data, NearCacheDataRecord>>();
+        for (Segment segment : checkAvailable()) {
+            synchronized (segment) {
+                segment.records.forEach(new RecordVisitor() {
+                    @Override
+                    public boolean visit(NativeNearCacheRecord record) {
+                        if (record.getRecordState() == READ_PERMITTED) {
+                            entries.add(new SimpleImmutableEntry<Data, NearCacheDataRecord>(record.getKey(),
+                                    toSnapshot(record, withValue)));
+                        }
+                        return true;
+                    }
+                });
+            }
+        }
+        return entries;
+    }
+
+    private Segment[] checkAvailable() {
+        Segment[] segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException(nearCacheConfig.getName() + " named Near Cache record store is not available");
+        }
+        return segments;
+    }
+
+    private Segment segmentOf(Segment[] segments, Data keyData) {
+        long hash = keyData.hash64();
+        int index = (int) (hash ^ (hash >>> 32)) & (SEGMENT_COUNT - 1);
+        return segments[index];
+    }
+
+    private void putRecord(Segment segment, K key, Data keyData, Data valueData) {
+        long existingAddress = segment.records.get(keyData);
+        boolean replacesOwnedRecord = existingAddress != NULL_ADDRESS
+                && segment.record.reset(existingAddress).getRecordState() == READ_PERMITTED;
+
+        long address = createRecord(segment, key, keyData);
+        // the memory cost of the record itself has been accounted by createRecord()
+        long memoryCostBefore = segment.records.memoryCost();
+        try {
+            segment.records.setValue(address, valueData);
+        } catch (NativeOutOfMemoryError e) {
+            segment.records.remove(keyData);
+            entryCount.decrementAndGet();
+            nearCacheStats.incrementOwnedEntryMemoryCost(segment.records.memoryCost() - memoryCostBefore);
+            if (replacesOwnedRecord) {
+                nearCacheStats.decrementOwnedEntryCount();
+            }
+            throw e;
+        }
+        nearCacheStats.incrementOwnedEntryMemoryCost(segment.records.memoryCost() - memoryCostBefore);
+        if (!replacesOwnedRecord) {
+            nearCacheStats.incrementOwnedEntryCount();
+        }
+    }
+
+    private long createRecord(Segment segment, K key, Data keyData) {
+        long now = Clock.currentTimeMillis();
+        long expirationTime = timeToLiveMillis > 0 ? now + timeToLiveMillis : TIME_NOT_SET;
+        long memoryCostBefore = segment.records.memoryCost();
+        int sizeBefore = segment.records.size();
+        long address;
+        try {
+            address = segment.records.put(keyData, now, expirationTime);
+        } finally {
+            entryCount.addAndGet(segment.records.size() - sizeBefore);
+            nearCacheStats.incrementOwnedEntryMemoryCost(segment.records.memoryCost() - memoryCostBefore);
+        }
+
+        MetaDataContainer metaDataContainer = staleReadDetector.getMetaDataContainer(key);
+        if (metaDataContainer != null) {
+            NativeNearCacheRecord record = segment.record.reset(address);
+            record.setUuid(metaDataContainer.getUuid());
+            record.setInvalidationSequence(metaDataContainer.getSequence());
+        }
+        return address;
+    }
+
+    private boolean removeRecord(Segment segment, Data keyData) {
+        long address = segment.records.get(keyData);
+        if (address == NULL_ADDRESS) {
+            return false;
+        }
+        boolean ownedRecord = segment.record.reset(address).getRecordState() == READ_PERMITTED;
+        long memoryCostBefore = segment.records.memoryCost();
+        segment.records.remove(keyData);
+        entryCount.decrementAndGet();
+        nearCacheStats.decrementOwnedEntryMemoryCost(memoryCostBefore - segment.records.memoryCost());
+        if (ownedRecord) {
+            nearCacheStats.decrementOwnedEntryCount();
+        }
+        return true;
+    }
+
+    private boolean isRecordExpired(NearCacheRecord record) {
+        long now = Clock.currentTimeMillis();
+        return record.isExpiredAt(now) || record.isIdleAt(maxIdleMillis, now);
+    }
+
+    private NearCacheDataRecord toSnapshot(NativeNearCacheRecord record, boolean withValue) {
+        NearCacheDataRecord snapshot = new NearCacheDataRecord(withValue ? record.getValue() : null,
+                record.getCreationTime(), record.getExpirationTime());
+        snapshot.setAccessTime(record.getLastAccessTime());
+        snapshot.setAccessHit(record.getAccessHit());
+        snapshot.setInvalidationSequence(record.getInvalidationSequence());
+        snapshot.setUuid(record.getUuid());
+        snapshot.casRecordState(READ_PERMITTED, record.getRecordState());
+        return snapshot;
+    }
+
+    private Data toData(Object obj) {
+        if (obj == null || obj instanceof Data) {
+            return (Data) obj;
+        }
+        return serializationService.toData(obj);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V toValue(Object obj) {
+        if (obj instanceof Data) {
+            return serializationService.toObject(obj);
+        }
+        return (V) obj;
+    }
+
+    /**
+     * A lock stripe of the Near Cache with its own off-heap record map.
+     */
+    private static final class Segment {
+
+        private final NativeNearCacheRecordMap records;
+        private final NativeNearCacheRecord record;
+
+        Segment(NativeNearCacheRecordMap records) {
+            this.records = records;
+            this.record = records.newRecordFlyweight();
+        }
+    }
+
+    /**
+     * Puts the values restored by the {@link NearCachePreloader} via the reservation protocol,
+     * so a concurrent invalidation of a key wins over its restored value.
+     */
+    private final class NativeEntryLoader implements NearCachePreloader.EntryLoader {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean loadEntry(Data key, Data value, long expirationTime) {
+            K nearCacheKey = (K) key;
+            long reservationId = tryReserveForUpdate(nearCacheKey);
+            if (reservationId == NOT_RESERVED) {
+                return false;
+            }
+            tryPublishReserved(nearCacheKey, (V) value, reservationId, false);
+
+            Segment segment = segmentOf(checkAvailable(), key);
+            synchronized (segment) {
+                long address = segment.records.get(key);
+                if (address == NULL_ADDRESS) {
+                    return false;
+                }
+                NativeNearCacheRecord record = segment.record.reset(address);
+                if (record.getRecordState() != READ_PERMITTED) {
+                    return false;
+                }
+                if (expirationTime > TIME_NOT_SET) {
+                    record.setExpirationTime(expirationTime);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Exposes the segments as {@link SampleableEvictableStore} to the {@link SamplingEvictionStrategy}.
+     * Eviction candidates are on-heap snapshots, the native records are just touched while holding the segment lock.
+     */
+    private final class EvictableStore implements SampleableEvictableStore<Data, NearCacheDataRecord> {
+
+        private static final int SAMPLE_COUNT = 15;
+
+        int evictSample() {
+            Iterable<EvictionCandidate<Data, NearCacheDataRecord>> samples = sample(SAMPLE_COUNT);
+            Iterable<EvictionCandidate<Data, NearCacheDataRecord>> evictionCandidates
+                    = evictionPolicyEvaluator.evaluate(samples);
+            return evict(evictionCandidates, NativeNearCacheRecordStore.this);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <C extends EvictionCandidate<Data, NearCacheDataRecord>> Iterable<C> sample(final int sampleCount) {
+            Segment[] segments = checkAvailable();
+            final List<C> samples = new ArrayList<C>(sampleCount);
+            int startIndex = ThreadLocalRandomProvider.get().nextInt(segments.length);
+            for (int i = 0; i < segments.length && samples.isEmpty(); i++) {
+                Segment segment = segments[(startIndex + i) % segments.length];
+                synchronized (segment) {
+                    segment.records.sample(sampleCount, ThreadLocalRandomProvider.get(), new RecordVisitor() {
+                        @Override
+                        public boolean visit(NativeNearCacheRecord record) {
+                            if (record.getRecordState() == READ_PERMITTED) {
+                                samples.add((C) new Candidate(record.getKey(), toSnapshot(record, false)));
+                            }
+                            return true;
+                        }
+                    });
+                }
+            }
+            return samples;
+        }
+
+        @Override
+        public <C extends EvictionCandidate<Data, NearCacheDataRecord>> int evict(
+                Iterable<C> evictionCandidates, EvictionListener<Data, NearCacheDataRecord> evictionListener) {
+            if (evictionCandidates == null) {
+                return 0;
+            }
+            Segment[] segments = checkAvailable();
+            int actualEvictedCount = 0;
+            for (C evictionCandidate : evictionCandidates) {
+                Data key = evictionCandidate.getAccessor();
+                Segment segment = segmentOf(segments, key);
+                boolean removed;
+                synchronized (segment) {
+                    removed = removeRecord(segment, key);
+                }
+                if (removed) {
+                    actualEvictedCount++;
+                    if (evictionListener != null) {
+                        evictionListener.onEvict(key, evictionCandidate.getEvictable(), false);
+                    }
+                }
+            }
+            return actualEvictedCount;
+        }
+    }
+
+    /**
+     * On-heap {@link EvictionCandidate} of a native Near Cache record.
+     */
+    private final class Candidate implements EvictionCandidate<Data, NearCacheDataRecord> {
+
+        private final Data key;
+        private final NearCacheDataRecord snapshot;
+
+        Candidate(Data key, NearCacheDataRecord snapshot) {
+            this.key = key;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Data getAccessor() {
+            return key;
+        }
+
+        @Override
+        public NearCacheDataRecord getEvictable() {
+            return snapshot;
+        }
+
+        @Override
+        public Object getKey() {
+            return serializationService.toObject(key);
+        }
+
+        @Override
+        public Object getValue() {
+            // the value is not copied to the heap just for eviction, custom comparators have to rely on the metadata
+            return null;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return snapshot.getCreationTime();
+        }
+
+        @Override
+        public long getLastAccessTime() {
+            return snapshot.getLastAccessTime();
+        }
+
+        @Override
+        public long getAccessHit() {
+            return snapshot.getAccessHit();
+        }
+    }
+
+    private class EntryCountEvictionChecker implements EvictionChecker {
+
+        private final int maxSize;
+
+        EntryCountEvictionChecker(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public boolean isEvictionRequired() {
+            // doesn't lock the segments, since it's called while holding a segment lock
+            return entryCount.get() >= maxSize;
+        }
+    }
+
+    private class UsedNativeMemoryEvictionChecker implements EvictionChecker {
+
+        private final long maxUsedMemory;
+
+        UsedNativeMemoryEvictionChecker(long maxUsedMemory) {
+            this.maxUsedMemory = maxUsedMemory;
+        }
+
+        @Override
+        public boolean isEvictionRequired() {
+            return memoryManager.getUsedMemory() >= maxUsedMemory;
+        }
+    }
+
+    private class FreeNativeMemoryEvictionChecker implements EvictionChecker {
+
+        private final long minFreeMemory;
+
+        FreeNativeMemoryEvictionChecker(long minFreeMemory) {
+            this.minFreeMemory = minFreeMemory;
+        }
+
+        @Override
+        public boolean isEvictionRequired() {
+            return memoryManager.getFreeMemory() < minFreeMemory;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.preloader;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+import static com.hazelcast.nio.Bits.BYTE_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Reads the entries of a memory-mapped Near Cache journal file, which has been written by a {@link NearCacheJournalWriter}.
+ * <p>
+ * File layout:
+ * <pre>
+ * header:  magic bytes (int), file format (int), committed length (long)
+ * entries: entry type (byte), key size (int), key payload
+ *          for {@link #ENTRY_TYPE_KEY_VALUE}: value size (int), value payload, expiration time (long),
+ *          partition sequence (long), partition UUID present flag (byte), partition UUID (two longs)
+ *          for {@link #ENTRY_TYPE_CHECKPOINT}: partition sequence (long), partition UUID (two longs)
+ * </pre>
+ * Just the entries up to the committed length are read. The file is mapped in windows, so the size of the file is
+ * not limited by the maximum size of a single mapping.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class NearCacheJournalReader implements Closeable {
+
+    /**
+     * Size of the journal file header.
+     */
+    static final int HEADER_SIZE = INT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES;
+
+    /**
+     * Entry which adds a key.
+     */
+    static final byte ENTRY_TYPE_KEY = 1;
+    /**
+     * Entry which adds a key with its value and invalidation metadata.
+     */
+    static final byte ENTRY_TYPE_KEY_VALUE = 2;
+    /**
+     * Entry which removes a key.
+     */
+    static final byte ENTRY_TYPE_REMOVE = 3;
+    /**
+     * Entry which records the sequence of the partition of a key, up to which the stored values of the partition are valid.
+     */
+    static final byte ENTRY_TYPE_CHECKPOINT = 4;
+
+    /**
+     * Size of the fixed-size fields behind the value of a {@link #ENTRY_TYPE_KEY_VALUE} entry.
+     */
+    static final int KEY_VALUE_METADATA_SIZE = LONG_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES
+            + BYTE_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES;
+
+    /**
+     * Size of the fixed-size fields behind the key of a {@link #ENTRY_TYPE_CHECKPOINT} entry.
+     */
+    static final int CHECKPOINT_METADATA_SIZE = LONG_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES + LONG_SIZE_IN_BYTES;
+
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long committedLength;
+
+    private MappedByteBuffer buffer;
+    private long bufferPosition;
+
+    private byte entryType;
+    private Data key;
+    private Data value;
+    private long expirationTime;
+    private long partitionSequence;
+    private UUID partitionUuid;
+
+    /**
+     * Opens the journal file for reading. The file header must have been validated by the caller.
+     */
+    NearCacheJournalReader(File journalFile) throws IOException {
+        this.file = new RandomAccessFile(journalFile, "r");
+        this.channel = file.getChannel();
+        this.bufferPosition = HEADER_SIZE;
+        this.committedLength = readCommittedLength();
+    }
+
+    /**
+     * @return the committed length of the journal file
+     */
+    long committedLength() {
+        return committedLength;
+    }
+
+    /**
+     * Advances to the next entry.
+     *
+     * @return {@code true} if there was a next entry, {@code false} if all committed entries have been read
+     * @throws EOFException if the committed length exceeds the file size
+     */
+    boolean next() throws IOException {
+        if (position() >= committedLength) {
+            return false;
+        }
+        ensureAvailable(BYTE_SIZE_IN_BYTES + INT_SIZE_IN_BYTES);
+        entryType = buffer.get();
+        key = readData();
+        if (entryType == ENTRY_TYPE_KEY_VALUE) {
+            ensureAvailable(INT_SIZE_IN_BYTES);
+            value = readData();
+            ensureAvailable(KEY_VALUE_METADATA_SIZE);
+            expirationTime = buffer.getLong();
+            partitionSequence = buffer.getLong();
+            boolean uuidPresent = buffer.get() != 0;
+            long mostSigBits = buffer.getLong();
+            long leastSigBits = buffer.getLong();
+            partitionUuid = uuidPresent ? new UUID(mostSigBits, leastSigBits) : null;
+        } else if (entryType == ENTRY_TYPE_CHECKPOINT) {
+            ensureAvailable(CHECKPOINT_METADATA_SIZE);
+            value = null;
+            expirationTime = 0;
+            partitionSequence = buffer.getLong();
+            partitionUuid = new UUID(buffer.getLong(), buffer.getLong());
+        } else if (entryType == ENTRY_TYPE_KEY || entryType == ENTRY_TYPE_REMOVE) {
+            value = null;
+            expirationTime = 0;
+            partitionSequence = 0;
+            partitionUuid = null;
+        } else {
+            throw new IOException("Unknown journal entry type " + entryType + " at position " + (position() - 1));
+        }
+        return true;
+    }
+
+    byte entryType() {
+        return entryType;
+    }
+
+    Data key() {
+        return key;
+    }
+
+    Data value() {
+        return value;
+    }
+
+    long expirationTime() {
+        return expirationTime;
+    }
+
+    long partitionSequence() {
+        return partitionSequence;
+    }
+
+    UUID partitionUuid() {
+        return partitionUuid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        file.close();
+    }
+
+    private long readCommittedLength() throws IOException {
+        long fileLength = channel.size();
+        if (fileLength < HEADER_SIZE) {
+            throw new EOFException("Journal file is too short for the header: " + fileLength + " bytes");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        long length = header.getLong(INT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES);
+        if (length < HEADER_SIZE || length > fileLength) {
+            throw new EOFException("Invalid committed length " + length + " of journal file with " + fileLength + " bytes");
+        }
+        return length;
+    }
+
+    private Data readData() throws IOException {
+        int size = buffer.getInt();
+        if (size < 0 || position() + size > committedLength) {
+            throw new EOFException("Invalid payload size " + size + " at position " + position());
+        }
+        ensureAvailable(size);
+        byte[] payload = new byte[size];
+        buffer.get(payload);
+        return new HeapData(payload);
+    }
+
+    private long position() {
+        return buffer == null ? bufferPosition : bufferPosition + buffer.position();
+    }
+
+    private void ensureAvailable(int size) throws IOException {
+        if (buffer != null && buffer.remaining() >= size) {
+            return;
+        }
+        long position = position();
+        if (position + size > committedLength) {
+            throw new EOFException("Unexpected end of journal at position " + position);
+        }
+        long mappingSize = min(committedLength - position, max(size, WINDOW_SIZE));
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mappingSize);
+        bufferPosition = position;
+    }
+}
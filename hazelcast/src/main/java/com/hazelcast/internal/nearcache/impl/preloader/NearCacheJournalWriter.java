@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.preloader;
+
+import com.hazelcast.nio.serialization.Data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.CHECKPOINT_METADATA_SIZE;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_CHECKPOINT;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_KEY;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_KEY_VALUE;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_REMOVE;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.HEADER_SIZE;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.KEY_VALUE_METADATA_SIZE;
+import static com.hazelcast.nio.Bits.BYTE_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.util.EmptyStatement.ignore;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Appends entries to a memory-mapped Near Cache journal file.
+ * <p>
+ * The entries are written into a mapped region behind the last committed entry, which is remapped when it's full.
+ * The appended entries become visible to the {@link NearCacheJournalReader} by {@link #commit()}, which forces the
+ * mapped regions to disk and then updates the committed length in the file header. So a crash during a store never
+ * corrupts the journal, the entries of the incomplete store are just ignored.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class NearCacheJournalWriter implements Closeable {
+
+    /**
+     * Size of the first mapped region, the following regions double in size.
+     */
+    private static final int INITIAL_MAPPING_SIZE = 1 << 16;
+    /**
+     * Upper bound of the size of a mapped region.
+     */
+    private static final int MAX_MAPPING_SIZE = 1 << 26;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int magicBytes;
+    private final int fileFormat;
+    private final long startPosition;
+
+    private MappedByteBuffer buffer;
+    private long bufferPosition;
+    private int mappingSize = INITIAL_MAPPING_SIZE;
+    private long committedPosition;
+
+    /**
+     * Opens the journal file for appending.
+     *
+     * @param journalFile      the journal file
+     * @param committedLength  the committed length of an existing journal file
+     *                         or {@code 0} to start a new journal (existing content is discarded)
+     * @param magicBytes       the magic bytes of the file header
+     * @param fileFormat       the file format of the file header
+     */
+    NearCacheJournalWriter(File journalFile, long committedLength, int magicBytes, int fileFormat) throws IOException {
+        this.file = new RandomAccessFile(journalFile, "rw");
+        this.channel = file.getChannel();
+        this.magicBytes = magicBytes;
+        this.fileFormat = fileFormat;
+        this.startPosition = max(committedLength, HEADER_SIZE);
+        this.bufferPosition = startPosition;
+        this.committedPosition = startPosition;
+        if (committedLength == 0) {
+            channel.truncate(0);
+            writeHeader(HEADER_SIZE);
+        }
+    }
+
+    void appendKey(Data key) throws IOException {
+        appendKeyEntry(ENTRY_TYPE_KEY, key);
+    }
+
+    void appendRemove(Data key) throws IOException {
+        appendKeyEntry(ENTRY_TYPE_REMOVE, key);
+    }
+
+    void appendKeyValue(Data key, Data value, long expirationTime, UUID partitionUuid, long partitionSequence)
+            throws IOException {
+        byte[] keyBytes = key.toByteArray();
+        byte[] valueBytes = value.toByteArray();
+        ensureCapacity(BYTE_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + keyBytes.length
+                + INT_SIZE_IN_BYTES + valueBytes.length + KEY_VALUE_METADATA_SIZE);
+
+        buffer.put(ENTRY_TYPE_KEY_VALUE);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.putInt(valueBytes.length);
+        buffer.put(valueBytes);
+        buffer.putLong(expirationTime);
+        buffer.putLong(partitionSequence);
+        if (partitionUuid != null) {
+            buffer.put((byte) 1);
+            buffer.putLong(partitionUuid.getMostSignificantBits());
+            buffer.putLong(partitionUuid.getLeastSignificantBits());
+        } else {
+            buffer.put((byte) 0);
+            buffer.putLong(0);
+            buffer.putLong(0);
+        }
+    }
+
+    void appendCheckpoint(Data key, UUID partitionUuid, long partitionSequence) throws IOException {
+        byte[] keyBytes = key.toByteArray();
+        ensureCapacity(BYTE_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + keyBytes.length + CHECKPOINT_METADATA_SIZE);
+
+        buffer.put(ENTRY_TYPE_CHECKPOINT);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.putLong(partitionSequence);
+        buffer.putLong(partitionUuid.getMostSignificantBits());
+        buffer.putLong(partitionUuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Makes the appended entries durable and visible.
+     *
+     * @return the number of bytes written since this writer was opened, including the file header
+     */
+    long commit() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        committedPosition = position();
+        writeHeader(committedPosition);
+        channel.force(false);
+        return committedPosition - startPosition + HEADER_SIZE;
+    }
+
+    /**
+     * @return the committed length of the journal file
+     */
+    long committedLength() {
+        return committedPosition;
+    }
+
+    /**
+     * Closes the journal file and cuts off the mapped, but unused tail of the file.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        try {
+            channel.truncate(committedPosition);
+        } catch (IOException e) {
+            // some platforms don't allow to truncate a mapped file, the tail is ignored by the reader anyway
+            ignore(e);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void appendKeyEntry(byte entryType, Data key) throws IOException {
+        byte[] keyBytes = key.toByteArray();
+        ensureCapacity(BYTE_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + keyBytes.length);
+
+        buffer.put(entryType);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+    }
+
+    private long position() {
+        return buffer == null ? bufferPosition : bufferPosition + buffer.position();
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (buffer != null && buffer.remaining() >= size) {
+            return;
+        }
+        long position = position();
+        if (buffer != null) {
+            buffer.force();
+            mappingSize = min(mappingSize << 1, MAX_MAPPING_SIZE);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, max(size, mappingSize));
+        bufferPosition = position;
+    }
+
+    private void writeHeader(long committedLength) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(magicBytes);
+        header.putInt(fileFormat);
+        header.putLong(committedLength);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
@@ -18,6 +18,9 @@ package com.hazelcast.internal.nearcache.impl.preloader;
 
 import com.hazelcast.config.NearCachePreloaderConfig;
 import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataContainer;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.util.BufferingInputStream;
 import com.hazelcast.logging.ILogger;
@@ -26,36 +29,83 @@ import com.hazelcast.memory.MemoryUnit;
 import com.hazelcast.monitor.impl.NearCacheStatsImpl;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.Clock;
 import com.hazelcast.util.collection.InflatableSet;
 import com.hazelcast.util.collection.InflatableSet.Builder;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-
-import static com.hazelcast.nio.Bits.*;
-import static com.hazelcast.nio.IOUtil.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.hazelcast.internal.nearcache.NearCacheRecord.READ_PERMITTED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.TIME_NOT_SET;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_CHECKPOINT;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_KEY_VALUE;
+import static com.hazelcast.internal.nearcache.impl.preloader.NearCacheJournalReader.ENTRY_TYPE_REMOVE;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.readIntB;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static com.hazelcast.nio.IOUtil.getPath;
+import static com.hazelcast.nio.IOUtil.readFullyOrNothing;
+import static com.hazelcast.nio.IOUtil.rename;
+import static com.hazelcast.nio.IOUtil.toFileName;
 import static com.hazelcast.util.StringUtil.isNullOrEmpty;
+import static java.lang.Math.max;
 import static java.lang.String.format;
-import static java.nio.ByteBuffer.allocate;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.newSetFromMap;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Loads and stores the keys from a Near Cache into a file.
+ * <p>
+ * The keys are stored in a memory-mapped, append-only journal. Every store just appends the keys which have been
+ * added or removed since the last store, so the cost of a store is proportional to the changes of the Near Cache
+ * instead of its size. The journal is compacted by rewriting it, when it contains too many obsolete entries.
+ * <p>
+ * If {@link NearCachePreloaderConfig#isStoreValues()} is enabled, the values are stored together with their
+ * partition UUID and sequence. On pre-loading these values are put into the Near Cache directly, if the partition
+ * metadata of the cluster proves that they are still valid. Otherwise the values are fetched from the cluster.
+ * Invalidations which are missed while the Near Cache was down are detected and repaired by the
+ * {@link com.hazelcast.internal.nearcache.impl.invalidation.RepairingTask}.
  *
  * @param <K> type of the {@link com.hazelcast.internal.nearcache.NearCacheRecord} keys
  */
 public class NearCachePreloader<K> {
 
+    /**
+     * Receives the values which are restored from the persisted Near Cache.
+     */
+    public interface EntryLoader {
+
+        /**
+         * Puts a restored value into the Near Cache, unless the Near Cache has a concurrent update on the key.
+         *
+         * @param key            the key of the entry
+         * @param value          the value of the entry
+         * @param expirationTime the original expiration time of the entry
+         * @return {@code true} if the value was put into the Near Cache, {@code false} otherwise
+         */
+        boolean loadEntry(Data key, Data value, long expirationTime);
+    }
+
     /**
      * File format for the file header.
      */
     private enum FileFormat {
-        INTERLEAVED_LENGTH_FIELD
+        INTERLEAVED_LENGTH_FIELD,
+        JOURNAL
     }
 
     /**
@@ -64,24 +114,42 @@ public class NearCachePreloader<K> {
     private static final int MAGIC_BYTES = 0xEA3CAC4E;
 
     /**
-     * Base-2 logarithm of buffer size.
-     */
-    private static final int LOG_OF_BUFFER_SIZE = 16;
-    /**
-     * Buffer size used for file I/O. Invariant: buffer size is a power of two.
+     * Buffer size used for reading files in the legacy {@link FileFormat#INTERLEAVED_LENGTH_FIELD} format.
      */
-    private static final int BUFFER_SIZE = 1 << LOG_OF_BUFFER_SIZE;
+    private static final int BUFFER_SIZE = 1 << 16;
 
     /**
      * Batch size for the pre-loader.
      */
     private static final int LOAD_BATCH_SIZE = 100;
 
+    /**
+     * The journal is compacted if it contains more than this factor times the number of stored keys entries.
+     */
+    private static final int COMPACTION_FACTOR = 2;
+
+    /**
+     * The journal is never compacted if it contains less than this number of entries.
+     */
+    private static final int MIN_COMPACTION_ENTRY_COUNT = 1024;
+
+    /**
+     * Fingerprint of a key which is stored without a value.
+     */
+    private static final long KEY_ONLY_FINGERPRINT = 0;
+
+    /**
+     * Fingerprint of a key which was restored with a value, which never matches the fingerprint of a record.
+     */
+    private static final long UNKNOWN_FINGERPRINT = Long.MIN_VALUE;
+
+    private static final int FINGERPRINT_PRIME = 31;
+
     private final ILogger logger = Logger.getLogger(NearCachePreloader.class);
-    private final ByteBuffer buf = allocate(BUFFER_SIZE);
     private final byte[] tmpBytes = new byte[INT_SIZE_IN_BYTES];
 
     private final String nearCacheName;
+    private final boolean storeValues;
     private final NearCacheStatsImpl nearCacheStats;
     private final SerializationService serializationService;
 
@@ -92,9 +160,23 @@ public class NearCachePreloader<K> {
     private int lastWrittenBytes;
     private int lastKeyCount;
 
+    /**
+     * The keys of the journal with the fingerprints of their stored entries,
+     * or {@code null} if the journal has to be rewritten on the next store.
+     */
+    private Map<Data, Long> storedKeys;
+    private long journalEntryCount;
+    private long journalLength;
+
+    /**
+     * The partitions with stored values, their sequences are captured before the entries of the next store are read.
+     */
+    private Set<MetaDataContainer> storedPartitions = emptySet();
+
     public NearCachePreloader(String nearCacheName, NearCachePreloaderConfig preloaderConfig,
                               NearCacheStatsImpl nearCacheStats, SerializationService serializationService) {
         this.nearCacheName = nearCacheName;
+        this.storeValues = preloaderConfig.isStoreValues();
         this.nearCacheStats = nearCacheStats;
         this.serializationService = serializationService;
 
@@ -114,6 +196,22 @@ public class NearCachePreloader<K> {
      * @param adapter the {@link DataStructureAdapter} to load the values from
      */
     public void loadKeys(DataStructureAdapter<Data, ?> adapter) {
+        loadKeys(adapter, null, null);
+    }
+
+    /**
+     * Loads the stored entries of the Near Cache.
+     * <p>
+     * Stored values are handed to the supplied {@link EntryLoader}, if they are still valid according to the
+     * partition metadata of the supplied {@link StaleReadDetector}. All other keys are loaded via the supplied
+     * {@link DataStructureAdapter}.
+     *
+     * @param adapter           the {@link DataStructureAdapter} to load the values from
+     * @param entryLoader       the {@link EntryLoader} for stored values or {@code null} to load all keys via the adapter
+     * @param staleReadDetector the {@link StaleReadDetector} of the Near Cache or {@code null} if there is none
+     */
+    public synchronized void loadKeys(DataStructureAdapter<Data, ?> adapter, EntryLoader entryLoader,
+                                      StaleReadDetector staleReadDetector) {
         if (!storeFile.exists()) {
             logger.info(format("Skipped loading keys of Near Cache %s since storage file doesn't exist (%s)", nearCacheName,
                     storeFile.getAbsolutePath()));
@@ -124,34 +222,45 @@ public class NearCachePreloader<K> {
         BufferingInputStream bis = null;
         try {
             bis = new BufferingInputStream(new FileInputStream(storeFile), BUFFER_SIZE);
-            if (!checkHeader(bis)) {
+            FileFormat fileFormat = readHeader(bis);
+            if (fileFormat == null) {
                 return;
             }
 
-            int loadedKeys = loadKeySet(bis, adapter);
+            int loadedKeys;
+            if (fileFormat == FileFormat.JOURNAL) {
+                closeResource(bis);
+                bis = null;
+                List<StoredCheckpoint> checkpoints = new ArrayList<StoredCheckpoint>();
+                Map<Data, StoredEntry> entries = readJournal(checkpoints);
+                loadedKeys = loadEntries(entries, checkpoints, adapter, storeValues ? entryLoader : null, staleReadDetector);
+            } else {
+                loadedKeys = loadKeySet(bis, adapter);
+            }
 
             long elapsedMillis = getElapsedMillis(startedNanos);
             logger.info(format("Loaded %d keys of Near Cache %s in %d ms", loadedKeys, nearCacheName, elapsedMillis));
         } catch (Exception e) {
+            storedKeys = null;
             logger.warning(format("Could not pre-load Near Cache %s (%s)", nearCacheName, storeFile.getAbsolutePath()), e);
         } finally {
             closeResource(bis);
         }
     }
 
-    private boolean checkHeader(BufferingInputStream bis) throws IOException {
+    private FileFormat readHeader(BufferingInputStream bis) throws IOException {
         int magicBytes = readInt(bis);
         if (magicBytes != MAGIC_BYTES) {
             logger.warning(format("Found invalid header for Near Cache %s (%s)", nearCacheName, storeFile.getAbsolutePath()));
-            return false;
+            return null;
         }
         int fileFormat = readInt(bis);
         if (fileFormat < 0 || fileFormat > FileFormat.values().length - 1) {
             logger.warning(format("Found invalid file format for Near Cache %s (%s)", nearCacheName,
                     storeFile.getAbsolutePath()));
-            return false;
+            return null;
         }
-        return true;
+        return FileFormat.values()[fileFormat];
     }
 
     /**
@@ -159,40 +268,204 @@ public class NearCachePreloader<K> {
      *
      * @param iterator {@link Iterator} over the key set of a {@link com.hazelcast.internal.nearcache.NearCacheRecordStore}
      */
-    public void storeKeys(Iterator<K> iterator) {
+    public synchronized void storeKeys(Iterator<K> iterator) {
+        List<StoreCandidate> candidates = new ArrayList<StoreCandidate>();
+        while (iterator.hasNext()) {
+            Data dataKey = serializationService.toData(iterator.next());
+            if (dataKey != null) {
+                candidates.add(new StoreCandidate(dataKey, null, null));
+            }
+        }
+        store(candidates, Collections.<MetaDataContainer, Long>emptyMap());
+    }
+
+    /**
+     * Stores the Near Cache entries from the supplied {@link Iterable}.
+     * <p>
+     * The values are just stored if {@link NearCachePreloaderConfig#isStoreValues()} is enabled, otherwise this method
+     * behaves like {@link #storeKeys(Iterator)}.
+     * <p>
+     * The sequences of the partitions with stored values are captured before the entries are iterated, so the records
+     * have to be read from the Near Cache by the iteration, not before this method is called.
+     *
+     * @param entries           the entries of a {@link com.hazelcast.internal.nearcache.NearCacheRecordStore}
+     * @param staleReadDetector the {@link StaleReadDetector} of the Near Cache or {@code null} if there is none
+     */
+    public synchronized void storeEntries(Iterable<? extends Map.Entry<K, ? extends NearCacheRecord>> entries,
+                                          StaleReadDetector staleReadDetector) {
+        Map<MetaDataContainer, Long> partitionSequences = new IdentityHashMap<MetaDataContainer, Long>();
+        for (MetaDataContainer metaData : storedPartitions) {
+            partitionSequences.put(metaData, metaData.getSequence());
+        }
+
+        List<StoreCandidate> candidates = new ArrayList<StoreCandidate>();
+        Iterator<? extends Map.Entry<K, ? extends NearCacheRecord>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, ? extends NearCacheRecord> entry = iterator.next();
+            Data dataKey = serializationService.toData(entry.getKey());
+            if (dataKey == null) {
+                continue;
+            }
+            NearCacheRecord record = entry.getValue();
+            MetaDataContainer metaData = null;
+            if (storeValues && isStorableValue(dataKey, record, staleReadDetector)) {
+                metaData = staleReadDetector == null ? null : staleReadDetector.getMetaDataContainer(dataKey);
+            } else {
+                record = null;
+            }
+            candidates.add(new StoreCandidate(dataKey, record, metaData));
+        }
+        store(candidates, partitionSequences);
+    }
+
+    private void store(List<StoreCandidate> candidates, Map<MetaDataContainer, Long> partitionSequences) {
         long startedNanos = System.nanoTime();
-        FileOutputStream fos = null;
+        NearCacheJournalWriter writer = null;
+        boolean compaction = false;
         try {
             lastWrittenBytes = 0;
             lastKeyCount = 0;
 
-            fos = new FileOutputStream(tmpStoreFile, false);
-
-            // write header and keys
-            writeInt(fos, MAGIC_BYTES);
-            writeInt(fos, FileFormat.INTERLEAVED_LENGTH_FIELD.ordinal());
-            writeKeySet(fos, fos.getChannel(), iterator);
-
-            // cleanup if no keys have been written
-            if (lastKeyCount == 0) {
+            // cleanup if there are no keys
+            if (candidates.isEmpty()) {
                 deleteQuietly(storeFile);
+                storedKeys = null;
+                storedPartitions = emptySet();
                 updatePersistenceStats(startedNanos);
                 return;
             }
 
-            fos.flush();
-            closeResource(fos);
-            rename(tmpStoreFile, storeFile);
+            Map<Data, Long> newStoredKeys = new HashMap<Data, Long>(candidates.size() * 2);
+            List<StoreCandidate> changedCandidates = new ArrayList<StoreCandidate>();
+            for (StoreCandidate candidate : candidates) {
+                long fingerprint = candidate.fingerprint();
+                newStoredKeys.put(candidate.key, fingerprint);
+                Long storedFingerprint = storedKeys == null ? null : storedKeys.get(candidate.key);
+                if (storedFingerprint == null || storedFingerprint != fingerprint) {
+                    changedCandidates.add(candidate);
+                }
+            }
+            List<Data> removedKeys = new ArrayList<Data>();
+            if (storedKeys != null) {
+                for (Data storedKey : storedKeys.keySet()) {
+                    if (!newStoredKeys.containsKey(storedKey)) {
+                        removedKeys.add(storedKey);
+                    }
+                }
+            }
 
+            long newJournalEntryCount = journalEntryCount + changedCandidates.size() + removedKeys.size();
+            compaction = storedKeys == null || !storeFile.exists()
+                    || (newJournalEntryCount > MIN_COMPACTION_ENTRY_COUNT
+                    && newJournalEntryCount > COMPACTION_FACTOR * (long) candidates.size());
+
+            if (compaction) {
+                // rewrite the whole journal into a new file
+                writer = new NearCacheJournalWriter(tmpStoreFile, 0, MAGIC_BYTES, FileFormat.JOURNAL.ordinal());
+                writeEntries(writer, candidates);
+                newJournalEntryCount = candidates.size() + writeCheckpoints(writer, candidates, partitionSequences);
+            } else {
+                // append the changes to the existing journal
+                writer = new NearCacheJournalWriter(storeFile, journalLength, MAGIC_BYTES, FileFormat.JOURNAL.ordinal());
+                for (Data removedKey : removedKeys) {
+                    writer.appendRemove(removedKey);
+                }
+                writeEntries(writer, changedCandidates);
+                newJournalEntryCount += writeCheckpoints(writer, candidates, partitionSequences);
+            }
+            lastWrittenBytes = (int) writer.commit();
+            journalLength = writer.committedLength();
+            writer.close();
+            writer = null;
+            if (compaction) {
+                rename(tmpStoreFile, storeFile);
+            }
+
+            storedKeys = newStoredKeys;
+            storedPartitions = partitionsOf(candidates);
+            journalEntryCount = newJournalEntryCount;
+            lastKeyCount = candidates.size();
             updatePersistenceStats(startedNanos);
         } catch (Exception e) {
             logger.warning(format("Could not store keys of Near Cache %s (%s)", nearCacheName, storeFile.getAbsolutePath()), e);
 
+            // the journal is rewritten on the next store
+            storedKeys = null;
+            storedPartitions = emptySet();
             nearCacheStats.addPersistenceFailure(e);
         } finally {
-            closeResource(fos);
-            deleteQuietly(tmpStoreFile);
+            closeResource(writer);
+            if (compaction) {
+                deleteQuietly(tmpStoreFile);
+            }
+        }
+    }
+
+    private void writeEntries(NearCacheJournalWriter writer, List<StoreCandidate> candidates) throws IOException {
+        for (StoreCandidate candidate : candidates) {
+            if (candidate.record == null) {
+                writer.appendKey(candidate.key);
+                continue;
+            }
+            Data value = serializationService.toData(candidate.record.getValue());
+            if (candidate.metaData == null) {
+                writer.appendKeyValue(candidate.key, value, candidate.record.getExpirationTime(), null, 0);
+            } else {
+                // the sequence of the record was taken before its value was fetched, unlike the current sequence
+                // of the partition it doesn't include invalidations which arrived after the record was read
+                writer.appendKeyValue(candidate.key, value, candidate.record.getExpirationTime(),
+                        candidate.recordUuid(), candidate.record.getInvalidationSequence());
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint for every partition with stored values.
+     * <p>
+     * Stored values which became stale have been rewritten without value by this store, so all remaining values of a
+     * partition are valid up to the sequence which the partition had before the records were read. The checkpoint
+     * records this, so unchanged values don't have to be rewritten to advance their partition sequence. The current
+     * sequence of the partition is not used, since it can include invalidations which arrived after the records were
+     * read. If the sequence was not captured, the highest sequence of the stored records of the partition is used.
+     *
+     * @return the number of written checkpoints
+     */
+    private int writeCheckpoints(NearCacheJournalWriter writer, List<StoreCandidate> candidates,
+                                 Map<MetaDataContainer, Long> partitionSequences) throws IOException {
+        Map<MetaDataContainer, StoreCandidate> partitions = new IdentityHashMap<MetaDataContainer, StoreCandidate>();
+        Map<MetaDataContainer, Long> sequences = new IdentityHashMap<MetaDataContainer, Long>();
+        for (StoreCandidate candidate : candidates) {
+            if (candidate.record == null || candidate.metaData == null || candidate.recordUuid() == null) {
+                continue;
+            }
+            long recordSequence = candidate.record.getInvalidationSequence();
+            Long sequence = sequences.get(candidate.metaData);
+            if (sequence == null) {
+                Long capturedSequence = partitionSequences.get(candidate.metaData);
+                sequence = capturedSequence == null ? recordSequence : max(capturedSequence, recordSequence);
+            } else {
+                sequence = max(sequence, recordSequence);
+            }
+            sequences.put(candidate.metaData, sequence);
+            if (!partitions.containsKey(candidate.metaData)) {
+                partitions.put(candidate.metaData, candidate);
+            }
         }
+        for (Map.Entry<MetaDataContainer, StoreCandidate> entry : partitions.entrySet()) {
+            StoreCandidate candidate = entry.getValue();
+            writer.appendCheckpoint(candidate.key, candidate.recordUuid(), sequences.get(entry.getKey()));
+        }
+        return partitions.size();
+    }
+
+    private static Set<MetaDataContainer> partitionsOf(List<StoreCandidate> candidates) {
+        Set<MetaDataContainer> partitions = newSetFromMap(new IdentityHashMap<MetaDataContainer, Boolean>());
+        for (StoreCandidate candidate : candidates) {
+            if (candidate.record != null && candidate.metaData != null) {
+                partitions.add(candidate.metaData);
+            }
+        }
+        return partitions;
     }
 
     private void updatePersistenceStats(long startedNanos) {
@@ -203,6 +476,169 @@ public class NearCachePreloader<K> {
                 MemoryUnit.BYTES.toKiloBytes(lastWrittenBytes)));
     }
 
+    /**
+     * Checks if the value of the record can be stored, so it can be trusted after a restart.
+     */
+    private static boolean isStorableValue(Data key, NearCacheRecord record, StaleReadDetector staleReadDetector) {
+        if (record == null || record.getRecordState() != READ_PERMITTED || record.getValue() == null) {
+            return false;
+        }
+        if (staleReadDetector == null || staleReadDetector.getMetaDataContainer(key) == null) {
+            return true;
+        }
+        return !staleReadDetector.isStaleRead(key, record);
+    }
+
+    /**
+     * Replays the journal into the map of the currently stored entries.
+     */
+    private Map<Data, StoredEntry> readJournal(List<StoredCheckpoint> checkpoints) throws IOException {
+        Map<Data, StoredEntry> entries = new LinkedHashMap<Data, StoredEntry>();
+        long entryCount = 0;
+        NearCacheJournalReader reader = new NearCacheJournalReader(storeFile);
+        try {
+            while (reader.next()) {
+                entryCount++;
+                byte entryType = reader.entryType();
+                if (entryType == ENTRY_TYPE_REMOVE) {
+                    entries.remove(reader.key());
+                } else if (entryType == ENTRY_TYPE_CHECKPOINT) {
+                    checkpoints.add(new StoredCheckpoint(reader.key(), reader.partitionUuid(), reader.partitionSequence()));
+                } else if (entryType == ENTRY_TYPE_KEY_VALUE) {
+                    entries.put(reader.key(), new StoredEntry(reader.value(), reader.expirationTime(),
+                            reader.partitionUuid(), reader.partitionSequence()));
+                } else {
+                    entries.put(reader.key(), StoredEntry.KEY_ONLY);
+                }
+            }
+            journalLength = reader.committedLength();
+        } finally {
+            closeResource(reader);
+        }
+
+        // the journal can be continued by the next store
+        storedKeys = new HashMap<Data, Long>(entries.size() * 2);
+        for (Map.Entry<Data, StoredEntry> entry : entries.entrySet()) {
+            storedKeys.put(entry.getKey(), entry.getValue() == StoredEntry.KEY_ONLY ? KEY_ONLY_FINGERPRINT : UNKNOWN_FINGERPRINT);
+        }
+        journalEntryCount = entryCount;
+        return entries;
+    }
+
+    private int loadEntries(Map<Data, StoredEntry> entries, List<StoredCheckpoint> checkpoints,
+                            DataStructureAdapter<Data, ?> adapter, EntryLoader entryLoader,
+                            StaleReadDetector staleReadDetector) {
+        Map<MetaDataContainer, Boolean> validMetaData = entryLoader == null
+                ? null
+                : validateMetaData(entries, checkpoints, staleReadDetector);
+        long now = Clock.currentTimeMillis();
+
+        int loadedKeys = 0;
+        int loadedValues = 0;
+        Builder<Data> builder = InflatableSet.newBuilder(LOAD_BATCH_SIZE);
+        for (Map.Entry<Data, StoredEntry> entry : entries.entrySet()) {
+            Data key = entry.getKey();
+            StoredEntry storedEntry = entry.getValue();
+            if (entryLoader != null && storedEntry.value != null
+                    && isValid(key, storedEntry, staleReadDetector, validMetaData, now)
+                    && entryLoader.loadEntry(key, storedEntry.value, storedEntry.expirationTime)) {
+                loadedValues++;
+            } else {
+                builder.add(key);
+                if (builder.size() == LOAD_BATCH_SIZE) {
+                    adapter.getAll(builder.build());
+                    builder = InflatableSet.newBuilder(LOAD_BATCH_SIZE);
+                }
+            }
+            loadedKeys++;
+        }
+        if (builder.size() > 0) {
+            adapter.getAll(builder.build());
+        }
+        if (loadedValues > 0) {
+            logger.info(format("Restored %d values of Near Cache %s from %s", loadedValues, nearCacheName,
+                    storeFile.getAbsolutePath()));
+        }
+        return loadedKeys;
+    }
+
+    /**
+     * Validates the stored partition metadata against the current partition metadata.
+     * <p>
+     * All stored values of a partition are valid up to the highest stored sequence of the partition, since
+     * invalidated or stale values have been removed from the journal by the following stores. So if the partition UUID is
+     * unchanged and the current sequence doesn't exceed the stored sequence, the values of the partition are valid
+     * and the current sequence is advanced to the stored one. Invalidations which have been missed in the meantime
+     * are then detected by the anti-entropy of the {@link com.hazelcast.internal.nearcache.impl.invalidation.RepairingTask}.
+     *
+     * @return the validation result per partition {@link MetaDataContainer}
+     */
+    private static Map<MetaDataContainer, Boolean> validateMetaData(Map<Data, StoredEntry> entries,
+                                                                   List<StoredCheckpoint> checkpoints,
+                                                                   StaleReadDetector staleReadDetector) {
+        Map<MetaDataContainer, Boolean> validMetaData = new IdentityHashMap<MetaDataContainer, Boolean>();
+        if (staleReadDetector == null) {
+            return validMetaData;
+        }
+        Map<MetaDataContainer, Long> storedSequences = new IdentityHashMap<MetaDataContainer, Long>();
+        for (Map.Entry<Data, StoredEntry> entry : entries.entrySet()) {
+            StoredEntry storedEntry = entry.getValue();
+            addStoredSequence(storedSequences, staleReadDetector, entry.getKey(), storedEntry.partitionUuid,
+                    storedEntry.partitionSequence);
+        }
+        for (StoredCheckpoint checkpoint : checkpoints) {
+            addStoredSequence(storedSequences, staleReadDetector, checkpoint.key, checkpoint.partitionUuid,
+                    checkpoint.partitionSequence);
+        }
+        for (Map.Entry<MetaDataContainer, Long> entry : storedSequences.entrySet()) {
+            validMetaData.put(entry.getKey(), advanceSequence(entry.getKey(), entry.getValue()));
+        }
+        return validMetaData;
+    }
+
+    private static void addStoredSequence(Map<MetaDataContainer, Long> storedSequences, StaleReadDetector staleReadDetector,
+                                          Data key, UUID partitionUuid, long partitionSequence) {
+        if (partitionUuid == null) {
+            return;
+        }
+        MetaDataContainer metaData = staleReadDetector.getMetaDataContainer(key);
+        if (metaData == null || !partitionUuid.equals(metaData.getUuid())) {
+            return;
+        }
+        Long storedSequence = storedSequences.get(metaData);
+        if (storedSequence == null || storedSequence < partitionSequence) {
+            storedSequences.put(metaData, partitionSequence);
+        }
+    }
+
+    private static boolean advanceSequence(MetaDataContainer metaData, long storedSequence) {
+        while (true) {
+            long currentSequence = metaData.getSequence();
+            if (currentSequence > storedSequence) {
+                return false;
+            }
+            if (currentSequence == storedSequence || metaData.casSequence(currentSequence, storedSequence)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isValid(Data key, StoredEntry storedEntry, StaleReadDetector staleReadDetector,
+                                   Map<MetaDataContainer, Boolean> validMetaData, long now) {
+        if (storedEntry.expirationTime > TIME_NOT_SET && storedEntry.expirationTime <= now) {
+            return false;
+        }
+        MetaDataContainer metaData = staleReadDetector == null ? null : staleReadDetector.getMetaDataContainer(key);
+        if (metaData == null) {
+            // the Near Cache has no invalidation, so there is nothing to check
+            return true;
+        }
+        if (storedEntry.partitionUuid == null || !storedEntry.partitionUuid.equals(metaData.getUuid())) {
+            return false;
+        }
+        return Boolean.TRUE.equals(validMetaData.get(metaData));
+    }
+
     private int loadKeySet(BufferingInputStream bis, DataStructureAdapter<Data, ?> adapter) throws IOException {
         int loadedKeys = 0;
 
@@ -223,73 +659,103 @@ public class NearCachePreloader<K> {
         if (builder.size() > 0) {
             adapter.getAll(builder.build());
         }
+        // a legacy file is converted into a journal by the next store
+        storedKeys = null;
         return loadedKeys;
     }
 
-    private void writeKeySet(FileOutputStream fos, FileChannel outChannel, Iterator<K> iterator) throws IOException {
-        while (iterator.hasNext()) {
-            K key = iterator.next();
-            Data dataKey = serializationService.toData(key);
-            if (dataKey != null) {
-                int dataSize = dataKey.totalSize();
-                writeInt(fos, dataSize);
-
-                int position = 0;
-                int remaining = dataSize;
-                while (remaining > 0) {
-                    int transferredCount = Math.min(BUFFER_SIZE - buf.position(), remaining);
-                    ensureBufHasRoom(fos, transferredCount);
-                    buf.put(dataKey.toByteArray(), position, transferredCount);
-                    position += transferredCount;
-                    remaining -= transferredCount;
-                }
-
-                lastWrittenBytes += INT_SIZE_IN_BYTES + dataSize;
-                lastKeyCount++;
-            }
-            flushLocalBuffer(outChannel);
-        }
-    }
-
     private int readInt(BufferingInputStream bis) throws IOException {
         readFullyOrNothing(bis, tmpBytes);
         return readIntB(tmpBytes, 0);
     }
 
-    private void writeInt(FileOutputStream fos, int dataSize) throws IOException {
-        ensureBufHasRoom(fos, INT_SIZE_IN_BYTES);
-        writeIntB(tmpBytes, 0, dataSize);
-        buf.put(tmpBytes);
+    private static String getFilename(String directory, String nearCacheName) {
+        String filename = toFileName("nearCache-" + nearCacheName + ".store");
+        if (isNullOrEmpty(directory)) {
+            return filename;
+        }
+        return getPath(directory, filename);
     }
 
-    private void ensureBufHasRoom(FileOutputStream fos, int expectedSize) throws IOException {
-        if (buf.position() < BUFFER_SIZE - expectedSize) {
-            return;
-        }
-        fos.write(buf.array());
-        buf.position(0);
+    private static long getElapsedMillis(long startedNanos) {
+        return NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
     }
 
-    private void flushLocalBuffer(FileChannel outChannel) throws IOException {
-        if (buf.position() == 0) {
-            return;
+    /**
+     * A key of the Near Cache with the record and metadata to store its value, if the value should be stored.
+     */
+    private static final class StoreCandidate {
+
+        private final Data key;
+        private final NearCacheRecord record;
+        private final MetaDataContainer metaData;
+
+        StoreCandidate(Data key, NearCacheRecord record, MetaDataContainer metaData) {
+            this.key = key;
+            this.record = record;
+            this.metaData = metaData;
+        }
+
+        /**
+         * Returns the partition UUID of the record, or {@code null} if it doesn't match the current partition UUID.
+         */
+        UUID recordUuid() {
+            UUID partitionUuid = metaData.getUuid();
+            return record.hasSameUuid(partitionUuid) ? partitionUuid : null;
         }
-        buf.flip();
-        while (buf.hasRemaining()) {
-            outChannel.write(buf);
+
+        /**
+         * Returns a fingerprint of the stored entry, which changes when the value changes or becomes stale.
+         * Serialized values are compared by content, since a restored record holds a copy of the stored value.
+         * <p>
+         * The partition sequence is not part of the fingerprint, since it's advanced by the partition checkpoints.
+         */
+        long fingerprint() {
+            if (record == null) {
+                return KEY_ONLY_FINGERPRINT;
+            }
+            Object value = record.getValue();
+            int valueHash = value instanceof Data ? value.hashCode() : System.identityHashCode(value);
+            long fingerprint = record.getCreationTime();
+            fingerprint = FINGERPRINT_PRIME * fingerprint + record.getExpirationTime();
+            fingerprint = FINGERPRINT_PRIME * fingerprint + valueHash;
+            return fingerprint == KEY_ONLY_FINGERPRINT || fingerprint == UNKNOWN_FINGERPRINT ? 1 : fingerprint;
         }
-        buf.clear();
     }
 
-    private static String getFilename(String directory, String nearCacheName) {
-        String filename = toFileName("nearCache-" + nearCacheName + ".store");
-        if (isNullOrEmpty(directory)) {
-            return filename;
+    /**
+     * A partition checkpoint restored from the journal, the partition is identified by a key of the partition.
+     */
+    private static final class StoredCheckpoint {
+
+        private final Data key;
+        private final UUID partitionUuid;
+        private final long partitionSequence;
+
+        StoredCheckpoint(Data key, UUID partitionUuid, long partitionSequence) {
+            this.key = key;
+            this.partitionUuid = partitionUuid;
+            this.partitionSequence = partitionSequence;
         }
-        return getPath(directory, filename);
     }
 
-    private static long getElapsedMillis(long startedNanos) {
-        return NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    /**
+     * An entry restored from the journal.
+     */
+    private static final class StoredEntry {
+
+        static final StoredEntry KEY_ONLY = new StoredEntry(null, TIME_NOT_SET, null, 0);
+
+        private final Data value;
+        private final long expirationTime;
+        private final UUID partitionUuid;
+        private final long partitionSequence;
+
+        StoredEntry(Data value, long expirationTime, UUID partitionUuid, long partitionSequence) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+            this.partitionUuid = partitionUuid;
+            this.partitionSequence = partitionSequence;
+        }
     }
 }
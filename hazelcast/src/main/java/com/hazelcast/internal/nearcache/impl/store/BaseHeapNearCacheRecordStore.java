@@ -31,7 +31,9 @@ import com.hazelcast.spi.serialization.SerializationService;
 
 import java.util.Map;
 
+import static com.hazelcast.internal.nearcache.NearCacheRecord.NOT_RESERVED;
 import static com.hazelcast.internal.nearcache.NearCacheRecord.READ_PERMITTED;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.TIME_NOT_SET;
 import static java.lang.String.format;
 
 /**
@@ -123,14 +125,14 @@ public abstract class BaseHeapNearCacheRecordStore<K, V, R extends NearCacheReco
     @Override
     public void loadKeys(DataStructureAdapter<Data, ?> adapter) {
         if (nearCachePreloader != null) {
-            nearCachePreloader.loadKeys(adapter);
+            nearCachePreloader.loadKeys(adapter, new HeapEntryLoader(), staleReadDetector);
         }
     }
 
     @Override
     public void storeKeys() {
         if (nearCachePreloader != null) {
-            nearCachePreloader.storeKeys(records.keySet().iterator());
+            nearCachePreloader.storeEntries(records.entrySet(), staleReadDetector);
         }
     }
 
@@ -163,4 +165,31 @@ public abstract class BaseHeapNearCacheRecordStore<K, V, R extends NearCacheReco
         Object cachedValue = existingRecord.getValue();
         return cachedValue instanceof Data ? toValue(cachedValue) : (V) existingRecord.getValue();
     }
+
+    /**
+     * Puts the values restored by the {@link NearCachePreloader} via the reservation protocol,
+     * so a concurrent invalidation of a key wins over its restored value.
+     */
+    private final class HeapEntryLoader implements NearCachePreloader.EntryLoader {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean loadEntry(Data key, Data value, long expirationTime) {
+            K nearCacheKey = (K) key;
+            long reservationId = tryReserveForUpdate(nearCacheKey);
+            if (reservationId == NOT_RESERVED) {
+                return false;
+            }
+            tryPublishReserved(nearCacheKey, (V) value, reservationId, false);
+
+            R record = records.get(nearCacheKey);
+            if (record == null || record.getRecordState() != READ_PERMITTED) {
+                return false;
+            }
+            if (expirationTime > TIME_NOT_SET) {
+                record.setExpirationTime(expirationTime);
+            }
+            return true;
+        }
+    }
 }
@@ -99,6 +99,21 @@ public interface InternalPartitionService extends IPartitionService {
      */
     void firstArrangement();
 
+    /**
+     * Returns {@code true} if the partition table has been initialized, i.e. the partitions have been assigned.
+     */
+    boolean isPartitionTableInitialized();
+
+    /**
+     * Initializes the partition table for the current members without publishing it, if this node is the master and
+     * the partition table is not initialized yet. The caller is responsible for sending the partition table to
+     * the members, e.g. the bulk join sends it together with the new member list.
+     *
+     * @return {@code true} if the partition table has been initialized by this call
+     * @see com.hazelcast.spi.properties.GroupProperty#BULK_JOIN_ENABLED
+     */
+    boolean initializePartitionTable();
+
     /**
      * Creates the current partition runtime state. May return {@code null} if the node should fetch the most recent partition
      * table (e.g. this node is a newly appointed master) or if the partition state manager is not initialized.
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+
+/**
+ * The load of the partitions owned by a member, which is the memory cost of the partition data and the number of
+ * operations executed on the partition since the previous measurement. The values of partitions which aren't owned
+ * by the member are zero, so the loads of all members can be {@link #add(PartitionLoads) added} to the cluster-wide
+ * partition loads.
+ */
+public final class PartitionLoads implements IdentifiedDataSerializable {
+
+    private long[] memoryCosts;
+    private long[] operationCounts;
+
+    public PartitionLoads() {
+    }
+
+    public PartitionLoads(int partitionCount) {
+        this.memoryCosts = new long[partitionCount];
+        this.operationCounts = new long[partitionCount];
+    }
+
+    public long[] getMemoryCosts() {
+        return memoryCosts;
+    }
+
+    public long[] getOperationCounts() {
+        return operationCounts;
+    }
+
+    /**
+     * Adds the given partition loads to these loads, ignores the loads if the partition count doesn't match.
+     */
+    public void add(PartitionLoads loads) {
+        if (loads.memoryCosts.length != memoryCosts.length) {
+            return;
+        }
+        for (int partitionId = 0; partitionId < memoryCosts.length; partitionId++) {
+            memoryCosts[partitionId] += loads.memoryCosts[partitionId];
+            operationCounts[partitionId] += loads.operationCounts[partitionId];
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return PartitionDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return PartitionDataSerializerHook.PARTITION_LOADS;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLongArray(memoryCosts);
+        out.writeLongArray(operationCounts);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        memoryCosts = in.readLongArray();
+        operationCounts = in.readLongArray();
+    }
+}
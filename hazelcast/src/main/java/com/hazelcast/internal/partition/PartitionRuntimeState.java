@@ -16,11 +16,13 @@
 
 package com.hazelcast.internal.partition;
 
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.nio.serialization.impl.Versioned;
 
 import java.io.IOException;
 import java.util.*;
@@ -28,7 +30,7 @@ import java.util.*;
 import static com.hazelcast.internal.partition.InternalPartition.MAX_REPLICA_COUNT;
 import static com.hazelcast.util.StringUtil.LINE_SEPARATOR;
 
-public final class PartitionRuntimeState implements IdentifiedDataSerializable {
+public final class PartitionRuntimeState implements IdentifiedDataSerializable, Versioned {
 
     /** Map from address to the replica index of the first partition where the address occurs. Used for writing state. */
     private Map<Address, Integer> addressToIndexes;
@@ -40,7 +42,7 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
     private int version;
     private Collection<MigrationInfo> completedMigrations;
     // used to know ongoing migrations when master changed
-    private MigrationInfo activeMigration;
+    private Collection<MigrationInfo> activeMigrations = Collections.emptyList();
 
     /** The sender of the operation which changes the partition table, should be the master node */
     private Address endpoint;
@@ -130,12 +132,12 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
         return completedMigrations != null ? completedMigrations : Collections.emptyList();
     }
 
-    public MigrationInfo getActiveMigration() {
-        return activeMigration;
+    public Collection<MigrationInfo> getActiveMigrations() {
+        return activeMigrations;
     }
 
-    public void setActiveMigration(MigrationInfo activeMigration) {
-        this.activeMigration = activeMigration;
+    public void setActiveMigrations(Collection<MigrationInfo> activeMigrations) {
+        this.activeMigrations = activeMigrations;
     }
 
     public void setCompletedMigrations(Collection<MigrationInfo> completedMigrations) {
@@ -165,9 +167,11 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
             }
         }
 
+        List<MigrationInfo> activeMigrations = new ArrayList<MigrationInfo>(1);
         if (in.readBoolean()) {
-            activeMigration = new MigrationInfo();
+            MigrationInfo activeMigration = new MigrationInfo();
             activeMigration.readData(in);
+            activeMigrations.add(activeMigration);
         }
 
         int k = in.readInt();
@@ -179,6 +183,17 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
                 completedMigrations.add(migrationInfo);
             }
         }
+
+        // members before 3.9 know only a single active migration, the other ones are appended to stay compatible
+        if (in.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            int activeMigrationCount = in.readInt();
+            for (int i = 0; i < activeMigrationCount; i++) {
+                MigrationInfo activeMigration = new MigrationInfo();
+                activeMigration.readData(in);
+                activeMigrations.add(activeMigration);
+            }
+        }
+        this.activeMigrations = activeMigrations;
     }
 
     @SuppressWarnings("checkstyle:npathcomplexity")
@@ -210,9 +225,10 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
             }
         }
 
-        if (activeMigration != null) {
+        Iterator<MigrationInfo> activeMigrationIterator = activeMigrations.iterator();
+        if (activeMigrationIterator.hasNext()) {
             out.writeBoolean(true);
-            activeMigration.writeData(out);
+            activeMigrationIterator.next().writeData(out);
         } else {
             out.writeBoolean(false);
         }
@@ -226,6 +242,13 @@ public final class PartitionRuntimeState implements IdentifiedDataSerializable {
         } else {
             out.writeInt(0);
         }
+
+        if (out.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            out.writeInt(Math.max(activeMigrations.size() - 1, 0));
+            while (activeMigrationIterator.hasNext()) {
+                activeMigrationIterator.next().writeData(out);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.internal.partition.InternalPartition.MAX_REPLICA_COUNT;
+
+/**
+ * The changes of the partition table between two partition state versions. Only the replicas of the changed partitions
+ * are sent, each replica address is sent once and the partitions refer to it by its index.
+ * <p>
+ * A delta can only be applied on a member which has the partition table of the {@link #getBaseVersion() base version}.
+ * Other members should receive the full {@link PartitionRuntimeState}.
+ */
+public final class PartitionRuntimeStateDelta implements IdentifiedDataSerializable {
+
+    private int baseVersion;
+    private int version;
+
+    private Address[] addresses;
+    private int[] partitionIds;
+    private int[][] replicaIndexes;
+
+    private Collection<MigrationInfo> completedMigrations;
+
+    /** The sender of the operation which changes the partition table, should be the master node */
+    private Address endpoint;
+
+    public PartitionRuntimeStateDelta() {
+    }
+
+    /**
+     * @param baseTable           the replica addresses of the partitions in the base version
+     * @param partitions          the current partitions
+     * @param baseVersion         the partition state version of the {@code baseTable}
+     * @param version             the current partition state version
+     * @param completedMigrations the completed migrations which are not yet evicted on the master
+     */
+    public PartitionRuntimeStateDelta(Address[][] baseTable, InternalPartition[] partitions, int baseVersion, int version,
+                                      Collection<MigrationInfo> completedMigrations) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.completedMigrations = completedMigrations != null
+                ? completedMigrations : Collections.<MigrationInfo>emptyList();
+
+        Map<Address, Integer> addressToIndexes = new HashMap<Address, Integer>();
+        List<Address> addressList = new ArrayList<Address>();
+        List<Integer> changedPartitionIds = new ArrayList<Integer>();
+        List<int[]> changedReplicaIndexes = new ArrayList<int[]>();
+        for (InternalPartition partition : partitions) {
+            int partitionId = partition.getPartitionId();
+            if (!isChanged(baseTable[partitionId], partition)) {
+                continue;
+            }
+
+            int replicaCount = getReplicaCount(partition);
+            int[] indexes = new int[replicaCount];
+            for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+                Address address = partition.getReplicaAddress(replicaIndex);
+                if (address == null) {
+                    indexes[replicaIndex] = -1;
+                    continue;
+                }
+                Integer index = addressToIndexes.get(address);
+                if (index == null) {
+                    index = addressList.size();
+                    addressToIndexes.put(address, index);
+                    addressList.add(address);
+                }
+                indexes[replicaIndex] = index;
+            }
+            changedPartitionIds.add(partitionId);
+            changedReplicaIndexes.add(indexes);
+        }
+
+        addresses = addressList.toArray(new Address[0]);
+        partitionIds = new int[changedPartitionIds.size()];
+        for (int i = 0; i < partitionIds.length; i++) {
+            partitionIds[i] = changedPartitionIds.get(i);
+        }
+        replicaIndexes = changedReplicaIndexes.toArray(new int[0][]);
+    }
+
+    private static boolean isChanged(Address[] baseReplicas, InternalPartition partition) {
+        for (int replicaIndex = 0; replicaIndex < MAX_REPLICA_COUNT; replicaIndex++) {
+            Address address = partition.getReplicaAddress(replicaIndex);
+            Address baseAddress = baseReplicas[replicaIndex];
+            if (address == null ? baseAddress != null : !address.equals(baseAddress)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the number of replicas up to the last assigned one, the trailing empty replicas are not sent */
+    private static int getReplicaCount(InternalPartition partition) {
+        for (int replicaIndex = MAX_REPLICA_COUNT - 1; replicaIndex >= 0; replicaIndex--) {
+            if (partition.getReplicaAddress(replicaIndex) != null) {
+                return replicaIndex + 1;
+            }
+        }
+        return 0;
+    }
+
+    public int getBaseVersion() {
+        return baseVersion;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /** Returns the IDs of the partitions which are changed since the base version */
+    public int[] getPartitionIds() {
+        return partitionIds;
+    }
+
+    /**
+     * Returns the replica addresses of the changed partitions, in the same order as {@link #getPartitionIds()}.
+     * Each element has {@link InternalPartition#MAX_REPLICA_COUNT} replica addresses.
+     */
+    public Address[][] getReplicaAddresses() {
+        Address[][] result = new Address[partitionIds.length][MAX_REPLICA_COUNT];
+        for (int i = 0; i < partitionIds.length; i++) {
+            int[] indexes = replicaIndexes[i];
+            for (int replicaIndex = 0; replicaIndex < indexes.length; replicaIndex++) {
+                int index = indexes[replicaIndex];
+                if (index != -1) {
+                    result[i][replicaIndex] = addresses[index];
+                }
+            }
+        }
+        return result;
+    }
+
+    public Collection<MigrationInfo> getCompletedMigrations() {
+        return completedMigrations;
+    }
+
+    public Address getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(Address endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(baseVersion);
+        out.writeInt(version);
+
+        out.writeInt(addresses.length);
+        for (Address address : addresses) {
+            address.writeData(out);
+        }
+
+        out.writeInt(partitionIds.length);
+        for (int i = 0; i < partitionIds.length; i++) {
+            out.writeInt(partitionIds[i]);
+            int[] indexes = replicaIndexes[i];
+            out.writeByte(indexes.length);
+            for (int index : indexes) {
+                out.writeInt(index);
+            }
+        }
+
+        out.writeInt(completedMigrations.size());
+        for (MigrationInfo migrationInfo : completedMigrations) {
+            migrationInfo.writeData(out);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        baseVersion = in.readInt();
+        version = in.readInt();
+
+        int addressCount = in.readInt();
+        addresses = new Address[addressCount];
+        for (int i = 0; i < addressCount; i++) {
+            Address address = new Address();
+            address.readData(in);
+            addresses[i] = address;
+        }
+
+        int partitionCount = in.readInt();
+        partitionIds = new int[partitionCount];
+        replicaIndexes = new int[partitionCount][];
+        for (int i = 0; i < partitionCount; i++) {
+            partitionIds[i] = in.readInt();
+            int[] indexes = new int[in.readByte()];
+            for (int replicaIndex = 0; replicaIndex < indexes.length; replicaIndex++) {
+                indexes[replicaIndex] = in.readInt();
+            }
+            replicaIndexes[i] = indexes;
+        }
+
+        int migrationCount = in.readInt();
+        List<MigrationInfo> migrations = new ArrayList<MigrationInfo>(migrationCount);
+        for (int i = 0; i < migrationCount; i++) {
+            MigrationInfo migrationInfo = new MigrationInfo();
+            migrationInfo.readData(in);
+            migrations.add(migrationInfo);
+        }
+        completedMigrations = migrations;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return PartitionDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return PartitionDataSerializerHook.PARTITION_RUNTIME_STATE_DELTA;
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionRuntimeStateDelta{baseVersion=" + baseVersion + ", version=" + version
+                + ", changedPartitions=" + Arrays.toString(partitionIds) + ", completedMigrations=" + completedMigrations + '}';
+    }
+}
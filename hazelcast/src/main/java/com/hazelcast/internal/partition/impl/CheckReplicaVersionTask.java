@@ -40,9 +40,16 @@ final class CheckReplicaVersionTask implements PartitionSpecificRunnable, Urgent
     private final int partitionId;
     private final int replicaIndex;
     private final ExecutionCallback callback;
+    // the migrating flag is set only to block the mutations of the partition
+    private final boolean allowMigratingFlag;
 
     CheckReplicaVersionTask(NodeEngineImpl nodeEngine, InternalPartitionServiceImpl partitionService,
             int partitionId, int replicaIndex, ExecutionCallback callback) {
+        this(nodeEngine, partitionService, partitionId, replicaIndex, callback, false);
+    }
+
+    CheckReplicaVersionTask(NodeEngineImpl nodeEngine, InternalPartitionServiceImpl partitionService,
+            int partitionId, int replicaIndex, ExecutionCallback callback, boolean allowMigratingFlag) {
         this.nodeEngine = nodeEngine;
         this.partitionService = partitionService;
         this.partitionId = partitionId;
@@ -53,12 +60,13 @@ final class CheckReplicaVersionTask implements PartitionSpecificRunnable, Urgent
         }
         this.replicaIndex = replicaIndex;
         this.callback = callback;
+        this.allowMigratingFlag = allowMigratingFlag;
     }
 
     @Override
     public void run() {
         InternalPartition partition = partitionService.getPartition(partitionId);
-        if (partition.isMigrating()) {
+        if (partition.isMigrating() && !allowMigratingFlag) {
             notifyCallback(false);
             return;
         }
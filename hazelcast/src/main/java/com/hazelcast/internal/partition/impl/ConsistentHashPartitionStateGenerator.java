@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.nio.Address;
+import com.hazelcast.partition.membergroup.MemberGroup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
+
+/**
+ * Places partitions on member groups by consistent hashing instead of balancing the current partition table.
+ * <p>
+ * Every partition ranks the member groups by a hash of the partition ID and the group, the so-called rendezvous
+ * hashing. A partition replica is placed on the highest ranked group which doesn't own another replica of the
+ * partition yet and whose load is below {@link #LOAD_BOUND_PERCENTAGE} of the average load per replica index, the
+ * so-called consistent hashing with bounded loads. When all groups below the bound already own a replica of a
+ * partition, partitions are shifted between groups to restore the bound. Only the last replica indexes of a cluster
+ * with very few groups may stay above it, since their placement is dictated by the previous replica indexes.
+ * Partitions are distributed among the members of a group in the same way.
+ * <p>
+ * The placement depends only on the partition ID and the members, not on the current partition table, so it's
+ * reproducible by any master. When a member joins or leaves, only the partitions ranking that member highest
+ * (and the few partitions pushed over the load bound) move. A tight bound pushes many partitions over it with
+ * every membership change, the slack of the bound keeps the number of moved replicas below the one of the
+ * default strategy, also with the default partition count of 271. Since replica {@code i} of a partition prefers
+ * its {@code i}-th ranked group, a backup promoted after a member crash mostly stays the owner in the new partition
+ * table.
+ */
+final class ConsistentHashPartitionStateGenerator implements PartitionStateGenerator {
+
+    /**
+     * Maximum load of a group or member in percent of the average load.
+     */
+    static final int LOAD_BOUND_PERCENTAGE = 125;
+
+    private static final int PERCENT = 100;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    @Override
+    public Address[][] arrange(Collection<MemberGroup> memberGroups, InternalPartition[] currentState) {
+        List<HashedGroup> groups = createGroups(memberGroups);
+        if (groups.isEmpty()) {
+            return null;
+        }
+
+        int partitionCount = currentState.length;
+        int replicaCount = Math.min(groups.size(), InternalPartition.MAX_REPLICA_COUNT);
+        int groupCapacity = capacity(partitionCount, groups.size());
+        Address[][] state = new Address[partitionCount][InternalPartition.MAX_REPLICA_COUNT];
+
+        for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+            for (HashedGroup group : groups) {
+                group.partitions.clear();
+            }
+            for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+                HashedGroup group = selectGroup(groups, state[partitionId], replicaIndex, partitionId, groupCapacity);
+                group.partitions.add(partitionId);
+            }
+            for (HashedGroup group : groups) {
+                while (group.partitions.size() > groupCapacity
+                        && shiftPartition(groups, group, state, replicaIndex, groupCapacity)) {
+                    // shift partitions until the group is within the bound
+                }
+            }
+            for (HashedGroup group : groups) {
+                group.assignPartitions(state, replicaIndex);
+            }
+        }
+        return state;
+    }
+
+    private static HashedGroup selectGroup(List<HashedGroup> groups, Address[] replicas, int replicaIndex,
+                                           int partitionId, int groupCapacity) {
+        HashedGroup best = null;
+        long bestWeight = 0;
+        HashedGroup bestOverloaded = null;
+        long bestOverloadedWeight = 0;
+        for (HashedGroup group : groups) {
+            if (group.ownsReplica(replicas, replicaIndex)) {
+                continue;
+            }
+            long weight = weight(partitionId, group.key);
+            if (group.partitions.size() < groupCapacity) {
+                if (best == null || weight > bestWeight) {
+                    best = group;
+                    bestWeight = weight;
+                }
+            } else if (bestOverloaded == null || weight > bestOverloadedWeight) {
+                bestOverloaded = group;
+                bestOverloadedWeight = weight;
+            }
+        }
+        // all groups with free capacity may already own another replica of the partition
+        return best != null ? best : bestOverloaded;
+    }
+
+    /**
+     * Moves a partition out of the overloaded group along the shortest chain of groups which ends at a group
+     * with free capacity. Each group in the chain hands over one partition to the next group, which doesn't own
+     * another replica of it. Returns {@code false} if there is no such chain.
+     */
+    private static boolean shiftPartition(List<HashedGroup> groups, HashedGroup overloaded, Address[][] state,
+                                          int replicaIndex, int groupCapacity) {
+        Map<HashedGroup, HashedGroup> previousGroups = new IdentityHashMap<HashedGroup, HashedGroup>();
+        Map<HashedGroup, Integer> receivedPartitions = new IdentityHashMap<HashedGroup, Integer>();
+        Queue<HashedGroup> queue = new ArrayDeque<HashedGroup>();
+        previousGroups.put(overloaded, overloaded);
+        queue.add(overloaded);
+        while (!queue.isEmpty()) {
+            HashedGroup group = queue.poll();
+            for (Integer partitionId : group.partitions) {
+                for (HashedGroup target : groups) {
+                    if (previousGroups.containsKey(target) || target.ownsReplica(state[partitionId], replicaIndex)) {
+                        continue;
+                    }
+                    previousGroups.put(target, group);
+                    receivedPartitions.put(target, partitionId);
+                    if (target.partitions.size() < groupCapacity) {
+                        while (target != overloaded) {
+                            HashedGroup source = previousGroups.get(target);
+                            Integer moved = receivedPartitions.get(target);
+                            source.partitions.remove(moved);
+                            target.partitions.add(moved);
+                            target = source;
+                        }
+                        return true;
+                    }
+                    queue.add(target);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<HashedGroup> createGroups(Collection<MemberGroup> memberGroups) {
+        List<HashedGroup> groups = new ArrayList<HashedGroup>();
+        if (memberGroups == null) {
+            return groups;
+        }
+        for (MemberGroup memberGroup : memberGroups) {
+            if (memberGroup.size() == 0) {
+                continue;
+            }
+            HashedGroup group = new HashedGroup();
+            Iterator<Member> iterator = memberGroup.iterator();
+            while (iterator.hasNext()) {
+                group.addMember(iterator.next().getAddress());
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the rendezvous weight of the given partition on the member or group with the given key.
+     */
+    static long weight(int partitionId, int key) {
+        return MurmurHash3_fmix(((long) partitionId << Integer.SIZE) | (key & INT_MASK));
+    }
+
+    /**
+     * Returns the maximum number of partitions of a group or member, which is at least one partition above the
+     * average.
+     */
+    static int capacity(int partitionCount, int count) {
+        long bound = ((long) partitionCount * LOAD_BOUND_PERCENTAGE + (long) PERCENT * count - 1) / ((long) PERCENT * count);
+        return (int) Math.max(bound, (partitionCount + count - 1) / count);
+    }
+
+    /**
+     * A member group with a stable hash key, which is the smallest key of its members. The key changes only if
+     * this member leaves the group.
+     */
+    private static final class HashedGroup {
+
+        final List<Address> members = new ArrayList<Address>();
+        final List<Integer> partitions = new ArrayList<Integer>();
+        int key = Integer.MAX_VALUE;
+
+        void addMember(Address address) {
+            members.add(address);
+            key = Math.min(key, address.hashCode());
+        }
+
+        boolean ownsReplica(Address[] replicas, int replicaCount) {
+            for (int i = 0; i < replicaCount; i++) {
+                if (members.contains(replicas[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Distributes the partitions placed on this group among its members, using the same bounded-load
+         * rendezvous hashing as for the groups.
+         */
+        void assignPartitions(Address[][] state, int replicaIndex) {
+            if (members.size() == 1) {
+                Address member = members.get(0);
+                for (Integer partitionId : partitions) {
+                    state[partitionId][replicaIndex] = member;
+                }
+                return;
+            }
+
+            int memberCapacity = capacity(partitions.size(), members.size());
+            int[] loads = new int[members.size()];
+            for (Integer partitionId : partitions) {
+                int best = -1;
+                long bestWeight = 0;
+                for (int i = 0; i < members.size(); i++) {
+                    long weight = weight(partitionId, members.get(i).hashCode());
+                    if (loads[i] < memberCapacity && (best < 0 || weight > bestWeight)) {
+                        best = i;
+                        bestWeight = weight;
+                    }
+                }
+                loads[best]++;
+                state[partitionId][replicaIndex] = members.get(best);
+            }
+        }
+    }
+}
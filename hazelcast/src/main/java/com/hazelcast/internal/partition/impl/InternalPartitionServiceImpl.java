@@ -17,6 +17,7 @@
 package com.hazelcast.internal.partition.impl;
 
 import com.hazelcast.cluster.ClusterState;
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
 import com.hazelcast.core.Member;
 import com.hazelcast.core.MemberLeftException;
@@ -25,6 +26,7 @@ import com.hazelcast.instance.MemberImpl;
 import com.hazelcast.instance.Node;
 import com.hazelcast.internal.cluster.ClusterStateListener;
 import com.hazelcast.internal.cluster.ClusterVersionListener;
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.internal.cluster.impl.ClusterServiceImpl;
 import com.hazelcast.internal.cluster.impl.operations.TriggerMemberListPublishOp;
 import com.hazelcast.internal.metrics.MetricsRegistry;
@@ -33,6 +35,7 @@ import com.hazelcast.internal.partition.*;
 import com.hazelcast.internal.partition.MigrationInfo.MigrationStatus;
 import com.hazelcast.internal.partition.operation.AssignPartitions;
 import com.hazelcast.internal.partition.operation.FetchPartitionStateOperation;
+import com.hazelcast.internal.partition.operation.PartitionStateDeltaOperation;
 import com.hazelcast.internal.partition.operation.PartitionStateOperation;
 import com.hazelcast.internal.partition.operation.ShutdownRequestOperation;
 import com.hazelcast.logging.ILogger;
@@ -50,6 +53,7 @@ import com.hazelcast.spi.partition.IPartition;
 import com.hazelcast.spi.partition.IPartitionLostEvent;
 import com.hazelcast.spi.properties.GroupProperty;
 import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.util.Clock;
 import com.hazelcast.util.EmptyStatement;
 import com.hazelcast.util.ExceptionUtil;
 import com.hazelcast.util.FutureUtil.ExceptionHandler;
@@ -94,6 +98,10 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
 
     private final long partitionMigrationTimeout;
 
+    private final boolean partitionTableDeltaEnabled;
+
+    private final boolean gracefulShutdownPromotionEnabled;
+
     private final PartitionServiceProxy proxy;
     private final Lock lock = new ReentrantLock();
     private final InternalPartitionListener partitionListener;
@@ -103,6 +111,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     private final PartitionReplicaManager replicaManager;
     private final PartitionReplicaStateChecker partitionReplicaStateChecker;
     private final PartitionEventManager partitionEventManager;
+    private final PartitionLoadTracker partitionLoadTracker;
 
     private final ExceptionHandler partitionStateSyncTimeoutHandler;
 
@@ -110,12 +119,29 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     private final AtomicBoolean triggerMasterFlag = new AtomicBoolean(false);
 
     private final AtomicReference<CountDownLatch> shutdownLatchRef = new AtomicReference<CountDownLatch>();
+    // partitions blocked during graceful shutdown until they are promoted to their backups
+    private volatile Collection<Integer> shutdownBlockedPartitionIds = Collections.emptySet();
 
     private volatile Address lastMaster;
 
     /** Whether the master should fetch the partition tables from other nodes, can happen when node becomes new master. */
     private volatile boolean shouldFetchPartitionTables;
 
+    /**
+     * The partition table last published or synced by this node as the master, the next partition table changes are
+     * computed against it. Guarded by the partition service lock.
+     */
+    private Address[][] publishedPartitionTable;
+    private int publishedPartitionStateVersion;
+
+    /** Time spent to sync the backups of the owned partitions during the last graceful shutdown */
+    @Probe
+    private volatile long gracefulShutdownReplicaSyncMillis;
+
+    /** Time spent from the first shutdown request until the master releases this member during the last graceful shutdown */
+    @Probe
+    private volatile long gracefulShutdownHandoffMillis;
+
     public InternalPartitionServiceImpl(Node node) {
         HazelcastProperties properties = node.getProperties();
         this.partitionCount = properties.getInteger(GroupProperty.PARTITION_COUNT);
@@ -131,11 +157,14 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
 
         partitionReplicaStateChecker = new PartitionReplicaStateChecker(node, this);
         partitionEventManager = new PartitionEventManager(node);
+        partitionLoadTracker = new PartitionLoadTracker(nodeEngine, this);
 
         partitionStateSyncTimeoutHandler =
                 logAllExceptions(logger, EXCEPTION_MSG_PARTITION_STATE_SYNC_TIMEOUT, Level.FINEST);
 
         partitionMigrationTimeout = properties.getMillis(GroupProperty.PARTITION_MIGRATION_TIMEOUT);
+        partitionTableDeltaEnabled = properties.getBoolean(GroupProperty.PARTITION_TABLE_DELTA_ENABLED);
+        gracefulShutdownPromotionEnabled = properties.getBoolean(GroupProperty.GRACEFUL_SHUTDOWN_PROMOTION_ENABLED);
 
         proxy = new PartitionServiceProxy(nodeEngine, this);
 
@@ -155,6 +184,11 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         ExecutionService executionService = nodeEngine.getExecutionService();
         executionService.scheduleWithRepetition(new PublishPartitionRuntimeStateTask(node, this),
                 partitionTableSendInterval, partitionTableSendInterval, TimeUnit.SECONDS);
+        if (partitionStateManager.isLoadAware()) {
+            int loadBalanceInterval = node.getProperties().getSeconds(GroupProperty.PARTITION_LOAD_BALANCE_INTERVAL_SECONDS);
+            executionService.scheduleWithRepetition(new PartitionLoadBalanceTask(node, this),
+                    loadBalanceInterval, loadBalanceInterval, TimeUnit.SECONDS);
+        }
 
         migrationManager.start();
         replicaManager.setClusterVersion(node.getClusterService().getClusterVersion());
@@ -227,6 +261,29 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         }
     }
 
+    @Override
+    public boolean isPartitionTableInitialized() {
+        return partitionStateManager.isInitialized();
+    }
+
+    @Override
+    public boolean initializePartitionTable() {
+        if (partitionStateManager.isInitialized() || !node.isMaster()) {
+            return false;
+        }
+
+        lock.lock();
+        try {
+            if (partitionStateManager.isInitialized()) {
+                return false;
+            }
+            Set<Address> excludedAddresses = migrationManager.getShutdownRequestedAddresses();
+            return partitionStateManager.initializePartitionAssignments(excludedAddresses);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /** Sends a {@link AssignPartitions} to the master to assign partitions. */
     private void triggerMasterToAssignPartitions() {
         if (partitionStateManager.isInitialized()) {
@@ -311,9 +368,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
                 return false;
             }
 
-            final MigrationRunnable activeTask = migrationManager.getActiveTask();
-            if (activeTask instanceof MigrationManager.MigrateTask) {
-                final MigrationManager.MigrateTask migrateTask = (MigrationManager.MigrateTask) activeTask;
+            for (MigrationManager.MigrateTask migrateTask : migrationManager.getRunningMigrateTasks()) {
                 final MigrationInfo migrationInfo = migrateTask.migrationInfo;
                 if (address.equals(migrationInfo.getSource()) || address.equals(migrationInfo.getDestination())) {
                     logger.fine(address + " cannot join since " + migrationInfo);
@@ -363,6 +418,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             if (isThisNodeNewMaster) {
                 assert !shouldFetchPartitionTables : "SOMETHING IS WRONG! Removed member: " + member;
                 shouldFetchPartitionTables = true;
+                publishedPartitionTable = null;
             }
 
             lastMaster = node.getClusterService().getMasterAddress();
@@ -440,7 +496,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             InternalPartition[] partitions = partitionStateManager.getPartitions();
 
             PartitionRuntimeState state = new PartitionRuntimeState(partitions, completedMigrations, getPartitionStateVersion());
-            state.setActiveMigration(migrationManager.getActiveMigration());
+            state.setActiveMigrations(migrationManager.getActiveMigrations());
             return state;
         } finally {
             lock.unlock();
@@ -508,6 +564,47 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         }
     }
 
+    /**
+     * Creates the changes of the partition table since it was last published by this node and records the current
+     * partition table as the published one. Returns {@code null} if the full partition table should be sent instead,
+     * e.g. when the partition table is published for the first time by this node.
+     * This method will acquire the partition service lock.
+     */
+    private PartitionRuntimeStateDelta createPartitionStateDelta() {
+        if (!partitionTableDeltaEnabled || !node.getClusterService().getClusterVersion().isGreaterOrEqual(Versions.V3_9)) {
+            return null;
+        }
+
+        lock.lock();
+        try {
+            if (!partitionStateManager.isInitialized()) {
+                return null;
+            }
+
+            InternalPartition[] partitions = partitionStateManager.getPartitions();
+            int version = getPartitionStateVersion();
+            PartitionRuntimeStateDelta delta = null;
+            if (publishedPartitionTable != null && publishedPartitionStateVersion <= version) {
+                List<MigrationInfo> completedMigrations = migrationManager.getCompletedMigrationsCopy();
+                delta = new PartitionRuntimeStateDelta(publishedPartitionTable, partitions, publishedPartitionStateVersion,
+                        version, completedMigrations);
+            }
+
+            Address[][] partitionTable = new Address[partitions.length][InternalPartition.MAX_REPLICA_COUNT];
+            for (InternalPartition partition : partitions) {
+                Address[] replicas = partitionTable[partition.getPartitionId()];
+                for (int replicaIndex = 0; replicaIndex < InternalPartition.MAX_REPLICA_COUNT; replicaIndex++) {
+                    replicas[replicaIndex] = partition.getReplicaAddress(replicaIndex);
+                }
+            }
+            publishedPartitionTable = partitionTable;
+            publishedPartitionStateVersion = version;
+            return delta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Called on the master node to publish the current partition state to all cluster nodes. It will not publish the partition
      * state if the partitions have not yet been initialized, there is ongoing repartitioning or a node is joining the cluster.
@@ -528,7 +625,20 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             return;
         }
 
-        PartitionRuntimeState partitionState = createPartitionStateInternal();
+        PartitionRuntimeStateDelta partitionStateDelta;
+        PartitionRuntimeState partitionState;
+        lock.lock();
+        try {
+            partitionStateDelta = createPartitionStateDelta();
+            partitionState = partitionStateDelta == null ? createPartitionStateInternal() : null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (partitionStateDelta != null) {
+            publishPartitionStateDelta(partitionStateDelta);
+            return;
+        }
         if (partitionState == null) {
             return;
         }
@@ -551,6 +661,60 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         }
     }
 
+    /**
+     * Sends the partition table changes to the cluster members. The members which could not apply the changes, e.g.
+     * because they have missed a previous partition table, receive the full partition table.
+     */
+    private void publishPartitionStateDelta(PartitionRuntimeStateDelta partitionStateDelta) {
+        if (logger.isFineEnabled()) {
+            logger.fine("Publishing partition state delta, base version: " + partitionStateDelta.getBaseVersion()
+                    + ", version: " + partitionStateDelta.getVersion()
+                    + ", changed partitions: " + partitionStateDelta.getPartitionIds().length);
+        }
+
+        OperationService operationService = nodeEngine.getOperationService();
+        Collection<MemberImpl> members = node.clusterService.getMemberImpls();
+        for (MemberImpl member : members) {
+            if (!member.localMember()) {
+                final Address address = member.getAddress();
+                try {
+                    PartitionStateDeltaOperation op = new PartitionStateDeltaOperation(partitionStateDelta);
+                    operationService.<Boolean>invokeOnTarget(SERVICE_NAME, op, address)
+                            .andThen(new ExecutionCallback<Boolean>() {
+                                @Override
+                                public void onResponse(Boolean applied) {
+                                    if (!applied) {
+                                        sendPartitionRuntimeState(address);
+                                    }
+                                }
+
+                                @Override
+                                public void onFailure(Throwable t) {
+                                    logger.finest(t);
+                                }
+                            });
+                } catch (Exception e) {
+                    logger.finest(e);
+                }
+            }
+        }
+    }
+
+    /** Sends the full partition table to the {@code target} member if this node is the master. */
+    private void sendPartitionRuntimeState(Address target) {
+        if (!node.isMaster()) {
+            return;
+        }
+        PartitionRuntimeState partitionState = createPartitionStateInternal();
+        if (partitionState == null) {
+            return;
+        }
+        if (logger.isFineEnabled()) {
+            logger.fine("Sending partition state, version: " + partitionState.getVersion() + " to " + target);
+        }
+        nodeEngine.getOperationService().send(new PartitionStateOperation(partitionState), target);
+    }
+
     /**
      * Called on the master node to send the partition tables to other cluster members. It will not publish the partition
      * state if the partitions have not yet been initialized.
@@ -569,7 +733,19 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             return false;
         }
 
-        PartitionRuntimeState partitionState = createPartitionStateInternal();
+        PartitionRuntimeStateDelta partitionStateDelta;
+        PartitionRuntimeState partitionState;
+        lock.lock();
+        try {
+            partitionStateDelta = createPartitionStateDelta();
+            partitionState = partitionStateDelta == null ? createPartitionStateInternal() : null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (partitionStateDelta != null) {
+            return syncPartitionStateDelta(partitionStateDelta);
+        }
         if (partitionState == null) {
             return false;
         }
@@ -578,9 +754,76 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             logger.fine("Sync'ing partition state, version: " + partitionState.getVersion());
         }
 
+        return syncPartitionRuntimeState(node.clusterService.getMemberImpls(), partitionState);
+    }
+
+    /**
+     * Sends the partition table changes to the cluster members and waits for their responses. The members which could not
+     * apply the changes are synced with the full partition table.
+     *
+     * @return {@code true} if all cluster members have synced their partition tables, {@code false} otherwise.
+     */
+    private boolean syncPartitionStateDelta(PartitionRuntimeStateDelta partitionStateDelta) {
+        if (logger.isFineEnabled()) {
+            logger.fine("Sync'ing partition state delta, base version: " + partitionStateDelta.getBaseVersion()
+                    + ", version: " + partitionStateDelta.getVersion()
+                    + ", changed partitions: " + partitionStateDelta.getPartitionIds().length);
+        }
+
         OperationService operationService = nodeEngine.getOperationService();
+        ClusterServiceImpl clusterService = node.clusterService;
+        Map<MemberImpl, Future<Boolean>> calls = new HashMap<MemberImpl, Future<Boolean>>();
+        for (MemberImpl member : clusterService.getMemberImpls()) {
+            if (!(member.localMember() || clusterService.isMemberRemovedInNotJoinableState(member.getAddress()))) {
+                try {
+                    PartitionStateDeltaOperation operation = new PartitionStateDeltaOperation(partitionStateDelta);
+                    Future<Boolean> f = operationService.invokeOnTarget(SERVICE_NAME, operation, member.getAddress());
+                    calls.put(member, f);
+                } catch (Exception e) {
+                    logger.finest(e);
+                }
+            }
+        }
+        Collection<Boolean> results = returnWithDeadline(calls.values(), PTABLE_SYNC_TIMEOUT_SECONDS,
+                TimeUnit.SECONDS, partitionStateSyncTimeoutHandler);
 
-        Collection<MemberImpl> members = node.clusterService.getMemberImpls();
+        if (calls.size() != results.size()) {
+            return false;
+        }
+
+        // all calls are completed successfully here
+        List<MemberImpl> rejectingMembers = new ArrayList<MemberImpl>();
+        for (Map.Entry<MemberImpl, Future<Boolean>> entry : calls.entrySet()) {
+            try {
+                if (!entry.getValue().get()) {
+                    rejectingMembers.add(entry.getKey());
+                }
+            } catch (Exception e) {
+                logger.finest(e);
+                return false;
+            }
+        }
+        if (rejectingMembers.isEmpty()) {
+            return true;
+        }
+
+        PartitionRuntimeState partitionState = createPartitionStateInternal();
+        if (partitionState == null) {
+            return false;
+        }
+        if (logger.isFineEnabled()) {
+            logger.fine("Sync'ing partition state, version: " + partitionState.getVersion() + " to " + rejectingMembers);
+        }
+        return syncPartitionRuntimeState(rejectingMembers, partitionState);
+    }
+
+    /**
+     * Sends the partition table to the {@code members} and waits for their responses.
+     *
+     * @return {@code true} if all the members have synced their partition tables, {@code false} otherwise.
+     */
+    private boolean syncPartitionRuntimeState(Collection<MemberImpl> members, PartitionRuntimeState partitionState) {
+        OperationService operationService = nodeEngine.getOperationService();
         List<Future<Boolean>> calls = firePartitionStateOperation(members, partitionState, operationService);
         Collection<Boolean> results = returnWithDeadline(calls, PTABLE_SYNC_TIMEOUT_SECONDS,
                 TimeUnit.SECONDS, partitionStateSyncTimeoutHandler);
@@ -630,6 +873,61 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
      */
     public boolean processPartitionRuntimeState(final PartitionRuntimeState partitionState) {
         final Address sender = partitionState.getEndpoint();
+        if (!isPartitionStateSenderValid(sender)) {
+            return false;
+        }
+        return applyNewState(partitionState, sender);
+    }
+
+    /**
+     * Applies the partition table changes if the node is started, the changes are sent by the master known by this node and
+     * this node has the partition table version which the changes are based on.
+     * This method will acquire the partition service lock.
+     *
+     * @param partitionStateDelta the partition table changes
+     * @return {@code true} if the changes were applied or the partition state version is same as the changed version
+     */
+    public boolean processPartitionRuntimeStateDelta(PartitionRuntimeStateDelta partitionStateDelta) {
+        Address sender = partitionStateDelta.getEndpoint();
+        if (!isPartitionStateSenderValid(sender)) {
+            return false;
+        }
+        if (!tryLock()) {
+            return false;
+        }
+
+        try {
+            int currentVersion = partitionStateManager.getVersion();
+            if (!partitionStateManager.isInitialized() || currentVersion != partitionStateDelta.getBaseVersion()) {
+                boolean alreadyApplied = partitionStateManager.isInitialized()
+                        && currentVersion == partitionStateDelta.getVersion();
+                if (!alreadyApplied && logger.isFineEnabled()) {
+                    logger.fine("Partition state delta cannot be applied, local version: " + currentVersion
+                            + ", base version: " + partitionStateDelta.getBaseVersion() + ", master: " + sender);
+                }
+                return alreadyApplied;
+            }
+
+            int[] partitionIds = partitionStateDelta.getPartitionIds();
+            Address[][] replicas = partitionStateDelta.getReplicaAddresses();
+            Set<Address> unknownAddresses = new HashSet<Address>();
+            for (int i = 0; i < partitionIds.length; i++) {
+                searchUnknownAddressesInPartitionTable(sender, unknownAddresses, partitionIds[i], replicas[i]);
+            }
+            onUnknownAddressesInPartitionTable(sender, unknownAddresses);
+
+            for (int i = 0; i < partitionIds.length; i++) {
+                partitionStateManager.updateReplicaAddresses(partitionIds[i], replicas[i]);
+            }
+            updateVersionAndFinalizeMigrations(partitionStateDelta.getVersion(), partitionStateDelta.getCompletedMigrations());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Checks if the node is started and the partition state is sent by the master known by this node. */
+    private boolean isPartitionStateSenderValid(Address sender) {
         if (!node.getNodeExtension().isStartCompleted()) {
             logger.warning("Ignoring received partition table, startup is not completed yet. Sender: " + sender);
             return false;
@@ -654,8 +952,17 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
                 }
             }
         }
+        return true;
+    }
 
-        return applyNewState(partitionState, sender);
+    /** Tries to acquire the partition service lock in {@value PTABLE_SYNC_TIMEOUT_SECONDS} seconds. */
+    private boolean tryLock() {
+        try {
+            return lock.tryLock(PTABLE_SYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
@@ -670,12 +977,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
      * if the partition state version is same as the current one
      */
     private boolean applyNewState(PartitionRuntimeState partitionState, Address sender) {
-        try {
-            if (!lock.tryLock(PTABLE_SYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                return false;
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (!tryLock()) {
             return false;
         }
 
@@ -696,6 +998,10 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             }
 
             filterAndLogUnknownAddressesInPartitionTable(sender, partitionState.getPartitionTable());
+            if (!partitionStateManager.isInitialized()) {
+                node.getNodeExtension().getInternalHotRestartService()
+                        .beforeInitialPartitionTableApplied(partitionState.getPartitionTable(), newVersion);
+            }
             updatePartitionsAndFinalizeMigrations(partitionState);
             return true;
         } finally {
@@ -712,9 +1018,17 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     private void updatePartitionsAndFinalizeMigrations(PartitionRuntimeState partitionState) {
         final Address[][] partitionTable = partitionState.getPartitionTable();
         updateAllPartitions(partitionTable);
-        partitionStateManager.setVersion(partitionState.getVersion());
+        updateVersionAndFinalizeMigrations(partitionState.getVersion(), partitionState.getCompletedMigrations());
+    }
+
+    /**
+     * Updates the partition state version, updates (adds and retains) the completed migrations and finalizes the active
+     * migration if it is equal to any completed.
+     */
+    private void updateVersionAndFinalizeMigrations(int version, Collection<MigrationInfo> completedMigrations) {
+        partitionStateManager.setVersion(version);
+        unblockPartitionsNotPromoted();
 
-        Collection<MigrationInfo> completedMigrations = partitionState.getCompletedMigrations();
         for (MigrationInfo completedMigration : completedMigrations) {
 
             assert completedMigration.getStatus() == MigrationStatus.SUCCESS
@@ -751,6 +1065,11 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             Address[] replicas = partitionTable[partitionId];
             searchUnknownAddressesInPartitionTable(sender, unknownAddresses, partitionId, replicas);
         }
+        onUnknownAddressesInPartitionTable(sender, unknownAddresses);
+    }
+
+    /** Logs the {@code unknownAddresses} and requests the member list from the master node if there are any. */
+    private void onUnknownAddressesInPartitionTable(Address sender, Set<Address> unknownAddresses) {
         logUnknownAddressesInPartitionTable(sender, unknownAddresses);
 
         if (!unknownAddresses.isEmpty()) {
@@ -843,7 +1162,34 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         InternalOperationService operationService = nodeEngine.getOperationService();
 
         long timeoutMillis = unit.toMillis(timeout);
+        boolean backupsSynced = false;
+        Collection<Integer> blockedPartitionIds = Collections.emptySet();
+        if (gracefulShutdownPromotionEnabled) {
+            // backups of the owned partitions are brought up to date while this member still owns them,
+            // so the master can promote them in one step instead of migrating the partitions one by one
+            long start = Clock.currentTimeMillis();
+            backupsSynced = partitionReplicaStateChecker.triggerAndWaitForReplicaSync(timeoutMillis / 2, TimeUnit.MILLISECONDS);
+            if (backupsSynced) {
+                // mutations accepted after the final sync would be lost by the promotion,
+                // so they are blocked and retried by their callers until the partitions are handed off
+                blockedPartitionIds = blockOwnedPartitions();
+                long remainingMillis = timeoutMillis / 2 - (Clock.currentTimeMillis() - start);
+                backupsSynced = remainingMillis > 0 && partitionReplicaStateChecker
+                        .triggerAndWaitForReplicaSync(remainingMillis, TimeUnit.MILLISECONDS, true);
+                if (!backupsSynced) {
+                    shutdownBlockedPartitionIds = Collections.emptySet();
+                    unblockPartitions(blockedPartitionIds);
+                    blockedPartitionIds = Collections.emptySet();
+                }
+            }
+            gracefulShutdownReplicaSyncMillis = Clock.currentTimeMillis() - start;
+            timeoutMillis -= gracefulShutdownReplicaSyncMillis;
+            logger.info("Backup replica sync before shutdown " + (backupsSynced ? "completed" : "did not complete")
+                    + " in " + gracefulShutdownReplicaSyncMillis + " ms");
+        }
+
         long awaitStep = Math.min(SAFE_SHUTDOWN_MAX_AWAIT_STEP_MILLIS, timeoutMillis);
+        long handoffStart = Clock.currentTimeMillis();
         try {
             do {
                 Address masterAddress = nodeEngine.getMasterAddress();
@@ -853,11 +1199,15 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
                 }
 
                 if (node.getThisAddress().equals(masterAddress)) {
-                    onShutdownRequest(node.getThisAddress());
+                    onShutdownRequest(node.getThisAddress(), backupsSynced);
                 } else {
-                    operationService.send(new ShutdownRequestOperation(), masterAddress);
+                    operationService.send(new ShutdownRequestOperation(backupsSynced), masterAddress);
                 }
                 if (latch.await(awaitStep, TimeUnit.MILLISECONDS)) {
+                    gracefulShutdownHandoffMillis = Clock.currentTimeMillis() - handoffStart;
+                    if (gracefulShutdownPromotionEnabled) {
+                        logger.info("Partition handoff before shutdown completed in " + gracefulShutdownHandoffMillis + " ms");
+                    }
                     return true;
                 }
                 timeoutMillis -= awaitStep;
@@ -865,9 +1215,97 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         } catch (InterruptedException e) {
             logger.info("Safe shutdown is interrupted!");
         }
+        shutdownBlockedPartitionIds = Collections.emptySet();
+        unblockPartitions(blockedPartitionIds);
+        return false;
+    }
+
+    /**
+     * Sets the migrating flags of the partitions owned by this member which will be promoted to a backup, so their
+     * operations are rejected and retried until the partitions are handed off. Partitions without a backup on another
+     * member which is not shutting down are migrated one by one and are not blocked, otherwise their writes would be
+     * rejected until their migration.
+     *
+     * @return IDs of the blocked partitions
+     */
+    private Collection<Integer> blockOwnedPartitions() {
+        Collection<Integer> partitionIds = new ArrayList<Integer>();
+        lock.lock();
+        try {
+            Set<Address> shutdownRequestedAddresses = migrationManager.getShutdownRequestedAddresses();
+            for (InternalPartition partition : partitionStateManager.getPartitions()) {
+                if (partition.isLocal() && !partition.isMigrating()
+                        && hasPromotableBackup(partition, shutdownRequestedAddresses)) {
+                    partitionStateManager.setMigratingFlag(partition.getPartitionId());
+                    partitionIds.add(partition.getPartitionId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        shutdownBlockedPartitionIds = partitionIds;
+        return partitionIds;
+    }
+
+    /**
+     * Checks if the partition has a backup on a member which is not shutting down. The backups are synced only up to the
+     * max allowed backup count, and the shutdown requests of the other members are known only if this member is the master.
+     */
+    private boolean hasPromotableBackup(InternalPartition partition, Set<Address> shutdownRequestedAddresses) {
+        Address thisAddress = node.getThisAddress();
+        int maxBackupCount = getMaxAllowedBackupCount();
+        for (int i = 1; i <= maxBackupCount; i++) {
+            Address address = partition.getReplicaAddress(i);
+            if (address != null && !address.equals(thisAddress) && !shutdownRequestedAddresses.contains(address)
+                    && node.getClusterService().getMember(address) != null) {
+                return true;
+            }
+        }
         return false;
     }
 
+    /**
+     * Unblocks the partitions which are still owned by this member after some of the blocked partitions have been
+     * promoted. The master promotes all promotable partitions of a member at once, so the remaining ones are migrated
+     * one by one, for example because their only backup is also shutting down.
+     * Called under the partition service lock after the partition table is updated.
+     */
+    void unblockPartitionsNotPromoted() {
+        Collection<Integer> partitionIds = shutdownBlockedPartitionIds;
+        if (partitionIds.isEmpty()) {
+            return;
+        }
+        Collection<Integer> notPromotedPartitionIds = new ArrayList<Integer>();
+        boolean promoted = false;
+        for (int partitionId : partitionIds) {
+            if (partitionStateManager.getPartitionImpl(partitionId).isLocal()) {
+                notPromotedPartitionIds.add(partitionId);
+            } else {
+                promoted = true;
+            }
+        }
+        if (promoted) {
+            shutdownBlockedPartitionIds = Collections.emptySet();
+            unblockPartitions(notPromotedPartitionIds);
+        }
+    }
+
+    /** Clears the migrating flags set by {@link #blockOwnedPartitions()} if the partitions did not start migrating since */
+    private void unblockPartitions(Collection<Integer> partitionIds) {
+        if (partitionIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> migratingPartitionIds = new HashSet<Integer>();
+        for (MigrationInfo migration : migrationManager.getActiveMigrations()) {
+            migratingPartitionIds.add(migration.getPartitionId());
+        }
+        for (int partitionId : partitionIds) {
+            if (!migratingPartitionIds.contains(partitionId)) {
+                partitionStateManager.clearMigratingFlag(partitionId);
+            }
+        }
+    }
+
     private CountDownLatch getShutdownLatch() {
         CountDownLatch latch = shutdownLatchRef.get();
         if (latch == null) {
@@ -880,9 +1318,17 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     }
 
     public void onShutdownRequest(Address address) {
+        onShutdownRequest(address, false);
+    }
+
+    /**
+     * Handles a shutdown request of the member. If {@code backupsSynced} is {@code true}, the member synced the backups of
+     * its owned partitions and they can be promoted instead of migrating the partitions.
+     */
+    public void onShutdownRequest(Address address, boolean backupsSynced) {
         if (lock.tryLock()) {
             try {
-                migrationManager.onShutdownRequest(address);
+                migrationManager.onShutdownRequest(address, backupsSynced);
             } finally {
                 lock.unlock();
             }
@@ -980,6 +1426,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         lock.lock();
         try {
             shouldFetchPartitionTables = false;
+            publishedPartitionTable = null;
             replicaManager.reset();
             partitionStateManager.reset();
             migrationManager.reset();
@@ -1112,6 +1559,23 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         return replicaManager;
     }
 
+    public PartitionLoadTracker getPartitionLoadTracker() {
+        return partitionLoadTracker;
+    }
+
+    /**
+     * Passes the partition loads to the partition state generator, returns if the partition table should be
+     * rearranged. Acquires the partition service lock.
+     */
+    boolean updatePartitionLoads(PartitionLoads loads) {
+        lock.lock();
+        try {
+            return partitionStateManager.updatePartitionLoads(loads);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public PartitionReplicaStateChecker getPartitionReplicaStateChecker() {
         return partitionReplicaStateChecker;
     }
@@ -1229,9 +1693,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
                     }
                     allCompletedMigrations.addAll(state.getCompletedMigrations());
 
-                    if (state.getActiveMigration() != null) {
-                        allActiveMigrations.add(state.getActiveMigration());
-                    }
+                    allActiveMigrations.addAll(state.getActiveMigrations());
                 } catch (TargetNotMemberException e) {
                     EmptyStatement.ignore(e);
                 } catch (MemberLeftException e) {
@@ -1291,9 +1753,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         private void processMigrations(Collection<MigrationInfo> allCompletedMigrations,
                                        Collection<MigrationInfo> allActiveMigrations) {
             allCompletedMigrations.addAll(migrationManager.getCompletedMigrationsCopy());
-            if (migrationManager.getActiveMigration() != null) {
-                allActiveMigrations.add(migrationManager.getActiveMigration());
-            }
+            allActiveMigrations.addAll(migrationManager.getActiveMigrations());
 
             for (MigrationInfo activeMigration : allActiveMigrations) {
                 activeMigration.setStatus(MigrationStatus.FAILED);
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionLoads;
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.nio.Address;
+import com.hazelcast.partition.membergroup.MemberGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.internal.partition.InternalPartition.MAX_REPLICA_COUNT;
+
+/**
+ * Balances the load of the partitions instead of their number among the members.
+ * <p>
+ * The cost of a partition replica is {@code 1 + memoryCost / averageMemoryCost}, owner replicas additionally cost
+ * {@code operationCount / averageOperationCount}, so the partition count is still balanced when there is no load.
+ * The loads are {@link #setPartitionLoads(PartitionLoads) provided} by the master, which collects them periodically
+ * from the members.
+ * <p>
+ * The arrangement starts from the current partition table. Replicas of departed members are replaced by promoting
+ * the next replicas, missing replicas are assigned to the least loaded members and then, separately for each replica
+ * index, partitions are moved from overloaded to underloaded members until the load of every member is within the
+ * skew threshold of the average load. So partitions only move when the skew exceeds the threshold and only as
+ * many as needed. An owner may also swap with one of its backups, which promotes the backup without copying the
+ * partition. As with the other generators, the replicas of a partition are placed on distinct member groups.
+ */
+final class LoadAwarePartitionStateGenerator implements PartitionStateGenerator {
+
+    private static final int OWNER_COSTS = 0;
+    private static final int BACKUP_COSTS = 1;
+    private static final double PERCENT = 100d;
+
+    private final double skewThreshold;
+
+    private volatile double[][] partitionCosts;
+
+    LoadAwarePartitionStateGenerator(int skewThresholdPercent) {
+        this.skewThreshold = skewThresholdPercent / PERCENT;
+    }
+
+    /**
+     * Sets the cluster-wide partition loads used by the next arrangements.
+     */
+    void setPartitionLoads(PartitionLoads loads) {
+        long[] memoryCosts = loads.getMemoryCosts();
+        long[] operationCounts = loads.getOperationCounts();
+        double averageMemoryCost = average(memoryCosts);
+        double averageOperationCount = average(operationCounts);
+
+        double[] ownerCosts = new double[memoryCosts.length];
+        double[] backupCosts = new double[memoryCosts.length];
+        for (int partitionId = 0; partitionId < memoryCosts.length; partitionId++) {
+            double memoryCost = averageMemoryCost > 0 ? memoryCosts[partitionId] / averageMemoryCost : 0;
+            double operationCost = averageOperationCount > 0 ? operationCounts[partitionId] / averageOperationCount : 0;
+            backupCosts[partitionId] = 1 + memoryCost;
+            ownerCosts[partitionId] = 1 + memoryCost + operationCost;
+        }
+        partitionCosts = new double[][]{ownerCosts, backupCosts};
+    }
+
+    @Override
+    public Address[][] arrange(Collection<MemberGroup> memberGroups, InternalPartition[] currentState) {
+        Arrangement arrangement = new Arrangement(memberGroups, currentState.length);
+        if (arrangement.memberCount() == 0) {
+            return null;
+        }
+        double[][] costs = partitionCosts;
+        if (costs == null || costs[OWNER_COSTS].length != currentState.length) {
+            double[] uniformCosts = new double[currentState.length];
+            Arrays.fill(uniformCosts, 1);
+            costs = new double[][]{uniformCosts, uniformCosts};
+        }
+
+        arrangement.copyReplicas(currentState);
+        for (int replicaIndex = 0; replicaIndex < arrangement.replicaCount; replicaIndex++) {
+            double[] replicaCosts = replicaIndex == 0 ? costs[OWNER_COSTS] : costs[BACKUP_COSTS];
+            new ReplicaBalancer(arrangement, replicaIndex, replicaCosts, skewThreshold).balance();
+        }
+        return arrangement.toState();
+    }
+
+    private static double average(long[] values) {
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return values.length > 0 ? sum / values.length : 0;
+    }
+
+    /**
+     * The partition table under construction, replicas are stored as indexes of the members.
+     */
+    private static final class Arrangement {
+
+        final List<Address> members = new ArrayList<Address>();
+        final Map<Address, Integer> memberIndexes = new HashMap<Address, Integer>();
+        final List<Integer> memberGroupIndexes = new ArrayList<Integer>();
+        final int replicaCount;
+        final int[][] replicas;
+
+        Arrangement(Collection<MemberGroup> memberGroups, int partitionCount) {
+            int groupCount = 0;
+            for (MemberGroup group : memberGroups) {
+                if (group.size() == 0) {
+                    continue;
+                }
+                Iterator<Member> iterator = group.iterator();
+                while (iterator.hasNext()) {
+                    Address address = iterator.next().getAddress();
+                    memberIndexes.put(address, members.size());
+                    members.add(address);
+                    memberGroupIndexes.add(groupCount);
+                }
+                groupCount++;
+            }
+            replicaCount = Math.min(groupCount, MAX_REPLICA_COUNT);
+            replicas = new int[partitionCount][replicaCount];
+            for (int[] partitionReplicas : replicas) {
+                Arrays.fill(partitionReplicas, -1);
+            }
+        }
+
+        int memberCount() {
+            return members.size();
+        }
+
+        /**
+         * Copies the replicas of the current members, the replicas of the remaining members are shifted up.
+         */
+        void copyReplicas(InternalPartition[] currentState) {
+            for (int partitionId = 0; partitionId < currentState.length; partitionId++) {
+                InternalPartition partition = currentState[partitionId];
+                int replicaIndex = 0;
+                for (int i = 0; i < MAX_REPLICA_COUNT && replicaIndex < replicaCount; i++) {
+                    Integer member = memberIndexes.get(partition.getReplicaAddress(i));
+                    if (member != null && isAllowed(partitionId, member, replicaIndex)) {
+                        replicas[partitionId][replicaIndex++] = member;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns if the member may hold the given replica, which is if no other replica of the partition is held
+         * by the member's group.
+         */
+        boolean isAllowed(int partitionId, int member, int replicaIndex) {
+            return getGroupReplicaIndex(partitionId, member, replicaIndex) < 0;
+        }
+
+        /**
+         * Returns the index of the other replica of the partition which is held by the member's group, or -1.
+         */
+        int getGroupReplicaIndex(int partitionId, int member, int replicaIndex) {
+            int group = memberGroupIndexes.get(member);
+            int[] partitionReplicas = replicas[partitionId];
+            for (int i = 0; i < replicaCount; i++) {
+                if (i != replicaIndex && partitionReplicas[i] >= 0 && memberGroupIndexes.get(partitionReplicas[i]) == group) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Address[][] toState() {
+            Address[][] state = new Address[replicas.length][MAX_REPLICA_COUNT];
+            for (int partitionId = 0; partitionId < replicas.length; partitionId++) {
+                for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+                    int member = replicas[partitionId][replicaIndex];
+                    state[partitionId][replicaIndex] = member >= 0 ? members.get(member) : null;
+                }
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Assigns and balances the replicas of a single replica index.
+     */
+    private static final class ReplicaBalancer {
+
+        final Arrangement arrangement;
+        final int replicaIndex;
+        final double[] costs;
+        final double skewThreshold;
+        final double[] loads;
+        final List<List<Integer>> memberPartitions;
+
+        ReplicaBalancer(Arrangement arrangement, int replicaIndex, double[] costs, double skewThreshold) {
+            this.arrangement = arrangement;
+            this.replicaIndex = replicaIndex;
+            this.costs = costs;
+            this.skewThreshold = skewThreshold;
+            this.loads = new double[arrangement.memberCount()];
+            this.memberPartitions = new ArrayList<List<Integer>>(arrangement.memberCount());
+            for (int i = 0; i < arrangement.memberCount(); i++) {
+                memberPartitions.add(new ArrayList<Integer>());
+            }
+        }
+
+        void balance() {
+            List<Integer> unassigned = new ArrayList<Integer>();
+            for (int partitionId = 0; partitionId < costs.length; partitionId++) {
+                int member = arrangement.replicas[partitionId][replicaIndex];
+                if (member >= 0) {
+                    assign(partitionId, member);
+                } else {
+                    unassigned.add(partitionId);
+                }
+            }
+            assignMostCostlyFirst(unassigned);
+
+            // every move decreases the sum of the squared loads, the limit is only a safety net
+            int maxMoves = costs.length;
+            for (int moves = 0; moves < maxMoves && isSkewed() && moveOne(); moves++) {
+                // keep moving partitions until the loads are within the skew threshold
+            }
+        }
+
+        private void assignMostCostlyFirst(List<Integer> partitions) {
+            Collections.sort(partitions, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer partition1, Integer partition2) {
+                    return Double.compare(costs[partition2], costs[partition1]);
+                }
+            });
+            for (Integer partitionId : partitions) {
+                int target = -1;
+                for (int member = 0; member < loads.length; member++) {
+                    if ((target < 0 || loads[member] < loads[target])
+                            && arrangement.isAllowed(partitionId, member, replicaIndex)) {
+                        target = member;
+                    }
+                }
+                if (target >= 0) {
+                    arrangement.replicas[partitionId][replicaIndex] = target;
+                    assign(partitionId, target);
+                }
+            }
+        }
+
+        private void assign(int partitionId, int member) {
+            loads[member] += costs[partitionId];
+            memberPartitions.get(member).add(partitionId);
+        }
+
+        private double averageLoad() {
+            double sum = 0;
+            for (double load : loads) {
+                sum += load;
+            }
+            return sum / loads.length;
+        }
+
+        private boolean isSkewed() {
+            double average = averageLoad();
+            for (double load : loads) {
+                if (Math.abs(load - average) > average * skewThreshold) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves a partition from the most loaded member to a member below the average load, or from a member
+         * above the average load to the least loaded member.
+         */
+        private boolean moveOne() {
+            Integer[] members = new Integer[loads.length];
+            for (int i = 0; i < members.length; i++) {
+                members[i] = i;
+            }
+            Arrays.sort(members, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer member1, Integer member2) {
+                    return Double.compare(loads[member1], loads[member2]);
+                }
+            });
+            double average = averageLoad();
+            int mostLoaded = members[members.length - 1];
+            for (int i = 0; i < members.length - 1 && loads[members[i]] < average; i++) {
+                if (move(mostLoaded, members[i])) {
+                    return true;
+                }
+            }
+            int leastLoaded = members[0];
+            for (int i = members.length - 1; i > 0 && loads[members[i]] > average; i--) {
+                if (move(members[i], leastLoaded)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the partition whose cost is closest to half of the load difference, so both loads get closer to
+         * each other. If the target holds a backup of the partition, the owner takes over that backup, so the
+         * backup is promoted instead of copying the partition.
+         */
+        private boolean move(int source, int target) {
+            double difference = loads[source] - loads[target];
+            List<Integer> partitions = memberPartitions.get(source);
+            int best = -1;
+            double bestDistance = 0;
+            for (int i = 0; i < partitions.size(); i++) {
+                int partitionId = partitions.get(i);
+                double cost = costs[partitionId];
+                double distance = Math.abs(cost - difference / 2);
+                if (cost < difference && (best < 0 || distance < bestDistance)
+                        && isMovable(partitionId, target)) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            if (best < 0) {
+                return false;
+            }
+            int partitionId = partitions.remove(best);
+            loads[source] -= costs[partitionId];
+            int groupReplicaIndex = arrangement.getGroupReplicaIndex(partitionId, target, replicaIndex);
+            if (groupReplicaIndex >= 0) {
+                arrangement.replicas[partitionId][groupReplicaIndex] = source;
+            }
+            arrangement.replicas[partitionId][replicaIndex] = target;
+            assign(partitionId, target);
+            return true;
+        }
+
+        /**
+         * Returns if the replica can be moved to the target, either because the target's group doesn't hold another
+         * replica of the partition or because the target holds a backup which can be swapped with the owner.
+         * Other swaps are cyclic migrations, which the {@link MigrationPlanner} doesn't perform.
+         */
+        private boolean isMovable(int partitionId, int target) {
+            int groupReplicaIndex = arrangement.getGroupReplicaIndex(partitionId, target, replicaIndex);
+            return groupReplicaIndex < 0
+                    || (replicaIndex == 0 && arrangement.replicas[partitionId][groupReplicaIndex] == target);
+        }
+    }
+}
@@ -42,11 +42,15 @@ import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.util.Clock;
 import com.hazelcast.util.MutableInteger;
 import com.hazelcast.util.Preconditions;
+import com.hazelcast.util.executor.ExecutorType;
 import com.hazelcast.util.scheduler.CoalescingDelayedTrigger;
 import com.hazelcast.version.Version;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -67,6 +71,7 @@ public class MigrationManager {
     private static final int PARTITION_STATE_VERSION_INCREMENT_DELTA_ON_MIGRATION_FAILURE = 2;
     private static final int MIGRATION_PAUSE_DURATION_SECONDS_ON_MIGRATION_FAILURE = 3;
     private static final String INVALID_UUID = "<invalid-uuid>";
+    private static final String MIGRATION_EXECUTOR = "hz:migration";
 
     final long partitionMigrationInterval;
 
@@ -91,8 +96,19 @@ public class MigrationManager {
 
     private final Set<Address> shutdownRequestedAddresses = new HashSet<Address>();
 
-    // updates will be done under lock, but reads will be multithreaded.
-    private volatile MigrationInfo activeMigrationInfo;
+    // shutdown requested members whose owned partitions can be promoted to their backups, guarded by the partition service lock
+    private final Set<Address> promotableShutdownRequestedAddresses = new HashSet<Address>();
+
+    private final boolean gracefulShutdownPromotionEnabled;
+
+    @Probe
+    private final AtomicLong gracefulShutdownPromotionCounter = new AtomicLong();
+
+    @Probe
+    private final AtomicLong lastGracefulShutdownPromotionMillis = new AtomicLong();
+
+    // active migrations of this member by partition id, updates will be done under lock, but reads will be multithreaded.
+    private final ConcurrentMap<Integer, MigrationInfo> activeMigrations = new ConcurrentHashMap<Integer, MigrationInfo>();
 
     // both reads and updates will be done under lock!
     private final LinkedHashSet<MigrationInfo> completedMigrations = new LinkedHashSet<MigrationInfo>();
@@ -109,6 +125,15 @@ public class MigrationManager {
 
     private final boolean fragmentedMigrationEnabled;
 
+    @Probe(name = "maxParallelMigrations")
+    private final int maxParallelMigrations;
+
+    /**
+     * Serializes the commit and rollback of concurrently running migrations on the master node, so the partition state
+     * of each commit is created from the latest partition table and the partition state versions are strictly increasing.
+     */
+    private final Object migrationCommitMutex = new Object();
+
     MigrationManager(Node node, InternalPartitionServiceImpl service, Lock partitionServiceLock) {
         this.node = node;
         this.nodeEngine = node.nodeEngine;
@@ -123,15 +148,23 @@ public class MigrationManager {
         partitionMigrationInterval = (intervalMillis > 0 ? intervalMillis : 0);
         partitionMigrationTimeout = properties.getMillis(GroupProperty.PARTITION_MIGRATION_TIMEOUT);
         fragmentedMigrationEnabled = properties.getBoolean(GroupProperty.PARTITION_FRAGMENTED_MIGRATION_ENABLED);
+        maxParallelMigrations = Math.max(properties.getInteger(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS), 1);
+        gracefulShutdownPromotionEnabled = properties.getBoolean(GroupProperty.GRACEFUL_SHUTDOWN_PROMOTION_ENABLED);
 
         partitionStateManager = partitionService.getPartitionStateManager();
 
+        ExecutionService executionService = nodeEngine.getExecutionService();
+        Executor migrationExecutor = null;
+        if (maxParallelMigrations > 1) {
+            migrationExecutor = executionService.register(MIGRATION_EXECUTOR, maxParallelMigrations, maxParallelMigrations,
+                    ExecutorType.CACHED);
+        }
+
         ILogger migrationThreadLogger = node.getLogger(MigrationThread.class);
         String hzName = nodeEngine.getHazelcastInstance().getName();
-        migrationThread = new MigrationThread(this, hzName, migrationThreadLogger, migrationQueue);
+        migrationThread = new MigrationThread(this, hzName, migrationThreadLogger, migrationQueue, migrationExecutor);
 
         long migrationPauseDelayMs = TimeUnit.SECONDS.toMillis(MIGRATION_PAUSE_DURATION_SECONDS_ON_MIGRATION_FAILURE);
-        ExecutionService executionService = nodeEngine.getExecutionService();
         delayedResumeMigrationTrigger = new CoalescingDelayedTrigger(
                 executionService, migrationPauseDelayMs, 2 * migrationPauseDelayMs, new Runnable() {
             @Override
@@ -146,6 +179,11 @@ public class MigrationManager {
         return migrationAllowed.get() ? 1 : 0;
     }
 
+    @Probe(name = "runningMigrationCount")
+    private int runningMigrationCountProbe() {
+        return migrationThread.getRunningMigrateTasks().size();
+    }
+
     void pauseMigration() {
         migrationAllowed.set(false);
     }
@@ -228,15 +266,22 @@ public class MigrationManager {
     }
 
     /**
-     * Sets the active migration if none is set and returns {@code null}, otherwise returns the currently set active migration.
+     * Sets the active migration if there is no active migration of the same partition and returns {@code null},
+     * otherwise returns the currently set active migration of the partition. Unless parallel migrations are enabled
+     * (see {@link GroupProperty#PARTITION_MAX_PARALLEL_MIGRATIONS}), only a single migration can be active and the
+     * active migration of any partition is returned.
      * Acquires the partition service lock.
      */
     public MigrationInfo setActiveMigration(MigrationInfo migrationInfo) {
         partitionServiceLock.lock();
         try {
+            MigrationInfo activeMigrationInfo = activeMigrations.get(migrationInfo.getPartitionId());
             if (activeMigrationInfo == null) {
-                activeMigrationInfo = migrationInfo;
-                return null;
+                if (activeMigrations.isEmpty() || isParallelMigrationEnabled()) {
+                    activeMigrations.put(migrationInfo.getPartitionId(), migrationInfo);
+                    return null;
+                }
+                activeMigrationInfo = activeMigrations.values().iterator().next();
             }
 
             if (!activeMigrationInfo.equals(migrationInfo)) {
@@ -252,28 +297,25 @@ public class MigrationManager {
         }
     }
 
-    MigrationInfo getActiveMigration() {
-        return activeMigrationInfo;
+    /** Returns a copy of the active migrations of this member. */
+    Collection<MigrationInfo> getActiveMigrations() {
+        return new ArrayList<MigrationInfo>(activeMigrations.values());
     }
 
     /**
-     * Removes the current {@link #activeMigrationInfo} if the {@code partitionId} is the same and returns {@code true} if
-     * removed.
+     * Removes the active migration of the {@code partitionId} and returns {@code true} if removed.
      * Acquires the partition service lock.
      */
     private boolean removeActiveMigration(int partitionId) {
         partitionServiceLock.lock();
         try {
-            if (activeMigrationInfo != null) {
-                if (activeMigrationInfo.getPartitionId() == partitionId) {
-                    activeMigrationInfo = null;
-                    return true;
-                }
+            if (activeMigrations.remove(partitionId) != null) {
+                return true;
+            }
 
-                if (logger.isFineEnabled()) {
-                    logger.fine("Active migration is not removed, because it has different partitionId! "
-                            + "partitionId=" + partitionId + ", active migration=" + activeMigrationInfo);
-                }
+            if (logger.isFineEnabled() && !activeMigrations.isEmpty()) {
+                logger.fine("Active migration is not removed, because there is no active migration of partitionId="
+                        + partitionId + ", active migrations=" + activeMigrations.values());
             }
         } finally {
             partitionServiceLock.unlock();
@@ -281,6 +323,28 @@ public class MigrationManager {
         return false;
     }
 
+    /**
+     * Returns {@code true} if more than a single migration can run at the same time.
+     *
+     * @see GroupProperty#PARTITION_MAX_PARALLEL_MIGRATIONS
+     */
+    public boolean isParallelMigrationEnabled() {
+        return maxParallelMigrations > 1;
+    }
+
+    int getMaxParallelMigrations() {
+        return maxParallelMigrations;
+    }
+
+    /**
+     * Returns {@code true} if {@link MigrateTask}s are executed in parallel by the master. This requires a cluster
+     * version of at least 3.9, since older members accept only a single active migration.
+     */
+    boolean isParallelMigrationAllowed() {
+        return isParallelMigrationEnabled()
+                && node.getClusterService().getClusterVersion().isGreaterOrEqual(Versions.V3_9);
+    }
+
     /**
      * Finalizes the active migration if it is equal to the {@code migrationInfo} or if this node was a backup replica before
      * the migration (see {@link FinalizeMigrationOperation}).
@@ -290,7 +354,7 @@ public class MigrationManager {
         partitionServiceLock.lock();
         try {
             // we use activeMigrationInfo because it contains migrated replica fragment namespaces
-            final MigrationInfo activeMigrationInfo = this.activeMigrationInfo;
+            final MigrationInfo activeMigrationInfo = activeMigrations.get(migrationInfo.getPartitionId());
             if (activeMigrationInfo != null && migrationInfo.equals(activeMigrationInfo)) {
                 if (activeMigrationInfo.startProcessing()) {
                     activeMigrationInfo.setStatus(migrationInfo.getStatus());
@@ -473,6 +537,15 @@ public class MigrationManager {
     }
 
     void onShutdownRequest(Address address) {
+        onShutdownRequest(address, false);
+    }
+
+    /**
+     * Registers the shutdown request of the member. If {@code backupsSynced} is {@code true} and graceful shutdown promotion
+     * is enabled, partitions owned by the member are promoted to their backups by the next {@link RepairPartitionTableTask}
+     * instead of being migrated. Invoked on the master node under the partition service lock.
+     */
+    void onShutdownRequest(Address address, boolean backupsSynced) {
         if (!partitionStateManager.isInitialized()) {
             sendShutdownOperation(address);
             return;
@@ -484,8 +557,10 @@ public class MigrationManager {
             return;
         }
 
-        if (shutdownRequestedAddresses.add(address)) {
-            logger.info("Shutdown request of " + address + " is handled");
+        boolean promotable = backupsSynced && gracefulShutdownPromotionEnabled
+                && promotableShutdownRequestedAddresses.add(address);
+        if (shutdownRequestedAddresses.add(address) || promotable) {
+            logger.info("Shutdown request of " + address + " is handled" + (promotable ? ", backups will be promoted" : ""));
             triggerControlTask();
         }
     }
@@ -493,9 +568,9 @@ public class MigrationManager {
     void onMemberRemove(MemberImpl member) {
         Address deadAddress = member.getAddress();
         shutdownRequestedAddresses.remove(deadAddress);
+        promotableShutdownRequestedAddresses.remove(deadAddress);
 
-        final MigrationInfo activeMigration = activeMigrationInfo;
-        if (activeMigration != null) {
+        for (MigrationInfo activeMigration : activeMigrations.values()) {
             if (deadAddress.equals(activeMigration.getSource())
                     || deadAddress.equals(activeMigration.getDestination())) {
                 activeMigration.setStatus(MigrationStatus.INVALID);
@@ -518,7 +593,7 @@ public class MigrationManager {
     }
 
     boolean hasOnGoingMigration() {
-        return activeMigrationInfo != null || migrationQueue.hasMigrationTasks();
+        return !activeMigrations.isEmpty() || migrationQueue.hasMigrationTasks();
     }
 
     int getMigrationQueueSize() {
@@ -527,7 +602,7 @@ public class MigrationManager {
 
     void reset() {
         migrationQueue.clear();
-        activeMigrationInfo = null;
+        activeMigrations.clear();
         completedMigrations.clear();
     }
 
@@ -537,6 +612,9 @@ public class MigrationManager {
 
     void stop() {
         migrationThread.stopNow();
+        if (maxParallelMigrations > 1) {
+            nodeEngine.getExecutionService().shutdownExecutor(MIGRATION_EXECUTOR);
+        }
     }
 
     /** Schedules a migration by adding it to the migration queue. */
@@ -583,6 +661,11 @@ public class MigrationManager {
         return migrationThread.getActiveTask();
     }
 
+    /** Returns the {@link MigrateTask}s which are currently running on the master node. */
+    Collection<MigrateTask> getRunningMigrateTasks() {
+        return migrationThread.getRunningMigrateTasks();
+    }
+
     private String getMemberUuid(Address address) {
         MemberImpl member = node.getClusterService().getMember(address);
         return member != null ? member.getUuid() : INVALID_UUID;
@@ -1028,20 +1111,22 @@ public class MigrationManager {
         private void migrationOperationFailed() {
             migrationInfo.setStatus(MigrationStatus.FAILED);
             internalMigrationListener.onMigrationComplete(MigrationParticipant.MASTER, migrationInfo, false);
-            partitionServiceLock.lock();
-            try {
-                addCompletedMigration(migrationInfo);
-                internalMigrationListener.onMigrationRollback(MigrationParticipant.MASTER, migrationInfo);
-                scheduleActiveMigrationFinalization(migrationInfo);
-                int delta = PARTITION_STATE_VERSION_INCREMENT_DELTA_ON_MIGRATION_FAILURE;
-                partitionService.getPartitionStateManager().incrementVersion(delta);
-                node.getNodeExtension().onPartitionStateChange();
-                if (partitionService.syncPartitionRuntimeState()) {
-                    evictCompletedMigrations(migrationInfo);
+            synchronized (migrationCommitMutex) {
+                partitionServiceLock.lock();
+                try {
+                    addCompletedMigration(migrationInfo);
+                    internalMigrationListener.onMigrationRollback(MigrationParticipant.MASTER, migrationInfo);
+                    scheduleActiveMigrationFinalization(migrationInfo);
+                    int delta = PARTITION_STATE_VERSION_INCREMENT_DELTA_ON_MIGRATION_FAILURE;
+                    partitionService.getPartitionStateManager().incrementVersion(delta);
+                    node.getNodeExtension().onPartitionStateChange();
+                    if (partitionService.syncPartitionRuntimeState()) {
+                        evictCompletedMigrations(migrationInfo);
+                    }
+                    triggerRepartitioningAfterMigrationFailure();
+                } finally {
+                    partitionServiceLock.unlock();
                 }
-                triggerRepartitioningAfterMigrationFailure();
-            } finally {
-                partitionServiceLock.unlock();
             }
 
             partitionService.getPartitionEventManager().sendMigrationEvent(migrationInfo, MigrationEvent.MigrationStatus.FAILED);
@@ -1087,6 +1172,18 @@ public class MigrationManager {
         private void migrationOperationSucceeded() {
             internalMigrationListener.onMigrationComplete(MigrationParticipant.MASTER, migrationInfo, true);
 
+            synchronized (migrationCommitMutex) {
+                commitMigration();
+            }
+            PartitionEventManager partitionEventManager = partitionService.getPartitionEventManager();
+            partitionEventManager.sendMigrationEvent(migrationInfo,  MigrationEvent.MigrationStatus.COMPLETED);
+        }
+
+        /**
+         * Commits the migration on the destination and applies it to the local partition table if the commit succeeded.
+         * Must be called while holding the {@link #migrationCommitMutex}.
+         */
+        private void commitMigration() {
             boolean commitSuccessful = commitMigrationToDestination(migrationInfo.getDestination(), migrationInfo);
 
             partitionServiceLock.lock();
@@ -1116,8 +1213,6 @@ public class MigrationManager {
             } finally {
                 partitionServiceLock.unlock();
             }
-            PartitionEventManager partitionEventManager = partitionService.getPartitionEventManager();
-            partitionEventManager.sendMigrationEvent(migrationInfo,  MigrationEvent.MigrationStatus.COMPLETED);
         }
 
         @Override
@@ -1148,6 +1243,10 @@ public class MigrationManager {
             Map<Address, Collection<MigrationInfo>> promotions = removeUnknownAddressesAndCollectPromotions();
             boolean success = promoteBackupsForMissingOwners(promotions);
 
+            if (success) {
+                promoteShutdownRequestedMembers();
+            }
+
             partitionServiceLock.lock();
             try {
                 if (success) {
@@ -1360,6 +1459,183 @@ public class MigrationManager {
             return false;
         }
 
+        /**
+         * Hands off the partitions owned by the gracefully shutting down members to their first available backups.
+         * Promotions of all destinations are sent in parallel with a single partition table and the shutting down members
+         * are removed from the backup replicas, so they can leave without waiting for the migrations. The missing backups
+         * are created by the following {@link RepartitioningTask}.
+         * Invoked on the master node. Acquires partition service lock.
+         */
+        private void promoteShutdownRequestedMembers() {
+            Map<Address, Collection<MigrationInfo>> promotions = collectShutdownPromotions();
+            if (promotions.isEmpty()) {
+                return;
+            }
+
+            long start = Clock.currentTimeMillis();
+            List<MigrationInfo> allPromotions = new ArrayList<MigrationInfo>();
+            for (Collection<MigrationInfo> migrations : promotions.values()) {
+                allPromotions.addAll(migrations);
+            }
+            PartitionRuntimeState partitionState = partitionService.createPromotionCommitPartitionState(allPromotions);
+            if (partitionState == null) {
+                return;
+            }
+
+            Map<Address, Future<Boolean>> futures = new HashMap<Address, Future<Boolean>>();
+            for (Map.Entry<Address, Collection<MigrationInfo>> entry : promotions.entrySet()) {
+                Address destination = entry.getKey();
+                MemberImpl member = node.getClusterService().getMember(destination);
+                if (member == null) {
+                    logger.warning("Destination " + destination + " is not member anymore");
+                    continue;
+                }
+                PromotionCommitOperation op = new PromotionCommitOperation(partitionState, entry.getValue(), member.getUuid());
+                Future<Boolean> future = nodeEngine.getOperationService()
+                        .createInvocationBuilder(SERVICE_NAME, op, destination)
+                        .setTryCount(Integer.MAX_VALUE)
+                        .setCallTimeout(Long.MAX_VALUE).invoke();
+                futures.put(destination, future);
+            }
+
+            List<MigrationInfo> committed = new ArrayList<MigrationInfo>();
+            for (Map.Entry<Address, Collection<MigrationInfo>> entry : promotions.entrySet()) {
+                Address destination = entry.getKey();
+                Future<Boolean> future = futures.get(destination);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    if (future.get()) {
+                        committed.addAll(entry.getValue());
+                    }
+                } catch (Throwable t) {
+                    logPromotionCommitFailure(destination, entry.getValue(), t);
+                }
+            }
+
+            commitShutdownPromotions(committed, allPromotions.size());
+            partitionService.syncPartitionRuntimeState();
+
+            long elapsed = Clock.currentTimeMillis() - start;
+            lastGracefulShutdownPromotionMillis.set(elapsed);
+            gracefulShutdownPromotionCounter.addAndGet(committed.size());
+            logger.info("Promoted " + committed.size() + " of " + allPromotions.size() + " partitions of shutting down members "
+                    + "to their backups in " + elapsed + " ms");
+
+            sendShutdownResponsesToAbsentMembers();
+        }
+
+        /**
+         * Creates promotions for the partitions owned by the shutdown requested members whose backups are synced.
+         * The first backup which is not shutting down becomes the destination.
+         * Invoked on the master node. Acquires partition service lock.
+         *
+         * @return promotions that need to be sent, grouped by target address
+         */
+        private Map<Address, Collection<MigrationInfo>> collectShutdownPromotions() {
+            Map<Address, Collection<MigrationInfo>> promotions = new HashMap<Address, Collection<MigrationInfo>>();
+            partitionServiceLock.lock();
+            try {
+                if (promotableShutdownRequestedAddresses.isEmpty() || !partitionStateManager.isInitialized()
+                        || !node.getClusterService().getClusterVersion().isGreaterOrEqual(Versions.V3_9)) {
+                    return promotions;
+                }
+
+                for (int partitionId = 0; partitionId < partitionService.getPartitionCount(); partitionId++) {
+                    InternalPartitionImpl partition = partitionStateManager.getPartitionImpl(partitionId);
+                    Address owner = partition.getOwnerOrNull();
+                    if (!promotableShutdownRequestedAddresses.contains(owner) || activeMigrations.containsKey(partitionId)) {
+                        continue;
+                    }
+
+                    for (int i = 1; i < InternalPartition.MAX_REPLICA_COUNT; i++) {
+                        Address destination = partition.getReplicaAddress(i);
+                        if (destination == null || shutdownRequestedAddresses.contains(destination)) {
+                            continue;
+                        }
+                        String destinationUuid = getMemberUuid(destination);
+                        if (INVALID_UUID.equals(destinationUuid)) {
+                            continue;
+                        }
+
+                        MigrationInfo migration = new MigrationInfo(partitionId, owner, getMemberUuid(owner),
+                                destination, destinationUuid, 0, -1, i, 0);
+                        migration.setMaster(node.getThisAddress());
+                        migration.setStatus(MigrationInfo.MigrationStatus.SUCCESS);
+
+                        Collection<MigrationInfo> migrations = promotions.get(destination);
+                        if (migrations == null) {
+                            migrations = new ArrayList<MigrationInfo>();
+                            promotions.put(destination, migrations);
+                        }
+                        migrations.add(migration);
+                        break;
+                    }
+                }
+                return promotions;
+            } finally {
+                partitionServiceLock.unlock();
+            }
+        }
+
+        /**
+         * Applies the {@code committed} promotions to the partition table and removes the promotable shutting down members
+         * from the backup replicas of the partitions which are not migrating.
+         * If some promotions failed, increments the partition state version beyond the version sent to the destinations.
+         * Invoked on the master node. Acquires partition service lock.
+         */
+        private void commitShutdownPromotions(List<MigrationInfo> committed, int promotionCount) {
+            partitionServiceLock.lock();
+            try {
+                if (!partitionStateManager.isInitialized()) {
+                    // node reset/terminated while running task
+                    return;
+                }
+
+                for (MigrationInfo migration : committed) {
+                    InternalPartitionImpl partition = partitionStateManager.getPartitionImpl(migration.getPartitionId());
+                    applyMigration(partition, migration);
+                }
+                if (committed.size() < promotionCount) {
+                    partitionStateManager.incrementVersion(promotionCount + 1);
+                }
+
+                for (int partitionId = 0; partitionId < partitionService.getPartitionCount(); partitionId++) {
+                    if (activeMigrations.containsKey(partitionId)) {
+                        continue;
+                    }
+                    InternalPartitionImpl partition = partitionStateManager.getPartitionImpl(partitionId);
+                    for (int i = 1; i < InternalPartition.MAX_REPLICA_COUNT; i++) {
+                        if (promotableShutdownRequestedAddresses.contains(partition.getReplicaAddress(i))) {
+                            partition.setReplicaAddress(i, null);
+                        }
+                    }
+                }
+                // the master does not apply its own partition table updates
+                partitionService.unblockPartitionsNotPromoted();
+            } finally {
+                partitionServiceLock.unlock();
+            }
+        }
+
+        /**
+         * Releases the shutting down members which are not in the partition table anymore, without waiting for
+         * the repartitioning. Invoked on the master node. Acquires partition service lock.
+         */
+        private void sendShutdownResponsesToAbsentMembers() {
+            partitionServiceLock.lock();
+            try {
+                for (Address address : promotableShutdownRequestedAddresses) {
+                    if (partitionStateManager.isAbsentInPartitionTable(address)) {
+                        sendShutdownOperation(address);
+                    }
+                }
+            } finally {
+                partitionServiceLock.unlock();
+            }
+        }
+
         private void logPromotionCommitFailure(Address destination, Collection<MigrationInfo> migrations, Throwable t) {
             boolean memberLeft = t instanceof MemberLeftException
                     || t.getCause() instanceof TargetNotMemberException
@@ -69,8 +69,17 @@ class MigrationPlanner {
         initState(oldAddresses);
         assertNoDuplicate(oldAddresses, newAddresses);
 
+        // SWAP the owner with a backup, which is a single shift up + shift down migration
+        int swapIndex = getOwnerSwapIndex(newAddresses);
+        if (swapIndex > 0) {
+            log("SWAP %s with %s at index: %d", state[0], state[swapIndex], swapIndex);
+            callback.migrate(state[0], 0, swapIndex, state[swapIndex], swapIndex, 0);
+            state[swapIndex] = state[0];
+            state[0] = newAddresses[0];
+        }
+
         // Fix cyclic partition replica movements.
-        if (fixCycle(oldAddresses, newAddresses)) {
+        if (fixCycle(state, newAddresses)) {
             log("Final state (after cycle fix): %s", Arrays.toString(newAddresses));
         }
 
@@ -299,6 +308,18 @@ class MigrationPlanner {
         }
     }
 
+    /**
+     * Returns the index of the backup which swaps its replica with the owner, or -1 if the owner doesn't swap.
+     */
+    private int getOwnerSwapIndex(Address[] newAddresses) {
+        Address owner = state[0];
+        if (owner == null || newAddresses[0] == null || owner.equals(newAddresses[0])) {
+            return -1;
+        }
+        int index = getReplicaIndex(state, newAddresses[0]);
+        return index > 0 && owner.equals(newAddresses[index]) ? index : -1;
+    }
+
     // Finds whether there's a migration cycle.
     // For example followings are cycles:
     // - [A,B] -> [B,A]
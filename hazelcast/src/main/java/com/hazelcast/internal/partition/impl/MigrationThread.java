@@ -17,10 +17,18 @@
 package com.hazelcast.internal.partition.impl;
 
 import com.hazelcast.instance.OutOfMemoryErrorDispatcher;
+import com.hazelcast.internal.partition.MigrationInfo;
 import com.hazelcast.internal.partition.impl.MigrationManager.MigrateTask;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.properties.GroupProperty;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static com.hazelcast.util.ThreadUtil.createThreadName;
@@ -29,10 +37,17 @@ import static java.lang.Math.max;
 /**
  * MigrationThread is responsible to execute migration related tasks submitted to its
  * migration-queue.
+ * <p>
+ * If parallel migrations are enabled (see {@link GroupProperty#PARTITION_MAX_PARALLEL_MIGRATIONS}), {@link MigrateTask}s
+ * are handed over to the migration executor. A migration is started only if there is a free slot and no running
+ * migration moves the same partition or between the same source and destination, so the migrations planned for a
+ * partition are still executed in order. All other tasks wait until the running migrations are completed and are
+ * executed on the migration thread itself.
  */
 class MigrationThread extends Thread implements Runnable {
 
     private static final long DEFAULT_MIGRATION_SLEEP_INTERVAL = 250L;
+    private static final long RUNNING_MIGRATIONS_WAIT_MILLIS = 100L;
 
     private final MigrationManager migrationManager;
     private final MigrationQueue queue;
@@ -45,16 +60,27 @@ class MigrationThread extends Thread implements Runnable {
      * Time in milliseconds to sleep when the migration queue is empty or migrations are not allowed
      */
     private final long sleepTime;
+    /**
+     * Executes the {@link MigrateTask}s if parallel migrations are enabled, {@code null} otherwise
+     */
+    private final Executor migrationExecutor;
+    private final int maxParallelMigrations;
+    /**
+     * {@link MigrateTask}s which are currently executed by the {@link #migrationExecutor}, guarded by itself
+     */
+    private final Set<MigrateTask> runningMigrations = new HashSet<MigrateTask>();
 
     private volatile MigrationRunnable activeTask;
     private volatile boolean running = true;
 
     MigrationThread(MigrationManager migrationManager, String hzName, ILogger logger,
-                    MigrationQueue queue) {
+                    MigrationQueue queue, Executor migrationExecutor) {
         super(createThreadName(hzName, "migration"));
 
         this.migrationManager = migrationManager;
         this.queue = queue;
+        this.migrationExecutor = migrationExecutor;
+        maxParallelMigrations = migrationManager.getMaxParallelMigrations();
         partitionMigrationInterval = migrationManager.partitionMigrationInterval;
         sleepTime = max(DEFAULT_MIGRATION_SLEEP_INTERVAL, partitionMigrationInterval);
         this.logger = logger;
@@ -95,11 +121,19 @@ class MigrationThread extends Thread implements Runnable {
             }
 
             migrating |= runnable instanceof MigrationManager.MigrateTask;
-            processTask(runnable);
+            if (runnable instanceof MigrateTask && migrationExecutor != null && migrationManager.isParallelMigrationAllowed()) {
+                startMigration((MigrateTask) runnable);
+            } else {
+                awaitRunningMigrations();
+                processTask(runnable);
+            }
             if (migrating && partitionMigrationInterval > 0) {
                 Thread.sleep(partitionMigrationInterval);
             }
         }
+        if (migrating) {
+            awaitRunningMigrations();
+        }
         boolean hasNoTasks = !queue.hasMigrationTasks();
         if (hasNoTasks) {
             if (migrating) {
@@ -129,10 +163,116 @@ class MigrationThread extends Thread implements Runnable {
         return true;
     }
 
+    /**
+     * Waits until the migration can be started without conflicting with a running migration and hands it over to the
+     * migration executor.
+     *
+     * @throws InterruptedException if the wait was interrupted
+     */
+    private void startMigration(final MigrateTask task) throws InterruptedException {
+        synchronized (runningMigrations) {
+            try {
+                while (!canStartMigration(task)) {
+                    runningMigrations.wait(RUNNING_MIGRATIONS_WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                queue.afterTaskCompletion(task);
+                throw e;
+            }
+            runningMigrations.add(task);
+        }
+
+        try {
+            migrationExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.warning(t);
+                    } finally {
+                        queue.afterTaskCompletion(task);
+                        onMigrationCompleted(task);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.finest("Migration is rejected by the migration executor: " + task, e);
+            queue.afterTaskCompletion(task);
+            onMigrationCompleted(task);
+        }
+    }
+
+    private boolean canStartMigration(MigrateTask task) {
+        if (!running) {
+            return true;
+        }
+        if (runningMigrations.size() >= maxParallelMigrations) {
+            return false;
+        }
+
+        MigrationInfo migrationInfo = task.migrationInfo;
+        for (MigrateTask runningTask : runningMigrations) {
+            MigrationInfo runningMigrationInfo = runningTask.migrationInfo;
+            if (runningMigrationInfo.getPartitionId() == migrationInfo.getPartitionId()) {
+                return false;
+            }
+            if (equal(runningMigrationInfo.getSource(), migrationInfo.getSource())
+                    && equal(runningMigrationInfo.getDestination(), migrationInfo.getDestination())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(Object o1, Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    private void onMigrationCompleted(MigrateTask task) {
+        synchronized (runningMigrations) {
+            runningMigrations.remove(task);
+            runningMigrations.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all migrations handed over to the migration executor are completed.
+     *
+     * @throws InterruptedException if the wait was interrupted
+     */
+    private void awaitRunningMigrations() throws InterruptedException {
+        synchronized (runningMigrations) {
+            while (running && !runningMigrations.isEmpty()) {
+                runningMigrations.wait(RUNNING_MIGRATIONS_WAIT_MILLIS);
+            }
+        }
+    }
+
     MigrationRunnable getActiveTask() {
         return activeTask;
     }
 
+    /**
+     * Returns the {@link MigrateTask}s which are currently running, either on the migration executor or on this thread.
+     */
+    Collection<MigrateTask> getRunningMigrateTasks() {
+        MigrationRunnable activeTask = this.activeTask;
+        if (migrationExecutor == null) {
+            return activeTask instanceof MigrateTask
+                    ? Collections.singletonList((MigrateTask) activeTask)
+                    : Collections.<MigrateTask>emptyList();
+        }
+
+        synchronized (runningMigrations) {
+            Collection<MigrateTask> tasks = new ArrayList<MigrateTask>(runningMigrations);
+            if (activeTask instanceof MigrateTask) {
+                tasks.add((MigrateTask) activeTask);
+            }
+            return tasks;
+        }
+    }
+
     /**
      * Interrupts the migration thread and joins on it.
      * <strong>Must not be called on the migration thread itself</strong> because it will result in infinite blocking.
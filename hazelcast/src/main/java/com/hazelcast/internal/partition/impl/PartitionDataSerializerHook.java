@@ -17,7 +17,9 @@
 package com.hazelcast.internal.partition.impl;
 
 import com.hazelcast.internal.partition.NonFragmentedServiceNamespace;
+import com.hazelcast.internal.partition.PartitionLoads;
 import com.hazelcast.internal.partition.PartitionRuntimeState;
+import com.hazelcast.internal.partition.PartitionRuntimeStateDelta;
 import com.hazelcast.internal.partition.ReplicaFragmentMigrationState;
 import com.hazelcast.internal.partition.operation.*;
 import com.hazelcast.internal.serialization.DataSerializerHook;
@@ -54,8 +56,12 @@ public final class PartitionDataSerializerHook implements DataSerializerHook {
     public static final int MIGRATION = 18;
     public static final int MIGRATION_REQUEST = 19;
     public static final int NONFRAGMENTED_SERVICE_NAMESPACE = 20;
+    public static final int PARTITION_LOADS = 21;
+    public static final int FETCH_PARTITION_LOADS = 22;
+    public static final int PARTITION_RUNTIME_STATE_DELTA = 23;
+    public static final int PARTITION_STATE_DELTA_OP = 24;
 
-    private static final int LEN = NONFRAGMENTED_SERVICE_NAMESPACE + 1;
+    private static final int LEN = PARTITION_STATE_DELTA_OP + 1;
 
     @Override
     public int getFactoryId() {
@@ -169,6 +175,26 @@ public final class PartitionDataSerializerHook implements DataSerializerHook {
                 return NonFragmentedServiceNamespace.INSTANCE;
             }
         };
+        constructors[PARTITION_LOADS] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new PartitionLoads();
+            }
+        };
+        constructors[FETCH_PARTITION_LOADS] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new FetchPartitionLoadsOperation();
+            }
+        };
+        constructors[PARTITION_RUNTIME_STATE_DELTA] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new PartitionRuntimeStateDelta();
+            }
+        };
+        constructors[PARTITION_STATE_DELTA_OP] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new PartitionStateDeltaOperation();
+            }
+        };
         return new ArrayDataSerializableFactory(constructors);
     }
 }
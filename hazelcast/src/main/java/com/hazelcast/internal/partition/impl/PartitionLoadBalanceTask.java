@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.core.MemberLeftException;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.instance.Node;
+import com.hazelcast.instance.NodeState;
+import com.hazelcast.internal.partition.InternalPartitionService;
+import com.hazelcast.internal.partition.PartitionLoads;
+import com.hazelcast.internal.partition.operation.FetchPartitionLoadsOperation;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.InternalCompletableFuture;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A periodic task on the master which collects the partition loads from the cluster members and triggers
+ * repartitioning when the load-aware partition state generator would move partitions.
+ */
+class PartitionLoadBalanceTask implements Runnable {
+
+    private final Node node;
+    private final InternalPartitionServiceImpl partitionService;
+    private final ILogger logger;
+
+    PartitionLoadBalanceTask(Node node, InternalPartitionServiceImpl partitionService) {
+        this.node = node;
+        this.partitionService = partitionService;
+        this.logger = node.getLogger(InternalPartitionService.class);
+    }
+
+    @Override
+    public void run() {
+        if (!node.isMaster() || node.getState() != NodeState.ACTIVE) {
+            return;
+        }
+        MigrationManager migrationManager = partitionService.getMigrationManager();
+        if (!migrationManager.isMigrationAllowed() || migrationManager.hasOnGoingMigration()
+                || partitionService.isFetchMostRecentPartitionTableTaskRequired()) {
+            return;
+        }
+
+        PartitionLoads loads = fetchPartitionLoads();
+        if (loads == null) {
+            return;
+        }
+        if (partitionService.updatePartitionLoads(loads)) {
+            logger.info("Partition load skew exceeds the threshold, rebalancing partitions...");
+            migrationManager.triggerControlTask();
+        }
+    }
+
+    /**
+     * Returns the loads of all partitions or {@code null} if the loads of a member couldn't be fetched.
+     */
+    private PartitionLoads fetchPartitionLoads() {
+        Collection<MemberImpl> members = node.getClusterService().getMemberImpls();
+        Collection<InternalCompletableFuture<PartitionLoads>> futures
+                = new ArrayList<InternalCompletableFuture<PartitionLoads>>(members.size());
+        for (MemberImpl member : members) {
+            if (member.localMember() || member.isLiteMember()) {
+                continue;
+            }
+            futures.add(node.getNodeEngine().getOperationService().<PartitionLoads>invokeOnTarget(
+                    InternalPartitionService.SERVICE_NAME, new FetchPartitionLoadsOperation(), member.getAddress()));
+        }
+
+        PartitionLoads loads = partitionService.getPartitionLoadTracker().collectPartitionLoads();
+        for (InternalCompletableFuture<PartitionLoads> future : futures) {
+            try {
+                loads.add(future.join());
+            } catch (Exception e) {
+                if (!(e instanceof MemberLeftException) && !(e instanceof TargetNotMemberException)) {
+                    logger.warning("Failed to fetch partition loads!", e);
+                }
+                return null;
+            }
+        }
+        return loads;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionLoads;
+import com.hazelcast.spi.PartitionCostAwareService;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.impl.operationexecutor.OperationRunner;
+import com.hazelcast.spi.impl.operationservice.impl.OperationServiceImpl;
+
+import java.util.Collection;
+
+/**
+ * Measures the loads of the partitions owned by this member. The memory cost is reported by the
+ * {@link PartitionCostAwareService}s, the operation count is the number of operations executed by the partition
+ * operation runner since the previous measurement.
+ */
+public class PartitionLoadTracker {
+
+    private final NodeEngineImpl nodeEngine;
+    private final InternalPartitionServiceImpl partitionService;
+    private final long[] lastOperationCounts;
+
+    PartitionLoadTracker(NodeEngineImpl nodeEngine, InternalPartitionServiceImpl partitionService) {
+        this.nodeEngine = nodeEngine;
+        this.partitionService = partitionService;
+        this.lastOperationCounts = new long[partitionService.getPartitionCount()];
+    }
+
+    /**
+     * Returns the loads of the locally owned partitions, the loads of the other partitions are zero.
+     */
+    public synchronized PartitionLoads collectPartitionLoads() {
+        int partitionCount = partitionService.getPartitionCount();
+        PartitionLoads loads = new PartitionLoads(partitionCount);
+        long[] memoryCosts = loads.getMemoryCosts();
+        long[] operationCounts = loads.getOperationCounts();
+
+        OperationServiceImpl operationService = (OperationServiceImpl) nodeEngine.getOperationService();
+        OperationRunner[] runners = operationService.getOperationExecutor().getPartitionOperationRunners();
+        Collection<PartitionCostAwareService> services = nodeEngine.getServices(PartitionCostAwareService.class);
+
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            long operationCount = runners[partitionId].executedOperationsCount();
+            long lastOperationCount = lastOperationCounts[partitionId];
+            lastOperationCounts[partitionId] = operationCount;
+
+            InternalPartition partition = partitionService.getPartition(partitionId, false);
+            if (!partition.isLocal()) {
+                continue;
+            }
+            operationCounts[partitionId] = operationCount - lastOperationCount;
+            for (PartitionCostAwareService service : services) {
+                memoryCosts[partitionId] += service.getPartitionMemoryCost(partitionId);
+            }
+        }
+        return loads;
+    }
+}
@@ -28,6 +28,7 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.spi.*;
 import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.impl.servicemanager.ServiceInfo;
 import com.hazelcast.spi.properties.GroupProperty;
 import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.util.scheduler.*;
@@ -35,6 +36,7 @@ import com.hazelcast.version.Version;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -58,6 +60,9 @@ public class PartitionReplicaManager implements PartitionReplicaVersionManager {
     /** Replica sync requests that have been sent to the target and awaiting response */
     private final Set<ReplicaFragmentSyncInfo> replicaSyncRequests;
     private final EntryTaskScheduler<ReplicaFragmentSyncInfo, Void> replicaSyncTimeoutScheduler;
+    /** Chunked replica syncs that this node sends to the replicas as the partition owner */
+    private final ConcurrentMap<ReplicaFragmentSyncInfo, ReplicaSyncChunkSender> replicaSyncChunkSenders
+            = new ConcurrentHashMap<ReplicaFragmentSyncInfo, ReplicaSyncChunkSender>();
     @Probe
     private final Semaphore replicaSyncProcessLock;
     @Probe
@@ -209,10 +214,35 @@ public class PartitionReplicaManager implements PartitionReplicaVersionManager {
         }
         replicaSyncRequestsCounter.inc();
 
-        ReplicaSyncRequest syncRequest = new ReplicaSyncRequest(partitionId, namespaces, replicaIndex);
+        Map<String, Object> replicaDigests = createReplicaDigests(partitionId, namespaces, replicaIndex);
+        ReplicaSyncRequest syncRequest = new ReplicaSyncRequest(partitionId, namespaces, replicaIndex, replicaDigests);
         nodeEngine.getOperationService().send(syncRequest, target);
     }
 
+    /**
+     * Creates the digests of the local replica data of {@link DeltaReplicationAwareService}s, so the partition owner
+     * replicates only the data which differs. Digests are used only for the non-fragmented namespace and require
+     * the cluster version 3.9.
+     */
+    private Map<String, Object> createReplicaDigests(int partitionId, Collection<ServiceNamespace> namespaces,
+            int replicaIndex) {
+        if (!namespaces.contains(NonFragmentedServiceNamespace.INSTANCE)
+                || nodeEngine.getClusterService().getClusterVersion().isLessThan(Versions.V3_9)) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> replicaDigests = new HashMap<String, Object>();
+        PartitionReplicationEvent event = new PartitionReplicationEvent(partitionId, replicaIndex);
+        for (ServiceInfo serviceInfo : nodeEngine.getServiceInfos(DeltaReplicationAwareService.class)) {
+            DeltaReplicationAwareService service = serviceInfo.getService();
+            Object digest = service.prepareReplicaDigest(event);
+            if (digest != null) {
+                replicaDigests.put(serviceInfo.getName(), digest);
+            }
+        }
+        return replicaDigests;
+    }
+
     private Collection<ServiceNamespace> registerSyncInfoFor(int partitionId,
             Collection<ServiceNamespace> requestedNamespaces, int replicaIndex, Address target) {
 
@@ -302,6 +332,36 @@ public class PartitionReplicaManager implements PartitionReplicaVersionManager {
         clearReplicaSyncRequest(partitionId, namespace, replicaIndex);
     }
 
+    /**
+     * Sends the chunks of the non-fragmented replica data to the replica with a bounded window of unacknowledged chunks.
+     * The chunks are created lazily on the partition thread when they are sent. The replica sync permit of the caller
+     * is released after the chunks are sent or sending fails. A chunked replica sync which is still sending to the
+     * same replica is stopped.
+     *
+     * @param partitionId     the partition being synchronized
+     * @param replicaIndex    the index of the replica being synchronized
+     * @param target          the address of the replica
+     * @param firstOperations the operations of the first response
+     * @param chunks          the lazy iterator over the replication chunks sent after the first response
+     */
+    // called in partition threads
+    public void sendReplicaSyncChunks(int partitionId, int replicaIndex, Address target, Collection<Operation> firstOperations,
+                                      Iterator<Operation> chunks) {
+        ReplicaFragmentSyncInfo syncInfo
+                = new ReplicaFragmentSyncInfo(partitionId, NonFragmentedServiceNamespace.INSTANCE, replicaIndex, target);
+        ReplicaSyncChunkSender sender
+                = new ReplicaSyncChunkSender(nodeEngine, this, syncInfo, chunks, partitionMigrationTimeout);
+        ReplicaSyncChunkSender previous = replicaSyncChunkSenders.put(syncInfo, sender);
+        if (previous != null) {
+            previous.stop();
+        }
+        sender.start(firstOperations);
+    }
+
+    void removeReplicaSyncChunkSender(ReplicaSyncChunkSender sender) {
+        replicaSyncChunkSenders.remove(sender.getSyncInfo(), sender);
+    }
+
     /**
      * Resets the state of the replica synchronization request for the given partition and replica. This will cancel the
      * scheduled synchronization, clear the ongoing sync flag and release a synchronization permit.
@@ -381,6 +441,7 @@ public class PartitionReplicaManager implements PartitionReplicaVersionManager {
 
     void reset() {
         replicaSyncRequests.clear();
+        replicaSyncChunkSenders.clear();
         replicaSyncTimeoutScheduler.cancelAll();
         // this is not sync with possibly running sync process
         // permit count can exceed allowed parallelization count.
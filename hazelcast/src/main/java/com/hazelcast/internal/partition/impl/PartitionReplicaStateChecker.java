@@ -81,7 +81,7 @@ public class PartitionReplicaStateChecker {
             return MIGRATION_ON_MASTER;
         }
 
-        if (!checkAndTriggerReplicaSync()) {
+        if (!checkAndTriggerReplicaSync(false)) {
             return REPLICA_NOT_SYNC;
         }
 
@@ -93,6 +93,20 @@ public class PartitionReplicaStateChecker {
     }
 
     boolean triggerAndWaitForReplicaSync(long timeout, TimeUnit unit, long sleepMillis) {
+        return triggerAndWaitForReplicaSync(timeout, unit, sleepMillis, false);
+    }
+
+    /**
+     * Waits until the backups of the owned partitions are in sync. If {@code ownedPartitionsBlocked} is {@code true},
+     * the migrating flags of the owned partitions are set only to block their mutations, so they are not treated as
+     * ongoing migrations.
+     */
+    boolean triggerAndWaitForReplicaSync(long timeout, TimeUnit unit, boolean ownedPartitionsBlocked) {
+        return triggerAndWaitForReplicaSync(timeout, unit, DEFAULT_PAUSE_MILLIS, ownedPartitionsBlocked);
+    }
+
+    private boolean triggerAndWaitForReplicaSync(long timeout, TimeUnit unit, long sleepMillis,
+                                                 boolean ownedPartitionsBlocked) {
         long timeoutInMillis = unit.toMillis(timeout);
         while (timeoutInMillis > 0) {
             timeoutInMillis = waitForMissingReplicaOwners(Level.FINE, timeoutInMillis, sleepMillis);
@@ -106,7 +120,7 @@ public class PartitionReplicaStateChecker {
             }
 
             long start = Clock.currentTimeMillis();
-            boolean syncResult = checkAndTriggerReplicaSync();
+            boolean syncResult = checkAndTriggerReplicaSync(ownedPartitionsBlocked);
             timeoutInMillis -= (Clock.currentTimeMillis() - start);
             if (syncResult) {
                 logger.finest("Replica sync state is OK");
@@ -194,7 +208,7 @@ public class PartitionReplicaStateChecker {
         return timeoutInMillis - sleep;
     }
 
-    private boolean checkAndTriggerReplicaSync() {
+    private boolean checkAndTriggerReplicaSync(boolean ownedPartitionsBlocked) {
         if (!needsReplicaStateCheck()) {
             return true;
         }
@@ -203,7 +217,7 @@ public class PartitionReplicaStateChecker {
         final AtomicBoolean ok = new AtomicBoolean(true);
 
         int maxBackupCount = partitionService.getMaxAllowedBackupCount();
-        int ownedPartitionCount = invokeReplicaSyncOperations(maxBackupCount, semaphore, ok);
+        int ownedPartitionCount = invokeReplicaSyncOperations(maxBackupCount, semaphore, ok, ownedPartitionsBlocked);
 
         try {
             if (!ok.get()) {
@@ -219,7 +233,8 @@ public class PartitionReplicaStateChecker {
     }
 
     @SuppressWarnings("checkstyle:npathcomplexity")
-    private int invokeReplicaSyncOperations(int maxBackupCount, Semaphore semaphore, AtomicBoolean result) {
+    private int invokeReplicaSyncOperations(int maxBackupCount, Semaphore semaphore, AtomicBoolean result,
+                                            boolean ownedPartitionsBlocked) {
         Address thisAddress = node.getThisAddress();
         ExecutionCallback<Object> callback = new ReplicaSyncResponseCallback(result, semaphore);
 
@@ -240,7 +255,7 @@ public class PartitionReplicaStateChecker {
             ownedCount++;
 
             if (maxBackupCount == 0) {
-                if (partition.isMigrating()) {
+                if (partition.isMigrating() && !ownedPartitionsBlocked) {
                     result.set(false);
                 }
                 continue;
@@ -263,7 +278,7 @@ public class PartitionReplicaStateChecker {
                 }
 
                 CheckReplicaVersionTask task = new CheckReplicaVersionTask(nodeEngine, partitionService,
-                        partition.getPartitionId(), index, callback);
+                        partition.getPartitionId(), index, callback, ownedPartitionsBlocked);
                 nodeEngine.getOperationService().execute(task);
             }
         }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.spi.properties.HazelcastProperties;
+
+import java.util.Arrays;
+
+/**
+ * Creates the {@link PartitionStateGenerator} according to {@link HazelcastProperties} configuration.
+ */
+public final class PartitionStateGeneratorFactory {
+
+    /**
+     * Partition assignment strategies.
+     */
+    public enum Type {
+        /**
+         * Balances the current partition table, see {@link PartitionStateGeneratorImpl}.
+         */
+        DEFAULT,
+        /**
+         * Places partitions by consistent hashing, see {@link ConsistentHashPartitionStateGenerator}.
+         */
+        CONSISTENT_HASH,
+        /**
+         * Balances the memory cost and operation rate of the partitions, see {@link LoadAwarePartitionStateGenerator}.
+         */
+        LOAD_AWARE
+    }
+
+    private PartitionStateGeneratorFactory() {
+    }
+
+    /**
+     * Creates a new {@link PartitionStateGenerator}, the exact implementation depends on the
+     * {@link GroupProperty#PARTITION_ASSIGNMENT_STRATEGY} property.
+     */
+    public static PartitionStateGenerator newGenerator(HazelcastProperties properties) {
+        String string = properties.getString(GroupProperty.PARTITION_ASSIGNMENT_STRATEGY);
+        Type type;
+        try {
+            type = Type.valueOf(string);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown partition assignment strategy: " + string + ". Use property '"
+                    + GroupProperty.PARTITION_ASSIGNMENT_STRATEGY.getName() + "' to select the strategy. "
+                    + "Available strategies: " + Arrays.toString(Type.values()));
+        }
+        switch (type) {
+            case CONSISTENT_HASH:
+                return new ConsistentHashPartitionStateGenerator();
+            case LOAD_AWARE:
+                return new LoadAwarePartitionStateGenerator(
+                        properties.getInteger(GroupProperty.PARTITION_LOAD_SKEW_THRESHOLD_PERCENTAGE));
+            default:
+                return new PartitionStateGeneratorImpl();
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.hazelcast.internal.cluster.impl.ClusterServiceImpl;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.internal.partition.InternalPartition;
 import com.hazelcast.internal.partition.PartitionListener;
+import com.hazelcast.internal.partition.PartitionLoads;
 import com.hazelcast.internal.partition.PartitionStateGenerator;
 import com.hazelcast.internal.partition.PartitionTableView;
 import com.hazelcast.logging.ILogger;
@@ -82,7 +83,7 @@ public class PartitionStateManager {
 
         memberGroupFactory = MemberGroupFactoryFactory.newMemberGroupFactory(node.getConfig().getPartitionGroupConfig(),
                 node.getDiscoveryService());
-        partitionStateGenerator = new PartitionStateGeneratorImpl();
+        partitionStateGenerator = PartitionStateGeneratorFactory.newGenerator(node.getProperties());
     }
 
     @Probe
@@ -294,6 +295,36 @@ public class PartitionStateManager {
         return partitions[partitionId];
     }
 
+    boolean isLoadAware() {
+        return partitionStateGenerator instanceof LoadAwarePartitionStateGenerator;
+    }
+
+    /**
+     * Passes the partition loads to the load-aware partition state generator.
+     *
+     * @return {@code true} if the partition table should be rearranged because of the new loads
+     */
+    boolean updatePartitionLoads(PartitionLoads loads) {
+        if (!initialized || !isLoadAware()) {
+            return false;
+        }
+        ((LoadAwarePartitionStateGenerator) partitionStateGenerator).setPartitionLoads(loads);
+        Address[][] newState = partitionStateGenerator.arrange(createMemberGroups(), partitions);
+        if (newState == null) {
+            return false;
+        }
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            for (int replicaIndex = 0; replicaIndex < InternalPartition.MAX_REPLICA_COUNT; replicaIndex++) {
+                Address address = partitions[partitionId].getReplicaAddress(replicaIndex);
+                Address newAddress = newState[partitionId][replicaIndex];
+                if (address == null ? newAddress != null : !address.equals(newAddress)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     Address[][] repartition(Set<Address> excludedAddresses) {
         if (!initialized) {
             return null;
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.internal.partition.InternalPartitionService;
+import com.hazelcast.internal.partition.NonFragmentedServiceNamespace;
+import com.hazelcast.internal.partition.operation.ReplicaSyncResponse;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.ServiceNamespace;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.impl.PartitionSpecificRunnable;
+import com.hazelcast.spi.impl.SimpleExecutionCallback;
+import com.hazelcast.spi.impl.operationservice.InternalOperationService;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Sends the chunks of a replica sync from the partition owner to a replica with a bounded window. At most
+ * {@link #MAX_CHUNKS_IN_FLIGHT} chunks are sent without an acknowledgement, the next chunk is sent only after the replica
+ * has applied one of them. After all chunks are acknowledged, an empty last response finalizes the replica sync.
+ * <p>
+ * Each chunk is created from the live replica data on the partition thread right before it is sent, and it carries the
+ * replica versions of that moment. So only one chunk in flight is held in memory, and a backup operation of an update
+ * which is not contained in a chunk is always sent after the chunk. The last response carries the replica versions
+ * of the moment it is sent, which are installed on the replica when it finalizes the sync.
+ * <p>
+ * Sending stops when a chunk fails, when the replica reports that it is not the backup with the sent replica index
+ * anymore or when a new replica sync of the same replica starts. The replica retries the sync after its sync request
+ * times out. The replica sync permit of the owner is held until sending stops.
+ * <p>
+ * All methods except the callbacks of the chunk invocations run on the partition thread.
+ */
+final class ReplicaSyncChunkSender {
+
+    static final int MAX_CHUNKS_IN_FLIGHT = 2;
+
+    private final NodeEngineImpl nodeEngine;
+    private final PartitionReplicaManager replicaManager;
+    private final ReplicaFragmentSyncInfo syncInfo;
+    private final long callTimeout;
+    private final ILogger logger;
+
+    private Iterator<Operation> chunks;
+    private int chunksInFlight;
+    private boolean done;
+
+    ReplicaSyncChunkSender(NodeEngineImpl nodeEngine, PartitionReplicaManager replicaManager, ReplicaFragmentSyncInfo syncInfo,
+                           Iterator<Operation> chunks, long callTimeout) {
+        this.nodeEngine = nodeEngine;
+        this.replicaManager = replicaManager;
+        this.syncInfo = syncInfo;
+        this.chunks = chunks;
+        this.callTimeout = callTimeout;
+        this.logger = nodeEngine.getLogger(getClass());
+    }
+
+    ReplicaFragmentSyncInfo getSyncInfo() {
+        return syncInfo;
+    }
+
+    /**
+     * Sends the first response of the replica sync, which is not the last one, and then the chunks.
+     */
+    void start(Collection<Operation> firstOperations) {
+        sendChunk(createResponse(firstOperations, false));
+        sendChunks();
+    }
+
+    void sendChunks() {
+        while (!done && chunksInFlight < MAX_CHUNKS_IN_FLIGHT && chunks.hasNext()) {
+            sendChunk(createResponse(Collections.singleton(chunks.next()), false));
+        }
+        if (!done && chunksInFlight == 0 && !chunks.hasNext()) {
+            nodeEngine.getOperationService().send(createResponse(null, true), syncInfo.target);
+            stop();
+        }
+    }
+
+    private ReplicaSyncResponse createResponse(Collection<Operation> operations, boolean lastChunk) {
+        ServiceNamespace ns = NonFragmentedServiceNamespace.INSTANCE;
+        // the response is serialized later, it must not see the versions of later updates
+        long[] versions = replicaManager.getPartitionReplicaVersions(syncInfo.partitionId, ns);
+        versions = Arrays.copyOf(versions, versions.length);
+        ReplicaSyncResponse response = new ReplicaSyncResponse(operations, ns, versions, lastChunk);
+        response.setPartitionId(syncInfo.partitionId).setReplicaIndex(syncInfo.replicaIndex);
+        return response;
+    }
+
+    private void sendChunk(ReplicaSyncResponse chunk) {
+        chunksInFlight++;
+        nodeEngine.getOperationService()
+                  .createInvocationBuilder(InternalPartitionService.SERVICE_NAME, chunk, syncInfo.target)
+                  .setExecutionCallback(new ChunkCallback())
+                  .setResultDeserialized(true)
+                  .setCallTimeout(callTimeout)
+                  .setTryCount(1)
+                  .setReplicaIndex(syncInfo.replicaIndex)
+                  .invoke();
+    }
+
+    private void onChunkResponse(Object result) {
+        if (done) {
+            return;
+        }
+        chunksInFlight--;
+        if (Boolean.TRUE.equals(result)) {
+            sendChunks();
+        } else {
+            if (logger.isFinestEnabled()) {
+                logger.finest("Stopping replica sync of " + syncInfo + ", a chunk is not applied: " + result);
+            }
+            stop();
+        }
+    }
+
+    /** Stops sending the chunks and releases the replica sync permit */
+    void stop() {
+        if (done) {
+            return;
+        }
+        done = true;
+        chunks = Collections.<Operation>emptyList().iterator();
+        replicaManager.removeReplicaSyncChunkSender(this);
+        replicaManager.releaseReplicaSyncPermit();
+    }
+
+    private final class ChunkCallback extends SimpleExecutionCallback<Object> {
+
+        @Override
+        public void notify(final Object result) {
+            InternalOperationService operationService = (InternalOperationService) nodeEngine.getOperationService();
+            operationService.execute(new PartitionSpecificRunnable() {
+                @Override
+                public int getPartitionId() {
+                    return syncInfo.partitionId;
+                }
+
+                @Override
+                public void run() {
+                    onChunkResponse(result);
+                }
+            });
+        }
+    }
+}
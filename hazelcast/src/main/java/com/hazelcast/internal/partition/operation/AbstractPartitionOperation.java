@@ -16,16 +16,23 @@
 
 package com.hazelcast.internal.partition.operation;
 
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.internal.partition.NonFragmentedServiceNamespace;
 import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.spi.*;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.impl.servicemanager.ServiceInfo;
+import com.hazelcast.spi.properties.HazelcastProperties;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
 
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_MIGRATION_CHUNKS_ENABLED;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_MIGRATION_CHUNK_MAX_SIZE;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 
@@ -37,14 +44,38 @@ abstract class AbstractPartitionOperation extends Operation implements Identifie
     }
 
     final Collection<Operation> createAllReplicationOperations(PartitionReplicationEvent event) {
-        return createReplicationOperations(event, false);
+        return createReplicationOperations(event, false, false, Collections.<String>emptySet());
     }
 
     final Collection<Operation> createNonFragmentedReplicationOperations(PartitionReplicationEvent event) {
-        return createReplicationOperations(event, true);
+        return createNonFragmentedReplicationOperations(event, Collections.<String>emptySet());
     }
 
-    private Collection<Operation> createReplicationOperations(PartitionReplicationEvent event, boolean nonFragmentedOnly) {
+    /**
+     * Creates the replication operations of the non-fragmented services, except the given services which are
+     * replicated by {@link #createDeltaReplicationOperations(PartitionReplicationEvent, Map)}.
+     */
+    final Collection<Operation> createNonFragmentedReplicationOperations(PartitionReplicationEvent event,
+                                                                         Collection<String> excludedServiceNames) {
+        return createReplicationOperations(event, true, false, excludedServiceNames);
+    }
+
+    /**
+     * Creates the replication operations of the non-fragmented services which don't support chunked replication.
+     * Replica data of the remaining non-fragmented services is created by
+     * {@link #createReplicationChunks(PartitionReplicationEvent)}.
+     */
+    final Collection<Operation> createNonChunkedReplicationOperations(PartitionReplicationEvent event) {
+        return createNonChunkedReplicationOperations(event, Collections.<String>emptySet());
+    }
+
+    final Collection<Operation> createNonChunkedReplicationOperations(PartitionReplicationEvent event,
+                                                                      Collection<String> excludedServiceNames) {
+        return createReplicationOperations(event, true, true, excludedServiceNames);
+    }
+
+    private Collection<Operation> createReplicationOperations(PartitionReplicationEvent event, boolean nonFragmentedOnly,
+                                                              boolean nonChunkedOnly, Collection<String> excludedServiceNames) {
         Collection<Operation> operations = new ArrayList<Operation>();
         NodeEngineImpl nodeEngine = (NodeEngineImpl) getNodeEngine();
         Collection<ServiceInfo> services = nodeEngine.getServiceInfos(MigrationAwareService.class);
@@ -55,6 +86,13 @@ abstract class AbstractPartitionOperation extends Operation implements Identifie
                 // skip fragmented services
                 continue;
             }
+            if (nonChunkedOnly && service instanceof ChunkedMigrationAwareService) {
+                // skip chunked services
+                continue;
+            }
+            if (excludedServiceNames.contains(serviceInfo.getName())) {
+                continue;
+            }
 
             Operation op = service.prepareReplicationOperation(event);
             if (op != null) {
@@ -121,6 +159,58 @@ abstract class AbstractPartitionOperation extends Operation implements Identifie
         return operations;
     }
 
+    /**
+     * Returns true if the non-fragmented replica data of {@link ChunkedMigrationAwareService}s should be replicated
+     * in chunks. All cluster members must be able to apply the chunks, so it requires the cluster version 3.9.
+     */
+    final boolean isChunkedReplicationEnabled() {
+        NodeEngine nodeEngine = getNodeEngine();
+        HazelcastProperties properties = nodeEngine.getProperties();
+        return properties.getBoolean(PARTITION_MIGRATION_CHUNKS_ENABLED)
+                && nodeEngine.getClusterService().getClusterVersion().isGreaterOrEqual(Versions.V3_9);
+    }
+
+    /**
+     * Creates a lazy iterator over the replication chunks of all {@link ChunkedMigrationAwareService}s.
+     * It must be consumed on the partition thread.
+     */
+    final Iterator<Operation> createReplicationChunks(PartitionReplicationEvent event) {
+        return createReplicationChunks(event, Collections.<String>emptySet());
+    }
+
+    final Iterator<Operation> createReplicationChunks(PartitionReplicationEvent event, Collection<String> excludedServiceNames) {
+        NodeEngineImpl nodeEngine = (NodeEngineImpl) getNodeEngine();
+        int maxChunkSize = nodeEngine.getProperties().getInteger(PARTITION_MIGRATION_CHUNK_MAX_SIZE);
+        Collection<ServiceInfo> services = new ArrayList<ServiceInfo>();
+        for (ServiceInfo serviceInfo : nodeEngine.getServiceInfos(ChunkedMigrationAwareService.class)) {
+            if (!excludedServiceNames.contains(serviceInfo.getName())) {
+                services.add(serviceInfo);
+            }
+        }
+        return new ReplicationChunkIterator(services, event, maxChunkSize);
+    }
+
+    /**
+     * Creates the delta replication operations of the {@link DeltaReplicationAwareService}s which have sent a digest
+     * of their backup replica data. These services should be excluded from the other replication operations.
+     *
+     * @param replicaDigests digests of the backup replica by service name
+     */
+    final Collection<Operation> createDeltaReplicationOperations(PartitionReplicationEvent event,
+                                                                 Map<String, Object> replicaDigests) {
+        Collection<Operation> operations = new ArrayList<Operation>(replicaDigests.size());
+        NodeEngineImpl nodeEngine = (NodeEngineImpl) getNodeEngine();
+        for (Map.Entry<String, Object> entry : replicaDigests.entrySet()) {
+            DeltaReplicationAwareService service = nodeEngine.getService(entry.getKey());
+            Operation op = service.prepareDeltaReplicationOperation(event, entry.getValue());
+            if (op != null) {
+                op.setServiceName(entry.getKey());
+                operations.add(op);
+            }
+        }
+        return operations;
+    }
+
     @Override
     public final int getFactoryId() {
         return PartitionDataSerializerHook.F_ID;
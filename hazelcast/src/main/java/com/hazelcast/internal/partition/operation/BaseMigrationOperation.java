@@ -76,20 +76,41 @@ abstract class BaseMigrationOperation extends AbstractPartitionOperation
         }
     }
 
-    /** Verifies that the sent partition state version matches the local version or this node is master. */
+    /**
+     * Verifies that the sent partition state version matches the local version or this node is master. If parallel
+     * migrations are enabled, a newer local version is accepted as long as the replicas of the migrated partition
+     * are still the same, since other migrations may have been committed after this migration was started.
+     */
     private void verifyPartitionStateVersion() {
-        InternalPartitionService partitionService = getService();
+        InternalPartitionServiceImpl partitionService = getService();
         int localPartitionStateVersion = partitionService.getPartitionStateVersion();
         if (partitionStateVersion != localPartitionStateVersion) {
             if (getNodeEngine().getThisAddress().equals(migrationInfo.getMaster())) {
                 return;
             }
 
+            if (partitionStateVersion < localPartitionStateVersion
+                    && partitionService.getMigrationManager().isParallelMigrationEnabled()
+                    && isPartitionUnchangedSinceMigrationStart()) {
+                return;
+            }
+
             // this is expected when cluster member list changes during migration
             throw new PartitionStateVersionMismatchException(partitionStateVersion, localPartitionStateVersion);
         }
     }
 
+    /** Checks if the source and destination are still at their current replica indices in the local partition table. */
+    private boolean isPartitionUnchangedSinceMigrationStart() {
+        InternalPartition partition = getPartition();
+        int sourceIndex = migrationInfo.getSourceCurrentReplicaIndex();
+        if (sourceIndex > -1 && !migrationInfo.getSource().equals(partition.getReplicaAddress(sourceIndex))) {
+            return false;
+        }
+        int destinationIndex = migrationInfo.getDestinationCurrentReplicaIndex();
+        return destinationIndex == -1 || migrationInfo.getDestination().equals(partition.getReplicaAddress(destinationIndex));
+    }
+
     /**
      * Checks if the local UUID matches the migration source or destintion UUID if this node is the migration source or
      * destination.
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.operation;
+
+import com.hazelcast.core.MemberLeftException;
+import com.hazelcast.internal.partition.InternalPartitionService;
+import com.hazelcast.internal.partition.PartitionLoads;
+import com.hazelcast.internal.partition.impl.InternalPartitionServiceImpl;
+import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.ExceptionAction;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+/**
+ * Operation sent by the master to the cluster members to fetch the loads of their owned partitions.
+ */
+public final class FetchPartitionLoadsOperation extends AbstractPartitionOperation {
+
+    private PartitionLoads partitionLoads;
+
+    public FetchPartitionLoadsOperation() {
+    }
+
+    @Override
+    public void run() {
+        Address caller = getCallerAddress();
+        Address master = getNodeEngine().getMasterAddress();
+        if (!caller.equals(master)) {
+            throw new IllegalStateException(caller + " requested our partition loads but it's not our known master. "
+                    + "Master: " + master);
+        }
+        InternalPartitionServiceImpl service = getService();
+        partitionLoads = service.getPartitionLoadTracker().collectPartitionLoads();
+    }
+
+    @Override
+    public ExceptionAction onInvocationException(Throwable throwable) {
+        if (throwable instanceof MemberLeftException || throwable instanceof TargetNotMemberException) {
+            return ExceptionAction.THROW_EXCEPTION;
+        }
+        return super.onInvocationException(throwable);
+    }
+
+    @Override
+    public Object getResponse() {
+        return partitionLoads;
+    }
+
+    @Override
+    public String getServiceName() {
+        return InternalPartitionService.SERVICE_NAME;
+    }
+
+    @Override
+    public int getId() {
+        return PartitionDataSerializerHook.FETCH_PARTITION_LOADS;
+    }
+}
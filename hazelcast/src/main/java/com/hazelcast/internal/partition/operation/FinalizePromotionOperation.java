@@ -123,8 +123,11 @@ final class FinalizePromotionOperation extends AbstractPromotionOperation {
                 }
             }
 
-            PartitionEventManager partitionEventManager = partitionService.getPartitionEventManager();
-            partitionEventManager.sendPartitionLostEvent(partitionId, lostReplicaIndex);
+            if (migrationInfo.getSource() == null) {
+                // owner is not lost if it handed off the partition while shutting down gracefully
+                PartitionEventManager partitionEventManager = partitionService.getPartitionEventManager();
+                partitionEventManager.sendPartitionLostEvent(partitionId, lostReplicaIndex);
+            }
         } catch (Throwable e) {
             logger.warning("Promotion failed. partitionId=" + partitionId + " replicaIndex=" + currentReplicaIndex, e);
         }
@@ -168,6 +168,10 @@ public class MigrationRequestOperation extends BaseMigrationSourceOperation {
              return null;
         }
 
+        if (namespacesContext.hasNextReplicationChunk()) {
+            return createReplicationChunkMigrationState();
+        }
+
         ServiceNamespace namespace = namespacesContext.next();
         if (namespace.equals(NonFragmentedServiceNamespace.INSTANCE)) {
             return createNonFragmentedReplicaFragmentMigrationState();
@@ -177,12 +181,35 @@ public class MigrationRequestOperation extends BaseMigrationSourceOperation {
 
     private ReplicaFragmentMigrationState createNonFragmentedReplicaFragmentMigrationState() {
         PartitionReplicationEvent event = getPartitionReplicationEvent();
-        Collection<Operation> operations = createNonFragmentedReplicationOperations(event);
+        Collection<Operation> operations;
+        if (isChunkedReplicationEnabled()) {
+            operations = new ArrayList<Operation>(createNonChunkedReplicationOperations(event));
+            Iterator<Operation> chunks = createReplicationChunks(event);
+            if (chunks.hasNext()) {
+                // first chunk is sent along with the other non-fragmented services, remaining ones one by one
+                operations.add(chunks.next());
+            }
+            namespacesContext.replicationChunks = chunks;
+        } else {
+            operations = createNonFragmentedReplicationOperations(event);
+        }
         Collection<ServiceNamespace> namespaces =
                 Collections.singleton(NonFragmentedServiceNamespace.INSTANCE);
         return createReplicaFragmentMigrationState(namespaces, operations);
     }
 
+    /**
+     * Creates the migration state of the next replication chunk of the non-fragmented services. Each chunk carries
+     * the replica versions of the non-fragmented namespace, the next chunk is sent only after the destination
+     * applies the previous one.
+     */
+    private ReplicaFragmentMigrationState createReplicationChunkMigrationState() {
+        Operation chunk = namespacesContext.replicationChunks.next();
+        Collection<ServiceNamespace> namespaces =
+                Collections.singleton(NonFragmentedServiceNamespace.INSTANCE);
+        return createReplicaFragmentMigrationState(namespaces, Collections.singleton(chunk));
+    }
+
     private ReplicaFragmentMigrationState createReplicaFragmentMigrationStateFor(ServiceNamespace ns) {
         PartitionReplicationEvent event = getPartitionReplicationEvent();
         Collection<String> serviceNames = namespacesContext.getServiceNames(ns);
@@ -272,6 +299,8 @@ public class MigrationRequestOperation extends BaseMigrationSourceOperation {
 
         final Iterator<ServiceNamespace> namespaceIterator;
 
+        Iterator<Operation> replicationChunks;
+
         ServiceNamespacesContext(NodeEngineImpl nodeEngine, PartitionReplicationEvent event) {
             Collection<ServiceInfo> services = nodeEngine.getServiceInfos(FragmentedMigrationAwareService.class);
             for (ServiceInfo serviceInfo : services) {
@@ -306,7 +335,11 @@ public class MigrationRequestOperation extends BaseMigrationSourceOperation {
         }
 
         boolean hasNext() {
-            return namespaceIterator.hasNext();
+            return hasNextReplicationChunk() || namespaceIterator.hasNext();
+        }
+
+        boolean hasNextReplicationChunk() {
+            return replicationChunks != null && replicationChunks.hasNext();
         }
 
         ServiceNamespace next() {
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition.operation;
+
+import com.hazelcast.internal.cluster.impl.operations.JoinOperation;
+import com.hazelcast.internal.partition.InternalPartitionService;
+import com.hazelcast.internal.partition.MigrationCycleOperation;
+import com.hazelcast.internal.partition.PartitionRuntimeStateDelta;
+import com.hazelcast.internal.partition.impl.InternalPartitionServiceImpl;
+import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+
+/**
+ * Sent from the master to publish or sync the changes of the partition table to all cluster members. Responds with
+ * {@code false} if the delta could not be applied, e.g. because the member doesn't have the base version of the partition
+ * table, in which case the master sends the full partition table.
+ *
+ * @see InternalPartitionServiceImpl#publishPartitionRuntimeState
+ * @see InternalPartitionServiceImpl#syncPartitionRuntimeState
+ */
+public final class PartitionStateDeltaOperation extends AbstractPartitionOperation
+        implements MigrationCycleOperation, JoinOperation {
+
+    private PartitionRuntimeStateDelta partitionStateDelta;
+    private boolean success;
+
+    public PartitionStateDeltaOperation() {
+    }
+
+    public PartitionStateDeltaOperation(PartitionRuntimeStateDelta partitionStateDelta) {
+        this.partitionStateDelta = partitionStateDelta;
+    }
+
+    @Override
+    public void run() {
+        Address callerAddress = getCallerAddress();
+        partitionStateDelta.setEndpoint(callerAddress);
+        InternalPartitionServiceImpl partitionService = getService();
+        success = partitionService.processPartitionRuntimeStateDelta(partitionStateDelta);
+
+        ILogger logger = getLogger();
+        if (logger.isFineEnabled()) {
+            String message = (success ? "Applied" : "Rejected") + " partition state delta. Base version: "
+                    + partitionStateDelta.getBaseVersion() + ", version: " + partitionStateDelta.getVersion()
+                    + ", caller: " + callerAddress;
+            logger.fine(message);
+        }
+    }
+
+    @Override
+    public Object getResponse() {
+        return success;
+    }
+
+    @Override
+    public String getServiceName() {
+        return InternalPartitionService.SERVICE_NAME;
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        partitionStateDelta = new PartitionRuntimeStateDelta();
+        partitionStateDelta.readData(in);
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        partitionStateDelta.writeData(out);
+    }
+
+    @Override
+    public int getId() {
+        return PartitionDataSerializerHook.PARTITION_STATE_DELTA_OP;
+    }
+}
@@ -34,6 +34,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * The request sent from a replica to the partition owner to synchronize the replica data. The partition owner can send a
@@ -44,18 +47,25 @@ import java.util.Collections;
  * <li>the maximum number of parallel synchronizations has already been reached</li>
  * </ul>
  * An empty response can be sent if the current replica version is 0.
+ * <p>
+ * The request can carry digests of the replica data of {@link DeltaReplicationAwareService}s, then the partition owner
+ * replicates only the data of these services which differs from the digests.
  */
 public final class ReplicaSyncRequest extends AbstractPartitionOperation
         implements PartitionAwareOperation, MigrationCycleOperation, Versioned {
 
     private Collection<ServiceNamespace> allNamespaces;
+    private Map<String, Object> replicaDigests;
 
     public ReplicaSyncRequest() {
         allNamespaces = Collections.emptySet();
+        replicaDigests = Collections.emptyMap();
     }
 
-    public ReplicaSyncRequest(int partitionId, Collection<ServiceNamespace> namespaces, int replicaIndex) {
+    public ReplicaSyncRequest(int partitionId, Collection<ServiceNamespace> namespaces, int replicaIndex,
+                              Map<String, Object> replicaDigests) {
         this.allNamespaces = namespaces;
+        this.replicaDigests = replicaDigests;
         setPartitionId(partitionId);
         setReplicaIndex(replicaIndex);
     }
@@ -89,6 +99,7 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
             return;
         }
 
+        boolean releasePermit = true;
         try {
             PartitionReplicationEvent event = new PartitionReplicationEvent(partitionId, replicaIndex);
             if (allNamespaces.isEmpty()) {
@@ -97,8 +108,15 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
                 sendOperations(operations, NonFragmentedServiceNamespace.INSTANCE);
             } else {
                 if (allNamespaces.remove(NonFragmentedServiceNamespace.INSTANCE)) {
-                    Collection<Operation> operations = createNonFragmentedReplicationOperations(event);
-                    sendOperations(operations, NonFragmentedServiceNamespace.INSTANCE);
+                    Collection<Operation> deltaOperations = createDeltaReplicationOperations(event, replicaDigests);
+                    if (isChunkedReplicationEnabled()) {
+                        releasePermit = !sendNonFragmentedReplicationChunks(event, deltaOperations);
+                    } else {
+                        Collection<Operation> operations = new ArrayList<Operation>(
+                                createNonFragmentedReplicationOperations(event, replicaDigests.keySet()));
+                        operations.addAll(deltaOperations);
+                        sendOperations(operations, NonFragmentedServiceNamespace.INSTANCE);
+                    }
                 }
 
                 for (ServiceNamespace namespace : allNamespaces) {
@@ -107,7 +125,9 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
                 }
             }
         } finally {
-            partitionService.getReplicaManager().releaseReplicaSyncPermit();
+            if (releasePermit) {
+                partitionService.getReplicaManager().releaseReplicaSyncPermit();
+            }
         }
     }
 
@@ -120,6 +140,44 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
         }
     }
 
+    /**
+     * Sends the non-fragmented replica data in multiple responses, each one carrying at most a single replication chunk
+     * of the {@link ChunkedMigrationAwareService}s. Only the last response finalizes the replica sync of the namespace.
+     * The delta replication operations are sent with the first response.
+     * <p>
+     * When there is more than one chunk, they are sent by the replica manager with a bounded window of unacknowledged
+     * chunks. Each chunk is created on the partition thread only when it is sent, so the partition replica is never
+     * copied as a whole, and backups of later updates are sent after the chunk.
+     *
+     * @return {@code true} if the chunks are sent asynchronously and the replica sync permit is released after that
+     */
+    private boolean sendNonFragmentedReplicationChunks(PartitionReplicationEvent event, Collection<Operation> deltaOperations)
+            throws Exception {
+        ServiceNamespace ns = NonFragmentedServiceNamespace.INSTANCE;
+        Collection<String> deltaServiceNames = replicaDigests.keySet();
+        Collection<Operation> operations = new ArrayList<Operation>(
+                createNonChunkedReplicationOperations(event, deltaServiceNames));
+        operations.addAll(deltaOperations);
+        Iterator<Operation> chunks = createReplicationChunks(event, deltaServiceNames);
+        if (chunks.hasNext()) {
+            operations.add(chunks.next());
+        }
+        if (!chunks.hasNext()) {
+            sendOperations(operations, ns);
+            return false;
+        }
+
+        ILogger logger = getLogger();
+        if (logger.isFinestEnabled()) {
+            logger.finest("Sending sync response chunks to -> " + getCallerAddress()
+                    + " for partitionId=" + getPartitionId() + ", replicaIndex=" + getReplicaIndex());
+        }
+        InternalPartitionServiceImpl partitionService = getService();
+        partitionService.getReplicaManager().sendReplicaSyncChunks(getPartitionId(), getReplicaIndex(), getCallerAddress(),
+                operations, chunks);
+        return true;
+    }
+
     /** Checks if we can continue with the replication or not. Can send a retry or empty response to the replica in some cases */
     private boolean preCheckReplicaSync(NodeEngineImpl nodeEngine, int partitionId, int replicaIndex) throws IOException {
         InternalPartitionServiceImpl partitionService = (InternalPartitionServiceImpl) nodeEngine.getPartitionService();
@@ -164,7 +222,7 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
     private void sendResponse(Collection<Operation> operations, ServiceNamespace ns) throws IOException {
         NodeEngine nodeEngine = getNodeEngine();
 
-        ReplicaSyncResponse syncResponse = createResponse(operations, ns);
+        ReplicaSyncResponse syncResponse = createResponse(operations, ns, getReplicaVersions(ns), true);
         Address target = getCallerAddress();
         ILogger logger = getLogger();
         if (logger.isFinestEnabled()) {
@@ -175,16 +233,17 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
         operationService.send(syncResponse, target);
     }
 
-    private ReplicaSyncResponse createResponse(Collection<Operation> operations, ServiceNamespace ns)
-            throws IOException {
-
-        int partitionId = getPartitionId();
-        int replicaIndex = getReplicaIndex();
+    private long[] getReplicaVersions(ServiceNamespace ns) {
         InternalPartitionService partitionService = getService();
         PartitionReplicaVersionManager versionManager = partitionService.getPartitionReplicaVersionManager();
+        return versionManager.getPartitionReplicaVersions(getPartitionId(), ns);
+    }
 
-        long[] versions = versionManager.getPartitionReplicaVersions(partitionId, ns);
-        ReplicaSyncResponse syncResponse = new ReplicaSyncResponse(operations, ns, versions);
+    private ReplicaSyncResponse createResponse(Collection<Operation> operations, ServiceNamespace ns, long[] versions,
+                                               boolean lastChunk) {
+        int partitionId = getPartitionId();
+        int replicaIndex = getReplicaIndex();
+        ReplicaSyncResponse syncResponse = new ReplicaSyncResponse(operations, ns, versions, lastChunk);
         syncResponse.setPartitionId(partitionId).setReplicaIndex(replicaIndex);
         return syncResponse;
     }
@@ -229,6 +288,11 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
             for (ServiceNamespace namespace : allNamespaces) {
                 out.writeObject(namespace);
             }
+            out.writeInt(replicaDigests.size());
+            for (Map.Entry<String, Object> entry : replicaDigests.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeObject(entry.getValue());
+            }
         }
     }
 
@@ -241,6 +305,13 @@ public final class ReplicaSyncRequest extends AbstractPartitionOperation
                 ServiceNamespace ns = in.readObject();
                 allNamespaces.add(ns);
             }
+            int digestCount = in.readInt();
+            replicaDigests = new HashMap<String, Object>(digestCount);
+            for (int i = 0; i < digestCount; i++) {
+                String serviceName = in.readUTF();
+                Object digest = in.readObject();
+                replicaDigests.put(serviceName, digest);
+            }
         }
     }
 
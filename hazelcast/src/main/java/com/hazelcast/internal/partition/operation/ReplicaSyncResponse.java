@@ -47,6 +47,9 @@ import static com.hazelcast.spi.impl.OperationResponseHandlerFactory.createError
  * <li>if the node is still a replica it will reschedule the replica synchronization request</li>
  * <li>if the node is not a replica anymore it will clear the replica versions for the partition</li>
  * </ul>
+ * Replica data of a namespace can be sent in multiple chunks, the replica sync is finalized only by the last chunk.
+ * The partition owner invokes the chunks before the last one and waits for their responses, which tell whether the
+ * chunk has been applied, before sending more chunks.
  */
 @SuppressFBWarnings("EI_EXPOSE_REP")
 public class ReplicaSyncResponse extends AbstractPartitionOperation
@@ -55,14 +58,22 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
     private Collection<Operation> operations;
     private ServiceNamespace namespace;
     private long[] versions;
+    private boolean lastChunk = true;
+    private transient boolean applied;
 
     public ReplicaSyncResponse() {
     }
 
     public ReplicaSyncResponse(Collection<Operation> operations, ServiceNamespace namespace, long[] versions) {
+        this(operations, namespace, versions, true);
+    }
+
+    public ReplicaSyncResponse(Collection<Operation> operations, ServiceNamespace namespace, long[] versions,
+                               boolean lastChunk) {
         this.operations = operations;
         this.namespace = namespace;
         this.versions = versions;
+        this.lastChunk = lastChunk;
     }
 
     @Override
@@ -79,6 +90,7 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
         try {
             if (replicaIndex == currentReplicaIndex) {
                 executeOperations();
+                applied = true;
             } else {
                 nodeNotOwnsBackup(partition);
             }
@@ -86,7 +98,9 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
                 operations.clear();
             }
         } finally {
-            postProcessReplicaSync(partitionService, currentReplicaIndex);
+            if (lastChunk || replicaIndex != currentReplicaIndex) {
+                postProcessReplicaSync(partitionService, currentReplicaIndex);
+            }
         }
     }
 
@@ -189,10 +203,14 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
         }
     }
 
-
     @Override
     public boolean returnsResponse() {
-        return false;
+        return !lastChunk;
+    }
+
+    @Override
+    public Object getResponse() {
+        return applied;
     }
 
     @Override
@@ -245,6 +263,9 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
                 out.writeObject(task);
             }
         }
+        if (out.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            out.writeBoolean(lastChunk);
+        }
     }
 
     @Override
@@ -264,6 +285,9 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
                 operations.add(op);
             }
         }
+        if (in.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            lastChunk = in.readBoolean();
+        }
     }
 
     @Override
@@ -272,6 +296,7 @@ public class ReplicaSyncResponse extends AbstractPartitionOperation
 
         sb.append(", namespace=").append(namespace);
         sb.append(", versions=").append(Arrays.toString(versions));
+        sb.append(", lastChunk=").append(lastChunk);
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.operation;
+
+import com.hazelcast.spi.ChunkedMigrationAwareService;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.PartitionReplicationEvent;
+import com.hazelcast.spi.impl.servicemanager.ServiceInfo;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the replication chunks of all {@link ChunkedMigrationAwareService}s of a partition replica,
+ * one service after another. Chunks of a service are requested only after the chunks of the previous services
+ * are consumed, so the iterator must be used on the partition thread.
+ */
+final class ReplicationChunkIterator implements Iterator<Operation> {
+
+    private final Iterator<ServiceInfo> serviceIterator;
+    private final PartitionReplicationEvent event;
+    private final int maxChunkSize;
+
+    private String serviceName;
+    private Iterator<Operation> chunkIterator;
+
+    ReplicationChunkIterator(Collection<ServiceInfo> services, PartitionReplicationEvent event, int maxChunkSize) {
+        this.serviceIterator = services.iterator();
+        this.event = event;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (chunkIterator == null || !chunkIterator.hasNext()) {
+            if (!serviceIterator.hasNext()) {
+                return false;
+            }
+            ServiceInfo serviceInfo = serviceIterator.next();
+            ChunkedMigrationAwareService service = serviceInfo.getService();
+            serviceName = serviceInfo.getName();
+            chunkIterator = service.prepareReplicationChunks(event, maxChunkSize);
+        }
+        return true;
+    }
+
+    @Override
+    public Operation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Operation op = chunkIterator.next();
+        op.setServiceName(serviceName);
+        return op;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -17,19 +17,32 @@
 package com.hazelcast.internal.partition.operation;
 
 import com.hazelcast.internal.cluster.ClusterService;
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.internal.partition.InternalPartitionService;
 import com.hazelcast.internal.partition.MigrationCycleOperation;
 import com.hazelcast.internal.partition.impl.InternalPartitionServiceImpl;
 import com.hazelcast.internal.partition.impl.PartitionDataSerializerHook;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.impl.Versioned;
 import com.hazelcast.spi.NodeEngine;
 
-public class ShutdownRequestOperation extends AbstractPartitionOperation implements MigrationCycleOperation {
+import java.io.IOException;
+
+public class ShutdownRequestOperation extends AbstractPartitionOperation implements MigrationCycleOperation, Versioned {
+
+    /** Whether the backups of the partitions owned by the caller are synced, so they can be promoted */
+    private boolean backupsSynced;
 
     public ShutdownRequestOperation() {
     }
 
+    public ShutdownRequestOperation(boolean backupsSynced) {
+        this.backupsSynced = backupsSynced;
+    }
+
     @Override
     public void run() {
         InternalPartitionServiceImpl partitionService = getService();
@@ -44,7 +57,7 @@ public class ShutdownRequestOperation extends AbstractPartitionOperation impleme
                 if (logger.isFinestEnabled()) {
                     logger.finest("Received shutdown request from " + caller);
                 }
-                partitionService.onShutdownRequest(caller);
+                partitionService.onShutdownRequest(caller, backupsSynced);
             } else {
                 logger.warning("Ignoring shutdown request from " + caller + " because it is not a member");
             }
@@ -63,6 +76,22 @@ public class ShutdownRequestOperation extends AbstractPartitionOperation impleme
         return InternalPartitionService.SERVICE_NAME;
     }
 
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        if (out.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            out.writeBoolean(backupsSynced);
+        }
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        if (in.getVersion().isGreaterOrEqual(Versions.V3_9)) {
+            backupsSynced = in.readBoolean();
+        }
+    }
+
     @Override
     public int getId() {
         return PartitionDataSerializerHook.SHUTDOWN_REQUEST;
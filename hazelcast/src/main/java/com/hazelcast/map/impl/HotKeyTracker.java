@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl;
+
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * Tracks the most frequently read keys of a single partition of a map.
+ * <p>
+ * This is a Space-Saving heavy hitter sketch with a fixed number of counters. A key which isn't tracked
+ * yet replaces the key with the smallest count and inherits its count as overestimation error, so the
+ * guaranteed number of reads of a tracked key is {@code count - error}. A key is considered hot if its
+ * guaranteed reads are at least the configured percentage of all reads of the partition.
+ * <p>
+ * The counters are kept in a list of buckets ordered by count, each bucket holds the counters with the same
+ * count. So a read moves its counter at most to the adjacent bucket, and the counter with the smallest count
+ * is found in the first bucket, which makes every read a constant time update.
+ * <p>
+ * All counts are halved after a number of reads which is proportional to the number of counters, so
+ * the tracker follows a shifting access pattern and keys which are no longer read cool down.
+ * <p>
+ * The tracker is mostly updated on the partition thread, but it's also read by the statistics and
+ * updated by reads from backup replicas, so it's guarded by its monitor. There is a tracker per partition,
+ * so the monitor is not contended by the reads of other partitions.
+ */
+public final class HotKeyTracker {
+
+    /**
+     * Minimum number of reads of the partition before a key can be considered hot.
+     */
+    static final int MIN_SAMPLE_SIZE = 100;
+
+    /**
+     * Number of reads per counter after which the counts are halved.
+     */
+    static final int DECAY_WINDOW_PER_COUNTER = 1 << 10;
+
+    private static final int PERCENT = 100;
+
+    private final int capacity;
+    private final int thresholdPercentage;
+    private final long decayWindow;
+    private final Map<Data, Counter> counters;
+
+    private long readCount;
+    // the bucket with the smallest count, the buckets are linked in ascending order of their counts
+    private Bucket minBucket;
+
+    public HotKeyTracker(int capacity, int thresholdPercentage) {
+        this.capacity = checkPositive(capacity, "capacity should be positive");
+        this.thresholdPercentage = checkPositive(thresholdPercentage, "thresholdPercentage should be positive");
+        this.decayWindow = Math.max((long) capacity * DECAY_WINDOW_PER_COUNTER, MIN_SAMPLE_SIZE);
+        this.counters = new HashMap<Data, Counter>(capacity * 2);
+    }
+
+    /**
+     * Records a read of the given key.
+     *
+     * @param key the key which has been read
+     */
+    public synchronized void onRead(Data key) {
+        readCount++;
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+        } else if (counters.size() < capacity) {
+            counter = new Counter(key);
+            addToMinBucketWithCountOne(counter);
+            counters.put(key, counter);
+        } else {
+            // replace a key with the smallest count, its count is inherited as error of the new key
+            Counter min = minBucket.head;
+            counters.remove(min.key);
+            min.key = key;
+            min.error = minBucket.count;
+            increment(min);
+            counters.put(key, min);
+        }
+
+        if (readCount >= decayWindow) {
+            decay();
+        }
+    }
+
+    /**
+     * @param key the key to check
+     * @return {@code true} if the key is currently hot, {@code false} otherwise
+     */
+    public synchronized boolean isHot(Data key) {
+        Counter counter = counters.get(key);
+        return counter != null && isHot(counter);
+    }
+
+    /**
+     * @return the currently hot keys, ordered by descending read count
+     */
+    public synchronized List<Data> getHotKeys() {
+        // the buckets are in ascending order, so the hot keys are collected in ascending order
+        List<Data> hotKeys = new ArrayList<Data>();
+        for (Bucket bucket = minBucket; bucket != null; bucket = bucket.next) {
+            for (Counter counter = bucket.head; counter != null; counter = counter.next) {
+                if (isHot(counter)) {
+                    hotKeys.add(counter.key);
+                }
+            }
+        }
+        List<Data> descendingHotKeys = new ArrayList<Data>(hotKeys.size());
+        for (int i = hotKeys.size() - 1; i >= 0; i--) {
+            descendingHotKeys.add(hotKeys.get(i));
+        }
+        return descendingHotKeys;
+    }
+
+    /**
+     * @return the number of currently hot keys
+     */
+    public synchronized int getHotKeyCount() {
+        int hotKeyCount = 0;
+        for (Counter counter : counters.values()) {
+            if (isHot(counter)) {
+                hotKeyCount++;
+            }
+        }
+        return hotKeyCount;
+    }
+
+    private boolean isHot(Counter counter) {
+        return readCount >= MIN_SAMPLE_SIZE
+                && (counter.bucket.count - counter.error) * PERCENT >= thresholdPercentage * readCount;
+    }
+
+    private void addToMinBucketWithCountOne(Counter counter) {
+        if (minBucket == null || minBucket.count != 1) {
+            Bucket bucket = new Bucket(1);
+            bucket.next = minBucket;
+            if (minBucket != null) {
+                minBucket.prev = bucket;
+            }
+            minBucket = bucket;
+        }
+        minBucket.add(counter);
+    }
+
+    /**
+     * Moves the counter to the bucket with the next higher count, creating it if it doesn't exist yet.
+     */
+    private void increment(Counter counter) {
+        Bucket bucket = counter.bucket;
+        long newCount = bucket.count + 1;
+        Bucket next = bucket.next;
+        if (next == null || next.count != newCount) {
+            if (bucket.head == counter && counter.next == null) {
+                // the counter is alone in its bucket, which keeps its position in the list
+                bucket.count = newCount;
+                return;
+            }
+            next = new Bucket(newCount);
+            linkAfter(bucket, next);
+        }
+        bucket.remove(counter);
+        if (bucket.head == null) {
+            unlink(bucket);
+        }
+        next.add(counter);
+    }
+
+    private void decay() {
+        readCount >>= 1;
+        Bucket bucket = minBucket;
+        while (bucket != null) {
+            Bucket next = bucket.next;
+            bucket.count >>= 1;
+            for (Counter counter = bucket.head; counter != null; counter = counter.next) {
+                counter.error >>= 1;
+            }
+            if (bucket.count == 0) {
+                for (Counter counter = bucket.head; counter != null; counter = counter.next) {
+                    counters.remove(counter.key);
+                }
+                unlink(bucket);
+            } else if (bucket.prev != null && bucket.prev.count == bucket.count) {
+                // halving keeps the order of the counts, but adjacent counts may become equal
+                Bucket prev = bucket.prev;
+                while (bucket.head != null) {
+                    Counter counter = bucket.head;
+                    bucket.remove(counter);
+                    prev.add(counter);
+                }
+                unlink(bucket);
+            }
+            bucket = next;
+        }
+    }
+
+    private void linkAfter(Bucket bucket, Bucket newBucket) {
+        newBucket.prev = bucket;
+        newBucket.next = bucket.next;
+        if (bucket.next != null) {
+            bucket.next.prev = newBucket;
+        }
+        bucket.next = newBucket;
+    }
+
+    private void unlink(Bucket bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            minBucket = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    private static final class Bucket {
+
+        private long count;
+        private Bucket prev;
+        private Bucket next;
+        private Counter head;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        void add(Counter counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        void remove(Counter counter) {
+            if (counter.prev != null) {
+                counter.prev.next = counter.next;
+            } else {
+                head = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+            counter.prev = null;
+            counter.next = null;
+            counter.bucket = null;
+        }
+    }
+
+    private static final class Counter {
+
+        private Data key;
+        private long error;
+        private Bucket bucket;
+        private Counter prev;
+        private Counter next;
+
+        Counter(Data key) {
+            this.key = key;
+        }
+    }
+}
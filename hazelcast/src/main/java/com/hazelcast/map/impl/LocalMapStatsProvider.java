@@ -195,6 +195,11 @@ public class LocalMapStatsProvider {
         onDemandStats.setLastAccessTime(recordStore.getLastAccessTime());
         onDemandStats.setLastUpdateTime(recordStore.getLastUpdateTime());
         onDemandStats.setBackupCount(recordStore.getMapContainer().getMapConfig().getTotalBackupCount());
+
+        HotKeyTracker hotKeyTracker = recordStore.getHotKeyTracker();
+        if (hotKeyTracker != null) {
+            onDemandStats.incrementHotKeyCount(hotKeyTracker.getHotKeyCount());
+        }
     }
 
     /**
@@ -309,6 +314,7 @@ public class LocalMapStatsProvider {
         private long heapCost;
         private long lockedEntryCount;
         private long dirtyEntryCount;
+        private int hotKeyCount;
         private long lastAccessTime;
         private long lastUpdateTime;
 
@@ -348,6 +354,10 @@ public class LocalMapStatsProvider {
             this.heapCost += heapCost;
         }
 
+        public void incrementHotKeyCount(int hotKeyCount) {
+            this.hotKeyCount += hotKeyCount;
+        }
+
         public LocalMapStatsImpl updateAndGet(LocalMapStatsImpl stats) {
             stats.setBackupCount(backupCount);
             stats.setHits(hits);
@@ -358,6 +368,7 @@ public class LocalMapStatsProvider {
             stats.setHeapCost(heapCost);
             stats.setLockedEntryCount(lockedEntryCount);
             stats.setDirtyEntryCount(dirtyEntryCount);
+            stats.setHotKeyCount(hotKeyCount);
             stats.setLastAccessTime(lastAccessTime);
             stats.setLastUpdateTime(lastUpdateTime);
             return stats;
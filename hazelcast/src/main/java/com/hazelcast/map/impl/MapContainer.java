@@ -41,6 +41,7 @@ import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.query.impl.getters.Extractors;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.ConstructorFunction;
 import com.hazelcast.util.ExceptionUtil;
@@ -51,9 +52,13 @@ import com.hazelcast.wan.WanReplicationService;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.hazelcast.config.InMemoryFormat.BINARY;
 import static com.hazelcast.config.InMemoryFormat.OBJECT;
 import static com.hazelcast.map.impl.eviction.Evictor.NULL_EVICTOR;
 import static com.hazelcast.map.impl.mapstore.MapStoreContextFactory.createMapStoreContext;
+import static com.hazelcast.spi.properties.GroupProperty.MAP_HOT_KEY_THRESHOLD_PERCENTAGE;
+import static com.hazelcast.spi.properties.GroupProperty.MAP_HOT_KEY_TRACKER_CAPACITY;
+import static com.hazelcast.spi.properties.GroupProperty.MAP_MERKLE_TREE_DEPTH;
 import static java.lang.System.getProperty;
 
 /**
@@ -78,6 +83,10 @@ public class MapContainer {
      * Holds number of registered {@link InvalidationListener} from clients.
      */
     protected final AtomicInteger invalidationListenerCount = new AtomicInteger();
+    protected final int hotKeyTrackerCapacity;
+    protected final int hotKeyThresholdPercentage;
+    protected final boolean hotKeyReadBackupData;
+    protected final int merkleTreeDepth;
 
     protected WanReplicationPublisher wanReplicationPublisher;
     protected MapMergePolicy wanMergePolicy;
@@ -101,6 +110,11 @@ public class MapContainer {
         this.serializationService = nodeEngine.getSerializationService();
         this.recordFactoryConstructor = createRecordFactoryConstructor(serializationService);
         this.queryEntryFactory = new QueryEntryFactory(mapConfig.getCacheDeserializedValues());
+        HazelcastProperties properties = nodeEngine.getProperties();
+        this.hotKeyTrackerCapacity = properties.getInteger(MAP_HOT_KEY_TRACKER_CAPACITY);
+        this.hotKeyThresholdPercentage = properties.getInteger(MAP_HOT_KEY_THRESHOLD_PERCENTAGE);
+        this.hotKeyReadBackupData = hotKeyTrackerCapacity > 0 && mapConfig.isHotKeyReadBackupData();
+        this.merkleTreeDepth = properties.getInteger(MAP_MERKLE_TREE_DEPTH);
         initWanReplication(nodeEngine);
         this.extractors = new Extractors(mapConfig.getMapAttributeConfigs(), config.getClassLoader());
         this.indexes = new Indexes((InternalSerializationService) serializationService, extractors);
@@ -251,6 +265,35 @@ public class MapContainer {
         return evictor;
     }
 
+    /**
+     * Creates the {@link HotKeyTracker} of a partition of this map.
+     *
+     * @return a new {@link HotKeyTracker} or {@code null} if the hot key detection is disabled
+     */
+    public HotKeyTracker createHotKeyTracker() {
+        if (hotKeyTrackerCapacity <= 0) {
+            return null;
+        }
+        return new HotKeyTracker(hotKeyTrackerCapacity, hotKeyThresholdPercentage);
+    }
+
+    public boolean isHotKeyReadBackupData() {
+        return hotKeyReadBackupData;
+    }
+
+    /**
+     * Creates the {@link MerkleTree} of a partition of this map.
+     *
+     * @return a new {@link MerkleTree} or {@code null} if Merkle trees are disabled or not supported
+     * by the in-memory format of this map
+     */
+    public MerkleTree createMerkleTree() {
+        if (merkleTreeDepth <= 0 || mapConfig.getInMemoryFormat() != BINARY) {
+            return null;
+        }
+        return new MerkleTree(merkleTreeDepth);
+    }
+
     // only used for testing purposes
     public void setEvictor(Evictor evictor) {
         this.evictor = evictor;
@@ -28,6 +28,7 @@ import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
 import com.hazelcast.map.impl.nearcache.invalidation.UuidFilter;
 import com.hazelcast.map.impl.operation.*;
 import com.hazelcast.map.impl.query.*;
+import com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta;
 import com.hazelcast.map.impl.querycache.subscriber.operation.*;
 import com.hazelcast.map.impl.record.RecordInfo;
 import com.hazelcast.map.impl.record.RecordReplicationInfo;
@@ -184,8 +185,12 @@ public final class MapDataSerializerHook implements DataSerializerHook {
     public static final int ENTRY_REMOVING_PROCESSOR = 135;
     public static final int ENTRY_OFFLOADABLE_SET_UNLOCK = 136;
     public static final int LOCK_AWARE_LAZY_MAP_ENTRY = 137;
+    public static final int MAP_REPLICA_DIGEST = 138;
+    public static final int MAP_MERKLE_TREE_REPLICATION = 139;
+    public static final int GET_ALL_PARTITION_AWARE_FACTORY = 140;
+    public static final int QUERY_CACHE_VALUE_DELTA = 141;
 
-    private static final int LEN = LOCK_AWARE_LAZY_MAP_ENTRY + 1;
+    private static final int LEN = QUERY_CACHE_VALUE_DELTA + 1;
 
     @Override
     public int getFactoryId() {
@@ -866,6 +871,26 @@ public final class MapDataSerializerHook implements DataSerializerHook {
                 return new LockAwareLazyMapEntry();
             }
         };
+        constructors[MAP_REPLICA_DIGEST] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new MapReplicaDigest();
+            }
+        };
+        constructors[MAP_MERKLE_TREE_REPLICATION] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new MapMerkleTreeReplicationOperation();
+            }
+        };
+        constructors[GET_ALL_PARTITION_AWARE_FACTORY] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new GetAllPartitionAwareOperationFactory();
+            }
+        };
+        constructors[QUERY_CACHE_VALUE_DELTA] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new QueryCacheValueDelta();
+            }
+        };
 
         return new ArrayDataSerializableFactory(constructors);
     }
@@ -17,6 +17,9 @@
 package com.hazelcast.map.impl;
 
 import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataGenerator;
+import com.hazelcast.map.impl.operation.MapMerkleTreeReplicationOperation;
+import com.hazelcast.map.impl.operation.MapReplicaDigest;
+import com.hazelcast.map.impl.operation.MapReplicationChunkIterator;
 import com.hazelcast.map.impl.operation.MapReplicationOperation;
 import com.hazelcast.map.impl.querycache.QueryCacheContext;
 import com.hazelcast.map.impl.querycache.publisher.PublisherContext;
@@ -26,7 +29,8 @@ import com.hazelcast.map.impl.recordstore.RecordStore;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.impl.Indexes;
 import com.hazelcast.query.impl.QueryableEntry;
-import com.hazelcast.spi.MigrationAwareService;
+import com.hazelcast.spi.ChunkedMigrationAwareService;
+import com.hazelcast.spi.DeltaReplicationAwareService;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
@@ -46,7 +50,7 @@ import static com.hazelcast.spi.partition.MigrationEndpoint.SOURCE;
  *
  * @see MapService
  */
-class MapMigrationAwareService implements MigrationAwareService {
+class MapMigrationAwareService implements ChunkedMigrationAwareService, DeltaReplicationAwareService {
 
     protected final MapServiceContext mapServiceContext;
     protected final SerializationService serializationService;
@@ -71,6 +75,29 @@ class MapMigrationAwareService implements MigrationAwareService {
         return operation;
     }
 
+    @Override
+    public Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize) {
+        PartitionContainer container = mapServiceContext.getPartitionContainer(event.getPartitionId());
+        return new MapReplicationChunkIterator(container, event.getReplicaIndex(), maxChunkSize);
+    }
+
+    @Override
+    public Object prepareReplicaDigest(PartitionReplicationEvent event) {
+        return MapReplicaDigest.create(mapServiceContext.getPartitionContainer(event.getPartitionId()));
+    }
+
+    @Override
+    public Operation prepareDeltaReplicationOperation(PartitionReplicationEvent event, Object digest) {
+        int partitionId = event.getPartitionId();
+        PartitionContainer container = mapServiceContext.getPartitionContainer(partitionId);
+
+        MapMerkleTreeReplicationOperation operation = new MapMerkleTreeReplicationOperation(container, partitionId,
+                event.getReplicaIndex(), (MapReplicaDigest) digest);
+        operation.setService(mapServiceContext.getService());
+
+        return operation;
+    }
+
     @Override
     public void commitMigration(PartitionMigrationEvent event) {
         migrateIndex(event);
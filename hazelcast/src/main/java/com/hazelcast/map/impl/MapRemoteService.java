@@ -47,7 +47,7 @@ class MapRemoteService implements RemoteService {
         checkMapConfig(mapConfig);
 
         if (mapConfig.isNearCacheEnabled()) {
-            checkNearCacheConfig(name, mapConfig.getNearCacheConfig(), false);
+            checkNearCacheConfig(name, mapConfig.getNearCacheConfig(), nodeEngine.getConfig().getNativeMemoryConfig(), false);
 
             return new NearCachedMapProxyImpl(name, mapServiceContext.getService(), nodeEngine, mapConfig);
         } else {
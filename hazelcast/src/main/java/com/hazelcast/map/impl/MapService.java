@@ -20,6 +20,7 @@ import com.hazelcast.cluster.ClusterState;
 import com.hazelcast.core.DistributedObject;
 import com.hazelcast.internal.cluster.ClusterStateListener;
 import com.hazelcast.map.impl.event.MapEventPublishingService;
+import com.hazelcast.map.impl.recordstore.RecordStore;
 import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.spi.*;
 import com.hazelcast.spi.impl.CountingMigrationAwareService;
@@ -28,6 +29,7 @@ import com.hazelcast.transaction.TransactionalObject;
 import com.hazelcast.transaction.impl.Transaction;
 import com.hazelcast.wan.WanReplicationEvent;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 
@@ -50,10 +52,11 @@ import static com.hazelcast.core.EntryEventType.INVALIDATION;
  * @see MapClientAwareService
  * @see MapServiceContext
  */
-public class MapService implements ManagedService, MigrationAwareService,
+public class MapService implements ManagedService, ChunkedMigrationAwareService, DeltaReplicationAwareService,
         TransactionalService, RemoteService, EventPublishingService<Object, ListenerAdapter>,
         PostJoinAwareService, SplitBrainHandlerService, ReplicationSupportingService, StatisticsAwareService,
-        PartitionAwareService, ClientAwareService, QuorumAwareService, NotifiableEventListener, ClusterStateListener {
+        PartitionAwareService, ClientAwareService, QuorumAwareService, NotifiableEventListener, ClusterStateListener,
+        PartitionCostAwareService {
 
     public static final String SERVICE_NAME = "hz:impl:mapService";
 
@@ -99,6 +102,21 @@ public class MapService implements ManagedService, MigrationAwareService,
         return migrationAwareService.prepareReplicationOperation(event);
     }
 
+    @Override
+    public Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize) {
+        return migrationAwareService.prepareReplicationChunks(event, maxChunkSize);
+    }
+
+    @Override
+    public Object prepareReplicaDigest(PartitionReplicationEvent event) {
+        return migrationAwareService.prepareReplicaDigest(event);
+    }
+
+    @Override
+    public Operation prepareDeltaReplicationOperation(PartitionReplicationEvent event, Object digest) {
+        return migrationAwareService.prepareDeltaReplicationOperation(event, digest);
+    }
+
     @Override
     public void beforeMigration(PartitionMigrationEvent event) {
         migrationAwareService.beforeMigration(event);
@@ -139,6 +157,15 @@ public class MapService implements ManagedService, MigrationAwareService,
         partitionAwareService.onPartitionLost(partitionLostEvent);
     }
 
+    @Override
+    public long getPartitionMemoryCost(int partitionId) {
+        long cost = 0;
+        for (RecordStore recordStore : mapServiceContext.getPartitionContainer(partitionId).getMaps().values()) {
+            cost += recordStore.getOwnedEntryCost();
+        }
+        return cost;
+    }
+
     @Override
     public Runnable prepareMergeRunnable() {
         return splitBrainHandlerService.prepareMergeRunnable();
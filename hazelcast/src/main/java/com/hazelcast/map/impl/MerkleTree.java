@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl;
+
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * Merkle tree over the entries of a single partition of a map, used to find the entries which differ
+ * between two replicas of the partition without transferring them.
+ * <p>
+ * The tree is a complete binary tree stored in heap order, the root is at index {@code 0} and the children
+ * of the node {@code i} are at {@code 2i+1} and {@code 2i+2}. An entry is hashed into the leaf chosen by its
+ * key, and every node holds the sum of the hashes of the entries below it. Because the hashes are summed,
+ * the tree is maintained incrementally in {@code O(depth)} on every update, independent of the order of the
+ * updates, so two replicas with the same entries always have the same tree.
+ * <p>
+ * The tree is updated on the partition thread. It may also be read by other threads to create a replica
+ * digest, such a digest may not reflect the latest updates which only causes more leaves to be repaired.
+ */
+public final class MerkleTree {
+
+    /**
+     * Maximum depth of a tree, a tree of this depth has {@code 2^MAX_DEPTH} leaves.
+     */
+    public static final int MAX_DEPTH = 20;
+
+    private final int depth;
+    private final int leafCount;
+    private final long[] nodes;
+
+    public MerkleTree(int depth) {
+        checkTrue(depth > 0 && depth <= MAX_DEPTH, "depth should be in the range [1-" + MAX_DEPTH + "]");
+        this.depth = depth;
+        this.leafCount = 1 << depth;
+        this.nodes = new long[2 * leafCount - 1];
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Returns the leaf of the given key.
+     *
+     * @param key the key of an entry
+     * @return the index of the leaf in the range {@code [0, leafCount)}
+     */
+    public int getLeaf(Data key) {
+        // the key hash is correlated with the partition ID, so it's mixed before picking a leaf
+        return (int) MurmurHash3_fmix(key.hash64()) & (leafCount - 1);
+    }
+
+    /**
+     * Adds an entry to the tree.
+     *
+     * @param key   the key of the entry
+     * @param value the serialized value of the entry
+     */
+    public void add(Data key, Object value) {
+        update(getLeaf(key), hash(key, value));
+    }
+
+    /**
+     * Removes an entry from the tree.
+     *
+     * @param key   the key of the entry
+     * @param value the serialized value of the entry, as it has been added
+     */
+    public void remove(Data key, Object value) {
+        update(getLeaf(key), -hash(key, value));
+    }
+
+    /**
+     * Replaces the value of an entry in the tree.
+     *
+     * @param key      the key of the entry
+     * @param oldValue the serialized value which has been added
+     * @param newValue the new serialized value
+     */
+    public void replace(Data key, Object oldValue, Object newValue) {
+        update(getLeaf(key), hash(key, newValue) - hash(key, oldValue));
+    }
+
+    public void clear() {
+        Arrays.fill(nodes, 0L);
+    }
+
+    /**
+     * Returns a copy of all nodes of the tree, which can be compared with another tree by {@link #compare(long[])}.
+     *
+     * @return the nodes in heap order
+     */
+    public long[] getNodes() {
+        return Arrays.copyOf(nodes, nodes.length);
+    }
+
+    /**
+     * Compares this tree with the nodes of another tree, descending only into the subtrees which differ.
+     *
+     * @param otherNodes the nodes of the other tree, see {@link #getNodes()}
+     * @return the indexes of the leaves which differ in ascending order, or {@code null} if the other tree has
+     * a different depth
+     */
+    public int[] compare(long[] otherNodes) {
+        if (otherNodes.length != nodes.length) {
+            return null;
+        }
+
+        int[] leaves = new int[leafCount];
+        int count = 0;
+        int firstLeafNode = leafCount - 1;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodes[node] == otherNodes[node]) {
+                continue;
+            }
+            if (node >= firstLeafNode) {
+                leaves[count++] = node - firstLeafNode;
+            } else {
+                // the right child is pushed first, so the leaves are found in ascending order
+                stack[top++] = 2 * node + 2;
+                stack[top++] = 2 * node + 1;
+            }
+        }
+        return Arrays.copyOf(leaves, count);
+    }
+
+    /**
+     * Returns the given leaves as a set which can be efficiently tested for every entry.
+     *
+     * @param leaves the indexes of leaves as returned by {@link #compare(long[])}
+     * @return the set of leaves
+     */
+    public BitSet toLeafSet(int[] leaves) {
+        BitSet leafSet = new BitSet(leafCount);
+        for (int leaf : leaves) {
+            leafSet.set(leaf);
+        }
+        return leafSet;
+    }
+
+    private void update(int leaf, long delta) {
+        int node = leafCount - 1 + leaf;
+        while (true) {
+            nodes[node] += delta;
+            if (node == 0) {
+                return;
+            }
+            node = (node - 1) >> 1;
+        }
+    }
+
+    private static long hash(Data key, Object value) {
+        long valueHash = value instanceof Data ? ((Data) value).hash64() : 0;
+        return MurmurHash3_fmix(key.hash64() * 31 + valueHash);
+    }
+}
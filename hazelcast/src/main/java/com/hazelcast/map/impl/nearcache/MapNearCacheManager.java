@@ -53,7 +53,8 @@ public class MapNearCacheManager extends DefaultNearCacheManager {
 
     public MapNearCacheManager(MapServiceContext mapServiceContext) {
         super(mapServiceContext.getNodeEngine().getSerializationService(),
-                mapServiceContext.getNodeEngine().getExecutionService().getGlobalTaskScheduler(), null);
+                mapServiceContext.getNodeEngine().getExecutionService().getGlobalTaskScheduler(), null,
+                mapServiceContext.getNodeEngine().getConfig().getNativeMemoryConfig());
         this.nodeEngine = mapServiceContext.getNodeEngine();
         this.mapServiceContext = mapServiceContext;
         this.partitionService = new MemberMinimalPartitionService(nodeEngine.getPartitionService());
@@ -66,10 +67,12 @@ public class MapNearCacheManager extends DefaultNearCacheManager {
         HazelcastProperties hazelcastProperties = nodeEngine.getProperties();
         int batchSize = hazelcastProperties.getInteger(MAP_INVALIDATION_MESSAGE_BATCH_SIZE);
         int batchFrequencySeconds = hazelcastProperties.getInteger(MAP_INVALIDATION_MESSAGE_BATCH_FREQUENCY_SECONDS);
+        int rangeInvalidationThreshold = hazelcastProperties.getInteger(MAP_INVALIDATION_RANGE_THRESHOLD);
         boolean batchingEnabled = hazelcastProperties.getBoolean(MAP_INVALIDATION_MESSAGE_BATCH_ENABLED) && batchSize > 1;
 
         if (batchingEnabled) {
-            return new BatchInvalidator(SERVICE_NAME, batchSize, batchFrequencySeconds, INVALIDATION_ACCEPTOR, nodeEngine);
+            return new BatchInvalidator(SERVICE_NAME, batchSize, batchFrequencySeconds, rangeInvalidationThreshold,
+                    INVALIDATION_ACCEPTOR, nodeEngine);
         } else {
             return new NonStopInvalidator(SERVICE_NAME, INVALIDATION_ACCEPTOR, nodeEngine);
         }
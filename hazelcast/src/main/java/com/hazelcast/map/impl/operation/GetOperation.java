@@ -18,6 +18,7 @@ package com.hazelcast.map.impl.operation;
 
 import com.hazelcast.concurrent.lock.LockWaitNotifyKey;
 import com.hazelcast.core.OperationTimeoutException;
+import com.hazelcast.map.impl.HotKeyTracker;
 import com.hazelcast.map.impl.MapDataSerializerHook;
 import com.hazelcast.map.impl.MapService;
 import com.hazelcast.nio.serialization.Data;
@@ -41,6 +42,11 @@ public final class GetOperation extends ReadonlyKeyBasedMapOperation implements
     @Override
     public void run() {
         result = mapServiceContext.toData(recordStore.get(dataKey, false));
+
+        HotKeyTracker hotKeyTracker = recordStore.getHotKeyTracker();
+        if (hotKeyTracker != null) {
+            hotKeyTracker.onRead(dataKey);
+        }
     }
 
     @Override
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.operation;
+
+import com.hazelcast.map.impl.MapDataSerializerHook;
+import com.hazelcast.map.impl.MerkleTree;
+import com.hazelcast.map.impl.PartitionContainer;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replicates only the IMap records which differ between the partition owner and a backup replica,
+ * found by comparing the {@link MerkleTree}s of the replicas.
+ * <p>
+ * The records of the differing leaves are removed from the backup replica before the records of the owner
+ * are applied. Record stores without a {@link MerkleTree} on both replicas are replicated completely.
+ *
+ * @see MapReplicaDigest
+ */
+public class MapMerkleTreeReplicationOperation extends MapReplicationOperation {
+
+    private Map<String, int[]> divergentLeaves;
+
+    public MapMerkleTreeReplicationOperation() {
+    }
+
+    public MapMerkleTreeReplicationOperation(PartitionContainer container, int partitionId, int replicaIndex,
+                                             MapReplicaDigest digest) {
+        super(container, partitionId, replicaIndex, true);
+
+        divergentLeaves = new HashMap<String, int[]>();
+        mapReplicationStateHolder.prepare(container, replicaIndex, digest, divergentLeaves);
+    }
+
+    @Override
+    public void run() {
+        for (Map.Entry<String, int[]> entry : divergentLeaves.entrySet()) {
+            getRecordStore(entry.getKey()).removeMerkleTreeLeaves(entry.getValue());
+        }
+        super.run();
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeInt(divergentLeaves.size());
+        for (Map.Entry<String, int[]> entry : divergentLeaves.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeIntArray(entry.getValue());
+        }
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        int size = in.readInt();
+        divergentLeaves = new HashMap<String, int[]>(size);
+        for (int i = 0; i < size; i++) {
+            divergentLeaves.put(in.readUTF(), in.readIntArray());
+        }
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.MAP_MERKLE_TREE_REPLICATION;
+    }
+}
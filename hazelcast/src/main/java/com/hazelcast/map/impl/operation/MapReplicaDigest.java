@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.operation;
+
+import com.hazelcast.map.impl.MapDataSerializerHook;
+import com.hazelcast.map.impl.MerkleTree;
+import com.hazelcast.map.impl.PartitionContainer;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Digest of the maps of a backup replica of a partition, holds the {@link MerkleTree} nodes of every map.
+ * It's sent to the partition owner with a replica sync request to replicate only the differing entries.
+ *
+ * @see MapMerkleTreeReplicationOperation
+ */
+public class MapReplicaDigest implements IdentifiedDataSerializable {
+
+    private Map<String, long[]> merkleTreeNodes;
+
+    public MapReplicaDigest() {
+    }
+
+    public MapReplicaDigest(Map<String, long[]> merkleTreeNodes) {
+        this.merkleTreeNodes = merkleTreeNodes;
+    }
+
+    /**
+     * Creates the digest of the given partition.
+     *
+     * @param container the partition container of the backup replica
+     * @return the digest or {@code null} if no map of the partition maintains a {@link MerkleTree}
+     */
+    public static MapReplicaDigest create(PartitionContainer container) {
+        Map<String, long[]> merkleTreeNodes = null;
+        for (Map.Entry<String, RecordStore> entry : container.getMaps().entrySet()) {
+            MerkleTree merkleTree = entry.getValue().getMerkleTree();
+            if (merkleTree == null) {
+                continue;
+            }
+            if (merkleTreeNodes == null) {
+                merkleTreeNodes = new HashMap<String, long[]>();
+            }
+            merkleTreeNodes.put(entry.getKey(), merkleTree.getNodes());
+        }
+        return merkleTreeNodes != null ? new MapReplicaDigest(merkleTreeNodes) : null;
+    }
+
+    /**
+     * Returns the {@link MerkleTree} nodes of the given map on the backup replica.
+     *
+     * @param mapName name of the map
+     * @return the nodes or {@code null} if the backup replica doesn't have a tree for the map
+     */
+    public long[] getMerkleTreeNodes(String mapName) {
+        return merkleTreeNodes.get(mapName);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(merkleTreeNodes.size());
+        for (Map.Entry<String, long[]> entry : merkleTreeNodes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLongArray(entry.getValue());
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        merkleTreeNodes = new HashMap<String, long[]>(size);
+        for (int i = 0; i < size; i++) {
+            merkleTreeNodes.put(in.readUTF(), in.readLongArray());
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.MAP_REPLICA_DIGEST;
+    }
+}
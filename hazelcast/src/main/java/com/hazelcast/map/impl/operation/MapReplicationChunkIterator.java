@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.operation;
+
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.PartitionContainer;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.record.RecordReplicationInfo;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.Operation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Replicates all IMap-states of a partition as a sequence of {@link MapReplicationOperation} chunks.
+ * <p>
+ * The first chunk resets all replicated record stores on the destination and carries the write-behind and
+ * Near Cache states, the records are distributed over the chunks by their estimated serialized size.
+ *
+ * @see com.hazelcast.spi.ChunkedMigrationAwareService
+ */
+public class MapReplicationChunkIterator implements Iterator<Operation> {
+
+    /**
+     * Estimated serialized size of the metadata of a replicated record.
+     */
+    private static final int RECORD_INFO_SIZE = 64;
+
+    private final PartitionContainer container;
+    private final int replicaIndex;
+    private final int maxChunkSize;
+    private final List<RecordStore> recordStores;
+    private final Iterator<RecordStore> recordStoreIterator;
+
+    private boolean firstChunk = true;
+    private RecordStore recordStore;
+    private Iterator<Record> recordIterator;
+    // prefetched next record of the current record store
+    private Record nextRecord;
+
+    public MapReplicationChunkIterator(PartitionContainer container, int replicaIndex, int maxChunkSize) {
+        this.container = container;
+        this.replicaIndex = replicaIndex;
+        this.maxChunkSize = maxChunkSize;
+        this.recordStores = new ArrayList<RecordStore>(container.getMaps().size());
+        for (RecordStore store : container.getMaps().values()) {
+            if (store.getMapContainer().getMapConfig().getTotalBackupCount() >= replicaIndex) {
+                recordStores.add(store);
+            }
+        }
+        this.recordStoreIterator = recordStores.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return firstChunk || hasNextRecord();
+    }
+
+    @Override
+    public Operation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        int partitionId = container.getPartitionId();
+        MapReplicationOperation operation = new MapReplicationOperation(container, partitionId, replicaIndex, firstChunk);
+        operation.setService(container.getMapService());
+
+        Map<String, Set<RecordReplicationInfo>> data = new HashMap<String, Set<RecordReplicationInfo>>();
+        Map<String, Boolean> loaded = new HashMap<String, Boolean>();
+        if (firstChunk) {
+            for (RecordStore store : recordStores) {
+                String mapName = store.getName();
+                data.put(mapName, new HashSet<RecordReplicationInfo>());
+                loaded.put(mapName, store.isLoaded());
+            }
+            firstChunk = false;
+        }
+
+        MapServiceContext mapServiceContext = container.getMapService().getMapServiceContext();
+        int chunkSize = 0;
+        while (chunkSize < maxChunkSize && hasNextRecord()) {
+            Record record = nextRecord;
+            nextRecord = null;
+            RecordReplicationInfo replicationInfo
+                    = operation.createRecordReplicationInfo(record.getKey(), record, mapServiceContext);
+
+            Set<RecordReplicationInfo> replicationInfos = data.get(recordStore.getName());
+            if (replicationInfos == null) {
+                replicationInfos = new HashSet<RecordReplicationInfo>();
+                data.put(recordStore.getName(), replicationInfos);
+            }
+            replicationInfos.add(replicationInfo);
+            chunkSize += estimateSize(replicationInfo);
+        }
+
+        operation.mapReplicationStateHolder.data = data;
+        operation.mapReplicationStateHolder.loaded = loaded;
+        return operation;
+    }
+
+    private boolean hasNextRecord() {
+        while (nextRecord == null) {
+            if (recordIterator != null && recordIterator.hasNext()) {
+                nextRecord = recordIterator.next();
+            } else if (recordStoreIterator.hasNext()) {
+                recordStore = recordStoreIterator.next();
+                recordIterator = recordStore.iterator();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int estimateSize(RecordReplicationInfo replicationInfo) {
+        Data value = replicationInfo.getValue();
+        return replicationInfo.getKey().totalSize() + (value != null ? value.totalSize() : 0) + RECORD_INFO_SIZE;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
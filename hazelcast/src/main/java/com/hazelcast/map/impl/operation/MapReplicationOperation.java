@@ -56,6 +56,21 @@ public class MapReplicationOperation extends Operation implements MutatingOperat
         mapNearCacheStateHolder.prepare(container, replicaIndex);
     }
 
+    /**
+     * Creates a replication chunk without records, they are added by the {@link MapReplicationChunkIterator}.
+     * Only the first chunk carries the write-behind and Near Cache states.
+     *
+     * @see MapReplicationChunkIterator
+     */
+    MapReplicationOperation(PartitionContainer container, int partitionId, int replicaIndex, boolean firstChunk) {
+        setPartitionId(partitionId).setReplicaIndex(replicaIndex);
+
+        if (firstChunk) {
+            writeBehindStateHolder.prepare(container, replicaIndex);
+            mapNearCacheStateHolder.prepare(container, replicaIndex);
+        }
+    }
+
     @Override
     public void run() {
         mapReplicationStateHolder.applyState();
@@ -20,6 +20,7 @@ import com.hazelcast.config.MapConfig;
 import com.hazelcast.map.impl.MapContainer;
 import com.hazelcast.map.impl.MapDataSerializerHook;
 import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.MerkleTree;
 import com.hazelcast.map.impl.PartitionContainer;
 import com.hazelcast.map.impl.record.Record;
 import com.hazelcast.map.impl.record.RecordReplicationInfo;
@@ -60,6 +61,20 @@ public class MapReplicationStateHolder implements IdentifiedDataSerializable {
     }
 
     void prepare(PartitionContainer container, int replicaIndex) {
+        prepare(container, replicaIndex, null, null);
+    }
+
+    /**
+     * Prepares the records which differ from the given digest of a backup replica. The record stores which
+     * don't have a {@link MerkleTree} on both replicas are prepared completely, the record stores with equal
+     * trees are skipped, and the remaining ones contain only the records of the differing leaves, which are
+     * put into the given {@code divergentLeaves} map.
+     *
+     * @param digest          the digest of the backup replica or {@code null} to prepare all records
+     * @param divergentLeaves output map of the differing leaves of every partially prepared record store
+     */
+    void prepare(PartitionContainer container, int replicaIndex, MapReplicaDigest digest,
+                 Map<String, int[]> divergentLeaves) {
         data = new HashMap<String, Set<RecordReplicationInfo>>(container.getMaps().size());
         loaded = new HashMap<String, Boolean>(container.getMaps().size());
         for (Map.Entry<String, RecordStore> entry : container.getMaps().entrySet()) {
@@ -70,21 +85,36 @@ public class MapReplicationStateHolder implements IdentifiedDataSerializable {
             if (mapConfig.getTotalBackupCount() < replicaIndex) {
                 continue;
             }
-            MapServiceContext mapServiceContext = mapContainer.getMapServiceContext();
             String mapName = entry.getKey();
-            loaded.put(mapName, recordStore.isLoaded());
-            // now prepare data to migrate records
-            Set<RecordReplicationInfo> recordSet = new HashSet<RecordReplicationInfo>(recordStore.size());
-            final Iterator<Record> iterator = recordStore.iterator();
-            while (iterator.hasNext()) {
-                Record record = iterator.next();
-                Data key = record.getKey();
-                RecordReplicationInfo recordReplicationInfo
-                        = mapReplicationOperation.createRecordReplicationInfo(key, record, mapServiceContext);
-                recordSet.add(recordReplicationInfo);
+            MerkleTree merkleTree = recordStore.getMerkleTree();
+            long[] replicaNodes = digest != null && merkleTree != null ? digest.getMerkleTreeNodes(mapName) : null;
+            int[] leaves = replicaNodes != null ? merkleTree.compare(replicaNodes) : null;
+            if (leaves == null) {
+                loaded.put(mapName, recordStore.isLoaded());
+                data.put(mapName, prepareRecords(recordStore, null, null));
+            } else if (leaves.length > 0) {
+                divergentLeaves.put(mapName, leaves);
+                data.put(mapName, prepareRecords(recordStore, merkleTree, merkleTree.toLeafSet(leaves)));
+            }
+        }
+    }
+
+    private Set<RecordReplicationInfo> prepareRecords(RecordStore recordStore, MerkleTree merkleTree, BitSet leafSet) {
+        MapServiceContext mapServiceContext = recordStore.getMapContainer().getMapServiceContext();
+        // now prepare data to migrate records
+        Set<RecordReplicationInfo> recordSet = new HashSet<RecordReplicationInfo>(leafSet == null ? recordStore.size() : 0);
+        final Iterator<Record> iterator = recordStore.iterator();
+        while (iterator.hasNext()) {
+            Record record = iterator.next();
+            Data key = record.getKey();
+            if (leafSet != null && !leafSet.get(merkleTree.getLeaf(key))) {
+                continue;
             }
-            data.put(mapName, recordSet);
+            RecordReplicationInfo recordReplicationInfo
+                    = mapReplicationOperation.createRecordReplicationInfo(key, record, mapServiceContext);
+            recordSet.add(recordReplicationInfo);
         }
+        return recordSet;
     }
 
     void applyState() {
@@ -93,8 +123,12 @@ public class MapReplicationStateHolder implements IdentifiedDataSerializable {
                 Set<RecordReplicationInfo> recordReplicationInfos = dataEntry.getValue();
                 final String mapName = dataEntry.getKey();
                 RecordStore recordStore = mapReplicationOperation.getRecordStore(mapName);
-                recordStore.reset();
-                recordStore.setPreMigrationLoadedStatus(loaded.get(mapName));
+                // a record store is reset only by the first replication chunk containing it, see MapReplicationChunkIterator
+                Boolean preMigrationLoaded = loaded.get(mapName);
+                if (preMigrationLoaded != null) {
+                    recordStore.reset();
+                    recordStore.setPreMigrationLoadedStatus(preMigrationLoaded);
+                }
 
                 for (RecordReplicationInfo recordReplicationInfo : recordReplicationInfos) {
                     Data key = recordReplicationInfo.getKey();
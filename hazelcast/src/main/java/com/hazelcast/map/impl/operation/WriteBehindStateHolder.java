@@ -31,18 +31,20 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import java.io.IOException;
 import java.util.*;
 
+import static java.util.Collections.emptyMap;
+
 /**
  * Holder for write-behind-specific state.
  */
 public class WriteBehindStateHolder implements IdentifiedDataSerializable {
 
     private MapReplicationOperation mapReplicationOperation;
-    private Map<String, List<DelayedEntry>> delayedEntries;
+    private Map<String, List<DelayedEntry>> delayedEntries = emptyMap();
 
     /**
      * @see WriteBehindStore#flushSequences
      */
-    private Map<String, Queue<WriteBehindStore.Sequence>> flushSequences;
+    private Map<String, Queue<WriteBehindStore.Sequence>> flushSequences = emptyMap();
 
     /**
      * This constructor exists solely for instantiation by {@code MapDataSerializerHook}. The object is not ready to use
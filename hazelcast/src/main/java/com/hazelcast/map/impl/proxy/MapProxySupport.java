@@ -136,6 +136,7 @@ abstract class MapProxySupport<K, V>
 
     private final int putAllBatchSize;
     private final float putAllInitialSizeFactor;
+    private final boolean hotKeyReadBackupData;
 
     protected MapProxySupport(String name, MapService service, NodeEngine nodeEngine, MapConfig mapConfig) {
         super(nodeEngine, service);
@@ -159,6 +160,7 @@ abstract class MapProxySupport<K, V>
 
         this.putAllBatchSize = properties.getInteger(MAP_PUT_ALL_BATCH_SIZE);
         this.putAllInitialSizeFactor = properties.getFloat(MAP_PUT_ALL_INITIAL_SIZE_FACTOR);
+        this.hotKeyReadBackupData = mapServiceContext.getMapContainer(name).isHotKeyReadBackupData();
     }
 
     @Override
@@ -283,12 +285,41 @@ abstract class MapProxySupport<K, V>
             if (fromBackup != null) {
                 return fromBackup;
             }
+        } else if (hotKeyReadBackupData) {
+            Object fromBackup = readHotKeyFromBackupOrNull(key);
+            if (fromBackup != null) {
+                return fromBackup;
+            }
         }
         MapOperation operation = operationProvider.createGetOperation(name, key);
         operation.setThreadId(getThreadId());
         return invokeOperation(key, operation);
     }
 
+    /**
+     * Reads a hot key from the local backup replica of its partition. The reads of the keys of the backup
+     * replica are tracked on this member, so the hot keys are known without asking the partition owner.
+     * Like with read-backup-data, the value may be stale when the backup lags behind the owner.
+     */
+    private Data readHotKeyFromBackupOrNull(Data key) {
+        int partitionId = partitionService.getPartitionId(key);
+        IPartition partition = partitionService.getPartition(partitionId, false);
+        if (partition.isLocal() || !partition.isOwnerOrBackup(thisAddress)) {
+            return null;
+        }
+        PartitionContainer partitionContainer = mapServiceContext.getPartitionContainer(partitionId);
+        RecordStore recordStore = partitionContainer.getExistingRecordStore(name);
+        if (recordStore == null) {
+            return null;
+        }
+        HotKeyTracker hotKeyTracker = recordStore.getHotKeyTracker();
+        hotKeyTracker.onRead(key);
+        if (!hotKeyTracker.isHot(key)) {
+            return null;
+        }
+        return recordStore.readBackupData(key);
+    }
+
     private Data readBackupDataOrNull(Data key) {
         int partitionId = partitionService.getPartitionId(key);
         IPartition partition = partitionService.getPartition(partitionId, false);
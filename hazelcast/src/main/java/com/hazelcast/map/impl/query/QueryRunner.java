@@ -28,9 +28,12 @@ import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.query.impl.predicates.QueryOptimizer;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.OperationService;
+import com.hazelcast.spi.partition.IPartitionService;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -155,6 +158,40 @@ public class QueryRunner {
         return null;
     }
 
+    /**
+     * Runs the query on a single partition owned by this member, using an index if possible. An index covers all
+     * partitions of this member, so the entries found by the index are filtered to the given partition.
+     * Must be called on the partition thread of the given partition, so the partition can't migrate meanwhile.
+     */
+    Result runIndexOrPartitionScanQueryOnGivenOwnedPartition(Query query, int partitionId)
+            throws ExecutionException, InterruptedException {
+        MapContainer mapContainer = mapServiceContext.getMapContainer(query.getMapName());
+        Predicate predicate = queryOptimizer.optimize(query.getPredicate(), mapContainer.getIndexes());
+
+        Collection<QueryableEntry> entries = null;
+        if (mapContainer.getIndexes().hasIndex()) {
+            Collection<QueryableEntry> indexedEntries = runUsingIndexSafely(predicate, mapContainer, getMigrationStamp());
+            if (indexedEntries != null) {
+                entries = filterPartition(indexedEntries, partitionId);
+            }
+        }
+        if (entries == null) {
+            entries = partitionScanExecutor.execute(query.getMapName(), predicate, Collections.singletonList(partitionId));
+        }
+        return populateTheResult(query, entries, Collections.singletonList(partitionId));
+    }
+
+    private Collection<QueryableEntry> filterPartition(Collection<QueryableEntry> entries, int partitionId) {
+        IPartitionService partitionService = nodeEngine.getPartitionService();
+        List<QueryableEntry> partitionEntries = new ArrayList<QueryableEntry>();
+        for (QueryableEntry entry : entries) {
+            if (partitionService.getPartitionId(entry.getKeyData()) == partitionId) {
+                partitionEntries.add(entry);
+            }
+        }
+        return partitionEntries;
+    }
+
     Result runPartitionScanQueryOnGivenOwnedPartition(Query query, int partitionId)
             throws ExecutionException, InterruptedException {
         MapContainer mapContainer = mapServiceContext.getMapContainer(query.getMapName());
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.querycache.event;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.hazelcast.core.EntryEventType.UPDATED;
+import static com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta.DELTA_UPDATED_EVENT_TYPE;
+
+/**
+ * Replaces the new values of the {@link com.hazelcast.core.EntryEventType#UPDATED UPDATED} events sent to query
+ * caches by {@link QueryCacheValueDelta}s to their old values, when a delta is smaller than the new value.
+ * <p/>
+ * The events are kept by the publisher accumulators until they are consumed, so they are never modified but copied.
+ *
+ * @see com.hazelcast.spi.properties.GroupProperty#QUERY_CACHE_DELTA_ENCODING_ENABLED
+ */
+public class QueryCacheDeltaEncoder {
+
+    private final SerializationService serializationService;
+
+    public QueryCacheDeltaEncoder(SerializationService serializationService) {
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Encodes a {@link QueryCacheEventData} or the events of a {@link BatchEventData}.
+     *
+     * @return the encoded event data, or the given event data if none of its events was encoded
+     */
+    public Object encode(Object eventData) {
+        if (eventData instanceof BatchEventData) {
+            return encodeBatch((BatchEventData) eventData);
+        }
+        if (eventData instanceof DefaultQueryCacheEventData) {
+            return encodeEvent((DefaultQueryCacheEventData) eventData);
+        }
+        return eventData;
+    }
+
+    private BatchEventData encodeBatch(BatchEventData batch) {
+        Collection<QueryCacheEventData> events = batch.getEvents();
+        List<QueryCacheEventData> encodedEvents = new ArrayList<QueryCacheEventData>(events.size());
+        boolean encoded = false;
+        for (QueryCacheEventData event : events) {
+            QueryCacheEventData encodedEvent = event;
+            if (event instanceof DefaultQueryCacheEventData) {
+                encodedEvent = encodeEvent((DefaultQueryCacheEventData) event);
+                encoded |= encodedEvent != event;
+            }
+            encodedEvents.add(encodedEvent);
+        }
+        return encoded ? new BatchEventData(encodedEvents, batch.getSource(), batch.getPartitionId()) : batch;
+    }
+
+    private QueryCacheEventData encodeEvent(DefaultQueryCacheEventData event) {
+        Data dataOldValue = event.getDataOldValue();
+        Data dataNewValue = event.getDataNewValue();
+        if (event.getEventType() != UPDATED.getType() || dataOldValue == null || dataNewValue == null) {
+            return event;
+        }
+
+        QueryCacheValueDelta delta = QueryCacheValueDelta.diff(dataOldValue, dataNewValue);
+        if (delta == null) {
+            return event;
+        }
+
+        DefaultQueryCacheEventData encodedEvent = new DefaultQueryCacheEventData(event);
+        encodedEvent.setValue(null);
+        encodedEvent.setDataNewValue(serializationService.toData(delta));
+        encodedEvent.setEventType(DELTA_UPDATED_EVENT_TYPE);
+        return encodedEvent;
+    }
+}
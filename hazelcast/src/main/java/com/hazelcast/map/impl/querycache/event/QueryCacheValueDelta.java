@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.querycache.event;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.map.impl.MapDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+
+import static com.hazelcast.core.EntryEventType.UPDATED;
+import static com.hazelcast.util.HashUtil.MurmurHash3_x86_32;
+
+/**
+ * Binary difference between the serialized old and new value of an entry, which is sent to a
+ * {@link com.hazelcast.map.QueryCache QueryCache} instead of the new value.
+ * <p/>
+ * The new value consists of the bytes which the old value starts with, the changed bytes and the bytes which the old
+ * value ends with. So a delta only carries the changed bytes, which makes it much smaller than the value when a small
+ * part of a wide value changes. The length and the hash of the old value are carried along, so a delta which is
+ * applied to another value than it was computed from is detected.
+ */
+public class QueryCacheValueDelta implements IdentifiedDataSerializable {
+
+    /**
+     * Type of an {@link com.hazelcast.core.EntryEventType#UPDATED UPDATED} event whose new value is a
+     * {@link QueryCacheValueDelta}.
+     */
+    public static final int DELTA_UPDATED_EVENT_TYPE = UPDATED.getType() | 1 << 30;
+
+    /**
+     * Upper bound of the serialized size of a delta without its changed bytes: the header of the serialized
+     * object and the four ints and the array length written by {@link #writeData(ObjectDataOutput)}.
+     */
+    private static final int SERIALIZED_OVERHEAD = 40;
+
+    private int baseLength;
+    private int baseHash;
+    private int prefixLength;
+    private int suffixLength;
+    private byte[] changedBytes;
+
+    public QueryCacheValueDelta() {
+    }
+
+    private QueryCacheValueDelta(byte[] base, int prefixLength, int suffixLength, byte[] changedBytes) {
+        this.baseLength = base.length;
+        this.baseHash = MurmurHash3_x86_32(base, 0, base.length);
+        this.prefixLength = prefixLength;
+        this.suffixLength = suffixLength;
+        this.changedBytes = changedBytes;
+    }
+
+    /**
+     * Computes the delta which turns the old value into the new value.
+     *
+     * @return the delta, or {@code null} if the serialized delta would not be smaller than the new value
+     */
+    public static QueryCacheValueDelta diff(Data oldValue, Data newValue) {
+        byte[] base = oldValue.toByteArray();
+        byte[] target = newValue.toByteArray();
+        int maxCommonLength = Math.min(base.length, target.length);
+
+        int prefixLength = 0;
+        while (prefixLength < maxCommonLength && base[prefixLength] == target[prefixLength]) {
+            prefixLength++;
+        }
+        int suffixLength = 0;
+        while (suffixLength < maxCommonLength - prefixLength
+                && base[base.length - 1 - suffixLength] == target[target.length - 1 - suffixLength]) {
+            suffixLength++;
+        }
+
+        int changedLength = target.length - prefixLength - suffixLength;
+        if (changedLength + SERIALIZED_OVERHEAD >= target.length) {
+            return null;
+        }
+        byte[] changedBytes = new byte[changedLength];
+        System.arraycopy(target, prefixLength, changedBytes, 0, changedLength);
+        return new QueryCacheValueDelta(base, prefixLength, suffixLength, changedBytes);
+    }
+
+    /**
+     * Applies this delta to the old value it was computed from.
+     *
+     * @return the new value, or {@code null} if the given value is not the old value of this delta
+     */
+    public Data apply(Data oldValue) {
+        byte[] base = oldValue.toByteArray();
+        if (base == null || base.length != baseLength || MurmurHash3_x86_32(base, 0, base.length) != baseHash) {
+            return null;
+        }
+
+        byte[] target = new byte[prefixLength + changedBytes.length + suffixLength];
+        System.arraycopy(base, 0, target, 0, prefixLength);
+        System.arraycopy(changedBytes, 0, target, prefixLength, changedBytes.length);
+        System.arraycopy(base, base.length - suffixLength, target, target.length - suffixLength, suffixLength);
+        return new HeapData(target);
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.QUERY_CACHE_VALUE_DELTA;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(baseLength);
+        out.writeInt(baseHash);
+        out.writeInt(prefixLength);
+        out.writeInt(suffixLength);
+        out.writeByteArray(changedBytes);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        baseLength = in.readInt();
+        baseHash = in.readInt();
+        prefixLength = in.readInt();
+        suffixLength = in.readInt();
+        changedBytes = in.readByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheValueDelta{"
+                + "baseLength=" + baseLength
+                + ", prefixLength=" + prefixLength
+                + ", suffixLength=" + suffixLength
+                + ", changedLength=" + changedBytes.length
+                + '}';
+    }
+}
@@ -22,6 +22,7 @@ import com.hazelcast.map.impl.querycache.accumulator.AccumulatorInfo;
 import com.hazelcast.map.impl.querycache.accumulator.AccumulatorProcessor;
 import com.hazelcast.map.impl.querycache.accumulator.BasicAccumulator;
 import com.hazelcast.map.impl.querycache.event.BatchEventData;
+import com.hazelcast.map.impl.querycache.event.DefaultQueryCacheEventData;
 import com.hazelcast.map.impl.querycache.event.QueryCacheEventData;
 import com.hazelcast.map.impl.querycache.event.sequence.Sequenced;
 import com.hazelcast.nio.serialization.Data;
@@ -30,6 +31,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.hazelcast.core.EntryEventType.UPDATED;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -66,6 +68,7 @@ class CoalescingPublisherAccumulator extends BasicAccumulator<QueryCacheEventDat
         Long sequence = index.get(dataKey);
         if (sequence != null) {
             eventData.setSequence(sequence);
+            rebaseOnReplacedEvent(eventData, getBuffer().get(sequence));
         } else {
             long nextSequence = partitionSequencer.nextSequence();
             eventData.setSequence(nextSequence);
@@ -78,6 +81,19 @@ class CoalescingPublisherAccumulator extends BasicAccumulator<QueryCacheEventDat
         }
     }
 
+    /**
+     * The subscribers never receive the replaced event, so they still hold the old value of the replaced event.
+     * That one becomes the old value of the coalesced event, which the event may be delta encoded against.
+     */
+    private static void rebaseOnReplacedEvent(QueryCacheEventData eventData, QueryCacheEventData replacedEvent) {
+        if (!(eventData instanceof DefaultQueryCacheEventData) || replacedEvent == null) {
+            return;
+        }
+        // only the old value of an UPDATED event is known to be held by the subscribers
+        Data dataOldValue = replacedEvent.getEventType() == UPDATED.getType() ? replacedEvent.getDataOldValue() : null;
+        ((DefaultQueryCacheEventData) eventData).setDataOldValue(dataOldValue);
+    }
+
     @Override
     protected AccumulatorProcessor<Sequenced> createAccumulatorProcessor(AccumulatorInfo info,
                                                                          QueryCacheEventService eventService) {
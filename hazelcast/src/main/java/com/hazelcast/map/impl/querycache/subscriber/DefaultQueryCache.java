@@ -93,6 +93,15 @@ class DefaultQueryCache<K, V> extends AbstractInternalQueryCache<K, V> {
         }
     }
 
+    @Override
+    public Data getDataValueOrNull(Data keyData) {
+        QueryCacheRecord record = recordStore.get(keyData);
+        if (record == null) {
+            return null;
+        }
+        return serializationService.toData(record.getValue());
+    }
+
     @Override
     public void clearInternal(EntryEventType eventType) {
         int removedCount = recordStore.clear();
@@ -19,6 +19,7 @@ package com.hazelcast.map.impl.querycache.subscriber;
 import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.IMap;
 import com.hazelcast.map.QueryCache;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.impl.Indexes;
 
 /**
@@ -35,6 +36,15 @@ public interface InternalQueryCache<K, V> extends QueryCache<K, V> {
 
     void clearInternal(EntryEventType eventType);
 
+    /**
+     * Returns the value of the key held by this query cache in serialized form, without falling back to the
+     * underlying {@code IMap}.
+     *
+     * @param keyData the key in serialized form
+     * @return the value in serialized form, or {@code null} if this query cache does not hold a value of the key
+     */
+    Data getDataValueOrNull(Data keyData);
+
     IMap<K, V> getDelegate();
 
     Indexes getIndexes();
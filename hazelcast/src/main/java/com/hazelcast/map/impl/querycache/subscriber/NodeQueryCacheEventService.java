@@ -27,6 +27,7 @@ import com.hazelcast.map.impl.event.EventData;
 import com.hazelcast.map.impl.querycache.QueryCacheEventService;
 import com.hazelcast.map.impl.querycache.QueryCacheListenerAdapter;
 import com.hazelcast.map.impl.querycache.event.LocalCacheWideEventData;
+import com.hazelcast.map.impl.querycache.event.QueryCacheDeltaEncoder;
 import com.hazelcast.map.impl.querycache.event.LocalEntryEventData;
 import com.hazelcast.map.listener.MapListener;
 import com.hazelcast.nio.serialization.Data;
@@ -45,6 +46,7 @@ import java.util.Collection;
 
 import static com.hazelcast.map.impl.querycache.ListenerRegistrationHelper.generateListenerName;
 import static com.hazelcast.map.impl.querycache.subscriber.QueryCacheEventListenerAdapters.createQueryCacheListenerAdaptor;
+import static com.hazelcast.spi.properties.GroupProperty.QUERY_CACHE_DELTA_ENCODING_ENABLED;
 import static com.hazelcast.util.Preconditions.checkHasText;
 import static com.hazelcast.util.Preconditions.checkNotNull;
 
@@ -56,9 +58,13 @@ import static com.hazelcast.util.Preconditions.checkNotNull;
 public class NodeQueryCacheEventService implements QueryCacheEventService<EventData> {
 
     private final MapServiceContext mapServiceContext;
+    private final QueryCacheDeltaEncoder deltaEncoder;
 
     public NodeQueryCacheEventService(MapServiceContext mapServiceContext) {
         this.mapServiceContext = mapServiceContext;
+        NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+        this.deltaEncoder = nodeEngine.getProperties().getBoolean(QUERY_CACHE_DELTA_ENCODING_ENABLED)
+                ? new QueryCacheDeltaEncoder(nodeEngine.getSerializationService()) : null;
     }
 
     // TODO not used order key
@@ -223,6 +229,9 @@ public class NodeQueryCacheEventService implements QueryCacheEventService<EventD
         if (eventRegistrations.isEmpty()) {
             return;
         }
+        if (deltaEncoder != null) {
+            eventData = deltaEncoder.encode(eventData);
+        }
         for (EventRegistration eventRegistration : eventRegistrations) {
             Registration registration = (Registration) eventRegistration;
             Object listener = registration.getListener();
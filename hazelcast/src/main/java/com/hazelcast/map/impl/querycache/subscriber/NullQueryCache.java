@@ -19,6 +19,7 @@ package com.hazelcast.map.impl.querycache.subscriber;
 import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.IMap;
 import com.hazelcast.map.listener.MapListener;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.impl.Indexes;
 
@@ -51,6 +52,11 @@ public final class NullQueryCache implements InternalQueryCache {
     public void clearInternal(EntryEventType eventType) {
     }
 
+    @Override
+    public Data getDataValueOrNull(Data keyData) {
+        return null;
+    }
+
     @Override
     public IMap getDelegate() {
         return null;
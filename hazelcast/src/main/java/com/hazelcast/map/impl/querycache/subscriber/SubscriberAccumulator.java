@@ -176,7 +176,7 @@ public class SubscriberAccumulator extends BasicAccumulator<QueryCacheEventData>
         boolean includeValue = info.isIncludeValue();
         InternalQueryCache queryCache = getQueryCache();
         InternalSerializationService serializationService = context.getSerializationService();
-        return new SubscriberAccumulatorHandler(includeValue, queryCache, serializationService);
+        return new SubscriberAccumulatorHandler(includeValue, queryCache, serializationService, context, info);
     }
 
     private void addQueryCache(QueryCacheEventData eventData) {
@@ -18,10 +18,18 @@ package com.hazelcast.map.impl.querycache.subscriber;
 
 import com.hazelcast.core.EntryEventType;
 import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.map.impl.querycache.QueryCacheContext;
 import com.hazelcast.map.impl.querycache.accumulator.AccumulatorHandler;
+import com.hazelcast.map.impl.querycache.accumulator.AccumulatorInfo;
 import com.hazelcast.map.impl.querycache.event.QueryCacheEventData;
+import com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta;
 import com.hazelcast.nio.serialization.Data;
 
+import static com.hazelcast.core.EntryEventType.EVICTED;
+import static com.hazelcast.core.EntryEventType.UPDATED;
+import static com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta.DELTA_UPDATED_EVENT_TYPE;
+import static com.hazelcast.map.impl.querycache.subscriber.EventPublisherHelper.publishEventLost;
+
 /**
  * This handler is used to process event data in {@link SubscriberAccumulator}.
  */
@@ -30,12 +38,17 @@ class SubscriberAccumulatorHandler implements AccumulatorHandler<QueryCacheEvent
     private final InternalQueryCache queryCache;
     private final boolean includeValue;
     private final InternalSerializationService serializationService;
+    private final QueryCacheContext context;
+    private final AccumulatorInfo info;
 
     public SubscriberAccumulatorHandler(boolean includeValue, InternalQueryCache queryCache,
-                                        InternalSerializationService serializationService) {
+                                        InternalSerializationService serializationService,
+                                        QueryCacheContext context, AccumulatorInfo info) {
         this.includeValue = includeValue;
         this.queryCache = queryCache;
         this.serializationService = serializationService;
+        this.context = context;
+        this.info = info;
     }
 
     @Override
@@ -46,6 +59,15 @@ class SubscriberAccumulatorHandler implements AccumulatorHandler<QueryCacheEvent
         Data valueData = includeValue ? eventData.getDataNewValue() : null;
 
         int eventType = eventData.getEventType();
+        if (eventType == DELTA_UPDATED_EVENT_TYPE) {
+            if (includeValue) {
+                valueData = applyDelta(keyData, valueData, eventData.getPartitionId());
+                if (valueData == null) {
+                    return;
+                }
+            }
+            eventType = UPDATED.getType();
+        }
         EntryEventType entryEventType = EntryEventType.getByType(eventType);
         switch (entryEventType) {
             case ADDED:
@@ -66,4 +88,29 @@ class SubscriberAccumulatorHandler implements AccumulatorHandler<QueryCacheEvent
                 throw new IllegalArgumentException("Not a known type EntryEventType." + entryEventType);
         }
     }
+
+    /**
+     * Applies a delta encoded new value to the value held by the query cache.
+     * <p/>
+     * The new value is not fetched from the map when the delta cannot be applied, since that would block the event
+     * thread and install a value out of event order. If the query cache does not hold the key, e.g. because it was
+     * evicted, the key stays absent. If it holds another value than the old value of the delta, the held value is
+     * stale: the key is evicted from the query cache and the loss is reported like any other event loss of the
+     * partition.
+     *
+     * @return the new value, or {@code null} if the delta could not be applied
+     */
+    private Data applyDelta(Data keyData, Data deltaData, int partitionId) {
+        Data oldValueData = queryCache.getDataValueOrNull(keyData);
+        if (oldValueData == null) {
+            return null;
+        }
+        QueryCacheValueDelta delta = serializationService.toObject(deltaData);
+        Data valueData = delta.apply(oldValueData);
+        if (valueData == null) {
+            queryCache.deleteInternal(keyData, false, EVICTED);
+            publishEventLost(context, info.getMapName(), info.getCacheName(), partitionId);
+        }
+        return valueData;
+    }
 }
@@ -20,10 +20,13 @@ import com.hazelcast.concurrent.lock.LockService;
 import com.hazelcast.concurrent.lock.LockStore;
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.internal.hotrestart.LocalReplicaStore;
 import com.hazelcast.map.impl.EntryCostEstimator;
+import com.hazelcast.map.impl.HotKeyTracker;
 import com.hazelcast.map.impl.MapContainer;
 import com.hazelcast.map.impl.MapService;
 import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.MerkleTree;
 import com.hazelcast.map.impl.mapstore.MapDataStore;
 import com.hazelcast.map.impl.mapstore.MapStoreContext;
 import com.hazelcast.map.impl.mapstore.MapStoreManager;
@@ -35,6 +38,7 @@ import com.hazelcast.query.impl.Indexes;
 import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.spi.DistributedObjectNamespace;
 import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.Clock;
 
@@ -60,6 +64,8 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
     protected final MapStoreContext mapStoreContext;
     protected final InMemoryFormat inMemoryFormat;
     protected final int partitionId;
+    protected final HotKeyTracker hotKeyTracker;
+    protected final MerkleTree merkleTree;
 
     protected Storage<Data, Record> storage;
 
@@ -80,6 +86,8 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
         MapStoreManager mapStoreManager = mapStoreContext.getMapStoreManager();
         this.mapDataStore = mapStoreManager.getMapDataStore(name, partitionId);
         this.lockStore = createLockStore();
+        this.hotKeyTracker = mapContainer.createHotKeyTracker();
+        this.merkleTree = mapContainer.createMerkleTree();
     }
 
     @Override
@@ -105,7 +113,14 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
 
     @Override
     public Storage createStorage(RecordFactory recordFactory, InMemoryFormat memoryFormat) {
-        return new StorageImpl(recordFactory, memoryFormat, serializationService);
+        StorageImpl storageImpl = new StorageImpl(recordFactory, memoryFormat, serializationService, merkleTree);
+        NodeEngineImpl nodeEngine = (NodeEngineImpl) mapServiceContext.getNodeEngine();
+        LocalReplicaStore localReplicaStore = nodeEngine.getNode().getNodeExtension().getInternalHotRestartService()
+                .getLocalReplicaStore();
+        if (localReplicaStore == null || memoryFormat == NATIVE) {
+            return storageImpl;
+        }
+        return new PersistentStorage<Record>(storageImpl, localReplicaStore, serializationService, partitionId, name);
     }
 
     @Override
@@ -118,6 +133,16 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
         return mapContainer;
     }
 
+    @Override
+    public HotKeyTracker getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    @Override
+    public MerkleTree getMerkleTree() {
+        return merkleTree;
+    }
+
     @Override
     public long getOwnedEntryCost() {
         return storage.getEntryCostEstimator().getEstimate();
@@ -133,6 +158,13 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
         storage.updateRecordValue(key, record, value);
     }
 
+    protected void updateRecord(Data key, Record record, Object value, long now, long ttl) {
+        updateStatsOnPut(false, now);
+        record.onUpdate(now);
+        updateExpiryTime(record, ttl, mapContainer.getMapConfig());
+        storage.updateRecordValue(key, record, value);
+    }
+
     @Override
     public int getPartitionId() {
         return partitionId;
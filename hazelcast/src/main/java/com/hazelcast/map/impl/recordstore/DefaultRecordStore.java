@@ -454,6 +454,20 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
         return removalSize;
     }
 
+    @Override
+    public void removeMerkleTreeLeaves(int[] leaves) {
+        assert merkleTree != null : "Merkle tree is disabled for map " + name;
+
+        BitSet leafSet = merkleTree.toLeafSet(leaves);
+        Collection<Record> recordsToRemove = new ArrayList<Record>();
+        for (Record record : storage.values()) {
+            if (leafSet.get(merkleTree.getLeaf(record.getKey()))) {
+                recordsToRemove.add(record);
+            }
+        }
+        removeRecords(recordsToRemove);
+    }
+
     protected Collection<Record> getNotLockedRecords() {
         Set<Data> lockedKeySet = lockStore == null ? null : lockStore.getLockedKeys();
         if (CollectionUtil.isEmpty(lockedKeySet)) {
@@ -755,8 +769,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
             record = createRecord(value, ttl, now);
             storage.put(key, record);
         } else {
-            updateRecord(key, record, value, now);
-            updateExpiryTime(record, ttl, mapContainer.getMapConfig());
+            updateRecord(key, record, value, now, ttl);
         }
 
         saveIndex(record, oldValue);
@@ -869,8 +882,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
         } else {
             oldValue = record.getValue();
             value = mapServiceContext.interceptPut(name, oldValue, value);
-            updateRecord(key, record, value, now);
-            updateExpiryTime(record, ttl, mapContainer.getMapConfig());
+            updateRecord(key, record, value, now, ttl);
         }
         saveIndex(record, oldValue);
         mapDataStore.addTransient(key, now);
@@ -913,8 +925,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
         } else {
             oldValue = record.getValue();
             value = mapServiceContext.interceptPut(name, oldValue, value);
-            updateRecord(key, record, value, now);
-            updateExpiryTime(record, ttl, mapContainer.getMapConfig());
+            updateRecord(key, record, value, now, ttl);
         }
         if (!backup) {
             saveIndex(record, oldValue);
@@ -965,8 +976,8 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
             value = mapDataStore.add(key, value, now);
             onStore(record);
             record = createRecord(value, ttl, now);
-            storage.put(key, record);
             updateExpiryTime(record, ttl, mapContainer.getMapConfig());
+            storage.put(key, record);
         }
         saveIndex(record, oldValue);
         return oldValue;
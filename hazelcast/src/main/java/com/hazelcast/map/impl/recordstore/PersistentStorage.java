@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.recordstore;
+
+import com.hazelcast.internal.hotrestart.LocalReplicaEntry;
+import com.hazelcast.internal.hotrestart.LocalReplicaStore;
+import com.hazelcast.map.impl.EntryCostEstimator;
+import com.hazelcast.map.impl.iterator.MapEntriesWithCursor;
+import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.Collection;
+
+/**
+ * {@link Storage} which appends the changes of the records to the {@link LocalReplicaStore}
+ * and delegates to another storage. The expiration and version metadata of a record is persisted
+ * with its value, so it has to be updated before the value is put or updated in the storage.
+ * <p>
+ * The records are not removed from the persisted replica when the storage is cleared or destroyed
+ * while the member shuts down, so the replica can be restored when the member restarts.
+ *
+ * @param <R> type of the records
+ */
+class PersistentStorage<R extends Record> implements Storage<Data, R> {
+
+    private final Storage<Data, R> storage;
+    private final LocalReplicaStore localReplicaStore;
+    private final SerializationService serializationService;
+    private final int partitionId;
+    private final String name;
+
+    PersistentStorage(Storage<Data, R> storage, LocalReplicaStore localReplicaStore,
+                      SerializationService serializationService, int partitionId, String name) {
+        this.storage = storage;
+        this.localReplicaStore = localReplicaStore;
+        this.serializationService = serializationService;
+        this.partitionId = partitionId;
+        this.name = name;
+    }
+
+    @Override
+    public void put(Data key, R record) {
+        storage.put(key, record);
+        persist(key, record, record.getValue());
+    }
+
+    @Override
+    public void updateRecordValue(Data key, R record, Object value) {
+        storage.updateRecordValue(key, record, value);
+        persist(key, record, value);
+    }
+
+    @Override
+    public void removeRecord(R record) {
+        Data key = record.getKey();
+        storage.removeRecord(record);
+        localReplicaStore.remove(partitionId, name, key);
+    }
+
+    @Override
+    public void clear(boolean isDuringShutdown) {
+        storage.clear(isDuringShutdown);
+        if (!isDuringShutdown) {
+            localReplicaStore.clear(partitionId, name);
+        }
+    }
+
+    @Override
+    public void destroy(boolean isDuringShutdown) {
+        storage.destroy(isDuringShutdown);
+        if (!isDuringShutdown) {
+            localReplicaStore.clear(partitionId, name);
+        }
+    }
+
+    @Override
+    public R get(Data key) {
+        return storage.get(key);
+    }
+
+    @Override
+    public R getIfSameKey(Data key) {
+        return storage.getIfSameKey(key);
+    }
+
+    @Override
+    public boolean containsKey(Data key) {
+        return storage.containsKey(key);
+    }
+
+    @Override
+    public Collection<R> values() {
+        return storage.values();
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return storage.isEmpty();
+    }
+
+    @Override
+    public EntryCostEstimator getEntryCostEstimator() {
+        return storage.getEntryCostEstimator();
+    }
+
+    @Override
+    public void setEntryCostEstimator(EntryCostEstimator entryCostEstimator) {
+        storage.setEntryCostEstimator(entryCostEstimator);
+    }
+
+    @Override
+    public void disposeDeferredBlocks() {
+        storage.disposeDeferredBlocks();
+    }
+
+    @Override
+    public Iterable<LazyEntryViewFromRecord> getRandomSamples(int sampleCount) {
+        return storage.getRandomSamples(sampleCount);
+    }
+
+    @Override
+    public MapKeysWithCursor fetchKeys(int tableIndex, int size) {
+        return storage.fetchKeys(tableIndex, size);
+    }
+
+    @Override
+    public MapEntriesWithCursor fetchEntries(int tableIndex, int size, SerializationService serializationService) {
+        return storage.fetchEntries(tableIndex, size, serializationService);
+    }
+
+    private void persist(Data key, R record, Object value) {
+        if (value == null) {
+            localReplicaStore.remove(partitionId, name, key);
+        } else {
+            LocalReplicaEntry entry = new LocalReplicaEntry(serializationService.toData(value), record.getTtl(),
+                    record.getCreationTime(), record.getLastAccessTime(), record.getLastUpdateTime(),
+                    record.getExpirationTime(), record.getVersion());
+            localReplicaStore.put(partitionId, name, key, entry);
+        }
+    }
+}
@@ -18,8 +18,10 @@ package com.hazelcast.map.impl.recordstore;
 
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.core.EntryView;
+import com.hazelcast.map.impl.HotKeyTracker;
 import com.hazelcast.map.impl.MapContainer;
 import com.hazelcast.map.impl.MapEntries;
+import com.hazelcast.map.impl.MerkleTree;
 import com.hazelcast.map.impl.iterator.MapEntriesWithCursor;
 import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
 import com.hazelcast.map.impl.mapstore.MapDataStore;
@@ -251,6 +253,30 @@ public interface RecordStore<R extends Record> extends LocalRecordStoreStats {
 
     MapContainer getMapContainer();
 
+    /**
+     * Returns the tracker of the most frequently read keys of this partition.
+     *
+     * @return the {@link HotKeyTracker} or {@code null} if the hot key detection is disabled
+     */
+    HotKeyTracker getHotKeyTracker();
+
+    /**
+     * Returns the Merkle tree over the records of this partition, which is used to synchronize
+     * backup replicas incrementally.
+     *
+     * @return the {@link MerkleTree} or {@code null} if it's disabled for this map
+     */
+    MerkleTree getMerkleTree();
+
+    /**
+     * Removes the records of the given leaves of the {@link MerkleTree} of this backup replica, before they are
+     * replaced by the records of the partition owner. The records are removed only from the in-memory storage,
+     * the map store isn't affected.
+     *
+     * @param leaves the indexes of the leaves whose records are removed
+     */
+    void removeMerkleTreeLeaves(int[] leaves);
+
     /**
      * @see MapDataStore#softFlush()
      */
@@ -18,6 +18,7 @@ package com.hazelcast.map.impl.recordstore;
 
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.map.impl.EntryCostEstimator;
+import com.hazelcast.map.impl.MerkleTree;
 import com.hazelcast.map.impl.iterator.MapEntriesWithCursor;
 import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
 import com.hazelcast.map.impl.record.AbstractRecord;
@@ -39,19 +40,29 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
 
     private final RecordFactory<R> recordFactory;
     private final StorageSCHM<R> records;
+    private final MerkleTree merkleTree;
 
     // not final for testing purposes.
     private EntryCostEstimator<Data, Record> entryCostEstimator;
 
     StorageImpl(RecordFactory<R> recordFactory, InMemoryFormat inMemoryFormat, SerializationService serializationService) {
+        this(recordFactory, inMemoryFormat, serializationService, null);
+    }
+
+    StorageImpl(RecordFactory<R> recordFactory, InMemoryFormat inMemoryFormat, SerializationService serializationService,
+                MerkleTree merkleTree) {
         this.recordFactory = recordFactory;
         this.entryCostEstimator = createMapSizeEstimator(inMemoryFormat);
         this.records = new StorageSCHM<R>(serializationService);
+        this.merkleTree = merkleTree;
     }
 
     @Override
     public void clear(boolean isDuringShutdown) {
         records.clear();
+        if (merkleTree != null) {
+            merkleTree.clear();
+        }
 
         entryCostEstimator.reset();
     }
@@ -70,19 +81,29 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
 
         if (previousRecord == null) {
             updateCostEstimate(entryCostEstimator.calculateEntryCost(key, record));
+            if (merkleTree != null) {
+                merkleTree.add(key, record.getValue());
+            }
         } else {
             updateCostEstimate(-entryCostEstimator.calculateValueCost(previousRecord));
             updateCostEstimate(entryCostEstimator.calculateValueCost(record));
+            if (merkleTree != null) {
+                merkleTree.replace(key, previousRecord.getValue(), record.getValue());
+            }
         }
     }
 
     @Override
     public void updateRecordValue(Data key, R record, Object value) {
         updateCostEstimate(-entryCostEstimator.calculateValueCost(record));
+        Object oldValue = record.getValue();
 
         recordFactory.setValue(record, value);
 
         updateCostEstimate(entryCostEstimator.calculateValueCost(record));
+        if (merkleTree != null) {
+            merkleTree.replace(key, oldValue, record.getValue());
+        }
     }
 
     @Override
@@ -129,6 +150,9 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
         records.remove(key);
 
         updateCostEstimate(-entryCostEstimator.calculateEntryCost(key, record));
+        if (merkleTree != null) {
+            merkleTree.remove(key, record.getValue());
+        }
     }
 
     protected void updateCostEstimate(long entrySize) {
@@ -89,6 +89,7 @@ public class LocalMapStatsImpl implements LocalMapStats {
     private volatile long lockedEntryCount;
     private volatile long dirtyEntryCount;
     private volatile int backupCount;
+    private volatile int hotKeyCount;
 
     private volatile NearCacheStats nearCacheStats;
 
@@ -191,6 +192,22 @@ public class LocalMapStatsImpl implements LocalMapStats {
         this.dirtyEntryCount = dirtyEntryCount;
     }
 
+    /**
+     * Returns the number of hot keys in the owned partitions of this member.
+     * <p>
+     * Is always {@code 0} if the hot key detection is disabled,
+     * see {@link com.hazelcast.spi.properties.GroupProperty#MAP_HOT_KEY_TRACKER_CAPACITY}.
+     *
+     * @return the number of hot keys
+     */
+    public int getHotKeyCount() {
+        return hotKeyCount;
+    }
+
+    public void setHotKeyCount(int hotKeyCount) {
+        this.hotKeyCount = hotKeyCount;
+    }
+
     @Override
     public long total() {
         return putCount + getCount + removeCount + numberOfOtherOperations;
@@ -322,6 +339,7 @@ public class LocalMapStatsImpl implements LocalMapStats {
         root.add("creationTime", creationTime);
         root.add("lockedEntryCount", lockedEntryCount);
         root.add("dirtyEntryCount", dirtyEntryCount);
+        root.add("hotKeyCount", hotKeyCount);
         root.add("totalGetLatencies", totalGetLatencies);
         root.add("totalPutLatencies", totalPutLatencies);
         root.add("totalRemoveLatencies", totalRemoveLatencies);
@@ -359,6 +377,7 @@ public class LocalMapStatsImpl implements LocalMapStats {
         creationTime = getLong(json, "creationTime", -1L);
         lockedEntryCount = getLong(json, "lockedEntryCount", -1L);
         dirtyEntryCount = getLong(json, "dirtyEntryCount", -1L);
+        hotKeyCount = getInt(json, "hotKeyCount", -1);
         heapCost = getLong(json, "heapCost", -1L);
         JsonValue jsonNearCacheStats = json.get("nearCacheStats");
         if (jsonNearCacheStats != null) {
@@ -389,6 +408,7 @@ public class LocalMapStatsImpl implements LocalMapStats {
                 + ", creationTime=" + creationTime
                 + ", lockedEntryCount=" + lockedEntryCount
                 + ", dirtyEntryCount=" + dirtyEntryCount
+                + ", hotKeyCount=" + hotKeyCount
                 + ", heapCost=" + heapCost
                 + ", nearCacheStats=" + (nearCacheStats != null ? nearCacheStats : "")
                 + '}';
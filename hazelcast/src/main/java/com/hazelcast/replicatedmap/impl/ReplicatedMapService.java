@@ -31,6 +31,7 @@ import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ClassLoaderUtil;
 import com.hazelcast.replicatedmap.ReplicatedMapCantBeCreatedOnLiteMemberException;
 import com.hazelcast.replicatedmap.impl.operation.CheckReplicaVersionOperation;
+import com.hazelcast.replicatedmap.impl.operation.ReplicationChunkIterator;
 import com.hazelcast.replicatedmap.impl.operation.ReplicationOperation;
 import com.hazelcast.replicatedmap.impl.record.ReplicatedRecord;
 import com.hazelcast.replicatedmap.impl.record.ReplicatedRecordStore;
@@ -53,7 +54,7 @@ import static com.hazelcast.cluster.memberselector.MemberSelectors.DATA_MEMBER_S
  * manages the backing {@link PartitionContainer}s that actually hold the data
  */
 public class ReplicatedMapService implements ManagedService, RemoteService, EventPublishingService<Object, Object>,
-        MigrationAwareService, SplitBrainHandlerService, StatisticsAwareService {
+        ChunkedMigrationAwareService, SplitBrainHandlerService, StatisticsAwareService {
 
     public static final String SERVICE_NAME = "hz:impl:replicatedMapService";
     public static final int INVOCATION_TRY_COUNT = 3;
@@ -326,6 +327,17 @@ public class ReplicatedMapService implements ManagedService, RemoteService, Even
         return operation.isEmpty() ? null : operation;
     }
 
+    @Override
+    public Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize) {
+        if (config.isLiteMember() || event.getReplicaIndex() > 0) {
+            return Collections.<Operation>emptySet().iterator();
+        }
+
+        PartitionContainer container = partitionContainers[event.getPartitionId()];
+        return new ReplicationChunkIterator(nodeEngine.getSerializationService(), container, event.getPartitionId(),
+                maxChunkSize);
+    }
+
     @Override
     public void beforeMigration(PartitionMigrationEvent event) {
         // no-op
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.replicatedmap.impl.operation;
+
+import com.hazelcast.replicatedmap.impl.PartitionContainer;
+import com.hazelcast.replicatedmap.impl.record.RecordMigrationInfo;
+import com.hazelcast.replicatedmap.impl.record.ReplicatedRecord;
+import com.hazelcast.replicatedmap.impl.record.ReplicatedRecordStore;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Carries the partition data of the replicated maps from the old owner to the new owner as a sequence of
+ * {@link ReplicationOperation} chunks. Records are merged into the record stores on the destination, so the
+ * chunks only need to be applied in order. The first chunk contains all replicated maps of the partition.
+ *
+ * @see com.hazelcast.spi.ChunkedMigrationAwareService
+ */
+public class ReplicationChunkIterator implements Iterator<Operation> {
+
+    /**
+     * Estimated serialized size of the metadata of a replicated record.
+     */
+    private static final int RECORD_INFO_SIZE = 48;
+
+    private final SerializationService serializationService;
+    private final int partitionId;
+    private final int maxChunkSize;
+    private final List<ReplicatedRecordStore> stores;
+    private final Iterator<ReplicatedRecordStore> storeIterator;
+
+    private boolean firstChunk;
+    private ReplicatedRecordStore store;
+    private Iterator<ReplicatedRecord> recordIterator;
+    // prefetched next record of the current store, the record iterators don't support repeated hasNext() calls
+    private ReplicatedRecord nextRecord;
+
+    public ReplicationChunkIterator(SerializationService serializationService, PartitionContainer container,
+                                    int partitionId, int maxChunkSize) {
+        this.serializationService = serializationService;
+        this.partitionId = partitionId;
+        this.maxChunkSize = maxChunkSize;
+        this.stores = new ArrayList<ReplicatedRecordStore>(container.getStores().values());
+        this.storeIterator = stores.iterator();
+        this.firstChunk = !stores.isEmpty();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return firstChunk || hasNextRecord();
+    }
+
+    @Override
+    public Operation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Map<String, Set<RecordMigrationInfo>> data = new HashMap<String, Set<RecordMigrationInfo>>();
+        Map<String, Long> versions = new HashMap<String, Long>();
+        if (firstChunk) {
+            for (ReplicatedRecordStore recordStore : stores) {
+                data.put(recordStore.getName(), new HashSet<RecordMigrationInfo>());
+                versions.put(recordStore.getName(), recordStore.getVersion());
+            }
+            firstChunk = false;
+        }
+
+        int chunkSize = 0;
+        while (chunkSize < maxChunkSize && hasNextRecord()) {
+            ReplicatedRecord record = nextRecord;
+            nextRecord = null;
+            RecordMigrationInfo migrationInfo = ReplicationOperation.createRecordMigrationInfo(serializationService, record);
+
+            String name = store.getName();
+            Set<RecordMigrationInfo> recordSet = data.get(name);
+            if (recordSet == null) {
+                recordSet = new HashSet<RecordMigrationInfo>();
+                data.put(name, recordSet);
+            }
+            recordSet.add(migrationInfo);
+            versions.put(name, store.getVersion());
+            chunkSize += estimateSize(migrationInfo);
+        }
+        return new ReplicationOperation(data, versions, partitionId);
+    }
+
+    private boolean hasNextRecord() {
+        while (nextRecord == null) {
+            if (recordIterator != null && recordIterator.hasNext()) {
+                nextRecord = recordIterator.next();
+            } else if (storeIterator.hasNext()) {
+                store = storeIterator.next();
+                recordIterator = store.recordIterator();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int estimateSize(RecordMigrationInfo migrationInfo) {
+        int valueSize = migrationInfo.getValue() != null ? migrationInfo.getValue().totalSize() : 0;
+        return migrationInfo.getKey().totalSize() + valueSize + RECORD_INFO_SIZE;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -50,6 +50,12 @@ public class ReplicationOperation extends AbstractSerializableOperation {
         fetchReplicatedMapRecords(container);
     }
 
+    ReplicationOperation(Map<String, Set<RecordMigrationInfo>> data, Map<String, Long> versions, int partitionId) {
+        this.data = data;
+        this.versions = versions;
+        setPartitionId(partitionId);
+    }
+
     @Override
     public void run() throws Exception {
         ILogger logger = getLogger();
@@ -81,23 +87,27 @@ public class ReplicationOperation extends AbstractSerializableOperation {
             Iterator<ReplicatedRecord> iterator = store.recordIterator();
             while (iterator.hasNext()) {
                 ReplicatedRecord record = iterator.next();
-                Data dataKey = serializationService.toData(record.getKeyInternal());
-                Data dataValue = serializationService.toData(record.getValueInternal());
-                RecordMigrationInfo migrationInfo = new RecordMigrationInfo();
-                migrationInfo.setKey(dataKey);
-                migrationInfo.setValue(dataValue);
-                migrationInfo.setTtl(record.getTtlMillis());
-                migrationInfo.setHits(record.getHits());
-                migrationInfo.setCreationTime(record.getCreationTime());
-                migrationInfo.setLastAccessTime(record.getLastAccessTime());
-                migrationInfo.setLastUpdateTime(record.getUpdateTime());
-                recordSet.add(migrationInfo);
+                recordSet.add(createRecordMigrationInfo(serializationService, record));
             }
             data.put(name, recordSet);
             versions.put(name, store.getVersion());
         }
     }
 
+    static RecordMigrationInfo createRecordMigrationInfo(SerializationService serializationService, ReplicatedRecord record) {
+        Data dataKey = serializationService.toData(record.getKeyInternal());
+        Data dataValue = serializationService.toData(record.getValueInternal());
+        RecordMigrationInfo migrationInfo = new RecordMigrationInfo();
+        migrationInfo.setKey(dataKey);
+        migrationInfo.setValue(dataValue);
+        migrationInfo.setTtl(record.getTtlMillis());
+        migrationInfo.setHits(record.getHits());
+        migrationInfo.setCreationTime(record.getCreationTime());
+        migrationInfo.setLastAccessTime(record.getLastAccessTime());
+        migrationInfo.setLastUpdateTime(record.getUpdateTime());
+        return migrationInfo;
+    }
+
     private void fillRecordStoreWithRecords(ReplicatedMapService service) {
         for (Map.Entry<String, Set<RecordMigrationInfo>> dataEntry : data.entrySet()) {
             Set<RecordMigrationInfo> recordSet = dataEntry.getValue();
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi;
+
+import java.util.Iterator;
+
+/**
+ * {@code ChunkedMigrationAwareService} is an extension to the {@link MigrationAwareService} which allows
+ * migration/replication of large partition replicas as a stream of bounded-size chunks instead of a single
+ * replication operation.
+ * <p>
+ * Chunks are created lazily on the partition thread of the migration source, so only a single chunk of a
+ * partition replica is held in memory at a time. Chunk operations are executed on the destination member
+ * in the same order they are returned by the iterator. The first chunk replaces the existing replica data
+ * of the service on the destination, subsequent chunks only append to it.
+ * <p>
+ * Chunked replication can be enabled/disabled using configuration property
+ * {@link com.hazelcast.spi.properties.GroupProperty#PARTITION_MIGRATION_CHUNKS_ENABLED}. It's used only when
+ * fragmented migration is enabled, otherwise {@link #prepareReplicationOperation(PartitionReplicationEvent)}
+ * is used to replicate the whole partition replica at once.
+ *
+ * @see MigrationAwareService
+ * @see FragmentedMigrationAwareService
+ * @since 3.9
+ */
+public interface ChunkedMigrationAwareService extends MigrationAwareService {
+
+    /**
+     * Returns an iterator of operations to replicate service data and/or state for a specific partition replica
+     * on another cluster member. Concatenation of all returned operations must be equivalent to the operation
+     * returned from {@link #prepareReplicationOperation(PartitionReplicationEvent)}.
+     * <p>
+     * The iterator is consumed on the partition thread of the given partition, possibly across multiple
+     * partition tasks. Each returned operation should replicate approximately up to {@code maxChunkSize} bytes
+     * of data, but it must replicate at least a single entry to guarantee progress.
+     * <p>
+     * Returning an empty iterator is allowed and means service does not have anything to replicate.
+     *
+     * @param event        replication event
+     * @param maxChunkSize maximum estimated size of data replicated by a single chunk, in bytes
+     * @return iterator of replication operations
+     * @see #prepareReplicationOperation(PartitionReplicationEvent)
+     */
+    Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize);
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi;
+
+/**
+ * {@code DeltaReplicationAwareService} is an extension to the {@link MigrationAwareService} which allows
+ * a backup replica to be synchronized with the partition owner by transferring only the data which differs
+ * between them, instead of the whole partition replica.
+ * <p>
+ * When a backup replica requests a replica sync, it creates a digest of its local replica data by
+ * {@link #prepareReplicaDigest(PartitionReplicationEvent)} and sends it with the request. The partition owner
+ * compares the digest with its own data and replicates only the differences by the operation returned from
+ * {@link #prepareDeltaReplicationOperation(PartitionReplicationEvent, Object)}.
+ * <p>
+ * Delta replication is used only by the anti-entropy replica sync of the non-fragmented service namespace,
+ * migrations always replicate the whole partition replica.
+ *
+ * @see MigrationAwareService
+ * @since 3.9
+ */
+public interface DeltaReplicationAwareService extends MigrationAwareService {
+
+    /**
+     * Creates a digest of the local data of a backup replica. It's sent to the partition owner and must be
+     * serializable.
+     *
+     * @param event replication event of the local backup replica
+     * @return the digest of the replica data or {@code null} if a digest is not available, then the whole
+     * partition replica is replicated
+     */
+    Object prepareReplicaDigest(PartitionReplicationEvent event);
+
+    /**
+     * Returns an operation to replicate the service data which differs between the partition owner and the
+     * backup replica the given digest has been created for. Applying the operation on the backup replica must
+     * have the same result as the operation returned from {@link #prepareReplicationOperation(PartitionReplicationEvent)}.
+     *
+     * @param event  replication event
+     * @param digest the digest created by {@link #prepareReplicaDigest(PartitionReplicationEvent)} on the backup replica
+     * @return replication operation or null if nothing differs
+     */
+    Operation prepareDeltaReplicationOperation(PartitionReplicationEvent event, Object digest);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi;
+
+/**
+ * An interface that can be implemented by SPI services which store partitioned data, to report the memory cost of
+ * their data in a partition. It's used by the load-aware partition assignment to balance the partitions by size.
+ *
+ * @see com.hazelcast.spi.properties.GroupProperty#PARTITION_ASSIGNMENT_STRATEGY
+ */
+public interface PartitionCostAwareService {
+
+    /**
+     * Returns the estimated memory cost of the data of this service in the given partition, in bytes.
+     * It's invoked outside of the partition thread, so the returned value may be slightly stale.
+     *
+     * @param partitionId the ID of the partition
+     * @return the memory cost in bytes
+     */
+    long getPartitionMemoryCost(int partitionId);
+}
@@ -16,18 +16,28 @@
 
 package com.hazelcast.spi.impl;
 
+import com.hazelcast.spi.ChunkedMigrationAwareService;
+import com.hazelcast.spi.DeltaReplicationAwareService;
 import com.hazelcast.spi.MigrationAwareService;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Collections.singleton;
+
 /**
  * A {@link MigrationAwareService} that delegates to another {@link MigrationAwareService} and keeps track of the number of
  * migrations concerning the partition owner (either as current or new replica index) currently in-flight.
+ * <p>
+ * Replication chunks are delegated to the wrapped service if it's a {@link ChunkedMigrationAwareService}, otherwise
+ * its replication operation is returned as a single chunk. Similarly, delta replication is delegated to the wrapped
+ * service if it's a {@link DeltaReplicationAwareService}, otherwise the whole partition replica is replicated.
  */
-public class CountingMigrationAwareService implements MigrationAwareService {
+public class CountingMigrationAwareService implements ChunkedMigrationAwareService, DeltaReplicationAwareService {
 
     static final int PRIMARY_REPLICA_INDEX = 0;
     static final int IN_FLIGHT_MIGRATION_STAMP = -1;
@@ -49,6 +59,31 @@ public class CountingMigrationAwareService implements MigrationAwareService {
         return migrationAwareService.prepareReplicationOperation(event);
     }
 
+    @Override
+    public Iterator<Operation> prepareReplicationChunks(PartitionReplicationEvent event, int maxChunkSize) {
+        if (migrationAwareService instanceof ChunkedMigrationAwareService) {
+            return ((ChunkedMigrationAwareService) migrationAwareService).prepareReplicationChunks(event, maxChunkSize);
+        }
+        Operation op = migrationAwareService.prepareReplicationOperation(event);
+        return op != null ? singleton(op).iterator() : Collections.<Operation>emptySet().iterator();
+    }
+
+    @Override
+    public Object prepareReplicaDigest(PartitionReplicationEvent event) {
+        if (migrationAwareService instanceof DeltaReplicationAwareService) {
+            return ((DeltaReplicationAwareService) migrationAwareService).prepareReplicaDigest(event);
+        }
+        return null;
+    }
+
+    @Override
+    public Operation prepareDeltaReplicationOperation(PartitionReplicationEvent event, Object digest) {
+        if (migrationAwareService instanceof DeltaReplicationAwareService) {
+            return ((DeltaReplicationAwareService) migrationAwareService).prepareDeltaReplicationOperation(event, digest);
+        }
+        return migrationAwareService.prepareReplicationOperation(event);
+    }
+
     @Override
     public void beforeMigration(PartitionMigrationEvent event) {
         if (isPrimaryReplicaMigrationEvent(event)) {
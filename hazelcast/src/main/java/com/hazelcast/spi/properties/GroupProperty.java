@@ -102,6 +102,15 @@ public final class GroupProperty {
 
     public static final HazelcastProperty CLIENT_ENGINE_QUERY_THREAD_COUNT
             = new HazelcastProperty("hazelcast.clientengine.query.thread.count", -1);
+
+    /**
+     * When enabled, read-only client requests such as map.get and map.containsKey are run directly on the partition thread
+     * when this member owns the partition, instead of creating and registering a local invocation. Requests on partitions
+     * which are migrating or owned by another member still go through an invocation.
+     */
+    public static final HazelcastProperty CLIENT_ENGINE_PARTITION_THREAD_FAST_PATH_ENABLED
+            = new HazelcastProperty("hazelcast.clientengine.partition.thread.fastpath.enabled", true);
+
     /**
      * Client connection is removed or owner node of a client is removed from cluster
      * ClientDisconnectedOperation runs and clean all resources of client(listeners are removed, locks/txn are released)
@@ -328,6 +337,20 @@ public final class GroupProperty {
 
     public static final HazelcastProperty MAX_WAIT_SECONDS_BEFORE_JOIN
             = new HazelcastProperty("hazelcast.max.wait.seconds.before.join", 20, SECONDS);
+
+    /**
+     * Enables the bulk join during the initial cluster formation, i.e. until the partition table is initialized.
+     * The master admits all members which send join requests within the join window in a single member list update
+     * and initializes the partition table for the resulting member set in the same step, so the partition table is
+     * published once, together with the member list, and no migrations are needed on the first start.
+     * <p>
+     * If {@link #INITIAL_MIN_CLUSTER_SIZE} is set, the master starts the join as soon as that many members are
+     * available, or when {@link #MAX_WAIT_SECONDS_BEFORE_JOIN} has passed since the first join request.
+     * Otherwise the join window is defined by {@link #WAIT_SECONDS_BEFORE_JOIN}.
+     */
+    public static final HazelcastProperty BULK_JOIN_ENABLED
+            = new HazelcastProperty("hazelcast.bulk.join.enabled", false);
+
     public static final HazelcastProperty MAX_JOIN_SECONDS
             = new HazelcastProperty("hazelcast.max.join.seconds", 300, SECONDS);
     public static final HazelcastProperty MAX_JOIN_MERGE_TARGET_SECONDS
@@ -347,6 +370,58 @@ public final class GroupProperty {
     public static final HazelcastProperty MAX_NO_HEARTBEAT_SECONDS
             = new HazelcastProperty("hazelcast.max.no.heartbeat.seconds", 300, SECONDS);
 
+    /**
+     * The failure detector used to decide whether a cluster member is alive, one of
+     * {@link com.hazelcast.internal.cluster.fd.ClusterFailureDetectorType}:
+     * <ul>
+     * <li>{@code DEADLINE}: suspects a member after {@link #MAX_NO_HEARTBEAT_SECONDS} without a heartbeat</li>
+     * <li>{@code PHI_ACCRUAL}: suspects a member when the phi value calculated from the observed heartbeat
+     * inter-arrival times exceeds {@link #HEARTBEAT_PHI_FAILURE_DETECTOR_THRESHOLD}, tolerating pauses of
+     * {@link #HEARTBEAT_PHI_FAILURE_DETECTOR_ACCEPTABLE_PAUSE_MILLIS}.</li>
+     * </ul>
+     */
+    public static final HazelcastProperty HEARTBEAT_FAILURE_DETECTOR_TYPE
+            = new HazelcastProperty("hazelcast.heartbeat.failuredetector.type", "DEADLINE");
+
+    /**
+     * The phi value above which the phi-accrual failure detector considers a member dead. A low threshold detects
+     * crashes quickly but is prone to wrong suspicions, a high threshold makes fewer mistakes but detects slower.
+     */
+    public static final HazelcastProperty HEARTBEAT_PHI_FAILURE_DETECTOR_THRESHOLD
+            = new HazelcastProperty("hazelcast.heartbeat.phiaccrual.failuredetector.threshold", "10");
+
+    /**
+     * The number of heartbeat inter-arrival times kept per member by the phi-accrual failure detector.
+     */
+    public static final HazelcastProperty HEARTBEAT_PHI_FAILURE_DETECTOR_SAMPLE_SIZE
+            = new HazelcastProperty("hazelcast.heartbeat.phiaccrual.failuredetector.sample.size", 200);
+
+    /**
+     * The minimum standard deviation, in milliseconds, of the heartbeat inter-arrival times used by the phi-accrual
+     * failure detector. Prevents too much sensitivity to normal deviations when heartbeats arrive very regularly.
+     */
+    public static final HazelcastProperty HEARTBEAT_PHI_FAILURE_DETECTOR_MIN_STD_DEV_MILLIS
+            = new HazelcastProperty("hazelcast.heartbeat.phiaccrual.failuredetector.min.std.dev.millis", 100);
+
+    /**
+     * The heartbeat pause, in milliseconds, which the phi-accrual failure detector accepts on top of the learned
+     * heartbeat inter-arrival time before it starts suspecting a member, e.g. to survive a garbage collection pause.
+     * It is independent of {@link #MAX_NO_HEARTBEAT_SECONDS}, so the phi-accrual failure detector can suspect a
+     * crashed member well before the deadline failure detector would.
+     */
+    public static final HazelcastProperty HEARTBEAT_PHI_FAILURE_DETECTOR_ACCEPTABLE_PAUSE_MILLIS
+            = new HazelcastProperty("hazelcast.heartbeat.phiaccrual.failuredetector.acceptable.pause.millis", 10000,
+            MILLISECONDS);
+
+    /**
+     * The number of randomly selected members a member gossips its heartbeat knowledge to per heartbeat interval.
+     * When set to a positive value, a member sends heartbeats only to the master and to these members, piggybacking
+     * the last heartbeat times it knows of the other members, instead of sending heartbeats to every member.
+     * This bounds the per-member heartbeat fan-out in large clusters. 0 disables gossip.
+     */
+    public static final HazelcastProperty HEARTBEAT_GOSSIP_FANOUT
+            = new HazelcastProperty("hazelcast.heartbeat.gossip.fanout", 0);
+
     /**
      * The interval at which master confirmations are sent from non-master nodes to the master node
      */
@@ -443,11 +518,72 @@ public final class GroupProperty {
             = new HazelcastProperty("hazelcast.partition.migration.timeout", 300, SECONDS);
     public static final HazelcastProperty PARTITION_FRAGMENTED_MIGRATION_ENABLED
             = new HazelcastProperty("hazelcast.partition.migration.fragments.enabled", true);
+    /**
+     * Maximum number of partition migrations which are executed at the same time by the master node. Migrations which
+     * run at the same time move different partitions between different source and destination pairs. The default
+     * value of {@code 1} executes a single migration at a time.
+     * <p>
+     * The value must be the same on all members: a member taking part in a migration refuses a further concurrent one
+     * beyond its own limit, so mixed values would fail migrations over and over. A member with a different value is
+     * therefore not allowed to join the cluster.
+     */
+    public static final HazelcastProperty PARTITION_MAX_PARALLEL_MIGRATIONS
+            = new HazelcastProperty("hazelcast.partition.max.parallel.migrations", 1);
+    /**
+     * Strategy of assigning partition replicas to members.
+     * Valid Values:
+     * <ul>
+     * <li>DEFAULT - balances the number of partitions per member group, moving as few partitions of the current
+     * partition table as possible</li>
+     * <li>CONSISTENT_HASH - places partitions by consistent hashing of the partition IDs and members. The placement
+     * is independent of the current partition table and the partition count, and a membership change moves fewer
+     * replicas than with DEFAULT. In exchange, the number of partitions of a member may exceed the average by 25%.
+     * </li>
+     * <li>LOAD_AWARE - balances the memory cost and the operation rate of the partitions instead of their number.
+     * The master collects the partition loads every {@link #PARTITION_LOAD_BALANCE_INTERVAL_SECONDS} and moves
+     * partitions when the load of a member deviates from the average by more than
+     * {@link #PARTITION_LOAD_SKEW_THRESHOLD_PERCENTAGE}.</li>
+     * </ul>
+     * <p/>
+     * Values are case sensitive. All members should use the same strategy, it's applied by the master member.
+     */
+    public static final HazelcastProperty PARTITION_ASSIGNMENT_STRATEGY
+            = new HazelcastProperty("hazelcast.partition.assignment.strategy", "DEFAULT");
+
+    /**
+     * Interval of collecting the partition loads with the LOAD_AWARE {@link #PARTITION_ASSIGNMENT_STRATEGY}.
+     */
+    public static final HazelcastProperty PARTITION_LOAD_BALANCE_INTERVAL_SECONDS
+            = new HazelcastProperty("hazelcast.partition.load.balance.interval.seconds", 60, SECONDS);
+
+    /**
+     * Maximum deviation of a member's partition load from the average load, in percent, before partitions are moved
+     * with the LOAD_AWARE {@link #PARTITION_ASSIGNMENT_STRATEGY}. Partitions are moved only until the deviation is
+     * within this threshold again, so lower values balance better but migrate more often.
+     */
+    public static final HazelcastProperty PARTITION_LOAD_SKEW_THRESHOLD_PERCENTAGE
+            = new HazelcastProperty("hazelcast.partition.load.skew.threshold.percentage", 10);
+    /**
+     * Enables streaming replica data of services implementing {@link com.hazelcast.spi.ChunkedMigrationAwareService}
+     * in bounded-size chunks during migrations and replica synchronizations. Used only when fragmented migration
+     * is enabled.
+     */
+    public static final HazelcastProperty PARTITION_MIGRATION_CHUNKS_ENABLED
+            = new HazelcastProperty("hazelcast.partition.migration.chunks.enabled", true);
+    /** Maximum estimated size in bytes of the replica data sent within a single migration chunk. */
+    public static final HazelcastProperty PARTITION_MIGRATION_CHUNK_MAX_SIZE
+            = new HazelcastProperty("hazelcast.partition.migration.chunk.max.size", 16 * 1024 * 1024);
     public static final HazelcastProperty DISABLE_STALE_READ_ON_PARTITION_MIGRATION
             = new HazelcastProperty("hazelcast.partition.migration.stale.read.disabled", false);
 
     public static final HazelcastProperty PARTITION_TABLE_SEND_INTERVAL
             = new HazelcastProperty("hazelcast.partition.table.send.interval", 15, SECONDS);
+    /**
+     * Enables sending only the changed partitions when the master publishes the partition table to the cluster members.
+     * Members which don't have the partition table version the changes are based on receive the full partition table.
+     */
+    public static final HazelcastProperty PARTITION_TABLE_DELTA_ENABLED
+            = new HazelcastProperty("hazelcast.partition.table.delta.enabled", true);
     public static final HazelcastProperty PARTITION_BACKUP_SYNC_INTERVAL
             = new HazelcastProperty("hazelcast.partition.backup.sync.interval", 30, SECONDS);
     public static final HazelcastProperty PARTITION_MAX_PARALLEL_REPLICATIONS
@@ -457,6 +593,37 @@ public final class GroupProperty {
 
     public static final HazelcastProperty GRACEFUL_SHUTDOWN_MAX_WAIT
             = new HazelcastProperty("hazelcast.graceful.shutdown.max.wait", 600, SECONDS);
+    /**
+     * Enables promoting the backups of a gracefully shutting down member instead of migrating its partitions.
+     * The member first syncs the backups of its owned partitions, then the master promotes the first backups of these
+     * partitions in one batch per member and removes the shutting down member from the backup replicas. The member can
+     * leave the cluster right after the promotion and the missing backups are rebuilt by the following repartitioning.
+     */
+    public static final HazelcastProperty GRACEFUL_SHUTDOWN_PROMOTION_ENABLED
+            = new HazelcastProperty("hazelcast.graceful.shutdown.promotion.enabled", false);
+
+    /**
+     * Enables the persistence of the local partition replicas of IMaps to an append-only log per partition.
+     * <p/>
+     * When a member restarts with the same address and the partition table still assigns its replicas to it, e.g. in the
+     * {@link com.hazelcast.cluster.ClusterState#FROZEN} or {@link com.hazelcast.cluster.ClusterState#PASSIVE} cluster
+     * states, it reloads its replicas from the local logs instead of losing its owned partitions and replicating its
+     * backups over the network. The logs are restorable only if the member has been shut down, not if the JVM crashed.
+     */
+    public static final HazelcastProperty LOCAL_REPLICA_PERSISTENCE_ENABLED
+            = new HazelcastProperty("hazelcast.local.replica.persistence.enabled", false);
+
+    /**
+     * The base directory of the local replica persistence, each member uses a sub-directory named after its address.
+     */
+    public static final HazelcastProperty LOCAL_REPLICA_PERSISTENCE_DIR
+            = new HazelcastProperty("hazelcast.local.replica.persistence.dir", "local-replicas");
+
+    /**
+     * The size of a memory-mapped segment of the local replica log of a partition in bytes.
+     */
+    public static final HazelcastProperty LOCAL_REPLICA_PERSISTENCE_SEGMENT_SIZE
+            = new HazelcastProperty("hazelcast.local.replica.persistence.segment.size", 1 << 20);
 
     /**
      * Enables or disables the {@link com.hazelcast.spi.impl.operationexecutor.slowoperationdetector.SlowOperationDetector}.
@@ -542,6 +709,16 @@ public final class GroupProperty {
     public static final HazelcastProperty CACHE_INVALIDATION_MESSAGE_BATCH_FREQUENCY_SECONDS
             = new HazelcastProperty("hazelcast.cache.invalidation.batchfrequency.seconds", 10, SECONDS);
 
+    /**
+     * Defines the number of cache invalidation events of a partition in a batch, which are replaced by a single
+     * range invalidation. A range invalidation makes all Near Cache entries of the partition stale.
+     * <p/>
+     * A value of {@code 0} disables range invalidations. Range invalidations are understood by 3.9 clients and newer,
+     * older clients just invalidate a single key of the partition and rely on the Near Cache repairing.
+     */
+    public static final HazelcastProperty CACHE_INVALIDATION_RANGE_THRESHOLD
+            = new HazelcastProperty("hazelcast.cache.invalidation.range.threshold", 0);
+
     /**
      * Defines Near Cache invalidation event batch sending is enabled or not.
      */
@@ -563,6 +740,61 @@ public final class GroupProperty {
     public static final HazelcastProperty MAP_INVALIDATION_MESSAGE_BATCH_FREQUENCY_SECONDS
             = new HazelcastProperty("hazelcast.map.invalidation.batchfrequency.seconds", 10, SECONDS);
 
+    /**
+     * Defines the number of Near Cache invalidation events of a partition in a batch, which are replaced by a single
+     * range invalidation. A range invalidation makes all Near Cache entries of the partition stale.
+     * <p/>
+     * A value of {@code 0} disables range invalidations. Range invalidations are understood by 3.9 clients and newer,
+     * older clients just invalidate a single key of the partition and rely on the Near Cache repairing.
+     */
+    public static final HazelcastProperty MAP_INVALIDATION_RANGE_THRESHOLD
+            = new HazelcastProperty("hazelcast.map.invalidation.range.threshold", 0);
+
+    /**
+     * Defines the number of keys per map partition which are tracked by the hot key detection. The hot keys of
+     * the owned partitions are reported by the {@link com.hazelcast.monitor.LocalMapStats} of a map, and can be read
+     * from backup replicas with {@link com.hazelcast.config.MapConfig#setHotKeyReadBackupData(boolean)}.
+     * <p/>
+     * A value of {@code 0} disables the hot key detection.
+     */
+    public static final HazelcastProperty MAP_HOT_KEY_TRACKER_CAPACITY
+            = new HazelcastProperty("hazelcast.map.hot.key.tracker.capacity", 0);
+
+    /**
+     * Defines the percentage of the reads of a map partition a key has to receive to be considered hot.
+     * <p/>
+     * This property only has meaning when the hot key detection is enabled.
+     */
+    public static final HazelcastProperty MAP_HOT_KEY_THRESHOLD_PERCENTAGE
+            = new HazelcastProperty("hazelcast.map.hot.key.threshold.percentage", 10);
+
+    /**
+     * Defines the depth of the Merkle trees which are maintained over the entries of every map partition.
+     * When the replica versions of a backup replica don't match the owner, the trees of both replicas are
+     * compared and only the entries of the differing leaves are synchronized instead of the whole partition.
+     * A tree of depth {@code n} has {@code 2^n} leaves and costs {@code 2^(n+4)} bytes per map partition.
+     * <p/>
+     * Merkle trees are maintained only for maps with {@link com.hazelcast.config.InMemoryFormat#BINARY} in-memory
+     * format. A value of {@code 0} disables the Merkle trees, the maximum depth is
+     * {@value com.hazelcast.map.impl.MerkleTree#MAX_DEPTH}.
+     */
+    public static final HazelcastProperty MAP_MERKLE_TREE_DEPTH
+            = new HazelcastProperty("hazelcast.map.merkle.tree.depth", 0);
+
+    /**
+     * Enables the delta encoding of the events sent to {@link com.hazelcast.map.QueryCache query caches}. The new
+     * value of an updated entry is then replaced by the binary difference to its old value, if the difference is
+     * smaller, so a small change of a wide value only sends the changed bytes. A query cache which no longer holds
+     * the key, e.g. because it evicted it, ignores such an event. A query cache which holds a different old value
+     * evicts the key and reports an {@link com.hazelcast.map.EventLostEvent event loss} of its partition.
+     * <p/>
+     * Events of consecutive updates of a key are only merged into a single event by query caches with
+     * {@link com.hazelcast.config.QueryCacheConfig#isCoalesce() coalescing} enabled. The delta encoded events can
+     * only be applied by members and clients of this version, so the delta encoding is disabled by default.
+     */
+    public static final HazelcastProperty QUERY_CACHE_DELTA_ENCODING_ENABLED
+            = new HazelcastProperty("hazelcast.map.query.cache.delta.encoding.enabled", false);
+
     /**
      * Using back pressure, you can prevent an overload of pending asynchronous backups. With a map with a
      * single asynchronous backup, producing asynchronous backups could happen at a higher rate than
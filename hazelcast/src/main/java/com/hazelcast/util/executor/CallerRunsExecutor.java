@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.util.executor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} which runs the commands on the calling thread. It is used for short callbacks which can run
+ * inline on the thread completing a future.
+ */
+public final class CallerRunsExecutor implements Executor {
+
+    /**
+     * The singleton instance of the executor.
+     */
+    public static final CallerRunsExecutor INSTANCE = new CallerRunsExecutor();
+
+    private CallerRunsExecutor() {
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.client.impl.protocol.util;
+
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.MapPutCodec;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.client.impl.protocol.util.ClientMessageChannelInboundHandler.MAX_SHARED_FRAME_LENGTH;
+import static com.hazelcast.client.impl.protocol.util.ClientMessageChannelInboundHandler.RECEIVE_CHUNK_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientMessageChannelInboundHandlerTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final SwCounter readCounter = SwCounter.newSwCounter();
+    private final List<ClientMessage> received = new ArrayList<ClientMessage>();
+
+    private ClientMessageChannelInboundHandler handler;
+
+    @Before
+    public void setUp() {
+        handler = new ClientMessageChannelInboundHandler(readCounter, new ClientMessageChannelInboundHandler.MessageHandler() {
+            @Override
+            public void handleMessage(ClientMessage message) {
+                received.add(message);
+            }
+        });
+    }
+
+    @Test
+    public void smallFrames_areReadIntoSharedChunks() throws Exception {
+        int messageCount = 2 * RECEIVE_CHUNK_SIZE / 100;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < messageCount; i++) {
+            stream.write(toBytes(encodePut(i, new byte[i % 50])));
+        }
+
+        // split the stream at boundaries which do not line up with the frames
+        read(stream.toByteArray(), 1000);
+
+        assertEquals(messageCount, received.size());
+        assertEquals(messageCount, readCounter.get());
+        assertSame(received.get(0).buffer(), received.get(1).buffer());
+        assertNotSame(received.get(0).buffer(), received.get(messageCount - 1).buffer());
+        // the earlier messages are still intact after more frames have been read
+        for (int i = 0; i < messageCount; i++) {
+            assertPut(i, new byte[i % 50], received.get(i));
+        }
+    }
+
+    @Test
+    public void largeFrame_getsOwnBuffer() throws Exception {
+        byte[] value = new byte[MAX_SHARED_FRAME_LENGTH];
+        value[value.length - 1] = 1;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(toBytes(encodePut(1, new byte[1])));
+        stream.write(toBytes(encodePut(2, value)));
+        stream.write(toBytes(encodePut(3, new byte[1])));
+
+        read(stream.toByteArray(), 100);
+
+        assertEquals(3, received.size());
+        ClientMessage large = received.get(1);
+        assertEquals(0, large.offset());
+        assertNotSame(received.get(0).buffer(), large.buffer());
+        assertSame(received.get(0).buffer(), received.get(2).buffer());
+        assertTrue(received.get(2).offset() > 0);
+        assertPut(1, new byte[1], received.get(0));
+        assertPut(2, value, large);
+        assertPut(3, new byte[1], received.get(2));
+    }
+
+    @Test
+    public void messagesAtOffset_equalTheirOriginal() throws Exception {
+        ClientMessage first = encodePut(1, new byte[10]);
+        ClientMessage second = encodePut(2, new byte[10]);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(toBytes(first));
+        stream.write(toBytes(second));
+
+        read(stream.toByteArray(), Integer.MAX_VALUE);
+
+        assertEquals(first, received.get(0));
+        assertEquals(second, received.get(1));
+        assertEquals(second.hashCode(), received.get(1).hashCode());
+    }
+
+    @Test
+    public void copy_doesNotShareTheChunk() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(toBytes(encodePut(1, new byte[10])));
+        stream.write(toBytes(encodePut(2, new byte[20])));
+        read(stream.toByteArray(), Integer.MAX_VALUE);
+        ClientMessage message = received.get(1);
+        message.getCorrelationId();
+        int index = message.index();
+
+        ClientMessage copy = message.copy();
+
+        assertNotSame(message.buffer(), copy.buffer());
+        assertEquals(0, copy.offset());
+        assertEquals(message.getFrameLength(), copy.buffer().capacity());
+        assertEquals(index, copy.index());
+        assertEquals(message, copy);
+        assertPut(2, new byte[20], copy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void frameLengthSmallerThanHeader_isRejected() throws Exception {
+        ByteBuffer src = ByteBuffer.allocate(ClientMessage.HEADER_SIZE);
+        src.putInt(0, Integer.reverseBytes(ClientMessage.HEADER_SIZE - 1));
+        handler.onRead(src);
+    }
+
+    private ClientMessage encodePut(int key, byte[] value) {
+        ClientMessage message = MapPutCodec.encodeRequest("map", serializationService.toData(key),
+                serializationService.toData(value), key, -1);
+        message.addFlag(ClientMessage.BEGIN_AND_END_FLAGS);
+        message.setCorrelationId(key);
+        return message;
+    }
+
+    private void assertPut(int key, byte[] value, ClientMessage message) {
+        assertEquals(key, message.getCorrelationId());
+        MapPutCodec.RequestParameters parameters = MapPutCodec.decodeRequest(message);
+        assertEquals(key, (int) serializationService.<Integer>toObject(parameters.key));
+        assertArrayEquals(value, (byte[]) serializationService.toObject(parameters.value));
+    }
+
+    private void read(byte[] bytes, int readSize) throws Exception {
+        for (int position = 0; position < bytes.length; position += readSize) {
+            ByteBuffer src = ByteBuffer.wrap(bytes, position, Math.min(readSize, bytes.length - position));
+            handler.onRead(src);
+        }
+    }
+
+    private static byte[] toBytes(ClientMessage message) {
+        byte[] bytes = new byte[message.getFrameLength()];
+        System.arraycopy(message.buffer().byteArray(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+}
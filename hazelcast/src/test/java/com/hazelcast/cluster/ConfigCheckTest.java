@@ -101,6 +101,34 @@ public class ConfigCheckTest {
         assertIsCompatibleThrowsConfigMismatchException(configCheck1, configCheck2);
     }
 
+    @Test
+    public void whenDifferentMaxParallelMigrations_thenConfigurationMismatchException() {
+        Config config1 = new Config();
+        config1.setProperty(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS.getName(), "1");
+
+        Config config2 = new Config();
+        config2.setProperty(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS.getName(), "4");
+
+        ConfigCheck configCheck1 = new ConfigCheck(config1, "joiner");
+        ConfigCheck configCheck2 = new ConfigCheck(config2, "joiner");
+
+        assertIsCompatibleThrowsConfigMismatchException(configCheck1, configCheck2);
+    }
+
+    @Test
+    public void whenMaxParallelMigrationsIsDefaultAndSetToDefault_thenCompatible() {
+        Config config1 = new Config();
+
+        Config config2 = new Config();
+        config2.setProperty(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS.getName(), "1");
+
+        ConfigCheck configCheck1 = new ConfigCheck(config1, "joiner");
+        ConfigCheck configCheck2 = new ConfigCheck(config2, "joiner");
+
+        Assert.assertTrue(configCheck1.isCompatible(configCheck2));
+        Assert.assertTrue(configCheck2.isCompatible(configCheck1));
+    }
+
     @Test
     public void whenGroupPartitionEnabledMismatch_thenConfigurationMismatchException() {
         Config config1 = new Config();
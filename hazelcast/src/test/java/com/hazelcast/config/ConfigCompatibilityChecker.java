@@ -523,6 +523,7 @@ class ConfigCompatibilityChecker {
                     && nullSafeEqual(c1.getMinEvictionCheckMillis(), c2.getMinEvictionCheckMillis())
                     && nullSafeEqual(c1.getMergePolicy(), c2.getMergePolicy())
                     && nullSafeEqual(c1.isReadBackupData(), c2.isReadBackupData())
+                    && nullSafeEqual(c1.isHotKeyReadBackupData(), c2.isHotKeyReadBackupData())
                     && ConfigCompatibilityChecker.isCompatible(c1.getHotRestartConfig(), c2.getHotRestartConfig())
                     && isCompatible(c1.getMapStoreConfig(), c2.getMapStoreConfig())
                     && isCompatible(c1.getNearCacheConfig(), c2.getNearCacheConfig())
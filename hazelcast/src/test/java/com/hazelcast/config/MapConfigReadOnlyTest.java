@@ -250,6 +250,11 @@ public class MapConfigReadOnlyTest {
         getReadOnlyConfig().setReadBackupData(true);
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void setHotKeyReadBackupDataOfReadOnlyMapConfigShouldFail() {
+        getReadOnlyConfig().setHotKeyReadBackupData(true);
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void setWanReplicationRefOfReadOnlyMapConfigShouldFail() {
         getReadOnlyConfig().setWanReplicationRef(new WanReplicationRef());
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.core;
+
+import com.hazelcast.logging.Logger;
+import com.hazelcast.ringbuffer.OverflowPolicy;
+import com.hazelcast.ringbuffer.Ringbuffer;
+import com.hazelcast.spi.impl.AbstractCompletableFuture;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class FutureStageTest extends HazelcastTestSupport {
+
+    private static final IFunction<String, Integer> LENGTH = new IFunction<String, Integer>() {
+        @Override
+        public Integer apply(String input) {
+            return input.length();
+        }
+    };
+
+    @Test
+    public void testThenApply_onCompletedStage() throws Exception {
+        assertEquals(5, (int) FutureStage.completed("hello").thenApply(LENGTH).get());
+    }
+
+    @Test
+    public void testThenApply_runsInline_onCompletingThread() throws Exception {
+        TestFuture<String> source = new TestFuture<String>();
+        final AtomicReference<Thread> applyingThread = new AtomicReference<Thread>();
+        FutureStage<Integer> stage = FutureStage.of(source).thenApply(new IFunction<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                applyingThread.set(Thread.currentThread());
+                return input.length();
+            }
+        });
+        assertFalse(stage.isDone());
+
+        source.complete("abc");
+
+        assertTrue(stage.isDone());
+        assertEquals(3, (int) stage.get());
+        assertSame(Thread.currentThread(), applyingThread.get());
+    }
+
+    @Test
+    public void testThenApply_runsOnExecutor() throws Exception {
+        final AtomicInteger executions = new AtomicInteger();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executions.incrementAndGet();
+                command.run();
+            }
+        };
+        TestFuture<String> source = new TestFuture<String>();
+        FutureStage<Integer> stage = FutureStage.of(source, executor).thenApply(LENGTH)
+                .thenApply(new IFunction<Integer, Integer>() {
+                    @Override
+                    public Integer apply(Integer input) {
+                        return input * 2;
+                    }
+                });
+
+        source.complete("abc");
+
+        assertEquals(6, (int) stage.get());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testFailure_skipsThenApply_andIsRecoveredByExceptionally() throws Exception {
+        final AtomicInteger applied = new AtomicInteger();
+        FutureStage<Integer> stage = FutureStage.<String>failed(new IllegalStateException("expected"))
+                .thenApply(new IFunction<String, Integer>() {
+                    @Override
+                    public Integer apply(String input) {
+                        applied.incrementAndGet();
+                        return 1;
+                    }
+                });
+        assertFailsWith(stage, IllegalStateException.class);
+
+        FutureStage<Integer> recovered = stage.exceptionally(new IFunction<Throwable, Integer>() {
+            @Override
+            public Integer apply(Throwable input) {
+                return input instanceof IllegalStateException ? -1 : -2;
+            }
+        });
+        assertEquals(-1, (int) recovered.get());
+        assertEquals(0, applied.get());
+    }
+
+    @Test
+    public void testThenApply_whenFunctionThrows() {
+        FutureStage<Integer> stage = FutureStage.completed("a").thenApply(new IFunction<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                throw new IllegalArgumentException("expected");
+            }
+        });
+        assertFailsWith(stage, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testGet_whenFailedWithCheckedException() throws Exception {
+        TestFuture<String> source = new TestFuture<String>();
+        FutureStage<Integer> stage = FutureStage.of(source).thenApply(LENGTH);
+
+        source.complete(new IOException("expected"));
+
+        assertFailsWith(stage, IOException.class);
+        try {
+            stage.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testThenCompose() throws Exception {
+        final TestFuture<Integer> second = new TestFuture<Integer>();
+        FutureStage<Integer> stage = FutureStage.completed("abc")
+                .thenCompose(new IFunction<String, ICompletableFuture<Integer>>() {
+                    @Override
+                    public ICompletableFuture<Integer> apply(String input) {
+                        return second;
+                    }
+                });
+        assertFalse(stage.isDone());
+
+        second.complete(42);
+
+        assertEquals(42, (int) stage.get());
+    }
+
+    @Test
+    public void testAllOf() throws Exception {
+        TestFuture<String> first = new TestFuture<String>();
+        TestFuture<String> second = new TestFuture<String>();
+        FutureStage<List<String>> stage = FutureStage.allOf(asList(first, second));
+
+        second.complete("b");
+        assertFalse(stage.isDone());
+        first.complete("a");
+
+        assertEquals(asList("a", "b"), stage.get());
+        assertEquals(Collections.emptyList(), FutureStage.allOf(Collections.<ICompletableFuture<String>>emptyList()).get());
+    }
+
+    @Test
+    public void testAllOf_whenOneFails() {
+        TestFuture<String> first = new TestFuture<String>();
+        TestFuture<String> second = new TestFuture<String>();
+        FutureStage<List<String>> stage = FutureStage.allOf(asList(first, second));
+
+        second.complete(new IllegalStateException("expected"));
+
+        assertFailsWith(stage, IllegalStateException.class);
+    }
+
+    @Test
+    public void testCancel_completesDependentsAndCancelsSource() {
+        TestFuture<String> source = new TestFuture<String>();
+        FutureStage<String> stage = FutureStage.of(source);
+        FutureStage<Integer> dependent = stage.thenApply(LENGTH);
+
+        assertTrue(stage.cancel(true));
+
+        assertTrue(stage.isCancelled());
+        assertTrue(source.isCancelled());
+        assertTrue(dependent.isDone());
+        assertFailsWith(dependent, CancellationException.class);
+        assertFalse(stage.cancel(true));
+    }
+
+    @Test
+    public void testComposingDistributedObjects() throws Exception {
+        HazelcastInstance hz = createHazelcastInstance();
+        final IMap<String, String> map = hz.getMap(randomMapName());
+        final IAtomicLong counter = hz.getAtomicLong(randomName());
+        final Ringbuffer<Integer> ringbuffer = hz.getRingbuffer(randomName());
+        map.put("key", "value");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            composeDistributedObjects(executor, map, counter, ringbuffer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void composeDistributedObjects(Executor executor, IMap<String, String> map, final IAtomicLong counter,
+                                                  final Ringbuffer<Integer> ringbuffer) throws Exception {
+        // the calls are composed from within callbacks, so they must not run on the partition threads
+        FutureStage<Long> stage = FutureStage.of(map.getAsync("key"), executor)
+                .thenApply(LENGTH)
+                .thenCompose(new IFunction<Integer, ICompletableFuture<Long>>() {
+                    @Override
+                    public ICompletableFuture<Long> apply(Integer length) {
+                        return counter.addAndGetAsync(length);
+                    }
+                })
+                .thenCompose(new IFunction<Long, ICompletableFuture<Long>>() {
+                    @Override
+                    public ICompletableFuture<Long> apply(Long count) {
+                        return ringbuffer.addAsync(count.intValue(), OverflowPolicy.OVERWRITE);
+                    }
+                });
+
+        assertEquals(0, (long) stage.get());
+        assertEquals(5, counter.get());
+        assertEquals(5, (int) ringbuffer.readOne(0));
+        assertEquals(Arrays.asList(5L, 0L), FutureStage.allOf(asList(counter.getAsync(), stage)).get());
+    }
+
+    /**
+     * Asserts that {@link FutureStage#get()} throws the failure wrapped in an {@link ExecutionException},
+     * or a {@link CancellationException} as it is.
+     */
+    private static void assertFailsWith(FutureStage<?> stage, Class<? extends Throwable> expected) {
+        assertTrue(stage.isDone());
+        try {
+            stage.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertFalse(expected == CancellationException.class);
+            assertTrue(e.getCause().toString(), expected.isInstance(e.getCause()));
+        } catch (CancellationException e) {
+            assertTrue(expected == CancellationException.class);
+        } catch (Throwable t) {
+            throw new AssertionError("Unexpected failure: " + t);
+        }
+    }
+
+    private static final class TestFuture<V> extends AbstractCompletableFuture<V> {
+
+        TestFuture() {
+            super(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            }, Logger.getLogger(TestFuture.class));
+        }
+
+        void complete(Object result) {
+            setResult(result);
+        }
+    }
+}
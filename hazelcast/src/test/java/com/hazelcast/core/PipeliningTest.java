@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.core;
+
+import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.impl.AbstractCompletableFuture;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PipeliningTest extends HazelcastTestSupport {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_whenDepthIsZero() {
+        new Pipelining<String>(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAdd_whenNull() throws Exception {
+        new Pipelining<String>(1).add(null);
+    }
+
+    @Test
+    public void testAdd_blocksWhenDepthIsReached() throws Exception {
+        final Pipelining<String> pipelining = new Pipelining<String>(2);
+        TestFuture future1 = new TestFuture();
+        pipelining.add(future1);
+        pipelining.add(new TestFuture());
+
+        final AtomicInteger addedCount = new AtomicInteger();
+        final TestFuture future3 = new TestFuture();
+        spawn(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pipelining.add(future3);
+                    addedCount.incrementAndGet();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        assertTrueAllTheTime(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(0, addedCount.get());
+            }
+        }, 2);
+
+        future1.complete("1");
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(1, addedCount.get());
+            }
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResults_whenFutureFailed() throws Exception {
+        Pipelining<String> pipelining = new Pipelining<String>(1);
+        TestFuture future = new TestFuture();
+        future.complete(new IllegalStateException());
+        pipelining.add(future);
+
+        pipelining.results();
+    }
+
+    @Test
+    public void testResults_inOrderOfAdding() throws Exception {
+        HazelcastInstance hz = createHazelcastInstance();
+        IMap<Integer, String> map = hz.getMap(randomMapName());
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "value" + i);
+        }
+
+        Pipelining<String> pipelining = new Pipelining<String>(10);
+        for (int i = 0; i < 100; i++) {
+            pipelining.add(map.getAsync(i));
+        }
+        List<String> results = pipelining.results();
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, results.get(i));
+        }
+    }
+
+    private static final class TestFuture extends AbstractCompletableFuture<String> {
+
+        TestFuture() {
+            super(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            }, Logger.getLogger(TestFuture.class));
+        }
+
+        void complete(Object result) {
+            setResult(result);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.runner.RunWith;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category({QuickTest.class, ParallelTest.class})
@@ -53,6 +54,7 @@ public class NoopHotRestartServicesTest {
         assertFalse(service.triggerForceStart());
         assertFalse(service.triggerPartialStart());
         assertFalse(service.isMemberExcluded(null, null));
+        assertNull(service.getLocalReplicaStore());
         assertEquals(0, service.getExcludedMemberUuids().size());
         final ClusterHotRestartStatusDTO expected = new ClusterHotRestartStatusDTO();
         final ClusterHotRestartStatusDTO dto = service.getCurrentClusterHotRestartStatus();
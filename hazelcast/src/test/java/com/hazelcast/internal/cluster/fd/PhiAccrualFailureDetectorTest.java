@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.fd;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PhiAccrualFailureDetectorTest {
+
+    private static final double THRESHOLD = 10;
+    private static final int SAMPLE_SIZE = 100;
+    private static final double MIN_STD_DEV_MILLIS = 100;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 1000;
+
+    @Test
+    public void phi_isZero_whenNoHeartbeat() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+
+        assertEquals(0, failureDetector.phi(10000), 0);
+        assertTrue(failureDetector.isAvailable(10000));
+    }
+
+    @Test
+    public void phi_increases_withTimeSinceLastHeartbeat() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        heartbeatRegularly(failureDetector, 0, 10);
+
+        double previousPhi = 0;
+        for (long timeDiff = 100; timeDiff < 5000; timeDiff += 100) {
+            double phi = failureDetector.phi(9000 + timeDiff);
+            assertTrue(phi >= previousPhi);
+            previousPhi = phi;
+        }
+    }
+
+    @Test
+    public void member_isAvailable_whenHeartbeatsAreRegular() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        heartbeatRegularly(failureDetector, 0, 20);
+
+        assertTrue(failureDetector.isAvailable(19000 + HEARTBEAT_INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void member_isNotAvailable_whenHeartbeatsStop() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        heartbeatRegularly(failureDetector, 0, 20);
+
+        assertFalse(failureDetector.isAvailable(19000 + 5 * HEARTBEAT_INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void member_isAvailable_duringAcceptablePause() {
+        long acceptablePauseMillis = 10000;
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(acceptablePauseMillis);
+        heartbeatRegularly(failureDetector, 0, 20);
+
+        // a GC pause shorter than the acceptable pause
+        assertTrue(failureDetector.isAvailable(19000 + acceptablePauseMillis));
+        assertFalse(failureDetector.isAvailable(19000 + 2 * acceptablePauseMillis));
+    }
+
+    @Test
+    public void phi_adaptsToHeartbeatJitter() {
+        PhiAccrualFailureDetector regular = newFailureDetector(0);
+        PhiAccrualFailureDetector jittery = newFailureDetector(0);
+        long timestamp = 0;
+        for (int i = 0; i < 50; i++) {
+            regular.heartbeat(timestamp);
+            timestamp += HEARTBEAT_INTERVAL_MILLIS;
+        }
+        long jitteryTimestamp = 0;
+        for (int i = 0; i < 50; i++) {
+            jittery.heartbeat(jitteryTimestamp);
+            jitteryTimestamp += i % 2 == 0 ? HEARTBEAT_INTERVAL_MILLIS / 2 : 3 * HEARTBEAT_INTERVAL_MILLIS / 2;
+        }
+
+        long silence = 2 * HEARTBEAT_INTERVAL_MILLIS;
+        assertTrue(regular.phi(regular.lastHeartbeat() + silence) > jittery.phi(jittery.lastHeartbeat() + silence));
+    }
+
+    @Test
+    public void olderHeartbeat_isIgnored() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        failureDetector.heartbeat(5000);
+        failureDetector.heartbeat(4000);
+
+        assertEquals(5000, failureDetector.lastHeartbeat());
+    }
+
+    @Test
+    public void gossipedHeartbeat_keepsMemberAvailable() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        heartbeatRegularly(failureDetector, 0, 20);
+        long gossipedHeartbeat = 19000 + 3 * HEARTBEAT_INTERVAL_MILLIS;
+
+        failureDetector.gossipedHeartbeat(gossipedHeartbeat);
+
+        assertEquals(gossipedHeartbeat, failureDetector.lastHeartbeat());
+        assertTrue(failureDetector.isAvailable(gossipedHeartbeat + HEARTBEAT_INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void gossipedHeartbeat_isNotAddedToInterArrivalHistory() {
+        PhiAccrualFailureDetector gossiped = newFailureDetector(0);
+        PhiAccrualFailureDetector received = newFailureDetector(0);
+        heartbeatRegularly(gossiped, 0, 20);
+        heartbeatRegularly(received, 0, 20);
+
+        // gossip between the received heartbeats would shorten the inter-arrival times if it was recorded
+        for (long timestamp = 20000; timestamp < 40000; timestamp += HEARTBEAT_INTERVAL_MILLIS) {
+            gossiped.gossipedHeartbeat(timestamp - HEARTBEAT_INTERVAL_MILLIS / 10);
+            gossiped.heartbeat(timestamp);
+            received.heartbeat(timestamp);
+        }
+
+        long silence = 2 * HEARTBEAT_INTERVAL_MILLIS;
+        assertEquals(received.phi(received.lastHeartbeat() + silence), gossiped.phi(gossiped.lastHeartbeat() + silence), 0);
+    }
+
+    @Test
+    public void olderGossipedHeartbeat_isIgnored() {
+        PhiAccrualFailureDetector failureDetector = newFailureDetector(0);
+        failureDetector.heartbeat(5000);
+        failureDetector.gossipedHeartbeat(4000);
+
+        assertEquals(5000, failureDetector.lastHeartbeat());
+    }
+
+    @Test
+    public void phi_isNotNaN_forHugeTimeDifference() {
+        double phi = PhiAccrualFailureDetector.phi(Long.MAX_VALUE / 2, 1000, 100);
+
+        assertFalse(Double.isNaN(phi));
+        assertTrue(phi > THRESHOLD);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_withNonPositiveThreshold() {
+        new PhiAccrualFailureDetector(0, SAMPLE_SIZE, MIN_STD_DEV_MILLIS, 0, HEARTBEAT_INTERVAL_MILLIS);
+    }
+
+    private static PhiAccrualFailureDetector newFailureDetector(long acceptablePauseMillis) {
+        return new PhiAccrualFailureDetector(THRESHOLD, SAMPLE_SIZE, MIN_STD_DEV_MILLIS, acceptablePauseMillis,
+                HEARTBEAT_INTERVAL_MILLIS);
+    }
+
+    private static void heartbeatRegularly(PhiAccrualFailureDetector failureDetector, long start, int count) {
+        for (int i = 0; i < count; i++) {
+            failureDetector.heartbeat(start + i * HEARTBEAT_INTERVAL_MILLIS);
+        }
+    }
+}
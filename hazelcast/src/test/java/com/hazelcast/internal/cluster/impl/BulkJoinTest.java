@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.spi.properties.GroupProperty.BULK_JOIN_ENABLED;
+import static com.hazelcast.spi.properties.GroupProperty.INITIAL_MIN_CLUSTER_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class BulkJoinTest extends HazelcastTestSupport {
+
+    private static final int CLUSTER_SIZE = 4;
+
+    @Test
+    public void membersJoin_inSingleMemberListUpdate_withInitializedPartitionTable() throws Exception {
+        HazelcastInstance[] instances = startClusterConcurrently(true);
+        final HazelcastInstance master = instances[0];
+
+        final int memberListVersion = getMemberListVersion(master);
+        final int partitionStateVersion = getPartitionService(master).getPartitionStateVersion();
+        // the master has created the member list for itself, then admitted all other members at once
+        assertEquals(2, memberListVersion);
+        for (HazelcastInstance instance : instances) {
+            assertTrue(getPartitionService(instance).isPartitionTableInitialized());
+        }
+
+        assertTrueAllTheTime(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(memberListVersion, getMemberListVersion(master));
+                assertEquals(partitionStateVersion, getPartitionService(master).getPartitionStateVersion());
+                assertEquals(0, getPartitionService(master).getMigrationQueueSize());
+            }
+        }, 3);
+
+        for (HazelcastInstance instance : instances) {
+            assertEquals(partitionStateVersion, getPartitionService(instance).getPartitionStateVersion());
+            assertTrue(getPartitionService(instance).getMemberPartitions(getAddress(instance)).size() > 0);
+        }
+    }
+
+    @Test
+    public void partitionTable_isNotInitializedByJoin_whenBulkJoinDisabled() throws Exception {
+        HazelcastInstance[] instances = startClusterConcurrently(false);
+
+        for (HazelcastInstance instance : instances) {
+            assertEquals(CLUSTER_SIZE, instance.getCluster().getMembers().size());
+        }
+        // the first member initializes the partition table after the initial cluster size is reached
+        waitAllForSafeState(instances);
+    }
+
+    private HazelcastInstance[] startClusterConcurrently(boolean bulkJoinEnabled) throws Exception {
+        final Config config = new Config()
+                .setProperty(BULK_JOIN_ENABLED.getName(), String.valueOf(bulkJoinEnabled))
+                .setProperty(INITIAL_MIN_CLUSTER_SIZE.getName(), String.valueOf(CLUSTER_SIZE));
+        final TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(CLUSTER_SIZE);
+
+        List<Future<HazelcastInstance>> futures = new ArrayList<Future<HazelcastInstance>>();
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            futures.add(spawn(new Callable<HazelcastInstance>() {
+                @Override
+                public HazelcastInstance call() {
+                    return factory.newHazelcastInstance(config);
+                }
+            }));
+            if (i == 0) {
+                // let the first member become the master
+                sleepSeconds(1);
+            }
+        }
+        HazelcastInstance[] instances = new HazelcastInstance[CLUSTER_SIZE];
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            instances[i] = futures.get(i).get();
+        }
+        assertClusterSize(CLUSTER_SIZE, instances);
+        return instances;
+    }
+
+    private static int getMemberListVersion(HazelcastInstance instance) {
+        return getNode(instance).getClusterService().getMembershipManager().getMemberListVersion();
+    }
+}
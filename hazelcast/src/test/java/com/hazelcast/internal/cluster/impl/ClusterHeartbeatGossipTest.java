@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.internal.cluster.fd.ClusterFailureDetectorType;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.internal.cluster.impl.ClusterDataSerializerHook.GOSSIP_HEARTBEAT;
+import static com.hazelcast.internal.cluster.impl.ClusterDataSerializerHook.HEARTBEAT;
+import static com.hazelcast.internal.cluster.impl.PacketFiltersUtil.dropOperationsBetween;
+import static com.hazelcast.internal.cluster.impl.PacketFiltersUtil.dropOperationsFrom;
+import static com.hazelcast.spi.properties.GroupProperty.HEARTBEAT_FAILURE_DETECTOR_TYPE;
+import static com.hazelcast.spi.properties.GroupProperty.HEARTBEAT_GOSSIP_FANOUT;
+import static com.hazelcast.spi.properties.GroupProperty.HEARTBEAT_INTERVAL_SECONDS;
+import static com.hazelcast.spi.properties.GroupProperty.MAX_NO_HEARTBEAT_SECONDS;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClusterHeartbeatGossipTest extends HazelcastTestSupport {
+
+    private TestHazelcastInstanceFactory factory;
+
+    @Before
+    public void init() {
+        factory = createHazelcastInstanceFactory();
+    }
+
+    @Test
+    public void heartbeats_arePropagated_byGossip() {
+        Config config = newConfig(ClusterFailureDetectorType.DEADLINE);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        final HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        final HazelcastInstance slave3 = factory.newHazelcastInstance(config);
+        assertClusterSizeEventually(4, master, slave1, slave2, slave3);
+
+        // slave1 can reach slave3 only through the heartbeat gossip of the others
+        dropOperationsBetween(slave1, slave3, HEARTBEAT, GOSSIP_HEARTBEAT);
+
+        final ClusterHeartbeatManager heartbeatManager = getNode(slave3).getClusterService().getClusterHeartbeatManager();
+        final MemberImpl member = (MemberImpl) slave1.getCluster().getLocalMember();
+        final long heartbeatTime = heartbeatManager.getHeartbeatTime(member);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertTrue(heartbeatManager.getHeartbeatTime(member) > heartbeatTime + 3000);
+            }
+        });
+        assertClusterSize(4, master, slave1, slave2, slave3);
+    }
+
+    @Test
+    public void slave_heartbeatTimeout_withGossip() {
+        Config config = newConfig(ClusterFailureDetectorType.DEADLINE);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave3 = factory.newHazelcastInstance(config);
+        assertClusterSizeEventually(4, master, slave1, slave2, slave3);
+
+        dropOperationsFrom(slave3, HEARTBEAT, GOSSIP_HEARTBEAT);
+
+        assertClusterSizeEventually(3, master, slave1, slave2);
+        assertClusterSizeEventually(1, slave3);
+    }
+
+    @Test
+    public void slave_heartbeatTimeout_withGossipAndPhiAccrualFailureDetector() {
+        Config config = newConfig(ClusterFailureDetectorType.PHI_ACCRUAL);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave3 = factory.newHazelcastInstance(config);
+        assertClusterSizeEventually(4, master, slave1, slave2, slave3);
+
+        dropOperationsFrom(slave3, HEARTBEAT, GOSSIP_HEARTBEAT);
+
+        assertClusterSizeEventually(3, master, slave1, slave2);
+    }
+
+    private static Config newConfig(ClusterFailureDetectorType failureDetectorType) {
+        return new Config()
+                .setProperty(HEARTBEAT_FAILURE_DETECTOR_TYPE.getName(), failureDetectorType.name())
+                .setProperty(HEARTBEAT_GOSSIP_FANOUT.getName(), "1")
+                .setProperty(MAX_NO_HEARTBEAT_SECONDS.getName(), "10")
+                .setProperty(HEARTBEAT_INTERVAL_SECONDS.getName(), "1");
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2008 - 2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.cluster.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.cluster.fd.ClusterFailureDetectorType;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.spi.properties.GroupProperty.HEARTBEAT_FAILURE_DETECTOR_TYPE;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class MembershipFailureTest_withPhiAccrualFailureDetector extends MembershipFailureTest {
+
+    @Override
+    HazelcastInstance newHazelcastInstance() {
+        return newHazelcastInstance(new Config());
+    }
+
+    @Override
+    HazelcastInstance newHazelcastInstance(Config config) {
+        config.setProperty(HEARTBEAT_FAILURE_DETECTOR_TYPE.getName(), ClusterFailureDetectorType.PHI_ACCRUAL.name());
+        return super.newHazelcastInstance(config);
+    }
+}
@@ -95,6 +95,18 @@ public class ConfigValidatorTest extends HazelcastTestSupport {
         checkNearCacheConfig(MAP_NAME, getNearCacheConfig(NATIVE), false);
     }
 
+    @Test
+    public void checkNearCacheConfig_NATIVE_withEnabledNativeMemory() {
+        NativeMemoryConfig nativeMemoryConfig = new NativeMemoryConfig().setEnabled(true);
+
+        checkNearCacheConfig(MAP_NAME, getNearCacheConfig(NATIVE), nativeMemoryConfig, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkNearCacheConfig_NATIVE_withDisabledNativeMemory() {
+        checkNearCacheConfig(MAP_NAME, getNearCacheConfig(NATIVE), new NativeMemoryConfig(), false);
+    }
+
     /**
      * Not supported client configuration, so test is expected to throw exception.
      */
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.cluster.ClusterState;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.EntryView;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.internal.cluster.impl.AdvancedClusterStateTest.changeClusterStateEventually;
+import static com.hazelcast.spi.properties.GroupProperty.LOCAL_REPLICA_PERSISTENCE_DIR;
+import static com.hazelcast.spi.properties.GroupProperty.LOCAL_REPLICA_PERSISTENCE_ENABLED;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class LocalReplicaPersistenceTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 1000;
+    private static final int TTL_SECONDS = 20;
+
+    private File directory;
+    private TestHazelcastInstanceFactory factory;
+
+    @Before
+    public void setUp() {
+        directory = new File(System.getProperty("java.io.tmpdir"), randomName());
+        factory = createHazelcastInstanceFactory(4);
+    }
+
+    @After
+    public void tearDown() {
+        factory.terminateAll();
+        IOUtil.delete(directory);
+    }
+
+    @Test
+    public void testReplicasAreRestored_whenMemberRejoins_duringClusterStateIsFrozen() {
+        testReplicasAreRestored(ClusterState.FROZEN);
+    }
+
+    @Test
+    public void testReplicasAreRestored_whenMemberRejoins_duringClusterStateIsPassive() {
+        testReplicasAreRestored(ClusterState.PASSIVE);
+    }
+
+    @Test
+    public void testReplicasAreRestored_afterUpdatesAndRemovals() {
+        Config config = newConfig();
+        HazelcastInstance[] instances = factory.newInstances(config, 3);
+        warmUpPartitions(instances);
+
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = instances[0].getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            if (i % 2 == 0) {
+                map.remove(i);
+            } else {
+                map.put(i, -i);
+            }
+        }
+        waitAllForSafeState(instances);
+
+        restartMember(config, instances, ClusterState.FROZEN);
+
+        assertEquals(ENTRY_COUNT / 2, map.size());
+        for (int i = 1; i < ENTRY_COUNT; i += 2) {
+            assertEquals(-i, (int) map.get(i));
+        }
+    }
+
+    @Test
+    public void testRestoredEntriesExpire_whenPutWithTtl() {
+        Config config = newConfig();
+        HazelcastInstance[] instances = factory.newInstances(config, 3);
+        warmUpPartitions(instances);
+
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = instances[0].getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i, TTL_SECONDS, TimeUnit.SECONDS);
+        }
+        waitAllForSafeState(instances);
+
+        HazelcastInstance restarted = restartMember(config, instances, ClusterState.FROZEN);
+
+        Set<Integer> ownedKeys = restarted.<Integer, Integer>getMap(mapName).localKeySet();
+        assertFalse("The restarted member owns no entries", ownedKeys.isEmpty());
+        for (Integer key : ownedKeys) {
+            EntryView<Integer, Integer> entryView = map.getEntryView(key);
+            if (entryView != null) {
+                assertEquals(TimeUnit.SECONDS.toMillis(TTL_SECONDS), entryView.getTtl());
+            }
+        }
+
+        final IMap<Integer, Integer> restartedMap = restarted.getMap(mapName);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(0, restartedMap.size());
+            }
+        });
+    }
+
+    private void testReplicasAreRestored(ClusterState clusterState) {
+        Config config = newConfig();
+        HazelcastInstance[] instances = factory.newInstances(config, 3);
+        warmUpPartitions(instances);
+
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = instances[0].getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+        waitAllForSafeState(instances);
+
+        HazelcastInstance restarted = restartMember(config, instances, clusterState);
+
+        long ownedEntryCount = restarted.getMap(mapName).getLocalMapStats().getOwnedEntryCount();
+        assertTrue("Owned entries of the restarted member: " + ownedEntryCount, ownedEntryCount > 0);
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+
+    private HazelcastInstance restartMember(Config config, HazelcastInstance[] instances, ClusterState clusterState) {
+        changeClusterStateEventually(instances[0], clusterState);
+
+        HazelcastInstance member = instances[2];
+        Address address = getNode(member).getThisAddress();
+        member.shutdown();
+        assertClusterSizeEventually(2, instances[0]);
+
+        HazelcastInstance restarted = factory.newHazelcastInstance(address, config);
+        assertClusterSizeEventually(3, instances[0]);
+        instances[0].getCluster().changeClusterState(ClusterState.ACTIVE);
+        instances[2] = restarted;
+        waitAllForSafeState(instances);
+        return restarted;
+    }
+
+    private Config newConfig() {
+        return new Config()
+                .setProperty(PARTITION_COUNT.getName(), "50")
+                .setProperty(LOCAL_REPLICA_PERSISTENCE_ENABLED.getName(), "true")
+                .setProperty(LOCAL_REPLICA_PERSISTENCE_DIR.getName(), directory.getAbsolutePath());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.hotrestart;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionReplicaLogTest extends HazelcastTestSupport {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private InternalSerializationService serializationService;
+    private File directory;
+    private PartitionReplicaLog log;
+
+    @Before
+    public void setUp() throws Exception {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        directory = new File(System.getProperty("java.io.tmpdir"), randomName());
+        log = new PartitionReplicaLog(directory, SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        log.destroy();
+        IOUtil.delete(directory);
+        serializationService.dispose();
+    }
+
+    @Test
+    public void testRead_returnsLiveEntries() throws Exception {
+        log.appendPut("map", data(1), entry("value1"));
+        log.appendPut("map", data(2), entry("value2"));
+        log.appendPut("map", data(1), entry("value1-updated"));
+        log.appendRemove("map", data(2));
+        log.appendPut("other", data(3), entry("value3"));
+        log.force();
+
+        Map<String, Map<Data, LocalReplicaEntry>> entries = PartitionReplicaLog.read(directory);
+
+        Map<Data, LocalReplicaEntry> mapEntries = entries.get("map");
+        assertEquals(1, mapEntries.size());
+        assertEquals("value1-updated", serializationService.toObject(mapEntries.get(data(1)).getValue()));
+        assertNull(mapEntries.get(data(2)));
+        assertEquals("value3", serializationService.toObject(entries.get("other").get(data(3)).getValue()));
+    }
+
+    @Test
+    public void testRead_returnsEntryMetadata() throws Exception {
+        log.appendPut("map", data(1), new LocalReplicaEntry(data("value1"), 1000L, 1L, 2L, 3L, 1003L, 7L));
+        log.force();
+
+        LocalReplicaEntry entry = PartitionReplicaLog.read(directory).get("map").get(data(1));
+        assertEquals("value1", serializationService.toObject(entry.getValue()));
+        assertEquals(1000L, entry.getTtl());
+        assertEquals(1L, entry.getCreationTime());
+        assertEquals(2L, entry.getLastAccessTime());
+        assertEquals(3L, entry.getLastUpdateTime());
+        assertEquals(1003L, entry.getExpirationTime());
+        assertEquals(7L, entry.getVersion());
+    }
+
+    @Test
+    public void testRead_afterClear() throws Exception {
+        log.appendPut("map", data(1), entry("value1"));
+        log.appendPut("other", data(2), entry("value2"));
+        log.appendClear("map");
+        log.appendPut("map", data(3), entry("value3"));
+
+        Map<String, Map<Data, LocalReplicaEntry>> entries = PartitionReplicaLog.read(directory);
+
+        Map<Data, LocalReplicaEntry> mapEntries = entries.get("map");
+        assertEquals(1, mapEntries.size());
+        assertTrue(mapEntries.containsKey(data(3)));
+        assertEquals(1, entries.get("other").size());
+    }
+
+    @Test
+    public void testRead_spansSegments_andCompactsOverwrittenEntries() throws Exception {
+        byte[] value = new byte[SEGMENT_SIZE / 8];
+        for (int i = 0; i < 1000; i++) {
+            log.appendPut("map", data(i % 10), entry(value));
+        }
+
+        File[] segments = directory.listFiles();
+        assertTrue("Segments: " + segments.length, segments.length < 10);
+
+        Map<Data, LocalReplicaEntry> mapEntries = PartitionReplicaLog.read(directory).get("map");
+        assertEquals(10, mapEntries.size());
+    }
+
+    @Test
+    public void testRecordLargerThanSegment() throws Exception {
+        log.appendPut("map", data(1), entry(new byte[SEGMENT_SIZE * 2]));
+
+        Map<Data, LocalReplicaEntry> mapEntries = PartitionReplicaLog.read(directory).get("map");
+        byte[] value = serializationService.toObject(mapEntries.get(data(1)).getValue());
+        assertEquals(SEGMENT_SIZE * 2, value.length);
+    }
+
+    @Test
+    public void testDestroy_deletesSegments() throws Exception {
+        log.appendPut("map", data(1), entry("value1"));
+
+        log.destroy();
+
+        assertFalse(directory.exists());
+    }
+
+    private LocalReplicaEntry entry(Object value) {
+        return new LocalReplicaEntry(data(value), Long.MAX_VALUE, 0L, 0L, 0L, Long.MAX_VALUE, 0L);
+    }
+
+    private Data data(Object object) {
+        return serializationService.toData(object);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.invalidation;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.nearcache.impl.invalidation.BatchInvalidator.InvalidationQueue;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.nearcache.invalidation.InvalidationListener;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.impl.eventservice.impl.TrueEventFilter;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.hazelcast.internal.nearcache.impl.invalidation.InvalidationUtils.RANGE_INVALIDATION_SOURCE_UUID;
+import static com.hazelcast.internal.nearcache.impl.invalidation.InvalidationUtils.TRUE_FILTER;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class BatchInvalidatorTest extends HazelcastTestSupport {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCH_FREQUENCY_SECONDS = 1;
+
+    private final List<Invalidation> invalidations = new CopyOnWriteArrayList<Invalidation>();
+
+    private HazelcastInstance hz;
+    private InternalSerializationService ss;
+    private String mapName;
+    private BatchInvalidator invalidator;
+
+    @Before
+    public void setUp() {
+        hz = createHazelcastInstance();
+        ss = getSerializationService(hz);
+        mapName = randomMapName();
+        hz.getMap(mapName);
+
+        NodeEngineImpl nodeEngine = getNodeEngineImpl(hz);
+        MapService mapService = nodeEngine.getService(MapService.SERVICE_NAME);
+        MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        mapServiceContext.addEventListener(new InvalidationListener() {
+            @Override
+            public void onInvalidate(Invalidation invalidation) {
+                if (invalidation instanceof BatchNearCacheInvalidation) {
+                    invalidations.addAll(((BatchNearCacheInvalidation) invalidation).getInvalidations());
+                } else {
+                    invalidations.add(invalidation);
+                }
+            }
+        }, TrueEventFilter.INSTANCE, mapName);
+    }
+
+    @After
+    public void tearDown() {
+        if (invalidator != null) {
+            invalidator.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidateKey_coalescesPendingInvalidationsOfSameKey() {
+        invalidator = createInvalidator(0);
+        Data key = ss.toData("key");
+
+        for (int i = 0; i < 50; i++) {
+            invalidator.invalidateKey(key, mapName, "source");
+        }
+
+        assertInvalidationCountEventually(1);
+        assertEquals(1, invalidations.get(0).getSequence());
+    }
+
+    @Test
+    public void invalidateKey_doesNotCoalesceInvalidationsFromDifferentSources() {
+        invalidator = createInvalidator(0);
+        Data key = ss.toData("key");
+
+        invalidator.invalidateKey(key, mapName, "source1");
+        invalidator.invalidateKey(key, mapName, "source2");
+
+        assertInvalidationCountEventually(2);
+    }
+
+    @Test
+    public void invalidateKey_afterSentInvalidation_isNotCoalesced() {
+        invalidator = createInvalidator(0);
+        Data key = ss.toData("key");
+
+        invalidator.invalidateKey(key, mapName, "source");
+        assertInvalidationCountEventually(1);
+
+        invalidator.invalidateKey(key, mapName, "source");
+        assertInvalidationCountEventually(2);
+        assertEquals(2, invalidations.get(1).getSequence());
+    }
+
+    @Test
+    public void invalidateKey_replacesInvalidationsOfPartitionWithRangeInvalidation() {
+        int rangeInvalidationThreshold = 10;
+        invalidator = createInvalidator(rangeInvalidationThreshold);
+
+        Set<String> keys = new HashSet<String>();
+        while (keys.size() < 2 * rangeInvalidationThreshold) {
+            keys.add(generateKeyForPartition(hz, 0));
+        }
+        for (String key : keys) {
+            invalidator.invalidateKey(ss.toData(key), mapName, "source");
+        }
+        invalidator.invalidateKey(ss.toData(generateKeyForPartition(hz, 1)), mapName, "source");
+
+        assertInvalidationCountEventually(2);
+        Invalidation rangeInvalidation = invalidations.get(0);
+        assertEquals(RANGE_INVALIDATION_SOURCE_UUID, rangeInvalidation.getSourceUuid());
+        assertEquals(2 * rangeInvalidationThreshold, rangeInvalidation.getSequence());
+        assertEquals("source", invalidations.get(1).getSourceUuid());
+    }
+
+    @Test
+    public void invalidationQueue_adaptsBatchSizeToEventRate() {
+        InvalidationQueue queue = new InvalidationQueue(BATCH_SIZE);
+        int maxBatchSize = BATCH_SIZE * BatchInvalidator.ADAPTIVE_BATCH_SIZE_MULTIPLIER;
+
+        queue.updateBatchSize(Integer.MAX_VALUE, BATCH_SIZE, maxBatchSize);
+        assertEquals(maxBatchSize, queue.getBatchSize());
+
+        for (int i = 0; i < 100; i++) {
+            queue.updateBatchSize(0, BATCH_SIZE, maxBatchSize);
+        }
+        assertEquals(BATCH_SIZE, queue.getBatchSize());
+    }
+
+    private BatchInvalidator createInvalidator(int rangeInvalidationThreshold) {
+        return new BatchInvalidator(MapService.SERVICE_NAME, BATCH_SIZE, BATCH_FREQUENCY_SECONDS,
+                rangeInvalidationThreshold, TRUE_FILTER, getNodeEngineImpl(hz));
+    }
+
+    private void assertInvalidationCountEventually(final int expectedCount) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(expectedCount, invalidations.size());
+            }
+        });
+        sleepSeconds(BATCH_FREQUENCY_SECONDS);
+        assertEquals(expectedCount, invalidations.size());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.invalidation;
+
+import com.hazelcast.internal.nearcache.NearCache;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+
+import static com.hazelcast.internal.nearcache.impl.invalidation.InvalidationUtils.RANGE_INVALIDATION_SOURCE_UUID;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class RepairingHandlerTest {
+
+    private static final String LOCAL_UUID = "localUuid";
+    private static final String SOURCE_UUID = "sourceUuid";
+
+    private final Data key = new HeapData();
+    private final UUID partitionUuid = UUID.randomUUID();
+
+    private NearCache nearCache;
+    private RepairingHandler repairingHandler;
+    private MetaDataContainer metaData;
+
+    @Before
+    public void setUp() {
+        MinimalPartitionService partitionService = mock(MinimalPartitionService.class);
+        when(partitionService.getPartitionCount()).thenReturn(1);
+        when(partitionService.getPartitionId(any(Data.class))).thenReturn(0);
+
+        nearCache = mock(NearCache.class);
+        repairingHandler = new RepairingHandler(Logger.getLogger(getClass()), LOCAL_UUID, "name", nearCache, partitionService);
+        metaData = repairingHandler.getMetaDataContainer(0);
+    }
+
+    @Test
+    public void handle_withSequenceGap_countsMissedSequences() {
+        repairingHandler.handle(key, SOURCE_UUID, partitionUuid, 1);
+        repairingHandler.handle(key, SOURCE_UUID, partitionUuid, 5);
+
+        assertEquals(5, metaData.getSequence());
+        assertEquals(3, metaData.getMissedSequenceCount());
+        assertEquals(0, metaData.getStaleSequence());
+    }
+
+    @Test
+    public void handle_withRangeInvalidation_makesLowerSequencesStale() {
+        repairingHandler.handle(key, SOURCE_UUID, partitionUuid, 1);
+        repairingHandler.handle(key, RANGE_INVALIDATION_SOURCE_UUID, partitionUuid, 42);
+
+        verify(nearCache, times(2)).remove(key);
+        assertEquals(partitionUuid, metaData.getUuid());
+        assertEquals(42, metaData.getSequence());
+        assertEquals(42, metaData.getStaleSequence());
+        assertEquals(0, metaData.getMissedSequenceCount());
+    }
+
+    @Test
+    public void handle_withOutdatedRangeInvalidation_keepsHigherSequences() {
+        repairingHandler.handle(key, SOURCE_UUID, partitionUuid, 50);
+        repairingHandler.handle(key, RANGE_INVALIDATION_SOURCE_UUID, partitionUuid, 42);
+
+        assertEquals(50, metaData.getSequence());
+        assertEquals(42, metaData.getStaleSequence());
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.nativememory;
+
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.internal.memory.impl.UnsafeMallocMemoryManager;
+import com.hazelcast.internal.nearcache.CommonNearCacheTestSupport;
+import com.hazelcast.monitor.NearCacheStats;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.config.EvictionConfig.MaxSizePolicy.ENTRY_COUNT;
+import static com.hazelcast.config.EvictionConfig.MaxSizePolicy.USED_NATIVE_MEMORY_SIZE;
+import static com.hazelcast.internal.nearcache.NearCache.CACHED_AS_NULL;
+import static com.hazelcast.internal.nearcache.NearCacheRecord.NOT_RESERVED;
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class NativeNearCacheRecordStoreTest extends CommonNearCacheTestSupport {
+
+    private UnsafeMallocMemoryManager memoryManager;
+    private NativeNearCacheRecordStore<Integer, String> store;
+
+    @Before
+    public void setUp() {
+        memoryManager = new UnsafeMallocMemoryManager(MEGABYTES.toBytes(16));
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            try {
+                store.destroy();
+            } catch (IllegalStateException ignored) {
+                // already destroyed by the test
+            }
+        }
+        memoryManager.dispose();
+    }
+
+    @Test
+    public void putAndGetRecord() {
+        store = createStore(createNativeNearCacheConfig());
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+
+        assertEquals(DEFAULT_RECORD_COUNT, store.size());
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            assertEquals("Record-" + i, store.get(i));
+        }
+    }
+
+    @Test
+    public void putOverwritesExistingRecord() {
+        store = createStore(createNativeNearCacheConfig());
+
+        store.put(1, "first");
+        store.put(1, "second-and-longer");
+
+        assertEquals(1, store.size());
+        assertEquals("second-and-longer", store.get(1));
+        assertEquals(1, store.getNearCacheStats().getOwnedEntryCount());
+    }
+
+    @Test
+    public void putAndRemoveRecord() {
+        store = createStore(createNativeNearCacheConfig());
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            assertTrue(store.remove(i));
+            assertNull(store.get(i));
+        }
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void clear_releasesNativeMemory() {
+        store = createStore(createNativeNearCacheConfig());
+        long usedMemoryBeforePut = memoryManager.getUsedMemory();
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+        assertTrue(memoryManager.getUsedMemory() > usedMemoryBeforePut);
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.getNearCacheStats().getOwnedEntryMemoryCost());
+        assertEquals(usedMemoryBeforePut, memoryManager.getUsedMemory());
+    }
+
+    @Test
+    public void destroy_releasesAllNativeMemory() {
+        store = createStore(createNativeNearCacheConfig());
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+
+        store.destroy();
+
+        assertEquals(0, memoryManager.getUsedMemory());
+    }
+
+    @Test
+    public void statsCalculated() {
+        store = createStore(createNativeNearCacheConfig());
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.get(i * 2);
+        }
+
+        NearCacheStats stats = store.getNearCacheStats();
+        long memoryCostWhenFull = stats.getOwnedEntryMemoryCost();
+        assertEquals(DEFAULT_RECORD_COUNT / 2, stats.getHits());
+        assertEquals(DEFAULT_RECORD_COUNT / 2, stats.getMisses());
+        assertEquals(DEFAULT_RECORD_COUNT, stats.getOwnedEntryCount());
+        assertTrue(memoryCostWhenFull > 0);
+
+        store.remove(0);
+
+        assertEquals(DEFAULT_RECORD_COUNT - 1, stats.getOwnedEntryCount());
+        assertTrue(stats.getOwnedEntryMemoryCost() < memoryCostWhenFull);
+    }
+
+    @Test
+    public void getCachedAsNull_countedOnceAsHit() {
+        store = createStore(createNativeNearCacheConfig());
+        store.put(1, null);
+
+        assertEquals(CACHED_AS_NULL, store.get(1));
+
+        NearCacheStats stats = store.getNearCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(0, stats.getMisses());
+    }
+
+    @Test
+    public void ttlEvaluated() {
+        NearCacheConfig nearCacheConfig = createNativeNearCacheConfig().setTimeToLiveSeconds(1);
+        store = createStore(nearCacheConfig);
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.put(i, "Record-" + i);
+        }
+
+        sleepSeconds(2);
+        store.doExpiration();
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.getNearCacheStats().getOwnedEntryMemoryCost());
+    }
+
+    @Test
+    public void reserveAndPublish() {
+        store = createStore(createNativeNearCacheConfig());
+
+        long reservationId = store.tryReserveForUpdate(1);
+        assertNotEquals(NOT_RESERVED, reservationId);
+        // a reserved record is not visible to readers
+        assertNull(store.get(1));
+
+        assertEquals("value", store.tryPublishReserved(1, "value", reservationId, true));
+        assertEquals("value", store.get(1));
+    }
+
+    @Test
+    public void publishWithStaleReservation_isIgnored() {
+        store = createStore(createNativeNearCacheConfig());
+
+        long reservationId = store.tryReserveForUpdate(1);
+        store.remove(1);
+
+        assertNull(store.tryPublishReserved(1, "value", reservationId, true));
+        assertNull(store.get(1));
+    }
+
+    @Test
+    public void entryCountEviction() {
+        int maxSize = 10;
+        NearCacheConfig nearCacheConfig = createNativeNearCacheConfig();
+        nearCacheConfig.setEvictionConfig(new EvictionConfig(maxSize, ENTRY_COUNT, EvictionPolicy.LRU));
+        store = createStore(nearCacheConfig);
+
+        for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+            store.doEvictionIfRequired();
+            store.put(i, "Record-" + i);
+        }
+
+        assertTrue("size: " + store.size(), store.size() <= maxSize + 1);
+        assertTrue(store.getNearCacheStats().getEvictions() > 0);
+    }
+
+    @Test(timeout = 60000)
+    public void entryCountLimit_withoutEviction_concurrentPutsDoNotDeadlock() throws Exception {
+        final int maxSize = 100;
+        NearCacheConfig nearCacheConfig = createNativeNearCacheConfig();
+        nearCacheConfig.setEvictionConfig(new EvictionConfig(maxSize, ENTRY_COUNT, EvictionPolicy.NONE));
+        store = createStore(nearCacheConfig);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * DEFAULT_RECORD_COUNT;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < DEFAULT_RECORD_COUNT; i++) {
+                        store.put(offset + i, "Record-" + i);
+                        store.tryReserveForUpdate(offset + i + DEFAULT_RECORD_COUNT / 2);
+                        store.remove(offset + i);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue("size: " + store.size(), store.size() <= maxSize);
+    }
+
+    @Test
+    public void dispose_freesBlocksNotFreedByTheirOwner() {
+        UnsafeMallocMemoryManager leakingMemoryManager = new UnsafeMallocMemoryManager(MEGABYTES.toBytes(1));
+        leakingMemoryManager.getAllocator().allocate(128);
+        leakingMemoryManager.getAllocator().allocate(256);
+        assertEquals(384, leakingMemoryManager.getUsedMemory());
+
+        leakingMemoryManager.dispose();
+
+        assertEquals(0, leakingMemoryManager.getUsedMemory());
+    }
+
+    @Test
+    public void nativeMemoryIsExhausted_putEvictsOtherRecords() {
+        UnsafeMallocMemoryManager smallMemoryManager = new UnsafeMallocMemoryManager(MEGABYTES.toBytes(1));
+        NearCacheConfig nearCacheConfig = createNativeNearCacheConfig();
+        nearCacheConfig.setEvictionConfig(new EvictionConfig(1, USED_NATIVE_MEMORY_SIZE, EvictionPolicy.LFU));
+        NativeNearCacheRecordStore<Integer, String> smallStore = new NativeNearCacheRecordStore<Integer, String>(
+                DEFAULT_NEAR_CACHE_NAME, nearCacheConfig, smallMemoryManager, ss, null);
+        smallStore.initialize();
+        try {
+            String value = new String(new char[1024]);
+            for (int i = 0; i < 10000; i++) {
+                smallStore.put(i, value);
+            }
+
+            assertNotNull(smallStore.get(9999));
+            assertTrue(smallStore.size() < 10000);
+            assertTrue(smallMemoryManager.getUsedMemory() <= smallMemoryManager.getMaxMemory());
+        } finally {
+            smallStore.destroy();
+            smallMemoryManager.dispose();
+        }
+    }
+
+    private NearCacheConfig createNativeNearCacheConfig() {
+        NearCacheConfig nearCacheConfig = createNearCacheConfig(DEFAULT_NEAR_CACHE_NAME, InMemoryFormat.NATIVE);
+        nearCacheConfig.setEvictionConfig(new EvictionConfig(Integer.MAX_VALUE, ENTRY_COUNT, EvictionPolicy.LRU));
+        return nearCacheConfig;
+    }
+
+    private NativeNearCacheRecordStore<Integer, String> createStore(NearCacheConfig nearCacheConfig) {
+        NativeNearCacheRecordStore<Integer, String> recordStore = new NativeNearCacheRecordStore<Integer, String>(
+                DEFAULT_NEAR_CACHE_NAME, nearCacheConfig, memoryManager, ss, null);
+        recordStore.initialize();
+        return recordStore;
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.nearcache.impl.preloader;
+
+import com.hazelcast.config.NearCachePreloaderConfig;
+import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataContainer;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector;
+import com.hazelcast.internal.nearcache.impl.record.NearCacheDataRecord;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.monitor.impl.NearCacheStatsImpl;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.hazelcast.internal.nearcache.NearCacheRecord.TIME_NOT_SET;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class NearCachePreloaderTest extends HazelcastTestSupport {
+
+    private static final int KEY_COUNT = 1000;
+
+    private final InternalSerializationService ss = new DefaultSerializationServiceBuilder().build();
+    private final NearCacheStatsImpl nearCacheStats = new NearCacheStatsImpl();
+    private final MetaDataContainer metaData = new MetaDataContainer();
+    private final StaleReadDetector staleReadDetector = new TestStaleReadDetector();
+
+    private String nearCacheName;
+    private File storeFile;
+    private RecordingAdapter adapter;
+    private RecordingEntryLoader entryLoader;
+
+    @Before
+    public void setUp() {
+        nearCacheName = randomName();
+        storeFile = new File("nearCache-" + nearCacheName + ".store");
+        adapter = new RecordingAdapter();
+        entryLoader = new RecordingEntryLoader();
+        metaData.setUuid(UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() {
+        deleteQuietly(storeFile);
+        deleteQuietly(new File(storeFile.getPath() + "~"));
+        deleteQuietly(new File(storeFile.getPath() + ".lock"));
+    }
+
+    @Test
+    public void storeKeys_thenLoadKeys() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        preloader.storeKeys(createKeys(0, KEY_COUNT).iterator());
+        preloader.destroy();
+
+        createPreloader(false).loadKeys(adapter.adapter);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(KEY_COUNT, nearCacheStats.getLastPersistenceKeyCount());
+        assertTrue(nearCacheStats.getLastPersistenceWrittenBytes() > 0);
+    }
+
+    @Test
+    public void storeKeys_withRemovedKeys_thenLoadKeys() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        preloader.storeKeys(createKeys(0, KEY_COUNT).iterator());
+        preloader.storeKeys(createKeys(KEY_COUNT / 2, KEY_COUNT).iterator());
+        preloader.destroy();
+
+        createPreloader(false).loadKeys(adapter.adapter);
+
+        assertEquals(KEY_COUNT / 2, adapter.loadedKeys.size());
+        assertFalse(adapter.loadedKeys.contains(ss.toData(0)));
+        assertTrue(adapter.loadedKeys.contains(ss.toData(KEY_COUNT - 1)));
+    }
+
+    @Test
+    public void storeKeys_appendsJustTheChanges() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        preloader.storeKeys(createKeys(0, KEY_COUNT).iterator());
+        long fullStoreBytes = nearCacheStats.getLastPersistenceWrittenBytes();
+
+        preloader.storeKeys(createKeys(0, KEY_COUNT + 1).iterator());
+        long incrementalStoreBytes = nearCacheStats.getLastPersistenceWrittenBytes();
+
+        preloader.storeKeys(createKeys(0, KEY_COUNT + 1).iterator());
+        long unchangedStoreBytes = nearCacheStats.getLastPersistenceWrittenBytes();
+
+        assertTrue("incremental: " + incrementalStoreBytes + ", full: " + fullStoreBytes,
+                incrementalStoreBytes < fullStoreBytes / 10);
+        assertTrue("unchanged: " + unchangedStoreBytes, unchangedStoreBytes < incrementalStoreBytes);
+    }
+
+    @Test
+    public void storeKeys_compactsJournal() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        for (int i = 0; i < 10; i++) {
+            preloader.storeKeys(createKeys(i * KEY_COUNT, (i + 1) * KEY_COUNT).iterator());
+        }
+        long lengthAfterStores = storeFile.length();
+        preloader.destroy();
+
+        createPreloader(false).loadKeys(adapter.adapter);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertTrue(adapter.loadedKeys.contains(ss.toData(10 * KEY_COUNT - 1)));
+        // without compaction the journal would contain 10 additions and 9 removals per key
+        assertTrue("journal length: " + lengthAfterStores, lengthAfterStores < 10 * KEY_COUNT * 10);
+    }
+
+    @Test
+    public void storeKeys_withEmptyNearCache_deletesFile() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        preloader.storeKeys(createKeys(0, KEY_COUNT).iterator());
+        assertTrue(storeFile.exists());
+
+        preloader.storeKeys(Collections.<Integer>emptyList().iterator());
+
+        assertFalse(storeFile.exists());
+    }
+
+    @Test
+    public void storeEntries_thenLoadValues() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        long expirationTime = System.currentTimeMillis() + MINUTES.toMillis(5);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, expirationTime), staleReadDetector);
+        preloader.destroy();
+
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(0, adapter.loadedKeys.size());
+        assertEquals(KEY_COUNT, entryLoader.loadedValues.size());
+        assertEquals("value-42", ss.toObject(entryLoader.loadedValues.get(ss.toData(42))));
+        assertEquals(expirationTime, (long) entryLoader.expirationTimes.get(ss.toData(42)));
+    }
+
+    @Test
+    public void storeEntries_withoutStoreValues_thenLoadKeys() {
+        NearCachePreloader<Integer> preloader = createPreloader(false);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, TIME_NOT_SET), staleReadDetector);
+        preloader.destroy();
+
+        createPreloader(false).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(0, entryLoader.loadedValues.size());
+    }
+
+    @Test
+    public void loadValues_withExpiredEntries_loadsKeysFromAdapter() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, 1), staleReadDetector);
+        preloader.destroy();
+
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(0, entryLoader.loadedValues.size());
+    }
+
+    @Test
+    public void loadValues_withChangedPartitionUuid_loadsKeysFromAdapter() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, TIME_NOT_SET), staleReadDetector);
+        preloader.destroy();
+
+        metaData.setUuid(UUID.randomUUID());
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(0, entryLoader.loadedValues.size());
+    }
+
+    @Test
+    public void loadValues_withAdvancedPartitionSequence_loadsKeysFromAdapter() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, TIME_NOT_SET), staleReadDetector);
+        preloader.destroy();
+
+        metaData.casSequence(0, 23);
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(0, entryLoader.loadedValues.size());
+    }
+
+    @Test
+    public void loadValues_advancesPartitionSequence() {
+        metaData.casSequence(0, 42);
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        preloader.storeEntries(createEntries(0, KEY_COUNT, TIME_NOT_SET), staleReadDetector);
+        preloader.destroy();
+
+        metaData.resetSequence();
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, entryLoader.loadedValues.size());
+        assertEquals(42, metaData.getSequence());
+    }
+
+    @Test
+    public void loadValues_withUnchangedEntriesAndAdvancedSequence_usesCheckpoint() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        List<Map.Entry<Integer, NearCacheRecord>> entries = createEntries(0, KEY_COUNT, TIME_NOT_SET);
+        preloader.storeEntries(entries, staleReadDetector);
+        long fullStoreBytes = nearCacheStats.getLastPersistenceWrittenBytes();
+
+        // an invalidation of a key outside of the Near Cache advances the partition sequence
+        metaData.casSequence(0, 1);
+        preloader.storeEntries(entries, staleReadDetector);
+        long checkpointStoreBytes = nearCacheStats.getLastPersistenceWrittenBytes();
+        preloader.destroy();
+
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertTrue("checkpoint: " + checkpointStoreBytes, checkpointStoreBytes < fullStoreBytes / 10);
+        assertEquals(KEY_COUNT, entryLoader.loadedValues.size());
+    }
+
+    @Test
+    public void loadValues_withInvalidationAfterRecordsWereRead_loadsKeysFromAdapter() {
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        final List<Map.Entry<Integer, NearCacheRecord>> entries = createEntries(0, KEY_COUNT, TIME_NOT_SET);
+        preloader.storeEntries(entries, staleReadDetector);
+
+        // an invalidation of a stored key arrives after the records have been read by the store
+        preloader.storeEntries(new Iterable<Map.Entry<Integer, NearCacheRecord>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, NearCacheRecord>> iterator() {
+                List<Map.Entry<Integer, NearCacheRecord>> snapshot = new ArrayList<Map.Entry<Integer, NearCacheRecord>>(entries);
+                metaData.casSequence(0, 1);
+                return snapshot.iterator();
+            }
+        }, staleReadDetector);
+        preloader.destroy();
+
+        createPreloader(true).loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(0, entryLoader.loadedValues.size());
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+    }
+
+    @Test
+    public void loadKeys_withLegacyFileFormat() throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(storeFile));
+        try {
+            // magic bytes and the INTERLEAVED_LENGTH_FIELD file format
+            out.writeInt(0xEA3CAC4E);
+            out.writeInt(0);
+            for (int i = 0; i < KEY_COUNT; i++) {
+                byte[] payload = ss.toData(i).toByteArray();
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        } finally {
+            out.close();
+        }
+
+        NearCachePreloader<Integer> preloader = createPreloader(true);
+        preloader.loadKeys(adapter.adapter, entryLoader, staleReadDetector);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+        assertEquals(0, entryLoader.loadedValues.size());
+
+        // the next store converts the legacy file into a journal
+        preloader.storeKeys(createKeys(0, KEY_COUNT).iterator());
+        preloader.destroy();
+        adapter.loadedKeys.clear();
+        createPreloader(true).loadKeys(adapter.adapter);
+
+        assertEquals(KEY_COUNT, adapter.loadedKeys.size());
+    }
+
+    private NearCachePreloader<Integer> createPreloader(boolean storeValues) {
+        NearCachePreloaderConfig preloaderConfig = new NearCachePreloaderConfig()
+                .setEnabled(true)
+                .setStoreValues(storeValues);
+        return new NearCachePreloader<Integer>(nearCacheName, preloaderConfig, nearCacheStats, ss);
+    }
+
+    private static List<Integer> createKeys(int from, int to) {
+        List<Integer> keys = new ArrayList<Integer>(to - from);
+        for (int i = from; i < to; i++) {
+            keys.add(i);
+        }
+        return keys;
+    }
+
+    private List<Map.Entry<Integer, NearCacheRecord>> createEntries(int from, int to, long expirationTime) {
+        List<Map.Entry<Integer, NearCacheRecord>> entries = new ArrayList<Map.Entry<Integer, NearCacheRecord>>(to - from);
+        for (int i = from; i < to; i++) {
+            NearCacheDataRecord record = new NearCacheDataRecord(ss.toData("value-" + i), 1, expirationTime);
+            record.setUuid(metaData.getUuid());
+            record.setInvalidationSequence(metaData.getSequence());
+            entries.add(new SimpleImmutableEntry<Integer, NearCacheRecord>(i, record));
+        }
+        return entries;
+    }
+
+    private class TestStaleReadDetector implements StaleReadDetector {
+
+        @Override
+        public boolean isStaleRead(Object key, NearCacheRecord record) {
+            return !record.hasSameUuid(metaData.getUuid()) || record.getInvalidationSequence() < metaData.getStaleSequence();
+        }
+
+        @Override
+        public MetaDataContainer getMetaDataContainer(Object key) {
+            return metaData;
+        }
+    }
+
+    private static class RecordingEntryLoader implements NearCachePreloader.EntryLoader {
+
+        private final Map<Data, Data> loadedValues = new HashMap<Data, Data>();
+        private final Map<Data, Long> expirationTimes = new HashMap<Data, Long>();
+
+        @Override
+        public boolean loadEntry(Data key, Data value, long expirationTime) {
+            loadedValues.put(key, value);
+            expirationTimes.put(key, expirationTime);
+            return true;
+        }
+    }
+
+    private static class RecordingAdapter {
+
+        private final Set<Data> loadedKeys = new HashSet<Data>();
+        private final DataStructureAdapter<Data, Object> adapter = createAdapter();
+
+        @SuppressWarnings("unchecked")
+        private DataStructureAdapter<Data, Object> createAdapter() {
+            DataStructureAdapter<Data, Object> adapter = mock(DataStructureAdapter.class);
+            when(adapter.getAll(anySetOf(Data.class))).thenAnswer(new Answer<Map<Data, Object>>() {
+                @Override
+                public Map<Data, Object> answer(InvocationOnMock invocation) {
+                    loadedKeys.addAll((Set<Data>) invocation.getArguments()[0]);
+                    return Collections.emptyMap();
+                }
+            });
+            return adapter;
+        }
+    }
+}
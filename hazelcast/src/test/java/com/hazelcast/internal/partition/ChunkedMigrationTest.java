@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.cache.impl.HazelcastServerCachingProvider;
+import com.hazelcast.cache.impl.ICacheRecordStore;
+import com.hazelcast.cache.impl.ICacheService;
+import com.hazelcast.config.CacheConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.ReplicatedMap;
+import com.hazelcast.internal.partition.impl.PartitionReplicaManager;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.PartitionContainer;
+import com.hazelcast.map.impl.operation.MapReplicationChunkIterator;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.ServiceNamespace;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_MAX_PARALLEL_REPLICATIONS;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_MIGRATION_CHUNK_MAX_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ChunkedMigrationTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT_VALUE = 11;
+    private static final int ENTRY_COUNT = 1000;
+    private static final int MAX_CHUNK_SIZE = 512;
+    private static final int REPLICA_SYNC_TIMEOUT_SECONDS = 30;
+
+    @Test
+    public void testMapAndReplicatedMap_whenMigratedInChunks() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        Config config = createConfig();
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = hz1.getMap(mapName);
+        ReplicatedMap<Integer, Integer> replicatedMap = hz1.getReplicatedMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+            replicatedMap.put(i, i);
+        }
+
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz3 = factory.newHazelcastInstance(config);
+        waitAllForSafeState(hz1, hz2, hz3);
+
+        hz1.getLifecycleService().terminate();
+        waitAllForSafeState(hz2, hz3);
+
+        assertMapContainsAllEntries(hz2.<Integer, Integer>getMap(mapName));
+        assertMapContainsAllEntries(hz3.<Integer, Integer>getMap(mapName));
+        assertReplicatedMapContainsAllEntries(hz2.<Integer, Integer>getReplicatedMap(mapName));
+        assertReplicatedMapContainsAllEntries(hz3.<Integer, Integer>getReplicatedMap(mapName));
+    }
+
+    @Test
+    public void testCache_whenReplicaSyncedInChunks() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        Config config = createConfig().setProperty(PARTITION_MAX_PARALLEL_REPLICATIONS.getName(), "1");
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+
+        String cacheName = randomName();
+        CacheManager cacheManager = HazelcastServerCachingProvider.createCachingProvider(hz1).getCacheManager();
+        Cache<Integer, Integer> cache = cacheManager.createCache(cacheName, new CacheConfig<Integer, Integer>());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            cache.put(i, i);
+        }
+        waitAllForSafeState(hz1, hz2);
+
+        ICacheService ownerCacheService = getNodeEngineImpl(hz1).getService(ICacheService.SERVICE_NAME);
+        ICacheService replicaCacheService = getNodeEngineImpl(hz2).getService(ICacheService.SERVICE_NAME);
+        PartitionReplicaManager replicaManager = getNode(hz2).partitionService.getReplicaManager();
+        Collection<ServiceNamespace> namespaces = Collections.<ServiceNamespace>singleton(NonFragmentedServiceNamespace.INSTANCE);
+        // every sync must release the replica sync permit of the owner, otherwise the next one is never served
+        for (int i = 0; i < 3; i++) {
+            for (InternalPartition partition : getPartitionService(hz1).getInternalPartitions()) {
+                if (!partition.isLocal()) {
+                    continue;
+                }
+                final int partitionId = partition.getPartitionId();
+                final ICacheRecordStore ownerRecordStore = ownerCacheService.getRecordStore("/hz/" + cacheName, partitionId);
+                final ICacheRecordStore replicaRecordStore = replicaCacheService.getRecordStore("/hz/" + cacheName, partitionId);
+                replicaRecordStore.clear();
+
+                replicaManager.triggerPartitionReplicaSync(partitionId, namespaces, 1);
+
+                assertTrueEventually(new AssertTask() {
+                    @Override
+                    public void run() {
+                        assertEquals(ownerRecordStore.size(), replicaRecordStore.size());
+                    }
+                }, REPLICA_SYNC_TIMEOUT_SECONDS);
+            }
+        }
+    }
+
+    @Test
+    public void testMap_whenReplicaSyncedInChunks_duringUpdates() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        Config config = createConfig();
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = hz1.getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, -i);
+        }
+        waitAllForSafeState(hz1, hz2);
+
+        MapService replicaMapService = getNodeEngineImpl(hz2).getService(MapService.SERVICE_NAME);
+        PartitionReplicaManager replicaManager = getNode(hz2).partitionService.getReplicaManager();
+        Collection<ServiceNamespace> namespaces = Collections.<ServiceNamespace>singleton(NonFragmentedServiceNamespace.INSTANCE);
+        for (InternalPartition partition : getPartitionService(hz1).getInternalPartitions()) {
+            if (partition.isLocal()) {
+                int partitionId = partition.getPartitionId();
+                replicaMapService.getMapServiceContext().getPartitionContainer(partitionId).getRecordStore(mapName).reset();
+                replicaManager.triggerPartitionReplicaSync(partitionId, namespaces, 1);
+            }
+        }
+        // the backups of these updates race with the chunks of the replica syncs
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+        waitAllForSafeState(hz1, hz2);
+
+        hz1.getLifecycleService().terminate();
+        waitAllForSafeState(hz2);
+
+        assertMapContainsAllEntries(hz2.<Integer, Integer>getMap(mapName));
+    }
+
+    @Test
+    public void testMapReplicationChunks_areBoundedBySize() {
+        Config config = createConfig();
+        HazelcastInstance hz = createHazelcastInstance(config);
+        String mapName = randomMapName();
+        IMap<Integer, Integer> map = hz.getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+
+        MapService mapService = getNodeEngineImpl(hz).getService(MapService.SERVICE_NAME);
+        int partitionId = getPartitionService(hz).getPartitionId(0);
+        PartitionContainer container = mapService.getMapServiceContext().getPartitionContainer(partitionId);
+        int recordCount = container.getExistingRecordStore(mapName).size();
+
+        Iterator<Operation> chunks = new MapReplicationChunkIterator(container, 0, MAX_CHUNK_SIZE);
+        int chunkCount = 0;
+        while (chunks.hasNext()) {
+            assertTrue(chunks.next() != null);
+            chunkCount++;
+        }
+
+        assertTrue("Expected multiple chunks for " + recordCount + " records, but got " + chunkCount, chunkCount > 1);
+        assertFalse(chunks.hasNext());
+    }
+
+    private static Config createConfig() {
+        return new Config()
+                .setProperty(PARTITION_COUNT.getName(), String.valueOf(PARTITION_COUNT_VALUE))
+                .setProperty(PARTITION_MIGRATION_CHUNK_MAX_SIZE.getName(), String.valueOf(MAX_CHUNK_SIZE));
+    }
+
+    private static void assertMapContainsAllEntries(IMap<Integer, Integer> map) {
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+
+    private static void assertReplicatedMapContainsAllEntries(final ReplicatedMap<Integer, Integer> replicatedMap) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(ENTRY_COUNT, replicatedMap.size());
+            }
+        });
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) replicatedMap.get(i));
+        }
+    }
+}
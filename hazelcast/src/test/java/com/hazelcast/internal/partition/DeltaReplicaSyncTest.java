@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.internal.partition.impl.InternalPartitionServiceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.PartitionReplicationEvent;
+import com.hazelcast.spi.ServiceNamespace;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static com.hazelcast.spi.properties.GroupProperty.MAP_MERKLE_TREE_DEPTH;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class DeltaReplicaSyncTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 1000;
+
+    private String mapName;
+    private int partitionId;
+    private HazelcastInstance owner;
+    private HazelcastInstance backup;
+
+    @Before
+    public void setUp() {
+        Config config = new Config()
+                .setProperty(PARTITION_COUNT.getName(), "3")
+                .setProperty(MAP_MERKLE_TREE_DEPTH.getName(), "6");
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2);
+
+        mapName = randomMapName();
+        IMap<Integer, Integer> map = hz1.getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+        waitAllForSafeState(hz1, hz2);
+
+        partitionId = getPartitionService(hz1).getPartitionId(0);
+        boolean hz1IsOwner = getPartitionService(hz1).getPartition(partitionId).isLocal();
+        owner = hz1IsOwner ? hz1 : hz2;
+        backup = hz1IsOwner ? hz2 : hz1;
+    }
+
+    @Test
+    public void testReplicaSync_repairsDivergentBackup() {
+        makeBackupDivergent();
+        assertFalse(treesAreEqual());
+
+        InternalPartitionServiceImpl partitionService = (InternalPartitionServiceImpl) getPartitionService(backup);
+        partitionService.getReplicaManager().triggerPartitionReplicaSync(partitionId,
+                Collections.<ServiceNamespace>singleton(NonFragmentedServiceNamespace.INSTANCE), 1);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertTrue(treesAreEqual());
+            }
+        });
+        RecordStore ownerRecordStore = getRecordStore(owner);
+        RecordStore backupRecordStore = getRecordStore(backup);
+        assertEquals(ownerRecordStore.size(), backupRecordStore.size());
+        Iterator<Record> iterator = ownerRecordStore.iterator();
+        while (iterator.hasNext()) {
+            Record record = iterator.next();
+            assertEquals(record.getValue(), backupRecordStore.getRecordOrNull(record.getKey()).getValue());
+        }
+    }
+
+    @Test
+    public void testDeltaReplicationOperation_isSmallerThanFullReplication() {
+        makeBackupDivergent();
+
+        MapService backupMapService = getNodeEngineImpl(backup).getService(MapService.SERVICE_NAME);
+        MapService ownerMapService = getNodeEngineImpl(owner).getService(MapService.SERVICE_NAME);
+        PartitionReplicationEvent event = new PartitionReplicationEvent(partitionId, 1);
+        Object digest = backupMapService.prepareReplicaDigest(event);
+
+        Operation deltaOperation = ownerMapService.prepareDeltaReplicationOperation(event, digest);
+        Operation fullOperation = ownerMapService.prepareReplicationOperation(event);
+
+        InternalSerializationService ss = getSerializationService(owner);
+        int deltaSize = ss.toData(deltaOperation).totalSize();
+        int fullSize = ss.toData(fullOperation).totalSize();
+        assertTrue("Expected delta replication of " + deltaSize + " bytes to be smaller than full replication of "
+                + fullSize + " bytes", deltaSize * 2 < fullSize);
+    }
+
+    private void makeBackupDivergent() {
+        RecordStore recordStore = getRecordStore(backup);
+        InternalSerializationService ss = getSerializationService(backup);
+        Iterator<Record> iterator = recordStore.iterator();
+        Data removedKey = iterator.next().getKey();
+        Data updatedKey = iterator.next().getKey();
+        recordStore.removeBackup(removedKey);
+        recordStore.putBackup(updatedKey, ss.toData(-1));
+        recordStore.putBackup(ss.toData(-1), ss.toData(-1));
+    }
+
+    private boolean treesAreEqual() {
+        long[] ownerNodes = getRecordStore(owner).getMerkleTree().getNodes();
+        long[] backupNodes = getRecordStore(backup).getMerkleTree().getNodes();
+        return Arrays.equals(ownerNodes, backupNodes);
+    }
+
+    private RecordStore getRecordStore(HazelcastInstance instance) {
+        MapService mapService = getNodeEngineImpl(instance).getService(MapService.SERVICE_NAME);
+        return mapService.getMapServiceContext().getPartitionContainer(partitionId).getExistingRecordStore(mapName);
+    }
+}
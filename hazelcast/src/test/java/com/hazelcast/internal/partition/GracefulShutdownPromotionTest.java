@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.internal.diagnostics.Diagnostics.METRICS_LEVEL;
+import static com.hazelcast.spi.properties.GroupProperty.GRACEFUL_SHUTDOWN_PROMOTION_ENABLED;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class GracefulShutdownPromotionTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT_VALUE = 50;
+    private static final int ENTRY_COUNT = 1000;
+
+    @Test
+    public void shutdownSlaveMember_promotesBackups_withoutDataLoss() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        Config config = newConfig();
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(master, slave1, slave2);
+
+        String mapName = randomMapName();
+        fillMap(master.<Integer, Integer>getMap(mapName));
+        waitAllForSafeState(master, slave1, slave2);
+
+        slave1.shutdown();
+
+        assertMapContents(master.<Integer, Integer>getMap(mapName));
+        LongGauge promotionCounter = getNode(master).nodeEngine.getMetricsRegistry()
+                .newLongGauge("partitions.gracefulShutdownPromotionCounter");
+        assertTrue("No partition was promoted", promotionCounter.read() > 0);
+        waitAllForSafeState(master, slave2);
+    }
+
+    @Test
+    public void shutdownMasterMember_promotesBackups_withoutDataLoss() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        Config config = newConfig();
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(master, slave1, slave2);
+
+        String mapName = randomMapName();
+        fillMap(master.<Integer, Integer>getMap(mapName));
+        waitAllForSafeState(master, slave1, slave2);
+
+        master.shutdown();
+
+        assertMapContents(slave1.<Integer, Integer>getMap(mapName));
+        waitAllForSafeState(slave1, slave2);
+    }
+
+    @Test
+    public void shutdownSlaveMember_whileWriting_withoutDataLoss() throws Exception {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        final String mapName = randomMapName();
+        Config config = newConfig();
+        config.getMapConfig(mapName).setBackupCount(0).setAsyncBackupCount(1);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(master, slave1, slave2);
+
+        final IMap<Integer, Integer> map = master.getMap(mapName);
+        fillMap(map);
+        waitAllForSafeState(master, slave1, slave2);
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicInteger writeCount = new AtomicInteger();
+        Future writer = spawn(new Runnable() {
+            @Override
+            public void run() {
+                while (!stopped.get()) {
+                    int key = writeCount.get();
+                    map.put(key, -key);
+                    writeCount.incrementAndGet();
+                }
+            }
+        });
+        sleepMillis(100);
+
+        slave1.shutdown();
+        stopped.set(true);
+        writer.get();
+
+        IMap<Integer, Integer> survivingMap = slave2.getMap(mapName);
+        int expectedSize = Math.max(ENTRY_COUNT, writeCount.get());
+        assertEquals(expectedSize, survivingMap.size());
+        for (int i = 0; i < writeCount.get(); i++) {
+            assertEquals(-i, (int) survivingMap.get(i));
+        }
+        waitAllForSafeState(master, slave2);
+    }
+
+    @Test
+    public void shutdownSlaveMembers_concurrently_whileWriting_withoutDataLoss() throws Exception {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(4);
+        final String mapName = randomMapName();
+        Config config = newConfig();
+        config.getMapConfig(mapName).setBackupCount(2);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        final HazelcastInstance slave1 = factory.newHazelcastInstance(config);
+        final HazelcastInstance slave2 = factory.newHazelcastInstance(config);
+        HazelcastInstance slave3 = factory.newHazelcastInstance(config);
+        warmUpPartitions(master, slave1, slave2, slave3);
+
+        final IMap<Integer, Integer> map = master.getMap(mapName);
+        fillMap(map);
+        waitAllForSafeState(master, slave1, slave2, slave3);
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicInteger writeCount = new AtomicInteger();
+        Future writer = spawn(new Runnable() {
+            @Override
+            public void run() {
+                while (!stopped.get()) {
+                    int key = writeCount.get();
+                    map.put(key, -key);
+                    writeCount.incrementAndGet();
+                }
+            }
+        });
+        sleepMillis(100);
+
+        // partitions whose backups are all leaving are migrated and must keep accepting writes until then
+        Future shutdown1 = spawn(new Runnable() {
+            @Override
+            public void run() {
+                slave1.shutdown();
+            }
+        });
+        slave2.shutdown();
+        shutdown1.get();
+        stopped.set(true);
+        writer.get();
+
+        IMap<Integer, Integer> survivingMap = slave3.getMap(mapName);
+        int expectedSize = Math.max(ENTRY_COUNT, writeCount.get());
+        assertEquals(expectedSize, survivingMap.size());
+        for (int i = 0; i < writeCount.get(); i++) {
+            assertEquals(-i, (int) survivingMap.get(i));
+        }
+        waitAllForSafeState(master, slave3);
+    }
+
+    private static Config newConfig() {
+        return new Config()
+                .setProperty(PARTITION_COUNT.getName(), String.valueOf(PARTITION_COUNT_VALUE))
+                .setProperty(GRACEFUL_SHUTDOWN_PROMOTION_ENABLED.getName(), "true")
+                .setProperty(METRICS_LEVEL.getName(), ProbeLevel.INFO.name());
+    }
+
+    private static void fillMap(IMap<Integer, Integer> map) {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+    }
+
+    private static void assertMapContents(IMap<Integer, Integer> map) {
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+}
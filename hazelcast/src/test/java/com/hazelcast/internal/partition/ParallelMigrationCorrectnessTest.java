@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+@Parameterized.UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ParallelMigrationCorrectnessTest extends AbstractMigrationCorrectnessTest {
+
+    private static final int MAX_PARALLEL_MIGRATIONS = 4;
+
+    @Parameterized.Parameters(name = "backups:{0},nodes:{1},fragmented:{2}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+                {1, 2, true},
+                {2, 3, true},
+                {3, 4, false}
+        });
+    }
+
+    @Override
+    Config getConfig(boolean withService, boolean antiEntropyEnabled) {
+        Config config = super.getConfig(withService, antiEntropyEnabled);
+        config.setProperty(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS.getName(), String.valueOf(MAX_PARALLEL_MIGRATIONS));
+        return config;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_ASSIGNMENT_STRATEGY;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_LOAD_BALANCE_INTERVAL_SECONDS;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionLoadBalancingTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT_VALUE = 20;
+    private static final int VALUE_SIZE = 10000;
+
+    @Test
+    public void testHeavyPartitions_areSpreadAmongMembers() {
+        Config config = new Config()
+                .setProperty(PARTITION_COUNT.getName(), String.valueOf(PARTITION_COUNT_VALUE))
+                .setProperty(PARTITION_ASSIGNMENT_STRATEGY.getName(), "LOAD_AWARE")
+                .setProperty(PARTITION_LOAD_BALANCE_INTERVAL_SECONDS.getName(), "1");
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        final HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        final HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2);
+        waitAllForSafeState(hz1, hz2);
+
+        // only the partitions owned by the first member get large entries
+        final String mapName = randomMapName();
+        IMap<String, byte[]> map = hz1.getMap(mapName);
+        for (int i = 0; i < PARTITION_COUNT_VALUE * 10; i++) {
+            String key = generateKeyOwnedBy(hz1);
+            map.put(key, new byte[VALUE_SIZE]);
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                long cost1 = hz1.getMap(mapName).getLocalMapStats().getOwnedEntryMemoryCost();
+                long cost2 = hz2.getMap(mapName).getLocalMapStats().getOwnedEntryMemoryCost();
+                assertTrue("Owned entry costs: " + cost1 + ", " + cost2, cost2 > 0 && cost1 < cost2 * 3);
+            }
+        });
+        waitAllForSafeState(hz1, hz2);
+    }
+}
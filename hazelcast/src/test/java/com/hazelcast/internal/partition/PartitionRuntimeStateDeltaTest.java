@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition;
+
+import com.hazelcast.internal.partition.impl.DummyInternalPartition;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hazelcast.internal.partition.InternalPartition.MAX_REPLICA_COUNT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionRuntimeStateDeltaTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT = 4;
+
+    private Address address1;
+    private Address address2;
+    private Address address3;
+
+    @Before
+    public void setUp() throws UnknownHostException {
+        address1 = new Address("127.0.0.1", 5701);
+        address2 = new Address("127.0.0.1", 5702);
+        address3 = new Address("127.0.0.1", 5703);
+    }
+
+    @Test
+    public void testVersions() {
+        Address[][] table = createTable(address1, address2);
+
+        PartitionRuntimeStateDelta delta = new PartitionRuntimeStateDelta(table, createPartitions(table), 3, 5, null);
+
+        assertEquals(3, delta.getBaseVersion());
+        assertEquals(5, delta.getVersion());
+        assertEquals(0, delta.getCompletedMigrations().size());
+    }
+
+    @Test
+    public void testNoChanges() {
+        Address[][] table = createTable(address1, address2);
+
+        PartitionRuntimeStateDelta delta = serializeAndDeserialize(
+                new PartitionRuntimeStateDelta(table, createPartitions(table), 1, 1, null));
+
+        assertEquals(0, delta.getPartitionIds().length);
+        assertEquals(0, delta.getReplicaAddresses().length);
+    }
+
+    @Test
+    public void testChangedPartitions_whenDeserialized() {
+        Address[][] baseTable = createTable(address1, address2);
+        Address[][] table = createTable(address1, address2);
+        table[1] = replicas(address3, address2);
+        table[3] = replicas(address2, null, address3);
+
+        PartitionRuntimeStateDelta delta = serializeAndDeserialize(
+                new PartitionRuntimeStateDelta(baseTable, createPartitions(table), 1, 3, null));
+
+        assertArrayEquals(new int[]{1, 3}, delta.getPartitionIds());
+        Address[][] replicas = delta.getReplicaAddresses();
+        assertArrayEquals(table[1], replicas[0]);
+        assertArrayEquals(table[3], replicas[1]);
+        assertNull(replicas[1][1]);
+    }
+
+    @Test
+    public void testRemovedReplica_isChange() {
+        Address[][] baseTable = createTable(address1, address2);
+        Address[][] table = createTable(address1, address2);
+        table[2] = replicas(address1);
+
+        PartitionRuntimeStateDelta delta = serializeAndDeserialize(
+                new PartitionRuntimeStateDelta(baseTable, createPartitions(table), 1, 2, null));
+
+        assertArrayEquals(new int[]{2}, delta.getPartitionIds());
+        assertArrayEquals(table[2], delta.getReplicaAddresses()[0]);
+    }
+
+    @Test
+    public void testCompletedMigrations_whenDeserialized() {
+        Address[][] table = createTable(address1, address2);
+        MigrationInfo migration = new MigrationInfo(0, address1, "source", address2, "destination", 0, 1, -1, 0);
+        migration.setMaster(address1);
+        migration.setStatus(MigrationInfo.MigrationStatus.SUCCESS);
+        List<MigrationInfo> completedMigrations = Collections.singletonList(migration);
+
+        PartitionRuntimeStateDelta delta = serializeAndDeserialize(
+                new PartitionRuntimeStateDelta(table, createPartitions(table), 1, 2, completedMigrations));
+
+        assertEquals(completedMigrations, delta.getCompletedMigrations());
+    }
+
+    @Test
+    public void toString_containsVersions() {
+        Address[][] table = createTable(address1, address2);
+
+        PartitionRuntimeStateDelta delta = new PartitionRuntimeStateDelta(table, createPartitions(table), 7, 9, null);
+
+        assertContains(delta.toString(), "baseVersion=7");
+        assertContains(delta.toString(), "version=9");
+    }
+
+    private static PartitionRuntimeStateDelta serializeAndDeserialize(PartitionRuntimeStateDelta delta) {
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        try {
+            Data data = serializationService.toData(delta);
+            return serializationService.toObject(data);
+        } finally {
+            serializationService.dispose();
+        }
+    }
+
+    private static Address[][] createTable(Address... replicas) {
+        Address[][] table = new Address[PARTITION_COUNT][];
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            table[partitionId] = replicas(replicas);
+        }
+        return table;
+    }
+
+    private static Address[] replicas(Address... replicas) {
+        Address[] result = new Address[MAX_REPLICA_COUNT];
+        System.arraycopy(replicas, 0, result, 0, replicas.length);
+        return result;
+    }
+
+    private static InternalPartition[] createPartitions(Address[][] table) {
+        InternalPartition[] partitions = new InternalPartition[table.length];
+        for (int partitionId = 0; partitionId < table.length; partitionId++) {
+            partitions[partitionId] = new DummyInternalPartition(table[partitionId], partitionId);
+        }
+        return partitions;
+    }
+}
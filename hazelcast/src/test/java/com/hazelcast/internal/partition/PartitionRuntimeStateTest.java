@@ -29,8 +29,13 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category({QuickTest.class, ParallelTest.class})
@@ -71,6 +76,34 @@ public class PartitionRuntimeStateTest extends HazelcastTestSupport {
         assertContains(state.toString(), "127.0.0.2");
     }
 
+    @Test
+    public void activeMigrations_whenDeserialized() throws UnknownHostException {
+        Address source = address("127.0.0.1", 5701);
+        Address destination = address("127.0.0.2", 5702);
+        PartitionRuntimeState state = createPartitionState(0, source, destination);
+        List<MigrationInfo> activeMigrations = Arrays.asList(
+                new MigrationInfo(0, source, "source", destination, "destination", 0, -1, -1, 0),
+                new MigrationInfo(1, source, "source", destination, "destination", 1, -1, -1, 1));
+        for (MigrationInfo migrationInfo : activeMigrations) {
+            migrationInfo.setMaster(source);
+        }
+        state.setActiveMigrations(activeMigrations);
+
+        state = serializeAndDeserialize(state);
+        assertEquals(activeMigrations, state.getActiveMigrations());
+    }
+
+    @Test
+    public void activeMigrations_whenNoActiveMigration() throws UnknownHostException {
+        PartitionRuntimeState state = createPartitionState(0,
+                address("127.0.0.1", 5701),
+                address("127.0.0.2", 5702)
+        );
+
+        state = serializeAndDeserialize(state);
+        assertTrue(state.getActiveMigrations().isEmpty());
+    }
+
     private PartitionRuntimeState serializeAndDeserialize(PartitionRuntimeState state) {
         InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
         try {
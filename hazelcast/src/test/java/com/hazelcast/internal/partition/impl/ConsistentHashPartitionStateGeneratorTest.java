@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.nio.Address;
+import com.hazelcast.partition.membergroup.HostAwareMemberGroupFactory;
+import com.hazelcast.partition.membergroup.MemberGroup;
+import com.hazelcast.partition.membergroup.SingleMemberGroupFactory;
+import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.createMembers;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.emptyPartitionArray;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.toPartitionArray;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_ASSIGNMENT_STRATEGY;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ConsistentHashPartitionStateGeneratorTest {
+
+    private static final int PARTITION_COUNT = 271;
+
+    private final PartitionStateGenerator generator = new ConsistentHashPartitionStateGenerator();
+
+    @Test
+    public void testFactory_createsConsistentHashGenerator() {
+        Config config = new Config().setProperty(PARTITION_ASSIGNMENT_STRATEGY.getName(), "CONSISTENT_HASH");
+
+        PartitionStateGenerator generator = PartitionStateGeneratorFactory.newGenerator(new HazelcastProperties(config));
+
+        assertTrue(generator instanceof ConsistentHashPartitionStateGenerator);
+    }
+
+    @Test
+    public void testFactory_createsDefaultGenerator() {
+        PartitionStateGenerator generator = PartitionStateGeneratorFactory.newGenerator(new HazelcastProperties(new Config()));
+
+        assertTrue(generator instanceof PartitionStateGeneratorImpl);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFactory_withUnknownStrategy() {
+        Config config = new Config().setProperty(PARTITION_ASSIGNMENT_STRATEGY.getName(), "consistent_hash");
+
+        PartitionStateGeneratorFactory.newGenerator(new HazelcastProperties(config));
+    }
+
+    @Test
+    public void testArrange_withSingleMemberGroups() throws Exception {
+        List<Member> members = createMembers(10, 1);
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(members);
+
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        checkState(state, groups);
+    }
+
+    @Test
+    public void testArrange_withFewMemberGroups() throws Exception {
+        List<Member> members = createMembers(3, 1);
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(members);
+
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        checkState(state, groups);
+    }
+
+    @Test
+    public void testArrange_withHostAwareMemberGroups() throws Exception {
+        List<Member> members = createMembers(20, 3);
+        Collection<MemberGroup> groups = new HostAwareMemberGroupFactory().createMemberGroups(members);
+
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        checkState(state, groups);
+    }
+
+    @Test
+    public void testArrange_isIndependentOfCurrentState() throws Exception {
+        List<Member> members = createMembers(8, 1);
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(members);
+
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+        Address[][] nextState = generator.arrange(groups, toPartitionArray(state));
+
+        assertArrayEquals(state, nextState);
+    }
+
+    @Test
+    public void testArrange_whenMemberAdded_movesFewOwners() throws Exception {
+        List<Member> members = createMembers(11, 1);
+        SingleMemberGroupFactory groupFactory = new SingleMemberGroupFactory();
+        Address[][] state = generator.arrange(groupFactory.createMemberGroups(members.subList(0, 10)),
+                emptyPartitionArray(PARTITION_COUNT));
+
+        Address[][] nextState = generator.arrange(groupFactory.createMemberGroups(members),
+                emptyPartitionArray(PARTITION_COUNT));
+
+        int movedOwners = 0;
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            if (!state[partitionId][0].equals(nextState[partitionId][0])) {
+                movedOwners++;
+            }
+        }
+        // the new member takes over 1/11 of the partitions, rebalancing the bound moves a few more
+        assertTrue("Moved owners: " + movedOwners, movedOwners < PARTITION_COUNT / 4);
+    }
+
+    @Test
+    public void testArrange_whenMemberRemoved_backupsArePromoted() throws Exception {
+        List<Member> members = createMembers(10, 1);
+        SingleMemberGroupFactory groupFactory = new SingleMemberGroupFactory();
+        Address[][] state = generator.arrange(groupFactory.createMemberGroups(members),
+                emptyPartitionArray(PARTITION_COUNT));
+        Address removed = members.get(0).getAddress();
+
+        Address[][] nextState = generator.arrange(groupFactory.createMemberGroups(members.subList(1, 10)),
+                emptyPartitionArray(PARTITION_COUNT));
+
+        int promotedBackups = 0;
+        int lostOwners = 0;
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            if (removed.equals(state[partitionId][0])) {
+                lostOwners++;
+                if (state[partitionId][1].equals(nextState[partitionId][0])) {
+                    promotedBackups++;
+                }
+            }
+        }
+        assertTrue("Promoted " + promotedBackups + " of " + lostOwners + " backups",
+                promotedBackups * 2 > lostOwners);
+    }
+
+    private static void checkState(Address[][] state, Collection<MemberGroup> groups) {
+        assertNotNull(state);
+        assertEquals(PARTITION_COUNT, state.length);
+
+        int replicaCount = Math.min(groups.size(), InternalPartition.MAX_REPLICA_COUNT);
+        int groupCapacity = ConsistentHashPartitionStateGenerator.capacity(PARTITION_COUNT, groups.size());
+        Map<Address, MemberGroup> memberGroups = new HashMap<Address, MemberGroup>();
+        for (MemberGroup group : groups) {
+            Iterator<Member> iterator = group.iterator();
+            while (iterator.hasNext()) {
+                memberGroups.put(iterator.next().getAddress(), group);
+            }
+        }
+
+        for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+            Map<MemberGroup, Integer> loads = new HashMap<MemberGroup, Integer>();
+            for (Address[] replicas : state) {
+                MemberGroup group = memberGroups.get(replicas[replicaIndex]);
+                assertNotNull(group);
+                Integer load = loads.get(group);
+                loads.put(group, load == null ? 1 : load + 1);
+            }
+            // the last replica indexes may exceed the bound when there are only a few groups
+            if (replicaIndex < 2) {
+                for (Integer load : loads.values()) {
+                    assertTrue("Load " + load + " exceeds " + groupCapacity, load <= groupCapacity);
+                }
+            }
+        }
+
+        for (Address[] replicas : state) {
+            Set<MemberGroup> replicaGroups = new HashSet<MemberGroup>();
+            for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+                assertTrue(replicaGroups.add(memberGroups.get(replicas[replicaIndex])));
+            }
+            for (int replicaIndex = replicaCount; replicaIndex < replicas.length; replicaIndex++) {
+                assertNull(replicas[replicaIndex]);
+            }
+        }
+    }
+}
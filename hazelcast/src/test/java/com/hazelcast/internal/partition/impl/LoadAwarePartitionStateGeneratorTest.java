@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionLoads;
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.nio.Address;
+import com.hazelcast.partition.membergroup.HostAwareMemberGroupFactory;
+import com.hazelcast.partition.membergroup.MemberGroup;
+import com.hazelcast.partition.membergroup.SingleMemberGroupFactory;
+import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.createMembers;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.emptyPartitionArray;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.toPartitionArray;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_ASSIGNMENT_STRATEGY;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class LoadAwarePartitionStateGeneratorTest {
+
+    private static final int PARTITION_COUNT = 271;
+    private static final int SKEW_THRESHOLD_PERCENTAGE = 10;
+
+    private final LoadAwarePartitionStateGenerator generator
+            = new LoadAwarePartitionStateGenerator(SKEW_THRESHOLD_PERCENTAGE);
+
+    @Test
+    public void testFactory_createsLoadAwareGenerator() {
+        Config config = new Config().setProperty(PARTITION_ASSIGNMENT_STRATEGY.getName(), "LOAD_AWARE");
+
+        PartitionStateGenerator generator = PartitionStateGeneratorFactory.newGenerator(new HazelcastProperties(config));
+
+        assertTrue(generator instanceof LoadAwarePartitionStateGenerator);
+    }
+
+    @Test
+    public void testArrange_withoutLoads_balancesPartitionCount() throws Exception {
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(createMembers(7, 1));
+
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        checkReplicas(state, groups);
+        double[] uniformCosts = new double[PARTITION_COUNT];
+        Arrays.fill(uniformCosts, 1);
+        for (int replicaIndex = 0; replicaIndex < groups.size(); replicaIndex++) {
+            assertBalanced(memberLoads(state, replicaIndex, uniformCosts));
+        }
+    }
+
+    @Test
+    public void testArrange_balancesLoad() throws Exception {
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(createMembers(5, 1));
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        PartitionLoads loads = skewedLoads(state[0][0], state);
+        generator.setPartitionLoads(loads);
+        Address[][] newState = generator.arrange(groups, toPartitionArray(state));
+
+        checkReplicas(newState, groups);
+        assertBalanced(memberLoads(newState, 0, ownerCosts(loads)));
+    }
+
+    @Test
+    public void testArrange_withinThreshold_doesNotMovePartitions() throws Exception {
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(createMembers(5, 1));
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+        generator.setPartitionLoads(skewedLoads(state[0][0], state));
+        state = generator.arrange(groups, toPartitionArray(state));
+
+        Address[][] newState = generator.arrange(groups, toPartitionArray(state));
+
+        assertArrayEquals(state, newState);
+    }
+
+    @Test
+    public void testArrange_movesFewPartitions() throws Exception {
+        Collection<MemberGroup> groups = new SingleMemberGroupFactory().createMemberGroups(createMembers(5, 1));
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        generator.setPartitionLoads(skewedLoads(state[0][0], state));
+        Address[][] newState = generator.arrange(groups, toPartitionArray(state));
+
+        int movedOwners = 0;
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            if (!state[partitionId][0].equals(newState[partitionId][0])) {
+                movedOwners++;
+            }
+        }
+        assertTrue("Moved owners: " + movedOwners, movedOwners > 0 && movedOwners < PARTITION_COUNT / 5);
+    }
+
+    @Test
+    public void testArrange_whenMemberRemoved_promotesBackups() throws Exception {
+        List<Member> members = createMembers(5, 1);
+        SingleMemberGroupFactory groupFactory = new SingleMemberGroupFactory();
+        Address[][] state = generator.arrange(groupFactory.createMemberGroups(members), emptyPartitionArray(PARTITION_COUNT));
+        Address removed = members.get(0).getAddress();
+
+        Collection<MemberGroup> groups = groupFactory.createMemberGroups(members.subList(1, 5));
+        Address[][] newState = generator.arrange(groups, toPartitionArray(state));
+
+        checkReplicas(newState, groups);
+        int promotedBackups = 0;
+        int lostOwners = 0;
+        int movedOwners = 0;
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            if (removed.equals(state[partitionId][0])) {
+                lostOwners++;
+                if (state[partitionId][1].equals(newState[partitionId][0])) {
+                    promotedBackups++;
+                }
+            } else if (!state[partitionId][0].equals(newState[partitionId][0])) {
+                movedOwners++;
+            }
+        }
+        // a few owners may be moved to rebalance the owners
+        assertTrue("Promoted " + promotedBackups + " of " + lostOwners + " backups", promotedBackups * 2 > lostOwners);
+        assertTrue("Moved owners: " + movedOwners, movedOwners < lostOwners / 2);
+    }
+
+    @Test
+    public void testArrange_withHostAwareMemberGroups() throws Exception {
+        Collection<MemberGroup> groups = new HostAwareMemberGroupFactory().createMemberGroups(createMembers(12, 3));
+        Address[][] state = generator.arrange(groups, emptyPartitionArray(PARTITION_COUNT));
+
+        generator.setPartitionLoads(skewedLoads(state[0][0], state));
+        Address[][] newState = generator.arrange(groups, toPartitionArray(state));
+
+        checkReplicas(newState, groups);
+    }
+
+    /**
+     * Creates loads where the partitions owned by the given member are large and frequently accessed.
+     */
+    private static PartitionLoads skewedLoads(Address hotMember, Address[][] state) {
+        PartitionLoads loads = new PartitionLoads(PARTITION_COUNT);
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            boolean hot = hotMember.equals(state[partitionId][0]);
+            loads.getMemoryCosts()[partitionId] = hot ? 3000 : 1000;
+            loads.getOperationCounts()[partitionId] = hot ? 300 : 100;
+        }
+        return loads;
+    }
+
+    private static double[] ownerCosts(PartitionLoads loads) {
+        double averageMemoryCost = 0;
+        double averageOperationCount = 0;
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            averageMemoryCost += loads.getMemoryCosts()[partitionId] / (double) PARTITION_COUNT;
+            averageOperationCount += loads.getOperationCounts()[partitionId] / (double) PARTITION_COUNT;
+        }
+        double[] costs = new double[PARTITION_COUNT];
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            costs[partitionId] = 1 + loads.getMemoryCosts()[partitionId] / averageMemoryCost
+                    + loads.getOperationCounts()[partitionId] / averageOperationCount;
+        }
+        return costs;
+    }
+
+    private static Collection<Double> memberLoads(Address[][] state, int replicaIndex, double[] costs) {
+        Map<Address, Double> loads = new HashMap<Address, Double>();
+        for (int partitionId = 0; partitionId < PARTITION_COUNT; partitionId++) {
+            Address address = state[partitionId][replicaIndex];
+            Double load = loads.get(address);
+            loads.put(address, (load == null ? 0 : load) + costs[partitionId]);
+        }
+        return loads.values();
+    }
+
+    private static void assertBalanced(Collection<Double> loads) {
+        double average = 0;
+        for (double load : loads) {
+            average += load / loads.size();
+        }
+        for (double load : loads) {
+            assertTrue("Load " + load + " deviates from average " + average,
+                    Math.abs(load - average) <= average * SKEW_THRESHOLD_PERCENTAGE / 100);
+        }
+    }
+
+    private static void checkReplicas(Address[][] state, Collection<MemberGroup> groups) {
+        assertNotNull(state);
+        Map<Address, MemberGroup> memberGroups = new HashMap<Address, MemberGroup>();
+        for (MemberGroup group : groups) {
+            Iterator<Member> iterator = group.iterator();
+            while (iterator.hasNext()) {
+                memberGroups.put(iterator.next().getAddress(), group);
+            }
+        }
+        int replicaCount = Math.min(groups.size(), InternalPartition.MAX_REPLICA_COUNT);
+        for (Address[] replicas : state) {
+            Set<MemberGroup> replicaGroups = new HashSet<MemberGroup>();
+            for (int replicaIndex = 0; replicaIndex < replicaCount; replicaIndex++) {
+                MemberGroup group = memberGroups.get(replicas[replicaIndex]);
+                assertNotNull(group);
+                assertTrue(replicaGroups.add(group));
+            }
+        }
+    }
+}
@@ -38,6 +38,7 @@ import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @RunWith(HazelcastSerialClassRunner.class)
 @Category({QuickTest.class, ParallelTest.class})
@@ -60,6 +61,20 @@ public class MigrationPlannerTest {
         verify(callback).migrate(new Address("localhost", 5703), 2, -1, new Address("localhost", 5705), -1, 2);
     }
 
+    @Test
+    public void test_SWAP_ownerWithBackup()
+            throws UnknownHostException {
+        final Address[] oldAddresses = new Address[]{new Address("localhost", 5701), new Address("localhost", 5702), new Address(
+                "localhost", 5703), null, null, null, null};
+
+        final Address[] newAddresses = new Address[]{new Address("localhost", 5703), new Address("localhost", 5702), new Address(
+                "localhost", 5701), null, null, null, null};
+
+        migrationPlanner.planMigrations(oldAddresses, newAddresses, callback);
+        verify(callback).migrate(new Address("localhost", 5701), 0, 2, new Address("localhost", 5703), 2, 0);
+        verifyNoMoreInteractions(callback);
+    }
+
     @Test
     public void test_COPY()
             throws UnknownHostException {
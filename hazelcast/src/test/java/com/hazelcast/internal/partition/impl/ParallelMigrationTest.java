@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.ListenerConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.partition.MigrationInfo;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ParallelMigrationTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT = 71;
+    private static final int MAX_PARALLEL_MIGRATIONS = 3;
+
+    @Test
+    public void testMigrationsRunInParallel() {
+        ConcurrentMigrationListener listener = new ConcurrentMigrationListener();
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(4);
+        HazelcastInstance hz1 = factory.newHazelcastInstance(createConfig(listener));
+        HazelcastInstance hz2 = factory.newHazelcastInstance(createConfig(null));
+        HazelcastInstance hz3 = factory.newHazelcastInstance(createConfig(null));
+        warmUpPartitions(hz1, hz2, hz3);
+        waitAllForSafeState(hz1, hz2, hz3);
+
+        HazelcastInstance hz4 = factory.newHazelcastInstance(createConfig(null));
+        waitAllForSafeState(hz1, hz2, hz3, hz4);
+
+        assertFalse("Migrations of the same partition or between the same members were running at the same time",
+                listener.conflictDetected);
+        assertTrue("Expected parallel migrations, max running: " + listener.maxRunningMigrations,
+                listener.maxRunningMigrations > 1);
+        assertTrue("Expected at most " + MAX_PARALLEL_MIGRATIONS + " migrations, max running: "
+                + listener.maxRunningMigrations, listener.maxRunningMigrations <= MAX_PARALLEL_MIGRATIONS);
+
+        MigrationManager migrationManager = getPartitionServiceImpl(hz1).getMigrationManager();
+        assertEquals(MAX_PARALLEL_MIGRATIONS, migrationManager.getMaxParallelMigrations());
+        assertTrue(migrationManager.getRunningMigrateTasks().isEmpty());
+        assertTrue(migrationManager.getActiveMigrations().isEmpty());
+    }
+
+    private static Config createConfig(InternalMigrationListener listener) {
+        Config config = new Config()
+                .setProperty(GroupProperty.PARTITION_COUNT.getName(), String.valueOf(PARTITION_COUNT))
+                .setProperty(GroupProperty.PARTITION_MAX_PARALLEL_MIGRATIONS.getName(),
+                        String.valueOf(MAX_PARALLEL_MIGRATIONS));
+        if (listener != null) {
+            config.addListenerConfig(new ListenerConfig(listener));
+        }
+        return config;
+    }
+
+    private static InternalPartitionServiceImpl getPartitionServiceImpl(HazelcastInstance hz) {
+        return (InternalPartitionServiceImpl) getNodeEngineImpl(hz).getPartitionService();
+    }
+
+    /**
+     * Records the migrations running on the master and slows them down, so they overlap.
+     */
+    private static class ConcurrentMigrationListener extends InternalMigrationListener {
+
+        private final Set<MigrationInfo> runningMigrations = new HashSet<MigrationInfo>();
+
+        private volatile int maxRunningMigrations;
+        private volatile boolean conflictDetected;
+
+        @Override
+        public void onMigrationStart(MigrationParticipant participant, MigrationInfo migrationInfo) {
+            if (participant != MigrationParticipant.MASTER) {
+                return;
+            }
+            synchronized (runningMigrations) {
+                for (MigrationInfo running : runningMigrations) {
+                    if (running.getPartitionId() == migrationInfo.getPartitionId()
+                            || (equal(running.getSource(), migrationInfo.getSource())
+                            && running.getDestination().equals(migrationInfo.getDestination()))) {
+                        conflictDetected = true;
+                    }
+                }
+                runningMigrations.add(migrationInfo);
+                maxRunningMigrations = Math.max(maxRunningMigrations, runningMigrations.size());
+            }
+            sleepMillis(10);
+        }
+
+        @Override
+        public void onMigrationComplete(MigrationParticipant participant, MigrationInfo migrationInfo, boolean success) {
+            if (participant != MigrationParticipant.MASTER) {
+                return;
+            }
+            synchronized (runningMigrations) {
+                runningMigrations.remove(migrationInfo);
+            }
+        }
+
+        private static boolean equal(Address address1, Address address2) {
+            return address1 == null ? address2 == null : address1.equals(address2);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.internal.partition.PartitionStateGenerator;
+import com.hazelcast.nio.Address;
+import com.hazelcast.partition.membergroup.SingleMemberGroupFactory;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.createMembers;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.emptyPartitionArray;
+import static com.hazelcast.internal.partition.impl.PartitionStateGeneratorTest.toPartitionArray;
+
+/**
+ * Simulates a sequence of membership changes and compares the partition assignment strategies by the owner
+ * balance and the number of replicas which have to be migrated.
+ */
+@Ignore("Run manually only")
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(NightlyTest.class)
+public class PartitionAssignmentSimulation {
+
+    private static final int[] PARTITION_COUNTS = {271, 1021, 4099};
+    private static final int MAX_MEMBER_COUNT = 24;
+    private static final int BACKUP_COUNT = 1;
+
+    @Test
+    public void simulate() throws Exception {
+        for (int partitionCount : PARTITION_COUNTS) {
+            simulate("DEFAULT", new PartitionStateGeneratorImpl(), partitionCount);
+            simulate("CONSISTENT_HASH", new ConsistentHashPartitionStateGenerator(), partitionCount);
+        }
+    }
+
+    private static void simulate(String name, PartitionStateGenerator generator, int partitionCount) throws Exception {
+        List<Member> allMembers = createMembers(MAX_MEMBER_COUNT, 1);
+        List<Member> members = new ArrayList<Member>(allMembers.subList(0, 2));
+        Address[][] state = generator.arrange(new SingleMemberGroupFactory().createMemberGroups(members),
+                emptyPartitionArray(partitionCount));
+
+        long migrations = 0;
+        double maxImbalance = 0;
+        int changes = 0;
+        // grow the cluster one by one, then shrink it by removing every third member
+        for (int i = 2; i < MAX_MEMBER_COUNT; i++) {
+            members.add(allMembers.get(i));
+            Address[][] newState = generator.arrange(new SingleMemberGroupFactory().createMemberGroups(members),
+                    toPartitionArray(state));
+            migrations += countMigrations(state, newState);
+            maxImbalance = Math.max(maxImbalance, ownerImbalance(newState, members.size()));
+            state = newState;
+            changes++;
+        }
+        for (int i = 0; i < MAX_MEMBER_COUNT / 3; i++) {
+            Member removed = members.remove(i * 2);
+            promoteBackups(state, removed.getAddress());
+            Address[][] newState = generator.arrange(new SingleMemberGroupFactory().createMemberGroups(members),
+                    toPartitionArray(state));
+            migrations += countMigrations(state, newState);
+            maxImbalance = Math.max(maxImbalance, ownerImbalance(newState, members.size()));
+            state = newState;
+            changes++;
+        }
+
+        int replicaCount = BACKUP_COUNT + 1;
+        System.out.printf("%-16s partitions: %5d, membership changes: %d, copied replicas per change: %.1f"
+                        + " (%.1f%% of replicas), max owner load / average owner load: %.3f%n",
+                name, partitionCount, changes, (double) migrations / changes,
+                100d * migrations / changes / partitionCount / replicaCount, maxImbalance);
+    }
+
+    /**
+     * Counts the replicas which have to be copied to a member, replicas which only change their replica index
+     * on the same member are not counted.
+     */
+    private static int countMigrations(Address[][] state, Address[][] newState) {
+        int migrations = 0;
+        for (int partitionId = 0; partitionId < state.length; partitionId++) {
+            List<Address> previousReplicas = Arrays.asList(state[partitionId]).subList(0, BACKUP_COUNT + 1);
+            for (int replicaIndex = 0; replicaIndex <= BACKUP_COUNT; replicaIndex++) {
+                Address address = newState[partitionId][replicaIndex];
+                if (address != null && !previousReplicas.contains(address)) {
+                    migrations++;
+                }
+            }
+        }
+        return migrations;
+    }
+
+    private static double ownerImbalance(Address[][] state, int memberCount) {
+        Map<Address, Integer> loads = new HashMap<Address, Integer>();
+        int maxLoad = 0;
+        for (Address[] replicas : state) {
+            Integer load = loads.get(replicas[0]);
+            load = load == null ? 1 : load + 1;
+            loads.put(replicas[0], load);
+            maxLoad = Math.max(maxLoad, load);
+        }
+        return maxLoad / ((double) state.length / memberCount);
+    }
+
+    /**
+     * Removes the crashed member and shifts the remaining replicas up, like the partition service does.
+     */
+    private static void promoteBackups(Address[][] state, Address crashed) {
+        for (Address[] replicas : state) {
+            int target = 0;
+            for (int i = 0; i < InternalPartition.MAX_REPLICA_COUNT; i++) {
+                if (replicas[i] != null && !replicas[i].equals(crashed)) {
+                    replicas[target++] = replicas[i];
+                }
+            }
+            for (int i = target; i < InternalPartition.MAX_REPLICA_COUNT; i++) {
+                replicas[i] = null;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new PartitionAssignmentSimulation().simulate();
+    }
+}
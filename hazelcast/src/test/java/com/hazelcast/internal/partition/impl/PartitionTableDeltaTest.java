@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.partition.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.partition.InternalPartition;
+import com.hazelcast.nio.Address;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_TABLE_DELTA_ENABLED;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionTableDeltaTest extends HazelcastTestSupport {
+
+    @Test
+    public void testPartitionTables_areSynced_afterMigrations() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(4);
+        Config config = createConfig(true);
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2);
+
+        HazelcastInstance hz3 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz4 = factory.newHazelcastInstance(config);
+        waitAllForSafeState(hz1, hz2, hz3, hz4);
+
+        assertPartitionTablesEventually(hz1, hz2, hz3, hz4);
+    }
+
+    @Test
+    public void testPartitionTables_areSynced_afterMemberLeft() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        Config config = createConfig(true);
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz3 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2, hz3);
+        waitAllForSafeState(hz1, hz2, hz3);
+
+        hz3.getLifecycleService().terminate();
+        waitAllForSafeState(hz1, hz2);
+
+        assertPartitionTablesEventually(hz1, hz2);
+    }
+
+    @Test
+    public void testMemberWithStalePartitionTable_receivesFullPartitionTable() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        Config config = createConfig(true);
+        HazelcastInstance master = factory.newHazelcastInstance(config);
+        HazelcastInstance slave = factory.newHazelcastInstance(config);
+        warmUpPartitions(master, slave);
+        waitAllForSafeState(master, slave);
+        InternalPartitionServiceImpl masterPartitionService = getNode(master).partitionService;
+        // the partition table is published once, so the next publication sends only the changes
+        masterPartitionService.publishPartitionRuntimeState();
+        assertPartitionTablesEventually(master, slave);
+
+        // the slave misses a partition table change
+        PartitionStateManager partitionStateManager = getNode(slave).partitionService.getPartitionStateManager();
+        Address[] replicas = new Address[InternalPartition.MAX_REPLICA_COUNT];
+        replicas[0] = getAddress(slave);
+        partitionStateManager.updateReplicaAddresses(0, replicas);
+        partitionStateManager.setVersion(partitionStateManager.getVersion() - 1);
+
+        masterPartitionService.publishPartitionRuntimeState();
+
+        assertPartitionTablesEventually(master, slave);
+    }
+
+    @Test
+    public void testPartitionTables_areSynced_whenDeltaDisabled() {
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        Config config = createConfig(false);
+        HazelcastInstance hz1 = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2);
+
+        HazelcastInstance hz3 = factory.newHazelcastInstance(config);
+        waitAllForSafeState(hz1, hz2, hz3);
+
+        assertPartitionTablesEventually(hz1, hz2, hz3);
+    }
+
+    private static Config createConfig(boolean deltaEnabled) {
+        return new Config()
+                .setProperty(PARTITION_COUNT.getName(), "111")
+                .setProperty(PARTITION_TABLE_DELTA_ENABLED.getName(), String.valueOf(deltaEnabled));
+    }
+
+    private static void assertPartitionTablesEventually(final HazelcastInstance master, final HazelcastInstance... others) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                InternalPartitionServiceImpl masterPartitionService = getNode(master).partitionService;
+                for (HazelcastInstance instance : others) {
+                    InternalPartitionServiceImpl partitionService = getNode(instance).partitionService;
+                    assertEquals(masterPartitionService.getPartitionStateVersion(),
+                            partitionService.getPartitionStateVersion());
+                    for (int partitionId = 0; partitionId < masterPartitionService.getPartitionCount(); partitionId++) {
+                        assertArrayEquals(getReplicas(masterPartitionService, partitionId),
+                                getReplicas(partitionService, partitionId));
+                    }
+                }
+            }
+        });
+    }
+
+    private static Address[] getReplicas(InternalPartitionServiceImpl partitionService, int partitionId) {
+        InternalPartition partition = partitionService.getPartition(partitionId);
+        Address[] replicas = new Address[InternalPartition.MAX_REPLICA_COUNT];
+        for (int replicaIndex = 0; replicaIndex < replicas.length; replicaIndex++) {
+            replicas[replicaIndex] = partition.getReplicaAddress(replicaIndex);
+        }
+        return replicas;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.map.impl.HotKeyTracker.DECAY_WINDOW_PER_COUNTER;
+import static com.hazelcast.map.impl.HotKeyTracker.MIN_SAMPLE_SIZE;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class HotKeyTrackerTest {
+
+    private static final int CAPACITY = 8;
+    private static final int THRESHOLD_PERCENTAGE = 10;
+
+    private final InternalSerializationService ss = new DefaultSerializationServiceBuilder().build();
+    private final HotKeyTracker tracker = new HotKeyTracker(CAPACITY, THRESHOLD_PERCENTAGE);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_withZeroCapacity() {
+        new HotKeyTracker(0, THRESHOLD_PERCENTAGE);
+    }
+
+    @Test
+    public void testIsHot_beforeMinSampleSize() {
+        Data key = ss.toData("key");
+        for (int i = 0; i < MIN_SAMPLE_SIZE - 1; i++) {
+            tracker.onRead(key);
+        }
+
+        assertFalse(tracker.isHot(key));
+        assertEquals(0, tracker.getHotKeyCount());
+    }
+
+    @Test
+    public void testIsHot_withUniformReads() {
+        for (int i = 0; i < 10 * MIN_SAMPLE_SIZE; i++) {
+            tracker.onRead(ss.toData(i));
+        }
+
+        assertEquals(0, tracker.getHotKeyCount());
+        assertTrue(tracker.getHotKeys().isEmpty());
+    }
+
+    @Test
+    public void testIsHot_withSkewedReads() {
+        Data hotKey = ss.toData("hot");
+        Data warmKey = ss.toData("warm");
+        for (int i = 0; i < 10 * MIN_SAMPLE_SIZE; i++) {
+            tracker.onRead(ss.toData(i));
+            if (i % 2 == 0) {
+                tracker.onRead(hotKey);
+            }
+            if (i % 4 == 0) {
+                tracker.onRead(warmKey);
+            }
+        }
+
+        assertTrue(tracker.isHot(hotKey));
+        assertTrue(tracker.isHot(warmKey));
+        assertFalse(tracker.isHot(ss.toData(1)));
+        assertEquals(asList(hotKey, warmKey), tracker.getHotKeys());
+    }
+
+    @Test
+    public void testGetHotKeys_withManyColdKeysAndDecay() {
+        Data[] hotKeys = {ss.toData("hot-0"), ss.toData("hot-1"), ss.toData("hot-2")};
+        int reads = 3 * CAPACITY * DECAY_WINDOW_PER_COUNTER;
+        for (int i = 0; i < reads; i++) {
+            // each cold key is read once, the hot keys in the ratio 4:2:1 and 50%, 25% and 12.5% of all reads
+            tracker.onRead(hotKeys[0]);
+            if (i % 2 == 0) {
+                tracker.onRead(hotKeys[1]);
+            }
+            if (i % 4 == 0) {
+                tracker.onRead(hotKeys[2]);
+                tracker.onRead(ss.toData(i));
+            }
+        }
+
+        assertEquals(asList(hotKeys), tracker.getHotKeys());
+        assertEquals(3, tracker.getHotKeyCount());
+    }
+
+    @Test
+    public void testIsHot_coolsDownWhenNoLongerRead() {
+        Data hotKey = ss.toData("hot");
+        for (int i = 0; i < MIN_SAMPLE_SIZE; i++) {
+            tracker.onRead(hotKey);
+        }
+        assertTrue(tracker.isHot(hotKey));
+
+        for (int i = 0; i < 4 * CAPACITY * DECAY_WINDOW_PER_COUNTER; i++) {
+            tracker.onRead(ss.toData(i));
+        }
+
+        assertFalse(tracker.isHot(hotKey));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.EntryView;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.monitor.impl.LocalMapStatsImpl;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.map.impl.HotKeyTracker.MIN_SAMPLE_SIZE;
+import static com.hazelcast.spi.properties.GroupProperty.MAP_HOT_KEY_TRACKER_CAPACITY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class MapHotKeyTest extends HazelcastTestSupport {
+
+    private static final int READ_COUNT = 10 * MIN_SAMPLE_SIZE;
+
+    @Test
+    public void testLocalMapStats_reportsHotKeys() {
+        Config config = new Config()
+                .setProperty(MAP_HOT_KEY_TRACKER_CAPACITY.getName(), "8");
+        HazelcastInstance hz = createHazelcastInstance(config);
+        IMap<Integer, Integer> map = hz.getMap(randomMapName());
+        for (int i = 0; i < READ_COUNT; i++) {
+            map.put(i, i);
+        }
+
+        for (int i = 0; i < READ_COUNT; i++) {
+            map.get(0);
+            map.get(i);
+        }
+
+        LocalMapStatsImpl stats = (LocalMapStatsImpl) map.getLocalMapStats();
+        assertEquals(1, stats.getHotKeyCount());
+    }
+
+    @Test
+    public void testLocalMapStats_withDisabledHotKeyDetection() {
+        HazelcastInstance hz = createHazelcastInstance();
+        IMap<Integer, Integer> map = hz.getMap(randomMapName());
+        map.put(0, 0);
+
+        for (int i = 0; i < READ_COUNT; i++) {
+            map.get(0);
+        }
+
+        LocalMapStatsImpl stats = (LocalMapStatsImpl) map.getLocalMapStats();
+        assertEquals(0, stats.getHotKeyCount());
+    }
+
+    @Test
+    public void testGet_readsHotKeyFromBackupReplica() {
+        String mapName = randomMapName();
+        Config config = new Config()
+                .setProperty(MAP_HOT_KEY_TRACKER_CAPACITY.getName(), "8");
+        config.getMapConfig(mapName).setHotKeyReadBackupData(true);
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        HazelcastInstance owner = factory.newHazelcastInstance(config);
+        HazelcastInstance backup = factory.newHazelcastInstance(config);
+        warmUpPartitions(owner, backup);
+
+        String key = generateKeyOwnedBy(owner);
+        owner.getMap(mapName).put(key, "value");
+
+        IMap<String, String> map = backup.getMap(mapName);
+        for (int i = 0; i < READ_COUNT; i++) {
+            assertEquals("value", map.get(key));
+        }
+
+        // only the reads until the key got hot have been sent to the partition owner
+        EntryView<String, String> entryView = map.getEntryView(key);
+        assertTrue("Expected most reads from the backup replica, but owner had " + entryView.getHits() + " hits",
+                entryView.getHits() <= MIN_SAMPLE_SIZE);
+
+        map.put(key, "newValue");
+        assertEquals("newValue", map.get(key));
+    }
+
+    @Test
+    public void testGet_readsHotKeyFromOwner_whenMapDoesNotReadHotKeysFromBackup() {
+        Config config = new Config()
+                .setProperty(MAP_HOT_KEY_TRACKER_CAPACITY.getName(), "8");
+        config.getMapConfig("hotKeysFromBackup").setHotKeyReadBackupData(true);
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        HazelcastInstance owner = factory.newHazelcastInstance(config);
+        HazelcastInstance backup = factory.newHazelcastInstance(config);
+        warmUpPartitions(owner, backup);
+
+        String mapName = randomMapName();
+        String key = generateKeyOwnedBy(owner);
+        owner.getMap(mapName).put(key, "value");
+
+        IMap<String, String> map = backup.getMap(mapName);
+        for (int i = 0; i < READ_COUNT; i++) {
+            assertEquals("value", map.get(key));
+        }
+
+        assertEquals(READ_COUNT, map.getEntryView(key).getHits());
+    }
+}
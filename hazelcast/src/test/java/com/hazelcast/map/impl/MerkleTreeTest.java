@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class MerkleTreeTest {
+
+    private static final int DEPTH = 4;
+    private static final int ENTRY_COUNT = 100;
+
+    private final InternalSerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_withZeroDepth() {
+        new MerkleTree(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_withTooLargeDepth() {
+        new MerkleTree(MerkleTree.MAX_DEPTH + 1);
+    }
+
+    @Test
+    public void testNodes_areIndependentOfUpdateOrder() {
+        MerkleTree tree1 = new MerkleTree(DEPTH);
+        MerkleTree tree2 = new MerkleTree(DEPTH);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            tree1.add(ss.toData(i), ss.toData("value" + i));
+        }
+        for (int i = ENTRY_COUNT - 1; i >= 0; i--) {
+            tree2.add(ss.toData(i), ss.toData("old" + i));
+            tree2.replace(ss.toData(i), ss.toData("old" + i), ss.toData("value" + i));
+        }
+
+        assertArrayEquals(tree1.getNodes(), tree2.getNodes());
+        assertEquals(0, tree1.compare(tree2.getNodes()).length);
+    }
+
+    @Test
+    public void testRemove_restoresEmptyTree() {
+        MerkleTree tree = new MerkleTree(DEPTH);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            tree.add(ss.toData(i), ss.toData(i));
+        }
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            tree.remove(ss.toData(i), ss.toData(i));
+        }
+
+        assertArrayEquals(new MerkleTree(DEPTH).getNodes(), tree.getNodes());
+    }
+
+    @Test
+    public void testCompare_returnsLeafOfDifferingEntry() {
+        MerkleTree tree1 = new MerkleTree(DEPTH);
+        MerkleTree tree2 = new MerkleTree(DEPTH);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            tree1.add(ss.toData(i), ss.toData(i));
+            tree2.add(ss.toData(i), ss.toData(i));
+        }
+        Data key = ss.toData(42);
+        tree2.replace(key, ss.toData(42), ss.toData(-1));
+
+        assertArrayEquals(new int[]{tree1.getLeaf(key)}, tree1.compare(tree2.getNodes()));
+    }
+
+    @Test
+    public void testCompare_returnsLeavesInAscendingOrder() {
+        MerkleTree tree = new MerkleTree(DEPTH);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            tree.add(ss.toData(i), ss.toData(i));
+        }
+
+        int[] leaves = tree.compare(new MerkleTree(DEPTH).getNodes());
+
+        assertEquals(tree.getLeafCount(), leaves.length);
+        for (int i = 0; i < leaves.length; i++) {
+            assertEquals(i, leaves[i]);
+        }
+    }
+
+    @Test
+    public void testCompare_withDifferentDepth() {
+        MerkleTree tree = new MerkleTree(DEPTH);
+
+        assertNull(tree.compare(new MerkleTree(DEPTH + 1).getNodes()));
+    }
+}
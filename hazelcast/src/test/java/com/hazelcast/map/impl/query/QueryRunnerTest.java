@@ -20,8 +20,11 @@ import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 import com.hazelcast.map.impl.MapService;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.IndexAwarePredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.Predicates;
+import com.hazelcast.query.impl.QueryContext;
+import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import com.hazelcast.test.HazelcastTestSupport;
 import com.hazelcast.test.annotation.QuickTest;
@@ -32,6 +35,8 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
@@ -94,6 +99,31 @@ public class QueryRunnerTest extends HazelcastTestSupport {
         assertEquals(map.get(key), toObject(result.getRows().iterator().next().getValue()));
     }
 
+    @Test
+    public void runIndexQueryOnSinglePartition() throws ExecutionException, InterruptedException {
+        map.addIndex("this", false);
+        String otherKey = generateKeyForPartition(instance, partitionId + 1);
+        map.put(otherKey, value);
+
+        Predicate predicate = new IndexOnlyPredicate(Predicates.equal("this", value));
+        Query query = Query.of().mapName(map.getName()).predicate(predicate).iterationType(IterationType.ENTRY).build();
+        QueryResult result = (QueryResult) queryRunner.runIndexOrPartitionScanQueryOnGivenOwnedPartition(query, partitionId);
+
+        // the index finds both entries, only the one of the queried partition is returned
+        assertEquals(1, result.getRows().size());
+        assertEquals(key, toObject(result.getRows().iterator().next().getKey()));
+    }
+
+    @Test
+    public void runIndexOrPartitionScanQueryOnSinglePartition_withoutIndex() throws ExecutionException, InterruptedException {
+        Predicate predicate = Predicates.equal("this", value);
+        Query query = Query.of().mapName(map.getName()).predicate(predicate).iterationType(IterationType.ENTRY).build();
+        QueryResult result = (QueryResult) queryRunner.runIndexOrPartitionScanQueryOnGivenOwnedPartition(query, partitionId);
+
+        assertEquals(1, result.getRows().size());
+        assertEquals(map.get(key), toObject(result.getRows().iterator().next().getValue()));
+    }
+
     private QueryRunner getQueryRunner() {
         MapService mapService = getNodeEngineImpl(instance).getService(MapService.SERVICE_NAME);
         return mapService.getMapServiceContext().getMapQueryRunner("");
@@ -103,4 +133,31 @@ public class QueryRunnerTest extends HazelcastTestSupport {
         return getSerializationService(instance).toObject(data);
     }
 
+    /**
+     * Fails if the query falls back to a partition scan.
+     */
+    private static class IndexOnlyPredicate implements IndexAwarePredicate {
+
+        private final IndexAwarePredicate delegate;
+
+        IndexOnlyPredicate(Predicate delegate) {
+            this.delegate = (IndexAwarePredicate) delegate;
+        }
+
+        @Override
+        public Set<QueryableEntry> filter(QueryContext queryContext) {
+            return delegate.filter(queryContext);
+        }
+
+        @Override
+        public boolean isIndexed(QueryContext queryContext) {
+            return delegate.isIndexed(queryContext);
+        }
+
+        @Override
+        public boolean apply(Map.Entry mapEntry) {
+            throw new AssertionError("The query did not use the index");
+        }
+    }
+
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.querycache;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.QueryCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.QueryCache;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static com.hazelcast.map.impl.querycache.AbstractQueryCacheTestSupport.getMap;
+import static com.hazelcast.spi.properties.GroupProperty.QUERY_CACHE_DELTA_ENCODING_ENABLED;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class QueryCacheDeltaEncodingTest extends HazelcastTestSupport {
+
+    private static final int KEY_COUNT = 100;
+    private static final int VALUE_LENGTH = 1000;
+
+    @Test
+    public void testUpdatesAreApplied() {
+        testUpdatesAreApplied(false, InMemoryFormat.BINARY);
+    }
+
+    @Test
+    public void testUpdatesAreApplied_withCoalescing() {
+        testUpdatesAreApplied(true, InMemoryFormat.BINARY);
+    }
+
+    @Test
+    public void testUpdatesAreApplied_withObjectInMemoryFormat() {
+        testUpdatesAreApplied(false, InMemoryFormat.OBJECT);
+    }
+
+    @Test
+    public void testEntriesLeavingAndEnteringPredicate() {
+        String mapName = randomMapName();
+        String cacheName = randomString();
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        Config config = getConfig(mapName, cacheName, false, InMemoryFormat.BINARY);
+        HazelcastInstance node = factory.newHazelcastInstance(config);
+        factory.newHazelcastInstance(config);
+
+        final IMap<Integer, String> map = getMap(node, mapName);
+        final QueryCache<Integer, String> cache = map.getQueryCache(cacheName, new SqlPredicate("this like 'a%'"), true);
+
+        for (int key = 0; key < KEY_COUNT; key++) {
+            map.put(key, wideValue('a', key));
+        }
+        for (int key = 0; key < KEY_COUNT; key += 2) {
+            map.put(key, wideValue('b', key));
+        }
+        for (int key = 0; key < KEY_COUNT; key += 4) {
+            map.put(key, wideValue('a', key + 1));
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(KEY_COUNT / 2 + KEY_COUNT / 4, cache.size());
+                for (int key = 0; key < KEY_COUNT; key++) {
+                    String value = map.get(key);
+                    assertEquals(value.charAt(0) == 'a' ? value : null, cache.get(key));
+                }
+            }
+        });
+    }
+
+    private void testUpdatesAreApplied(boolean coalesce, InMemoryFormat inMemoryFormat) {
+        String mapName = randomMapName();
+        String cacheName = randomString();
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        Config config = getConfig(mapName, cacheName, coalesce, inMemoryFormat);
+        HazelcastInstance node = factory.newHazelcastInstance(config);
+        factory.newHazelcastInstance(config);
+
+        final IMap<Integer, String> map = getMap(node, mapName);
+        final QueryCache<Integer, String> cache = map.getQueryCache(cacheName);
+
+        for (int key = 0; key < KEY_COUNT; key++) {
+            map.put(key, wideValue('a', key));
+        }
+        for (int update = 1; update <= 10; update++) {
+            for (int key = 0; key < KEY_COUNT; key++) {
+                map.put(key, wideValue('a', key + update));
+            }
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(KEY_COUNT, cache.size());
+                for (int key = 0; key < KEY_COUNT; key++) {
+                    assertEquals(wideValue('a', key + 10), cache.get(key));
+                }
+            }
+        });
+    }
+
+    private static Config getConfig(String mapName, String cacheName, boolean coalesce, InMemoryFormat inMemoryFormat) {
+        QueryCacheConfig cacheConfig = new QueryCacheConfig(cacheName)
+                .setCoalesce(coalesce)
+                .setInMemoryFormat(inMemoryFormat)
+                .setIncludeValue(true);
+        cacheConfig.getPredicateConfig().setSql("__key >= 0");
+
+        Config config = new Config()
+                .setProperty(QUERY_CACHE_DELTA_ENCODING_ENABLED.getName(), "true");
+        config.getMapConfig(mapName)
+                .addQueryCacheConfig(cacheConfig);
+        return config;
+    }
+
+    /**
+     * Returns a wide value starting with the given char, which differs from the other values only in a few bytes.
+     */
+    private static String wideValue(char first, int variant) {
+        char[] chars = new char[VALUE_LENGTH];
+        Arrays.fill(chars, 'x');
+        chars[0] = first;
+        String variantString = String.valueOf(variant);
+        variantString.getChars(0, variantString.length(), chars, VALUE_LENGTH / 2);
+        return new String(chars);
+    }
+}
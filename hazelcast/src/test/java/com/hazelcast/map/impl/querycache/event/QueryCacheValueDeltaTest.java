@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.querycache.event;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class QueryCacheValueDeltaTest extends HazelcastTestSupport {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testApply_restoresNewValue() {
+        Data oldValue = toData(wideValue(1000, 500, 'x'));
+        Data newValue = toData(wideValue(1000, 500, 'y'));
+
+        QueryCacheValueDelta delta = QueryCacheValueDelta.diff(oldValue, newValue);
+
+        assertNotNull(delta);
+        assertEquals(newValue, delta.apply(oldValue));
+    }
+
+    @Test
+    public void testApply_withChangedLength() {
+        Data oldValue = toData(wideValue(1000, 0, 'x'));
+        Data newValue = toData(wideValue(1010, 0, 'x'));
+
+        QueryCacheValueDelta delta = QueryCacheValueDelta.diff(oldValue, newValue);
+
+        assertNotNull(delta);
+        assertEquals(newValue, delta.apply(oldValue));
+    }
+
+    @Test
+    public void testApply_afterSerialization() {
+        Data oldValue = toData(wideValue(1000, 999, 'x'));
+        Data newValue = toData(wideValue(1000, 999, 'y'));
+
+        Data deltaData = toData(QueryCacheValueDelta.diff(oldValue, newValue));
+        QueryCacheValueDelta delta = serializationService.toObject(deltaData);
+
+        assertEquals(newValue, delta.apply(oldValue));
+    }
+
+    @Test
+    public void testApply_toOtherValue_returnsNull() {
+        Data oldValue = toData(wideValue(1000, 500, 'x'));
+        Data newValue = toData(wideValue(1000, 500, 'y'));
+
+        QueryCacheValueDelta delta = QueryCacheValueDelta.diff(oldValue, newValue);
+
+        assertNull(delta.apply(toData(wideValue(1000, 500, 'z'))));
+        assertNull(delta.apply(toData(wideValue(999, 500, 'x'))));
+    }
+
+    @Test
+    public void testDiff_ofSmallValues_returnsNull() {
+        assertNull(QueryCacheValueDelta.diff(toData(1), toData(2)));
+    }
+
+    @Test
+    public void testDiff_ofUnrelatedValues_returnsNull() {
+        assertNull(QueryCacheValueDelta.diff(toData(wideValue(1000, 0, 'x')), toData(randomString())));
+    }
+
+    private Data toData(Object value) {
+        return serializationService.toData(value);
+    }
+
+    private static String wideValue(int length, int changedIndex, char changedChar) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        chars[changedIndex] = changedChar;
+        return new String(chars);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2008-2017, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.querycache.subscriber;
+
+import com.hazelcast.config.QueryCacheConfig;
+import com.hazelcast.core.EntryEventType;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.EventLostEvent;
+import com.hazelcast.map.impl.querycache.QueryCacheContext;
+import com.hazelcast.map.impl.querycache.QueryCacheEventService;
+import com.hazelcast.map.impl.querycache.accumulator.AccumulatorInfo;
+import com.hazelcast.map.impl.querycache.event.DefaultQueryCacheEventData;
+import com.hazelcast.map.impl.querycache.event.LocalEntryEventData;
+import com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.TruePredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import static com.hazelcast.core.EntryEventType.EVICTED;
+import static com.hazelcast.core.EntryEventType.UPDATED;
+import static com.hazelcast.map.impl.querycache.event.QueryCacheValueDelta.DELTA_UPDATED_EVENT_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class SubscriberAccumulatorHandlerTest {
+
+    private static final int PARTITION_ID = 3;
+
+    private InternalSerializationService serializationService;
+    private InternalQueryCache queryCache;
+    private QueryCacheEventService eventService;
+    private SubscriberAccumulatorHandler handler;
+
+    private Data key;
+    private Data oldValue;
+    private Data newValue;
+
+    @Before
+    public void setUp() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        queryCache = mock(InternalQueryCache.class);
+        QueryCacheContext context = mock(QueryCacheContext.class, RETURNS_DEEP_STUBS);
+        when(context.getSerializationService()).thenReturn(serializationService);
+        eventService = context.getSubscriberContext().getEventService();
+        AccumulatorInfo info = AccumulatorInfo.createAccumulatorInfo(new QueryCacheConfig("cache").setIncludeValue(true),
+                "map", "cache", TruePredicate.INSTANCE);
+        handler = new SubscriberAccumulatorHandler(true, queryCache, serializationService, context, info);
+
+        key = serializationService.toData("key");
+        oldValue = serializationService.toData("value-with-a-long-unchanged-tail-1");
+        newValue = serializationService.toData("value-with-a-long-unchanged-tail-2");
+    }
+
+    @Test
+    public void testDelta_isApplied_toHeldValue() {
+        when(queryCache.getDataValueOrNull(key)).thenReturn(oldValue);
+
+        handler.handle(deltaEvent(), false);
+
+        verify(queryCache).setInternal(key, newValue, false, UPDATED);
+        verify(eventService, never()).publish(anyString(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void testDelta_isIgnored_whenKeyIsNotHeld() {
+        handler.handle(deltaEvent(), false);
+
+        verify(queryCache, never()).setInternal(any(), any(), anyBoolean(), any(EntryEventType.class));
+        verify(queryCache, never()).getDelegate();
+        verify(eventService, never()).publish(anyString(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void testStaleValue_isEvicted_andEventLossIsReported_whenDeltaDoesNotMatchHeldValue() {
+        when(queryCache.getDataValueOrNull(key)).thenReturn(serializationService.toData("another-value"));
+
+        handler.handle(deltaEvent(), false);
+
+        verify(queryCache).deleteInternal(key, false, EVICTED);
+        verify(queryCache, never()).getDelegate();
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(eventService).publish(eq("map"), eq("cache"), eventCaptor.capture(), anyInt());
+        LocalEntryEventData event = (LocalEntryEventData) eventCaptor.getValue();
+        assertEquals(EventLostEvent.EVENT_TYPE, event.getEventType());
+        assertEquals(PARTITION_ID, event.getPartitionId());
+    }
+
+    private DefaultQueryCacheEventData deltaEvent() {
+        DefaultQueryCacheEventData event = new DefaultQueryCacheEventData();
+        event.setDataKey(key);
+        event.setDataNewValue(serializationService.toData(QueryCacheValueDelta.diff(oldValue, newValue)));
+        event.setEventType(DELTA_UPDATED_EVENT_TYPE);
+        event.setPartitionId(PARTITION_ID);
+        return event;
+    }
+}